@@ -57,4 +57,7 @@ public interface PageCache
 
     @Description( "Number of exceptions caught during page eviction" )
     public long getEvictionExceptions();
+
+    @Description( "Faults, hits, evictions, bytes read and written, and resident pages, of each mapped file" )
+    PagedFileInfo[] getMappedFiles();
 }
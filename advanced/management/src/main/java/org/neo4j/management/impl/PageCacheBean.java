@@ -19,14 +19,19 @@
  */
 package org.neo4j.management.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.management.NotCompliantMBeanException;
 
 import org.neo4j.helpers.Service;
 import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 import org.neo4j.jmx.impl.ManagementBeanProvider;
 import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
 import org.neo4j.management.PageCache;
+import org.neo4j.management.PagedFileInfo;
 
 @Service.Implementation(ManagementBeanProvider.class)
 public final class PageCacheBean extends ManagementBeanProvider
@@ -111,5 +116,18 @@ public final class PageCacheBean extends ManagementBeanProvider
         {
             return pageCacheMonitor.countEvictionExceptions();
         }
+
+        @Override
+        public PagedFileInfo[] getMappedFiles()
+        {
+            List<PagedFileInfo> files = new ArrayList<>();
+            for ( PagedFileMonitor file : pageCacheMonitor.mappedFiles() )
+            {
+                files.add( new PagedFileInfo( file.file().getName(), file.countFaults(), file.countHits(),
+                        file.countEvictions(), file.countBytesRead(), file.countBytesWritten(),
+                        file.countResidentPages() ) );
+            }
+            return files.toArray( new PagedFileInfo[files.size()] );
+        }
     }
 }
@@ -56,7 +56,7 @@ public class NodeCorrectlyIndexedCheck implements RecordCheck<NodeRecord, Consis
         Set<Long> labels = NodeLabelReader.getListOfLabels( record, records, engine );
         for ( IndexRule indexRule : indexes.rules() )
         {
-            if ( !labels.contains( (long) indexRule.getLabel() ) )
+            if ( !labels.contains( (long) indexRule.getLabel() ) || indexRule.isComposite() )
             {
                 continue;
             }
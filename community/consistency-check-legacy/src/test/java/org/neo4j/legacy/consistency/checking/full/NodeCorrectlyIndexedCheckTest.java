@@ -32,10 +32,13 @@ import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.direct.BoundedIterable;
 import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexOrder;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.SchemaIndexProvider.Descriptor;
@@ -241,6 +244,21 @@ public class NodeCorrectlyIndexedCheckTest
                     throw new UnsupportedOperationException();
                 }
 
+                @Override
+                public Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper,
+                                                                                 IndexOrder order )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                                        String upper, boolean includeUpper,
+                                                                        IndexOrder order )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
                 @Override
                 public PrimitiveLongIterator scan()
                 {
@@ -34,6 +34,7 @@ import org.neo4j.consistency.checking.cache.CacheAccess;
 import org.neo4j.consistency.checking.index.IndexAccessors;
 import org.neo4j.consistency.report.ConsistencyReport;
 import org.neo4j.consistency.store.RecordAccess;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.impl.api.LookupFilter;
 import org.neo4j.kernel.impl.store.record.IndexRule;
@@ -91,6 +92,11 @@ public class PropertyAndNodeIndexedCheck implements RecordCheck<NodeRecord, Cons
             {
                 properties = propertyReader.propertyBlocks( propertyRecs );
             }
+            if ( indexRule.isComposite() )
+            {
+                checkCompositeIndexed( record, engine, indexRule, properties );
+                continue;
+            }
             PropertyBlock property = propertyWithKey( properties, indexRule.getPropertyKey() );
 
             if ( property == null )
@@ -116,6 +122,31 @@ public class PropertyAndNodeIndexedCheck implements RecordCheck<NodeRecord, Cons
         }
     }
 
+    /**
+     * A node is in a composite index when it has all of its properties, by the composite value of them.
+     */
+    private void checkCompositeIndexed( NodeRecord record,
+            CheckerEngine<NodeRecord, ConsistencyReport.NodeConsistencyReport> engine,
+            IndexRule indexRule, List<PropertyBlock> properties )
+    {
+        int[] propertyKeys = indexRule.getPropertyKeys();
+        Object[] values = new Object[propertyKeys.length];
+        for ( int i = 0; i < propertyKeys.length; i++ )
+        {
+            PropertyBlock property = propertyWithKey( properties, propertyKeys[i] );
+            if ( property == null )
+            {
+                return;
+            }
+            values[i] = propertyReader.propertyValue( property ).value();
+        }
+
+        try ( IndexReader reader = indexes.accessorFor( indexRule ).newReader() )
+        {
+            verifyNodeCorrectlyIndexed( record.getId(), new CompositeIndexValue( values ), engine, indexRule, reader );
+        }
+    }
+
     private void verifyNodeCorrectlyIndexedUniquely( long nodeId, int propertyKeyId, Object propertyValue,
             CheckerEngine<NodeRecord,ConsistencyReport.NodeConsistencyReport> engine, IndexRule indexRule,
             IndexReader reader )
@@ -31,6 +31,7 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -43,6 +44,7 @@ import org.neo4j.consistency.ConsistencyCheckService;
 import org.neo4j.consistency.ConsistencyCheckService.Result;
 import org.neo4j.consistency.checking.full.ConsistencyCheckIncompleteException;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.PropertyContainer;
@@ -51,7 +53,11 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
 import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.api.ReadOperations;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.impl.logging.NullLogService;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.register.Register;
@@ -62,7 +68,9 @@ import org.neo4j.test.TargetDirectory;
 import org.neo4j.test.TestGraphDatabaseFactory;
 import org.neo4j.tooling.GlobalGraphOperations;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdGenerator;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdGenerators;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMapper;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMappers;
 import org.neo4j.unsafe.impl.batchimport.input.Group;
 import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
 import org.neo4j.unsafe.impl.batchimport.input.InputNode;
@@ -70,11 +78,19 @@ import org.neo4j.unsafe.impl.batchimport.input.InputRelationship;
 import org.neo4j.unsafe.impl.batchimport.input.Inputs;
 import org.neo4j.unsafe.impl.batchimport.input.SimpleInputIterator;
 import org.neo4j.unsafe.impl.batchimport.staging.ExecutionMonitor;
+import org.neo4j.unsafe.impl.batchimport.staging.MultiExecutionMonitor;
+import org.neo4j.unsafe.impl.batchimport.staging.StageExecution;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.neo4j.graphdb.DynamicLabel.label;
+import static org.neo4j.graphdb.DynamicRelationshipType.withName;
 import static org.neo4j.helpers.collection.IteratorUtil.asSet;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
 import static org.neo4j.unsafe.impl.batchimport.AdditionalInitialIds.EMPTY;
@@ -84,6 +100,7 @@ import static org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdGenerators.sta
 import static org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMappers.longs;
 import static org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMappers.strings;
 import static org.neo4j.unsafe.impl.batchimport.input.Collectors.silentBadCollector;
+import static org.neo4j.unsafe.impl.batchimport.input.SimpleInputIteratorWrapper.wrap;
 import static org.neo4j.unsafe.impl.batchimport.staging.ProcessorAssignmentStrategies.eagerRandomSaturation;
 
 @RunWith( Parameterized.class )
@@ -116,33 +133,30 @@ public class ParallelBatchImporterTest
         }
     };
     private final InputIdGenerator inputIdGenerator;
-    private final IdMapper idMapper;
-    private final IdGenerator idGenerator;
     private final boolean multiPassIterators;
 
-    @Parameterized.Parameters(name = "{0},{1},{3}")
+    @Parameterized.Parameters(name = "{0},{1}")
     public static Collection<Object[]> data()
     {
         return Arrays.<Object[]>asList(
 
                 // synchronous I/O, actual node id input
-                new Object[]{new LongInputIdGenerator(), longs( AUTO ), fromInput(), true},
+                new Object[]{new LongInputIdGenerator(), true},
                 // synchronous I/O, string id input
-                new Object[]{new StringInputIdGenerator(), strings( AUTO ), startingFromTheBeginning(), true},
+                new Object[]{new StringInputIdGenerator(), true},
                 // synchronous I/O, string id input
-                new Object[]{new StringInputIdGenerator(), strings( AUTO ), startingFromTheBeginning(), false},
+                new Object[]{new StringInputIdGenerator(), false},
                 // extra slow parallel I/O, actual node id input
-                new Object[]{new LongInputIdGenerator(), longs( AUTO ), fromInput(), false}
+                new Object[]{new LongInputIdGenerator(), false}
         );
     }
 
-    public ParallelBatchImporterTest( InputIdGenerator inputIdGenerator,
-            IdMapper idMapper, IdGenerator idGenerator, boolean multiPassIterators )
+    public ParallelBatchImporterTest( InputIdGenerator inputIdGenerator, boolean multiPassIterators )
     {
         this.multiPassIterators = multiPassIterators;
         this.inputIdGenerator = inputIdGenerator;
-        this.idMapper = idMapper;
-        this.idGenerator = idGenerator;
+        // The parameters are shared by all tests, so start from the same state
+        inputIdGenerator.reset();
     }
 
     @Test
@@ -163,7 +177,7 @@ public class ParallelBatchImporterTest
             inserter.doImport( Inputs.input(
                     nodes( nodeRandomSeed, NODE_COUNT, inputIdGenerator, groups ),
                     relationships( relationshipRandomSeed, RELATIONSHIP_COUNT, inputIdGenerator, groups ),
-                    idMapper, idGenerator, false,
+                    inputIdGenerator.idMapper(), inputIdGenerator.idGenerator(), false,
                     /*insanely high bad tolerance, but it will actually never  be that many*/
                     silentBadCollector( RELATIONSHIP_COUNT ) ) );
 
@@ -211,6 +225,279 @@ public class ParallelBatchImporterTest
         }
     }
 
+    @Test
+    public void shouldResumeImportFailedInRelationshipStage() throws Exception
+    {
+        // GIVEN an import which fails in the relationship stage, i.e. after having completed the node stages
+        File storeDir = directory.graphDbDir();
+        FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+        IdGroupDistribution groups = new IdGroupDistribution( NODE_COUNT, 5, random.random() );
+        long nodeRandomSeed = random.nextLong(), relationshipRandomSeed = random.nextLong();
+        BatchImporter failingImporter = new ParallelBatchImporter( storeDir, fs, config,
+                NullLogService.getInstance(), new MultiExecutionMonitor(
+                        eagerRandomSaturation( config.maxNumberOfProcessors() ), failingStage( "Relationships" ) ),
+                EMPTY );
+        try
+        {
+            failingImporter.doImport( Inputs.input(
+                    nodes( nodeRandomSeed, NODE_COUNT, inputIdGenerator, groups ),
+                    relationships( relationshipRandomSeed, RELATIONSHIP_COUNT, inputIdGenerator, groups ),
+                    inputIdGenerator.idMapper(), inputIdGenerator.idGenerator(), false,
+                    silentBadCollector( RELATIONSHIP_COUNT ) ) );
+            fail( "Should have failed" );
+        }
+        catch ( Exception e )
+        {
+            // THEN
+            assertTrue( e.getMessage(), e.getMessage().contains( FAILURE_MESSAGE ) );
+        }
+        assertTrue( ImportCheckpoint.exists( fs, storeDir ) );
+
+        // WHEN resuming it, with the same input
+        BatchImporter resumingImporter = new ParallelBatchImporter( storeDir, fs, config,
+                NullLogService.getInstance(), eagerRandomSaturation( config.maxNumberOfProcessors() ),
+                EMPTY, false, Collections.<SchemaIndexDefinition>emptyList(), true );
+        resumingImporter.doImport( Inputs.input(
+                nodes( nodeRandomSeed, NODE_COUNT, inputIdGenerator, groups ),
+                relationships( relationshipRandomSeed, RELATIONSHIP_COUNT, inputIdGenerator, groups ),
+                inputIdGenerator.idMapper(), inputIdGenerator.idGenerator(), false,
+                silentBadCollector( RELATIONSHIP_COUNT ) ) );
+
+        // THEN
+        assertFalse( ImportCheckpoint.exists( fs, storeDir ) );
+        GraphDatabaseService db = new TestGraphDatabaseFactory().newEmbeddedDatabase( storeDir );
+        try ( Transaction tx = db.beginTx() )
+        {
+            inputIdGenerator.reset();
+            verifyData( NODE_COUNT, RELATIONSHIP_COUNT, db, groups, nodeRandomSeed, relationshipRandomSeed );
+            tx.success();
+        }
+        finally
+        {
+            db.shutdown();
+        }
+        assertConsistent( storeDir );
+    }
+
+    @Test
+    public void shouldImportIncrementallyIntoStoreWithData() throws Exception
+    {
+        // GIVEN a store with sparse and dense nodes, loops and relationships of a couple of types
+        File storeDir = directory.graphDbDir();
+        ExpectedRelationships expected = new ExpectedRelationships();
+        GraphDatabaseService db = new TestGraphDatabaseFactory().newEmbeddedDatabase( storeDir );
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node[] nodes = new Node[EXISTING_NODE_COUNT];
+            for ( int i = 0; i < nodes.length; i++ )
+            {
+                nodes[i] = db.createNode( label( "Existing" ) );
+            }
+            // node 0 is sparse, with a loop
+            expected.relate( nodes[0], "KNOWS", nodes[0] );
+            expected.relate( nodes[0], "KNOWS", nodes[2] );
+            expected.relate( nodes[3], "LIKES", nodes[0] );
+            // node 1 is dense, with chains of both types in both directions and a loop
+            for ( int i = 2; i < nodes.length; i++ )
+            {
+                expected.relate( nodes[1], "KNOWS", nodes[i] );
+                expected.relate( nodes[i], "LIKES", nodes[1] );
+            }
+            expected.relate( nodes[1], "LIKES", nodes[1] );
+            tx.success();
+        }
+        finally
+        {
+            db.shutdown();
+        }
+
+        // WHEN importing nodes, and relationships for both existing and imported nodes, of existing and new types
+        List<InputNode> nodes = new ArrayList<>();
+        for ( long id = EXISTING_NODE_COUNT; id < EXISTING_NODE_COUNT + IMPORTED_NODE_COUNT; id++ )
+        {
+            nodes.add( new InputNode( "nodes", id, id, Group.GLOBAL, id, new Object[0], null,
+                    new String[] {"Imported"}, null ) );
+        }
+        List<InputRelationship> relationships = new ArrayList<>();
+        long firstImported = EXISTING_NODE_COUNT;
+        // existing sparse node, getting more relationships than the dense node threshold, and new types
+        expected.relate( relationships, 0, "KNOWS", 0 );
+        expected.relate( relationships, 0, "FOLLOWS", 0 );
+        for ( int i = 0; i < 40; i++ )
+        {
+            expected.relate( relationships, 0, i % 2 == 0 ? "KNOWS" : "FOLLOWS", firstImported + i % 10 );
+        }
+        expected.relate( relationships, 3, "FOLLOWS", 0 );
+        // existing dense node, getting relationships in front of existing chains, and chains of a new type
+        for ( int i = 0; i < 10; i++ )
+        {
+            expected.relate( relationships, 1, "KNOWS", firstImported + i );
+            expected.relate( relationships, firstImported + i, "FOLLOWS", 1 );
+        }
+        expected.relate( relationships, 1, "LIKES", 1 );
+        expected.relate( relationships, 1, "FOLLOWS", 1 );
+        // existing sparse node getting a new type
+        expected.relate( relationships, 2, "FOLLOWS", firstImported + 1 );
+        expected.relate( relationships, firstImported + 2, "LIKES", 2 );
+        // imported node becoming dense, mostly through relationships with existing nodes
+        for ( int i = 2; i < EXISTING_NODE_COUNT; i++ )
+        {
+            expected.relate( relationships, i, "KNOWS", firstImported );
+        }
+        expected.relate( relationships, firstImported + 1, "KNOWS", firstImported + 2 );
+        // existing nodes can only be referred to by actual node ids
+        BatchImporter importer = new ParallelBatchImporter( storeDir, new DefaultFileSystemAbstraction(), config,
+                NullLogService.getInstance(), eagerRandomSaturation( config.maxNumberOfProcessors() ), EMPTY,
+                true );
+        importer.doImport( Inputs.input( wrap( "nodes", nodes ), wrap( "relationships", relationships ),
+                IdMappers.actual(), IdGenerators.fromInput(), false, silentBadCollector( 0 ) ) );
+
+        // THEN
+        db = new TestGraphDatabaseFactory().newEmbeddedDatabase( storeDir );
+        try ( Transaction tx = db.beginTx() )
+        {
+            int nodeCount = 0;
+            for ( Node node : GlobalGraphOperations.at( db ).getAllNodes() )
+            {
+                expected.assertRelationshipsOf( node );
+                nodeCount++;
+            }
+            assertEquals( EXISTING_NODE_COUNT + IMPORTED_NODE_COUNT, nodeCount );
+
+            ReadOperations read = ((GraphDatabaseAPI) db).getDependencyResolver()
+                    .resolveDependency( ThreadToStatementContextBridge.class ).get().readOperations();
+            assertEquals( EXISTING_NODE_COUNT + IMPORTED_NODE_COUNT, read.countsForNode( ReadOperations.ANY_LABEL ) );
+            assertEquals( EXISTING_NODE_COUNT, read.countsForNode( read.labelGetForName( "Existing" ) ) );
+            assertEquals( IMPORTED_NODE_COUNT, read.countsForNode( read.labelGetForName( "Imported" ) ) );
+            assertEquals( expected.count(), read.countsForRelationship(
+                    ReadOperations.ANY_LABEL, ReadOperations.ANY_RELATIONSHIP_TYPE, ReadOperations.ANY_LABEL ) );
+            for ( String type : new String[] {"KNOWS", "LIKES", "FOLLOWS"} )
+            {
+                assertEquals( type, expected.count( type ), read.countsForRelationship(
+                        ReadOperations.ANY_LABEL, read.relationshipTypeGetForName( type ), ReadOperations.ANY_LABEL ) );
+            }
+            tx.success();
+        }
+        finally
+        {
+            db.shutdown();
+        }
+        assertConsistent( storeDir );
+    }
+
+    private static final int EXISTING_NODE_COUNT = 40;
+    private static final int IMPORTED_NODE_COUNT = 20;
+
+    /**
+     * Relationships expected in a store, named by an "id" property and described per node and direction.
+     */
+    private static class ExpectedRelationships
+    {
+        private final Map<Long,List<String>> outgoing = new HashMap<>();
+        private final Map<Long,List<String>> incoming = new HashMap<>();
+        private final Map<String,Integer> countPerType = new HashMap<>();
+        private int count;
+
+        void relate( Node startNode, String type, Node endNode )
+        {
+            String name = add( startNode.getId(), type, endNode.getId() );
+            startNode.createRelationshipTo( endNode, withName( type ) ).setProperty( "id", name );
+        }
+
+        void relate( List<InputRelationship> relationships, long startNode, String type, long endNode )
+        {
+            String name = add( startNode, type, endNode );
+            relationships.add( new InputRelationship( "relationships", count, count, new Object[] {"id", name}, null,
+                    Group.GLOBAL, startNode, Group.GLOBAL, endNode, type, null ) );
+        }
+
+        private String add( long startNode, String type, long endNode )
+        {
+            String name = "Relationship " + count++;
+            String description = describe( name, startNode, type, endNode );
+            listOf( outgoing, startNode ).add( description );
+            listOf( incoming, endNode ).add( description );
+            Integer typeCount = countPerType.get( type );
+            countPerType.put( type, typeCount == null ? 1 : typeCount + 1 );
+            return name;
+        }
+
+        int count()
+        {
+            return count;
+        }
+
+        int count( String type )
+        {
+            return countPerType.get( type );
+        }
+
+        void assertRelationshipsOf( Node node )
+        {
+            assertRelationshipsOf( node, Direction.OUTGOING, outgoing );
+            assertRelationshipsOf( node, Direction.INCOMING, incoming );
+        }
+
+        private void assertRelationshipsOf( Node node, Direction direction, Map<Long,List<String>> expected )
+        {
+            List<String> expectedDescriptions = new ArrayList<>( listOf( expected, node.getId() ) );
+            List<String> descriptions = new ArrayList<>();
+            for ( Relationship relationship : node.getRelationships( direction ) )
+            {
+                descriptions.add( describe( (String) relationship.getProperty( "id" ),
+                        relationship.getStartNode().getId(), relationship.getType().name(),
+                        relationship.getEndNode().getId() ) );
+            }
+            Collections.sort( expectedDescriptions );
+            Collections.sort( descriptions );
+            assertEquals( node + " " + direction, expectedDescriptions, descriptions );
+        }
+
+        private static List<String> listOf( Map<Long,List<String>> map, long nodeId )
+        {
+            List<String> list = map.get( nodeId );
+            if ( list == null )
+            {
+                map.put( nodeId, list = new ArrayList<>() );
+            }
+            return list;
+        }
+
+        private static String describe( String name, long startNode, String type, long endNode )
+        {
+            return name + ": (" + startNode + ")-[:" + type + "]->(" + endNode + ")";
+        }
+    }
+
+    private static final String FAILURE_MESSAGE = "Failing on purpose";
+
+    /**
+     * Fails the stage with the given name as soon as it has started executing, which makes it fail
+     * after having processed some, but not all, of its batches.
+     */
+    private static ExecutionMonitor failingStage( final String stageName )
+    {
+        return new ExecutionMonitor.Adapter( 1, SECONDS )
+        {
+            @Override
+            public void start( StageExecution[] executions )
+            {
+                for ( StageExecution execution : executions )
+                {
+                    if ( execution.getStageName().equals( stageName ) )
+                    {
+                        execution.panic( new RuntimeException( FAILURE_MESSAGE + " in " + stageName ) );
+                    }
+                }
+            }
+
+            @Override
+            public void check( StageExecution[] executions )
+            {   // Nothing to check
+            }
+        };
+    }
+
     private void assertConsistent( File storeDir ) throws ConsistencyCheckIncompleteException, IOException
     {
         ConsistencyCheckService consistencyChecker = new ConsistencyCheckService();
@@ -234,6 +521,16 @@ public class ParallelBatchImporterTest
 
         abstract boolean isMiss( Object id );
 
+        /**
+         * @return a new {@link IdMapper} for the ids generated by this generator, one for each import.
+         */
+        abstract IdMapper idMapper();
+
+        /**
+         * @return a new {@link IdGenerator} for the ids generated by this generator, one for each import.
+         */
+        abstract IdGenerator idGenerator();
+
         String randomType( Random random )
         {
             return "TYPE" + random.nextInt( 3 );
@@ -281,6 +578,18 @@ public class ParallelBatchImporterTest
         {
             return ((Long)id).longValue() >= 100_000_000;
         }
+
+        @Override
+        IdMapper idMapper()
+        {
+            return longs( AUTO );
+        }
+
+        @Override
+        IdGenerator idGenerator()
+        {
+            return fromInput();
+        }
     }
 
     private static class StringInputIdGenerator extends InputIdGenerator
@@ -322,6 +631,18 @@ public class ParallelBatchImporterTest
         {
             return ((String)id).startsWith( "_" );
         }
+
+        @Override
+        IdMapper idMapper()
+        {
+            return strings( AUTO );
+        }
+
+        @Override
+        IdGenerator idGenerator()
+        {
+            return startingFromTheBeginning();
+        }
     }
 
     protected void verifyData( int nodeCount, int relationshipCount, GraphDatabaseService db, IdGroupDistribution groups,
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.csv.reader;
+
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.IOException;
+
+import static java.lang.String.format;
+
+/**
+ * Splits the characters of a {@link CharReadable} into {@link Chunk chunks}, each ending at a line boundary,
+ * so that each chunk can be parsed by a {@link CharSeeker} of its own, in parallel with other chunks.
+ * Line boundaries are found using the same quotation rules as {@link BufferedCharSeeker}, i.e. a newline
+ * within a quoted value doesn't end a line if {@link Configuration#multilineFields() multiline fields}
+ * are allowed. Chunks are roughly {@link Configuration#bufferSize() buffer size} big.
+ *
+ * Not thread safe, chunks are expected to be read by a single thread and handed over to other threads
+ * for parsing.
+ */
+public class Chunker implements Closeable
+{
+    private static final char EOL_CHAR = '\n';
+    private static final char EOL_CHAR_2 = '\r';
+    private static final char BACK_SLASH = '\\';
+
+    private final CharReadable reader;
+    private final Configuration config;
+    private final int delimiter;
+    private final char quoteChar;
+    private final boolean multilineFields;
+    private SectionedCharBuffer buffer;
+    // index into the buffer of the first character not yet handed out in a chunk
+    private int from;
+    private String sourceDescription;
+    // number of lines in the current source handed out in chunks so far
+    private long lineNumber;
+    private long position;
+    private boolean eof;
+
+    public Chunker( CharReadable reader, Configuration config, int delimiter )
+    {
+        this.reader = reader;
+        this.config = config;
+        this.delimiter = delimiter;
+        this.quoteChar = config.quotationCharacter();
+        this.multilineFields = config.multilineFields();
+        this.buffer = new SectionedCharBuffer( config.bufferSize() );
+        this.from = buffer.front();
+        this.sourceDescription = reader.sourceDescription();
+    }
+
+    /**
+     * @return the next {@link Chunk} of data, or {@code null} if all data has been read.
+     * @throws IOException on I/O error reading from the underlying {@link CharReadable}.
+     * @throws IllegalStateException if a line is bigger than the buffer size.
+     */
+    public Chunk nextChunk() throws IOException
+    {
+        while ( !eof )
+        {
+            buffer = reader.read( buffer, from );
+            String sourceDescriptionAfterRead = reader.sourceDescription();
+            if ( !sourceDescription.equals( sourceDescriptionAfterRead ) )
+            {   // We moved over to a new source, reset line number
+                lineNumber = 0;
+                sourceDescription = sourceDescriptionAfterRead;
+            }
+
+            int back = buffer.back();
+            if ( !buffer.hasAvailable() )
+            {   // We're at the end, whatever is left is the last chunk
+                eof = true;
+                return back < buffer.pivot() ? chunk( back, buffer.pivot() ) : null;
+            }
+
+            int lineEnd = lastLineEnd( buffer.array(), back, buffer.front() );
+            if ( lineEnd != -1 )
+            {
+                from = lineEnd;
+                return chunk( back, lineEnd );
+            }
+
+            if ( buffer.front() - back > buffer.pivot() )
+            {
+                throw new IllegalStateException( "Tried to read in a line larger than effective buffer size " +
+                        buffer.pivot() + " in " + sourceDescription );
+            }
+            // No complete line in here, keep all of it and read more
+            from = back;
+        }
+        return null;
+    }
+
+    private Chunk chunk( int start, int end )
+    {
+        char[] data = new char[end - start];
+        System.arraycopy( buffer.array(), start, data, 0, data.length );
+        Chunk chunk = new Chunk( data, sourceDescription, lineNumber, position );
+        for ( char ch : data )
+        {
+            if ( ch == EOL_CHAR )
+            {
+                lineNumber++;
+            }
+        }
+        position += data.length;
+        return chunk;
+    }
+
+    /**
+     * @return index after the last newline character in {@code data} between {@code start} and {@code end},
+     * which isn't part of a quoted value, or {@code -1} if there's no such newline. {@code start} is expected
+     * to be the start of a line.
+     */
+    private int lastLineEnd( char[] data, int start, int end )
+    {
+        if ( !multilineFields )
+        {   // Newline characters can't be part of values so the last one will do
+            for ( int i = end - 1; i >= start; i-- )
+            {
+                if ( isNewLine( data[i] ) )
+                {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        int lineEnd = -1;
+        boolean quoted = false;
+        boolean startOfValue = true;
+        for ( int i = start; i < end; i++ )
+        {
+            char ch = data[i];
+            if ( quoted )
+            {
+                if ( ch == quoteChar )
+                {
+                    if ( i + 1 < end && data[i + 1] == quoteChar )
+                    {   // A double quote, i.e. a quote within the quoted value
+                        i++;
+                    }
+                    else
+                    {   // The ending quote
+                        quoted = false;
+                    }
+                }
+                else if ( ch == BACK_SLASH && i + 1 < end &&
+                        (data[i + 1] == quoteChar || data[i + 1] == BACK_SLASH) )
+                {   // Legacy concern, java style quote encoding
+                    i++;
+                }
+            }
+            else if ( isNewLine( ch ) )
+            {
+                lineEnd = i + 1;
+                startOfValue = true;
+            }
+            else if ( ch == delimiter )
+            {
+                startOfValue = true;
+            }
+            else
+            {
+                quoted = ch == quoteChar && startOfValue;
+                startOfValue = false;
+            }
+        }
+        return lineEnd;
+    }
+
+    private static boolean isNewLine( char ch )
+    {
+        return ch == EOL_CHAR || ch == EOL_CHAR_2;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+
+    /**
+     * A number of complete lines of data, read by a {@link Chunker}.
+     */
+    public class Chunk
+    {
+        private final char[] data;
+        private final String sourceDescription;
+        private final long firstLineNumber;
+        private final long position;
+
+        Chunk( char[] data, String sourceDescription, long firstLineNumber, long position )
+        {
+            this.data = data;
+            this.sourceDescription = sourceDescription;
+            this.firstLineNumber = firstLineNumber;
+            this.position = position;
+        }
+
+        /**
+         * @return a {@link CharSeeker} over the data in this chunk, with line numbers and positions relative
+         * to the whole data rather than to this chunk.
+         */
+        public CharSeeker seeker()
+        {
+            CharReadable readable = Readables.wrap( new CharArrayReader( data )
+            {
+                @Override
+                public String toString()
+                {
+                    return sourceDescription;
+                }
+            } );
+            // Have the whole chunk fit in the buffer, with room to spare for detecting the end of it
+            final int bufferSize = data.length + 1;
+            CharSeeker seeker = new BufferedCharSeeker( readable, new Configuration.Overridden( config )
+            {
+                @Override
+                public int bufferSize()
+                {
+                    return bufferSize;
+                }
+            } );
+            // The seeker reports positions from the middle of its buffer, where it starts reading
+            return new ChunkSeeker( seeker, firstLineNumber, position - bufferSize );
+        }
+
+        /**
+         * @return number of characters in this chunk.
+         */
+        public int length()
+        {
+            return data.length;
+        }
+
+        @Override
+        public String toString()
+        {
+            return format( "%s[source:%s, position:%d, line:%d, length:%d]", getClass().getSimpleName(),
+                    sourceDescription, position, firstLineNumber, data.length );
+        }
+    }
+
+    private static class ChunkSeeker implements CharSeeker
+    {
+        private final CharSeeker actual;
+        private final long firstLineNumber;
+        private final long position;
+
+        ChunkSeeker( CharSeeker actual, long firstLineNumber, long position )
+        {
+            this.actual = actual;
+            this.firstLineNumber = firstLineNumber;
+            this.position = position;
+        }
+
+        @Override
+        public boolean seek( Mark mark, int untilChar ) throws IOException
+        {
+            return actual.seek( mark, untilChar );
+        }
+
+        @Override
+        public <EXTRACTOR extends Extractor<?>> EXTRACTOR extract( Mark mark, EXTRACTOR extractor )
+        {
+            return actual.extract( mark, extractor );
+        }
+
+        @Override
+        public boolean tryExtract( Mark mark, Extractor<?> extractor )
+        {
+            return actual.tryExtract( mark, extractor );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            actual.close();
+        }
+
+        @Override
+        public String sourceDescription()
+        {
+            return actual.sourceDescription();
+        }
+
+        @Override
+        public long lineNumber()
+        {
+            return firstLineNumber + actual.lineNumber();
+        }
+
+        @Override
+        public long position()
+        {
+            return position + actual.position();
+        }
+
+        @Override
+        public String toString()
+        {
+            return format( "%s[source:%s, position:%d, line:%d]", actual.getClass().getSimpleName(),
+                    sourceDescription(), position(), lineNumber() );
+        }
+    }
+}
@@ -32,7 +32,7 @@ package org.neo4j.csv.reader;
  *
  * @see Extractors for a collection of very common extractors.
  */
-public interface Extractor<T>
+public interface Extractor<T> extends Cloneable
 {
     /**
      * Extracts value of type {@code T} from the given character data.
@@ -49,6 +49,12 @@ public interface Extractor<T>
      */
     T value();
 
+    /**
+     * @return a new instance of this extractor, extracting the same type of values. Since an extractor is mutable
+     * each thread extracting values needs an instance of its own.
+     */
+    Extractor<T> clone();
+
     /**
      * @return string representation of what type of value of produces. Also used as key in {@link Extractors}.
      */
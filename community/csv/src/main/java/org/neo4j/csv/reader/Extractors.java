@@ -243,6 +243,20 @@ public class Extractors
             this.toString = toString;
         }
 
+        @SuppressWarnings( "unchecked" )
+        @Override
+        public Extractor<T> clone()
+        {
+            try
+            {
+                return (Extractor<T>) super.clone();
+            }
+            catch ( CloneNotSupportedException e )
+            {
+                throw new AssertionError( e );
+            }
+        }
+
         @Override
         public String toString()
         {
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.csv.reader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.csv.reader.Chunker.Chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import static java.util.Arrays.asList;
+
+public class ChunkerTest
+{
+    @Test
+    public void shouldEndChunksAtLastLineBoundaryInBuffer() throws Exception
+    {
+        // GIVEN
+        Chunker chunker = chunker( "aa,bb\ncc,dd\nee,ff\n", 8, false );
+
+        // WHEN/THEN
+        assertChunk( chunker.nextChunk(), 0, "aa", "bb" );
+        assertChunk( chunker.nextChunk(), 1, "cc", "dd" );
+        assertChunk( chunker.nextChunk(), 2, "ee", "ff" );
+        assertNull( chunker.nextChunk() );
+        chunker.close();
+    }
+
+    @Test
+    public void shouldNotEndChunkAtNewLineWithinQuotedValue() throws Exception
+    {
+        // GIVEN
+        Chunker chunker = chunker( "1,\"a\nb\"\n2,c\n", 6, true );
+
+        // WHEN/THEN
+        assertChunk( chunker.nextChunk(), 0, "1", "a\nb", "2", "c" );
+        assertNull( chunker.nextChunk() );
+        chunker.close();
+    }
+
+    @Test
+    public void shouldProvideLastLineEvenWithoutNewLineAtTheEnd() throws Exception
+    {
+        // GIVEN
+        Chunker chunker = chunker( "aa,bb\ncc,dd", 8, false );
+
+        // WHEN/THEN
+        assertChunk( chunker.nextChunk(), 0, "aa", "bb" );
+        assertChunk( chunker.nextChunk(), 1, "cc", "dd" );
+        assertNull( chunker.nextChunk() );
+        chunker.close();
+    }
+
+    @Test
+    public void shouldFailOnLineLargerThanBuffer() throws Exception
+    {
+        // GIVEN
+        Chunker chunker = chunker( "abcdefghijklmnopqrstuvwxyz\n", 8, false );
+
+        // WHEN
+        try
+        {
+            chunker.nextChunk();
+            fail( "Should have failed" );
+        }
+        catch ( IllegalStateException e )
+        {   // THEN good
+        }
+        chunker.close();
+    }
+
+    private void assertChunk( Chunk chunk, long firstLineNumber, String... expectedValues ) throws IOException
+    {
+        CharSeeker seeker = chunk.seeker();
+        assertEquals( firstLineNumber, seeker.lineNumber() );
+        Mark mark = new Mark();
+        Extractors extractors = new Extractors( ';' );
+        List<String> values = new ArrayList<>();
+        while ( seeker.seek( mark, ',' ) )
+        {
+            values.add( seeker.extract( mark, extractors.string() ).value() );
+        }
+        assertEquals( asList( expectedValues ), values );
+        seeker.close();
+    }
+
+    private Chunker chunker( String data, final int bufferSize, final boolean multilineFields )
+    {
+        return new Chunker( Readables.wrap( new StringReader( data ) ), new Configuration.Overridden(
+                Configuration.DEFAULT )
+        {
+            @Override
+            public int bufferSize()
+            {
+                return bufferSize;
+            }
+
+            @Override
+            public boolean multilineFields()
+            {
+                return multilineFields;
+            }
+        }, ',' );
+    }
+}
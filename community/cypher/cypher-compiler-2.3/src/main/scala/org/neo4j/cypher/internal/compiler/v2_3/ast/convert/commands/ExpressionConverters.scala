@@ -21,7 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_3.ast.convert.commands
 
 import org.neo4j.cypher.internal.compiler.v2_3._
 import org.neo4j.cypher.internal.compiler.v2_3.ast.convert.commands.PatternConverters._
-import org.neo4j.cypher.internal.compiler.v2_3.ast.{InequalitySeekRangeWrapper, NestedPipeExpression, PrefixSeekRangeWrapper}
+import org.neo4j.cypher.internal.compiler.v2_3.ast.{CachedNodeProperty, InequalitySeekRangeWrapper, NestedPipeExpression, PrefixSeekRangeWrapper}
 import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.ProjectedPath._
 import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.{Expression => CommandExpression, InequalitySeekRangeExpression, ProjectedPath}
 import org.neo4j.cypher.internal.compiler.v2_3.commands.predicates.Predicate
@@ -261,6 +261,7 @@ object ExpressionConverters {
     case e: ast.FunctionInvocation => toCommandExpression(e.function.get, e)
     case e: ast.CountStar => commandexpressions.CountStar()
     case e: ast.Property => toCommandProperty(e)
+    case e: CachedNodeProperty => commandexpressions.CachedNodeProperty(e.node.name, PropertyKey(e.propertyKey.name), e.cachedName)
     case e: ast.Parameter => toCommandParameter(e)
     case e: ast.CaseExpression => caseExpression(e)
     case e: ast.PatternExpression => commands.PathExpression(e.pattern.asLegacyPatterns)
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.commands.expressions
+
+import org.neo4j.cypher.internal.compiler.v2_3._
+import org.neo4j.cypher.internal.compiler.v2_3.commands.values.KeyToken
+import org.neo4j.cypher.internal.compiler.v2_3.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v2_3.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v2_3.symbols.SymbolTable
+import org.neo4j.cypher.internal.frontend.v2_3.symbols._
+
+case class CachedNodeProperty(node: String, propertyKey: KeyToken, cachedName: String) extends Expression {
+
+  private val property = Property(Identifier(node), propertyKey)
+
+  def apply(ctx: ExecutionContext)(implicit state: QueryState): Any = ctx.getOrElse(cachedName, property(ctx))
+
+  def rewrite(f: (Expression) => Expression) = f(CachedNodeProperty(node, propertyKey.rewrite(f), cachedName))
+
+  override def children = Seq(propertyKey)
+
+  def arguments = Seq.empty
+
+  protected def calculateType(symbols: SymbolTable) = CTAny
+
+  override def evaluateType(expectedType: CypherType, symbols: SymbolTable) = property.evaluateType(expectedType, symbols)
+
+  def symbolTableDependencies = Set(node)
+
+  override def toString = s"$node.${propertyKey.name}"
+
+  override def localEffects(symbols: SymbolTable): Effects = property.localEffects(symbols)
+}
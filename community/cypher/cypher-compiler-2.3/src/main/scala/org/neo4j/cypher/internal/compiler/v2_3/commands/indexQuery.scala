@@ -26,6 +26,7 @@ import org.neo4j.cypher.internal.compiler.v2_3.mutation.GraphElementPropertyFunc
 import org.neo4j.cypher.internal.compiler.v2_3.pipes.QueryState
 import org.neo4j.cypher.internal.frontend.v2_3.CypherTypeException
 import org.neo4j.graphdb.Node
+import org.neo4j.kernel.api.index.CompositeIndexValue
 
 import scala.collection.GenTraversableOnce
 
@@ -60,6 +61,18 @@ object indexQuery extends GraphElementPropertyFunctions {
       index(range).toIterator
   }
 
+  // A node is only in a composite index when it has all of its properties, so a null value matches no node
+  def composite(valueExprs: Seq[Expression],
+                m: ExecutionContext,
+                state: QueryState,
+                index: Any => GenTraversableOnce[Node]): Iterator[Node] = {
+    val values = valueExprs.map(expression => expression(m)(state))
+    if (values.contains(null))
+      Iterator.empty
+    else
+      index(new CompositeIndexValue(values.map(value => makeValueNeoSafe(value).asInstanceOf[AnyRef]): _*)).toIterator
+  }
+
   private def lookupNodes(value: Any, index: Any => GenTraversableOnce[Node]) = value match {
     case null =>
       Iterator.empty
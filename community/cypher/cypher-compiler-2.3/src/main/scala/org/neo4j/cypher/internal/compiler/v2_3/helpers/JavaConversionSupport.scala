@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_3.helpers
 
 import org.neo4j.collection.primitive.{PrimitiveIntIterator, PrimitiveLongIterator}
+import org.neo4j.cursor.Cursor
 import org.neo4j.cypher.internal.frontend.v2_3.EntityNotFoundException
 
 object JavaConversionSupport {
@@ -71,4 +72,33 @@ object JavaConversionSupport {
       r
     }
   }
+
+  // Same as mapToScalaENFXSafe for primitive iterators, but for a cursor, which is closed once exhausted
+  def mapToScalaENFXSafe[C, T](cursor: Cursor[C])(f: C => T): Iterator[T] = new Iterator[T] {
+    private var _next: Option[T] = fetchNext()
+
+    private def fetchNext(): Option[T] = {
+      if (!cursor.next()) {
+        cursor.close()
+        _next = None
+      } else {
+        try {
+          _next = Some(f(cursor.get()))
+        } catch {
+          case _: org.neo4j.kernel.api.exceptions.EntityNotFoundException => fetchNext()
+          case _: EntityNotFoundException => fetchNext()
+        }
+      }
+
+      _next
+    }
+
+    def hasNext = _next.nonEmpty
+
+    def next() = {
+      val r = _next.getOrElse(throw new NoSuchElementException("next on empty result"))
+      fetchNext()
+      r
+    }
+  }
 }
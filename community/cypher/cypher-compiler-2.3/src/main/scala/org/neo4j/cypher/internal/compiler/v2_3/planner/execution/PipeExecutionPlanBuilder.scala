@@ -94,6 +94,12 @@ class PipeExecutionPlanBuilder(clock: Clock, monitors: Monitors) {
         case NodeUniqueIndexSeek(IdName(id), label, propertyKey, valueExpr, _) =>
           NodeIndexSeekPipe(id, label, propertyKey, valueExpr.map(buildExpression), IndexSeekModeFactory(unique = true).fromQueryExpression(valueExpr))()
 
+        case NodeIndexSeekByPrefixWithValues(IdName(id), label, propertyKey, prefix, cachedName, unique, _) =>
+          NodeIndexSeekByPrefixWithValuesPipe(id, label, propertyKey, buildExpression(prefix), cachedName, unique)()
+
+        case NodeCompositeIndexSeek(IdName(id), label, propertyKeys, valueExprs, _) =>
+          NodeCompositeIndexSeekPipe(id, label, propertyKeys, valueExprs.map(buildExpression))()
+
         case NodeIndexScan(IdName(id), label, propertyKey, _) =>
           NodeIndexScanPipe(id, label, propertyKey)()
 
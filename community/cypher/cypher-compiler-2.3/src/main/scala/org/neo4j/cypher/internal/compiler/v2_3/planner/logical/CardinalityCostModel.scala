@@ -79,6 +79,8 @@ object CardinalityCostModel extends CostModel {
          _: NodeByIdSeek |
          _: NodeUniqueIndexSeek |
          _: NodeIndexSeek |
+         _: NodeIndexSeekByPrefixWithValues |
+         _: NodeCompositeIndexSeek |
          _: NodeIndexScan
     => SLOW_STORE
 
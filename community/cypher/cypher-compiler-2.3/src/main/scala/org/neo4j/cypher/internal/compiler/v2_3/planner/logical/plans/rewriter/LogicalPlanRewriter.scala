@@ -29,7 +29,8 @@ case class LogicalPlanRewriter(rewriterSequencer: String => RewriterStepSequence
     simplifyEquality,
     unnestOptional,
     predicateRemovalThroughJoins,
-    removeIdenticalPlans
+    removeIdenticalPlans,
+    useIndexValues
   ).rewriter)
 
   def apply(that: AnyRef) = instance(that)
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans.rewriter
+
+import org.neo4j.cypher.internal.compiler.v2_3.PrefixRange
+import org.neo4j.cypher.internal.compiler.v2_3.ast.{CachedNodeProperty, PrefixSeekRangeWrapper}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{QueryExpression, RangeQueryExpression}
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans._
+import org.neo4j.cypher.internal.frontend.v2_3.Foldable._
+import org.neo4j.cypher.internal.frontend.v2_3.ast.{Expression, Identifier, Property, PropertyKeyName}
+import org.neo4j.cypher.internal.frontend.v2_3.{Rewriter, bottomUp}
+
+/**
+ * Lets index seeks by prefix return the values of the indexed property with the nodes, when the plan goes on to read
+ * that property of those nodes. Such reads then take the value from the row instead of from the property store. Where
+ * a row does not carry the value, e.g. after an aggregation, the property is still read from the node.
+ */
+case object useIndexValues extends Rewriter {
+
+  def apply(input: AnyRef) = {
+    val readProperties = input.fold(Set.empty[(String, String)]) {
+      case Property(Identifier(node), PropertyKeyName(propertyKey)) => acc => acc + (node -> propertyKey)
+    }
+
+    val cachedProperties = input.fold(Set.empty[(String, String)]) {
+      case NodeIndexSeek(IdName(node), _, propertyKey, PrefixQuery(_), _) if readProperties(node -> propertyKey.name) =>
+        acc => acc + (node -> propertyKey.name)
+      case NodeUniqueIndexSeek(IdName(node), _, propertyKey, PrefixQuery(_), _) if readProperties(node -> propertyKey.name) =>
+        acc => acc + (node -> propertyKey.name)
+    }
+
+    if (cachedProperties.isEmpty)
+      input
+    else
+      bottomUp(Rewriter.lift {
+        case seek@NodeIndexSeek(idName, label, propertyKey, PrefixQuery(prefix), argumentIds)
+          if cachedProperties(idName.name -> propertyKey.name) =>
+          NodeIndexSeekByPrefixWithValues(idName, label, propertyKey, prefix,
+            cachedName(idName.name, propertyKey.name), unique = false, argumentIds)(seek.solved)
+
+        case seek@NodeUniqueIndexSeek(idName, label, propertyKey, PrefixQuery(prefix), argumentIds)
+          if cachedProperties(idName.name -> propertyKey.name) =>
+          NodeIndexSeekByPrefixWithValues(idName, label, propertyKey, prefix,
+            cachedName(idName.name, propertyKey.name), unique = true, argumentIds)(seek.solved)
+
+        case property@Property(node@Identifier(name), propertyKey) if cachedProperties(name -> propertyKey.name) =>
+          CachedNodeProperty(node, propertyKey, cachedName(name, propertyKey.name))(property.position)
+      }).apply(input)
+  }
+
+  private def cachedName(node: String, propertyKey: String) = s"  $node.$propertyKey"
+
+  private object PrefixQuery {
+    def unapply(valueExpr: QueryExpression[Expression]): Option[Expression] = valueExpr match {
+      case RangeQueryExpression(PrefixSeekRangeWrapper(PrefixRange(prefix))) => Some(prefix)
+      case _ => None
+    }
+  }
+}
@@ -174,6 +174,20 @@ case class LogicalPlanProducer(cardinalityModel: CardinalityModel) extends Colle
     NodeIndexSeek(idName, label, propertyKey, valueExpr, argumentIds)(solved)
   }
 
+  def planNodeCompositeIndexSeek(idName: IdName,
+                                 label: ast.LabelToken,
+                                 propertyKeys: Seq[ast.PropertyKeyToken],
+                                 valueExprs: Seq[Expression],
+                                 solvedPredicates: Seq[Expression] = Seq.empty,
+                                 argumentIds: Set[IdName])(implicit context: LogicalPlanningContext) = {
+    val solved = PlannerQuery(graph = QueryGraph.empty
+      .addPatternNodes(idName)
+      .addPredicates(solvedPredicates: _*)
+      .addArgumentIds(argumentIds.toSeq)
+    )
+    NodeCompositeIndexSeek(idName, label, propertyKeys, valueExprs, argumentIds)(solved)
+  }
+
   def planNodeIndexScan(idName: IdName,
                         label: ast.LabelToken,
                         propertyKey: ast.PropertyKeyToken,
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.steps
+
+import org.neo4j.cypher.internal.compiler.v2_3.planner.QueryGraph
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.{LeafPlanner, LogicalPlanningContext}
+import org.neo4j.cypher.internal.frontend.v2_3.ast._
+
+object compositeIndexSeekLeafPlanner extends LeafPlanner {
+  override def apply(qg: QueryGraph)(implicit context: LogicalPlanningContext): Seq[LogicalPlan] = {
+    implicit val semanticTable = context.semanticTable
+    val predicates: Seq[Expression] = qg.selections.flatPredicates
+    val labelPredicates: Map[IdName, Set[HasLabels]] = qg.selections.labelPredicates
+    val arguments = qg.argumentIds.map(n => Identifier(n.name)(null))
+
+    // n.prop = value
+    val equalities = predicates.collect {
+      case predicate@AsPropertySeekable(seekable)
+        if seekable.args.isInstanceOf[SingleSeekableArg] && seekable.propertyKey.id.isDefined &&
+           seekable.args.dependencies.forall(arguments) && !arguments(seekable.ident) =>
+        seekable -> predicate
+    }.groupBy { case (seekable, _) => IdName(seekable.name) }
+
+    for ((idName, nodeEqualities) <- equalities.toSeq if nodeEqualities.size > 1;
+         byPropertyKeyId = nodeEqualities.map { case equality@(seekable, _) => seekable.propertyKey.id.get.id -> equality }.toMap;
+         labelPredicate <- labelPredicates.getOrElse(idName, Set.empty);
+         labelName <- labelPredicate.labels;
+         labelId <- labelName.id;
+         indexDescriptor <- findIndexesFor(labelName.name)
+         if indexDescriptor.getPropertyKeyIds.forall(byPropertyKeyId.contains))
+    yield {
+      // One value for each property key of the index, in the order of the keys
+      val solved = indexDescriptor.getPropertyKeyIds.toSeq.map(byPropertyKeyId)
+      context.logicalPlanProducer.planNodeCompositeIndexSeek(idName, LabelToken(labelName, labelId),
+        solved.map { case (seekable, _) => PropertyKeyToken(seekable.propertyKey, seekable.propertyKey.id.head) },
+        solved.map { case (seekable, _) => seekable.args.expr },
+        solved.map { case (_, predicate) => predicate } :+ labelPredicate,
+        qg.argumentIds)
+    }
+  }
+
+  private def findIndexesFor(label: String)(implicit context: LogicalPlanningContext) =
+    context.planContext.getCompositeIndexRules(label)
+}
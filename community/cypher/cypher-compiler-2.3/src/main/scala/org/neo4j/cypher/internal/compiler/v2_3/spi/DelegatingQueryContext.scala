@@ -89,6 +89,9 @@ class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
   def indexSeekByRange(index: IndexDescriptor, value: Any): Iterator[Node] = manyDbHits(inner.indexSeekByRange(index, value))
 
+  def indexSeekByPrefixWithValues(index: IndexDescriptor, prefix: String): Iterator[(Node, Any)] =
+    manyDbHits(inner.indexSeekByPrefixWithValues(index, prefix))
+
   def indexScan(index: IndexDescriptor): Iterator[Node] = manyDbHits(inner.indexScan(index))
 
   def getNodesByLabel(id: Int): Iterator[Node] = manyDbHits(inner.getNodesByLabel(id))
@@ -85,6 +85,8 @@ trait QueryContext extends TokenContext {
 
   def indexSeekByRange(index: IndexDescriptor, value: Any): Iterator[Node]
 
+  def indexSeekByPrefixWithValues(index: IndexDescriptor, prefix: String): Iterator[(Node, Any)]
+
   def indexScan(index: IndexDescriptor): Iterator[Node]
 
   def uniqueIndexSeek(index: IndexDescriptor, value: Any): Option[Node]
@@ -33,6 +33,7 @@ trait LogicalPlanningConfiguration {
   def graphStatistics: GraphStatistics
   def indexes: Set[(String, String)]
   def uniqueIndexes: Set[(String, String)]
+  def compositeIndexes: Set[(String, Seq[String])]
   def labelCardinality: Map[String, Cardinality]
   def knownLabels: Set[String]
   def qg: QueryGraph
@@ -48,6 +49,7 @@ class DelegatingLogicalPlanningConfiguration(val parent: LogicalPlanningConfigur
   override def graphStatistics = parent.graphStatistics
   override def indexes = parent.indexes
   override def uniqueIndexes = parent.uniqueIndexes
+  override def compositeIndexes = parent.compositeIndexes
   override def labelCardinality = parent.labelCardinality
   override def knownLabels = parent.knownLabels
   override def qg = parent.qg
@@ -72,6 +74,10 @@ trait LogicalPlanningConfigurationAdHocSemanticTable {
       addLabelIfUnknown(label)
       addPropertyKeyIfUnknown(property)
     }
+    compositeIndexes.foreach { case (label, properties) =>
+      addLabelIfUnknown(label)
+      properties.foreach(addPropertyKeyIfUnknown)
+    }
     labelCardinality.keys.foreach(addLabelIfUnknown)
     knownLabels.foreach(addLabelIfUnknown)
     table
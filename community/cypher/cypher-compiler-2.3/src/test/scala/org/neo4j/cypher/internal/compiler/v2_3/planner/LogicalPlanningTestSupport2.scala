@@ -119,6 +119,15 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
         else
           None
 
+      def getCompositeIndexRules(labelName: String): Seq[IndexDescriptor] =
+        config.compositeIndexes.toSeq.collect {
+          case (`labelName`, properties) =>
+            new IndexDescriptor(
+              semanticTable.resolvedLabelIds(labelName).id,
+              properties.map(semanticTable.resolvedPropertyKeyNames(_).id).toArray
+            )
+        }
+
       def hasIndexRule(labelName: String): Boolean =
         config.indexes.exists(_._1 == labelName) || config.uniqueIndexes.exists(_._1 == labelName)
 
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans
+
+import org.neo4j.cypher.internal.compiler.v2_3.planner.BeLikeMatcher._
+import org.neo4j.cypher.internal.compiler.v2_3.planner._
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.steps.compositeIndexSeekLeafPlanner
+import org.neo4j.cypher.internal.frontend.v2_3.ast._
+import org.neo4j.cypher.internal.frontend.v2_3.test_helpers.CypherFunSuite
+
+class CompositeIndexSeekLeafPlannerTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
+
+  val idName = IdName("n")
+  val hasLabels: Expression = HasLabels(ident("n"), Seq(LabelName("User")_))_
+  val tenant: Expression = Property(ident("n"), PropertyKeyName("tenant") _)_
+  val email: Expression = Property(ident("n"), PropertyKeyName("email") _)_
+
+  val tenantValue: Expression = SignedDecimalIntegerLiteral("42")_
+  val emailValue: Expression = StringLiteral("a@b.c")_
+  val tenantPredicate: Expression = Equals(tenant, tenantValue)_
+  val emailPredicate: Expression = Equals(email, emailValue)_
+
+  test("does not plan composite index seek when no composite index exist") {
+    new given {
+      qg = queryGraph(tenantPredicate, emailPredicate, hasLabels)
+
+      indexOn("User", "tenant")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = compositeIndexSeekLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans shouldBe empty
+    }
+  }
+
+  test("plans composite index seek with the values in the order of the keys of the index") {
+    new given {
+      qg = queryGraph(emailPredicate, tenantPredicate, hasLabels)
+
+      compositeIndexOn("User", "tenant", "email")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = compositeIndexSeekLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans should beLike {
+        case Seq(NodeCompositeIndexSeek(`idName`, _, Seq(first, second), Seq(`tenantValue`, `emailValue`), _))
+          if first.name == "tenant" && second.name == "email" => ()
+      }
+      resultPlans.map(_.solved.graph.selections.flatPredicates.toSet) should equal(
+        Seq(Set(tenantPredicate, emailPredicate, hasLabels)))
+    }
+  }
+
+  test("does not plan composite index seek when a property of the index is not sought") {
+    new given {
+      qg = queryGraph(tenantPredicate, emailPredicate, hasLabels)
+
+      indexOn("User", "email")
+      compositeIndexOn("User", "tenant", "name")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = compositeIndexSeekLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans shouldBe empty
+    }
+  }
+
+  test("does not plan composite index seek for IN predicates") {
+    val tenants: Expression = Collection(Seq(tenantValue, SignedDecimalIntegerLiteral("43")_))_
+
+    new given {
+      qg = queryGraph(In(tenant, tenants)_, emailPredicate, hasLabels)
+
+      compositeIndexOn("User", "tenant", "email")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = compositeIndexSeekLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans shouldBe empty
+    }
+  }
+
+  private def queryGraph(predicates: Expression*) =
+    QueryGraph(
+      selections = Selections(predicates.map(Predicate(Set(idName), _)).toSet),
+      patternNodes = Set(idName)
+    )
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans.rewriter
+
+import org.neo4j.cypher.internal.compiler.v2_3.PrefixRange
+import org.neo4j.cypher.internal.compiler.v2_3.ast.{CachedNodeProperty, PrefixSeekRangeWrapper}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{RangeQueryExpression, SingleQueryExpression}
+import org.neo4j.cypher.internal.compiler.v2_3.planner.LogicalPlanningTestSupport
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans._
+import org.neo4j.cypher.internal.frontend.v2_3.ast._
+import org.neo4j.cypher.internal.frontend.v2_3.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.frontend.v2_3.{LabelId, PropertyKeyId}
+
+class UseIndexValuesTest extends CypherFunSuite with LogicalPlanningTestSupport {
+  private val label = LabelToken("Person", LabelId(0))
+  private val name = PropertyKeyToken(PropertyKeyName("name")(pos), PropertyKeyId(0))
+  private val prefix = StringLiteral("prefix")(pos)
+  private val prefixSeek = RangeQueryExpression(PrefixSeekRangeWrapper(PrefixRange(prefix))(pos))
+
+  test("should read the property from the index when a prefix seek is followed by a read of the indexed property") {
+    val seek = NodeIndexSeek(IdName("a"), label, name, prefixSeek, Set.empty)(solved)
+    val plan = Projection(seek, Map("a.name" -> Property(ident("a"), PropertyKeyName("name")(pos))(pos)))(solved)
+
+    plan.endoRewrite(useIndexValues) should equal(
+      Projection(
+        NodeIndexSeekByPrefixWithValues(IdName("a"), label, name, prefix, "  a.name", unique = false, Set.empty)(solved),
+        Map("a.name" -> CachedNodeProperty(ident("a"), PropertyKeyName("name")(pos), "  a.name")(pos)))(solved))
+  }
+
+  test("should read the property from a unique index when a prefix seek is followed by a read of the indexed property") {
+    val seek = NodeUniqueIndexSeek(IdName("a"), label, name, prefixSeek, Set.empty)(solved)
+    val plan = Projection(seek, Map("a.name" -> Property(ident("a"), PropertyKeyName("name")(pos))(pos)))(solved)
+
+    plan.endoRewrite(useIndexValues) should equal(
+      Projection(
+        NodeIndexSeekByPrefixWithValues(IdName("a"), label, name, prefix, "  a.name", unique = true, Set.empty)(solved),
+        Map("a.name" -> CachedNodeProperty(ident("a"), PropertyKeyName("name")(pos), "  a.name")(pos)))(solved))
+  }
+
+  test("should not rewrite a prefix seek when no other property than the indexed one is read") {
+    val seek = NodeIndexSeek(IdName("a"), label, name, prefixSeek, Set.empty)(solved)
+    val plan = Projection(seek, Map("a.age" -> Property(ident("a"), PropertyKeyName("age")(pos))(pos)))(solved)
+
+    plan.endoRewrite(useIndexValues) should equal(plan)
+  }
+
+  test("should not rewrite an equality seek") {
+    val seek = NodeIndexSeek(IdName("a"), label, name, SingleQueryExpression(prefix), Set.empty)(solved)
+    val plan = Projection(seek, Map("a.name" -> Property(ident("a"), PropertyKeyName("name")(pos))(pos)))(solved)
+
+    plan.endoRewrite(useIndexValues) should equal(plan)
+  }
+}
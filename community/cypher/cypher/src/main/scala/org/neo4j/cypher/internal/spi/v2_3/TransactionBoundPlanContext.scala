@@ -62,6 +62,13 @@ class TransactionBoundPlanContext(initialStatement: Statement, val gdb: GraphDat
     Some(statement.readOperations().uniqueIndexGetForLabelAndPropertyKey(labelId, propertyKeyId))
   }
 
+  def getCompositeIndexRules(labelName: String): Seq[IndexDescriptor] = {
+    val labelId = statement.readOperations().labelGetForName(labelName)
+
+    val indexDescriptors = statement.readOperations().indexesGetForLabel(labelId).asScala
+    indexDescriptors.filter(_.isComposite).flatMap(getOnlineIndex).toSeq
+  }
+
   private def evalOrNone[T](f: => Option[T]): Option[T] =
     try { f } catch { case _: SchemaKernelException => None }
 
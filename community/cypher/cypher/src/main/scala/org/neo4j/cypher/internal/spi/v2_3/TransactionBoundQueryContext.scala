@@ -215,6 +215,11 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
     JavaConversionSupport.mapToScalaENFXSafe(indexedNodes)(nodeOps.getById)
   }
 
+  def indexSeekByPrefixWithValues(index: IndexDescriptor, prefix: String): Iterator[(Node, Any)] = {
+    val indexEntries = statement.readOperations().nodesGetFromIndexRangeSeekByPrefixWithValues(index, prefix)
+    JavaConversionSupport.mapToScalaENFXSafe(indexEntries)(entry => (nodeOps.getById(entry.nodeId()), entry.value()))
+  }
+
   private def indexSeekByNumericalRange(index: IndexDescriptor, range: InequalitySeekRange[Number]): scala.Iterator[Node] = {
     val readOps = statement.readOperations()
     val matchingNodes: PrimitiveLongIterator = (range match {
@@ -20,6 +20,7 @@
 package org.neo4j.cypher
 
 import org.neo4j.cypher.internal.compiler.v2_3.pipes.{IndexSeekByRange, UniqueIndexSeekByRange}
+import org.neo4j.graphdb.DynamicLabel
 
 /**
  * These tests are testing the actual index implementation, thus they should all check the actual result.
@@ -191,6 +192,44 @@ class NodeIndexSeekByRangeAcceptanceTest extends ExecutionEngineFunSuite with Ne
     result should (use(UniqueIndexSeekByRange.name) and evaluateTo(List(Map("a" -> a1), Map("a" -> a2))))
   }
 
+  test("should return the indexed property from a STARTS WITH index seek") {
+    graph.inTx {
+      (1 to 300).map { i =>
+        createLabeledNode(Map("prop" -> i.toString), "Address")
+      }
+    }
+
+    createLabeledNode(Map("prop" -> "www123"), "Address")
+    createLabeledNode(Map("prop" -> "www"), "Address")
+    createLabeledNode(Map("prop" -> "ww"), "Address")
+
+    graph.createIndex("Address", "prop")
+
+    val result = executeWithAllPlanners("MATCH (a:Address) WHERE a.prop STARTS WITH 'www' RETURN a.prop AS prop")
+
+    result should use(IndexSeekByRange.name)
+    result.columnAs[String]("prop").toSet should equal(Set("www123", "www"))
+  }
+
+  test("should return the indexed property from a STARTS WITH index seek as changed in the transaction") {
+    val a1 = createLabeledNode(Map("prop" -> "www123"), "Address")
+    val a2 = createLabeledNode(Map("prop" -> "www"), "Address")
+    val a3 = createLabeledNode(Map("prop" -> "ww"), "Address")
+
+    graph.createIndex("Address", "prop")
+
+    graph.inTx {
+      a1.setProperty("prop", "www456")
+      a2.removeLabel(DynamicLabel.label("Address"))
+      a3.setProperty("prop", "wwwabc")
+      createLabeledNode(Map("prop" -> "wwwxyz"), "Address")
+
+      val result = executeWithCostPlannerOnly("MATCH (a:Address) WHERE a.prop STARTS WITH 'www' RETURN a.prop AS prop")
+
+      result.columnAs[String]("prop").toSet should equal(Set("www456", "wwwabc", "wwwxyz"))
+    }
+  }
+
   test("should be able to plan index seek for numerical less than") {
     // Given matches
     createLabeledNode(Map("prop" -> Double.NegativeInfinity), "Label")
@@ -129,6 +129,8 @@ class SnitchingQueryContext extends QueryContext {
 
   def indexSeekByRange(index: IndexDescriptor, value: Any): Iterator[Node] = ???
 
+  def indexSeekByPrefixWithValues(index: IndexDescriptor, prefix: String): Iterator[(Node, Any)] = ???
+
   def indexScan(index: IndexDescriptor): Iterator[Node] = ???
 
   def getNodesByLabel(id: Int): Iterator[Node] = ???
@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map.Entry;
@@ -54,7 +55,9 @@ import org.neo4j.kernel.impl.util.Validator;
 import org.neo4j.kernel.impl.util.Validators;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.unsafe.impl.batchimport.BatchImporter;
+import org.neo4j.unsafe.impl.batchimport.ImportCheckpoint;
 import org.neo4j.unsafe.impl.batchimport.ParallelBatchImporter;
+import org.neo4j.unsafe.impl.batchimport.SchemaIndexDefinition;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.string.DuplicateInputIdException;
 import org.neo4j.unsafe.impl.batchimport.input.Collector;
 import org.neo4j.unsafe.impl.batchimport.input.Input;
@@ -155,6 +158,11 @@ public class ImportTool
                         + ". There is a certain amount of minimum threads needed so for that reason there "
                         + "is no lower bound for this value. For optimal performance this value shouldn't be "
                         + "greater than the number of available processors." ),
+        PARSING_THREADS( "parsing-threads", 1,
+                "<number of threads>",
+                "(advanced) Number of threads parsing each input file in parallel, each thread parsing its own "
+                        + "chunk of the file. Useful for importing few but big files, where parsing would "
+                        + "otherwise be limited to one processor per file." ),
         STACKTRACE( "stacktrace", null,
                 "<true/false>",
                 "Enable printing of error stack traces." ),
@@ -181,7 +189,39 @@ public class ImportTool
                 "<true/false>",
                 "Whether or not to ignore extra columns in the data not specified by the header. "
                         + "Skipped columns will be logged, containing at most number of entities specified by "
-                        + BAD_TOLERANCE.key() + "." );
+                        + BAD_TOLERANCE.key() + "." ),
+        INDEX( "index", null,
+                ":Label \"<property1>,<property2>,...\"",
+                "Schema index to create, and populate while importing nodes, on the given label and one or "
+                        + "more property keys, where more than one property key creates a composite index. "
+                        + "Multiple indexes can be specified in one import.",
+                        true ),
+        UNIQUE( "unique", null,
+                ":Label <property>",
+                "Uniqueness constraint to create, and enforce while importing nodes, on the given label and "
+                        + "property key. Multiple constraints can be specified in one import.",
+                        true ),
+        SKIP_CONSTRAINT_VIOLATIONS( "skip-constraint-violations", Boolean.TRUE,
+                "<true/false>",
+                "Whether or not to import nodes violating a uniqueness constraint, specified by "
+                        + UNIQUE.key() + ", without the violating property. In the event of multiple nodes "
+                        + "with the same label having the same value, the first encountered gets the property. "
+                        + "Skipped properties will be logged, containing at most number of entities specified by "
+                        + BAD_TOLERANCE.key() + "." ),
+        INCREMENTAL( "incremental", Boolean.FALSE,
+                "<true/false>",
+                "Whether or not to import into an existing database, specified by " + STORE_DIR.key() + ". "
+                        + "The database must have been shut down cleanly. Requires " + ID_TYPE.key() + " "
+                        + IdType.ACTUAL.name().toLowerCase() + ", so that relationships can refer to existing "
+                        + "nodes. Existing sparse nodes stay sparse however many relationships are imported for "
+                        + "them. Schema indexes are rebuilt when the database is next started. A failed import "
+                        + "may leave the database in an inconsistent state, so take a backup first." ),
+        RESUME( "resume", Boolean.FALSE,
+                "<true/false>",
+                "Whether or not to resume an import which failed in the database specified by "
+                        + STORE_DIR.key() + ", continuing after the last import stage it completed. "
+                        + "Must be given the same input and options as the failed import. "
+                        + "Cannot be combined with " + INCREMENTAL.key() + "." );
 
         private final String key;
         private final Object defaultValue;
@@ -303,15 +343,31 @@ public class ImportTool
         Input input = null;
         int badTolerance;
         Charset inputEncoding;
-        boolean skipBadRelationships, skipDuplicateNodes, ignoreExtraColumns;
+        boolean skipBadRelationships, skipDuplicateNodes, ignoreExtraColumns, skipConstraintViolations;
+        boolean incremental = false;
+        boolean resume = false;
+        Collection<SchemaIndexDefinition> indexes;
 
         try
         {
-            storeDir = args.interpretOption( Options.STORE_DIR.key(), Converters.<File>mandatory(),
-                    Converters.toFile(), Validators.DIRECTORY_IS_WRITABLE, Validators.CONTAINS_NO_EXISTING_DATABASE );
+            incremental = args.getBoolean( Options.INCREMENTAL.key(),
+                    (Boolean)Options.INCREMENTAL.defaultValue(), true );
+            resume = args.getBoolean( Options.RESUME.key(), (Boolean)Options.RESUME.defaultValue(), true );
+            if ( incremental && resume )
+            {
+                throw new IllegalArgumentException( "An incremental import cannot be resumed, specify only one of " +
+                        Options.INCREMENTAL.argument() + " and " + Options.RESUME.argument() );
+            }
+            // The database of a resumed import contains data from the import which failed
+            storeDir = incremental || resume
+                    ? args.interpretOption( Options.STORE_DIR.key(), Converters.<File>mandatory(),
+                            Converters.toFile(), Validators.DIRECTORY_IS_WRITABLE )
+                    : args.interpretOption( Options.STORE_DIR.key(), Converters.<File>mandatory(),
+                            Converters.toFile(), Validators.DIRECTORY_IS_WRITABLE,
+                            Validators.CONTAINS_NO_EXISTING_DATABASE );
 
             File badFile = new File( storeDir, BAD_FILE_NAME );
-            OutputStream badOutput = new BufferedOutputStream( fs.openAsOutputStream( badFile, false ) );
+            OutputStream badOutput = new BufferedOutputStream( fs.openAsOutputStream( badFile, resume ) );
             nodesFiles = INPUT_FILES_EXTRACTOR.apply( args, Options.NODE_DATA.key() );
             relationshipsFiles = INPUT_FILES_EXTRACTOR.apply( args, Options.RELATIONSHIP_DATA.key() );
             validateInputFiles( nodesFiles, relationshipsFiles );
@@ -319,6 +375,12 @@ public class ImportTool
             processors = args.getNumber( Options.PROCESSORS.key(), null );
             IdType idType = args.interpretOption( Options.ID_TYPE.key(),
                     withDefault( (IdType)Options.ID_TYPE.defaultValue() ), TO_ID_TYPE );
+            if ( incremental && idType != IdType.ACTUAL )
+            {   // Other id types can't map ids to nodes which were imported before
+                throw new IllegalArgumentException( "An incremental import requires " + Options.ID_TYPE.argument() +
+                        " " + IdType.ACTUAL.name().toLowerCase() + ", since relationships can only refer to " +
+                        "existing nodes by their actual node ids, not by " + idType.name().toLowerCase() + " ids" );
+            }
             badTolerance = args.getNumber( Options.BAD_TOLERANCE.key(),
                     (Number) Options.BAD_TOLERANCE.defaultValue() ).intValue();
             inputEncoding = Charset.forName( args.get( Options.INPUT_ENCODING.key(), defaultCharset().name() ) );
@@ -328,9 +390,12 @@ public class ImportTool
                     (Boolean)Options.SKIP_DUPLICATE_NODES.defaultValue(), true );
             ignoreExtraColumns = args.getBoolean( Options.IGNORE_EXTRA_COLUMNS.key(),
                     (Boolean)Options.IGNORE_EXTRA_COLUMNS.defaultValue(), true );
+            skipConstraintViolations = args.getBoolean( Options.SKIP_CONSTRAINT_VIOLATIONS.key(),
+                    (Boolean)Options.SKIP_CONSTRAINT_VIOLATIONS.defaultValue(), true );
+            indexes = schemaIndexes( args );
 
             Collector badCollector = badCollector( badOutput, badTolerance, collect( skipBadRelationships,
-                    skipDuplicateNodes, ignoreExtraColumns ) );
+                    skipDuplicateNodes, ignoreExtraColumns, skipConstraintViolations ) );
 
             input = new CsvInput( nodeData( inputEncoding, nodesFiles ), defaultFormatNodeFileHeader(),
                     relationshipData( inputEncoding, relationshipsFiles ), defaultFormatRelationshipFileHeader(),
@@ -355,7 +420,10 @@ public class ImportTool
         BatchImporter importer = new ParallelBatchImporter( storeDir,
                 configuration,
                 logService,
-                ExecutionMonitors.defaultVisible() );
+                ExecutionMonitors.defaultVisible(),
+                incremental,
+                indexes,
+                resume );
         printOverview( storeDir, nodesFiles, relationshipsFiles );
         boolean success = false;
         try
@@ -382,8 +450,14 @@ public class ImportTool
             }
 
             life.shutdown();
-            if ( !success )
+            boolean resumable = !success && !incremental && ImportCheckpoint.exists( fs, storeDir );
+            if ( resumable )
             {
+                System.out.println( "The import can be resumed after its last completed stage by running it " +
+                        "again with " + Options.RESUME.argument() + " true" );
+            }
+            else if ( !success && !incremental )
+            {   // Only delete store files we created ourselves, never those of an existing database
                 try
                 {
                     StoreFile.fileOperation( FileOperation.DELETE, fs, storeDir, null,
@@ -402,6 +476,52 @@ public class ImportTool
         }
     }
 
+    private static Collection<SchemaIndexDefinition> schemaIndexes( Args args )
+    {
+        Collection<SchemaIndexDefinition> indexes = new ArrayList<>();
+        for ( Option<String[]> option : args.interpretOptionsWithMetadata( Options.INDEX.key(),
+                Converters.<String[]>optional(), PROPERTY_KEYS_CONVERTER ) )
+        {
+            indexes.add( SchemaIndexDefinition.index( schemaIndexLabel( option, Options.INDEX ), option.value() ) );
+        }
+        for ( Option<String[]> option : args.interpretOptionsWithMetadata( Options.UNIQUE.key(),
+                Converters.<String[]>optional(), PROPERTY_KEYS_CONVERTER ) )
+        {
+            String label = schemaIndexLabel( option, Options.UNIQUE );
+            if ( option.value().length != 1 )
+            {
+                throw new IllegalArgumentException( "Uniqueness constraint on :" + label +
+                        " must have exactly one property key, not " + Arrays.toString( option.value() ) );
+            }
+            indexes.add( SchemaIndexDefinition.uniqueness( label, option.value()[0] ) );
+        }
+        return indexes;
+    }
+
+    private static String schemaIndexLabel( Option<String[]> option, Options key )
+    {
+        if ( option.metadata() == null )
+        {
+            throw new IllegalArgumentException( "Missing label for " + key.argument() + ", specify it like " +
+                    key.argument() + ":MyLabel" );
+        }
+        return option.metadata();
+    }
+
+    private static final Function<String,String[]> PROPERTY_KEYS_CONVERTER = new Function<String,String[]>()
+    {
+        @Override
+        public String[] apply( String value ) throws RuntimeException
+        {
+            String[] propertyKeys = value.split( "," );
+            for ( int i = 0; i < propertyKeys.length; i++ )
+            {
+                propertyKeys[i] = propertyKeys[i].trim();
+            }
+            return propertyKeys;
+        }
+    };
+
     private static void printOverview( File storeDir, Collection<Option<File[]>> nodesFiles,
             Collection<Option<File[]>> relationshipsFiles )
     {
@@ -636,6 +756,8 @@ public class ImportTool
                 args.interpretOption( Options.QUOTE.key(), Converters.<Character>optional(), Converters.toCharacter() );
         final Boolean multiLineFields = args.getBoolean( Options.MULTILINE_FIELDS.key(), null );
         final Boolean emptyStringsAsNull = args.getBoolean( Options.IGNORE_EMPTY_STRINGS.key(), null );
+        final Number parsingThreads = args.getNumber( Options.PARSING_THREADS.key(),
+                (Number) Options.PARSING_THREADS.defaultValue() );
         return new Configuration.Default()
         {
             @Override
@@ -683,6 +805,12 @@ public class ImportTool
             {
                 return defaultSettingsSuitableForTests ? 10_000 : super.bufferSize();
             }
+
+            @Override
+            public int parsingThreads()
+            {
+                return parsingThreads.intValue();
+            }
         };
     }
 
@@ -45,6 +45,8 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema.IndexState;
 import org.neo4j.helpers.collection.FilteringIterator;
 import org.neo4j.helpers.collection.IteratorUtil;
 import org.neo4j.helpers.collection.PrefetchingIterator;
@@ -698,6 +700,29 @@ public class ImportToolTest
         }
     }
 
+    @Test
+    public void shouldDisallowIncrementalImportWithOtherThanActualIds() throws Exception
+    {
+        // GIVEN
+        List<String> nodeIds = nodeIds();
+        Configuration config = Configuration.COMMAS;
+
+        // WHEN
+        try
+        {
+            importTool(
+                    "--into", dbRule.getStoreDirAbsolutePath(),
+                    "--incremental",
+                    "--nodes", nodeData( true, config, nodeIds, alwaysTrue() ).getAbsolutePath() );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // THEN
+            assertThat( e.getMessage(), containsString( "An incremental import requires --id-type actual" ) );
+        }
+    }
+
     @Test
     public void shouldBeAbleToImportAnonymousNodes() throws Exception
     {
@@ -873,6 +898,70 @@ public class ImportToolTest
         }
     }
 
+    @Test
+    public void shouldCreateAndPopulateIndexesAndConstraintsGivenToImport() throws Exception
+    {
+        // GIVEN
+        File data = data(
+                ":ID,name,email,:LABEL",
+                "1,Alice,alice@example.com,Person",
+                "2,Bob,bob@example.com,Person",
+                "3,Eve,alice@example.com,Person" );
+
+        // WHEN
+        importTool(
+                "--into", dbRule.getStoreDirAbsolutePath(),
+                "--nodes", data.getAbsolutePath(),
+                "--index:Person", "name",
+                "--unique:Person", "email" );
+
+        // THEN
+        GraphDatabaseService db = dbRule.getGraphDatabaseAPI();
+        try ( Transaction tx = db.beginTx() )
+        {
+            Label person = label( "Person" );
+            assertEquals( 2, count( db.schema().getIndexes( person ) ) );
+            assertEquals( 1, count( db.schema().getConstraints( person ) ) );
+            for ( IndexDefinition index : db.schema().getIndexes( person ) )
+            {
+                assertEquals( IndexState.ONLINE, db.schema().getIndexState( index ) );
+            }
+            assertEquals( "Alice", db.findNode( person, "email", "alice@example.com" ).getProperty( "name" ) );
+            assertEquals( "bob@example.com", db.findNode( person, "name", "Bob" ).getProperty( "email" ) );
+            // Eve got the property violating the uniqueness constraint removed
+            assertFalse( db.findNode( person, "name", "Eve" ).hasProperty( "email" ) );
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldNotIndexPropertyRemovedForViolatingUniquenessConstraintOfAnotherLabel() throws Exception
+    {
+        // GIVEN
+        File data = data(
+                ":ID,name,email,:LABEL",
+                "1,Alice,alice@example.com,Person;Account",
+                "2,Eve,alice@example.com,Person;Account" );
+
+        // WHEN
+        importTool(
+                "--into", dbRule.getStoreDirAbsolutePath(),
+                "--nodes", data.getAbsolutePath(),
+                "--index:Account", "email",
+                "--unique:Person", "email" );
+
+        // THEN
+        GraphDatabaseService db = dbRule.getGraphDatabaseAPI();
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node eve = db.findNode( label( "Person" ), "name", "Eve" );
+            assertFalse( eve.hasProperty( "email" ) );
+            Node alice = single( db.findNodes( label( "Account" ), "email", "alice@example.com" ) );
+            assertEquals( "Alice", alice.getProperty( "name" ) );
+            tx.success();
+        }
+    }
+
     @Test
     public void shouldPrintUserFriendlyMessageAboutUnsupportedMultilineFields() throws Exception
     {
@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.List;
 
 /**
  * A page caching mechanism that allows caching multiple files and accessing their data
@@ -55,6 +56,17 @@ public interface PageCache extends AutoCloseable
      */
     PagedFile map( File file, int pageSize, OpenOption... openOptions ) throws IOException;
 
+    /**
+     * List the files that are currently mapped by this page cache.
+     *
+     * Each of the returned paged files count as a handle to the mapping, just as if they had been obtained through
+     * {@link #map(File, int, OpenOption...)}, so the caller must close them when done with them.
+     *
+     * @return A handle to each of the existing mappings. Never <code>null</code>.
+     * @throws IOException if the page cache has been closed, or is otherwise unable to hand out mappings.
+     */
+    List<PagedFile> listExistingMappings() throws IOException;
+
     /** Flush all dirty pages */
     void flushAndForce() throws IOException;
 
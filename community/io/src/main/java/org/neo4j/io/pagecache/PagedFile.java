@@ -19,8 +19,11 @@
  */
 package org.neo4j.io.pagecache;
 
+import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
 /**
  * The representation of a file that has been mapped into the associated page
  * cache.
@@ -53,8 +56,13 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     *
+     * When a cursor opened with this flag moves forward through the file one
+     * page at a time, the page cache will fault in the pages ahead of the
+     * cursor in the background, using vectored reads. Random access with
+     * <code>next(pageId)</code> does not trigger read-ahead.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. Only useful with
      * exclusive locking when you want to overwrite the whole page anyway.
@@ -153,6 +161,35 @@ public interface PagedFile extends AutoCloseable
      */
     long getLastPageId() throws IOException;
 
+    /**
+     * Get the file that this paged file is a mapping of.
+     */
+    File file();
+
+    /**
+     * Visit the file-page-ids of the pages of this file that are currently in the page cache, in ascending order.
+     *
+     * The pages are not pinned, so the set of visited pages is only a snapshot, that might be out of date by the
+     * time the visit is over.
+     *
+     * @param visitor Receives each of the file-page-ids, and can stop the visit by returning <code>true</code>.
+     * @throws E if the visitor throws.
+     */
+    <E extends Exception> void visitResidentPages( PrimitiveLongVisitor<E> visitor ) throws E;
+
+    /**
+     * Fault the given range of file pages into the page cache, without pinning them.
+     *
+     * Pages that are already in the cache, or that are beyond the end of the file, are skipped. The remaining pages
+     * are read with as few and as large vectored reads as possible, so this is the preferred way to bring in many
+     * pages whose ids are known ahead of time.
+     *
+     * @param startFilePageId The file-page-id of the first page to fault in.
+     * @param pageCount The number of consecutive file pages to fault in.
+     * @throws IOException if the pages could not be read.
+     */
+    void prefetch( long startFilePageId, int pageCount ) throws IOException;
+
     /**
      * Release a handle to a paged file.
      *
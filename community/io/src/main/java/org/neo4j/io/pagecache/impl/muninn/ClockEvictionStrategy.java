@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
+
+/**
+ * The classic clock sweep. All pages live in the {@link EvictionQueue#PROBATIONARY} queue, and a page is evicted
+ * once the clock arm has decremented its usage stamp down to zero.
+ */
+final class ClockEvictionStrategy extends EvictionStrategy
+{
+    @Override
+    EvictionQueue pageFaulted( MuninnPage page, PageSwapper swapper, long filePageId )
+    {
+        return EvictionQueue.PROBATIONARY;
+    }
+
+    @Override
+    boolean shouldEvict( MuninnPage page )
+    {
+        return page.decrementUsage();
+    }
+
+    @Override
+    void pageEvicted( MuninnPage page, EvictionQueue evictedFrom, PageSwapper swapper, long filePageId )
+    {
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction policies that the {@link MuninnPageCache} can be configured with.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * The plain clock sweep, which evicts the pages that have been least frequently used lately.
+     * Large scans can push the working set out of the cache.
+     */
+    CLOCK( "clock" )
+    {
+        @Override
+        EvictionStrategy createStrategy( int maxPages, int keepFree )
+        {
+            return new ClockEvictionStrategy();
+        }
+    },
+    /**
+     * A scan resistant policy modelled on 2Q, that only protects pages from eviction once they have been faulted in
+     * again shortly after being evicted.
+     */
+    TWO_QUEUE( "2q" )
+    {
+        @Override
+        EvictionStrategy createStrategy( int maxPages, int keepFree )
+        {
+            return new TwoQueueEvictionStrategy( maxPages, keepFree );
+        }
+    };
+
+    private final String name;
+
+    EvictionPolicy( String name )
+    {
+        this.name = name;
+    }
+
+    abstract EvictionStrategy createStrategy( int maxPages, int keepFree );
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
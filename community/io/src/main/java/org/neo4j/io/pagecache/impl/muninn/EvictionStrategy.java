@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
+
+/**
+ * The part of the eviction algorithm that decides which pages to evict. The {@link MuninnPageCache} drives the
+ * clock arm across all its pages, both in the background eviction thread and in page faulting threads, and asks
+ * the strategy about every loaded page it comes across.
+ *
+ * Pages are pinned far more often than they are faulted or evicted, so pins only ever touch the usage stamp of the
+ * page, and strategies must not depend on being told about them.
+ *
+ * @see EvictionPolicy
+ */
+abstract class EvictionStrategy
+{
+    /**
+     * The given page has just been faulted in, and is now bound to the given swapper and file page.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     *
+     * @return The eviction queue that the page has been placed in.
+     */
+    abstract EvictionQueue pageFaulted( MuninnPage page, PageSwapper swapper, long filePageId );
+
+    /**
+     * The clock arm has reached the given loaded page. Ageing the page as a side effect is expected.
+     *
+     * This is called without holding any lock on the page, so like the usage stamps, the decision is benignly racy.
+     *
+     * @return 'true' if the page should be evicted.
+     */
+    abstract boolean shouldEvict( MuninnPage page );
+
+    /**
+     * The given page has been evicted, and is no longer bound to the given swapper and file page.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     *
+     * @param evictedFrom The eviction queue the page was in when it got evicted.
+     */
+    abstract void pageEvicted( MuninnPage page, EvictionQueue evictedFrom, PageSwapper swapper, long filePageId );
+}
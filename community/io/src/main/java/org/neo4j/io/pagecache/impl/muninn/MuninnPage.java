@@ -26,6 +26,7 @@ import org.neo4j.io.pagecache.Page;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
@@ -61,6 +62,9 @@ final class MuninnPage extends StampedLock implements Page
     private PageSwapper swapper;
     private long filePageId = PageCursor.UNBOUND_PAGE_ID;
 
+    // The eviction policy queue this page is in. Only changed while holding the page write lock.
+    private EvictionQueue evictionQueue = EvictionQueue.PROBATIONARY;
+
     public MuninnPage( int cachePageSize, MemoryManager memoryManager )
     {
         this.cachePageHeader = (byte) (31 - Integer.numberOfLeadingZeros( cachePageSize ));
@@ -137,6 +141,31 @@ final class MuninnPage extends StampedLock implements Page
         return usage == 0;
     }
 
+    /** Clear the usage stamp. Returns true if it was already 0. */
+    public boolean clearUsage()
+    {
+        // This is intentionally left benignly racy for performance.
+        byte usage = UnsafeUtil.getByteVolatile( this, usageStampOffset );
+        if ( usage != 0 )
+        {
+            UnsafeUtil.putByteVolatile( this, usageStampOffset, (byte) 0 );
+        }
+        return usage == 0;
+    }
+
+    public EvictionQueue getEvictionQueue()
+    {
+        return evictionQueue;
+    }
+
+    /**
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    public void setEvictionQueue( EvictionQueue evictionQueue )
+    {
+        this.evictionQueue = evictionQueue;
+    }
+
     public byte getByte( int offset )
     {
         checkBounds( offset + 1 );
@@ -308,17 +337,19 @@ final class MuninnPage extends StampedLock implements Page
 
     /**
      * NOTE: This method must be called while holding a pessimistic lock on the page.
+     * @return The number of bytes written, which is zero if the page was not dirty.
      */
-    public void flush( FlushEventOpportunity flushOpportunity ) throws IOException
+    public long flush( FlushEventOpportunity flushOpportunity ) throws IOException
     {
         if ( swapper != null && isDirty() )
         {
             // The page is bound and has stuff to flush
-            doFlush( swapper, filePageId, flushOpportunity );
+            return doFlush( swapper, filePageId, flushOpportunity );
         }
+        return 0;
     }
 
-    private void doFlush(
+    private long doFlush(
             PageSwapper swapper,
             long filePageId,
             FlushEventOpportunity flushOpportunity ) throws IOException
@@ -331,6 +362,7 @@ final class MuninnPage extends StampedLock implements Page
             markAsClean();
             event.addBytesWritten( bytesWritten );
             event.done();
+            return bytesWritten;
         }
         catch ( IOException e )
         {
@@ -341,8 +373,9 @@ final class MuninnPage extends StampedLock implements Page
 
     /**
      * NOTE: This method MUST be called while holding the page write lock.
+     * @return The number of bytes read.
      */
-    public void fault(
+    public long fault(
             PageSwapper swapper,
             long filePageId,
             PageFaultEvent faultEvent ) throws IOException
@@ -370,12 +403,49 @@ final class MuninnPage extends StampedLock implements Page
         faultEvent.addBytesRead( bytesRead );
         faultEvent.setCachePageId( getCachePageId() );
         this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
+        return bytesRead;
+    }
+
+    /**
+     * Assign the file page id ahead of a vectored read, performed by the caller, that will fill this page.
+     * The page is considered loaded from this point on, so eviction can reclaim it if the read fails.
+     * The page must be bound with {@link #completeFault(PageSwapper)} once the read has succeeded.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    public void prepareFault( PageSwapper swapper, long filePageId )
+    {
+        assert isWriteLocked(): "Cannot fault page without write-lock";
+        if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
+        {
+            String msg = format(
+                    "Cannot fault page {filePageId = %s, swapper = %s} into " +
+                    "cache page %s. Already bound to {filePageId = " +
+                    "%s, swapper = %s}.",
+                    filePageId, swapper, getCachePageId(), this.filePageId, this.swapper );
+            throw new IllegalStateException( msg );
+        }
+        this.filePageId = filePageId; // Page now considered isLoaded()
+    }
+
+    /**
+     * Bind this page to the given swapper, after a vectored read has filled it with the contents of the file page
+     * given to {@link #prepareFault(PageSwapper, long)}.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    public void completeFault( PageSwapper swapper )
+    {
+        assert isWriteLocked(): "Cannot fault page without write-lock";
+        assert this.filePageId != PageCursor.UNBOUND_PAGE_ID: "Page fault was not prepared: " + this;
+        this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
     }
 
     /**
      * NOTE: This method MUST be called while holding the page write lock.
+     * @return The number of bytes written, if the page had to be flushed before it could be evicted.
      */
-    public void evict( EvictionEvent evictionEvent ) throws IOException
+    public long evict( EvictionEvent evictionEvent ) throws IOException
     {
         assert isWriteLocked(): "Cannot evict page without write-lock";
         long filePageId = this.filePageId;
@@ -384,7 +454,7 @@ final class MuninnPage extends StampedLock implements Page
         PageSwapper swapper = this.swapper;
         evictionEvent.setSwapper( swapper );
 
-        flush( evictionEvent.flushEventOpportunity() );
+        long bytesWritten = flush( evictionEvent.flushEventOpportunity() );
         this.filePageId = PageCursor.UNBOUND_PAGE_ID;
 
         this.swapper = null;
@@ -394,6 +464,7 @@ final class MuninnPage extends StampedLock implements Page
             // that page threw an exception.
             swapper.evicted( filePageId, this );
         }
+        return bytesWritten;
     }
 
     public boolean isLoaded()
@@ -423,6 +494,11 @@ final class MuninnPage extends StampedLock implements Page
         return filePageId;
     }
 
+    public PageSwapper getSwapper()
+    {
+        return swapper;
+    }
+
     @Override
     public String toString()
     {
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -32,9 +33,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -114,10 +117,15 @@ public class MuninnPageCache implements PageCache
 
     // This ratio determines how the background flush task will spend its time. Specifically, it is a ratio of how
     // much of its time will be spent doing IO. For instance, setting the ratio to 0.3 will make the flusher task
-    // spend 30% of its time doing IO, and 70% of its time sleeping.
-    private static final double backgroundFlushIoRatio = getDouble(
+    // spend 30% of its time doing IO, and 70% of its time sleeping. A ratio of 0 disables background flushing.
+    // This is only the default; it can be changed at runtime with setBackgroundFlushIORatio.
+    private static final double defaultBackgroundFlushIoRatio = getDouble(
             "org.neo4j.io.pagecache.impl.muninn.backgroundFlushIoRatio", 0.1 );
 
+    // The default maximum number of pages that a PF_READ_AHEAD cursor will have faulted in ahead of itself.
+    // This is only the default; it can be changed with setReadAheadPages.
+    private static final int defaultReadAheadPages = 32;
+
     private static double getDouble( String property, double def )
     {
         try
@@ -173,6 +181,7 @@ public class MuninnPageCache implements PageCache
     private final CursorPool cursorPool;
     private final PageCacheTracer tracer;
     private final MuninnPage[] pages;
+    final EvictionStrategy evictionStrategy;
     private final AtomicInteger backgroundFlushPauseRequests;
 
     // The freelist is a thread-safe linked-list of 2 types of objects. A link
@@ -212,6 +221,12 @@ public class MuninnPageCache implements PageCache
     // Only used by ensureThreadsInitialised while holding the monitor lock on this MuninnPageCache instance.
     private boolean threadsInitialised;
 
+    // The share of its time the background flush task is allowed to spend doing IO.
+    private volatile double backgroundFlushIoRatio;
+
+    // The maximum number of pages that a PF_READ_AHEAD cursor will have faulted in ahead of itself.
+    private volatile int readAheadPages;
+
     // The accumulator for the flush task sleep debt. This is only accessed from the flush task.
     private long sleepDebtNanos;
 
@@ -223,6 +238,16 @@ public class MuninnPageCache implements PageCache
             int maxPages,
             int cachePageSize,
             PageCacheTracer tracer )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, EvictionPolicy.CLOCK );
+    }
+
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -235,7 +260,10 @@ public class MuninnPageCache implements PageCache
         this.cursorPool = new CursorPool();
         this.tracer = tracer;
         this.pages = new MuninnPage[maxPages];
+        this.evictionStrategy = evictionPolicy.createStrategy( maxPages, keepFree );
         this.backgroundFlushPauseRequests = new AtomicInteger();
+        this.backgroundFlushIoRatio = defaultBackgroundFlushIoRatio;
+        this.readAheadPages = defaultReadAheadPages;
         this.printExceptionsOnClose = true;
 
         long alignment = swapperFactory.getRequiredBufferAlignment();
@@ -367,10 +395,26 @@ public class MuninnPageCache implements PageCache
         current = new FileMapping( file, pagedFile );
         current.next = mappedFiles;
         mappedFiles = current;
-        tracer.mappedFile( file );
+        tracer.mappedFile( file, pagedFile.monitor );
         return pagedFile;
     }
 
+    @Override
+    public synchronized List<PagedFile> listExistingMappings() throws IOException
+    {
+        assertNotClosed();
+        List<PagedFile> list = new ArrayList<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            MuninnPagedFile pagedFile = current.pagedFile;
+            pagedFile.incrementRefCount();
+            list.add( pagedFile );
+            current = current.next;
+        }
+        return list;
+    }
+
     /**
      * Note: Must be called while synchronizing on the MuninnPageCache instance.
      */
@@ -468,6 +512,43 @@ public class MuninnPageCache implements PageCache
         this.printExceptionsOnClose = enabled;
     }
 
+    /**
+     * Set the share of its time, between 0 and 1, that the background flush task may spend writing dirty pages to
+     * the storage device. The more dirty pages are flushed in the background, the less work is left for the next
+     * call to {@link #flushAndForce()}. A ratio of 0 disables background flushing altogether.
+     */
+    public void setBackgroundFlushIORatio( double ratio )
+    {
+        if ( !(ratio >= 0 && ratio <= 1) )
+        {
+            throw new IllegalArgumentException( "The background flush IO ratio must be between 0 and 1, but was " +
+                                                ratio );
+        }
+        this.backgroundFlushIoRatio = ratio;
+        LockSupport.unpark( flushThread );
+    }
+
+    /**
+     * Set the maximum number of pages that a {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD} cursor will
+     * have faulted in ahead of itself, when it is moving sequentially forward through its file. The effective number
+     * is further limited to an eighth of the page cache, so small caches don't evict their own read-ahead.
+     * A value of 0 disables read-ahead. Only files mapped after this call are affected.
+     */
+    public void setReadAheadPages( int pages )
+    {
+        if ( pages < 0 )
+        {
+            throw new IllegalArgumentException( "The number of pages to read ahead cannot be negative, but was " +
+                                                pages );
+        }
+        this.readAheadPages = pages;
+    }
+
+    int readAheadPages()
+    {
+        return Math.min( readAheadPages, maxCachedPages() / 8 );
+    }
+
     @Override
     public synchronized void flushAndForce() throws IOException
     {
@@ -584,6 +665,11 @@ public class MuninnPageCache implements PageCache
         return pageCacheId;
     }
 
+    void executeBackgroundTask( BackgroundTask task )
+    {
+        backgroundThreadExecutor.execute( task );
+    }
+
     MuninnPage grabFreePage( PageFaultEvent faultEvent ) throws IOException
     {
         // Review the comment on the freelist field before making changes to
@@ -661,7 +747,7 @@ public class MuninnPageCache implements PageCache
                         "The PageCache has been shut down" );
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && evictionStrategy.shouldEvict( page ) )
             {
                 long stamp = page.tryWriteLock();
                 if ( stamp != 0 )
@@ -788,7 +874,7 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && evictionStrategy.shouldEvict( page ) )
             {
                 long stamp = page.tryWriteLock();
                 if ( stamp != 0 )
@@ -844,7 +930,13 @@ public class MuninnPageCache implements PageCache
     {
         try
         {
-            page.evict( evictionEvent );
+            EvictionQueue queue = page.getEvictionQueue();
+            PageSwapper swapper = page.getSwapper();
+            long filePageId = page.getFilePageId();
+            evictionEvent.setEvictionQueue( queue );
+            long bytesWritten = page.evict( evictionEvent );
+            evictionStrategy.pageEvicted( page, queue, swapper, filePageId );
+            countBytesWritten( swapper, bytesWritten );
             clearEvictorException();
             return true;
         }
@@ -867,6 +959,29 @@ public class MuninnPageCache implements PageCache
         return false;
     }
 
+    /**
+     * Attribute bytes written by a page flush, that did not go through a {@link MuninnPagedFile}, to the counters of
+     * the file they were written to. The file might have been unmapped in the meantime, in which case the bytes are
+     * not attributed to anything.
+     */
+    private void countBytesWritten( PageSwapper swapper, long bytesWritten )
+    {
+        if ( bytesWritten == 0 || swapper == null )
+        {
+            return;
+        }
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            if ( current.pagedFile.swapper == swapper )
+            {
+                current.pagedFile.monitor.addBytesWritten( bytesWritten );
+                return;
+            }
+            current = current.next;
+        }
+    }
+
     private void clearEvictorException()
     {
         if ( evictorException != null )
@@ -905,7 +1020,8 @@ public class MuninnPageCache implements PageCache
 
         while ( !thread.isInterrupted() )
         {
-            long iterationSleepMillis = flushAtIORatio( backgroundFlushIoRatio );
+            double ratio = backgroundFlushIoRatio;
+            long iterationSleepMillis = ratio > 0? flushAtIORatio( ratio ) : backgroundFlushLongBreak;
             if ( iterationSleepMillis > 0 )
             {
                 LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( iterationSleepMillis ) );
@@ -969,8 +1085,9 @@ public class MuninnPageCache implements PageCache
                         }
 
                         long startNanos = System.nanoTime();
-                        page.flush( event.flushEventOpportunity() );
+                        long bytesWritten = page.flush( event.flushEventOpportunity() );
                         long elapsedNanos = System.nanoTime() - startNanos;
+                        countBytesWritten( page.getSwapper(), bytesWritten );
 
                         sleepDebtNanos += elapsedNanos * sleepFactor;
                         flushedPages = true;
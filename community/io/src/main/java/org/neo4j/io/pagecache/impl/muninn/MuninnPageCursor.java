@@ -25,6 +25,7 @@ import java.io.IOException;
 import org.neo4j.concurrent.BinaryLatch;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
@@ -43,6 +44,8 @@ abstract class MuninnPageCursor implements PageCursor
 
     private boolean claimed;
     private int offset;
+    private long readAheadPageId;
+    private long hits;
 
     public final void initialise( MuninnPagedFile pagedFile, long pageId, int pf_flags )
     {
@@ -72,6 +75,7 @@ abstract class MuninnPageCursor implements PageCursor
         nextPageId = pageId;
         currentPageId = UNBOUND_PAGE_ID;
         lastPageId = pagedFile.getLastPageId();
+        readAheadPageId = pageId;
     }
 
     public final void reset( MuninnPage page )
@@ -92,6 +96,11 @@ abstract class MuninnPageCursor implements PageCursor
     public final void close()
     {
         unpinCurrentPage();
+        if ( hits != 0 )
+        {
+            pagedFile.monitor.addHits( hits );
+            hits = 0;
+        }
         pagedFile = null;
         claimed = false;
     }
@@ -115,6 +124,22 @@ abstract class MuninnPageCursor implements PageCursor
         return currentPageId == UNBOUND_PAGE_ID? null : pagedFile.file();
     }
 
+    /**
+     * Start reading ahead of the given file page, if this is a {@link PagedFile#PF_READ_AHEAD} cursor that is moving
+     * sequentially forward, and it has consumed half of the window that was read ahead the last time.
+     * @param filePageId The file page id that this cursor is about to pin.
+     */
+    protected final void readAhead( long filePageId )
+    {
+        if ( (pf_flags & PagedFile.PF_READ_AHEAD) != 0
+             && (filePageId == currentPageId + 1 || currentPageId == UNBOUND_PAGE_ID)
+             && filePageId >= readAheadPageId
+             && pagedFile.startReadAhead( filePageId + 1 ) )
+        {
+            readAheadPageId = filePageId + Math.max( 1, pagedFile.readAheadPages / 2 );
+        }
+    }
+
     /**
      * Pin the desired file page to this cursor, page faulting it into memory if it isn't there already.
      * @param filePageId The file page id we want to pin this cursor to.
@@ -143,6 +168,7 @@ abstract class MuninnPageCursor implements PageCursor
         // in a latch. If that CAS succeeds, we page fault, set the slot to the faulted in page and open the latch.
         // If the CAS failed, we retry the look up and start over from the top.
         Object item;
+        boolean hit = true;
         do
         {
             item = UnsafeUtil.getObjectVolatile( chunk, chunkOffset );
@@ -155,6 +181,7 @@ abstract class MuninnPageCursor implements PageCursor
                     // We managed to inject our latch, so we now own the right to perform the page fault. We also
                     // have a duty to eventually release and remove the latch, no matter what happens now.
                     item = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
+                    hit = false;
                 }
             }
             else if ( item.getClass() == MuninnPage.class )
@@ -181,6 +208,10 @@ abstract class MuninnPageCursor implements PageCursor
             }
         }
         while ( item == null );
+        if ( hit )
+        {
+            hits++;
+        }
         pinCursorToPage( (MuninnPage) item, filePageId, swapper );
     }
 
@@ -228,7 +259,10 @@ abstract class MuninnPageCursor implements PageCursor
             // the file channel.
             assertPagedFileStillMapped();
             page.initBuffer();
-            page.fault( swapper, filePageId, faultEvent );
+            long bytesRead = page.fault( swapper, filePageId, faultEvent );
+            pagedFile.monitor.pageFaulted( bytesRead );
+            EvictionStrategy evictionStrategy = pagedFile.pageCache.evictionStrategy;
+            faultEvent.setEvictionQueue( evictionStrategy.pageFaulted( page, swapper, filePageId ) );
         }
         catch ( Throwable throwable )
         {
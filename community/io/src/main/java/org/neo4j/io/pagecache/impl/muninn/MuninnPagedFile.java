@@ -21,7 +21,10 @@ package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.concurrent.BinaryLatch;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageEvictionCallback;
 import org.neo4j.io.pagecache.PageSwapper;
@@ -32,6 +35,7 @@ import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 final class MuninnPagedFile implements PagedFile
@@ -57,7 +61,10 @@ final class MuninnPagedFile implements PagedFile
     volatile Object[][] translationTable;
 
     final PageSwapper swapper;
+    final MuninnPagedFileMonitor monitor;
+    final int readAheadPages;
     private final CursorPool cursorPool;
+    private final AtomicBoolean readAheadInProgress = new AtomicBoolean();
 
     @SuppressWarnings( "unused" ) // Accessed via Unsafe
     private volatile int referenceCounter;
@@ -78,6 +85,8 @@ final class MuninnPagedFile implements PagedFile
         this.filePageSize = filePageSize;
         this.cursorPool = cursorPool;
         this.tracer = tracer;
+        this.readAheadPages = pageCache.readAheadPages();
+        this.monitor = new MuninnPagedFileMonitor( file );
 
         // The translation table is an array of arrays of references to either null, MuninnPage objects, or Latch
         // objects. The table only grows the outer array, and all the inner "chunks" all stay the same size. This
@@ -161,7 +170,8 @@ final class MuninnPagedFile implements PagedFile
         return filePageSize;
     }
 
-    File file()
+    @Override
+    public File file()
     {
         return swapper.file();
     }
@@ -257,6 +267,7 @@ final class MuninnPagedFile implements PagedFile
             flush.addBytesWritten( bytesWritten );
             flush.addPagesFlushed( pagesGrabbed );
             flush.done();
+            monitor.addBytesWritten( bytesWritten );
 
             // Mark the flushed pages as clean
             for ( int j = 0; j < pagesGrabbed; j++ )
@@ -354,6 +365,205 @@ final class MuninnPagedFile implements PagedFile
         return pageCache.grabFreePage( faultEvent );
     }
 
+    /**
+     * Ask for the file pages from the given startFilePageId and onwards to be faulted in by a background
+     * {@link ReadAheadTask}. Only one read-ahead can be in flight for a file at a time.
+     * @param startFilePageId The first file page id to read ahead.
+     * @return 'true' if the read-ahead was scheduled, 'false' if another read-ahead is already in progress.
+     */
+    boolean startReadAhead( long startFilePageId )
+    {
+        if ( readAheadPages == 0 || !readAheadInProgress.compareAndSet( false, true ) )
+        {
+            return false;
+        }
+        try
+        {
+            pageCache.executeBackgroundTask( new ReadAheadTask( pageCache, this, startFilePageId ) );
+            return true;
+        }
+        catch ( RuntimeException e )
+        {
+            // Read-ahead is only a hint; the cursor will just fault the pages in itself.
+            readAheadInProgress.set( false );
+            return false;
+        }
+    }
+
+    /**
+     * Fault in up to {@link #readAheadPages} pages from the given startFilePageId. Called from the
+     * {@link ReadAheadTask}.
+     */
+    void readAhead( long startFilePageId )
+    {
+        try
+        {
+            long endFilePageId = Math.min( startFilePageId + readAheadPages - 1, getLastPageId() );
+            if ( endFilePageId >= startFilePageId )
+            {
+                faultRange( startFilePageId, (int) (endFilePageId - startFilePageId + 1) );
+            }
+        }
+        catch ( IOException ignore )
+        {
+            // Read-ahead is only a hint. Any cursor that wants the pages we failed to fault in will do its own page
+            // fault, and report the problem then.
+        }
+        finally
+        {
+            readAheadInProgress.set( false );
+        }
+    }
+
+    @Override
+    public void prefetch( long startFilePageId, int pageCount ) throws IOException
+    {
+        assertStillMapped();
+        // Fault the range in windows no bigger than what we read ahead, so a large prefetch neither allocates huge
+        // IO vectors, nor holds on to a large number of free pages at once.
+        int window = Math.max( 1, readAheadPages );
+        long endFilePageId = Math.min( startFilePageId + pageCount - 1, getLastPageId() );
+        for ( long filePageId = startFilePageId; filePageId <= endFilePageId; filePageId += window )
+        {
+            faultRange( filePageId, (int) Math.min( window, endFilePageId - filePageId + 1 ) );
+        }
+    }
+
+    @Override
+    public <E extends Exception> void visitResidentPages( PrimitiveLongVisitor<E> visitor ) throws E
+    {
+        long filePageId = 0;
+        for ( Object[] chunk : translationTable )
+        {
+            for ( int i = 0; i < chunk.length; i++, filePageId++ )
+            {
+                Object element = UnsafeUtil.getObjectVolatile( chunk, computeChunkOffset( filePageId ) );
+                if ( element instanceof MuninnPage
+                     && ((MuninnPage) element).isBoundTo( swapper, filePageId )
+                     && visitor.visited( filePageId ) )
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fault in the given range of file pages, skipping the pages that are already in the cache or being faulted in
+     * by someone else. Consecutive runs of missing pages are read with vectored reads.
+     */
+    private void faultRange( long startFilePageId, int length ) throws IOException
+    {
+        long endFilePageId = startFilePageId + length - 1;
+        MuninnPage[] pages = new MuninnPage[length];
+        long[] stamps = new long[length];
+        Object[][] chunks = new Object[length][];
+        long[] chunkOffsets = new long[length];
+        BinaryLatch[] latches = new BinaryLatch[length];
+        long runStartFilePageId = startFilePageId;
+        int runLength = 0;
+        for ( long filePageId = startFilePageId; filePageId <= endFilePageId; filePageId++ )
+        {
+            int chunkId = computeChunkId( filePageId );
+            Object[][] tt = translationTable;
+            if ( tt.length <= chunkId )
+            {
+                tt = expandCapacity( chunkId );
+            }
+            Object[] chunk = tt[chunkId];
+            long chunkOffset = computeChunkOffset( filePageId );
+            BinaryLatch latch = new BinaryLatch();
+            if ( UnsafeUtil.getObjectVolatile( chunk, chunkOffset ) == null
+                 && UnsafeUtil.compareAndSwapObject( chunk, chunkOffset, null, latch ) )
+            {
+                // We now own the page fault for this file page, exactly like a pinning cursor would.
+                if ( runLength == 0 )
+                {
+                    runStartFilePageId = filePageId;
+                }
+                chunks[runLength] = chunk;
+                chunkOffsets[runLength] = chunkOffset;
+                latches[runLength] = latch;
+                runLength++;
+            }
+            else if ( runLength > 0 )
+            {
+                vectoredFault( runStartFilePageId, runLength, pages, stamps, chunks, chunkOffsets, latches );
+                runLength = 0;
+            }
+        }
+        if ( runLength > 0 )
+        {
+            vectoredFault( runStartFilePageId, runLength, pages, stamps, chunks, chunkOffsets, latches );
+        }
+    }
+
+    private void vectoredFault( long startFilePageId, int length, MuninnPage[] pages, long[] stamps,
+            Object[][] chunks, long[] chunkOffsets, BinaryLatch[] latches ) throws IOException
+    {
+        // Like MuninnPageCursor.pageFault, we MUST release and remove all of our latches no matter what happens,
+        // and we MUST release the write locks on all the pages we grab. Pages that have been prepared for the fault
+        // are considered loaded, so if the read fails, eviction will return them to the freelist.
+        PinEvent pinEvent = tracer.beginPin( false, startFilePageId, swapper );
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        int pagesGrabbed = 0;
+        boolean faulted = false;
+        try
+        {
+            while ( pagesGrabbed < length )
+            {
+                MuninnPage page = grabFreePage( faultEvent );
+                stamps[pagesGrabbed] = page.writeLock();
+                pages[pagesGrabbed] = page;
+                page.prepareFault( swapper, startFilePageId + pagesGrabbed );
+                pagesGrabbed++;
+                page.initBuffer();
+            }
+
+            // Check if we're racing with unmapping, before the read could reopen the file channel.
+            assertStillMapped();
+            long bytesRead = swapper.read( startFilePageId, pages, 0, length );
+            faultEvent.addBytesRead( bytesRead );
+            faultEvent.setCachePageId( pages[0].getCachePageId() );
+            EvictionStrategy evictionStrategy = pageCache.evictionStrategy;
+            for ( int i = 0; i < length; i++ )
+            {
+                MuninnPage page = pages[i];
+                page.completeFault( swapper );
+                faultEvent.setEvictionQueue( evictionStrategy.pageFaulted( page, swapper, startFilePageId + i ) );
+                page.incrementUsage();
+                UnsafeUtil.putObjectVolatile( chunks[i], chunkOffsets[i], page );
+            }
+            monitor.pagesFaulted( length, bytesRead );
+            faulted = true;
+            faultEvent.done();
+        }
+        catch ( Throwable throwable )
+        {
+            faultEvent.done( throwable );
+            throw throwable;
+        }
+        finally
+        {
+            for ( int i = 0; i < length; i++ )
+            {
+                if ( i < pagesGrabbed )
+                {
+                    pages[i].unlockWrite( stamps[i] );
+                    pages[i] = null;
+                }
+                if ( !faulted )
+                {
+                    UnsafeUtil.putObjectVolatile( chunks[i], chunkOffsets[i], null );
+                }
+                latches[i].release();
+                chunks[i] = null;
+                latches[i] = null;
+            }
+            pinEvent.done();
+        }
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
@@ -366,6 +576,7 @@ final class MuninnPagedFile implements PagedFile
         Object[] chunk = translationTable[chunkId];
         Object element = UnsafeUtil.getAndSetObject( chunk, chunkOffset, null );
         assert element instanceof MuninnPage: "Expected to evict a MuninnPage but found " + element;
+        monitor.pageEvicted();
         return (MuninnPage) element;
     }
 
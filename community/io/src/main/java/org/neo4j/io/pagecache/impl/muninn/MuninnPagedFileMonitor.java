@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
+
+/**
+ * The counters of a single {@link MuninnPagedFile}. Page cursors accumulate their hits locally, and only add them
+ * here when they are closed, so the pin fast-path does not contend on these counters.
+ */
+final class MuninnPagedFileMonitor implements PagedFileMonitor
+{
+    private final File file;
+    private final AtomicLong faults = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    MuninnPagedFileMonitor( File file )
+    {
+        this.file = file;
+    }
+
+    void pageFaulted( long bytesRead )
+    {
+        faults.getAndIncrement();
+        this.bytesRead.getAndAdd( bytesRead );
+    }
+
+    void pagesFaulted( int pageCount, long bytesRead )
+    {
+        faults.getAndAdd( pageCount );
+        this.bytesRead.getAndAdd( bytesRead );
+    }
+
+    void addHits( long count )
+    {
+        hits.getAndAdd( count );
+    }
+
+    void pageEvicted()
+    {
+        evictions.getAndIncrement();
+    }
+
+    void addBytesWritten( long bytes )
+    {
+        bytesWritten.getAndAdd( bytes );
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public long countFaults()
+    {
+        return faults.get();
+    }
+
+    @Override
+    public long countHits()
+    {
+        return hits.get();
+    }
+
+    @Override
+    public long countEvictions()
+    {
+        return evictions.get();
+    }
+
+    @Override
+    public long countBytesRead()
+    {
+        return bytesRead.get();
+    }
+
+    @Override
+    public long countBytesWritten()
+    {
+        return bytesWritten.get();
+    }
+
+    @Override
+    public long countResidentPages()
+    {
+        // Only successful faults are counted, and only pages that were bound to this file are counted as evicted,
+        // so the difference is the number of pages of this file that are in the cache right now.
+        long evicted = evictions.get();
+        return Math.max( 0, faults.get() - evicted );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MuninnPagedFileMonitor[" + file.getName() + "]";
+    }
+}
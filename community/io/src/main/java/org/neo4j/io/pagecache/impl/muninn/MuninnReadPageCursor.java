@@ -56,6 +56,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             return false;
         }
         unpinCurrentPage();
+        readAhead( nextPageId );
         pin( nextPageId, false );
         currentPageId = nextPageId;
         nextPageId++;
@@ -55,6 +55,7 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             }
         }
         unpinCurrentPage();
+        readAhead( nextPageId );
         pin( nextPageId, true );
         currentPageId = nextPageId;
         nextPageId++;
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
+
+/**
+ * A scan resistant eviction strategy, modelled on the 2Q algorithm, and fitted to the clock arm of the page cache.
+ *
+ * Faulted in pages start out in the {@link EvictionQueue#PROBATIONARY} queue, where they only get a single second
+ * chance from the clock arm, no matter how many times they have been pinned in the meantime. When a probationary
+ * page is evicted, its file page is remembered in a table of "ghost" entries. If the file page is faulted in again
+ * while its ghost is remembered, then it has proven to be frequently used, and the page goes straight into the
+ * {@link EvictionQueue#PROTECTED} queue.
+ *
+ * The clock arm leaves protected pages alone, as long as the protected queue stays within its share of the cache.
+ * Only when it grows beyond that share are the protected pages aged and evicted, like in the plain clock sweep.
+ * A large scan will thus only churn through the probationary pages, and leave the working set intact.
+ *
+ * The ghost table is a lossy hash table, so a ghost can be forgotten early by a colliding eviction, and two file
+ * pages can be mistaken for one another. Both just make the strategy slightly less precise.
+ */
+final class TwoQueueEvictionStrategy extends EvictionStrategy
+{
+    private static final int protectedPercentage = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.TwoQueueEvictionStrategy.protectedPercentage", 75 );
+    private static final int ghostPercentage = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.TwoQueueEvictionStrategy.ghostPercentage", 50 );
+
+    private final int maxProtectedPages;
+    private final AtomicInteger protectedPages;
+    private final long[] ghosts;
+
+    TwoQueueEvictionStrategy( int maxPages, int keepFree )
+    {
+        // The probationary queue must always be able to supply the pages that the page cache wants to keep free,
+        // or the clock arm could end up sweeping forever without finding anything to evict.
+        int maxProtected = (int) ((long) maxPages * protectedPercentage / 100);
+        this.maxProtectedPages = Math.max( 0, Math.min( maxProtected, maxPages - 2 * keepFree ) );
+        this.protectedPages = new AtomicInteger();
+        this.ghosts = new long[Math.max( 1, (int) ((long) maxPages * ghostPercentage / 100) )];
+    }
+
+    @Override
+    EvictionQueue pageFaulted( MuninnPage page, PageSwapper swapper, long filePageId )
+    {
+        EvictionQueue queue = EvictionQueue.PROBATIONARY;
+        if ( forgetGhost( swapper, filePageId ) && maxProtectedPages > 0 )
+        {
+            queue = EvictionQueue.PROTECTED;
+            protectedPages.getAndIncrement();
+        }
+        page.setEvictionQueue( queue );
+        return queue;
+    }
+
+    @Override
+    boolean shouldEvict( MuninnPage page )
+    {
+        if ( page.getEvictionQueue() == EvictionQueue.PROTECTED )
+        {
+            return protectedPages.get() > maxProtectedPages && page.decrementUsage();
+        }
+        return page.clearUsage();
+    }
+
+    @Override
+    void pageEvicted( MuninnPage page, EvictionQueue evictedFrom, PageSwapper swapper, long filePageId )
+    {
+        if ( evictedFrom == EvictionQueue.PROTECTED )
+        {
+            protectedPages.getAndDecrement();
+        }
+        else if ( swapper != null )
+        {
+            // Only remember pages that were successfully bound. A failed page fault leaves the swapper unassigned.
+            rememberGhost( swapper, filePageId );
+        }
+        page.setEvictionQueue( EvictionQueue.PROBATIONARY );
+    }
+
+    int countProtectedPages()
+    {
+        return protectedPages.get();
+    }
+
+    private void rememberGhost( PageSwapper swapper, long filePageId )
+    {
+        long key = ghostKey( swapper, filePageId );
+        ghosts[ghostSlot( key )] = key;
+    }
+
+    private boolean forgetGhost( PageSwapper swapper, long filePageId )
+    {
+        long key = ghostKey( swapper, filePageId );
+        int slot = ghostSlot( key );
+        if ( ghosts[slot] == key )
+        {
+            ghosts[slot] = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private static long ghostKey( PageSwapper swapper, long filePageId )
+    {
+        // Never zero, since that marks an empty slot.
+        return ((filePageId + 1) << 24) ^ (System.identityHashCode( swapper ) & 0xFFFFFF);
+    }
+
+    private int ghostSlot( long key )
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 1) % ghosts.length);
+    }
+}
@@ -19,6 +19,10 @@
  */
 package org.neo4j.io.pagecache.monitoring;
 
+import java.util.Collection;
+
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
+
 /**
  * The PageCacheMonitor exposes internal counters from the page cache.
  * The data for these counters is sourced through the PageCacheTracer API.
@@ -30,11 +34,21 @@ public interface PageCacheMonitor
      */
     public long countFaults();
 
+    /**
+     * @return The number of page faults thus far, that placed the page in the given eviction policy queue.
+     */
+    public long countFaults( EvictionQueue queue );
+
     /**
      * @return The number of page evictions observed thus far.
      */
     public long countEvictions();
 
+    /**
+     * @return The number of page evictions thus far, that took the page from the given eviction policy queue.
+     */
+    public long countEvictions( EvictionQueue queue );
+
     /**
      * @return The number of page pins observed thus far.
      */
@@ -74,4 +88,20 @@ public interface PageCacheMonitor
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     public long countEvictionExceptions();
+
+    /**
+     * @return The counters of each of the files that are currently mapped.
+     */
+    public Collection<PagedFileMonitor> mappedFiles();
+
+    /**
+     * Notify the given listener of every file that is mapped or unmapped from now on. Files that are already mapped
+     * are not reported to the listener, but can be found through {@link #mappedFiles()}.
+     */
+    public void addMappingListener( PagedFileMappingListener listener );
+
+    /**
+     * Stop notifying the given listener of mapped and unmapped files.
+     */
+    public void removeMappingListener( PagedFileMappingListener listener );
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.File;
+
+/**
+ * The PagedFileMonitor exposes internal counters for a single file that is mapped into the page cache.
+ * The counters are live for as long as the file stays mapped, and are handed to the
+ * {@link org.neo4j.io.pagecache.tracing.PageCacheTracer} when the file is mapped.
+ */
+public interface PagedFileMonitor
+{
+    /**
+     * @return The file these counters are for.
+     */
+    public File file();
+
+    /**
+     * @return The number of page faults into this file observed thus far.
+     */
+    public long countFaults();
+
+    /**
+     * @return The number of pins that found the page of this file already in the cache, thus far.
+     */
+    public long countHits();
+
+    /**
+     * @return The number of pages of this file that have been evicted thus far.
+     */
+    public long countEvictions();
+
+    /**
+     * @return The sum total of bytes read from this file through page faults thus far.
+     */
+    public long countBytesRead();
+
+    /**
+     * @return The sum total of bytes written to this file through flushes thus far.
+     */
+    public long countBytesWritten();
+
+    /**
+     * @return The number of pages of this file that are currently in the page cache.
+     */
+    public long countResidentPages();
+}
@@ -25,9 +25,17 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.SwitchPoint;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.packageFlag;
 
@@ -91,6 +99,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final AtomicLong filesMapped = new AtomicLong();
     protected final AtomicLong filesUnmapped = new AtomicLong();
     protected final AtomicLong evictionExceptions = new AtomicLong();
+    protected final AtomicLongArray queueFaults = new AtomicLongArray( EvictionQueue.values().length );
+    protected final AtomicLongArray queueEvictions = new AtomicLongArray( EvictionQueue.values().length );
+    protected final ConcurrentMap<File,PagedFileMonitor> fileMonitors = new ConcurrentHashMap<>();
+    private final Collection<PagedFileMappingListener> mappingListeners = new CopyOnWriteArrayList<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -156,6 +168,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+            queueEvictions.getAndIncrement( queue.ordinal() );
+        }
+
         @Override
         public void close()
         {
@@ -207,6 +225,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         public void setCachePageId( int cachePageId )
         {
         }
+
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+            queueFaults.getAndIncrement( queue.ordinal() );
+        }
     };
 
     private final PinEvent pinTracingEvent = new PinEvent()
@@ -263,15 +287,25 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     };
 
     @Override
-    public void mappedFile( File file )
+    public void mappedFile( File file, PagedFileMonitor monitor )
     {
+        fileMonitors.put( file, monitor );
         filesMapped.getAndIncrement();
+        for ( PagedFileMappingListener listener : mappingListeners )
+        {
+            listener.mapped( file, monitor );
+        }
     }
 
     @Override
     public void unmappedFile( File file )
     {
+        fileMonitors.remove( file );
         filesUnmapped.getAndIncrement();
+        for ( PagedFileMappingListener listener : mappingListeners )
+        {
+            listener.unmapped( file );
+        }
     }
 
     @Override
@@ -330,12 +364,24 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return faults.get();
     }
 
+    @Override
+    public long countFaults( EvictionQueue queue )
+    {
+        return queueFaults.get( queue.ordinal() );
+    }
+
     @Override
     public long countEvictions()
     {
         return evictions.get();
     }
 
+    @Override
+    public long countEvictions( EvictionQueue queue )
+    {
+        return queueEvictions.get( queue.ordinal() );
+    }
+
     @Override
     public long countPins()
     {
@@ -383,4 +429,22 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         return evictionExceptions.get();
     }
+
+    @Override
+    public Collection<PagedFileMonitor> mappedFiles()
+    {
+        return Collections.unmodifiableCollection( fileMonitors.values() );
+    }
+
+    @Override
+    public void addMappingListener( PagedFileMappingListener listener )
+    {
+        mappingListeners.add( listener );
+    }
+
+    @Override
+    public void removeMappingListener( PagedFileMappingListener listener )
+    {
+        mappingListeners.remove( listener );
+    }
 }
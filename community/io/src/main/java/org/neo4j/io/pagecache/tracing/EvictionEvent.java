@@ -59,6 +59,11 @@ public interface EvictionEvent extends AutoCloseablePageCacheTracerEvent
         {
         }
 
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -90,4 +95,9 @@ public interface EvictionEvent extends AutoCloseablePageCacheTracerEvent
      * The cache page id of the evicted page.
      */
     public void setCachePageId( int cachePageId );
+
+    /**
+     * The eviction policy queue that the evicted page was taken from.
+     */
+    public void setEvictionQueue( EvictionQueue queue );
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.tracing;
+
+/**
+ * The queues that the eviction policy of a page cache keeps its pages in.
+ *
+ * Policies with a single queue, like the plain clock sweep, keep all of their pages in the
+ * {@link #PROBATIONARY} queue.
+ */
+public enum EvictionQueue
+{
+    /**
+     * Pages that have been faulted in, but not yet been shown to be frequently used.
+     */
+    PROBATIONARY,
+    /**
+     * Pages that have proven to be frequently used, and are protected from being evicted by large scans.
+     */
+    PROTECTED
+}
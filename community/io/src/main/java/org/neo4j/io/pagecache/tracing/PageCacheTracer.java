@@ -20,9 +20,13 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 
 /**
  * A PageCacheTracer receives a steady stream of events and data about what
@@ -37,7 +41,7 @@ public interface PageCacheTracer extends PageCacheMonitor
     public static final PageCacheTracer NULL = new PageCacheTracer()
     {
         @Override
-        public void mappedFile( File file )
+        public void mappedFile( File file, PagedFileMonitor monitor )
         {
         }
 
@@ -76,12 +80,24 @@ public interface PageCacheTracer extends PageCacheMonitor
             return 0;
         }
 
+        @Override
+        public long countFaults( EvictionQueue queue )
+        {
+            return 0;
+        }
+
         @Override
         public long countEvictions()
         {
             return 0;
         }
 
+        @Override
+        public long countEvictions( EvictionQueue queue )
+        {
+            return 0;
+        }
+
         @Override
         public long countPins()
         {
@@ -130,6 +146,22 @@ public interface PageCacheTracer extends PageCacheMonitor
             return 0;
         }
 
+        @Override
+        public Collection<PagedFileMonitor> mappedFiles()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void addMappingListener( PagedFileMappingListener listener )
+        {
+        }
+
+        @Override
+        public void removeMappingListener( PagedFileMappingListener listener )
+        {
+        }
+
         @Override
         public String toString()
         {
@@ -139,8 +171,9 @@ public interface PageCacheTracer extends PageCacheMonitor
 
     /**
      * The given file has been mapped, where no existing mapping for that file existed.
+     * The given monitor exposes the counters of that file, until it is unmapped.
      */
-    public void mappedFile( File file );
+    public void mappedFile( File file, PagedFileMonitor monitor );
 
     /**
      * The last reference to the given file has been unmapped.
@@ -54,6 +54,11 @@ public interface PageFaultEvent
         public void setCachePageId( int cachePageId )
         {
         }
+
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+        }
     };
 
     /**
@@ -66,6 +71,11 @@ public interface PageFaultEvent
      */
     void setCachePageId( int cachePageId );
 
+    /**
+     * The eviction policy queue that the faulted page was placed in.
+     */
+    void setEvictionQueue( EvictionQueue queue );
+
     /**
      * The page fault completed successfully.
      */
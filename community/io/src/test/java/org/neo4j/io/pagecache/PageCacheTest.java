@@ -61,6 +61,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.neo4j.adversaries.RandomAdversary;
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
 import org.neo4j.adversaries.fs.AdversarialFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
@@ -68,6 +69,7 @@ import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 import org.neo4j.io.pagecache.randomharness.Command;
 import org.neo4j.io.pagecache.randomharness.PageCountRecordFormat;
 import org.neo4j.io.pagecache.randomharness.Phase;
@@ -2215,6 +2217,88 @@ public abstract class PageCacheTest<T extends PageCache>
                         .and( lessThanOrEqualTo( countedPages + faults ) ) );
     }
 
+    @Test( timeout = SHORT_TIMEOUT_MILLIS )
+    public void prefetchMustFaultInTheGivenPagesThatAreNotAlreadyResident() throws IOException
+    {
+        generateFileWithRecords( file( "a" ), recordCount, recordSize );
+        getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+
+        try ( PagedFile pagedFile = pageCache.map( file( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 3, PF_SHARED_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            pagedFile.prefetch( 2, 4 );
+
+            final List<Long> residentPages = new ArrayList<>();
+            pagedFile.visitResidentPages( new PrimitiveLongVisitor<RuntimeException>()
+            {
+                @Override
+                public boolean visited( long filePageId )
+                {
+                    residentPages.add( filePageId );
+                    return false;
+                }
+            } );
+            assertThat( residentPages, is( Arrays.asList( 2L, 3L, 4L, 5L ) ) );
+        }
+    }
+
+    @Test( timeout = SHORT_TIMEOUT_MILLIS )
+    public void listExistingMappingsMustReturnHandlesToTheMappedFiles() throws IOException
+    {
+        getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+
+        try ( PagedFile pagedFile = pageCache.map( file( "a" ), filePageSize ) )
+        {
+            List<PagedFile> mappings = pageCache.listExistingMappings();
+            assertThat( mappings.size(), is( 1 ) );
+            PagedFile mapping = mappings.get( 0 );
+            assertThat( mapping.file(), is( file( "a" ) ) );
+            assertThat( mapping.pageSize(), is( pagedFile.pageSize() ) );
+            mapping.close();
+        }
+
+        assertTrue( pageCache.listExistingMappings().isEmpty() );
+    }
+
+    @Test( timeout = SHORT_TIMEOUT_MILLIS )
+    public void tracerMustExposeCountersOfEachMappedFile() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        generateFileWithRecords( file( "a" ), recordCount, recordSize );
+
+        getPageCache( fs, maxPages, pageCachePageSize, tracer );
+
+        long countedPages = 0;
+        try ( PagedFile pagedFile = pageCache.map( file( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+            {
+                while ( cursor.next() )
+                {
+                    assertTrue( cursor.next( cursor.getCurrentPageId() ) );
+                    countedPages++;
+                }
+            }
+
+            assertThat( tracer.mappedFiles().size(), is( 1 ) );
+            PagedFileMonitor monitor = tracer.mappedFiles().iterator().next();
+            assertThat( monitor.file(), is( file( "a" ) ) );
+            long faults = monitor.countFaults();
+            assertThat( "wrong count of faults", faults, greaterThanOrEqualTo( countedPages ) );
+            assertThat( "wrong count of hits", monitor.countHits() + faults, is( countedPages * 2 ) );
+            assertThat( "wrong number of bytes read",
+                    monitor.countBytesRead(), greaterThanOrEqualTo( countedPages * filePageSize ) );
+            assertThat( "wrong number of resident pages",
+                    monitor.countResidentPages(), is( faults - monitor.countEvictions() ) );
+            assertThat( monitor.countResidentPages(), lessThanOrEqualTo( (long) maxPages ) );
+        }
+
+        assertTrue( tracer.mappedFiles().isEmpty() );
+    }
+
     @Test( timeout = SHORT_TIMEOUT_MILLIS )
     public void tracerMustBeNotifiedAboutPinUnpinFaultFlushAndEvictionEventsWhenWriting() throws IOException
     {
@@ -23,11 +23,16 @@ import org.hamcrest.Matcher;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -56,7 +61,7 @@ public class RecordingPageCacheTracer implements PageCacheTracer
     }
 
     @Override
-    public void mappedFile( File file )
+    public void mappedFile( File file, PagedFileMonitor monitor )
     {
         // we currently do not record these
     }
@@ -126,6 +131,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
                     public void setCachePageId( int cachePageId )
                     {
                     }
+
+                    @Override
+                    public void setEvictionQueue( EvictionQueue queue )
+                    {
+                    }
                 };
             }
 
@@ -154,12 +164,24 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long countFaults( EvictionQueue queue )
+    {
+        return 0;
+    }
+
     @Override
     public long countEvictions()
     {
         return 0;
     }
 
+    @Override
+    public long countEvictions( EvictionQueue queue )
+    {
+        return 0;
+    }
+
     @Override
     public long countPins()
     {
@@ -208,6 +230,22 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public Collection<PagedFileMonitor> mappedFiles()
+    {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void addMappingListener( PagedFileMappingListener listener )
+    {
+    }
+
+    @Override
+    public void removeMappingListener( PagedFileMappingListener listener )
+    {
+    }
+
     public <T extends Event> T observe( Class<T> type ) throws InterruptedException
     {
         return type.cast( record.take() );
@@ -353,6 +391,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -36,6 +36,7 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RecordingPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -49,6 +50,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Evict;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Fault;
@@ -305,4 +307,77 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
             // Good.
         }
     }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void readAheadCursorMustFaultInFollowingPagesInTheBackground() throws Exception
+    {
+        int pageCount = 64;
+        StoreChannel channel = fs.create( file( "a" ) );
+        ByteBuffer buf = ByteBuffer.allocate( pageCount * 8 );
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            buf.putLong( i );
+        }
+        buf.flip();
+        channel.writeAll( buf );
+        channel.close();
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MuninnPageCache pageCache = createPageCache( fs, 256, 8, tracer );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+            while ( tracer.countFaults() < 2 )
+            {
+                Thread.sleep( 1 );
+            }
+            long pageId = 0;
+            do
+            {
+                long value;
+                do
+                {
+                    value = cursor.getLong();
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value, is( pageId ) );
+                pageId++;
+            }
+            while ( cursor.next() );
+            assertThat( pageId, is( (long) pageCount ) );
+        }
+        pagedFile.close();
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void backgroundFlushMustWriteDirtyPagesWithoutAnExplicitFlush() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MuninnPageCache pageCache = createPageCache( fs, 16, 8, tracer );
+        pageCache.setBackgroundFlushIORatio( 1.0 );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( y );
+        }
+
+        while ( tracer.countFlushes() == 0 )
+        {
+            Thread.sleep( 1 );
+        }
+        assertThat( tracer.countBytesWritten(), is( 8L ) );
+        pagedFile.close();
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustRejectBackgroundFlushIORatioOutsideOfZeroAndOne() throws Exception
+    {
+        MuninnPageCache pageCache = createPageCache( fs, 2, 8, PageCacheTracer.NULL );
+        pageCache.setBackgroundFlushIORatio( 1.5 );
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.io.pagecache.tracing.EvictionQueue.PROBATIONARY;
+import static org.neo4j.io.pagecache.tracing.EvictionQueue.PROTECTED;
+
+public class TwoQueueEvictionStrategyTest
+{
+    private final MemoryManager memoryManager = new MemoryManager( 8 * 100, 8 );
+    private final PageSwapper swapper = mock( PageSwapper.class );
+
+    @Test
+    public void faultedPagesMustStartOutAsProbationary() throws Exception
+    {
+        TwoQueueEvictionStrategy strategy = new TwoQueueEvictionStrategy( 100, 10 );
+        MuninnPage page = newPage();
+
+        assertThat( strategy.pageFaulted( page, swapper, 42 ), is( PROBATIONARY ) );
+        assertThat( page.getEvictionQueue(), is( PROBATIONARY ) );
+    }
+
+    @Test
+    public void probationaryPagesMustOnlyGetASingleSecondChance() throws Exception
+    {
+        TwoQueueEvictionStrategy strategy = new TwoQueueEvictionStrategy( 100, 10 );
+        MuninnPage page = newPage();
+        strategy.pageFaulted( page, swapper, 42 );
+        page.incrementUsage();
+        page.incrementUsage();
+        page.incrementUsage();
+
+        assertFalse( strategy.shouldEvict( page ) );
+        assertTrue( strategy.shouldEvict( page ) );
+    }
+
+    @Test
+    public void pagesFaultedInAgainAfterProbationaryEvictionMustBeProtected() throws Exception
+    {
+        TwoQueueEvictionStrategy strategy = new TwoQueueEvictionStrategy( 100, 10 );
+        MuninnPage page = newPage();
+        strategy.pageFaulted( page, swapper, 42 );
+        strategy.pageEvicted( page, PROBATIONARY, swapper, 42 );
+
+        assertThat( strategy.pageFaulted( page, swapper, 42 ), is( PROTECTED ) );
+        assertThat( strategy.countProtectedPages(), is( 1 ) );
+
+        strategy.pageEvicted( page, PROTECTED, swapper, 42 );
+        assertThat( strategy.countProtectedPages(), is( 0 ) );
+        assertThat( page.getEvictionQueue(), is( PROBATIONARY ) );
+    }
+
+    @Test
+    public void pagesOfOtherFilesMustNotBeProtectedByGhosts() throws Exception
+    {
+        TwoQueueEvictionStrategy strategy = new TwoQueueEvictionStrategy( 100, 10 );
+        MuninnPage page = newPage();
+        strategy.pageFaulted( page, swapper, 42 );
+        strategy.pageEvicted( page, PROBATIONARY, swapper, 42 );
+
+        assertThat( strategy.pageFaulted( page, mock( PageSwapper.class ), 42 ), is( PROBATIONARY ) );
+        assertThat( strategy.pageFaulted( newPage(), swapper, 43 ), is( PROBATIONARY ) );
+    }
+
+    @Test
+    public void protectedPagesMustNotBeEvictedWhileProtectedQueueIsWithinItsShare() throws Exception
+    {
+        TwoQueueEvictionStrategy strategy = new TwoQueueEvictionStrategy( 100, 10 );
+        MuninnPage page = protectedPage( strategy, 42 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertFalse( strategy.shouldEvict( page ) );
+        }
+    }
+
+    @Test
+    public void protectedPagesMustBeEvictedWhenProtectedQueueOutgrowsItsShare() throws Exception
+    {
+        // 4 pages with 1 kept free allows for 2 protected pages
+        TwoQueueEvictionStrategy strategy = new TwoQueueEvictionStrategy( 4, 1 );
+        MuninnPage page = protectedPage( strategy, 1 );
+        protectedPage( strategy, 2 );
+        assertFalse( strategy.shouldEvict( page ) );
+
+        protectedPage( strategy, 3 );
+        assertTrue( strategy.shouldEvict( page ) );
+    }
+
+    private MuninnPage protectedPage( TwoQueueEvictionStrategy strategy, long filePageId )
+    {
+        MuninnPage page = newPage();
+        strategy.pageFaulted( page, swapper, filePageId );
+        strategy.pageEvicted( page, PROBATIONARY, swapper, filePageId );
+        assertThat( strategy.pageFaulted( page, swapper, filePageId ), is( PROTECTED ) );
+        return page;
+    }
+
+    private MuninnPage newPage()
+    {
+        return new MuninnPage( 8, memoryManager );
+    }
+}
@@ -20,8 +20,11 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collection;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 
 /**
  * A PageCacheTracer that delegates all calls to a wrapped instance.
@@ -37,9 +40,9 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         this.delegate = delegate;
     }
 
-    public void mappedFile( File file )
+    public void mappedFile( File file, PagedFileMonitor monitor )
     {
-        delegate.mappedFile( file );
+        delegate.mappedFile( file, monitor );
     }
 
     public long countBytesRead()
@@ -97,6 +100,21 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.countEvictionExceptions();
     }
 
+    public Collection<PagedFileMonitor> mappedFiles()
+    {
+        return delegate.mappedFiles();
+    }
+
+    public void addMappingListener( PagedFileMappingListener listener )
+    {
+        delegate.addMappingListener( listener );
+    }
+
+    public void removeMappingListener( PagedFileMappingListener listener )
+    {
+        delegate.removeMappingListener( listener );
+    }
+
     public long countFilesMapped()
     {
         return delegate.countFilesMapped();
@@ -116,4 +134,14 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
     {
         return delegate.countEvictions();
     }
+
+    public long countFaults( EvictionQueue queue )
+    {
+        return delegate.countFaults( queue );
+    }
+
+    public long countEvictions( EvictionQueue queue )
+    {
+        return delegate.countEvictions( queue );
+    }
 }
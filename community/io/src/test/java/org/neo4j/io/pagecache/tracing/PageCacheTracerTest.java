@@ -26,9 +26,15 @@ import java.io.File;
 import java.io.IOException;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 public abstract class PageCacheTracerTest
 {
@@ -122,7 +128,7 @@ public abstract class PageCacheTracerTest
     @Test
     public void mustCountFileMappingAndUnmapping()
     {
-        tracer.mappedFile( new File( "a" ) );
+        tracer.mappedFile( new File( "a" ), mock( PagedFileMonitor.class ) );
 
         assertCounts( 0, 0, 0, 0, 0, 0, 0, 0, 1, 0 );
 
@@ -131,6 +137,38 @@ public abstract class PageCacheTracerTest
         assertCounts( 0, 0, 0, 0, 0, 0, 0, 0, 1, 1 );
     }
 
+    @Test
+    public void mustExposeTheCountersOfMappedFilesUntilTheyAreUnmapped()
+    {
+        PagedFileMonitor monitor = mock( PagedFileMonitor.class );
+        tracer.mappedFile( new File( "a" ), monitor );
+
+        assertThat( tracer.mappedFiles(), contains( monitor ) );
+
+        tracer.unmappedFile( new File( "a" ) );
+
+        assertThat( tracer.mappedFiles().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void mustNotifyMappingListenersOfMappingsAndUnmappingsUntilRemoved()
+    {
+        PagedFileMappingListener listener = mock( PagedFileMappingListener.class );
+        PagedFileMonitor monitor = mock( PagedFileMonitor.class );
+        tracer.addMappingListener( listener );
+
+        tracer.mappedFile( new File( "a" ), monitor );
+        tracer.unmappedFile( new File( "a" ) );
+
+        verify( listener ).mapped( new File( "a" ), monitor );
+        verify( listener ).unmapped( new File( "a" ) );
+
+        tracer.removeMappingListener( listener );
+        tracer.mappedFile( new File( "b" ), monitor );
+
+        verifyNoMoreInteractions( listener );
+    }
+
     @Test
     public void mustCountFlushes()
     {
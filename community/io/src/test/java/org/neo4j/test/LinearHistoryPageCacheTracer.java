@@ -27,6 +27,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -35,7 +37,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.neo4j.function.Consumer;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.EvictionQueue;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
@@ -246,6 +251,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         private File file;
         private IOException exception;
         private int cachePageId;
+        private EvictionQueue queue;
 
         @Override
         public void setFilePageId( long filePageId )
@@ -277,6 +283,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+            this.queue = queue;
+        }
+
         @Override
         public FlushEvent beginFlush( long filePageId, int cachePageId, PageSwapper swapper )
         {
@@ -290,6 +302,8 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             out.print( filePageId );
             out.print( ", cachePageId:" );
             out.print( cachePageId );
+            out.print( ", queue:" );
+            out.print( queue );
             print( out, file );
             print( out, exception, exceptionLinePrefix );
         }
@@ -403,6 +417,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         private int bytesRead;
         private int cachePageId;
         private boolean pageEvictedByFaulter;
+        private EvictionQueue queue;
         private Throwable exception;
 
         @Override
@@ -417,6 +432,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void setEvictionQueue( EvictionQueue queue )
+        {
+            this.queue = queue;
+        }
+
         @Override
         public void done()
         {
@@ -446,6 +467,8 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             out.print( bytesRead );
             out.print( ", pageEvictedByFaulter:" );
             out.print( pageEvictedByFaulter );
+            out.print( ", queue:" );
+            out.print( queue );
             print( out, exception, exceptionLinePrefix );
         }
     }
@@ -529,7 +552,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     }
 
     @Override
-    public void mappedFile( File file )
+    public void mappedFile( File file, PagedFileMonitor monitor )
     {
         add( new MappedFileHEvent() ).file = file;
     }
@@ -570,12 +593,24 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long countFaults( EvictionQueue queue )
+    {
+        return 0;
+    }
+
     @Override
     public long countEvictions()
     {
         return 0;
     }
 
+    @Override
+    public long countEvictions( EvictionQueue queue )
+    {
+        return 0;
+    }
+
     @Override
     public long countPins()
     {
@@ -624,6 +659,22 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public Collection<PagedFileMonitor> mappedFiles()
+    {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void addMappingListener( PagedFileMappingListener listener )
+    {
+    }
+
+    @Override
+    public void removeMappingListener( PagedFileMappingListener listener )
+    {
+    }
+
     private class HistoryPrinter implements Consumer<HEvent>
     {
         private final List<HEvent> concurrentIntervals;
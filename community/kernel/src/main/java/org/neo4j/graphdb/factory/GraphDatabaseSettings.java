@@ -29,6 +29,7 @@ import java.util.List;
 
 import org.neo4j.graphdb.config.Setting;
 import org.neo4j.io.ByteUnit;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.kernel.configuration.ConfigurationMigrator;
 import org.neo4j.kernel.configuration.GraphDatabaseConfigurationMigrator;
 import org.neo4j.kernel.configuration.Internal;
@@ -208,6 +209,35 @@ public abstract class GraphDatabaseSettings
                   "for seconds, and 'ms' for milliseconds." )
     public static final Setting<Long> check_point_interval_time = setting( "dbms.checkpoint.interval.time", DURATION, "5m" );
 
+    @Description( "Configures the share of its time, between 0.0 and 1.0, that the page cache may spend writing dirty " +
+                  "pages to the store files in the background between check-points. Pages flushed in the " +
+                  "background no longer need to be flushed by the next check-point, which only has to flush and " +
+                  "force what is left. Higher values make check-points shorter at the cost of more continuous " +
+                  "I/O load, and '0.0' disables background flushing, leaving all of the flushing to check-points." )
+    public static final Setting<Double> check_point_io_ratio =
+            setting( "dbms.checkpoint.io_ratio", DOUBLE, "0.1", min( 0.0 ), max( 1.0 ) );
+
+    @Description( "The number of node, relationship and property ids each thread leases at a time, to allocate " +
+                  "ids without contending with other threads. Ids leased but not used by a transaction are given " +
+                  "back when it closes. The default, '0', disables leasing and allocates every id from the shared " +
+                  "id generator of the store." )
+    public static final Setting<Integer> id_lease_size = setting( "dbms.id_generator.lease_size", INTEGER, "0",
+            min( 0 ) );
+
+    @Description( "The amount of memory the sets of node ids in the state of a single transaction may occupy on " +
+                  "the heap, before they are moved off heap. These are the sets of added and removed nodes, of " +
+                  "nodes that got or lost a label, and of nodes in the index updates of the transaction. All other " +
+                  "transaction state, like property values, relationships and the changes to each node, always " +
+                  "stays on heap, and is not counted towards this threshold. The default, '0', keeps the id sets " +
+                  "on heap." )
+    public static final Setting<Long> tx_state_id_sets_off_heap_threshold = setting(
+            "dbms.tx_state.id_sets_off_heap_threshold", BYTES, "0", min( 0L ) );
+
+    @Description( "The number of threads used for applying transactions to the store during recovery. With more than " +
+                  "one thread, the transaction log is read and decoded ahead of the recovery, and transactions that " +
+                  "don't change the same records are applied to the store in parallel." )
+    public static final Setting<Integer> recovery_threads = setting( "dbms.recovery.threads", INTEGER, "1", min( 1 ) );
+
     // Auto Indexing
     @Description("Controls the auto indexing feature for nodes. Setting it to `false` shuts it down, " +
             "while `true` enables it by default for properties "
@@ -250,6 +280,19 @@ public abstract class GraphDatabaseSettings
     public static final Setting<Integer> index_sampling_update_percentage =
             setting("index_sampling_update_percentage", INTEGER, "5", min( 0 ) );
 
+    @Description( "Create new schema indexes and uniqueness constraints as native B+tree files, mapped through the " +
+                  "page cache, rather than as Lucene indexes. Existing indexes keep the kind they were created with. " +
+                  "Native indexes hold property values of up to about a quarter of a page each. Recovery scans all " +
+                  "entries of every native index, so it takes longer the larger the native indexes are." )
+    public static final Setting<Boolean> native_schema_index = setting( "dbms.index.native", BOOLEAN, FALSE );
+
+    // Label scan store
+    @Description( "Keep the label scan store in a native B+tree file, mapped through the page cache, rather than " +
+                  "in a Lucene index. The label scan store is rebuilt from the node store on the first start after " +
+                  "this setting has been changed." )
+    public static final Setting<Boolean> native_label_scan_store =
+            setting( "dbms.label_scan_store.native", BOOLEAN, FALSE );
+
     // Lucene settings
     @Description( "The maximum number of open Lucene index searchers." )
     public static Setting<Integer> lucene_searcher_cache_size = setting("lucene_searcher_cache_size",INTEGER, Integer.toString( Integer.MAX_VALUE ), min( 1 ));
@@ -344,6 +387,31 @@ public abstract class GraphDatabaseSettings
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.pagecache.swapper", STRING, (String) null );
 
+    @Description( "The policy for choosing which pages to evict from the page cache, when room is needed for other " +
+                  "pages. The `clock` policy evicts the pages that have been least frequently used lately. The `2q` " +
+                  "policy is scan resistant; it protects the frequently used pages from being pushed out of the page " +
+                  "cache by large scans, such as those done by analytical queries or index population." )
+    public static final Setting<EvictionPolicy> pagecache_eviction_policy =
+            setting( "dbms.pagecache.eviction_policy", options( EvictionPolicy.class ), "clock" );
+
+    @Description( "The maximum number of pages that the page cache reads ahead of a sequential scan of a store file, " +
+                  "in the background and with vectored reads. The effective number is further limited to an eighth " +
+                  "of the page cache. '0' disables read-ahead." )
+    public static final Setting<Integer> pagecache_read_ahead_pages =
+            setting( "dbms.pagecache.read_ahead_pages", INTEGER, "32", min( 0 ) );
+
+    @Description( "Warm up the page cache after a restart, by reloading the pages that were in the page cache before. " +
+                  "The set of cached pages is recorded in a profile in the store directory, which is written " +
+                  "periodically and on shutdown. On startup, the profiled pages are loaded in the background, in " +
+                  "file order and with large sequential reads. Disabled by default." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.pagecache.warmup.enabled", BOOLEAN, FALSE );
+
+    @Description( "How often the profile of the pages in the page cache is written, for warming up the page cache " +
+                  "after a restart." )
+    public static final Setting<Long> pagecache_warmup_profiling_interval =
+            setting( "dbms.pagecache.warmup.profile.interval", DURATION, "1m" );
+
     @Deprecated
     @Obsoleted( "This is no longer used" )
     @Description( "Log memory mapping statistics regularly." )
@@ -39,7 +39,9 @@ public interface IndexCreator
      * Includes the given {@code propertyKey} in this index, such that {@link Node nodes} with
      * the assigned {@link Label label} and this property key will have its values indexed.
      * 
-     * NOTE: currently only a single property key per index is supported.
+     * Calling this method several times creates a composite index, which indexes nodes that have all of the
+     * given property keys by their values of all of them, in the order the keys were given. A property key
+     * can only be included once.
      * 
      * @param propertyKey the property key to include in this index to be created.
      * @return an {@link IndexCreator} instance to be used for further interaction.
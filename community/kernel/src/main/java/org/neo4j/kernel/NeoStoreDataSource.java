@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -63,6 +64,7 @@ import org.neo4j.kernel.impl.api.LegacyIndexApplierLookup;
 import org.neo4j.kernel.impl.api.LegacyIndexProviderLookup;
 import org.neo4j.kernel.impl.api.LegacyPropertyTrackers;
 import org.neo4j.kernel.impl.api.LockingStatementOperations;
+import org.neo4j.kernel.impl.api.ParallelRecoveryStoreApplier;
 import org.neo4j.kernel.impl.api.RecoveryLegacyIndexApplierLookup;
 import org.neo4j.kernel.impl.api.SchemaStateConcern;
 import org.neo4j.kernel.impl.api.SchemaWriteGuard;
@@ -101,6 +103,7 @@ import org.neo4j.kernel.impl.index.LegacyIndexStore;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.SchemaStorage;
@@ -348,6 +351,11 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
     private static final Setting<Boolean> use_read_locks_on_property_reads =
             setting( "experimental.use_read_locks_on_property_reads", BOOLEAN, TRUE );
 
+    /**
+     * The number of transactions read and decoded ahead of applying them, when recovering with multiple threads.
+     */
+    private static final int RECOVERY_READ_AHEAD_TRANSACTIONS = 1000;
+
     private final Monitors monitors;
     private final Tracers tracers;
 
@@ -386,6 +394,7 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
     private Dependencies dependencies;
     private LifeSupport life;
     private SchemaIndexProvider indexProvider;
+    private final List<SchemaIndexProvider> schemaIndexProviders = new ArrayList<>();
     private File storeDir;
     private boolean readOnly;
 
@@ -506,6 +515,8 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
 
         indexProvider = dependencyResolver.resolveDependency( SchemaIndexProvider.class,
                 SchemaIndexProvider.HIGHEST_PRIORITIZED_OR_NONE );
+        schemaIndexProviders.clear();
+        schemaIndexProviders.addAll( DefaultSchemaIndexProviderMap.allProviders( dependencyResolver ) );
 
         dependencies.satisfyDependency( lockService );
 
@@ -559,6 +570,14 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
                     transactionLogModule.logFiles(), transactionLogModule.storeFlusher(), startupStatistics,
                     legacyIndexApplierLookup );
 
+            if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) &&
+                 !config.get( GraphDatabaseSettings.read_only ) )
+            {
+                // Added after recovery, so the warm up does not compete with it, and stopped before the store.
+                life.add( new PageCacheWarmer( fs, pageCache, scheduler, storeDir,
+                        config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ), logProvider ) );
+            }
+
             KernelModule kernelModule = buildKernel( indexingModule.integrityValidator(),
                     transactionLogModule.transactionAppender(), neoStoreModule.neoStores(),
                     transactionLogModule.storeApplier(), indexingModule.indexingService(),
@@ -734,7 +753,8 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
             LogProvider logProvider, IndexingService.Monitor indexingServiceMonitor,
             NeoStores neoStores, UpdateableSchemaState updateableSchemaState )
     {
-        final DefaultSchemaIndexProviderMap providerMap = new DefaultSchemaIndexProviderMap( indexProvider );
+        final DefaultSchemaIndexProviderMap providerMap =
+                new DefaultSchemaIndexProviderMap( indexProvider, schemaIndexProviders );
 
         final IndexingService indexingService = IndexingService.create(
                 new IndexSamplingConfig( config ), scheduler, providerMap,
@@ -890,7 +910,7 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFile, logRotation, transactionMetadataCache, metaDataStore, legacyIndexTransactionOrdering,
-                kernelHealth ) );
+                kernelHealth, scheduler.threadFactory( JobScheduler.Groups.transactionLogWriter ) ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFile, transactionMetadataCache );
 
@@ -907,7 +927,7 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
 
         final CheckPointerImpl checkPointer = new CheckPointerImpl(
                 metaDataStore, threshold, storeFlusher, logPruning, appender, kernelHealth, logProvider,
-                tracers.checkPointTracer );
+                tracers.checkPointTracer, tracers.pageCacheTracer );
 
         long recurringPeriod = Math.min( timeMillisThreshold, TimeUnit.SECONDS.toMillis( 10 ) );
         CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, scheduler, recurringPeriod );
@@ -1004,16 +1024,46 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
         final RecoveryLegacyIndexApplierLookup recoveryLegacyIndexApplierLookup = new RecoveryLegacyIndexApplierLookup(
                 legacyIndexApplierLookup, 1000 );
         final RecoveryIndexingUpdatesValidator indexUpdatesValidator = new RecoveryIndexingUpdatesValidator( indexingService );
-        final TransactionRepresentationStoreApplier storeRecoverer =
-                new TransactionRepresentationStoreApplier( indexingService, labelScanWriters, neoStores, cacheAccess,
-                        lockService, legacyIndexApplierLookup, indexConfigStore, kernelHealth, IdOrderingQueue.BYPASS );
+        int recoveryThreads = config.get( GraphDatabaseSettings.recovery_threads );
+        final TransactionRepresentationStoreApplier storeRecoverer;
+        if ( recoveryThreads > 1 )
+        {
+            final ParallelRecoveryStoreApplier parallelStoreRecoverer = new ParallelRecoveryStoreApplier(
+                    indexingService, labelScanWriters, neoStores, cacheAccess, lockService, legacyIndexApplierLookup,
+                    indexConfigStore, kernelHealth, IdOrderingQueue.BYPASS, recoveryThreads,
+                    scheduler.threadFactory( JobScheduler.Groups.recoveryWorker ) );
+            // Recovery happens when initializing, so the workers are done by the time everything starts. Added
+            // before the recovery, so that the workers are also stopped when shutting down after a failed recovery
+            life.add( new LifecycleAdapter()
+            {
+                @Override
+                public void start() throws Throwable
+                {
+                    parallelStoreRecoverer.close();
+                }
+
+                @Override
+                public void shutdown() throws Throwable
+                {
+                    parallelStoreRecoverer.close();
+                }
+            } );
+            storeRecoverer = parallelStoreRecoverer;
+        }
+        else
+        {
+            storeRecoverer = new TransactionRepresentationStoreApplier( indexingService, labelScanWriters,
+                    neoStores, cacheAccess, lockService, legacyIndexApplierLookup, indexConfigStore, kernelHealth,
+                    IdOrderingQueue.BYPASS );
+        }
 
         RecoveryVisitor recoveryVisitor =
                 new RecoveryVisitor( metaDataStore, storeRecoverer, indexUpdatesValidator, recoveryVisitorMonitor );
 
         LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
-        final Visitor<LogVersionedStoreChannel,IOException> logFileRecoverer =
-                new LogFileRecoverer( logEntryReader, recoveryVisitor );
+        final Visitor<LogVersionedStoreChannel,IOException> logFileRecoverer = new LogFileRecoverer(
+                logEntryReader, recoveryVisitor, recoveryThreads > 1 ? RECOVERY_READ_AHEAD_TRANSACTIONS : 0,
+                scheduler.threadFactory( JobScheduler.Groups.recoveryLogReader ) );
 
         final LatestCheckPointFinder checkPointFinder =
                 new LatestCheckPointFinder( logFiles, fileSystemAbstraction, logEntryReader );
@@ -1080,7 +1130,8 @@ public class NeoStoreDataSource implements NeoStoresSupplier, Lifecycle, IndexPr
                         statementOperations, updateableSchemaState, schemaWriteGuard, schemaIndexProviderMap,
                         transactionHeaderInformationFactory, storeLayer, transactionCommitProcess,
                         indexConfigStore, legacyIndexProviderLookup, hooks, constraintSemantics,
-                        transactionMonitor, life, procedureCache, tracers ) );
+                        transactionMonitor, life, procedureCache, tracers,
+                        config.get( GraphDatabaseSettings.tx_state_id_sets_off_heap_threshold ) ) );
 
         final Kernel kernel = new Kernel( kernelTransactions, hooks, kernelHealth, transactionMonitor );
 
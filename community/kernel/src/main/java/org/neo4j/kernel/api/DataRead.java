@@ -21,7 +21,9 @@ package org.neo4j.kernel.api;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
@@ -53,6 +55,14 @@ interface DataRead
     PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( IndexDescriptor index, String prefix )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Returns a cursor over the matched nodes, together with their values of the indexed property.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException if no such index found.
+     */
+    Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException;
+
     /**
      * Returns an iterator with the matched nodes.
      *
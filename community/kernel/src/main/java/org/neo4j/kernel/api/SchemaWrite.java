@@ -44,6 +44,14 @@ interface SchemaWrite
     IndexDescriptor indexCreate( int labelId, int propertyKeyId )
             throws AlreadyIndexedException, AlreadyConstrainedException;
 
+    /**
+     * Creates a composite index, indexing the properties with all of the given {@code propertyKeyIds} together, in
+     * order, for nodes with the given {@code labelId}. A node is in the index when it has all of the properties,
+     * and is found by a {@link org.neo4j.kernel.api.index.CompositeIndexValue composite value} of their values.
+     */
+    IndexDescriptor indexCreate( int labelId, int[] propertyKeyIds )
+            throws AlreadyIndexedException, AlreadyConstrainedException;
+
     /** Drops a {@link IndexDescriptor} from the database */
     void indexDrop( IndexDescriptor descriptor ) throws DropIndexFailureException;
 
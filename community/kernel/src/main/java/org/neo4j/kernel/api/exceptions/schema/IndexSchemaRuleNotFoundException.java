@@ -28,6 +28,8 @@ public class IndexSchemaRuleNotFoundException extends SchemaRuleNotFoundExceptio
     private static final String INDEX_RULE_NOT_FOUND_MESSAGE_TEMPLATE =
             "%s for label '%s' and property '%s' not found.";
 
+    private final int[] propertyKeyIds;
+
     public IndexSchemaRuleNotFoundException( int labelId, int propertyKeyId )
     {
         this( labelId, propertyKeyId, false );
@@ -35,15 +37,26 @@ public class IndexSchemaRuleNotFoundException extends SchemaRuleNotFoundExceptio
 
     public IndexSchemaRuleNotFoundException( int labelId, int propertyKeyId, boolean unique )
     {
-        super( INDEX_RULE_NOT_FOUND_MESSAGE_TEMPLATE, labelId, propertyKeyId,
+        this( labelId, new int[]{propertyKeyId}, unique );
+    }
+
+    public IndexSchemaRuleNotFoundException( int labelId, int[] propertyKeyIds, boolean unique )
+    {
+        super( INDEX_RULE_NOT_FOUND_MESSAGE_TEMPLATE, labelId, propertyKeyIds[0],
                 unique ? UNIQUE_INDEX_PREFIX : INDEX_PREFIX );
+        this.propertyKeyIds = propertyKeyIds.clone();
     }
 
     @Override
     public String getUserMessage( TokenNameLookup tokenNameLookup )
     {
+        StringBuilder propertyKeys = new StringBuilder();
+        for ( int propertyKeyId : propertyKeyIds )
+        {
+            propertyKeys.append( propertyKeys.length() > 0 ? "," : "" )
+                    .append( tokenNameLookup.propertyKeyGetName( propertyKeyId ) );
+        }
         return String.format( messageTemplate, messagePrefix,
-                tokenNameLookup.labelGetName( ruleEntityId ),
-                tokenNameLookup.propertyKeyGetName( propertyKeyId ) );
+                tokenNameLookup.labelGetName( ruleEntityId ), propertyKeys );
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import java.util.Arrays;
+
+/**
+ * The value of a node in a composite {@link IndexDescriptor index}: the values of its properties of each of the
+ * property keys of the index, in the order of the keys. A node is only in a composite index when it has all of the
+ * properties.
+ */
+public final class CompositeIndexValue
+{
+    private final Object[] values;
+
+    public CompositeIndexValue( Object... values )
+    {
+        if ( values.length < 2 )
+        {
+            throw new IllegalArgumentException( "A composite value needs at least two values" );
+        }
+        for ( Object value : values )
+        {
+            if ( value == null )
+            {
+                throw new IllegalArgumentException( "A composite value can not contain null: " +
+                                                    Arrays.deepToString( values ) );
+            }
+        }
+        this.values = values.clone();
+    }
+
+    public int size()
+    {
+        return values.length;
+    }
+
+    public Object get( int index )
+    {
+        return values[index];
+    }
+
+    public Object[] values()
+    {
+        return values.clone();
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+        return this == obj ||
+               obj instanceof CompositeIndexValue && Arrays.deepEquals( values, ((CompositeIndexValue) obj).values );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.deepHashCode( values );
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.deepToString( values );
+    }
+}
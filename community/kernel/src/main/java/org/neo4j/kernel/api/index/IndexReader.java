@@ -24,8 +24,11 @@ import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.graphdb.Resource;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
+import org.neo4j.kernel.impl.util.Cursors;
 
 import static org.neo4j.register.Register.DoubleLong;
 
@@ -56,6 +59,19 @@ public interface IndexReader extends Resource
      */
     PrimitiveLongIterator rangeSeekByPrefix( String prefix );
 
+    /**
+     * Inclusive numerical range query by index seek, returning the entries, with their values, in the given order
+     * of the values. The order of the nodes of the same value is unspecified.
+     */
+    Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper, IndexOrder order );
+
+    /**
+     * String range query by index seek, returning the entries, with their values, in the given order of the values.
+     * The order of the nodes of the same value is unspecified.
+     */
+    Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                     String upper, boolean includeUpper, IndexOrder order );
+
     /**
      * Return all indexed nodes by an index scan
      */
@@ -114,6 +130,20 @@ public interface IndexReader extends Resource
             return delegate.rangeSeekByPrefix( prefix );
         }
 
+        @Override
+        public Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper,
+                                                                         IndexOrder order )
+        {
+            return delegate.orderedRangeSeekByNumberInclusive( lower, upper, order );
+        }
+
+        @Override
+        public Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                                String upper, boolean includeUpper, IndexOrder order )
+        {
+            return delegate.orderedRangeSeekByString( lower, includeLower, upper, includeUpper, order );
+        }
+
         @Override
         public PrimitiveLongIterator scan()
         {
@@ -178,6 +208,20 @@ public interface IndexReader extends Resource
             return PrimitiveLongCollections.emptyIterator();
         }
 
+        @Override
+        public Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper,
+                                                                         IndexOrder order )
+        {
+            return Cursors.empty();
+        }
+
+        @Override
+        public Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                                String upper, boolean includeUpper, IndexOrder order )
+        {
+            return Cursors.empty();
+        }
+
         @Override
         public PrimitiveLongIterator scan()
         {
@@ -20,37 +20,59 @@
 package org.neo4j.kernel.impl.api;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.RecoveryLabelScanWriterProvider;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.api.index.ValidatedIndexUpdates;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
+import org.neo4j.kernel.impl.locking.LockGroup;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 
+import static org.neo4j.helpers.Exceptions.launderedException;
+
 /**
  * {@link TransactionRepresentationStoreApplier} that builds services made for batching transactions.
  * Transaction data can be cached and applied as one batch when a threshold is reached, so ensuring that transaction
  * data is actually written will have to be done by calling {@link #closeBatch()}.
+ * <p>
+ * Transactions applied using {@link #applyWithParallelIndexUpdates(TransactionRepresentation, ValidatedIndexUpdates,
+ * LockGroup, long, TransactionApplicationMode)} have their schema index and label scan store updates applied by a
+ * separate thread, in the order the transactions were handed to this applier, while the calling thread carries on
+ * with applying the next transaction to the graph store. {@link #closeBatch()} waits for all those updates to be
+ * applied, so transactions in a batch must not be considered closed until it has returned.
  */
 public class BatchingTransactionRepresentationStoreApplier extends TransactionRepresentationStoreApplier
 {
     private final RecoveryLabelScanWriterProvider labelScanWriterProvider;
     private final RecoveryLegacyIndexApplierLookup legacyIndexApplierLookup;
+    private final ThreadFactory indexUpdateApplierThreads;
     private KernelHealth health;
+    private ExecutorService indexUpdateApplier;
+    private volatile Throwable indexUpdateFailure;
 
     public BatchingTransactionRepresentationStoreApplier( IndexingService indexingService,
             LabelScanStore labelScanStore, NeoStores neoStore, CacheAccessBackDoor cacheAccess,
             LockService lockService, LegacyIndexApplierLookup legacyIndexProviderLookup,
-            IndexConfigStore indexConfigStore, KernelHealth kernelHealth, IdOrderingQueue legacyIndexTransactionOrdering )
+            IndexConfigStore indexConfigStore, KernelHealth kernelHealth, IdOrderingQueue legacyIndexTransactionOrdering,
+            ThreadFactory indexUpdateApplierThreads )
     {
         this( indexingService, new RecoveryLabelScanWriterProvider( labelScanStore, 1000 ),
                 neoStore, cacheAccess, lockService,
                 new RecoveryLegacyIndexApplierLookup( legacyIndexProviderLookup, 1000 ),
-                indexConfigStore, kernelHealth, legacyIndexTransactionOrdering );
+                indexConfigStore, kernelHealth, legacyIndexTransactionOrdering, indexUpdateApplierThreads );
         this.health = kernelHealth;
     }
 
@@ -63,18 +85,192 @@ public class BatchingTransactionRepresentationStoreApplier extends TransactionRe
             RecoveryLegacyIndexApplierLookup legacyIndexApplierLookup,
             IndexConfigStore indexConfigStore,
             KernelHealth kernelHealth,
-            IdOrderingQueue legacyIndexTransactionOrdering )
+            IdOrderingQueue legacyIndexTransactionOrdering,
+            ThreadFactory indexUpdateApplierThreads )
     {
         super( indexingService, labelScanWriterProvider, neoStore, cacheAccess, lockService, legacyIndexApplierLookup,
                 indexConfigStore, kernelHealth, legacyIndexTransactionOrdering );
         this.labelScanWriterProvider = labelScanWriterProvider;
         this.legacyIndexApplierLookup = legacyIndexApplierLookup;
+        this.indexUpdateApplierThreads = indexUpdateApplierThreads;
+    }
+
+    /**
+     * Applies the transaction to the graph store, legacy indexes and counts store on the calling thread and leaves
+     * the schema index and label scan store updates to be applied in the background. The given index updates are
+     * owned by this applier from here on and will be closed when they have been applied.
+     * <p>
+     * Transactions that change the schema are applied entirely on the calling thread, after all previously
+     * handed over index updates have been applied.
+     */
+    public void applyWithParallelIndexUpdates( final TransactionRepresentation representation,
+            final ValidatedIndexUpdates indexUpdates, LockGroup locks, long transactionId,
+            TransactionApplicationMode mode ) throws IOException
+    {
+        boolean handedOver = false;
+        try
+        {
+            if ( hasSchemaChanges( representation ) )
+            {
+                awaitIndexUpdates();
+                apply( representation, indexUpdates, locks, transactionId, mode );
+                return;
+            }
+
+            applyCommands( representation,
+                    newStoreApplier( locks, transactionId, mode ),
+                    newLegacyIndexApplier( transactionId, mode ),
+                    getCountsStoreApplier( transactionId, mode ) );
+
+            indexUpdateApplier().execute( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    applyIndexUpdates( representation, indexUpdates );
+                }
+            } );
+            handedOver = true;
+        }
+        finally
+        {
+            if ( !handedOver )
+            {
+                indexUpdates.close();
+            }
+        }
+    }
+
+    private void applyIndexUpdates( TransactionRepresentation representation, ValidatedIndexUpdates indexUpdates )
+    {
+        try
+        {
+            // Once one transaction has failed there's a kernel panic and the following ones are ignored
+            if ( indexUpdateFailure == null )
+            {
+                applyCommands( representation, newIndexApplier( indexUpdates ) );
+            }
+        }
+        catch ( Throwable cause )
+        {
+            indexUpdateFailure = cause;
+        }
+        finally
+        {
+            indexUpdates.close();
+        }
     }
 
+    private synchronized ExecutorService indexUpdateApplier()
+    {
+        if ( indexUpdateApplier == null )
+        {
+            indexUpdateApplier = Executors.newSingleThreadExecutor( indexUpdateApplierThreads );
+        }
+        return indexUpdateApplier;
+    }
+
+    /**
+     * Waits for all index updates handed over in {@link #applyWithParallelIndexUpdates(TransactionRepresentation,
+     * ValidatedIndexUpdates, LockGroup, long, TransactionApplicationMode)} to have been applied.
+     */
+    private void awaitIndexUpdates() throws IOException
+    {
+        ExecutorService applier;
+        synchronized ( this )
+        {
+            applier = indexUpdateApplier;
+        }
+        if ( applier != null )
+        {
+            try
+            {
+                // The index updates are applied in order by a single thread, so once this no-op has been
+                // executed all updates handed over before it have been applied too
+                applier.submit( NO_OP ).get();
+            }
+            catch ( InterruptedException e )
+            {
+                throw new IOException( "Interrupted while waiting for index updates to be applied", e );
+            }
+            catch ( ExecutionException e )
+            {
+                throw launderedException( IOException.class, e.getCause() );
+            }
+        }
+
+        Throwable failure = indexUpdateFailure;
+        if ( failure != null )
+        {
+            throw launderedException( IOException.class, "Failed to apply index updates", failure );
+        }
+    }
+
+    /**
+     * Stops the thread applying index updates in the background, if any. Index updates that have been handed
+     * over are applied before it stops.
+     *
+     * @throws IOException if the handed over index updates could not be applied within a minute.
+     */
+    public synchronized void shutdown() throws IOException
+    {
+        if ( indexUpdateApplier != null )
+        {
+            ExecutorService applier = indexUpdateApplier;
+            indexUpdateApplier = null;
+            applier.shutdown();
+            try
+            {
+                if ( !applier.awaitTermination( 1, TimeUnit.MINUTES ) )
+                {
+                    applier.shutdownNow();
+                    throw new IOException( "Index updates of pulled transactions were not applied within a minute" );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                applier.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IOException( "Interrupted while waiting for index updates to be applied", e );
+            }
+        }
+    }
+
+    private static boolean hasSchemaChanges( TransactionRepresentation representation ) throws IOException
+    {
+        SchemaChangeDetector detector = new SchemaChangeDetector();
+        representation.accept( detector );
+        return detector.hasSchemaChanges;
+    }
+
+    private static class SchemaChangeDetector implements Visitor<Command,IOException>
+    {
+        private boolean hasSchemaChanges;
+
+        @Override
+        public boolean visit( Command command )
+        {
+            if ( command instanceof Command.SchemaRuleCommand )
+            {
+                hasSchemaChanges = true;
+            }
+            return false;
+        }
+    }
+
+    private static final Runnable NO_OP = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+        }
+    };
+
     public void closeBatch() throws IOException
     {
         try
         {
+            awaitIndexUpdates();
             labelScanWriterProvider.close();
             legacyIndexApplierLookup.close();
             indexingService.flushAll();
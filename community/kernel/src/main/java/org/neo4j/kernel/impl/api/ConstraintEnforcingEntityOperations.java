@@ -34,6 +34,7 @@ import org.neo4j.kernel.api.constraints.PropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyExistenceConstraint;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.cursor.LabelItem;
 import org.neo4j.kernel.api.cursor.NodeItem;
 import org.neo4j.kernel.api.cursor.RelationshipItem;
@@ -296,6 +297,14 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations, Sc
         return entityReadOperations.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( KernelStatement state,
+            IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        return entityReadOperations.nodesGetFromIndexRangeSeekByPrefixWithValues( state, index, prefix );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexScan( KernelStatement state, IndexDescriptor index )
             throws IndexNotFoundKernelException
@@ -513,6 +522,13 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations, Sc
         return schemaWriteOperations.indexCreate( state, labelId, propertyKeyId );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeyIds )
+            throws AlreadyIndexedException, AlreadyConstrainedException
+    {
+        return schemaWriteOperations.indexCreate( state, labelId, propertyKeyIds );
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
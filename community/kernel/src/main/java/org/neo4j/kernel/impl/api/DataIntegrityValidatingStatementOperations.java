@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.neo4j.kernel.api.Statement;
@@ -117,6 +118,14 @@ public class DataIntegrityValidatingStatementOperations implements
         return schemaWriteDelegate.indexCreate( state, labelId, propertyKey );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeys )
+            throws AlreadyIndexedException, AlreadyConstrainedException
+    {
+        checkIndexExistence( state, OperationContext.INDEX_CREATION, labelId, propertyKeys );
+        return schemaWriteDelegate.indexCreate( state, labelId, propertyKeys );
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
@@ -254,17 +263,23 @@ public class DataIntegrityValidatingStatementOperations implements
 
     private void checkIndexExistence( KernelStatement state, OperationContext context, int labelId, int propertyKey )
             throws AlreadyIndexedException, AlreadyConstrainedException
+    {
+        checkIndexExistence( state, context, labelId, new int[]{propertyKey} );
+    }
+
+    private void checkIndexExistence( KernelStatement state, OperationContext context, int labelId,
+            int[] propertyKeys ) throws AlreadyIndexedException, AlreadyConstrainedException
     {
         for ( IndexDescriptor descriptor : loop( schemaReadDelegate.indexesGetForLabel( state, labelId ) ) )
         {
-            if ( descriptor.getPropertyKeyId() == propertyKey )
+            if ( Arrays.equals( descriptor.getPropertyKeyIds(), propertyKeys ) )
             {
                 throw new AlreadyIndexedException( descriptor, context );
             }
         }
         for ( IndexDescriptor descriptor : loop( schemaReadDelegate.uniqueIndexesGetForLabel( state, labelId ) ) )
         {
-            if ( descriptor.getPropertyKeyId() == propertyKey )
+            if ( Arrays.equals( descriptor.getPropertyKeyIds(), propertyKeys ) )
             {
                 throw new AlreadyConstrainedException(
                         new UniquenessConstraint( descriptor.getLabelId(), descriptor.getPropertyKeyId() ), context,
@@ -289,7 +304,7 @@ public class DataIntegrityValidatingStatementOperations implements
         while ( uniqueIndexes.hasNext() )
         {
             IndexDescriptor uniqueIndex = uniqueIndexes.next();
-            if ( uniqueIndex.getPropertyKeyId() == descriptor.getPropertyKeyId() )
+            if ( Arrays.equals( uniqueIndex.getPropertyKeyIds(), descriptor.getPropertyKeyIds() ) )
             {
                 throw new IndexBelongsToConstraintException( descriptor );
             }
@@ -301,7 +316,7 @@ public class DataIntegrityValidatingStatementOperations implements
     {
         for ( IndexDescriptor existing : loop( indexes ) )
         {
-            if ( existing.getPropertyKeyId() == descriptor.getPropertyKeyId() )
+            if ( Arrays.equals( existing.getPropertyKeyIds(), descriptor.getPropertyKeyIds() ) )
             {
                 return;
             }
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.api;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.cursor.NodeItem;
 import org.neo4j.kernel.api.cursor.RelationshipItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
@@ -200,6 +201,14 @@ public class GuardingStatementOperations implements
         return entityReadDelegate.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( KernelStatement state,
+            IndexDescriptor index, String prefix ) throws IndexNotFoundKernelException
+    {
+        guard.check();
+        return entityReadDelegate.nodesGetFromIndexRangeSeekByPrefixWithValues( state, index, prefix );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexScan( KernelStatement state, IndexDescriptor index )
             throws IndexNotFoundKernelException
@@ -82,6 +82,7 @@ import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.collection.ArrayCollection;
+import org.neo4j.kernel.impl.util.diffsets.LongDiffSetsMemory;
 
 import static org.neo4j.kernel.api.ReadOperations.ANY_LABEL;
 import static org.neo4j.kernel.api.ReadOperations.ANY_RELATIONSHIP_TYPE;
@@ -157,7 +158,9 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private final Clock clock;
     private final TransactionToRecordStateVisitor txStateToRecordStateVisitor = new TransactionToRecordStateVisitor();
     private final Collection<Command> extractedCommands = new ArrayCollection<>( 32 );
+    private final long txStateIdSetsOffHeapThreshold;
     private TransactionState txState;
+    private LongDiffSetsMemory txStateMemory;
     private LegacyIndexTransactionState legacyIndexTransactionState;
     private TransactionType transactionType = TransactionType.ANY;
     private TransactionHooks.TransactionHooksState hooksState;
@@ -200,6 +203,35 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                                             Clock clock,
                                             TransactionTracer tracer,
                                             ProcedureCache procedureCache )
+    {
+        this( operations, schemaWriteGuard, labelScanStore, indexService, schemaState, recordState, providerMap,
+                neoStores, locks, hooks, constraintIndexCreator, headerInformationFactory, commitProcess,
+                transactionMonitor, storeLayer, legacyIndexTransactionState, pool, constraintSemantics, clock, tracer,
+                procedureCache, 0 );
+    }
+
+    public KernelTransactionImplementation( StatementOperationParts operations,
+                                            SchemaWriteGuard schemaWriteGuard,
+                                            LabelScanStore labelScanStore,
+                                            IndexingService indexService,
+                                            UpdateableSchemaState schemaState,
+                                            TransactionRecordState recordState,
+                                            SchemaIndexProviderMap providerMap,
+                                            NeoStores neoStores,
+                                            Locks.Client locks,
+                                            TransactionHooks hooks,
+                                            ConstraintIndexCreator constraintIndexCreator,
+                                            TransactionHeaderInformationFactory headerInformationFactory,
+                                            TransactionCommitProcess commitProcess,
+                                            TransactionMonitor transactionMonitor,
+                                            StoreReadLayer storeLayer,
+                                            LegacyIndexTransactionState legacyIndexTransactionState,
+                                            Pool<KernelTransactionImplementation> pool,
+                                            ConstraintSemantics constraintSemantics,
+                                            Clock clock,
+                                            TransactionTracer tracer,
+                                            ProcedureCache procedureCache,
+                                            long txStateIdSetsOffHeapThreshold )
     {
         this.operations = operations;
         this.schemaWriteGuard = schemaWriteGuard;
@@ -222,6 +254,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.clock = clock;
         this.schemaStorage = new SchemaStorage( neoStores.getSchemaStore() );
         this.tracer = tracer;
+        this.txStateIdSetsOffHeapThreshold = txStateIdSetsOffHeapThreshold;
     }
 
     /**
@@ -338,7 +371,15 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     {
         if ( txState == null )
         {
-            txState = new TxState();
+            if ( txStateIdSetsOffHeapThreshold > 0 )
+            {
+                txStateMemory = new LongDiffSetsMemory( txStateIdSetsOffHeapThreshold );
+                txState = new TxState( txStateMemory );
+            }
+            else
+            {
+                txState = new TxState();
+            }
         }
         return txState;
     }
@@ -468,6 +509,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                 recordState.clear();
                 counts.clear();
                 txState = null;
+                releaseTxStateMemory();
                 hooksState = null;
                 closeListener = null;
             }
@@ -478,6 +520,20 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         }
     }
 
+    private void releaseTxStateMemory()
+    {
+        if ( txStateMemory != null )
+        {
+            long spilledBytes = txStateMemory.spilledBytes();
+            if ( spilledBytes > 0 )
+            {
+                transactionMonitor.transactionStateSpilled( spilledBytes );
+            }
+            txStateMemory.close();
+            txStateMemory = null;
+        }
+    }
+
     protected void dispose()
     {
         if ( locks != null )
@@ -489,6 +545,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.transactionType = null;
         this.hooksState = null;
         this.txState = null;
+        releaseTxStateMemory();
         this.legacyIndexTransactionState = null;
 
         if ( storeStatement != null )
@@ -914,7 +971,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             else
             {
                 rule = IndexRule.indexRule( schemaStorage.newRuleId(), element.getLabelId(),
-                        element.getPropertyKeyId(), providerDescriptor );
+                        element.getPropertyKeyIds(), providerDescriptor );
             }
             recordState.createSchemaRule( rule );
         }
@@ -925,7 +982,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             SchemaStorage.IndexRuleKind kind = isConstraintIndex ?
                     SchemaStorage.IndexRuleKind.CONSTRAINT
                     : SchemaStorage.IndexRuleKind.INDEX;
-            IndexRule rule = schemaStorage.indexRule( element.getLabelId(), element.getPropertyKeyId(), kind );
+            IndexRule rule = schemaStorage.indexRule( element.getLabelId(), element.getPropertyKeyIds(), kind );
             recordState.dropSchemaRule( rule );
         }
 
@@ -88,6 +88,7 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
     private final LifeSupport dataSourceLife;
     private final ProcedureCache procedureCache;
     private final Tracers tracers;
+    private final long txStateIdSetsOffHeapThreshold;
 
     // End Tx Dependencies
 
@@ -121,6 +122,30 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
                                TransactionMonitor transactionMonitor,
                                LifeSupport dataSourceLife, ProcedureCache procedureCache,
                                Tracers tracers )
+    {
+        this( neoStoreTransactionContextFactory, neoStores, locks, integrityValidator, constraintIndexCreator,
+                indexingService, labelScanStore, statementOperations, updateableSchemaState, schemaWriteGuard,
+                providerMap, txHeaderFactory, storeLayer, transactionCommitProcess, indexConfigStore,
+                legacyIndexProviderLookup, hooks, constraintSemantics, transactionMonitor, dataSourceLife,
+                procedureCache, tracers, 0 );
+    }
+
+    public KernelTransactions( NeoStoreTransactionContextFactory neoStoreTransactionContextFactory,
+                               NeoStores neoStores, Locks locks, IntegrityValidator integrityValidator,
+                               ConstraintIndexCreator constraintIndexCreator,
+                               IndexingService indexingService, LabelScanStore labelScanStore,
+                               StatementOperationParts statementOperations,
+                               UpdateableSchemaState updateableSchemaState, SchemaWriteGuard schemaWriteGuard,
+                               SchemaIndexProviderMap providerMap, TransactionHeaderInformationFactory txHeaderFactory,
+                               StoreReadLayer storeLayer,
+                               TransactionCommitProcess transactionCommitProcess,
+                               IndexConfigStore indexConfigStore,
+                               LegacyIndexProviderLookup legacyIndexProviderLookup,
+                               TransactionHooks hooks,
+                               ConstraintSemantics constraintSemantics,
+                               TransactionMonitor transactionMonitor,
+                               LifeSupport dataSourceLife, ProcedureCache procedureCache,
+                               Tracers tracers, long txStateIdSetsOffHeapThreshold )
     {
         this.neoStoreTransactionContextFactory = neoStoreTransactionContextFactory;
         this.neoStores = neoStores;
@@ -144,6 +169,7 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
         this.dataSourceLife = dataSourceLife;
         this.procedureCache = procedureCache;
         this.tracers = tracers;
+        this.txStateIdSetsOffHeapThreshold = txStateIdSetsOffHeapThreshold;
     }
 
     /**
@@ -165,7 +191,8 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
                     labelScanStore, indexingService, updateableSchemaState, recordState, providerMap,
                     neoStores, locksClient, hooks, constraintIndexCreator, transactionHeaderInformationFactory,
                     transactionCommitProcess, transactionMonitor, storeLayer, legacyIndexTransactionState,
-                    localTxPool, constraintSemantics, Clock.SYSTEM_CLOCK, tracers.transactionTracer, procedureCache );
+                    localTxPool, constraintSemantics, Clock.SYSTEM_CLOCK, tracers.transactionTracer, procedureCache,
+                    txStateIdSetsOffHeapThreshold );
 
             allTransactions.add( tx );
 
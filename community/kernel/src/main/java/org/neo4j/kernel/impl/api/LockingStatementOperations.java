@@ -129,6 +129,15 @@ public class LockingStatementOperations implements
         return schemaWriteDelegate.indexCreate( state, labelId, propertyKey );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeys )
+            throws AlreadyIndexedException, AlreadyConstrainedException
+    {
+        state.locks().acquireExclusive( ResourceTypes.SCHEMA, schemaResource() );
+        state.assertOpen();
+        return schemaWriteDelegate.indexCreate( state, labelId, propertyKeys );
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
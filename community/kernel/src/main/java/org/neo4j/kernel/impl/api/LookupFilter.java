@@ -26,6 +26,8 @@ import org.neo4j.function.LongPredicate;
 import org.neo4j.kernel.api.EntityType;
 import org.neo4j.kernel.api.cursor.NodeItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
+import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.properties.Property;
 import org.neo4j.kernel.impl.api.operations.EntityOperations;
 import org.neo4j.kernel.impl.api.operations.EntityReadOperations;
@@ -77,6 +79,35 @@ public class LookupFilter
                 propertyKeyId, lower, includeLower, upper, includeUpper ) );
     }
 
+    /**
+     * Like {@link #exactIndexMatches(EntityOperations, KernelStatement, PrimitiveLongIterator, int, Object)}, for a
+     * composite index, filtering when any of the values of the composite value is a number or an array.
+     */
+    public static PrimitiveLongIterator exactCompositeIndexMatches( EntityOperations operations,
+            KernelStatement state, PrimitiveLongIterator indexedNodeIds, IndexDescriptor index,
+            CompositeIndexValue value )
+    {
+        for ( Object component : value.values() )
+        {
+            if ( isNumberOrArray( component ) )
+            {
+                return compositeIndexMatches( operations, state, indexedNodeIds, index, value );
+            }
+        }
+        return indexedNodeIds;
+    }
+
+    /**
+     * Filters the given nodes down to those that have the label and all of the properties of the given composite
+     * index, with the values of the given composite value, or with any values if it is {@code null}.
+     */
+    public static PrimitiveLongIterator compositeIndexMatches( EntityOperations operations, KernelStatement state,
+            PrimitiveLongIterator nodeIds, IndexDescriptor index, CompositeIndexValue value )
+    {
+        return PrimitiveLongCollections.filter( nodeIds,
+                new CompositeMatchPredicate( operations, state, index, value ) );
+    }
+
     private static boolean isNumberOrArray( Object value )
     {
         return value instanceof Number || value.getClass().isArray();
@@ -164,6 +195,47 @@ public class LookupFilter
         }
     }
 
+    private static class CompositeMatchPredicate implements LongPredicate
+    {
+        final EntityReadOperations readOperations;
+        final KernelStatement state;
+        final int labelId;
+        final int[] propertyKeyIds;
+        final CompositeIndexValue value;
+
+        CompositeMatchPredicate( EntityReadOperations readOperations, KernelStatement state, IndexDescriptor index,
+                CompositeIndexValue value )
+        {
+            this.readOperations = readOperations;
+            this.state = state;
+            this.labelId = index.getLabelId();
+            this.propertyKeyIds = index.getPropertyKeyIds();
+            this.value = value;
+        }
+
+        @Override
+        public boolean test( long nodeId )
+        {
+            try ( Cursor<NodeItem> node = readOperations.nodeCursor( state, nodeId ) )
+            {
+                if ( !node.next() || !node.get().hasLabel( labelId ) )
+                {
+                    return false;
+                }
+                for ( int i = 0; i < propertyKeyIds.length; i++ )
+                {
+                    Object propertyValue = node.get().getProperty( propertyKeyIds[i] );
+                    if ( propertyValue == null || value != null &&
+                            !Property.property( propertyKeyIds[i], propertyValue ).valueEquals( value.get( i ) ) )
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+    }
+
     static class NumericRangeMatchPredicate implements LongPredicate
     {
         final EntityOperations readOperations;
@@ -39,6 +39,7 @@ import org.neo4j.kernel.api.constraints.PropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyExistenceConstraint;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.cursor.NodeItem;
 import org.neo4j.kernel.api.cursor.RelationshipItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
@@ -219,6 +220,14 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
         return dataRead().nodesGetFromIndexRangeSeekByPrefix( statement, index, prefix );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return dataRead().nodesGetFromIndexRangeSeekByPrefixWithValues( statement, index, prefix );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexScan( IndexDescriptor index )
             throws IndexNotFoundKernelException
@@ -942,6 +951,14 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
         return schemaWrite().indexCreate( statement, labelId, propertyKeyId );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( int labelId, int[] propertyKeyIds )
+            throws AlreadyIndexedException, AlreadyConstrainedException
+    {
+        statement.assertOpen();
+        return schemaWrite().indexCreate( statement, labelId, propertyKeyIds );
+    }
+
     @Override
     public void indexDrop( IndexDescriptor descriptor ) throws DropIndexFailureException
     {
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.Provider;
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.KernelHealth;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.api.index.ValidatedIndexUpdates;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.index.IndexConfigStore;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.CommandHandler;
+import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.neo4j.helpers.Exceptions.launderedException;
+
+/**
+ * {@link TransactionRepresentationStoreApplier} for recovery, which applies the graph store changes of transactions
+ * that don't touch the same records in parallel.
+ * <p>
+ * Transactions are grouped into waves of consecutive transactions where no record, including dynamic records,
+ * is changed by more than one transaction. The graph store changes of the transactions in a wave are applied by a
+ * pool of worker threads, while the next transactions are handed to this applier. A transaction that touches a
+ * record already changed in the current wave has to wait for that wave to complete, so the last change to every
+ * record still wins. Counts store, legacy index and schema index changes are applied in transaction order by the
+ * calling thread, before the graph store changes are handed over. Transactions changing tokens, schema or the
+ * graph properties are applied alone, once the current wave has completed.
+ * <p>
+ * Callers must {@link #awaitAppliedTransactions() await} all transactions to have been applied before considering
+ * them recovered, and {@link #close() close} this applier once recovery is over, to stop the worker threads.
+ */
+public class ParallelRecoveryStoreApplier extends TransactionRepresentationStoreApplier implements AutoCloseable
+{
+    private static final int MAX_WAVE_SIZE = 10_000;
+
+    private final ExecutorService workers;
+    private final PrimitiveLongSet recordsInWave = Primitive.longSet();
+    private final List<Future<?>> wave = new ArrayList<>();
+
+    public ParallelRecoveryStoreApplier( IndexingService indexingService, Provider<LabelScanWriter> labelScanWriters,
+            NeoStores neoStores, CacheAccessBackDoor cacheAccess, LockService lockService,
+            LegacyIndexApplierLookup legacyIndexProviderLookup, IndexConfigStore indexConfigStore,
+            KernelHealth health, IdOrderingQueue legacyIndexTransactionOrdering, int numberOfWorkers,
+            ThreadFactory workerThreads )
+    {
+        super( indexingService, labelScanWriters, neoStores, cacheAccess, lockService, legacyIndexProviderLookup,
+                indexConfigStore, health, legacyIndexTransactionOrdering );
+        // Threads are only started as transactions are handed to the workers, i.e. if there is anything to recover
+        this.workers = Executors.newFixedThreadPool( numberOfWorkers, workerThreads );
+    }
+
+    @Override
+    public void apply( final TransactionRepresentation representation, ValidatedIndexUpdates indexUpdates,
+            LockGroup locks, final long transactionId, final TransactionApplicationMode mode ) throws IOException
+    {
+        TouchedRecords touched = new TouchedRecords();
+        representation.accept( touched );
+        if ( touched.exclusive )
+        {
+            awaitAppliedTransactions();
+            super.apply( representation, indexUpdates, locks, transactionId, mode );
+            return;
+        }
+
+        if ( wave.size() >= MAX_WAVE_SIZE || conflictsWithWave( touched.records ) )
+        {
+            awaitAppliedTransactions();
+        }
+        addToWave( touched.records );
+
+        // Everything but the graph store is applied in order by this thread. This happens before handing the
+        // transaction over, so that the workers have the commands to themselves
+        applyCommands( representation,
+                newIndexApplier( indexUpdates ),
+                newLegacyIndexApplier( transactionId, mode ),
+                getCountsStoreApplier( transactionId, mode ) );
+
+        wave.add( workers.submit( new Callable<Void>()
+        {
+            @Override
+            public Void call() throws IOException
+            {
+                try ( LockGroup workerLocks = new LockGroup() )
+                {
+                    applyCommands( representation, newStoreApplier( workerLocks, transactionId, mode ) );
+                }
+                return null;
+            }
+        } ) );
+    }
+
+    @Override
+    public void awaitAppliedTransactions() throws IOException
+    {
+        Throwable failure = null;
+        for ( Future<?> transaction : wave )
+        {
+            try
+            {
+                transaction.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+            }
+            catch ( ExecutionException e )
+            {
+                failure = failure == null ? e.getCause() : failure;
+            }
+        }
+        wave.clear();
+        recordsInWave.clear();
+
+        if ( failure != null )
+        {
+            throw launderedException( IOException.class, "Failed to recover transactions", failure );
+        }
+    }
+
+    /**
+     * Stops the worker threads, after they have applied the transactions already given to them.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        workers.shutdown();
+        try
+        {
+            if ( !workers.awaitTermination( 1, TimeUnit.MINUTES ) )
+            {
+                throw new IOException( "Recovery workers did not stop within a minute" );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for the recovery workers to stop", e );
+        }
+    }
+
+    private boolean conflictsWithWave( PrimitiveLongSet records )
+    {
+        PrimitiveLongIterator iterator = records.iterator();
+        while ( iterator.hasNext() )
+        {
+            if ( recordsInWave.contains( iterator.next() ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addToWave( PrimitiveLongSet records )
+    {
+        PrimitiveLongIterator iterator = records.iterator();
+        while ( iterator.hasNext() )
+        {
+            recordsInWave.add( iterator.next() );
+        }
+    }
+
+    /**
+     * Collects keys of all records that applying a transaction to the graph store will write. The store a record
+     * belongs to is kept in the high bits of its key.
+     */
+    private static class TouchedRecords extends CommandHandler.Adapter implements Visitor<Command,IOException>
+    {
+        private static final long NODE = 1;
+        private static final long RELATIONSHIP = 2;
+        private static final long PROPERTY = 3;
+        private static final long RELATIONSHIP_GROUP = 4;
+        private static final long NODE_LABELS = 5;
+        private static final long PROPERTY_VALUES = 16; // plus the property type, for the string and array stores
+
+        private final PrimitiveLongSet records = Primitive.longSet();
+        private boolean exclusive;
+
+        @Override
+        public boolean visit( Command command ) throws IOException
+        {
+            command.handle( this );
+            return false;
+        }
+
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command )
+        {
+            add( NODE, command.getKey() );
+            for ( DynamicRecord record : command.getAfter().getDynamicLabelRecords() )
+            {
+                add( NODE_LABELS, record.getId() );
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+        {
+            add( RELATIONSHIP, command.getKey() );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command )
+        {
+            PropertyRecord after = command.getAfter();
+            add( PROPERTY, after.getId() );
+            for ( PropertyBlock block : after )
+            {
+                addPropertyValues( block.getValueRecords() );
+            }
+            addPropertyValues( after.getDeletedRecords() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
+        {
+            add( RELATIONSHIP_GROUP, command.getKey() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipTypeTokenCommand( Command.RelationshipTypeTokenCommand command )
+        {
+            exclusive = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitLabelTokenCommand( Command.LabelTokenCommand command )
+        {
+            exclusive = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyKeyTokenCommand( Command.PropertyKeyTokenCommand command )
+        {
+            exclusive = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitSchemaRuleCommand( Command.SchemaRuleCommand command )
+        {
+            exclusive = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitNeoStoreCommand( Command.NeoStoreCommand command )
+        {
+            exclusive = true;
+            return false;
+        }
+
+        private void addPropertyValues( List<DynamicRecord> valueRecords )
+        {
+            for ( DynamicRecord record : valueRecords )
+            {
+                add( PROPERTY_VALUES + record.getType(), record.getId() );
+            }
+        }
+
+        private void add( long store, long id )
+        {
+            records.add( (store << 56) | id );
+        }
+    }
+}
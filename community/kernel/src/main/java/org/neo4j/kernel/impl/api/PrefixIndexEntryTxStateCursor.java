@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
+import org.neo4j.kernel.api.cursor.NodeItem;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.txstate.ReadableTxState;
+import org.neo4j.kernel.impl.api.operations.EntityReadOperations;
+
+/**
+ * The entries of a range seek by prefix, with their values, as a transaction sees them.
+ * <p>
+ * Committed entries are only trusted for nodes the transaction has not modified. The modified nodes are instead
+ * checked one by one once the committed entries are exhausted, and those that have the label and a string value
+ * with the prefix are returned with that value as the transaction sees it.
+ */
+class PrefixIndexEntryTxStateCursor implements Cursor<IndexEntryItem>, IndexEntryItem
+{
+    private final Cursor<IndexEntryItem> committed;
+    private final ReadableTxState txState;
+    private final PrimitiveLongIterator modifiedNodes;
+    private final EntityReadOperations operations;
+    private final KernelStatement state;
+    private final int labelId;
+    private final int propertyKeyId;
+    private final String prefix;
+
+    private boolean committedExhausted;
+    private boolean hasEntry;
+    private long nodeId;
+    private Object value;
+
+    PrefixIndexEntryTxStateCursor( Cursor<IndexEntryItem> committed, PrimitiveLongIterator modifiedNodes,
+            EntityReadOperations operations, KernelStatement state, IndexDescriptor index, String prefix )
+    {
+        this.committed = committed;
+        this.txState = state.txState();
+        this.modifiedNodes = modifiedNodes;
+        this.operations = operations;
+        this.state = state;
+        this.labelId = index.getLabelId();
+        this.propertyKeyId = index.getPropertyKeyId();
+        this.prefix = prefix;
+    }
+
+    @Override
+    public boolean next()
+    {
+        while ( !committedExhausted && committed.next() )
+        {
+            IndexEntryItem entry = committed.get();
+            if ( !txState.nodeModifiedInThisTx( entry.nodeId() ) && !txState.nodeIsDeletedInThisTx( entry.nodeId() ) )
+            {
+                return entry( entry.nodeId(), entry.value() );
+            }
+        }
+        committedExhausted = true;
+
+        while ( modifiedNodes.hasNext() )
+        {
+            long candidate = modifiedNodes.next();
+            try ( Cursor<NodeItem> node = operations.nodeCursor( state, candidate ) )
+            {
+                if ( node.next() && node.get().hasLabel( labelId ) )
+                {
+                    Object propertyValue = node.get().getProperty( propertyKeyId );
+                    if ( (propertyValue instanceof String || propertyValue instanceof Character) &&
+                         propertyValue.toString().startsWith( prefix ) )
+                    {
+                        return entry( candidate, propertyValue );
+                    }
+                }
+            }
+        }
+        hasEntry = false;
+        value = null;
+        return false;
+    }
+
+    private boolean entry( long nodeId, Object value )
+    {
+        this.nodeId = nodeId;
+        this.value = value;
+        hasEntry = true;
+        return true;
+    }
+
+    @Override
+    public IndexEntryItem get()
+    {
+        if ( !hasEntry )
+        {
+            throw new IllegalStateException();
+        }
+        return this;
+    }
+
+    @Override
+    public long nodeId()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public Object value()
+    {
+        return value;
+    }
+
+    @Override
+    public void close()
+    {
+        committed.close();
+        hasEntry = false;
+    }
+}
@@ -23,12 +23,15 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntCollection;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveIntStack;
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.Cursor;
+import org.neo4j.function.LongPredicate;
 import org.neo4j.function.Predicate;
 import org.neo4j.kernel.api.EntityType;
 import org.neo4j.kernel.api.LegacyIndex;
@@ -40,6 +43,7 @@ import org.neo4j.kernel.api.constraints.PropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyExistenceConstraint;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.cursor.LabelItem;
 import org.neo4j.kernel.api.cursor.NodeItem;
 import org.neo4j.kernel.api.cursor.PropertyItem;
@@ -62,6 +66,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.ProcedureConstraintViolation;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.procedures.ProcedureDescriptor;
@@ -70,6 +75,7 @@ import org.neo4j.kernel.api.procedures.ProcedureSignature.ProcedureName;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
 import org.neo4j.kernel.api.properties.PropertyKeyIdIterator;
+import org.neo4j.kernel.api.txstate.ReadableTxState;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.api.txstate.TxStateHolder;
 import org.neo4j.kernel.impl.api.operations.CountsOperations;
@@ -81,6 +87,7 @@ import org.neo4j.kernel.impl.api.operations.LegacyIndexWriteOperations;
 import org.neo4j.kernel.impl.api.operations.SchemaReadOperations;
 import org.neo4j.kernel.impl.api.operations.SchemaWriteOperations;
 import org.neo4j.kernel.impl.api.state.ConstraintIndexCreator;
+import org.neo4j.kernel.impl.api.state.NodeState;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.api.store.StoreReadLayer;
 import org.neo4j.kernel.impl.api.store.StoreStatement;
@@ -484,6 +491,14 @@ public class StateHandlingStatementOperations implements
         return rule;
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeys )
+    {
+        IndexDescriptor rule = new IndexDescriptor( labelId, propertyKeys );
+        state.txState().indexRuleDoAdd( rule );
+        return rule;
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
@@ -690,7 +705,7 @@ public class StateHandlingStatementOperations implements
             @Override
             public boolean test( IndexDescriptor item )
             {
-                return item.getPropertyKeyId() == propertyKey;
+                return !item.isComposite() && item.getPropertyKeyId() == propertyKey;
             }
         };
         return filter( predicate, descriptorIterator );
@@ -798,6 +813,10 @@ public class StateHandlingStatementOperations implements
             throws IndexNotFoundKernelException
     {
         PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexSeek( state, index, value );
+        if ( index.isComposite() )
+        {
+            return filterCompositeIndexStateChanges( state, index, compositeValue( index, value ), committed );
+        }
         PrimitiveLongIterator exactMatches = filterExactIndexMatches( state, index, value, committed );
         return filterIndexStateChangesForScanOrSeek( state, index, value, exactMatches );
     }
@@ -808,6 +827,7 @@ public class StateHandlingStatementOperations implements
             Number upper, boolean includeUpper ) throws IndexNotFoundKernelException
 
     {
+        assertNotComposite( index );
         PrimitiveLongIterator committed = COMPARE_NUMBERS.isEmptyRange( lower, includeLower, upper, includeUpper )
                 ? PrimitiveLongCollections.emptyIterator()
                 : storeLayer.nodesGetFromInclusiveNumericIndexRangeSeek( state, index, lower, upper );
@@ -823,6 +843,7 @@ public class StateHandlingStatementOperations implements
             String upper, boolean includeUpper ) throws IndexNotFoundKernelException
 
     {
+        assertNotComposite( index );
         PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexRangeSeekByString( state, index, lower,
                 includeLower, upper, includeUpper );
         return filterIndexStateChangesForRangeSeekByString( state, index, lower, includeLower, upper, includeUpper,
@@ -833,18 +854,94 @@ public class StateHandlingStatementOperations implements
     public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
             String prefix ) throws IndexNotFoundKernelException
     {
+        assertNotComposite( index );
         PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
         return filterIndexStateChangesForRangeSeekByPrefix( state, index, prefix, committed );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( KernelStatement state,
+            IndexDescriptor index, String prefix ) throws IndexNotFoundKernelException
+    {
+        assertNotComposite( index );
+        Cursor<IndexEntryItem> committed =
+                storeLayer.nodesGetFromIndexRangeSeekByPrefixWithValues( state, index, prefix );
+        if ( !state.hasTxStateWithChanges() )
+        {
+            return committed;
+        }
+        PrimitiveLongSet changed = Primitive.longSet();
+        for ( NodeState node : state.txState().modifiedNodes() )
+        {
+            changed.add( node.getId() );
+        }
+        return new PrefixIndexEntryTxStateCursor( committed, changed.iterator(), this, state, index, prefix );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexScan( KernelStatement state, IndexDescriptor index )
             throws IndexNotFoundKernelException
     {
         PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexScan( state, index );
+        if ( index.isComposite() )
+        {
+            return filterCompositeIndexStateChanges( state, index, null, committed );
+        }
         return filterIndexStateChangesForScanOrSeek( state, index, null, committed );
     }
 
+    private static CompositeIndexValue compositeValue( IndexDescriptor index, Object value )
+    {
+        if ( !(value instanceof CompositeIndexValue) ||
+             ((CompositeIndexValue) value).size() != index.getPropertyKeyIds().length )
+        {
+            throw new IllegalArgumentException( "Composite index " + index + " can only be sought with a composite " +
+                                                "value of one value for each of its properties, not " + value );
+        }
+        return (CompositeIndexValue) value;
+    }
+
+    private static void assertNotComposite( IndexDescriptor index )
+    {
+        if ( index.isComposite() )
+        {
+            throw new UnsupportedOperationException( "Range seeks are not supported by composite index " + index );
+        }
+    }
+
+    /**
+     * The transaction state does not keep index updates for composite indexes, so instead the nodes changed in this
+     * transaction are left out of what the index found, and matched against the index by their current labels and
+     * properties.
+     */
+    private PrimitiveLongIterator filterCompositeIndexStateChanges( KernelStatement state, IndexDescriptor index,
+            CompositeIndexValue value, PrimitiveLongIterator nodeIds )
+    {
+        if ( !state.hasTxStateWithChanges() )
+        {
+            return value == null ? nodeIds
+                                 : LookupFilter.exactCompositeIndexMatches( this, state, nodeIds, index, value );
+        }
+        final ReadableTxState txState = state.txState();
+        PrimitiveLongIterator unchanged = PrimitiveLongCollections.filter( nodeIds, new LongPredicate()
+        {
+            @Override
+            public boolean test( long nodeId )
+            {
+                return !txState.nodeModifiedInThisTx( nodeId );
+            }
+        } );
+        PrimitiveLongSet changed = Primitive.longSet();
+        for ( NodeState node : txState.modifiedNodes() )
+        {
+            changed.add( node.getId() );
+        }
+        return PrimitiveLongCollections.concat( iterator(
+                value == null ? unchanged : LookupFilter.exactCompositeIndexMatches( this, state, unchanged, index,
+                        value ),
+                LookupFilter.compositeIndexMatches( this, state, changed.iterator(), index, value ) ) );
+    }
+
     private PrimitiveLongIterator filterExactIndexMatches( final KernelStatement state, IndexDescriptor index,
             Object value, PrimitiveLongIterator committed )
     {
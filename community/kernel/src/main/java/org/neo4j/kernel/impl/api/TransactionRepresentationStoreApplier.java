@@ -81,7 +81,45 @@ public class TransactionRepresentationStoreApplier
     public void apply( TransactionRepresentation representation, ValidatedIndexUpdates indexUpdates, LockGroup locks,
             long transactionId, TransactionApplicationMode mode ) throws IOException
     {
-        // Graph store application. The order of the decorated store appliers is irrelevant
+        applyCommands( representation,
+                newStoreApplier( locks, transactionId, mode ),
+                newIndexApplier( indexUpdates ),
+                newLegacyIndexApplier( transactionId, mode ),
+                getCountsStoreApplier( transactionId, mode ) );
+    }
+
+    /**
+     * Waits for all transactions given to {@link #apply(TransactionRepresentation, ValidatedIndexUpdates, LockGroup,
+     * long, TransactionApplicationMode)} to have been completely applied. Transactions are applied before
+     * {@code apply} returns, unless a subclass says otherwise.
+     */
+    public void awaitAppliedTransactions() throws IOException
+    {   // Everything has already been applied
+    }
+
+    /**
+     * Visits all commands in the transaction with the given handlers and then lets them apply their changes,
+     * in reverse order. Any failure causes a kernel panic.
+     */
+    protected void applyCommands( TransactionRepresentation representation, CommandHandler... handlers )
+            throws IOException
+    {
+        try ( CommandApplierFacade applier = new CommandApplierFacade( handlers ) )
+        {
+            representation.accept( applier );
+        }
+        catch ( Throwable cause )
+        {
+            health.panic( cause );
+            throw cause;
+        }
+    }
+
+    /**
+     * Graph store application. The order of the decorated store appliers is irrelevant
+     */
+    protected CommandHandler newStoreApplier( LockGroup locks, long transactionId, TransactionApplicationMode mode )
+    {
         CommandHandler storeApplier = new NeoStoreTransactionApplier(
                 neoStores, cacheAccess, lockService, locks, transactionId );
         if ( mode.needsIdTracking() )
@@ -92,32 +130,30 @@ public class TransactionRepresentationStoreApplier
         {
             storeApplier = new CacheInvalidationTransactionApplier( storeApplier, neoStores, cacheAccess );
         }
+        return storeApplier;
+    }
 
-        // Schema index application
-        IndexTransactionApplier indexApplier = new IndexTransactionApplier( indexingService, indexUpdates,
-                labelScanStoreSync );
-
-        // Legacy index application
-        LegacyIndexApplier legacyIndexApplier = new LegacyIndexApplier( indexConfigStore,
-                legacyIndexProviderLookup, legacyIndexTransactionOrdering, transactionId, mode );
-
-        // Counts store application
-        CommandHandler countsStoreApplier = getCountsStoreApplier( transactionId, mode );
+    /**
+     * Schema index and label scan store application
+     */
+    protected CommandHandler newIndexApplier( ValidatedIndexUpdates indexUpdates )
+    {
+        return new IndexTransactionApplier( indexingService, indexUpdates, labelScanStoreSync );
+    }
 
-        // Perform the application
-        try ( CommandApplierFacade applier = new CommandApplierFacade(
-                storeApplier, indexApplier, legacyIndexApplier, countsStoreApplier ) )
-        {
-            representation.accept( applier );
-        }
-        catch ( Throwable cause )
-        {
-            health.panic( cause );
-            throw cause;
-        }
+    /**
+     * Legacy index application
+     */
+    protected CommandHandler newLegacyIndexApplier( long transactionId, TransactionApplicationMode mode )
+    {
+        return new LegacyIndexApplier( indexConfigStore, legacyIndexProviderLookup, legacyIndexTransactionOrdering,
+                transactionId, mode );
     }
 
-    private CommandHandler getCountsStoreApplier( long transactionId, TransactionApplicationMode mode )
+    /**
+     * Counts store application
+     */
+    protected CommandHandler getCountsStoreApplier( long transactionId, TransactionApplicationMode mode )
     {
         Optional<CommandHandler> handlerOption =
                 neoStores.getCounts().apply( transactionId ).map( CountsStoreApplier.FACTORY );
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.api.exceptions.PropertyNotFoundException;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+
+/**
+ * Turns the {@link NodePropertyUpdate updates} of single properties of a transaction into updates of the
+ * {@link CompositeIndexValue composite values} of nodes in composite indexes.
+ * <p>
+ * The updates of a node that concern the label of a composite index tell the values of its properties before and
+ * after the transaction, for the properties that changed. The values of the other properties of the index did not
+ * change, and are read from the store, which has not had the transaction applied yet. A node is in a composite
+ * index, before or after the transaction, when it has the label and all of the properties of the index.
+ */
+final class CompositeIndexUpdates
+{
+    private final List<IndexDescriptor> indexes;
+    private final Map<Long,List<NodePropertyUpdate>> updatesByNode = new HashMap<>();
+
+    CompositeIndexUpdates( List<IndexDescriptor> indexes )
+    {
+        this.indexes = indexes;
+    }
+
+    boolean isEmpty()
+    {
+        return indexes.isEmpty();
+    }
+
+    void add( NodePropertyUpdate update )
+    {
+        for ( IndexDescriptor index : indexes )
+        {
+            if ( indexOf( index.getPropertyKeyIds(), update.getPropertyKeyId() ) != -1 )
+            {
+                List<NodePropertyUpdate> updates = updatesByNode.get( update.getNodeId() );
+                if ( updates == null )
+                {
+                    updatesByNode.put( update.getNodeId(), updates = new ArrayList<>() );
+                }
+                updates.add( update );
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the updates of the composite values of the nodes that had properties updated to the updates of each
+     * composite index.
+     */
+    void groupInto( Map<IndexDescriptor,List<NodePropertyUpdate>> updatesByIndex, PropertyAccessor store )
+    {
+        for ( Map.Entry<Long,List<NodePropertyUpdate>> entry : updatesByNode.entrySet() )
+        {
+            for ( IndexDescriptor index : indexes )
+            {
+                NodePropertyUpdate update = compositeUpdate( entry.getKey(), entry.getValue(), index, store );
+                if ( update != null )
+                {
+                    List<NodePropertyUpdate> indexUpdates = updatesByIndex.get( index );
+                    if ( indexUpdates == null )
+                    {
+                        updatesByIndex.put( index, indexUpdates = new ArrayList<>() );
+                    }
+                    indexUpdates.add( update );
+                }
+            }
+        }
+    }
+
+    private static NodePropertyUpdate compositeUpdate( long nodeId, List<NodePropertyUpdate> updates,
+            IndexDescriptor index, PropertyAccessor store )
+    {
+        int labelId = index.getLabelId();
+        int[] propertyKeyIds = index.getPropertyKeyIds();
+        Object[] valuesBefore = new Object[propertyKeyIds.length];
+        Object[] valuesAfter = new Object[propertyKeyIds.length];
+        boolean[] removed = new boolean[propertyKeyIds.length];
+        boolean labelBefore = false, labelAfter = false;
+
+        for ( NodePropertyUpdate update : updates )
+        {
+            int i = indexOf( propertyKeyIds, update.getPropertyKeyId() );
+            boolean before = hasLabelBefore( update, labelId );
+            boolean after = hasLabelAfter( update, labelId );
+            if ( i == -1 || !(before || after) )
+            {
+                continue;
+            }
+            labelBefore |= before;
+            labelAfter |= after;
+            switch ( update.getUpdateMode() )
+            {
+            case ADDED:
+                valuesAfter[i] = update.getValueAfter();
+                break;
+            case REMOVED:
+                valuesBefore[i] = update.getValueBefore();
+                removed[i] = true;
+                break;
+            case CHANGED:
+                valuesBefore[i] = update.getValueBefore();
+                valuesAfter[i] = update.getValueAfter();
+                break;
+            default:
+                throw new IllegalArgumentException( update.getUpdateMode().toString() );
+            }
+        }
+        if ( !labelBefore && !labelAfter )
+        {
+            return null;
+        }
+
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            if ( valuesBefore[i] == null && labelBefore || valuesAfter[i] == null && labelAfter && !removed[i] )
+            {
+                Object unchanged = storedValue( store, nodeId, propertyKeyIds[i] );
+                valuesBefore[i] = valuesBefore[i] == null ? unchanged : valuesBefore[i];
+                valuesAfter[i] = valuesAfter[i] == null && !removed[i] ? unchanged : valuesAfter[i];
+            }
+        }
+
+        CompositeIndexValue before = labelBefore ? compositeValue( valuesBefore ) : null;
+        CompositeIndexValue after = labelAfter ? compositeValue( valuesAfter ) : null;
+        long[] labels = new long[]{labelId};
+        if ( before != null && after != null )
+        {
+            return before.equals( after ) ? null
+                    : NodePropertyUpdate.change( nodeId, propertyKeyIds[0], before, labels, after, labels );
+        }
+        if ( after != null )
+        {
+            return NodePropertyUpdate.add( nodeId, propertyKeyIds[0], after, labels );
+        }
+        if ( before != null )
+        {
+            return NodePropertyUpdate.remove( nodeId, propertyKeyIds[0], before, labels );
+        }
+        return null;
+    }
+
+    private static CompositeIndexValue compositeValue( Object[] values )
+    {
+        for ( Object value : values )
+        {
+            if ( value == null )
+            {
+                return null;
+            }
+        }
+        return new CompositeIndexValue( values );
+    }
+
+    private static Object storedValue( PropertyAccessor store, long nodeId, int propertyKeyId )
+    {
+        try
+        {
+            return store.getProperty( nodeId, propertyKeyId ).value();
+        }
+        catch ( EntityNotFoundException | PropertyNotFoundException e )
+        {
+            // A node created in this transaction, or a property it did not have
+            return null;
+        }
+    }
+
+    private static boolean hasLabelBefore( NodePropertyUpdate update, int labelId )
+    {
+        for ( int i = 0; i < update.getNumberOfLabelsBefore(); i++ )
+        {
+            if ( update.getLabelBefore( i ) == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasLabelAfter( NodePropertyUpdate update, int labelId )
+    {
+        for ( int i = 0; i < update.getNumberOfLabelsAfter(); i++ )
+        {
+            if ( update.getLabelAfter( i ) == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf( int[] propertyKeyIds, int propertyKeyId )
+    {
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            if ( propertyKeyIds[i] == propertyKeyId )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
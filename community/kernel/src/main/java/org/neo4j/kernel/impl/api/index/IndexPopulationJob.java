@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 
@@ -30,6 +32,7 @@ import org.neo4j.function.Suppliers;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
 import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelException;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
 import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
@@ -37,6 +40,7 @@ import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.impl.api.UpdateableSchemaState;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
@@ -49,33 +53,39 @@ import static org.neo4j.helpers.FutureAdapter.latchGuardedValue;
 import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
 
 /**
- * Represents one job of initially populating an index over existing data in the database.
- * Scans the store directly.
+ * Represents one job of initially populating one or more indexes over existing data in the database.
+ * Scans the store directly, once, feeding every added {@link IndexPopulation} from that single scan.
+ * <p>
+ * Populations are added with {@link #addPopulation(IndexPopulator, IndexDescriptor, IndexConfiguration,
+ * SchemaIndexProvider.Descriptor, String, FlippableIndexProxy, FailedIndexProxyFactory)} before the job is run.
+ * A failure in one population fails only that index, the others carry on with the scan.
  */
 public class IndexPopulationJob implements Runnable
 {
-    // NOTE: unbounded queue expected here
-    private final Queue<NodePropertyUpdate> queue = new ConcurrentLinkedQueue<>();
-    private final IndexDescriptor descriptor;
-
-    private final IndexConfiguration config;
-    private final SchemaIndexProvider.Descriptor providerDescriptor;
-
-    private final IndexingService.Monitor monitor;
-    private final IndexPopulator populator;
-    private final FlippableIndexProxy flipper;
+    private final List<IndexPopulation> populations = new CopyOnWriteArrayList<>();
     private final IndexStoreView storeView;
     private final UpdateableSchemaState updateableSchemaState;
-    private final String indexUserDescription;
-    private final FailedIndexProxyFactory failureDelegate;
     private final LogProvider logProvider;
     private final Log log;
-    private final IndexCountsRemover indexCountsRemover;
+    private final IndexingService.Monitor monitor;
     private final CountDownLatch doneSignal = new CountDownLatch( 1 );
 
-    private volatile StoreScan<IndexPopulationFailedKernelException> storeScan;
+    private volatile StoreScan<RuntimeException> storeScan;
+    private volatile boolean started;
     private volatile boolean cancelled;
 
+    public IndexPopulationJob( IndexStoreView storeView,
+                               UpdateableSchemaState updateableSchemaState,
+                               LogProvider logProvider,
+                               IndexingService.Monitor monitor )
+    {
+        this.storeView = storeView;
+        this.updateableSchemaState = updateableSchemaState;
+        this.logProvider = logProvider;
+        this.monitor = monitor;
+        this.log = logProvider.getLog( getClass() );
+    }
+
     public IndexPopulationJob(IndexDescriptor descriptor,
                               IndexConfiguration config,
                               SchemaIndexProvider.Descriptor providerDescriptor,
@@ -88,43 +98,410 @@ public class IndexPopulationJob implements Runnable
                               LogProvider logProvider,
                               IndexingService.Monitor monitor )
     {
-        this.descriptor = descriptor;
-        this.config = config;
-        this.providerDescriptor = providerDescriptor;
-        this.populator = populator;
-        this.flipper = flipper;
-        this.storeView = storeView;
-        this.updateableSchemaState = updateableSchemaState;
-        this.indexUserDescription = indexUserDescription;
-        this.failureDelegate = failureDelegateFactory;
-        this.logProvider = logProvider;
-        this.monitor = monitor;
-        this.log = logProvider.getLog( getClass() );
-        this.indexCountsRemover = IndexCountsRemover.Factory.create( storeView, descriptor );
+        this( storeView, updateableSchemaState, logProvider, monitor );
+        addPopulation( populator, descriptor, config, providerDescriptor, indexUserDescription, flipper,
+                failureDelegateFactory );
+    }
+
+    /**
+     * Adds an index to be populated by this job. All populations must be added before the job is run,
+     * they will all be fed from the same store scan.
+     *
+     * @return the {@link IndexPopulation} representing the population of this index within this job.
+     */
+    public synchronized IndexPopulation addPopulation( IndexPopulator populator,
+                                                       IndexDescriptor descriptor,
+                                                       IndexConfiguration config,
+                                                       SchemaIndexProvider.Descriptor providerDescriptor,
+                                                       String indexUserDescription,
+                                                       FlippableIndexProxy flipper,
+                                                       FailedIndexProxyFactory failureDelegateFactory )
+    {
+        if ( started )
+        {
+            throw new IllegalStateException( "Can't add population of " + indexUserDescription +
+                                             " to " + this + " since it has already been started" );
+        }
+        IndexPopulation population = new IndexPopulation( populator, descriptor, config, providerDescriptor,
+                indexUserDescription, flipper, failureDelegateFactory );
+        populations.add( population );
+        return population;
     }
 
     @Override
     public void run()
     {
-        String oldThreadName = currentThread().getName();
-        currentThread().setName( format( "Index populator on %s [runs on: %s]", indexUserDescription, oldThreadName ) );
-        boolean success = false;
-        Throwable failureCause = null;
+        synchronized ( this )
+        {
+            started = true;
+        }
 
+        String oldThreadName = currentThread().getName();
+        currentThread().setName( format( "Index populator on %s [runs on: %s]", indexUserDescriptions(),
+                oldThreadName ) );
         try
+        {
+            for ( IndexPopulation population : populations )
+            {
+                population.create();
+            }
+
+            try
+            {
+                indexAllNodes();
+            }
+            catch ( Throwable t )
+            {
+                // A failure in the scan itself, rather than in any of the populators, fails all of them
+                for ( IndexPopulation population : populations )
+                {
+                    population.fail( t );
+                }
+            }
+
+            for ( IndexPopulation population : populations )
+            {
+                population.complete();
+            }
+        }
+        finally
+        {
+            for ( IndexPopulation population : populations )
+            {
+                population.doneSignal.countDown();
+            }
+            doneSignal.countDown();
+            currentThread().setName( oldThreadName );
+        }
+    }
+
+    private void indexAllNodes()
+    {
+        if ( populations.isEmpty() )
+        {
+            return;
+        }
+
+        Visitor<NodePropertyUpdate,RuntimeException> propertyUpdateVisitor =
+                new Visitor<NodePropertyUpdate,RuntimeException>()
+                {
+                    @Override
+                    public boolean visit( NodePropertyUpdate update )
+                    {
+                        for ( IndexPopulation population : populations )
+                        {
+                            if ( population.covers( update ) )
+                            {
+                                population.add( update );
+                            }
+                        }
+                        populateFromQueuesIfAvailable( update.getNodeId() );
+                        stopScanIfNoPopulationsLeft();
+                        return false;
+                    }
+                };
+
+        if ( populations.size() == 1 && !populations.get( 0 ).descriptor.isComposite() )
+        {
+            storeScan = storeView.visitNodesWithPropertyAndLabel( populations.get( 0 ).descriptor,
+                    propertyUpdateVisitor );
+        }
+        else
+        {
+            // Invoked for every node in the store, a good place to notice that some, but not all,
+            // of the indexes have been dropped while we're scanning
+            Visitor<NodeLabelUpdate,RuntimeException> labelUpdateVisitor =
+                    new Visitor<NodeLabelUpdate,RuntimeException>()
+                    {
+                        @Override
+                        public boolean visit( NodeLabelUpdate update )
+                        {
+                            for ( IndexPopulation population : populations )
+                            {
+                                if ( population.cancelled )
+                                {
+                                    population.closeCancelled();
+                                }
+                            }
+                            stopScanIfNoPopulationsLeft();
+                            return false;
+                        }
+                    };
+            storeScan = storeView.visitNodes( labelIds(), propertyKeyIds(), propertyUpdateVisitor,
+                    labelUpdateVisitor );
+        }
+        storeScan.run();
+    }
+
+    private void stopScanIfNoPopulationsLeft()
+    {
+        if ( populations.isEmpty() )
+        {
+            storeScan.stop();
+        }
+    }
+
+    private void populateFromQueuesIfAvailable( long currentlyIndexedNodeId )
+    {
+        for ( IndexPopulation population : populations )
+        {
+            try
+            {
+                population.populateFromQueueIfAvailable( currentlyIndexedNodeId );
+            }
+            catch ( IndexEntryConflictException | IndexCapacityExceededException | IOException error )
+            {
+                population.fail( new IndexPopulationFailedKernelException(
+                        population.descriptor, population.indexUserDescription, error ) );
+            }
+        }
+    }
+
+    private int[] labelIds()
+    {
+        int[] labelIds = new int[populations.size()];
+        int i = 0;
+        for ( IndexPopulation population : populations )
+        {
+            labelIds[i++] = population.descriptor.getLabelId();
+        }
+        return labelIds;
+    }
+
+    private int[] propertyKeyIds()
+    {
+        int count = 0;
+        for ( IndexPopulation population : populations )
+        {
+            count += population.propertyKeyIds.length;
+        }
+        int[] propertyKeyIds = new int[count];
+        int i = 0;
+        for ( IndexPopulation population : populations )
+        {
+            for ( int propertyKeyId : population.propertyKeyIds )
+            {
+                propertyKeyIds[i++] = propertyKeyId;
+            }
+        }
+        return propertyKeyIds;
+    }
+
+    private String indexUserDescriptions()
+    {
+        StringBuilder builder = new StringBuilder();
+        for ( IndexPopulation population : populations )
+        {
+            builder.append( builder.length() > 0 ? ", " : "" ).append( population.indexUserDescription );
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Cancels the population of all indexes in this job.
+     */
+    public Future<Void> cancel()
+    {
+        // Stop the population
+        if ( storeScan != null )
+        {
+            cancelled = true;
+            storeScan.stop();
+        }
+
+        return latchGuardedValue( Suppliers.<Void>singleton( null ), doneSignal, "Index population job cancel" );
+    }
+
+    /**
+     * A transaction happened that produced the given updates. Let this job incorporate its data,
+     * feeding it to the {@link IndexPopulator populators} of the indexes it affects.
+     */
+    public void update( NodePropertyUpdate update )
+    {
+        for ( IndexPopulation population : populations )
+        {
+            if ( population.covers( update ) )
+            {
+                population.update( update );
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[populations:" + populations + "]";
+    }
+
+    public void awaitCompletion() throws InterruptedException
+    {
+        doneSignal.await();
+    }
+
+    /**
+     * The population of a single index within an {@link IndexPopulationJob}. Updates happening to the index while
+     * the store is being scanned are queued here and applied by the scanning thread.
+     */
+    class IndexPopulation
+    {
+        // NOTE: unbounded queue expected here
+        private final Queue<NodePropertyUpdate> queue = new ConcurrentLinkedQueue<>();
+        private final IndexPopulator populator;
+        private final IndexDescriptor descriptor;
+        private final int[] propertyKeyIds;
+        private final IndexConfiguration config;
+        private final SchemaIndexProvider.Descriptor providerDescriptor;
+        private final String indexUserDescription;
+        private final FlippableIndexProxy flipper;
+        private final FailedIndexProxyFactory failureDelegate;
+        private final IndexCountsRemover indexCountsRemover;
+        private final CountDownLatch doneSignal = new CountDownLatch( 1 );
+
+        private volatile boolean cancelled;
+
+        // The values of the properties of a composite index seen so far for the node being scanned
+        private long compositeNodeId = -1;
+        private Object[] compositeValues;
+
+        IndexPopulation( IndexPopulator populator,
+                         IndexDescriptor descriptor,
+                         IndexConfiguration config,
+                         SchemaIndexProvider.Descriptor providerDescriptor,
+                         String indexUserDescription,
+                         FlippableIndexProxy flipper,
+                         FailedIndexProxyFactory failureDelegateFactory )
+        {
+            this.populator = populator;
+            this.descriptor = descriptor;
+            this.propertyKeyIds = descriptor.getPropertyKeyIds();
+            this.config = config;
+            this.providerDescriptor = providerDescriptor;
+            this.indexUserDescription = indexUserDescription;
+            this.flipper = flipper;
+            this.failureDelegate = failureDelegateFactory;
+            this.indexCountsRemover = IndexCountsRemover.Factory.create( storeView, descriptor );
+        }
+
+        private void create()
         {
             try
             {
                 log.info( "Index population started: [%s]", indexUserDescription );
                 populator.create();
                 storeView.replaceIndexCounts( descriptor, 0, 0, 0 );
+            }
+            catch ( Throwable t )
+            {
+                fail( t );
+            }
+        }
 
-                indexAllNodes();
+        private boolean covers( NodePropertyUpdate update )
+        {
+            return propertyKeyIndex( update.getPropertyKeyId() ) != -1 &&
+                   update.forLabel( descriptor.getLabelId() );
+        }
+
+        private int propertyKeyIndex( int propertyKeyId )
+        {
+            for ( int i = 0; i < propertyKeyIds.length; i++ )
+            {
+                if ( propertyKeyIds[i] == propertyKeyId )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void add( NodePropertyUpdate update )
+        {
+            try
+            {
+                if ( descriptor.isComposite() )
+                {
+                    addToComposite( update );
+                }
+                else
+                {
+                    populator.add( update.getNodeId(), update.getValueAfter() );
+                }
+            }
+            catch ( IndexEntryConflictException | IndexCapacityExceededException | IOException error )
+            {
+                fail( new IndexPopulationFailedKernelException( descriptor, indexUserDescription, error ) );
+            }
+        }
+
+        /**
+         * The scan visits the properties of one node at a time, so the composite value of a node is complete, and
+         * added, once all of its properties of the index have been visited.
+         */
+        private void addToComposite( NodePropertyUpdate update )
+                throws IndexEntryConflictException, IndexCapacityExceededException, IOException
+        {
+            if ( update.getNodeId() != compositeNodeId )
+            {
+                compositeNodeId = update.getNodeId();
+                compositeValues = new Object[propertyKeyIds.length];
+            }
+            compositeValues[propertyKeyIndex( update.getPropertyKeyId() )] = update.getValueAfter();
+            for ( Object value : compositeValues )
+            {
+                if ( value == null )
+                {
+                    return;
+                }
+            }
+            populator.add( compositeNodeId, new CompositeIndexValue( compositeValues ) );
+        }
+
+        private void populateFromQueueIfAvailable( final long currentlyIndexedNodeId )
+                throws IndexEntryConflictException, IndexCapacityExceededException, IOException
+        {
+            if ( !queue.isEmpty() )
+            {
+                try ( IndexUpdater updater = populator.newPopulatingUpdater( storeView ) )
+                {
+                    do
+                    {
+                        // no need to check for null as nobody else is emptying this queue
+                        NodePropertyUpdate update = queue.poll();
+                        // TODO: We see updates twice here from IndexStatisticsTest
+                        if ( update.getNodeId() <= currentlyIndexedNodeId )
+                        {
+                            updater.process( update );
+                        }
+                    } while ( !queue.isEmpty() );
+                }
+            }
+        }
+
+        private void verifyDeferredConstraints() throws IndexPopulationFailedKernelException
+        {
+            monitor.verifyDeferredConstraints();
+            try
+            {
+                populator.verifyDeferredConstraints( storeView );
+            }
+            catch ( Exception conflict )
+            {
+                throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
+            }
+        }
+
+        /**
+         * Called when the store scan has completed, verifies constraints and flips the index online.
+         */
+        private void complete()
+        {
+            try
+            {
                 verifyDeferredConstraints();
-                if ( cancelled )
+                if ( cancelled || IndexPopulationJob.this.cancelled )
                 {
-                    storeView.replaceIndexCounts( descriptor, 0, 0, 0 );
                     // We remain in POPULATING state
+                    closeCancelled();
                     return;
                 }
 
@@ -147,10 +524,41 @@ public class IndexPopulationJob implements Runnable
                 };
 
                 flipper.flip( duringFlip, failureDelegate );
-                success = true;
+                populations.remove( this );
+                doneSignal.countDown();
                 log.info( "Index population completed. Index is now online: [%s]", indexUserDescription );
             }
             catch ( Throwable t )
+            {
+                fail( t );
+            }
+        }
+
+        /**
+         * Leaves the index in POPULATING state, without any counts, and removes it from this job.
+         */
+        private void closeCancelled()
+        {
+            try
+            {
+                storeView.replaceIndexCounts( descriptor, 0, 0, 0 );
+                populator.close( false );
+            }
+            catch ( Throwable e )
+            {
+                log.error( format( "Unable to close cancelled populator for index: [%s]", indexUserDescription ),
+                        e );
+            }
+            finally
+            {
+                populations.remove( this );
+                doneSignal.countDown();
+            }
+        }
+
+        private void fail( Throwable t )
+        {
+            try
             {
                 // If the cause of index population failure is a conflict in a (unique) index, the conflict is the
                 // failure
@@ -166,12 +574,9 @@ public class IndexPopulationJob implements Runnable
                 // Index conflicts are expected (for unique indexes) so we don't need to log them.
                 if ( !(t instanceof IndexEntryConflictException) /*TODO: && this is a unique index...*/ )
                 {
-                    log.error( format("Failed to populate index: [%s]", indexUserDescription), t );
+                    log.error( format( "Failed to populate index: [%s]", indexUserDescription ), t );
                 }
 
-                // Set failure cause to be stored persistently
-                failureCause = t;
-
                 // The flipper will have already flipped to a failed index context here, but
                 // it will not include the cause of failure, so we do another flip to a failed
                 // context that does.
@@ -180,122 +585,70 @@ public class IndexPopulationJob implements Runnable
                 // place is that we would otherwise introduce a race condition where updates could come
                 // in to the old context, if something failed in the job we send to the flipper.
                 flipper.flipTo( new FailedIndexProxy( descriptor, config, providerDescriptor, indexUserDescription,
-                                                      populator, failure( t ), indexCountsRemover, logProvider ) );
+                        populator, failure( t ), indexCountsRemover, logProvider ) );
             }
             finally
             {
                 try
                 {
-                    if ( !success )
-                    {
-                        if ( failureCause != null )
-                        {
-                            populator.markAsFailed( failure( failureCause ).asString() );
-                        }
-
-                        populator.close( false );
-                    }
+                    // Set failure cause to be stored persistently
+                    populator.markAsFailed( failure( t ).asString() );
+                    populator.close( false );
                 }
                 catch ( Throwable e )
                 {
-                    log.error( format("Unable to close failed populator for index: [%s]", indexUserDescription), e );
+                    log.error( format( "Unable to close failed populator for index: [%s]", indexUserDescription ),
+                            e );
+                }
+                finally
+                {
+                    populations.remove( this );
+                    doneSignal.countDown();
                 }
             }
         }
-        finally
-        {
-            doneSignal.countDown();
-            currentThread().setName( oldThreadName );
-        }
-    }
 
-    private void indexAllNodes() throws IndexPopulationFailedKernelException
-    {
-        storeScan = storeView.visitNodesWithPropertyAndLabel( descriptor,
-                new Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException>()
-                {
-                    @Override
-                    public boolean visit( NodePropertyUpdate update ) throws IndexPopulationFailedKernelException
-                    {
-                        try
-                        {
-                            populator.add( update.getNodeId(), update.getValueAfter() );
-                            populateFromQueueIfAvailable( update.getNodeId() );
-                        }
-                        catch ( IndexEntryConflictException | IndexCapacityExceededException | IOException error )
-                        {
-                            throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, error );
-                        }
-                        return false;
-                    }
-                } );
-        storeScan.run();
-    }
-
-    private void verifyDeferredConstraints() throws IndexPopulationFailedKernelException
-    {
-        monitor.verifyDeferredConstraints();
-        try
+        /**
+         * A transaction happened that produced the given update for this index. Let this population
+         * incorporate its data, feeding it to the {@link IndexPopulator}.
+         */
+        void update( NodePropertyUpdate update )
         {
-            populator.verifyDeferredConstraints( storeView );
+            queue.add( update );
         }
-        catch ( Exception conflict )
-        {
-            throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
-        }
-    }
 
-    private void populateFromQueueIfAvailable( final long currentlyIndexedNodeId )
-            throws IndexEntryConflictException, IndexCapacityExceededException, IOException
-    {
-        if ( !queue.isEmpty() )
+        /**
+         * Cancels the population of this index only. The store scan is stopped if no other index
+         * in this job is still being populated.
+         */
+        Future<Void> cancel()
         {
-            try ( IndexUpdater updater = populator.newPopulatingUpdater( storeView ) )
+            if ( storeScan != null )
             {
-                do
+                cancelled = true;
+                boolean allCancelled = true;
+                for ( IndexPopulation population : populations )
                 {
-                    // no need to check for null as nobody else is emptying this queue
-                    NodePropertyUpdate update = queue.poll();
-                    // TODO: We see updates twice here from IndexStatisticsTest
-                    if ( update.getNodeId() <= currentlyIndexedNodeId )
-                    {
-                        updater.process( update );
-                    }
-                } while ( !queue.isEmpty() );
+                    allCancelled &= population.cancelled;
+                }
+                if ( allCancelled )
+                {
+                    storeScan.stop();
+                }
             }
+
+            return latchGuardedValue( Suppliers.<Void>singleton( null ), doneSignal, "Index population cancel" );
         }
-    }
 
-    public Future<Void> cancel()
-    {
-        // Stop the population
-        if ( storeScan != null )
+        void awaitCompletion() throws InterruptedException
         {
-            cancelled = true;
-            storeScan.stop();
+            doneSignal.await();
         }
 
-        return latchGuardedValue( Suppliers.<Void>singleton( null ), doneSignal, "Index population job cancel" );
-    }
-
-    /**
-     * A transaction happened that produced the given updates. Let this job incorporate its data,
-     * feeding it to the {@link IndexPopulator}.
-     */
-    public void update( NodePropertyUpdate update )
-    {
-        queue.add( update );
-    }
-
-    @Override
-    public String toString()
-    {
-        return getClass().getSimpleName() + "[populator:" + populator + ", descriptor:" + indexUserDescription + "]";
-    }
-
-    public void awaitCompletion() throws InterruptedException
-    {
-        doneSignal.await();
+        @Override
+        public String toString()
+        {
+            return "IndexPopulation[populator:" + populator + ", descriptor:" + indexUserDescription + "]";
+        }
     }
-
 }
@@ -34,8 +34,8 @@ import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.logging.LogProvider;
 
 import static java.lang.String.format;
-
 import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.indexPopulation;
 
 public class IndexProxySetup
 {
@@ -68,7 +68,8 @@ public class IndexProxySetup
                                                   final IndexDescriptor descriptor,
                                                   final SchemaIndexProvider.Descriptor providerDescriptor,
                                                   final boolean constraint,
-                                                  final IndexingService.Monitor monitor ) throws IOException
+                                                  final IndexingService.Monitor monitor,
+                                                  final IndexPopulationJob populationJob ) throws IOException
     {
         final FlippableIndexProxy flipper = new FlippableIndexProxy();
 
@@ -88,9 +89,10 @@ public class IndexProxySetup
                 logProvider
         );
 
+        IndexPopulationJob.IndexPopulation population = populationJob.addPopulation( populator, descriptor, config,
+                providerDescriptor, indexUserDescription, flipper, failureDelegateFactory );
         PopulatingIndexProxy populatingIndex =
-                new PopulatingIndexProxy( scheduler, descriptor, config, failureDelegateFactory, populator, flipper,
-                        storeView, updateableSchemaState, logProvider, indexUserDescription, providerDescriptor, monitor );
+                new PopulatingIndexProxy( descriptor, config, providerDescriptor, populationJob, population );
         flipper.flipTo( populatingIndex );
 
         // Prepare for flipping to online mode
@@ -122,6 +124,22 @@ public class IndexProxySetup
         return new ContractCheckingIndexProxy( flipper, false );
     }
 
+    /**
+     * @return a new {@link IndexPopulationJob}, to which any number of populating index proxies can be added
+     * using {@link #createPopulatingIndexProxy(long, IndexDescriptor, SchemaIndexProvider.Descriptor, boolean,
+     * IndexingService.Monitor, IndexPopulationJob)} before it's started using {@link #startIndexPopulation(
+     * IndexPopulationJob)}. All indexes in the job will be populated from the same store scan.
+     */
+    public IndexPopulationJob newIndexPopulationJob( IndexingService.Monitor monitor )
+    {
+        return new IndexPopulationJob( storeView, updateableSchemaState, logProvider, monitor );
+    }
+
+    public void startIndexPopulation( IndexPopulationJob job )
+    {
+        scheduler.schedule( indexPopulation, job );
+    }
+
     public IndexProxy createRecoveringIndexProxy( IndexDescriptor descriptor,
                                                   SchemaIndexProvider.Descriptor providerDescriptor,
                                                   boolean constraint )
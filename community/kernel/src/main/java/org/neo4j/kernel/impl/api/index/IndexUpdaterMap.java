@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -122,6 +124,24 @@ public class IndexUpdaterMap implements AutoCloseable, Iterable<IndexUpdater>
         return indexMap.size();
     }
 
+    /**
+     * @return the descriptors of the composite indexes, which are not found by the label and property key of an
+     * update, since their updates are of all of their properties together.
+     */
+    public List<IndexDescriptor> compositeIndexes()
+    {
+        List<IndexDescriptor> composites = new ArrayList<>();
+        for ( Iterator<IndexDescriptor> descriptors = indexMap.descriptors(); descriptors.hasNext(); )
+        {
+            IndexDescriptor descriptor = descriptors.next();
+            if ( descriptor.isComposite() )
+            {
+                composites.add( descriptor );
+            }
+        }
+        return composites;
+    }
+
     @Override
     public Iterator<IndexUpdater> iterator()
     {
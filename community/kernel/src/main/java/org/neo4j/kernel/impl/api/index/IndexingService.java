@@ -48,6 +48,7 @@ import org.neo4j.kernel.api.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PropertyAccessor;
 import org.neo4j.kernel.api.index.Reservation;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.api.index.SchemaIndexProvider.Descriptor;
@@ -219,7 +220,7 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
             IndexProxy indexProxy;
 
             long indexId = indexRule.getId();
-            IndexDescriptor descriptor = new IndexDescriptor( indexRule.getLabel(), indexRule.getPropertyKey() );
+            IndexDescriptor descriptor = new IndexDescriptor( indexRule.getLabel(), indexRule.getPropertyKeys() );
             SchemaIndexProvider.Descriptor providerDescriptor = indexRule.getProviderDescriptor();
             SchemaIndexProvider provider = providerMap.apply( providerDescriptor );
             InternalIndexState initialState = provider.getInitialState( indexId );
@@ -290,7 +291,9 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
         // Drop placeholder proxies for indexes that need to be rebuilt
         dropRecoveringIndexes( indexMap, rebuildingDescriptors.keySet() );
 
-        // Rebuild indexes by recreating and repopulating them
+        // Rebuild indexes by recreating and repopulating them, all of them from a single store scan
+        IndexPopulationJob populationJob = rebuildingDescriptors.isEmpty() ? null :
+                proxySetup.newIndexPopulationJob( monitor );
         for ( Map.Entry<Long,RebuildingIndexDescriptor> entry : rebuildingDescriptors.entrySet() )
         {
             long indexId = entry.getKey();
@@ -302,13 +305,17 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
              * be in a state where they didn't finish populating, and despite the fact that we re-create them here,
              * they will get dropped as soon as recovery is completed by the constraint system.
              */
-            IndexProxy proxy = proxySetup.createPopulatingIndexProxy(
-                    indexId, descriptors.getIndexDescriptor(), descriptors.getProviderDescriptor(), false, monitor );
+            IndexProxy proxy = proxySetup.createPopulatingIndexProxy( indexId, descriptors.getIndexDescriptor(),
+                    descriptors.getProviderDescriptor(), false, monitor, populationJob );
             proxy.start();
             indexMap.putIndexProxy( indexId, proxy );
         }
 
         indexMapRef.setIndexMap( indexMap );
+        if ( populationJob != null )
+        {
+            proxySetup.startIndexPopulation( populationJob );
+        }
 
         samplingController.recoverIndexSamples();
         samplingController.start();
@@ -408,52 +415,77 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
      */
     public void createIndex( IndexRule rule )
     {
-        IndexMap indexMap = indexMapRef.indexMapSnapshot();
+        createIndexes( rule );
+    }
 
-        long ruleId = rule.getId();
-        IndexProxy index = indexMap.getIndexProxy( ruleId );
-        if ( index != null && state == State.NOT_STARTED )
-        {
-            // During recovery we might run into this scenario:
-            // - We're starting recovery on a database, where init() is called and all indexes that
-            //   are found in the store, instantiated and put into the IndexMap. Among them is index X.
-            // - While we recover the database we bump into a transaction creating index Y, with the
-            //   same IndexDescriptor, i.e. same label/property, as X. This is possible since this took
-            //   place before the creation of X.
-            // - When Y is dropped in between this creation and the creation of X (it will have to be
-            //   otherwise X wouldn't have had an opportunity to be created) the index is removed from
-            //   the IndexMap, both by id AND descriptor.
-            //
-            // Because of the scenario above we need to put this created index into the IndexMap
-            // again, otherwise it will disappear from the IndexMap (at least for lookup by descriptor)
-            // and not be able to accept changes applied from recovery later on.
-            indexMap.putIndexProxy( ruleId, index );
-            indexMapRef.setIndexMap( indexMap );
-            return;
-        }
-        final IndexDescriptor descriptor = new IndexDescriptor( rule.getLabel(), rule.getPropertyKey() );
-        SchemaIndexProvider.Descriptor providerDescriptor = rule.getProviderDescriptor();
-        boolean constraint = rule.isConstraintIndex();
-        if ( state == State.RUNNING )
-        {
-            try
+    /*
+     * Creates indexes. Indexes that need populating are all populated by the same job, i.e. from one
+     * single scan over the store, instead of one scan per index.
+     *
+     * This code is called from the transaction infrastructure during transaction commits, which means that
+     * it is *vital* that it is stable, and handles errors very well. Failing here means that the entire db
+     * will shut down.
+     */
+    public void createIndexes( IndexRule... rules )
+    {
+        IndexMap indexMap = indexMapRef.indexMapSnapshot();
+        IndexPopulationJob populationJob = null;
+
+        for ( IndexRule rule : rules )
+        {
+            long ruleId = rule.getId();
+            IndexProxy index = indexMap.getIndexProxy( ruleId );
+            if ( index != null && state == State.NOT_STARTED )
+            {
+                // During recovery we might run into this scenario:
+                // - We're starting recovery on a database, where init() is called and all indexes that
+                //   are found in the store, instantiated and put into the IndexMap. Among them is index X.
+                // - While we recover the database we bump into a transaction creating index Y, with the
+                //   same IndexDescriptor, i.e. same label/property, as X. This is possible since this took
+                //   place before the creation of X.
+                // - When Y is dropped in between this creation and the creation of X (it will have to be
+                //   otherwise X wouldn't have had an opportunity to be created) the index is removed from
+                //   the IndexMap, both by id AND descriptor.
+                //
+                // Because of the scenario above we need to put this created index into the IndexMap
+                // again, otherwise it will disappear from the IndexMap (at least for lookup by descriptor)
+                // and not be able to accept changes applied from recovery later on.
+                indexMap.putIndexProxy( ruleId, index );
+                continue;
+            }
+            final IndexDescriptor descriptor = new IndexDescriptor( rule.getLabel(), rule.getPropertyKeys() );
+            SchemaIndexProvider.Descriptor providerDescriptor = rule.getProviderDescriptor();
+            boolean constraint = rule.isConstraintIndex();
+            if ( state == State.RUNNING )
             {
-                index = proxySetup.createPopulatingIndexProxy(
-                        ruleId, descriptor, providerDescriptor, constraint, monitor );
-                index.start();
+                try
+                {
+                    if ( populationJob == null )
+                    {
+                        populationJob = proxySetup.newIndexPopulationJob( monitor );
+                    }
+                    index = proxySetup.createPopulatingIndexProxy(
+                            ruleId, descriptor, providerDescriptor, constraint, monitor, populationJob );
+                    index.start();
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( e );
+                }
             }
-            catch ( IOException e )
+            else
             {
-                throw new RuntimeException( e );
+                index = proxySetup.createRecoveringIndexProxy( descriptor, providerDescriptor, constraint );
             }
-        }
-        else
-        {
-            index = proxySetup.createRecoveringIndexProxy( descriptor, providerDescriptor, constraint );
+
+            indexMap.putIndexProxy( rule.getId(), index );
         }
 
-        indexMap.putIndexProxy( rule.getId(), index );
         indexMapRef.setIndexMap( indexMap );
+        if ( populationJob != null )
+        {
+            proxySetup.startIndexPopulation( populationJob );
+        }
     }
 
     @Override
@@ -483,7 +515,7 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
         try
         {
             Map<IndexDescriptor,List<NodePropertyUpdate>> updatesByIndex =
-                    groupUpdatesByIndexDescriptor( updates, updaterMap );
+                    groupUpdatesByIndexDescriptor( updates, updaterMap, storeView );
 
             if ( updatesByIndex.isEmpty() )
             {
@@ -635,13 +667,18 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
     }
 
     private static Map<IndexDescriptor,List<NodePropertyUpdate>> groupUpdatesByIndexDescriptor(
-            Iterable<NodePropertyUpdate> updates, IndexUpdaterMap updaterMap )
+            Iterable<NodePropertyUpdate> updates, IndexUpdaterMap updaterMap, PropertyAccessor store )
     {
         int numberOfIndexes = updaterMap.numberOfIndexes();
         Map<IndexDescriptor,List<NodePropertyUpdate>> updatesByIndex = new HashMap<>( numberOfIndexes, 1 );
+        CompositeIndexUpdates compositeUpdates = new CompositeIndexUpdates( updaterMap.compositeIndexes() );
 
         for ( NodePropertyUpdate update : updates )
         {
+            if ( !compositeUpdates.isEmpty() )
+            {
+                compositeUpdates.add( update );
+            }
             int propertyKeyId = update.getPropertyKeyId();
             switch ( update.getUpdateMode() )
             {
@@ -692,6 +729,7 @@ public class IndexingService extends LifecycleAdapter implements PrimitiveLongVi
                 break;
             }
         }
+        compositeUpdates.groupInto( updatesByIndex, store );
 
         return updatesByIndex;
     }
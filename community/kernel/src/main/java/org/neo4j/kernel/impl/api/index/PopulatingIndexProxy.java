@@ -33,55 +33,42 @@ import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelExceptio
 import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
-import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.index.Reservation;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
-import org.neo4j.kernel.impl.api.UpdateableSchemaState;
-import org.neo4j.kernel.impl.util.JobScheduler;
-import org.neo4j.logging.LogProvider;
 
 import static org.neo4j.helpers.collection.IteratorUtil.emptyIterator;
-import static org.neo4j.kernel.impl.util.JobScheduler.Groups.indexPopulation;
 
 
 public class PopulatingIndexProxy implements IndexProxy
 {
-    private final JobScheduler scheduler;
     private final IndexDescriptor descriptor;
     private final SchemaIndexProvider.Descriptor providerDescriptor;
     private final IndexPopulationJob job;
+    private final IndexPopulationJob.IndexPopulation population;
     private final IndexConfiguration configuration;
 
-    public PopulatingIndexProxy( JobScheduler scheduler,
-                                 IndexDescriptor descriptor,
+    public PopulatingIndexProxy( IndexDescriptor descriptor,
                                  IndexConfiguration configuration,
-                                 FailedIndexProxyFactory failureDelegateFactory,
-                                 IndexPopulator writer,
-                                 FlippableIndexProxy flipper,
-                                 IndexStoreView storeView,
-                                 UpdateableSchemaState updateableSchemaState,
-                                 LogProvider logProvider,
-                                 String indexUserDescription,
                                  SchemaIndexProvider.Descriptor providerDescriptor,
-                                 IndexingService.Monitor monitor )
+                                 IndexPopulationJob job,
+                                 IndexPopulationJob.IndexPopulation population )
     {
-        this.scheduler = scheduler;
         this.descriptor = descriptor;
         this.configuration = configuration;
         this.providerDescriptor = providerDescriptor;
-        this.job = new IndexPopulationJob( descriptor, configuration, providerDescriptor,
-                indexUserDescription, failureDelegateFactory, writer, flipper, storeView,
-                updateableSchemaState, logProvider, monitor );
+        this.job = job;
+        this.population = population;
     }
 
     @Override
     public void start()
     {
-        scheduler.schedule( indexPopulation, job );
+        // The population job may be shared with other indexes and is started by whoever created it,
+        // once all of its populations have been added
     }
 
     @Override
@@ -96,7 +83,7 @@ public class PopulatingIndexProxy implements IndexProxy
                     @Override
                     public void process( NodePropertyUpdate update ) throws IOException, IndexEntryConflictException
                     {
-                        job.update( update );
+                        population.update( update );
                     }
                 };
             default:
@@ -114,7 +101,7 @@ public class PopulatingIndexProxy implements IndexProxy
     @Override
     public Future<Void> drop()
     {
-        return job.cancel();
+        return population.cancel();
     }
 
     @Override
@@ -150,32 +137,32 @@ public class PopulatingIndexProxy implements IndexProxy
     @Override
     public Future<Void> close()
     {
-        return job.cancel();
+        return population.cancel();
     }
 
     @Override
     public IndexReader newReader() throws IndexNotFoundKernelException
     {
-        throw new IndexNotFoundKernelException( "Index is still populating: " + job );
+        throw new IndexNotFoundKernelException( "Index is still populating: " + population );
     }
 
     @Override
     public boolean awaitStoreScanCompleted() throws IndexPopulationFailedKernelException, InterruptedException
     {
-        job.awaitCompletion();
+        population.awaitCompletion();
         return true;
     }
 
     @Override
     public void activate() throws IndexActivationFailedKernelException
     {
-        throw new IllegalStateException( "Cannot activate index while it is still populating: " + job );
+        throw new IllegalStateException( "Cannot activate index while it is still populating: " + population );
     }
 
     @Override
     public void validate()
     {
-        throw new IllegalStateException( "Cannot validate index while it is still populating: " + job );
+        throw new IllegalStateException( "Cannot validate index while it is still populating: " + population );
     }
 
     @Override
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.api.operations;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.cursor.NodeItem;
 import org.neo4j.kernel.api.cursor.RelationshipItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
@@ -85,6 +86,16 @@ public interface EntityReadOperations
             String prefix )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Returns a cursor over the matched nodes, together with their values of the indexed property.
+     *
+     * @throws IndexNotFoundKernelException if no such index found.
+     */
+    Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( KernelStatement state,
+            IndexDescriptor index,
+            String prefix )
+            throws IndexNotFoundKernelException;
+
     /**
      * Returns an iterable with the matched nodes.
      *
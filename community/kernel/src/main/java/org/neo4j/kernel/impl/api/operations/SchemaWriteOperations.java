@@ -45,6 +45,13 @@ public interface SchemaWriteOperations
     IndexDescriptor indexCreate( KernelStatement state, int labelId, int propertyKeyId )
             throws AlreadyIndexedException, AlreadyConstrainedException;
 
+    /**
+     * Creates a composite index, indexing the properties with all of the given {@code propertyKeyIds} together, in
+     * order, for nodes with the given {@code labelId}.
+     */
+    IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeyIds )
+            throws AlreadyIndexedException, AlreadyConstrainedException;
+
     /** Drops a {@link IndexDescriptor} from the database */
     void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException;
 
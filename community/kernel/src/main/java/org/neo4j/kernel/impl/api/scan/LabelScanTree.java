@@ -0,0 +1,747 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+/**
+ * A B+tree of long keys and long values, kept in a {@link PagedFile}. The {@link NativeLabelScanStore} keys it by
+ * label and node range, with a bitmap of the labeled nodes in the range as value.
+ *
+ * The tree is crash safe through copy-on-write between check points. The header page holds the root of the tree as
+ * of the latest {@link #checkpoint() check point}, and no page of that tree is changed in place. A page is instead
+ * copied the first time it is changed after a check point, along with the pages on the path up to the root, and
+ * the copy is changed in place until the next check point. So should the database crash, the tree of the latest
+ * check point is intact, and recovery replays the changes made after it. The pages that were copied become free
+ * for reuse at the next check point. The ids of the free pages are kept in a chain of pages of their own, written
+ * anew at every check point.
+ *
+ * Entries are removed when their value becomes 0, but pages are never merged, since the ranges of a label tend to
+ * be filled in again.
+ *
+ * The tree is not thread safe. Changes must not be made concurrently with other changes or reads.
+ */
+class LabelScanTree
+{
+    private static final long MAGIC = 0x4E4C_5353_5472_6565L;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final long HEADER_PAGE = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_VERSION_OFFSET = 8;
+    private static final int PAGE_SIZE_OFFSET = 12;
+    private static final int ROOT_OFFSET = 16;
+    private static final int GENERATION_OFFSET = 24;
+    private static final int LAST_PAGE_OFFSET = 32;
+    private static final int FREE_LIST_OFFSET = 40;
+
+    private static final int NEXT_FREE_LIST_PAGE_OFFSET = 0;
+    private static final int FREE_PAGE_COUNT_OFFSET = 8;
+    private static final int FREE_PAGES_OFFSET = 16;
+    private static final long NO_PAGE = -1;
+
+    private static final byte LEAF = 1, INTERNAL = 2;
+    private static final int TYPE_OFFSET = 0;
+    private static final int KEY_COUNT_OFFSET = 4;
+    private static final int PAGE_GENERATION_OFFSET = 8;
+    private static final int NODE_HEADER_SIZE = 16;
+
+    private final PagedFile pagedFile;
+    private final int pageSize;
+    /** Number of key/value pairs in a leaf. */
+    private final int leafCapacity;
+    /** Number of keys in an internal node, which has one more child than keys. */
+    private final int internalCapacity;
+    private final int internalKeysOffset;
+    private final byte[] pageBuffer;
+    private final long[] scratchKeys, scratchValues;
+
+    private long root;
+    private long stableGeneration, unstableGeneration;
+    private long lastPageId;
+    /** Pages that are not part of the tree of the latest check point, and can be reused. */
+    private final PageIdStack freePages = new PageIdStack();
+    /**
+     * Pages that are part of the tree of the latest check point, but not of the current tree, since they have been
+     * replaced by copies. This includes the pages of the free list written at the latest check point.
+     */
+    private final PageIdStack replacedPages = new PageIdStack();
+
+    /** The separator key and new right sibling of the node that split in the latest insert, if it did. */
+    private long splitKey, splitRight;
+    /**
+     * The type of the node that split and the range of its scratch entries that go to the right sibling, which is
+     * written only once the cursor of the split node is closed, since a thread may have one cursor open at a time.
+     */
+    private byte splitType;
+    private int splitFrom, splitTo;
+
+    private LabelScanTree( PagedFile pagedFile )
+    {
+        this.pagedFile = pagedFile;
+        this.pageSize = pagedFile.pageSize();
+        this.leafCapacity = (pageSize - NODE_HEADER_SIZE) / 16;
+        this.internalCapacity = (pageSize - NODE_HEADER_SIZE - 8) / 16;
+        this.internalKeysOffset = NODE_HEADER_SIZE + (internalCapacity + 1) * 8;
+        this.pageBuffer = new byte[pageSize];
+        this.scratchKeys = new long[Math.max( leafCapacity, internalCapacity + 1 ) + 1];
+        this.scratchValues = new long[scratchKeys.length];
+    }
+
+    /**
+     * Creates a new and empty tree in the given file, which is check pointed right away.
+     */
+    static LabelScanTree create( PagedFile pagedFile ) throws IOException
+    {
+        LabelScanTree tree = new LabelScanTree( pagedFile );
+        tree.stableGeneration = 0;
+        tree.unstableGeneration = 1;
+        tree.lastPageId = HEADER_PAGE;
+        tree.root = tree.allocate();
+        try ( PageCursor cursor = tree.write( tree.root ) )
+        {
+            tree.initialize( cursor, LEAF );
+        }
+        tree.checkpoint();
+        return tree;
+    }
+
+    /**
+     * Opens the tree of the latest check point in the given file.
+     *
+     * @throws IOException if the file does not contain a tree in a format this class can read.
+     */
+    static LabelScanTree open( PagedFile pagedFile ) throws IOException
+    {
+        LabelScanTree tree = new LabelScanTree( pagedFile );
+        long freeList;
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE, PF_SHARED_LOCK ) )
+        {
+            if ( !cursor.next() )
+            {
+                throw new IOException( "Label scan store file " + pagedFile.file() + " is empty." );
+            }
+            long magic;
+            int formatVersion, pageSize;
+            do
+            {
+                magic = cursor.getLong( MAGIC_OFFSET );
+                formatVersion = cursor.getInt( FORMAT_VERSION_OFFSET );
+                pageSize = cursor.getInt( PAGE_SIZE_OFFSET );
+                tree.root = cursor.getLong( ROOT_OFFSET );
+                tree.stableGeneration = cursor.getLong( GENERATION_OFFSET );
+                tree.lastPageId = cursor.getLong( LAST_PAGE_OFFSET );
+                freeList = cursor.getLong( FREE_LIST_OFFSET );
+            }
+            while ( cursor.shouldRetry() );
+
+            if ( magic != MAGIC || formatVersion != FORMAT_VERSION || pageSize != tree.pageSize )
+            {
+                throw new IOException( "Label scan store file " + pagedFile.file() + " has an unknown format, " +
+                                       "or was written with a page size of " + pageSize + " rather than " +
+                                       tree.pageSize + "." );
+            }
+        }
+        tree.readFreeList( freeList );
+        tree.unstableGeneration = tree.stableGeneration + 1;
+        return tree;
+    }
+
+    /**
+     * Updates the value of the given key to {@code (value & ~clear) | set}, where the value of a key that is not in
+     * the tree is 0. The entry is removed if the new value is 0.
+     */
+    void update( long key, long set, long clear ) throws IOException
+    {
+        root = writable( root );
+        if ( update( root, key, set, clear ) )
+        {
+            long newRoot = allocate();
+            try ( PageCursor cursor = write( newRoot ) )
+            {
+                initialize( cursor, INTERNAL );
+                setKeyCount( cursor, 1 );
+                putChild( cursor, 0, root );
+                putChild( cursor, 1, splitRight );
+                putInternalKey( cursor, 0, splitKey );
+            }
+            root = newRoot;
+        }
+    }
+
+    /**
+     * Reads the entries with keys from {@code fromKey}, inclusive, up to {@code toKey}, exclusive, in key order,
+     * but no more than fits in the given arrays.
+     *
+     * @return the number of entries read, or {@code 0} if there are no more entries in the range.
+     */
+    int read( long fromKey, long toKey, long[] keys, long[] values ) throws IOException
+    {
+        long key = fromKey;
+        try ( PageCursor cursor = pagedFile.io( root, PF_SHARED_LOCK ) )
+        {
+            while ( key < toKey )
+            {
+                // The key after the keys of the current node, where to continue if its leaf has nothing for us
+                long upperBound = toKey;
+                long pageId = root;
+                while ( true )
+                {
+                    pin( cursor, pageId );
+                    boolean leaf;
+                    int count, read = 0;
+                    long child = -1, childUpperBound = upperBound;
+                    do
+                    {
+                        leaf = cursor.getByte( TYPE_OFFSET ) == LEAF;
+                        count = keyCount( cursor, leaf );
+                        if ( leaf )
+                        {
+                            read = 0;
+                            for ( int pos = leafPosition( cursor, count, key );
+                                  pos < count && read < keys.length; pos++, read++ )
+                            {
+                                long entryKey = leafKey( cursor, pos );
+                                if ( entryKey >= toKey )
+                                {
+                                    break;
+                                }
+                                keys[read] = entryKey;
+                                values[read] = leafValue( cursor, pos );
+                            }
+                        }
+                        else
+                        {
+                            int pos = childPosition( cursor, count, key );
+                            child = child( cursor, pos );
+                            childUpperBound = pos < count ? Math.min( upperBound, internalKey( cursor, pos ) )
+                                                          : upperBound;
+                        }
+                    }
+                    while ( cursor.shouldRetry() );
+
+                    if ( leaf )
+                    {
+                        if ( read > 0 )
+                        {
+                            return read;
+                        }
+                        break;
+                    }
+                    pageId = child;
+                    upperBound = childUpperBound;
+                }
+                key = upperBound;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Makes the changes since the previous check point durable, and the current tree the one to open after a crash.
+     */
+    void checkpoint() throws IOException
+    {
+        pagedFile.flushAndForce();
+        long freeList = writeFreeList();
+        pagedFile.flushAndForce();
+        stableGeneration = unstableGeneration;
+        try ( PageCursor cursor = write( HEADER_PAGE ) )
+        {
+            cursor.putLong( MAGIC_OFFSET, MAGIC );
+            cursor.putInt( FORMAT_VERSION_OFFSET, FORMAT_VERSION );
+            cursor.putInt( PAGE_SIZE_OFFSET, pageSize );
+            cursor.putLong( ROOT_OFFSET, root );
+            cursor.putLong( GENERATION_OFFSET, stableGeneration );
+            cursor.putLong( LAST_PAGE_OFFSET, lastPageId );
+            cursor.putLong( FREE_LIST_OFFSET, freeList );
+        }
+        pagedFile.flushAndForce();
+        unstableGeneration = stableGeneration + 1;
+    }
+
+    /**
+     * Writes the ids of the free pages, and of the pages that become free with this check point, to a chain of
+     * pages taken from the free pages.
+     *
+     * @return the id of the first page of the chain.
+     */
+    private long writeFreeList() throws IOException
+    {
+        // The replaced pages are part of the tree of the header on disk until the new one is written, so the free
+        // list can only be written to pages that were free already
+        int freePagesPerPage = (pageSize - FREE_PAGES_OFFSET) / 8;
+        PageIdStack listPages = new PageIdStack();
+        while ( (long) listPages.size() * freePagesPerPage < freePages.size() + replacedPages.size() )
+        {
+            listPages.push( allocate() );
+        }
+        freePages.pushAll( replacedPages );
+        replacedPages.clear();
+
+        long next = NO_PAGE;
+        int remaining = freePages.size();
+        for ( int i = 0; i < listPages.size(); i++ )
+        {
+            long pageId = listPages.get( i );
+            int count = Math.min( remaining, freePagesPerPage );
+            try ( PageCursor cursor = write( pageId ) )
+            {
+                cursor.putLong( NEXT_FREE_LIST_PAGE_OFFSET, next );
+                cursor.putInt( FREE_PAGE_COUNT_OFFSET, count );
+                for ( int j = 0; j < count; j++ )
+                {
+                    cursor.putLong( FREE_PAGES_OFFSET + j * 8, freePages.get( --remaining ) );
+                }
+            }
+            next = pageId;
+        }
+
+        // The pages of the list are free after the next check point, when it is no longer in use
+        replacedPages.pushAll( listPages );
+        return next;
+    }
+
+    private void readFreeList( long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE, PF_SHARED_LOCK ) )
+        {
+            for ( int pages = 0; pageId != NO_PAGE; pages++ )
+            {
+                if ( pageId <= HEADER_PAGE || pageId > lastPageId || pages > lastPageId )
+                {
+                    throw new IOException( "Label scan store file " + pagedFile.file() + " has a broken free list." );
+                }
+                replacedPages.push( pageId );
+                pin( cursor, pageId );
+                int size = freePages.size();
+                long next;
+                int count;
+                do
+                {
+                    freePages.truncate( size );
+                    next = cursor.getLong( NEXT_FREE_LIST_PAGE_OFFSET );
+                    count = Math.min( Math.max( cursor.getInt( FREE_PAGE_COUNT_OFFSET ), 0 ),
+                            (pageSize - FREE_PAGES_OFFSET) / 8 );
+                    for ( int i = 0; i < count; i++ )
+                    {
+                        freePages.push( cursor.getLong( FREE_PAGES_OFFSET + i * 8 ) );
+                    }
+                }
+                while ( cursor.shouldRetry() );
+                pageId = next;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the given node was split, in which case {@link #splitKey} and {@link #splitRight}
+     * tell how.
+     */
+    private boolean update( long pageId, long key, long set, long clear ) throws IOException
+    {
+        if ( !updateNode( pageId, key, set, clear ) )
+        {
+            return false;
+        }
+        splitRight = allocate();
+        try ( PageCursor right = write( splitRight ) )
+        {
+            initialize( right, splitType );
+            if ( splitType == LEAF )
+            {
+                writeLeafEntries( right, splitFrom, splitTo );
+            }
+            else
+            {
+                writeInternalEntries( right, splitFrom, splitTo );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the given node was split, in which case its left half is written, and the scratch
+     * entries from {@link #splitFrom} to {@link #splitTo} are to be written to a new right sibling.
+     */
+    private boolean updateNode( long pageId, long key, long set, long clear ) throws IOException
+    {
+        int pos;
+        long child;
+        try ( PageCursor cursor = write( pageId ) )
+        {
+            if ( cursor.getByte( TYPE_OFFSET ) == LEAF )
+            {
+                return updateLeaf( cursor, key, set, clear );
+            }
+            pos = childPosition( cursor, keyCount( cursor, false ), key );
+            child = child( cursor, pos );
+        }
+
+        long writableChild = writable( child );
+        if ( writableChild != child )
+        {
+            try ( PageCursor cursor = write( pageId ) )
+            {
+                putChild( cursor, pos, writableChild );
+            }
+        }
+        if ( !update( writableChild, key, set, clear ) )
+        {
+            return false;
+        }
+        try ( PageCursor cursor = write( pageId ) )
+        {
+            return insertInInternal( cursor, pos, splitKey, splitRight );
+        }
+    }
+
+    private boolean updateLeaf( PageCursor cursor, long key, long set, long clear )
+    {
+        int count = keyCount( cursor, true );
+        int pos = leafPosition( cursor, count, key );
+        if ( pos < count && leafKey( cursor, pos ) == key )
+        {
+            long value = (leafValue( cursor, pos ) & ~clear) | set;
+            if ( value != 0 )
+            {
+                putLeafValue( cursor, pos, value );
+            }
+            else
+            {
+                move( cursor, leafOffset( pos + 1 ), leafOffset( pos ), (count - pos - 1) * 16 );
+                setKeyCount( cursor, count - 1 );
+            }
+            return false;
+        }
+        if ( set == 0 )
+        {
+            return false;
+        }
+
+        if ( count < leafCapacity )
+        {
+            move( cursor, leafOffset( pos ), leafOffset( pos + 1 ), (count - pos) * 16 );
+            putLeafKey( cursor, pos, key );
+            putLeafValue( cursor, pos, set );
+            setKeyCount( cursor, count + 1 );
+            return false;
+        }
+
+        // Split, the left half stays in this page and the right half moves to a new one
+        for ( int i = 0, j = 0; i <= count; i++ )
+        {
+            if ( i == pos )
+            {
+                scratchKeys[i] = key;
+                scratchValues[i] = set;
+            }
+            else
+            {
+                scratchKeys[i] = leafKey( cursor, j );
+                scratchValues[i] = leafValue( cursor, j++ );
+            }
+        }
+        int middle = (count + 1) / 2;
+        writeLeafEntries( cursor, 0, middle );
+        splitKey = scratchKeys[middle];
+        splitType = LEAF;
+        splitFrom = middle;
+        splitTo = count + 1;
+        return true;
+    }
+
+    private void writeLeafEntries( PageCursor cursor, int from, int to )
+    {
+        for ( int i = from; i < to; i++ )
+        {
+            putLeafKey( cursor, i - from, scratchKeys[i] );
+            putLeafValue( cursor, i - from, scratchValues[i] );
+        }
+        setKeyCount( cursor, to - from );
+    }
+
+    /**
+     * Inserts the given key at the given position, with the given child to the right of it.
+     */
+    private boolean insertInInternal( PageCursor cursor, int pos, long key, long rightChild )
+    {
+        int count = keyCount( cursor, false );
+        if ( count < internalCapacity )
+        {
+            move( cursor, internalKeyOffset( pos ), internalKeyOffset( pos + 1 ), (count - pos) * 8 );
+            move( cursor, childOffset( pos + 1 ), childOffset( pos + 2 ), (count - pos) * 8 );
+            putInternalKey( cursor, pos, key );
+            putChild( cursor, pos + 1, rightChild );
+            setKeyCount( cursor, count + 1 );
+            return false;
+        }
+
+        // Split, the middle key moves up to the parent. Scratch values hold the children here
+        for ( int i = 0, j = 0; i <= count; i++ )
+        {
+            scratchKeys[i] = i == pos ? key : internalKey( cursor, j++ );
+        }
+        for ( int i = 0, j = 0; i <= count + 1; i++ )
+        {
+            scratchValues[i] = i == pos + 1 ? rightChild : child( cursor, j++ );
+        }
+        int middle = (count + 1) / 2;
+        writeInternalEntries( cursor, 0, middle );
+        splitKey = scratchKeys[middle];
+        splitType = INTERNAL;
+        splitFrom = middle + 1;
+        splitTo = count + 1;
+        return true;
+    }
+
+    private void writeInternalEntries( PageCursor cursor, int from, int to )
+    {
+        for ( int i = from; i < to; i++ )
+        {
+            putInternalKey( cursor, i - from, scratchKeys[i] );
+            putChild( cursor, i - from, scratchValues[i] );
+        }
+        putChild( cursor, to - from, scratchValues[to] );
+        setKeyCount( cursor, to - from );
+    }
+
+    /**
+     * @return the id of a page with the contents of the given page that may be changed in place, which is the given
+     * page itself if it has been written since the latest check point, or a copy of it otherwise.
+     */
+    private long writable( long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = write( pageId ) )
+        {
+            if ( cursor.getLong( PAGE_GENERATION_OFFSET ) == unstableGeneration )
+            {
+                return pageId;
+            }
+            cursor.getBytes( pageBuffer );
+        }
+        long copy = allocate();
+        try ( PageCursor cursor = write( copy ) )
+        {
+            cursor.putBytes( pageBuffer );
+            cursor.putLong( PAGE_GENERATION_OFFSET, unstableGeneration );
+        }
+        replacedPages.push( pageId );
+        return copy;
+    }
+
+    private long allocate()
+    {
+        return freePages.size() > 0 ? freePages.pop() : ++lastPageId;
+    }
+
+    private void initialize( PageCursor cursor, byte type )
+    {
+        cursor.putByte( TYPE_OFFSET, type );
+        cursor.putInt( KEY_COUNT_OFFSET, 0 );
+        cursor.putLong( PAGE_GENERATION_OFFSET, unstableGeneration );
+    }
+
+    private PageCursor write( long pageId ) throws IOException
+    {
+        PageCursor cursor = pagedFile.io( pageId, PF_EXCLUSIVE_LOCK );
+        pin( cursor, pageId );
+        return cursor;
+    }
+
+    private void pin( PageCursor cursor, long pageId ) throws IOException
+    {
+        if ( !cursor.next( pageId ) )
+        {
+            cursor.close();
+            throw new IOException( "Could not pin page " + pageId + " of " + pagedFile.file() );
+        }
+    }
+
+    private void move( PageCursor cursor, int from, int to, int length )
+    {
+        if ( length > 0 )
+        {
+            cursor.setOffset( from );
+            cursor.getBytes( pageBuffer, 0, length );
+            cursor.setOffset( to );
+            cursor.putBytes( pageBuffer, 0, length );
+        }
+    }
+
+    private int keyCount( PageCursor cursor, boolean leaf )
+    {
+        // Clamped, since an optimistic read may see any value
+        return Math.min( Math.max( cursor.getInt( KEY_COUNT_OFFSET ), 0 ), leaf ? leafCapacity : internalCapacity );
+    }
+
+    private void setKeyCount( PageCursor cursor, int count )
+    {
+        cursor.putInt( KEY_COUNT_OFFSET, count );
+    }
+
+    /** @return the position of the first key that is equal to or greater than the given key. */
+    private int leafPosition( PageCursor cursor, int count, long key )
+    {
+        int low = 0, high = count;
+        while ( low < high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( leafKey( cursor, mid ) < key )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** @return the position of the child that covers the given key, that of the first key greater than it. */
+    private int childPosition( PageCursor cursor, int count, long key )
+    {
+        int low = 0, high = count;
+        while ( low < high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( internalKey( cursor, mid ) <= key )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int leafOffset( int pos )
+    {
+        return NODE_HEADER_SIZE + pos * 16;
+    }
+
+    private long leafKey( PageCursor cursor, int pos )
+    {
+        return cursor.getLong( leafOffset( pos ) );
+    }
+
+    private void putLeafKey( PageCursor cursor, int pos, long key )
+    {
+        cursor.putLong( leafOffset( pos ), key );
+    }
+
+    private long leafValue( PageCursor cursor, int pos )
+    {
+        return cursor.getLong( leafOffset( pos ) + 8 );
+    }
+
+    private void putLeafValue( PageCursor cursor, int pos, long value )
+    {
+        cursor.putLong( leafOffset( pos ) + 8, value );
+    }
+
+    private static int childOffset( int pos )
+    {
+        return NODE_HEADER_SIZE + pos * 8;
+    }
+
+    private long child( PageCursor cursor, int pos )
+    {
+        return cursor.getLong( childOffset( pos ) );
+    }
+
+    private void putChild( PageCursor cursor, int pos, long child )
+    {
+        cursor.putLong( childOffset( pos ), child );
+    }
+
+    private int internalKeyOffset( int pos )
+    {
+        return internalKeysOffset + pos * 8;
+    }
+
+    private long internalKey( PageCursor cursor, int pos )
+    {
+        return cursor.getLong( internalKeyOffset( pos ) );
+    }
+
+    private void putInternalKey( PageCursor cursor, int pos, long key )
+    {
+        cursor.putLong( internalKeyOffset( pos ), key );
+    }
+
+    private static class PageIdStack
+    {
+        private long[] ids = new long[16];
+        private int size;
+
+        void push( long id )
+        {
+            if ( size == ids.length )
+            {
+                ids = Arrays.copyOf( ids, size * 2 );
+            }
+            ids[size++] = id;
+        }
+
+        void pushAll( PageIdStack other )
+        {
+            for ( int i = 0; i < other.size; i++ )
+            {
+                push( other.ids[i] );
+            }
+        }
+
+        long pop()
+        {
+            return ids[--size];
+        }
+
+        long get( int index )
+        {
+            return ids[index];
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        void truncate( int size )
+        {
+            this.size = size;
+        }
+
+        void clear()
+        {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,604 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.api.direct.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.direct.NodeLabelRange;
+import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
+import org.neo4j.kernel.api.labelscan.LabelScanReader;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.neo4j.helpers.collection.IteratorUtil.resourceIterator;
+
+/**
+ * {@link LabelScanStore} that keeps its label to node mappings in a {@link LabelScanTree}, mapped through the
+ * {@link PageCache}, rather than in a Lucene index. The nodes of a label are kept in bitmaps of
+ * {@value #RANGE_SIZE} nodes each, keyed by label and range.
+ *
+ * Changes are made durable by {@link #force()}, which is called at check points, so changes since the latest
+ * check point are lost in a crash and are applied again by recovery. The store is rebuilt from the node store if
+ * it is missing or can not be read.
+ *
+ * Readers don't see a snapshot of the store, but read it in batches, so a reader may see changes that are applied
+ * while it is open.
+ */
+public class NativeLabelScanStore implements LabelScanStore
+{
+    static final int RANGE_SIZE = Long.SIZE;
+    static final String FILE_NAME = "labelscanstore.db";
+
+    private static final int RANGE_SHIFT = Integer.numberOfTrailingZeros( RANGE_SIZE );
+    private static final int READ_BATCH_SIZE = 64;
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File directory;
+    private final File storeFile;
+    // We get in a full store stream here in case we need to fully rebuild the store if it's missing or corrupted.
+    private final FullStoreChangeStream fullStoreStream;
+    private final Monitor monitor;
+    private final ReadWriteLock treeLock = new ReentrantReadWriteLock();
+    private final Lock writerLock = new ReentrantLock( true );
+    // Check points wait for all permits, so that no check point changes the store file while a snapshot is open
+    private final Semaphore checkpointPermits = new Semaphore( Integer.MAX_VALUE, true );
+    private PagedFile pagedFile;
+    private LabelScanTree tree;
+    private boolean needsRebuild;
+
+    public interface Monitor
+    {
+        void init();
+
+        void noIndex();
+
+        void corruptIndex( IOException e );
+
+        void rebuilding();
+
+        void rebuilt( long roughNodeCount );
+    }
+
+    public static Monitor loggerMonitor( LogProvider logProvider )
+    {
+        final Log log = logProvider.getLog( NativeLabelScanStore.class );
+        return new Monitor()
+        {
+            @Override
+            public void init()
+            {   // Don't log anything here
+            }
+
+            @Override
+            public void noIndex()
+            {
+                log.info( "No native label scan store found, this might just be first use. Preparing to rebuild." );
+            }
+
+            @Override
+            public void corruptIndex( IOException corruptionException )
+            {
+                log.warn( "Native label scan store could not be read. Preparing to rebuild.", corruptionException );
+            }
+
+            @Override
+            public void rebuilding()
+            {
+                log.info( "Rebuilding native label scan store, this may take a while" );
+            }
+
+            @Override
+            public void rebuilt( long highNodeId )
+            {
+                log.info( "Native label scan store rebuilt (roughly " + highNodeId + " nodes)" );
+            }
+        };
+    }
+
+    public NativeLabelScanStore( PageCache pageCache, FileSystemAbstraction fs, File directory,
+            FullStoreChangeStream fullStoreStream, Monitor monitor )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.directory = directory;
+        this.storeFile = new File( directory, FILE_NAME );
+        this.fullStoreStream = fullStoreStream;
+        this.monitor = monitor;
+    }
+
+    static long key( long labelId, long rangeId )
+    {
+        return (labelId << Integer.SIZE) | rangeId;
+    }
+
+    static long labelOf( long key )
+    {
+        return key >>> Integer.SIZE;
+    }
+
+    static long rangeOf( long nodeId )
+    {
+        return nodeId >>> RANGE_SHIFT;
+    }
+
+    static long firstNodeOf( long key )
+    {
+        return (key & 0xFFFF_FFFFL) << RANGE_SHIFT;
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        monitor.init();
+        fs.mkdirs( directory );
+        boolean exists = fs.fileExists( storeFile );
+        pagedFile = pageCache.map( storeFile, pageCache.pageSize(), StandardOpenOption.CREATE );
+        if ( !exists )
+        {
+            monitor.noIndex();
+            tree = LabelScanTree.create( pagedFile );
+            needsRebuild = true;
+            return;
+        }
+
+        try
+        {
+            tree = LabelScanTree.open( pagedFile );
+        }
+        catch ( IOException e )
+        {
+            // The store can always be rebuilt from the node store, so start over with an empty one
+            monitor.corruptIndex( e );
+            pagedFile.close();
+            fs.deleteFile( storeFile );
+            pagedFile = pageCache.map( storeFile, pageCache.pageSize(), StandardOpenOption.CREATE );
+            tree = LabelScanTree.create( pagedFile );
+            needsRebuild = true;
+        }
+    }
+
+    @Override
+    public void start() throws IOException, IndexCapacityExceededException
+    {
+        if ( needsRebuild )
+        {   // we saw in init() that we need to rebuild the store, so do it here after the
+            // neostore has been properly started.
+            monitor.rebuilding();
+            try ( LabelScanWriter writer = newWriter() )
+            {
+                for ( NodeLabelUpdate update : fullStoreStream )
+                {
+                    writer.write( update );
+                }
+            }
+            force();
+            monitor.rebuilt( fullStoreStream.highestNodeId() );
+            needsRebuild = false;
+        }
+    }
+
+    @Override
+    public void stop()
+    {   // Not needed
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        if ( pagedFile != null )
+        {
+            force();
+            pagedFile.close();
+            pagedFile = null;
+            tree = null;
+        }
+    }
+
+    @Override
+    public void force()
+    {
+        checkpointPermits.acquireUninterruptibly( Integer.MAX_VALUE );
+        try
+        {
+            treeLock.writeLock().lock();
+            try
+            {
+                tree.checkpoint();
+            }
+            finally
+            {
+                treeLock.writeLock().unlock();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        finally
+        {
+            checkpointPermits.release( Integer.MAX_VALUE );
+        }
+    }
+
+    @Override
+    public LabelScanWriter newWriter()
+    {
+        // Only a single writer is allowed at any point in time. For that this lock is used and passed
+        // onto the writer to release in its close()
+        writerLock.lock();
+        return new NativeLabelScanWriter( this, writerLock );
+    }
+
+    /**
+     * Applies the given changes, sorted by key, to the store.
+     *
+     * @see LabelScanTree#update(long, long, long)
+     */
+    void apply( long[] keys, long[] sets, long[] clears, int count ) throws IOException
+    {
+        treeLock.writeLock().lock();
+        try
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                tree.update( keys[i], sets[i], clears[i] );
+            }
+        }
+        finally
+        {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    private int read( long fromKey, long toKey, long[] keys, long[] values )
+    {
+        treeLock.readLock().lock();
+        try
+        {
+            return tree.read( fromKey, toKey, keys, values );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        finally
+        {
+            treeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of all labels that have nodes in this store, in ascending order.
+     */
+    private long[] labels()
+    {
+        long[] labels = new long[16];
+        int count = 0;
+        long[] key = new long[1], value = new long[1];
+        long fromKey = 0;
+        while ( read( fromKey, Long.MAX_VALUE, key, value ) > 0 )
+        {
+            long labelId = labelOf( key[0] );
+            if ( count == labels.length )
+            {
+                labels = Arrays.copyOf( labels, count * 2 );
+            }
+            labels[count++] = labelId;
+            fromKey = key( labelId + 1, 0 );
+        }
+        return Arrays.copyOf( labels, count );
+    }
+
+    @Override
+    public LabelScanReader newReader()
+    {
+        return new LabelScanReader()
+        {
+            @Override
+            public PrimitiveLongIterator nodesWithLabel( int labelId )
+            {
+                final EntryCursor cursor = new EntryCursor( labelId );
+                return new PrimitiveLongBaseIterator()
+                {
+                    private long firstNode, bits;
+
+                    @Override
+                    protected boolean fetchNext()
+                    {
+                        while ( bits == 0 )
+                        {
+                            if ( !cursor.next() )
+                            {
+                                return false;
+                            }
+                            firstNode = firstNodeOf( cursor.key() );
+                            bits = cursor.value();
+                        }
+                        long nodeId = firstNode + Long.numberOfTrailingZeros( bits );
+                        bits &= bits - 1;
+                        return next( nodeId );
+                    }
+                };
+            }
+
+            @Override
+            public Iterator<Long> labelsForNode( long nodeId )
+            {
+                List<Long> result = new ArrayList<>();
+                long[] key = new long[1], value = new long[1];
+                long bit = 1L << (nodeId & (RANGE_SIZE - 1));
+                for ( long labelId : labels() )
+                {
+                    long nodeKey = key( labelId, rangeOf( nodeId ) );
+                    if ( read( nodeKey, nodeKey + 1, key, value ) > 0 && (value[0] & bit) != 0 )
+                    {
+                        result.add( labelId );
+                    }
+                }
+                return result.iterator();
+            }
+
+            @Override
+            public void close()
+            {   // Nothing to close
+            }
+        };
+    }
+
+    @Override
+    public AllEntriesLabelScanReader newAllEntriesReader()
+    {
+        return new AllEntriesLabelScanReader()
+        {
+            @Override
+            public Iterator<NodeLabelRange> iterator()
+            {
+                long[] labels = labels();
+                final EntryCursor[] cursors = new EntryCursor[labels.length];
+                for ( int i = 0; i < labels.length; i++ )
+                {
+                    cursors[i] = new EntryCursor( labels[i] );
+                    if ( !cursors[i].next() )
+                    {
+                        cursors[i] = null;
+                    }
+                }
+
+                return new PrefetchingIterator<NodeLabelRange>()
+                {
+                    private int id;
+
+                    @Override
+                    protected NodeLabelRange fetchNextOrNull()
+                    {
+                        long range = Long.MAX_VALUE;
+                        for ( EntryCursor cursor : cursors )
+                        {
+                            if ( cursor != null )
+                            {
+                                range = Math.min( range, cursor.key() & 0xFFFF_FFFFL );
+                            }
+                        }
+                        if ( range == Long.MAX_VALUE )
+                        {
+                            return null;
+                        }
+
+                        long[][] labelsOfNodes = new long[RANGE_SIZE][];
+                        int[] labelCounts = new int[RANGE_SIZE];
+                        for ( int i = 0; i < cursors.length; i++ )
+                        {
+                            EntryCursor cursor = cursors[i];
+                            if ( cursor == null || (cursor.key() & 0xFFFF_FFFFL) != range )
+                            {
+                                continue;
+                            }
+                            for ( long bits = cursor.value(); bits != 0; bits &= bits - 1 )
+                            {
+                                int node = Long.numberOfTrailingZeros( bits );
+                                if ( labelsOfNodes[node] == null )
+                                {
+                                    labelsOfNodes[node] = new long[cursors.length];
+                                }
+                                labelsOfNodes[node][labelCounts[node]++] = labelOf( cursor.key() );
+                            }
+                            if ( !cursor.next() )
+                            {
+                                cursors[i] = null;
+                            }
+                        }
+                        return new NativeNodeLabelRange( id++, range << RANGE_SHIFT, labelsOfNodes, labelCounts );
+                    }
+                };
+            }
+
+            @Override
+            public long maxCount()
+            {
+                return rangeOf( fullStoreStream.highestNodeId() ) + 1;
+            }
+
+            @Override
+            public void close()
+            {   // Nothing to close
+            }
+        };
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotStoreFiles() throws IOException
+    {
+        // The store file is only changed in place at check points, so it's safe to copy while there's none
+        checkpointPermits.acquireUninterruptibly();
+        return resourceIterator( Arrays.asList( storeFile ).iterator(), new Resource()
+        {
+            private boolean closed;
+
+            @Override
+            public void close()
+            {
+                if ( !closed )
+                {
+                    closed = true;
+                    checkpointPermits.release();
+                }
+            }
+        } );
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + storeFile + "]";
+    }
+
+    /**
+     * Reads the entries of a label, a batch at a time.
+     */
+    private class EntryCursor
+    {
+        private final long toKey;
+        private final long[] keys = new long[READ_BATCH_SIZE];
+        private final long[] values = new long[READ_BATCH_SIZE];
+        private long fromKey;
+        private int count, index;
+
+        EntryCursor( long labelId )
+        {
+            this.fromKey = NativeLabelScanStore.key( labelId, 0 );
+            this.toKey = NativeLabelScanStore.key( labelId + 1, 0 );
+        }
+
+        boolean next()
+        {
+            if ( ++index < count )
+            {
+                return true;
+            }
+            if ( fromKey >= toKey )
+            {
+                return false;
+            }
+            count = read( fromKey, toKey, keys, values );
+            index = 0;
+            if ( count == 0 )
+            {
+                fromKey = toKey;
+                return false;
+            }
+            fromKey = keys[count - 1] + 1;
+            return true;
+        }
+
+        long key()
+        {
+            return keys[index];
+        }
+
+        long value()
+        {
+            return values[index];
+        }
+    }
+
+    private static class NativeNodeLabelRange implements NodeLabelRange
+    {
+        private final int id;
+        private final long[] nodes;
+        private final long[][] labels;
+
+        NativeNodeLabelRange( int id, long firstNode, long[][] labelsOfNodes, int[] labelCounts )
+        {
+            this.id = id;
+            int count = 0;
+            for ( long[] labelsOfNode : labelsOfNodes )
+            {
+                count += labelsOfNode != null ? 1 : 0;
+            }
+            this.nodes = new long[count];
+            this.labels = new long[count][];
+            for ( int i = 0, j = 0; i < labelsOfNodes.length; i++ )
+            {
+                if ( labelsOfNodes[i] != null )
+                {
+                    nodes[j] = firstNode + i;
+                    labels[j++] = Arrays.copyOf( labelsOfNodes[i], labelCounts[i] );
+                }
+            }
+        }
+
+        @Override
+        public int id()
+        {
+            return id;
+        }
+
+        @Override
+        public long[] nodes()
+        {
+            return nodes;
+        }
+
+        @Override
+        public long[] labels( long nodeId )
+        {
+            for ( int i = 0; i < nodes.length; i++ )
+            {
+                if ( nodes[i] == nodeId )
+                {
+                    return labels[i];
+                }
+            }
+            throw new IllegalArgumentException( "Unknown nodeId: " + nodeId );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "NodeLabelRange[id=" + id + ", nodes=" + Arrays.toString( nodes ) + "]";
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.File;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.api.scan.NativeLabelScanStore.Monitor;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.kernel.impl.transaction.state.NeoStoresSupplier;
+
+import static org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.fullStoreLabelUpdateStream;
+import static org.neo4j.kernel.impl.api.scan.NativeLabelScanStore.loggerMonitor;
+
+/**
+ * Provides the {@link NativeLabelScanStore}, with a priority above that of the Lucene label scan store if
+ * {@link GraphDatabaseSettings#native_label_scan_store} is enabled, and below it otherwise.
+ */
+@Service.Implementation(KernelExtensionFactory.class)
+public class NativeLabelScanStoreExtension extends KernelExtensionFactory<NativeLabelScanStoreExtension.Dependencies>
+{
+    public static final String NAME = "native-scan-store";
+
+    private final Monitor monitor;
+
+    public interface Dependencies
+    {
+        Config getConfig();
+
+        PageCache pageCache();
+
+        NeoStoresSupplier getNeoStoreSupplier();
+
+        LogService getLogService();
+    }
+
+    public NativeLabelScanStoreExtension()
+    {
+        this( null );
+    }
+
+    NativeLabelScanStoreExtension( Monitor monitor )
+    {
+        super( NAME );
+        this.monitor = monitor;
+    }
+
+    /**
+     * @return the directory of the native label scan store of the database in the given store directory.
+     */
+    public static File storeDirectory( File storeDir )
+    {
+        // <db>/schema/label/native
+        return new File( new File( new File( storeDir, "schema" ), "label" ), "native" );
+    }
+
+    @Override
+    public LabelScanStoreProvider newInstance( KernelContext context, Dependencies dependencies ) throws Throwable
+    {
+        File directory = storeDirectory( context.storeDir() );
+        boolean enabled = dependencies.getConfig().get( GraphDatabaseSettings.native_label_scan_store );
+        if ( !enabled )
+        {
+            // Whichever label scan store is used instead won't keep this one up to date, so make sure that it
+            // gets rebuilt, should it be enabled later on
+            context.fileSystem().deleteRecursively( directory );
+        }
+
+        NativeLabelScanStore scanStore = new NativeLabelScanStore( dependencies.pageCache(), context.fileSystem(),
+                directory, fullStoreLabelUpdateStream( dependencies.getNeoStoreSupplier() ),
+                monitor != null ? monitor : loggerMonitor( dependencies.getLogService().getInternalLogProvider() ) );
+
+        return new LabelScanStoreProvider( scanStore, enabled ? 100 : 0 );
+    }
+}
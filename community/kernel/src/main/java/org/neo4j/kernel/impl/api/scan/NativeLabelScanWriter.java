@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.neo4j.kernel.impl.api.scan.NativeLabelScanStore.RANGE_SIZE;
+import static org.neo4j.kernel.impl.api.scan.NativeLabelScanStore.key;
+import static org.neo4j.kernel.impl.api.scan.NativeLabelScanStore.rangeOf;
+
+/**
+ * Gathers the bits to set and clear per label and node range, and applies them to the
+ * {@link NativeLabelScanStore} in key order, a batch at a time.
+ */
+class NativeLabelScanWriter implements LabelScanWriter
+{
+    private static final int BATCH_SIZE = 1_000;
+
+    private final NativeLabelScanStore store;
+    private final Lock lock;
+    private final PrimitiveLongIntMap indexOfKey = Primitive.longIntMap( BATCH_SIZE );
+    private final long[] keys = new long[BATCH_SIZE];
+    private final long[] sets = new long[BATCH_SIZE];
+    private final long[] clears = new long[BATCH_SIZE];
+    private final long[] sortedKeys = new long[BATCH_SIZE];
+    private final long[] sortedSets = new long[BATCH_SIZE];
+    private final long[] sortedClears = new long[BATCH_SIZE];
+    private int count;
+
+    NativeLabelScanWriter( NativeLabelScanStore store, Lock lock )
+    {
+        this.store = store;
+        this.lock = lock;
+    }
+
+    @Override
+    public void write( NodeLabelUpdate update ) throws IOException
+    {
+        long nodeId = update.getNodeId();
+        long bit = 1L << (nodeId & (RANGE_SIZE - 1));
+        long[] before = update.getLabelsBefore();
+        long[] after = update.getLabelsAfter();
+        for ( long labelId : before )
+        {
+            if ( !contains( after, labelId ) )
+            {
+                change( key( labelId, rangeOf( nodeId ) ), 0, bit );
+            }
+        }
+        for ( long labelId : after )
+        {
+            if ( !contains( before, labelId ) )
+            {
+                change( key( labelId, rangeOf( nodeId ) ), bit, 0 );
+            }
+        }
+    }
+
+    private void change( long key, long set, long clear ) throws IOException
+    {
+        int index = indexOfKey.get( key );
+        if ( index == -1 )
+        {
+            if ( count == BATCH_SIZE )
+            {
+                flush();
+            }
+            index = count++;
+            indexOfKey.put( key, index );
+            keys[index] = key;
+            sets[index] = 0;
+            clears[index] = 0;
+        }
+        sets[index] = (sets[index] & ~clear) | set;
+        clears[index] = (clears[index] & ~set) | clear;
+    }
+
+    private void flush() throws IOException
+    {
+        System.arraycopy( keys, 0, sortedKeys, 0, count );
+        Arrays.sort( sortedKeys, 0, count );
+        for ( int i = 0; i < count; i++ )
+        {
+            int index = indexOfKey.get( sortedKeys[i] );
+            sortedSets[i] = sets[index];
+            sortedClears[i] = clears[index];
+        }
+        store.apply( sortedKeys, sortedSets, sortedClears, count );
+        indexOfKey.clear();
+        count = 0;
+    }
+
+    private static boolean contains( long[] labels, long labelId )
+    {
+        for ( long label : labels )
+        {
+            if ( label == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            indexOfKey.close();
+            lock.unlock();
+        }
+    }
+}
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.api.state;
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
+import org.neo4j.kernel.impl.util.diffsets.LongDiffSetsMemory;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.ReadableDiffSets;
 
 /**
@@ -49,15 +51,17 @@ public abstract class LabelState
 
     public static class Mutable extends LabelState
     {
-        private DiffSets<Long> nodeDiffSets;
+        private PrimitiveLongDiffSets nodeDiffSets;
         private DiffSets<IndexDescriptor> indexChanges;
         private DiffSets<IndexDescriptor> constraintIndexChanges;
         private DiffSets<NodePropertyConstraint> nodeConstraintsChanges;
         private final int labelId;
+        private final LongDiffSetsMemory diffSetsMemory;
 
-        private Mutable( int labelId )
+        private Mutable( int labelId, LongDiffSetsMemory diffSetsMemory )
         {
             this.labelId = labelId;
+            this.diffSetsMemory = diffSetsMemory;
         }
 
         public int getLabelId()
@@ -71,11 +75,11 @@ public abstract class LabelState
             return ReadableDiffSets.Empty.ifNull( nodeDiffSets );
         }
 
-        public DiffSets<Long> getOrCreateNodeDiffSets()
+        public PrimitiveLongDiffSets getOrCreateNodeDiffSets()
         {
             if ( nodeDiffSets == null )
             {
-                nodeDiffSets = new DiffSets<>();
+                nodeDiffSets = new PrimitiveLongDiffSets( diffSetsMemory );
             }
             return nodeDiffSets;
         }
@@ -126,12 +130,12 @@ public abstract class LabelState
         }
     }
 
-    static abstract class Defaults extends StateDefaults<Integer, LabelState, Mutable>
+    static abstract class Defaults extends StateDefaults<LabelState, Mutable>
     {
         @Override
-        Mutable createValue( Integer key, TxState state )
+        Mutable createValue( long key, TxState state )
         {
-            return new Mutable( key );
+            return new Mutable( (int) key, state.diffSetsMemory() );
         }
 
         @Override
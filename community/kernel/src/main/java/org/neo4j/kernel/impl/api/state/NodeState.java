@@ -48,6 +48,7 @@ import org.neo4j.kernel.impl.api.state.RelationshipChangesForNode.DiffStrategy;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.util.InstanceCache;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.ReadableDiffSets;
 
 /**
@@ -106,7 +107,7 @@ public interface NodeState extends PropertyContainerState
         private DiffSets<Integer> labelDiffSets;
         private RelationshipChangesForNode relationshipsAdded;
         private RelationshipChangesForNode relationshipsRemoved;
-        private Set<DiffSets<Long>> indexDiffs;
+        private Set<PrimitiveLongDiffSets> indexDiffs;
         private final TxState state;
 
         private Mutable( long id, TxState state )
@@ -348,16 +349,16 @@ public interface NodeState extends PropertyContainerState
             return UpdateTriState.UNTOUCHED;
         }
 
-        public void addIndexDiff( DiffSets<Long> diff )
+        public void addIndexDiff( PrimitiveLongDiffSets diff )
         {
             if ( indexDiffs == null )
             {
-                indexDiffs = Collections.newSetFromMap( new IdentityHashMap<DiffSets<Long>, Boolean>() );
+                indexDiffs = Collections.newSetFromMap( new IdentityHashMap<PrimitiveLongDiffSets, Boolean>() );
             }
             indexDiffs.add( diff );
         }
 
-        public void removeIndexDiff( DiffSets<Long> diff )
+        public void removeIndexDiff( PrimitiveLongDiffSets diff )
         {
             if ( indexDiffs != null )
             {
@@ -369,13 +370,13 @@ public interface NodeState extends PropertyContainerState
         {
             if ( indexDiffs != null )
             {
-                for ( DiffSets<Long> diff : indexDiffs )
+                for ( PrimitiveLongDiffSets diff : indexDiffs )
                 {
-                    if ( diff.getAdded().contains( nodeId ) )
+                    if ( diff.isAdded( nodeId ) )
                     {
                         diff.remove( nodeId );
                     }
-                    else if ( diff.getRemoved().contains( nodeId ) )
+                    else if ( diff.isRemoved( nodeId ) )
                     {
                         diff.add( nodeId );
                     }
@@ -384,10 +385,10 @@ public interface NodeState extends PropertyContainerState
         }
     }
 
-    abstract class Defaults extends StateDefaults<Long, NodeState, NodeState.Mutable>
+    abstract class Defaults extends StateDefaults<NodeState, NodeState.Mutable>
     {
         @Override
-        final Mutable createValue( Long id, TxState state )
+        final Mutable createValue( long id, TxState state )
         {
             return new Mutable( id, state );
         }
@@ -29,6 +29,7 @@ import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.function.Consumer;
@@ -70,6 +71,8 @@ import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.util.InstanceCache;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.DiffSetsVisitor;
+import org.neo4j.kernel.impl.util.diffsets.LongDiffSetsMemory;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.ReadableDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.ReadableRelationshipDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.RelationshipDiffSets;
@@ -93,47 +96,47 @@ import static org.neo4j.kernel.impl.api.PropertyValueComparison.SuperType.STRING
  */
 public final class TxState implements TransactionState, RelationshipVisitor.Home
 {
-    private Map<Integer/*Label ID*/, LabelState.Mutable> labelStatesMap;
+    private PrimitiveLongObjectMap<LabelState.Mutable> labelStatesMap;
     private static final LabelState.Defaults LABEL_STATE = new LabelState.Defaults()
     {
         @Override
-        Map<Integer, LabelState.Mutable> getMap( TxState state )
+        PrimitiveLongObjectMap<LabelState.Mutable> getMap( TxState state )
         {
             return state.labelStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Integer, LabelState.Mutable> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<LabelState.Mutable> map )
         {
             state.labelStatesMap = map;
         }
     };
-    private Map<Long/*Node ID*/, NodeState.Mutable> nodeStatesMap;
+    private PrimitiveLongObjectMap<NodeState.Mutable> nodeStatesMap;
     private static final NodeState.Defaults NODE_STATE = new NodeState.Defaults()
     {
         @Override
-        Map<Long, NodeState.Mutable> getMap( TxState state )
+        PrimitiveLongObjectMap<NodeState.Mutable> getMap( TxState state )
         {
             return state.nodeStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Long, NodeState.Mutable> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<NodeState.Mutable> map )
         {
             state.nodeStatesMap = map;
         }
     };
-    private Map<Long/*Relationship ID*/, RelationshipState.Mutable> relationshipStatesMap;
+    private PrimitiveLongObjectMap<RelationshipState.Mutable> relationshipStatesMap;
     private static final RelationshipState.Defaults RELATIONSHIP_STATE = new RelationshipState.Defaults()
     {
         @Override
-        Map<Long, RelationshipState.Mutable> getMap( TxState state )
+        PrimitiveLongObjectMap<RelationshipState.Mutable> getMap( TxState state )
         {
             return state.relationshipStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Long, RelationshipState.Mutable> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<RelationshipState.Mutable> map )
         {
             state.relationshipStatesMap = map;
         }
@@ -154,7 +157,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     private PropertyChanges propertyChangesForNodes;
 
     // Tracks added and removed nodes, not modified nodes
-    private DiffSets<Long> nodes;
+    private PrimitiveLongDiffSets nodes;
 
     // Tracks added and removed relationships, not modified relationships
     private RelationshipDiffSets<Long> relationships;
@@ -172,7 +175,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     private Map<String, Map<String, String>> createdNodeLegacyIndexes;
     private Map<String, Map<String, String>> createdRelationshipLegacyIndexes;
 
-    private PrimitiveIntObjectMap<Map<DefinedProperty, DiffSets<Long>>> indexUpdates;
+    private PrimitiveIntObjectMap<Map<DefinedProperty, PrimitiveLongDiffSets>> indexUpdates;
     private PrimitiveIntObjectMap<DiffSets<RelationshipPropertyConstraint>> relationshipConstraintChanges;
 
     private InstanceCache<TxIteratorNodeCursor> iteratorNodeCursor;
@@ -184,10 +187,24 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     private InstanceCache<TxLabelCursor> labelCursor;
     private InstanceCache<TxSingleLabelCursor> singleLabelCursor;
 
+    private final LongDiffSetsMemory diffSetsMemory;
+
     private boolean hasChanges, hasDataChanges;
 
     public TxState()
     {
+        this( LongDiffSetsMemory.ON_HEAP );
+    }
+
+    /**
+     * @param diffSetsMemory allocates the sets of node ids of added and removed nodes, label changes and index
+     * updates, which are moved off heap once they grow large. The rest of the state, like the property changes of
+     * each node and relationship, stays on heap. Diff sets built to answer a single
+     * query, f.ex. index range seeks, are short lived and always kept on heap instead.
+     */
+    public TxState( LongDiffSetsMemory diffSetsMemory )
+    {
+        this.diffSetsMemory = diffSetsMemory;
         singleNodeCursor = new InstanceCache<TxSingleNodeCursor>()
         {
             @Override
@@ -577,7 +594,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return NODE_STATE.values( this );
     }
 
-    private DiffSets<Long> getOrCreateLabelStateNodeDiffSets( int labelId )
+    private PrimitiveLongDiffSets getOrCreateLabelStateNodeDiffSets( int labelId )
     {
         return LABEL_STATE.getOrCreate( this, labelId ).getOrCreateNodeDiffSets();
     }
@@ -1089,11 +1106,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return ReadableDiffSets.Empty.ifNull( nodes );
     }
 
-    private DiffSets<Long> nodes()
+    private PrimitiveLongDiffSets nodes()
     {
         if ( nodes == null )
         {
-            nodes = new DiffSets<>();
+            nodes = new PrimitiveLongDiffSets( diffSetsMemory );
         }
         return nodes;
     }
@@ -1362,7 +1379,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
                                                                         Number lower, boolean includeLower,
                                                                         Number upper, boolean includeUpper )
     {
-        TreeMap<DefinedProperty, DiffSets<Long>> sortedUpdates = getSortedIndexUpdates( descriptor );
+        TreeMap<DefinedProperty, PrimitiveLongDiffSets> sortedUpdates = getSortedIndexUpdates( descriptor );
         if ( sortedUpdates == null )
         {
             return null;
@@ -1398,12 +1415,12 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             selectedIncludeUpper = includeUpper;
         }
 
-        DiffSets<Long> diffs = new DiffSets<>();
-        for ( Map.Entry<DefinedProperty,DiffSets<Long>> entry : sortedUpdates.subMap( selectedLower, selectedIncludeLower, selectedUpper, selectedIncludeUpper ).entrySet() )
+        PrimitiveLongDiffSets diffs = new PrimitiveLongDiffSets( LongDiffSetsMemory.ON_HEAP );
+        for ( Map.Entry<DefinedProperty,PrimitiveLongDiffSets> entry : sortedUpdates.subMap( selectedLower, selectedIncludeLower, selectedUpper, selectedIncludeUpper ).entrySet() )
         {
-            DiffSets<Long> diffSets = entry.getValue();
-            diffs.addAll( diffSets.getAdded().iterator() );
-            diffs.removeAll( diffSets.getRemoved().iterator() );
+            PrimitiveLongDiffSets diffSets = entry.getValue();
+            diffs.addAll( diffSets.addedIterator() );
+            diffs.removeAll( diffSets.removedIterator() );
         }
         return diffs;
     }
@@ -1422,7 +1439,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
                                                                         String lower, boolean includeLower,
                                                                         String upper, boolean includeUpper )
     {
-        TreeMap<DefinedProperty, DiffSets<Long>> sortedUpdates = getSortedIndexUpdates( descriptor );
+        TreeMap<DefinedProperty, PrimitiveLongDiffSets> sortedUpdates = getSortedIndexUpdates( descriptor );
         if ( sortedUpdates == null )
         {
             return null;
@@ -1458,12 +1475,12 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             selectedIncludeUpper = includeUpper;
         }
 
-        DiffSets<Long> diffs = new DiffSets<>();
-        for ( Map.Entry<DefinedProperty,DiffSets<Long>> entry : sortedUpdates.subMap( selectedLower, selectedIncludeLower, selectedUpper, selectedIncludeUpper ).entrySet() )
+        PrimitiveLongDiffSets diffs = new PrimitiveLongDiffSets( LongDiffSetsMemory.ON_HEAP );
+        for ( Map.Entry<DefinedProperty,PrimitiveLongDiffSets> entry : sortedUpdates.subMap( selectedLower, selectedIncludeLower, selectedUpper, selectedIncludeUpper ).entrySet() )
         {
-            DiffSets<Long> diffSets = entry.getValue();
-            diffs.addAll( diffSets.getAdded().iterator() );
-            diffs.removeAll( diffSets.getRemoved().iterator() );
+            PrimitiveLongDiffSets diffSets = entry.getValue();
+            diffs.addAll( diffSets.addedIterator() );
+            diffs.removeAll( diffSets.removedIterator() );
         }
         return diffs;
     }
@@ -1476,22 +1493,22 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
     private ReadableDiffSets<Long> getIndexUpdatesForRangeSeekByPrefix( IndexDescriptor descriptor, String prefix )
     {
-        TreeMap<DefinedProperty, DiffSets<Long>> sortedUpdates = getSortedIndexUpdates( descriptor );
+        TreeMap<DefinedProperty, PrimitiveLongDiffSets> sortedUpdates = getSortedIndexUpdates( descriptor );
         if ( sortedUpdates == null )
         {
             return null;
         }
         int propertyKeyId = descriptor.getPropertyKeyId();
         DefinedProperty floor = Property.stringProperty( propertyKeyId, prefix );
-        DiffSets<Long> diffs = new DiffSets<>();
-        for ( Map.Entry<DefinedProperty,DiffSets<Long>> entry : sortedUpdates.tailMap( floor ).entrySet() )
+        PrimitiveLongDiffSets diffs = new PrimitiveLongDiffSets( LongDiffSetsMemory.ON_HEAP );
+        for ( Map.Entry<DefinedProperty,PrimitiveLongDiffSets> entry : sortedUpdates.tailMap( floor ).entrySet() )
         {
             DefinedProperty key = entry.getKey();
             if ( key.propertyKeyId() == propertyKeyId && key.value().toString().startsWith( prefix ) )
             {
-                DiffSets<Long> diffSets = entry.getValue();
-                diffs.addAll( diffSets.getAdded().iterator() );
-                diffs.removeAll( diffSets.getRemoved().iterator() );
+                PrimitiveLongDiffSets diffSets = entry.getValue();
+                diffs.addAll( diffSets.addedIterator() );
+                diffs.removeAll( diffSets.removedIterator() );
             }
             else
             {
@@ -1504,21 +1521,21 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     // Ensure sorted index updates for a given index. This is needed for range query support and
     // may involve converting the existing hash map first
     //
-    private TreeMap<DefinedProperty, DiffSets<Long>> getSortedIndexUpdates( IndexDescriptor descriptor )
+    private TreeMap<DefinedProperty, PrimitiveLongDiffSets> getSortedIndexUpdates( IndexDescriptor descriptor )
     {
         if ( indexUpdates == null )
         {
             return null;
         }
-        Map<DefinedProperty, DiffSets<Long>> updates = indexUpdates.get( descriptor.getLabelId() );
+        Map<DefinedProperty, PrimitiveLongDiffSets> updates = indexUpdates.get( descriptor.getLabelId() );
         if ( updates == null )
         {
             return null;
         }
-        TreeMap<DefinedProperty,DiffSets<Long>> sortedUpdates;
+        TreeMap<DefinedProperty,PrimitiveLongDiffSets> sortedUpdates;
         if ( updates instanceof TreeMap )
         {
-            sortedUpdates = (TreeMap<DefinedProperty,DiffSets<Long>>) updates;
+            sortedUpdates = (TreeMap<DefinedProperty,PrimitiveLongDiffSets>) updates;
         }
         else
         {
@@ -1533,11 +1550,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     public void indexDoUpdateProperty( IndexDescriptor descriptor, long nodeId,
             DefinedProperty propertyBefore, DefinedProperty propertyAfter )
     {
-        DiffSets<Long> before = getIndexUpdatesForScanOrSeek( descriptor.getLabelId(), true, propertyBefore );
+        PrimitiveLongDiffSets before = getIndexUpdatesForScanOrSeek( descriptor.getLabelId(), true, propertyBefore );
         if ( before != null )
         {
             before.remove( nodeId );
-            if ( before.getRemoved().contains( nodeId ) )
+            if ( before.isRemoved( nodeId ) )
             {
                 getOrCreateNodeState( nodeId ).addIndexDiff( before );
             }
@@ -1547,11 +1564,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
         }
 
-        DiffSets<Long> after = getIndexUpdatesForScanOrSeek( descriptor.getLabelId(), true, propertyAfter );
+        PrimitiveLongDiffSets after = getIndexUpdatesForScanOrSeek( descriptor.getLabelId(), true, propertyAfter );
         if ( after != null )
         {
             after.add( nodeId );
-            if ( after.getAdded().contains( nodeId ) )
+            if ( after.isAdded( nodeId ) )
             {
                 getOrCreateNodeState( nodeId ).addIndexDiff( after );
             }
@@ -1562,7 +1579,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         }
     }
 
-    private DiffSets<Long> getIndexUpdatesForScanOrSeek( int label, boolean create, DefinedProperty property )
+    private PrimitiveLongDiffSets getIndexUpdatesForScanOrSeek( int label, boolean create, DefinedProperty property )
     {
         if ( property == null )
         {
@@ -1576,7 +1593,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
             indexUpdates = Primitive.intObjectMap();
         }
-        Map<DefinedProperty, DiffSets<Long>> updates = indexUpdates.get( label );
+        Map<DefinedProperty, PrimitiveLongDiffSets> updates = indexUpdates.get( label );
         if ( updates == null )
         {
             if ( !create )
@@ -1585,37 +1602,42 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
             indexUpdates.put( label, updates = new HashMap<>() );
         }
-        DiffSets<Long> diffs = updates.get( property );
+        PrimitiveLongDiffSets diffs = updates.get( property );
         if ( diffs == null && create )
         {
-            updates.put( property, diffs = new DiffSets<>() );
+            updates.put( property, diffs = new PrimitiveLongDiffSets( diffSetsMemory ) );
         }
         return diffs;
     }
 
-    private DiffSets<Long> getIndexUpdatesForScanOrSeek( int label, int propertyKeyId )
+    private PrimitiveLongDiffSets getIndexUpdatesForScanOrSeek( int label, int propertyKeyId )
     {
         if ( indexUpdates == null )
         {
             return null;
         }
-        Map<DefinedProperty, DiffSets<Long>> updates = indexUpdates.get( label );
+        Map<DefinedProperty, PrimitiveLongDiffSets> updates = indexUpdates.get( label );
         if ( updates == null )
         {
             return null;
         }
-        DiffSets<Long> diffs = new DiffSets<>();
-        for ( Map.Entry<DefinedProperty, DiffSets<Long>> entry : updates.entrySet() )
+        PrimitiveLongDiffSets diffs = new PrimitiveLongDiffSets( LongDiffSetsMemory.ON_HEAP );
+        for ( Map.Entry<DefinedProperty, PrimitiveLongDiffSets> entry : updates.entrySet() )
         {
             if ( entry.getKey().propertyKeyId() == propertyKeyId )
             {
-                diffs.addAll( entry.getValue().getAdded().iterator() );
-                diffs.removeAll( entry.getValue().getRemoved().iterator() );
+                diffs.addAll( entry.getValue().addedIterator() );
+                diffs.removeAll( entry.getValue().removedIterator() );
             }
         }
         return diffs;
     }
 
+    LongDiffSetsMemory diffSetsMemory()
+    {
+        return diffSetsMemory;
+    }
+
     private Map<UniquenessConstraint, Long> createdConstraintIndexesByConstraint()
     {
         if ( createdConstraintIndexesByConstraint == null )
@@ -38,16 +38,19 @@
  */
 package org.neo4j.kernel.impl.api.store;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.function.Function;
 import org.neo4j.function.Predicate;
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.constraints.PropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyConstraint;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.api.exceptions.LabelNotFoundKernelException;
 import org.neo4j.kernel.api.exceptions.PropertyKeyIdNotFoundKernelException;
@@ -90,7 +93,7 @@ public class CacheLayer implements StoreReadLayer
                 {
                     IndexRule rule = (IndexRule) from;
                     // We know that we only have int range of property key ids.
-                    return new IndexDescriptor( rule.getLabel(), rule.getPropertyKey() );
+                    return new IndexDescriptor( rule.getLabel(), rule.getPropertyKeys() );
                 }
             };
 
@@ -182,7 +185,8 @@ public class CacheLayer implements StoreReadLayer
             if ( rule instanceof IndexRule )
             {
                 IndexRule indexRule = (IndexRule) rule;
-                if ( kind.isOfKind( indexRule ) && indexRule.getPropertyKey() == index.getPropertyKeyId() )
+                if ( kind.isOfKind( indexRule ) &&
+                     Arrays.equals( indexRule.getPropertyKeys(), index.getPropertyKeyIds() ) )
                 {
                     return indexRule;
                 }
@@ -298,6 +302,15 @@ public class CacheLayer implements StoreReadLayer
         return diskLayer.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( KernelStatement state,
+                                                                                IndexDescriptor index,
+                                                                                String prefix )
+            throws IndexNotFoundKernelException
+    {
+        return diskLayer.nodesGetFromIndexRangeSeekByPrefixWithValues( state, index, prefix );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexScan( KernelStatement state, IndexDescriptor index )
             throws IndexNotFoundKernelException
@@ -24,6 +24,7 @@ import java.util.Iterator;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.function.Factory;
 import org.neo4j.function.Function;
 import org.neo4j.function.Predicate;
@@ -34,6 +35,7 @@ import org.neo4j.kernel.api.ReadOperations;
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.constraints.PropertyConstraint;
 import org.neo4j.kernel.api.constraints.RelationshipPropertyConstraint;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.api.exceptions.LabelNotFoundKernelException;
 import org.neo4j.kernel.api.exceptions.PropertyKeyIdNotFoundKernelException;
@@ -43,6 +45,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexOrder;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.procedures.ProcedureDescriptor;
@@ -247,6 +250,17 @@ public class DiskLayer implements StoreReadLayer
         return reader.rangeSeekByPrefix( prefix );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> nodesGetFromIndexRangeSeekByPrefixWithValues( KernelStatement state,
+                                                                                IndexDescriptor index,
+                                                                                String prefix )
+            throws IndexNotFoundKernelException
+    {
+        IndexReader reader = state.getIndexReader( index );
+        return new PrefixIndexEntryCursor(
+                reader.orderedRangeSeekByString( prefix, true, null, false, IndexOrder.ASCENDING ), prefix );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexScan( KernelStatement state, IndexDescriptor index ) throws
             IndexNotFoundKernelException
@@ -263,7 +277,7 @@ public class DiskLayer implements StoreReadLayer
 
     private static IndexDescriptor descriptor( IndexRule ruleRecord )
     {
-        return new IndexDescriptor( ruleRecord.getLabel(), ruleRecord.getPropertyKey() );
+        return new IndexDescriptor( ruleRecord.getLabel(), ruleRecord.getPropertyKeys() );
     }
 
     @Override
@@ -353,7 +367,8 @@ public class DiskLayer implements StoreReadLayer
     public Long indexGetOwningUniquenessConstraintId( IndexDescriptor index )
             throws SchemaRuleNotFoundException
     {
-        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyId() ).getOwningConstraint();
+        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyIds(),
+                SchemaStorage.IndexRuleKind.ALL ).getOwningConstraint();
     }
 
     @Override
@@ -366,7 +381,8 @@ public class DiskLayer implements StoreReadLayer
     public long indexGetCommittedId( IndexDescriptor index, SchemaStorage.IndexRuleKind kind )
             throws SchemaRuleNotFoundException
     {
-        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyId() ).getId();
+        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyIds(),
+                SchemaStorage.IndexRuleKind.ALL ).getId();
     }
 
     @Override
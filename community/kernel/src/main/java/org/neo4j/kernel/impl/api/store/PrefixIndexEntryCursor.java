@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
+
+/**
+ * Cursor over the entries of an ascending string range seek, starting at the given prefix, that ends at the first
+ * entry whose value does not start with that prefix. All strings that start with a prefix are next to each other in
+ * the order of the values, so no matching entry comes after it.
+ */
+class PrefixIndexEntryCursor implements Cursor<IndexEntryItem>
+{
+    private final Cursor<IndexEntryItem> entries;
+    private final String prefix;
+    private boolean exhausted;
+
+    PrefixIndexEntryCursor( Cursor<IndexEntryItem> entries, String prefix )
+    {
+        this.entries = entries;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public boolean next()
+    {
+        if ( exhausted )
+        {
+            return false;
+        }
+        if ( entries.next() && entries.get().value().toString().startsWith( prefix ) )
+        {
+            return true;
+        }
+        exhausted = true;
+        return false;
+    }
+
+    @Override
+    public IndexEntryItem get()
+    {
+        if ( exhausted )
+        {
+            throw new IllegalStateException();
+        }
+        return entries.get();
+    }
+
+    @Override
+    public void close()
+    {
+        entries.close();
+    }
+}
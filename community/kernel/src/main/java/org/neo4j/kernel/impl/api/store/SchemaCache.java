@@ -174,8 +174,9 @@ public class SchemaCache
                 relationshipConstraints.add( (RelationshipPropertyConstraint) constraint );
             }
         }
-        else if ( rule instanceof IndexRule )
+        else if ( rule instanceof IndexRule && !((IndexRule) rule).isComposite() )
         {
+            // Composite indexes are only found by label, since a lookup by a single property key never matches them
             IndexRule indexRule = (IndexRule) rule;
             Map<Integer, CommittedIndexDescriptor> byLabel = indexDescriptors.get( indexRule.getLabel() );
             if ( byLabel == null )
@@ -247,7 +248,7 @@ public class SchemaCache
         {
             relationshipConstraints.remove( ((RelationshipPropertyConstraintRule) rule).toConstraint() );
         }
-        else if ( rule instanceof IndexRule )
+        else if ( rule instanceof IndexRule && !((IndexRule) rule).isComposite() )
         {
             IndexRule indexRule = (IndexRule) rule;
             Map<Integer, CommittedIndexDescriptor> byLabel = indexDescriptors.get( indexRule.getLabel() );
@@ -30,7 +30,6 @@ import org.neo4j.graphdb.schema.IndexDefinition;
 import static java.util.Arrays.asList;
 
 import static org.neo4j.helpers.collection.IteratorUtil.addToCollection;
-import static org.neo4j.helpers.collection.IteratorUtil.single;
 
 public class IndexCreatorImpl implements IndexCreator
 {
@@ -57,9 +56,9 @@ public class IndexCreatorImpl implements IndexCreator
     {
         assertInUnterminatedTransaction();
 
-        if ( !propertyKeys.isEmpty() )
-            throw new UnsupportedOperationException(
-                    "Compound indexes are not yet supported, only one property per index is allowed." );
+        if ( propertyKeys.contains( propertyKey ) )
+            throw new ConstraintViolationException(
+                    "Property key '" + propertyKey + "' is already included in this index." );
         return
             new IndexCreatorImpl( actions, label,
                                   addToCollection( asList( propertyKey ), new ArrayList<>( propertyKeys ) ) );
@@ -73,7 +72,7 @@ public class IndexCreatorImpl implements IndexCreator
         if ( propertyKeys.isEmpty() )
             throw new ConstraintViolationException( "An index needs at least one property key to index" );
 
-        return actions.createIndexDefinition( label, single( propertyKeys ) );
+        return actions.createIndexDefinition( label, propertyKeys.toArray( new String[propertyKeys.size()] ) );
     }
 
     protected void assertInUnterminatedTransaction()
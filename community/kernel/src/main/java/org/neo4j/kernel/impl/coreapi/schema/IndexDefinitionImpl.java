@@ -19,25 +19,34 @@
  */
 package org.neo4j.kernel.impl.coreapi.schema;
 
+import java.util.Arrays;
+
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.schema.IndexDefinition;
 
 import static java.util.Arrays.asList;
+import static org.neo4j.helpers.collection.Iterables.join;
 
 public class IndexDefinitionImpl implements IndexDefinition
 {
     private final InternalSchemaActions actions;
 
     private final Label label;
-    private final String propertyKey;
+    private final String[] propertyKeys;
     private final boolean constraintIndex;
 
     public IndexDefinitionImpl( InternalSchemaActions actions, Label label, String propertyKey,
                                 boolean constraintIndex )
+    {
+        this( actions, label, new String[]{propertyKey}, constraintIndex );
+    }
+
+    public IndexDefinitionImpl( InternalSchemaActions actions, Label label, String[] propertyKeys,
+                                boolean constraintIndex )
     {
         this.actions = actions;
         this.label = label;
-        this.propertyKey = propertyKey;
+        this.propertyKeys = propertyKeys.clone();
         this.constraintIndex = constraintIndex;
 
         assertInUnterminatedTransaction();
@@ -54,7 +63,7 @@ public class IndexDefinitionImpl implements IndexDefinition
     public Iterable<String> getPropertyKeys()
     {
         assertInUnterminatedTransaction();
-        return asList( propertyKey );
+        return asList( propertyKeys );
     }
 
     @Override
@@ -67,7 +76,7 @@ public class IndexDefinitionImpl implements IndexDefinition
                                              "instead drop the owning uniqueness constraint." );
         }
 
-        actions.dropIndexDefinitions( label, propertyKey );
+        actions.dropIndexDefinitions( label, propertyKeys );
     }
 
     @Override
@@ -83,7 +92,7 @@ public class IndexDefinitionImpl implements IndexDefinition
         final int prime = 31;
         int result = 1;
         result = prime * result + label.name().hashCode();
-        result = prime * result + propertyKey.hashCode();
+        result = prime * result + Arrays.hashCode( propertyKeys );
         return result;
     }
 
@@ -103,13 +112,13 @@ public class IndexDefinitionImpl implements IndexDefinition
             return false;
         }
         IndexDefinitionImpl other = (IndexDefinitionImpl) obj;
-        return label.name().equals( other.label.name() ) && propertyKey.equals( other.propertyKey );
+        return label.name().equals( other.label.name() ) && Arrays.equals( propertyKeys, other.propertyKeys );
     }
 
     @Override
     public String toString()
     {
-        return "IndexDefinition[label:" + label + ", on:" + propertyKey + "]";
+        return "IndexDefinition[label:" + label + ", on:" + join( ",", asList( propertyKeys ) ) + "]";
     }
 
     protected void assertInUnterminatedTransaction()
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.coreapi.schema;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -56,6 +57,7 @@ import org.neo4j.kernel.api.exceptions.schema.CreateConstraintFailureException;
 import org.neo4j.kernel.api.exceptions.schema.DropConstraintFailureException;
 import org.neo4j.kernel.api.exceptions.schema.DropIndexFailureException;
 import org.neo4j.kernel.api.exceptions.schema.IllegalTokenNameException;
+import org.neo4j.kernel.api.exceptions.schema.IndexSchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
@@ -64,15 +66,17 @@ import org.neo4j.kernel.impl.api.operations.KeyReadOperations;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.neo4j.graphdb.DynamicLabel.label;
 import static org.neo4j.graphdb.schema.Schema.IndexState.FAILED;
 import static org.neo4j.graphdb.schema.Schema.IndexState.ONLINE;
 import static org.neo4j.graphdb.schema.Schema.IndexState.POPULATING;
+import static org.neo4j.helpers.collection.Iterables.join;
 import static org.neo4j.helpers.collection.Iterables.map;
+import static org.neo4j.helpers.collection.Iterables.toArray;
 import static org.neo4j.helpers.collection.IteratorUtil.addToCollection;
 import static org.neo4j.helpers.collection.IteratorUtil.asCollection;
-import static org.neo4j.helpers.collection.IteratorUtil.single;
 
 public class SchemaImpl implements Schema
 {
@@ -137,8 +141,13 @@ public class SchemaImpl implements Schema
                 try
                 {
                     Label label = label( statement.labelGetName( rule.getLabelId() ) );
-                    String propertyKey = statement.propertyKeyGetName( rule.getPropertyKeyId() );
-                    return new IndexDefinitionImpl( actions, label, propertyKey, constraintIndex );
+                    int[] propertyKeyIds = rule.getPropertyKeyIds();
+                    String[] propertyKeys = new String[propertyKeyIds.length];
+                    for ( int i = 0; i < propertyKeys.length; i++ )
+                    {
+                        propertyKeys[i] = statement.propertyKeyGetName( propertyKeyIds[i] );
+                    }
+                    return new IndexDefinitionImpl( actions, label, propertyKeys, constraintIndex );
                 }
                 catch ( LabelNotFoundKernelException | PropertyKeyIdNotFoundKernelException e )
                 {
@@ -208,23 +217,27 @@ public class SchemaImpl implements Schema
     {
         assertInUnterminatedTransaction();
 
-        String propertyKey = single( index.getPropertyKeys() );
+        String[] propertyKeys = toArray( String.class, index.getPropertyKeys() );
         try ( Statement statement = statementContextSupplier.get() )
         {
             int labelId = statement.readOperations().labelGetForName( index.getLabel().name() );
-            int propertyKeyId = statement.readOperations().propertyKeyGetForName( propertyKey );
-
             if ( labelId == KeyReadOperations.NO_SUCH_LABEL )
             {
                 throw new NotFoundException( format( "Label %s not found", index.getLabel().name() ) );
             }
 
-            if ( propertyKeyId == KeyReadOperations.NO_SUCH_PROPERTY_KEY )
+            int[] propertyKeyIds = new int[propertyKeys.length];
+            for ( int i = 0; i < propertyKeys.length; i++ )
             {
-                throw new NotFoundException( format( "Property key %s not found", propertyKey ) );
+                propertyKeyIds[i] = statement.readOperations().propertyKeyGetForName( propertyKeys[i] );
+                if ( propertyKeyIds[i] == KeyReadOperations.NO_SUCH_PROPERTY_KEY )
+                {
+                    throw new NotFoundException( format( "Property key %s not found", propertyKeys[i] ) );
+                }
             }
 
-            IndexDescriptor descriptor = statement.readOperations().indexesGetForLabelAndPropertyKey( labelId, propertyKeyId );
+            IndexDescriptor descriptor = indexGetForLabelAndPropertyKeys(
+                    statement.readOperations(), labelId, propertyKeyIds );
             InternalIndexState indexState = statement.readOperations().indexGetState( descriptor );
             switch ( indexState )
             {
@@ -241,7 +254,7 @@ public class SchemaImpl implements Schema
         catch ( SchemaRuleNotFoundException | IndexNotFoundKernelException e )
         {
             throw new NotFoundException( format( "No index for label %s on property %s",
-                    index.getLabel().name(), propertyKey ) );
+                    index.getLabel().name(), join( ",", asList( propertyKeys ) ) ) );
         }
     }
 
@@ -250,30 +263,56 @@ public class SchemaImpl implements Schema
     {
         assertInUnterminatedTransaction();
 
-        String propertyKey = single( index.getPropertyKeys() );
+        String[] propertyKeys = toArray( String.class, index.getPropertyKeys() );
         try ( Statement statement = statementContextSupplier.get() )
         {
             int labelId = statement.readOperations().labelGetForName( index.getLabel().name() );
-            int propertyKeyId = statement.readOperations().propertyKeyGetForName( propertyKey );
-
             if ( labelId == KeyReadOperations.NO_SUCH_LABEL )
             {
                 throw new NotFoundException( format( "Label %s not found", index.getLabel().name() ) );
             }
 
-            if ( propertyKeyId == KeyReadOperations.NO_SUCH_PROPERTY_KEY )
+            int[] propertyKeyIds = new int[propertyKeys.length];
+            for ( int i = 0; i < propertyKeys.length; i++ )
             {
-                throw new NotFoundException( format( "Property key %s not found", propertyKey ) );
+                propertyKeyIds[i] = statement.readOperations().propertyKeyGetForName( propertyKeys[i] );
+                if ( propertyKeyIds[i] == KeyReadOperations.NO_SUCH_PROPERTY_KEY )
+                {
+                    throw new NotFoundException( format( "Property key %s not found", propertyKeys[i] ) );
+                }
             }
 
-            IndexDescriptor indexId = statement.readOperations().indexesGetForLabelAndPropertyKey( labelId, propertyKeyId );
+            IndexDescriptor indexId = indexGetForLabelAndPropertyKeys(
+                    statement.readOperations(), labelId, propertyKeyIds );
             return statement.readOperations().indexGetFailure( indexId );
         }
         catch ( SchemaRuleNotFoundException | IndexNotFoundKernelException e )
         {
             throw new NotFoundException( format( "No index for label %s on property %s",
-                    index.getLabel().name(), propertyKey ) );
+                    index.getLabel().name(), join( ",", asList( propertyKeys ) ) ) );
+        }
+    }
+
+    /**
+     * Finds the index on the given property keys of a label, in the given order, which may be a composite index.
+     */
+    private static IndexDescriptor indexGetForLabelAndPropertyKeys( ReadOperations readOperations, int labelId,
+            int[] propertyKeyIds ) throws SchemaRuleNotFoundException
+    {
+        if ( propertyKeyIds.length == 1 )
+        {
+            return readOperations.indexesGetForLabelAndPropertyKey( labelId, propertyKeyIds[0] );
         }
+        Iterator<IndexDescriptor> indexes = readOperations.indexesGetForLabel( labelId );
+        while ( indexes.hasNext() )
+        {
+            IndexDescriptor descriptor = indexes.next();
+            if ( Arrays.equals( descriptor.getPropertyKeyIds(), propertyKeyIds ) )
+            {
+                return descriptor;
+            }
+        }
+        throw new IndexSchemaRuleNotFoundException( labelId, propertyKeyIds, false );
     }
 
     @Override
@@ -355,16 +394,28 @@ public class SchemaImpl implements Schema
         }
 
         @Override
-        public IndexDefinition createIndexDefinition( Label label, String propertyKey )
+        public IndexDefinition createIndexDefinition( Label label, String... propertyKeys )
         {
             try ( Statement statement = ctxSupplier.get() )
             {
                 try
                 {
                     int labelId = statement.schemaWriteOperations().labelGetOrCreateForName( label.name() );
-                    int propertyKeyId = statement.schemaWriteOperations().propertyKeyGetOrCreateForName( propertyKey );
-                    statement.schemaWriteOperations().indexCreate( labelId, propertyKeyId );
-                    return new IndexDefinitionImpl( this, label, propertyKey, false );
+                    int[] propertyKeyIds = new int[propertyKeys.length];
+                    for ( int i = 0; i < propertyKeys.length; i++ )
+                    {
+                        propertyKeyIds[i] =
+                                statement.schemaWriteOperations().propertyKeyGetOrCreateForName( propertyKeys[i] );
+                    }
+                    if ( propertyKeyIds.length == 1 )
+                    {
+                        statement.schemaWriteOperations().indexCreate( labelId, propertyKeyIds[0] );
+                    }
+                    else
+                    {
+                        statement.schemaWriteOperations().indexCreate( labelId, propertyKeyIds );
+                    }
+                    return new IndexDefinitionImpl( this, label, propertyKeys, false );
                 }
                 catch ( AlreadyIndexedException | AlreadyConstrainedException e )
                 {
@@ -387,20 +438,25 @@ public class SchemaImpl implements Schema
         }
 
         @Override
-        public void dropIndexDefinitions( Label label, String propertyKey )
+        public void dropIndexDefinitions( Label label, String... propertyKeys )
         {
             try ( Statement statement = ctxSupplier.get() )
             {
                 try
                 {
                     int labelId = statement.readOperations().labelGetForName( label.name() );
-                    int propertyKeyId = statement.readOperations().propertyKeyGetForName( propertyKey );
+                    int[] propertyKeyIds = new int[propertyKeys.length];
+                    boolean found = labelId != KeyReadOperations.NO_SUCH_LABEL;
+                    for ( int i = 0; i < propertyKeys.length; i++ )
+                    {
+                        propertyKeyIds[i] = statement.readOperations().propertyKeyGetForName( propertyKeys[i] );
+                        found &= propertyKeyIds[i] != KeyReadOperations.NO_SUCH_PROPERTY_KEY;
+                    }
 
-                    if ( labelId != KeyReadOperations.NO_SUCH_LABEL && propertyKeyId != KeyReadOperations
-                            .NO_SUCH_PROPERTY_KEY )
+                    if ( found )
                     {
-                        statement.schemaWriteOperations().indexDrop(
-                                statement.readOperations().indexesGetForLabelAndPropertyKey( labelId, propertyKeyId ) );
+                        statement.schemaWriteOperations().indexDrop( indexGetForLabelAndPropertyKeys(
+                                statement.readOperations(), labelId, propertyKeyIds ) );
                     }
                 }
                 catch ( SchemaRuleNotFoundException | DropIndexFailureException e )
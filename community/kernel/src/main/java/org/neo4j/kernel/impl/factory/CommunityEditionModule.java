@@ -51,6 +51,7 @@ import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.store.id.ConcurrentIdGeneratorFactory;
 import org.neo4j.kernel.impl.storemigration.ConfigMapUpgradeConfiguration;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
@@ -83,7 +84,7 @@ public class CommunityEditionModule
 
         lockManager = dependencies.satisfyDependency( createLockManager( config, logging ) );
 
-        idGeneratorFactory = dependencies.satisfyDependency( createIdGeneratorFactory( fileSystem ) );
+        idGeneratorFactory = dependencies.satisfyDependency( createIdGeneratorFactory( fileSystem, config ) );
 
         propertyKeyTokenHolder = life.add( dependencies.satisfyDependency( new DelegatingPropertyKeyTokenHolder(
                 createPropertyKeyCreator( config, dataSourceManager, idGeneratorFactory ) ) ) );
@@ -206,6 +207,16 @@ public class CommunityEditionModule
         return life.add( new DefaultKernelData( fileSystem, pageCache, storeDir, config, graphAPI ) );
     }
 
+    protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs, Config config )
+    {
+        int leaseSize = config.get( GraphDatabaseSettings.id_lease_size );
+        if ( leaseSize > 0 )
+        {
+            return new ConcurrentIdGeneratorFactory( fs, leaseSize );
+        }
+        return createIdGeneratorFactory( fs );
+    }
+
     protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs )
     {
         return new DefaultIdGeneratorFactory( fs );
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.neo4j.kernel.api.index.ArrayEncoder;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
+
+/**
+ * Encodes property values, and index entries of a node and a value, as keys of a {@link SchemaIndexTree}. Values
+ * are encoded so that their keys are ordered the way the values are: a type tag comes first, so that values of the
+ * same type are kept together, followed by the value in a form whose bytes order as the value does. The entry of a
+ * node is the key of its value followed by the id of the node.
+ *
+ * Values are encoded the way the Lucene index encodes them, by type: numbers as doubles, booleans, arrays as their
+ * {@link ArrayEncoder encoding}, and anything else as its string form. Numbers are encoded as eight bytes, and
+ * booleans as one. Strings are encoded one UTF-16 code unit at a time in one to three bytes that are never zero,
+ * followed by a zero byte, so that no key of a value is a prefix of the key of another value, and the key of a
+ * string is a prefix of the keys of the strings that start with it, but for the terminating zero.
+ *
+ * The key of a {@link CompositeIndexValue composite value} is the keys of each of its values one after the other,
+ * which orders composite values by their first value, then by their second, and so on.
+ */
+final class IndexKeys
+{
+    static final byte NUMBER = 1, STRING = 2, BOOLEAN = 3, ARRAY = 4, COMPOSITE = 5;
+
+    private static final int NODE_ID_SIZE = 8;
+    private static final int STRING_END = 0;
+
+    private IndexKeys()
+    {
+    }
+
+    /**
+     * @return the key of the given value.
+     */
+    static byte[] value( Object value )
+    {
+        if ( value instanceof CompositeIndexValue )
+        {
+            return composite( (CompositeIndexValue) value );
+        }
+        if ( value instanceof Number )
+        {
+            return number( ((Number) value).doubleValue() );
+        }
+        if ( value.getClass().isArray() )
+        {
+            return string( ARRAY, ArrayEncoder.encode( value ), true );
+        }
+        if ( value instanceof Boolean )
+        {
+            return new byte[]{BOOLEAN, (byte) ((Boolean) value ? 1 : 0)};
+        }
+        return string( STRING, value.toString(), true );
+    }
+
+    private static byte[] composite( CompositeIndexValue value )
+    {
+        byte[][] keys = new byte[value.size()][];
+        int length = 1;
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            keys[i] = value( value.get( i ) );
+            length += keys[i].length;
+        }
+        byte[] key = new byte[length];
+        key[0] = COMPOSITE;
+        int offset = 1;
+        for ( byte[] part : keys )
+        {
+            System.arraycopy( part, 0, key, offset, part.length );
+            offset += part.length;
+        }
+        return key;
+    }
+
+    /**
+     * @return the key of the given number.
+     */
+    static byte[] number( double value )
+    {
+        // -0.0 and 0.0 are the same number to the kernel, and sort as raw bits otherwise
+        long bits = Double.doubleToLongBits( value == 0.0 ? 0.0 : value );
+        bits = bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+        byte[] key = new byte[9];
+        key[0] = NUMBER;
+        for ( int i = 0; i < 8; i++ )
+        {
+            key[1 + i] = (byte) (bits >>> (56 - i * 8));
+        }
+        return key;
+    }
+
+    /**
+     * @return the key of the given string.
+     */
+    static byte[] string( String value )
+    {
+        return string( STRING, value, true );
+    }
+
+    /**
+     * @return the common start of the keys of the strings that start with the given prefix.
+     */
+    static byte[] stringPrefix( String prefix )
+    {
+        return string( STRING, prefix, false );
+    }
+
+    private static byte[] string( byte type, String value, boolean terminated )
+    {
+        byte[] key = new byte[1 + value.length() * 3 + 1];
+        int length = 0;
+        key[length++] = type;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c < 0x7F )
+            {
+                key[length++] = (byte) (c + 1);
+            }
+            else if ( c < 0x7F + (1 << 13) )
+            {
+                int d = c - 0x7F;
+                key[length++] = (byte) (0x80 | (d >>> 7));
+                key[length++] = (byte) (0x80 | (d & 0x7F));
+            }
+            else
+            {
+                key[length++] = (byte) (0xC0 | (c >>> 14));
+                key[length++] = (byte) (0x80 | ((c >>> 7) & 0x7F));
+                key[length++] = (byte) (0x80 | (c & 0x7F));
+            }
+        }
+        if ( terminated )
+        {
+            key[length++] = STRING_END;
+        }
+        return Arrays.copyOf( key, length );
+    }
+
+    /**
+     * @return the key that comes before the keys of all values of the given type.
+     */
+    static byte[] first( byte type )
+    {
+        return new byte[]{type};
+    }
+
+    /**
+     * @return the key that comes after the keys of all values of the given type.
+     */
+    static byte[] last( byte type )
+    {
+        return new byte[]{(byte) (type + 1)};
+    }
+
+    /**
+     * @return the smallest key that comes after all keys that start with the given key, which is also the key to
+     * read up to for the entries of a value.
+     */
+    static byte[] after( byte[] key )
+    {
+        byte[] after = key.clone();
+        for ( int i = after.length - 1; i >= 0; i-- )
+        {
+            if ( ++after[i] != 0 )
+            {
+                return Arrays.copyOf( after, i + 1 );
+            }
+        }
+        // All bytes were 0xFF, so there is nothing after
+        return null;
+    }
+
+    /**
+     * @return the key of the entry of the given node and value key.
+     */
+    static byte[] entry( byte[] value, long nodeId )
+    {
+        byte[] entry = Arrays.copyOf( value, value.length + NODE_ID_SIZE );
+        for ( int i = 0; i < NODE_ID_SIZE; i++ )
+        {
+            entry[value.length + i] = (byte) (nodeId >>> (56 - i * 8));
+        }
+        return entry;
+    }
+
+    /**
+     * @return the node of the given entry.
+     */
+    static long nodeId( byte[] entry )
+    {
+        long nodeId = 0;
+        for ( int i = entry.length - NODE_ID_SIZE; i < entry.length; i++ )
+        {
+            nodeId = (nodeId << 8) | (entry[i] & 0xFF);
+        }
+        return nodeId;
+    }
+
+    /**
+     * @return the value of the given entry, as it is indexed, so numbers as doubles. Arrays are only kept as their
+     * encoding, which is not decoded.
+     */
+    static Object valueOf( byte[] entry )
+    {
+        if ( type( entry ) != COMPOSITE )
+        {
+            return valueAt( entry, 0 );
+        }
+        int count = 0;
+        for ( int offset = 1; offset < entry.length - NODE_ID_SIZE; offset = valueEnd( entry, offset ) )
+        {
+            count++;
+        }
+        Object[] values = new Object[count];
+        for ( int i = 0, offset = 1; i < count; i++, offset = valueEnd( entry, offset ) )
+        {
+            values[i] = valueAt( entry, offset );
+        }
+        return new CompositeIndexValue( values );
+    }
+
+    private static Object valueAt( byte[] entry, int offset )
+    {
+        switch ( entry[offset] )
+        {
+        case NUMBER:
+            long bits = 0;
+            for ( int i = offset + 1; i <= offset + 8; i++ )
+            {
+                bits = (bits << 8) | (entry[i] & 0xFF);
+            }
+            return Double.longBitsToDouble( bits < 0 ? bits ^ Long.MIN_VALUE : ~bits );
+        case STRING:
+            return stringAt( entry, offset );
+        case BOOLEAN:
+            return entry[offset + 1] != 0;
+        default:
+            throw new IllegalArgumentException( "Values of type " + entry[offset] + " can not be decoded" );
+        }
+    }
+
+    /**
+     * @return the offset right after the key of the value at the given offset of a composite key.
+     */
+    private static int valueEnd( byte[] entry, int offset )
+    {
+        switch ( entry[offset] )
+        {
+        case NUMBER:
+            return offset + 9;
+        case BOOLEAN:
+            return offset + 2;
+        case STRING:
+        case ARRAY:
+            int end = offset + 1;
+            while ( entry[end] != STRING_END )
+            {
+                end++;
+            }
+            return end + 1;
+        default:
+            throw new IllegalArgumentException( "Unknown value type " + entry[offset] );
+        }
+    }
+
+    private static String stringAt( byte[] entry, int offset )
+    {
+        StringBuilder value = new StringBuilder();
+        for ( int i = offset + 1; entry[i] != STRING_END; i++ )
+        {
+            int b = entry[i] & 0xFF;
+            if ( b <= 0x7F )
+            {
+                value.append( (char) (b - 1) );
+            }
+            else if ( b < 0xC0 )
+            {
+                value.append( (char) ((((b & 0x7F) << 7) | (entry[++i] & 0x7F)) + 0x7F) );
+            }
+            else
+            {
+                int c = ((b & 0x3F) << 14) | ((entry[i + 1] & 0x7F) << 7) | (entry[i + 2] & 0x7F);
+                value.append( (char) c );
+                i += 2;
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return the type of the value of the given entry.
+     */
+    static byte type( byte[] entry )
+    {
+        return entry[0];
+    }
+
+    /**
+     * @return whether the given entries are of the same value.
+     */
+    static boolean sameValue( byte[] entry, byte[] other )
+    {
+        if ( entry.length != other.length )
+        {
+            return false;
+        }
+        for ( int i = entry.length - NODE_ID_SIZE - 1; i >= 0; i-- )
+        {
+            if ( entry[i] != other[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the entry of a value with the given key.
+     */
+    static int entrySize( byte[] value )
+    {
+        return value.length + NODE_ID_SIZE;
+    }
+
+    static Class<?> valueType( byte type )
+    {
+        switch ( type )
+        {
+        case NUMBER:
+            return Number.class;
+        case STRING:
+            return String.class;
+        case BOOLEAN:
+            return Boolean.class;
+        case ARRAY:
+            return Array.class;
+        case COMPOSITE:
+            return CompositeIndexValue.class;
+        default:
+            throw new IllegalArgumentException( "Unknown value type " + type );
+        }
+    }
+}
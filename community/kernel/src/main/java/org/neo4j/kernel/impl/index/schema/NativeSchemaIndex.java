@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.logging.Log;
+
+import static org.neo4j.helpers.collection.IteratorUtil.resourceIterator;
+
+/**
+ * The entries of one native schema index, kept in a {@link SchemaIndexTree} in a file mapped through the
+ * {@link PageCache}. This is what the populator and the accessor of an index have in common: adding and removing
+ * entries, reading them in key order, and check pointing.
+ *
+ * Changes are made one entry at a time, and readers read a batch of entries at a time, so a reader may see
+ * changes that are applied while it is open.
+ */
+class NativeSchemaIndex
+{
+    static final String FILE_NAME = "index.db";
+
+    private static final int READ_BATCH_SIZE = 128;
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final Log log;
+    private final ReadWriteLock treeLock = new ReentrantReadWriteLock();
+    // Check points wait for all permits, so that no check point changes the index file while a snapshot is open
+    private final Semaphore checkpointPermits = new Semaphore( Integer.MAX_VALUE, true );
+    private PagedFile pagedFile;
+    private SchemaIndexTree tree;
+
+    NativeSchemaIndex( PageCache pageCache, FileSystemAbstraction fs, File directory, Log log )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.file = new File( directory, FILE_NAME );
+        this.log = log;
+    }
+
+    /**
+     * Creates a new and empty index, replacing any index there was in the file.
+     */
+    void create() throws IOException
+    {
+        fs.mkdirs( file.getParentFile() );
+        fs.deleteFile( file );
+        pagedFile = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE );
+        tree = SchemaIndexTree.create( pagedFile );
+    }
+
+    /**
+     * Opens the index in the file, as of the latest check point.
+     *
+     * @throws IOException if there is no index in the file, or the index can not be read.
+     */
+    void open() throws IOException
+    {
+        if ( !fs.fileExists( file ) )
+        {
+            throw new IOException( "Schema index file " + file + " does not exist." );
+        }
+        pagedFile = pageCache.map( file, pageCache.pageSize() );
+        try
+        {
+            tree = SchemaIndexTree.open( pagedFile );
+        }
+        catch ( IOException e )
+        {
+            pagedFile.close();
+            pagedFile = null;
+            throw e;
+        }
+    }
+
+    boolean isOnline()
+    {
+        return tree.isOnline();
+    }
+
+    /**
+     * Marks the index as fully populated, and check points it.
+     */
+    void markAsOnline() throws IOException
+    {
+        treeLock.writeLock().lock();
+        try
+        {
+            tree.setOnline( true );
+        }
+        finally
+        {
+            treeLock.writeLock().unlock();
+        }
+        checkpoint();
+    }
+
+    /**
+     * @return the key of the entry of the given node and value.
+     * @throws IllegalArgumentException if the value is too large to be indexed.
+     */
+    byte[] entry( long nodeId, Object value )
+    {
+        byte[] valueKey = IndexKeys.value( value );
+        if ( IndexKeys.entrySize( valueKey ) > tree.maxKeySize() )
+        {
+            throw new IllegalArgumentException( "Property value of " + valueKey.length + " encoded bytes is too " +
+                                                "large for a native schema index, which indexes values of up to " +
+                                                (tree.maxKeySize() - IndexKeys.entrySize( new byte[0] )) +
+                                                " encoded bytes." );
+        }
+        return IndexKeys.entry( valueKey, nodeId );
+    }
+
+    /**
+     * Adds the entry of the given node and value, unless it is in the index already.
+     */
+    void add( long nodeId, Object value ) throws IOException
+    {
+        byte[] entry = entry( nodeId, value );
+        treeLock.writeLock().lock();
+        try
+        {
+            tree.insert( entry );
+        }
+        finally
+        {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the entry of the given node and value, if it is in the index.
+     */
+    void remove( long nodeId, Object value ) throws IOException
+    {
+        byte[] entry = IndexKeys.entry( IndexKeys.value( value ), nodeId );
+        treeLock.writeLock().lock();
+        try
+        {
+            tree.remove( entry );
+        }
+        finally
+        {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the given update, which may have been applied already.
+     */
+    void process( NodePropertyUpdate update ) throws IOException
+    {
+        long nodeId = update.getNodeId();
+        switch ( update.getUpdateMode() )
+        {
+        case ADDED:
+            add( nodeId, update.getValueAfter() );
+            break;
+        case CHANGED:
+            remove( nodeId, update.getValueBefore() );
+            add( nodeId, update.getValueAfter() );
+            break;
+        case REMOVED:
+            remove( nodeId, update.getValueBefore() );
+            break;
+        default:
+            throw new IllegalStateException( "Unknown update mode " + update.getUpdateMode() );
+        }
+    }
+
+    /**
+     * Removes all entries of the given nodes. The entries are keyed by value and there is no lookup from node to
+     * entries, so this scans all entries of the index, and warns about it. Only recovery does this, once per index,
+     * with the nodes changed by the recovered transactions.
+     */
+    void remove( PrimitiveLongSet nodeIds ) throws IOException
+    {
+        if ( nodeIds.isEmpty() )
+        {
+            return;
+        }
+
+        List<byte[]> entries = new ArrayList<>();
+        long scannedEntries = 0;
+        EntryCursor cursor = cursor( new byte[0], null );
+        while ( cursor.next() )
+        {
+            scannedEntries++;
+            if ( nodeIds.contains( IndexKeys.nodeId( cursor.entry() ) ) )
+            {
+                entries.add( cursor.entry() );
+            }
+        }
+        log.warn( "Scanned all %d entries of %s to remove the entries of %d recovered nodes, since native schema " +
+                  "indexes can't look up the entries of a node.", scannedEntries, this, nodeIds.size() );
+        treeLock.writeLock().lock();
+        try
+        {
+            for ( byte[] entry : entries )
+            {
+                tree.remove( entry );
+            }
+        }
+        finally
+        {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return a cursor over the entries from {@code fromKey}, inclusive, up to {@code toKey}, exclusive, or to the
+     * last entry if {@code toKey} is {@code null}.
+     */
+    EntryCursor cursor( byte[] fromKey, byte[] toKey )
+    {
+        return new EntryCursor( fromKey, toKey, false );
+    }
+
+    /**
+     * @return a cursor over the entries before {@code toKey}, exclusive, down to {@code fromKey}, inclusive, in
+     * reverse order, from the last entry if {@code toKey} is {@code null}.
+     */
+    EntryCursor descendingCursor( byte[] fromKey, byte[] toKey )
+    {
+        return new EntryCursor( fromKey, toKey, true );
+    }
+
+    /**
+     * @return the nodes of the entries from {@code fromKey}, inclusive, up to {@code toKey}, exclusive.
+     */
+    PrimitiveLongIterator nodes( byte[] fromKey, byte[] toKey )
+    {
+        final EntryCursor cursor = cursor( fromKey, toKey );
+        return new PrimitiveLongBaseIterator()
+        {
+            @Override
+            protected boolean fetchNext()
+            {
+                return cursor.next() && next( IndexKeys.nodeId( cursor.entry() ) );
+            }
+        };
+    }
+
+    /**
+     * Makes the changes since the previous check point durable.
+     */
+    void checkpoint() throws IOException
+    {
+        checkpointPermits.acquireUninterruptibly( Integer.MAX_VALUE );
+        try
+        {
+            treeLock.writeLock().lock();
+            try
+            {
+                tree.checkpoint();
+            }
+            finally
+            {
+                treeLock.writeLock().unlock();
+            }
+        }
+        finally
+        {
+            checkpointPermits.release( Integer.MAX_VALUE );
+        }
+    }
+
+    ResourceIterator<File> snapshotFiles()
+    {
+        // The index file is only changed in place at check points, so it's safe to copy while there's none
+        checkpointPermits.acquireUninterruptibly();
+        return resourceIterator( Arrays.asList( file ).iterator(), new Resource()
+        {
+            private boolean closed;
+
+            @Override
+            public void close()
+            {
+                if ( !closed )
+                {
+                    closed = true;
+                    checkpointPermits.release();
+                }
+            }
+        } );
+    }
+
+    /**
+     * Check points the index, if it is open, and closes its file.
+     */
+    void close() throws IOException
+    {
+        if ( tree != null )
+        {
+            checkpoint();
+        }
+        closeFile();
+    }
+
+    /**
+     * Closes and deletes the file of the index.
+     */
+    void drop() throws IOException
+    {
+        closeFile();
+        fs.deleteFile( file );
+    }
+
+    private void closeFile() throws IOException
+    {
+        treeLock.writeLock().lock();
+        try
+        {
+            if ( pagedFile != null )
+            {
+                pagedFile.close();
+                pagedFile = null;
+                tree = null;
+            }
+        }
+        finally
+        {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    private int read( byte[] fromKey, byte[] toKey, byte[][] entries, boolean descending )
+    {
+        treeLock.readLock().lock();
+        try
+        {
+            if ( tree == null )
+            {
+                throw new IllegalStateException( "Schema index " + file + " has been closed." );
+            }
+            return descending ? tree.readDescending( fromKey, toKey, entries )
+                              : tree.read( fromKey, toKey, entries );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        finally
+        {
+            treeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + file + "]";
+    }
+
+    /**
+     * Reads entries in key order, or in reverse key order, a batch at a time.
+     */
+    class EntryCursor
+    {
+        private final boolean descending;
+        private final byte[][] entries = new byte[READ_BATCH_SIZE][];
+        private byte[] fromKey, toKey;
+        private boolean exhausted;
+        private int count, index;
+
+        private EntryCursor( byte[] fromKey, byte[] toKey, boolean descending )
+        {
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+            this.descending = descending;
+        }
+
+        boolean next()
+        {
+            if ( ++index < count )
+            {
+                return true;
+            }
+            if ( exhausted )
+            {
+                return false;
+            }
+            count = read( fromKey, toKey, entries, descending );
+            index = 0;
+            if ( count == 0 )
+            {
+                exhausted = true;
+                return false;
+            }
+            if ( descending )
+            {
+                toKey = entries[count - 1];
+            }
+            else
+            {
+                fromKey = SchemaIndexTree.successor( entries[count - 1] );
+            }
+            return true;
+        }
+
+        byte[] entry()
+        {
+            return entries[index];
+        }
+    }
+}
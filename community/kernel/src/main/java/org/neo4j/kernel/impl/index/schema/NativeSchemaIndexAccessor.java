@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.CancellationRequest;
+import org.neo4j.kernel.api.direct.BoundedIterable;
+import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.Reservation;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.kernel.impl.api.index.UniquePropertyIndexUpdater;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaIndex.EntryCursor;
+
+import static org.neo4j.helpers.collection.IteratorUtil.toJavaIterator;
+
+/**
+ * {@link IndexAccessor} of a {@link NativeSchemaIndex}. Updates are applied to the index as they are processed,
+ * and made durable by {@link #force()}, like the native label scan store, so updates since the latest check point
+ * are applied again by recovery.
+ */
+class NativeSchemaIndexAccessor implements IndexAccessor
+{
+    private final NativeSchemaIndex index;
+    private final boolean unique;
+    private volatile boolean closed;
+    private final CancellationRequest cancellation = new CancellationRequest()
+    {
+        @Override
+        public boolean cancellationRequested()
+        {
+            return closed;
+        }
+    };
+
+    NativeSchemaIndexAccessor( NativeSchemaIndex index, boolean unique ) throws IOException
+    {
+        this.index = index;
+        this.unique = unique;
+        index.open();
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        closed = true;
+        index.drop();
+    }
+
+    @Override
+    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        final IndexUpdater updater = new IndexUpdater()
+        {
+            @Override
+            public Reservation validate( Iterable<NodePropertyUpdate> updates )
+            {
+                return Reservation.EMPTY;
+            }
+
+            @Override
+            public void process( NodePropertyUpdate update ) throws IOException
+            {
+                index.process( update );
+            }
+
+            @Override
+            public void close()
+            {   // Updates are applied as they are processed
+            }
+
+            @Override
+            public void remove( PrimitiveLongSet nodeIds ) throws IOException
+            {
+                index.remove( nodeIds );
+            }
+        };
+        if ( !unique )
+        {
+            return updater;
+        }
+
+        // See UniqueLuceneIndexAccessor for why unique indexes group their updates this way
+        return new UniquePropertyIndexUpdater()
+        {
+            @Override
+            protected void flushUpdates( Iterable<NodePropertyUpdate> updates )
+                    throws IOException, IndexEntryConflictException, IndexCapacityExceededException
+            {
+                for ( NodePropertyUpdate update : updates )
+                {
+                    updater.process( update );
+                }
+                updater.close();
+            }
+
+            @Override
+            public Reservation validate( Iterable<NodePropertyUpdate> updates )
+                    throws IOException, IndexCapacityExceededException
+            {
+                return updater.validate( updates );
+            }
+
+            @Override
+            public void remove( PrimitiveLongSet nodeIds ) throws IOException
+            {
+                updater.remove( nodeIds );
+            }
+        };
+    }
+
+    @Override
+    public void flush()
+    {   // Updates are in the page cache as soon as they are applied, and force() makes them durable
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        index.checkpoint();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        index.close();
+    }
+
+    @Override
+    public IndexReader newReader()
+    {
+        return new NativeSchemaIndexReader( index, unique, cancellation );
+    }
+
+    @Override
+    public BoundedIterable<Long> newAllEntriesReader()
+    {
+        return new BoundedIterable<Long>()
+        {
+            @Override
+            public long maxCount()
+            {
+                long count = 0;
+                EntryCursor cursor = index.cursor( new byte[0], null );
+                while ( cursor.next() )
+                {
+                    count++;
+                }
+                return count;
+            }
+
+            @Override
+            public Iterator<Long> iterator()
+            {
+                return toJavaIterator( index.nodes( new byte[0], null ) );
+            }
+
+            @Override
+            public void close()
+            {   // Nothing to close, entries are read a batch at a time
+            }
+        };
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles()
+    {
+        return index.snapshotFiles();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + index + "]";
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.CancellationRequest;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.api.exceptions.PropertyNotFoundException;
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PreexistingIndexEntryConflictException;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.index.Reservation;
+import org.neo4j.kernel.api.index.util.FailureStorage;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.api.index.UpdateMode;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaIndex.EntryCursor;
+import org.neo4j.register.Register.DoubleLong;
+
+/**
+ * Populates a {@link NativeSchemaIndex}. Entries go straight into the tree of the index, which is marked as
+ * online and check pointed when population completes.
+ *
+ * Unique indexes take entries of the same value during population, like the Lucene index does, and verify them
+ * afterwards. Entries of the same value are next to each other in the tree, so that is one pass over it.
+ */
+class NativeSchemaIndexPopulator implements IndexPopulator
+{
+    private final NativeSchemaIndex index;
+    private final FailureStorage failureStorage;
+    private final long indexId;
+    private final IndexDescriptor descriptor;
+    private final boolean unique;
+
+    NativeSchemaIndexPopulator( NativeSchemaIndex index, FailureStorage failureStorage, long indexId,
+                                IndexDescriptor descriptor, boolean unique )
+    {
+        this.index = index;
+        this.failureStorage = failureStorage;
+        this.indexId = indexId;
+        this.descriptor = descriptor;
+        this.unique = unique;
+    }
+
+    @Override
+    public void create() throws IOException
+    {
+        index.create();
+        failureStorage.reserveForIndex( indexId );
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        index.drop();
+        failureStorage.clearForIndex( indexId );
+    }
+
+    @Override
+    public void add( long nodeId, Object propertyValue ) throws IOException
+    {
+        index.add( nodeId, propertyValue );
+    }
+
+    @Override
+    public void verifyDeferredConstraints( PropertyAccessor accessor )
+            throws IndexEntryConflictException, IOException
+    {
+        if ( !unique )
+        {
+            return;
+        }
+        List<Long> nodes = new ArrayList<>();
+        byte[] previous = null;
+        EntryCursor cursor = index.cursor( new byte[0], null );
+        while ( cursor.next() )
+        {
+            byte[] entry = cursor.entry();
+            if ( previous != null && !IndexKeys.sameValue( previous, entry ) )
+            {
+                verifyUnique( nodes, accessor );
+                nodes.clear();
+            }
+            nodes.add( IndexKeys.nodeId( entry ) );
+            previous = entry;
+        }
+        verifyUnique( nodes, accessor );
+    }
+
+    @Override
+    public IndexUpdater newPopulatingUpdater( final PropertyAccessor accessor ) throws IOException
+    {
+        return new IndexUpdater()
+        {
+            private final List<Object> updatedPropertyValues = new ArrayList<>();
+
+            @Override
+            public Reservation validate( Iterable<NodePropertyUpdate> updates ) throws IOException
+            {
+                return Reservation.EMPTY;
+            }
+
+            @Override
+            public void process( NodePropertyUpdate update ) throws IOException
+            {
+                index.process( update );
+                if ( unique && update.getUpdateMode() != UpdateMode.REMOVED )
+                {
+                    updatedPropertyValues.add( update.getValueAfter() );
+                }
+            }
+
+            @Override
+            public void close() throws IOException, IndexEntryConflictException
+            {
+                List<Long> nodes = new ArrayList<>();
+                for ( Object propertyValue : updatedPropertyValues )
+                {
+                    byte[] value = IndexKeys.value( propertyValue );
+                    EntryCursor cursor = index.cursor( value, IndexKeys.after( value ) );
+                    while ( cursor.next() )
+                    {
+                        nodes.add( IndexKeys.nodeId( cursor.entry() ) );
+                    }
+                    verifyUnique( nodes, accessor );
+                    nodes.clear();
+                }
+            }
+
+            @Override
+            public void remove( PrimitiveLongSet nodeIds )
+            {
+                throw new UnsupportedOperationException( "should not remove() from populating index" );
+            }
+        };
+    }
+
+    /**
+     * Verifies that the given nodes, which have entries of the same value, don't have the same property value.
+     * Different property values may share an entry value, numbers being indexed as doubles for one.
+     */
+    private void verifyUnique( List<Long> nodes, PropertyAccessor accessor )
+            throws PreexistingIndexEntryConflictException
+    {
+        if ( nodes.size() < 2 )
+        {
+            return;
+        }
+        List<Object> values = new ArrayList<>( nodes.size() );
+        for ( long nodeId : nodes )
+        {
+            Property property;
+            Object value;
+            try
+            {
+                property = accessor.getProperty( nodeId, descriptor.getPropertyKeyId() );
+                value = property.value();
+            }
+            catch ( EntityNotFoundException | PropertyNotFoundException e )
+            {
+                throw new IllegalStateException( "Indexed node should exist and have the indexed property.", e );
+            }
+            for ( int i = 0; i < values.size(); i++ )
+            {
+                if ( property.valueEquals( values.get( i ) ) )
+                {
+                    throw new PreexistingIndexEntryConflictException( value, nodes.get( i ), nodeId );
+                }
+            }
+            values.add( value );
+        }
+    }
+
+    @Override
+    public void close( boolean populationCompletedSuccessfully ) throws IOException
+    {
+        try
+        {
+            if ( populationCompletedSuccessfully )
+            {
+                index.markAsOnline();
+            }
+        }
+        finally
+        {
+            index.close();
+        }
+    }
+
+    @Override
+    public void markAsFailed( String failure ) throws IOException
+    {
+        failureStorage.storeIndexFailure( indexId, failure );
+    }
+
+    @Override
+    public long sampleResult( DoubleLong.Out result )
+    {
+        try
+        {
+            return new NativeSchemaIndexReader( index, unique, CancellationRequest.NEVER_CANCELLED )
+                    .sampleIndex( result );
+        }
+        catch ( IndexNotFoundKernelException e )
+        {
+            throw new IllegalStateException( "Sampling of a populating index can not be cancelled.", e );
+        }
+    }
+}
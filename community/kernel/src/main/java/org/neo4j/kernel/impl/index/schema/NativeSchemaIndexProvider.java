@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.index.util.FailureStorage;
+import org.neo4j.kernel.api.index.util.FolderLayout;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+/**
+ * {@link SchemaIndexProvider} of schema indexes that are B+trees in files mapped through the {@link PageCache},
+ * one file per index, rather than Lucene indexes. Values are ordered by type and then by value, so that exact,
+ * range and prefix seeks are all ranges of the tree.
+ */
+public class NativeSchemaIndexProvider extends SchemaIndexProvider
+{
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final FailureStorage failureStorage;
+    private final FolderLayout folderLayout;
+    private final Map<Long, String> failures = new ConcurrentHashMap<>();
+    private final Log log;
+
+    public NativeSchemaIndexProvider( PageCache pageCache, FileSystemAbstraction fs, File storeDir, int priority,
+            LogProvider logProvider )
+    {
+        super( NativeSchemaIndexProviderFactory.PROVIDER_DESCRIPTOR, priority );
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.log = logProvider.getLog( getClass() );
+        File rootDirectory = getRootDirectory( storeDir, NativeSchemaIndexProviderFactory.KEY );
+        this.folderLayout = new FolderLayout( rootDirectory );
+        this.failureStorage = new FailureStorage( fs, folderLayout );
+    }
+
+    @Override
+    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexConfiguration config,
+                                        IndexSamplingConfig samplingConfig )
+    {
+        return new NativeSchemaIndexPopulator( index( indexId ), failureStorage, indexId, descriptor,
+                config.isUnique() );
+    }
+
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexConfiguration config,
+                                            IndexSamplingConfig samplingConfig ) throws IOException
+    {
+        return new NativeSchemaIndexAccessor( index( indexId ), config.isUnique() );
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId )
+    {
+        String failure = failureStorage.loadIndexFailure( indexId );
+        if ( failure != null )
+        {
+            failures.put( indexId, failure );
+            return InternalIndexState.FAILED;
+        }
+
+        NativeSchemaIndex index = index( indexId );
+        try
+        {
+            index.open();
+            try
+            {
+                return index.isOnline() ? InternalIndexState.ONLINE : InternalIndexState.POPULATING;
+            }
+            finally
+            {
+                index.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            failures.put( indexId, "Could not open index: " + e.getMessage() );
+            return InternalIndexState.FAILED;
+        }
+    }
+
+    @Override
+    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    {
+        String failure = failureStorage.loadIndexFailure( indexId );
+        if ( failure == null )
+        {
+            failure = failures.get( indexId );
+        }
+        if ( failure == null )
+        {
+            throw new IllegalStateException( "Index " + indexId + " isn't failed" );
+        }
+        return failure;
+    }
+
+    @Override
+    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache )
+    {
+        // There are no older versions of native indexes to migrate from
+        return StoreMigrationParticipant.NOT_PARTICIPATING;
+    }
+
+    private NativeSchemaIndex index( long indexId )
+    {
+        return new NativeSchemaIndex( pageCache, fs, folderLayout.getFolder( indexId ), log );
+    }
+}
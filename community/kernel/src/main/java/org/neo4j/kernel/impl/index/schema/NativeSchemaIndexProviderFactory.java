@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.logging.LogProvider;
+
+/**
+ * Provides the {@link NativeSchemaIndexProvider}, with a priority above that of the Lucene index provider if
+ * {@link GraphDatabaseSettings#native_schema_index} is enabled, and below that of any other provider otherwise.
+ * It is there either way, so that indexes that were created with it keep working.
+ */
+@Service.Implementation(KernelExtensionFactory.class)
+public class NativeSchemaIndexProviderFactory
+        extends KernelExtensionFactory<NativeSchemaIndexProviderFactory.Dependencies>
+{
+    public static final String KEY = "native";
+
+    public static final SchemaIndexProvider.Descriptor PROVIDER_DESCRIPTOR =
+            new SchemaIndexProvider.Descriptor( KEY, "1.0" );
+
+    static final int PRIORITY = 2;
+    static final int DISABLED_PRIORITY = -1;
+
+    public interface Dependencies
+    {
+        Config getConfig();
+
+        PageCache pageCache();
+
+        LogService getLogService();
+    }
+
+    public NativeSchemaIndexProviderFactory()
+    {
+        super( KEY );
+    }
+
+    @Override
+    public NativeSchemaIndexProvider newInstance( KernelContext context, Dependencies dependencies ) throws Throwable
+    {
+        boolean enabled = dependencies.getConfig().get( GraphDatabaseSettings.native_schema_index );
+        LogProvider logProvider = dependencies.getLogService().getInternalLogProvider();
+        if ( enabled )
+        {
+            logProvider.getLog( getClass() ).warn( "Native schema indexes are enabled by %s. Recovery scans all " +
+                    "entries of every native schema index, so it takes longer the larger those indexes are.",
+                    GraphDatabaseSettings.native_schema_index.name() );
+        }
+        return new NativeSchemaIndexProvider( dependencies.pageCache(), context.fileSystem(), context.storeDir(),
+                enabled ? PRIORITY : DISABLED_PRIORITY, logProvider );
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
+import org.neo4j.helpers.CancellationRequest;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
+import org.neo4j.kernel.api.index.IndexOrder;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaIndex.EntryCursor;
+import org.neo4j.register.Register.DoubleLong;
+
+/**
+ * Reads a {@link NativeSchemaIndex}. Seeks are ranges of the keys of the index, since its entries are ordered by
+ * value, which also makes ordered seeks a matter of reading such a range forwards or backwards. Sampling reads all
+ * entries, which counts the distinct values exactly, as entries of the same value are next to each other.
+ */
+class NativeSchemaIndexReader implements IndexReader
+{
+    private static final byte[] TYPES =
+            {IndexKeys.NUMBER, IndexKeys.STRING, IndexKeys.BOOLEAN, IndexKeys.ARRAY, IndexKeys.COMPOSITE};
+
+    private final NativeSchemaIndex index;
+    private final boolean unique;
+    private final CancellationRequest cancellation;
+
+    NativeSchemaIndexReader( NativeSchemaIndex index, boolean unique, CancellationRequest cancellation )
+    {
+        this.index = index;
+        this.unique = unique;
+        this.cancellation = cancellation;
+    }
+
+    @Override
+    public PrimitiveLongIterator seek( Object value )
+    {
+        byte[] key = IndexKeys.value( value );
+        return index.nodes( key, IndexKeys.after( key ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumberInclusive( Number lower, Number upper )
+    {
+        return index.nodes( numberFromKey( lower ), numberToKey( upper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        return index.nodes( stringFromKey( lower, includeLower ), stringToKey( upper, includeUpper ) );
+    }
+
+    @Override
+    public Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper, IndexOrder order )
+    {
+        return orderedCursor( numberFromKey( lower ), numberToKey( upper ), order );
+    }
+
+    @Override
+    public Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                            String upper, boolean includeUpper, IndexOrder order )
+    {
+        return orderedCursor( stringFromKey( lower, includeLower ), stringToKey( upper, includeUpper ), order );
+    }
+
+    private Cursor<IndexEntryItem> orderedCursor( byte[] fromKey, byte[] toKey, IndexOrder order )
+    {
+        return new OrderedEntryCursor( order == IndexOrder.DESCENDING ? index.descendingCursor( fromKey, toKey )
+                                                                      : index.cursor( fromKey, toKey ) );
+    }
+
+    private static byte[] numberFromKey( Number lower )
+    {
+        return lower == null ? IndexKeys.first( IndexKeys.NUMBER ) : IndexKeys.number( lower.doubleValue() );
+    }
+
+    private static byte[] numberToKey( Number upper )
+    {
+        return upper == null ? IndexKeys.last( IndexKeys.NUMBER )
+                             : IndexKeys.after( IndexKeys.number( upper.doubleValue() ) );
+    }
+
+    private static byte[] stringFromKey( String lower, boolean includeLower )
+    {
+        if ( lower == null )
+        {
+            return IndexKeys.first( IndexKeys.STRING );
+        }
+        byte[] fromKey = IndexKeys.string( lower );
+        return includeLower ? fromKey : IndexKeys.after( fromKey );
+    }
+
+    private static byte[] stringToKey( String upper, boolean includeUpper )
+    {
+        if ( upper == null )
+        {
+            return IndexKeys.last( IndexKeys.STRING );
+        }
+        byte[] toKey = IndexKeys.string( upper );
+        return includeUpper ? IndexKeys.after( toKey ) : toKey;
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        byte[] key = IndexKeys.stringPrefix( prefix );
+        return index.nodes( key, IndexKeys.after( key ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator scan()
+    {
+        return index.nodes( new byte[0], null );
+    }
+
+    @Override
+    public int countIndexedNodes( long nodeId, Object propertyValue )
+    {
+        byte[] entry = IndexKeys.entry( IndexKeys.value( propertyValue ), nodeId );
+        return index.cursor( entry, IndexKeys.after( entry ) ).next() ? 1 : 0;
+    }
+
+    @Override
+    public Set<Class> valueTypesInIndex()
+    {
+        Set<Class> types = new HashSet<>();
+        for ( byte type : TYPES )
+        {
+            if ( index.cursor( IndexKeys.first( type ), IndexKeys.last( type ) ).next() )
+            {
+                types.add( IndexKeys.valueType( type ) );
+            }
+        }
+        return types;
+    }
+
+    @Override
+    public long sampleIndex( DoubleLong.Out result ) throws IndexNotFoundKernelException
+    {
+        long entries = 0, values = 0;
+        byte[] previous = null;
+        EntryCursor cursor = index.cursor( new byte[0], null );
+        while ( cursor.next() )
+        {
+            byte[] entry = cursor.entry();
+            if ( previous == null || !IndexKeys.sameValue( previous, entry ) )
+            {
+                values++;
+            }
+            entries++;
+            previous = entry;
+            if ( (entries & 0xFFF) == 0 && cancellation.cancellationRequested() )
+            {
+                throw new IndexNotFoundKernelException( "Index dropped while sampling." );
+            }
+        }
+        // As with the unique sampler, every entry of a unique index counts as a distinct value
+        result.write( unique ? entries : values, entries );
+        return entries;
+    }
+
+    @Override
+    public void close()
+    {   // Nothing to close, entries are read a batch at a time
+    }
+
+    private static class OrderedEntryCursor implements Cursor<IndexEntryItem>, IndexEntryItem
+    {
+        private EntryCursor entries;
+        private byte[] entry;
+        private Object value;
+
+        OrderedEntryCursor( EntryCursor entries )
+        {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean next()
+        {
+            if ( entries == null || !entries.next() )
+            {
+                entry = null;
+                return false;
+            }
+            byte[] next = entries.entry();
+            if ( entry == null || !IndexKeys.sameValue( entry, next ) )
+            {
+                value = IndexKeys.valueOf( next );
+            }
+            entry = next;
+            return true;
+        }
+
+        @Override
+        public IndexEntryItem get()
+        {
+            if ( entry == null )
+            {
+                throw new IllegalStateException();
+            }
+            return this;
+        }
+
+        @Override
+        public long nodeId()
+        {
+            return IndexKeys.nodeId( entry );
+        }
+
+        @Override
+        public Object value()
+        {
+            return value;
+        }
+
+        @Override
+        public void close()
+        {
+            entries = null;
+            entry = null;
+        }
+    }
+}
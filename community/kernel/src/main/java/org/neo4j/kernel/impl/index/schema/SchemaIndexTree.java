@@ -0,0 +1,952 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+/**
+ * A B+tree of variable length byte[] keys, kept in a {@link PagedFile}. Keys are ordered by their unsigned bytes,
+ * a key that is a prefix of another coming first. The {@link NativeSchemaIndexAccessor native schema index} keeps
+ * one entry per indexed node in it, the key being the {@link IndexKeys encoded} property value followed by the node
+ * id, and the tree holds no values of its own.
+ *
+ * Nodes are slotted pages: a header, an array of slots that is kept in key order and grows from the front of the
+ * page, and the key records that the slots point to, which grow from the end of the page. Internal nodes keep the
+ * child to the right of a key in its record, and the leftmost child in the header. Removed records leave a hole
+ * that is reclaimed when the page runs out of room, and the page is split only if it is still full after that.
+ * Leaves are split by bytes rather than by number of keys, and the separator that moves up is the shortest prefix
+ * of the first key of the right leaf that still separates it from the last key of the left leaf.
+ *
+ * Crash safety is the same as that of the label scan tree: pages of the tree of the latest
+ * {@link #checkpoint() check point} are copied before they are changed for the first time after it, and the
+ * replaced pages become free at the next check point. The header also records whether the index has been fully
+ * populated, as of the latest check point.
+ *
+ * Pages are never merged, since the index is as likely to grow back as it is to shrink.
+ *
+ * The tree is not thread safe. Changes must not be made concurrently with other changes or reads, but reads may
+ * be made concurrently with each other.
+ */
+class SchemaIndexTree
+{
+    private static final long MAGIC = 0x4E53_4954_7265_6531L;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final long HEADER_PAGE = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_VERSION_OFFSET = 8;
+    private static final int PAGE_SIZE_OFFSET = 12;
+    private static final int ROOT_OFFSET = 16;
+    private static final int GENERATION_OFFSET = 24;
+    private static final int LAST_PAGE_OFFSET = 32;
+    private static final int FREE_LIST_OFFSET = 40;
+    private static final int ONLINE_OFFSET = 48;
+
+    private static final int NEXT_FREE_LIST_PAGE_OFFSET = 0;
+    private static final int FREE_PAGE_COUNT_OFFSET = 8;
+    private static final int FREE_PAGES_OFFSET = 16;
+    private static final long NO_PAGE = -1;
+
+    private static final byte LEAF = 1, INTERNAL = 2;
+    private static final int TYPE_OFFSET = 0;
+    private static final int KEY_COUNT_OFFSET = 4;
+    private static final int PAGE_GENERATION_OFFSET = 8;
+    private static final int DATA_START_OFFSET = 16;
+    private static final int LEFTMOST_CHILD_OFFSET = 24;
+    private static final int NODE_HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 2;
+    private static final int KEY_LENGTH_SIZE = 2;
+    private static final int CHILD_SIZE = 8;
+
+    private final PagedFile pagedFile;
+    private final int pageSize;
+    private final int maxKeySize;
+    private final byte[] pageBuffer;
+    private final byte[] scratchBuffer;
+
+    private long root;
+    private long stableGeneration, unstableGeneration;
+    private long lastPageId;
+    private boolean online;
+    /** Pages that are not part of the tree of the latest check point, and can be reused. */
+    private final PageIdStack freePages = new PageIdStack();
+    /**
+     * Pages that are part of the tree of the latest check point, but not of the current tree, since they have been
+     * replaced by copies. This includes the pages of the free list written at the latest check point.
+     */
+    private final PageIdStack replacedPages = new PageIdStack();
+
+    /** Whether the latest insert or remove changed the tree. */
+    private boolean changed;
+    /** The separator key and new right sibling of the node that split in the latest insert, if it did. */
+    private byte[] splitKey;
+    private long splitRight;
+
+    private SchemaIndexTree( PagedFile pagedFile )
+    {
+        this.pagedFile = pagedFile;
+        this.pageSize = pagedFile.pageSize();
+        if ( pageSize > 0xFFFF )
+        {
+            throw new IllegalArgumentException( "Page size " + pageSize + " is too large for a schema index tree." );
+        }
+        // At least four keys of the maximum size fit in an internal node, so that both halves of a split fit
+        this.maxKeySize = (pageSize - NODE_HEADER_SIZE) / 4 - (SLOT_SIZE + KEY_LENGTH_SIZE + CHILD_SIZE);
+        this.pageBuffer = new byte[pageSize];
+        this.scratchBuffer = new byte[pageSize];
+    }
+
+    /**
+     * Creates a new and empty tree in the given file, which is check pointed right away.
+     */
+    static SchemaIndexTree create( PagedFile pagedFile ) throws IOException
+    {
+        SchemaIndexTree tree = new SchemaIndexTree( pagedFile );
+        tree.stableGeneration = 0;
+        tree.unstableGeneration = 1;
+        tree.lastPageId = HEADER_PAGE;
+        tree.root = tree.allocate();
+        tree.initialize( tree.pageBuffer, LEAF );
+        tree.store( tree.root, tree.pageBuffer );
+        tree.checkpoint();
+        return tree;
+    }
+
+    /**
+     * Opens the tree of the latest check point in the given file.
+     *
+     * @throws IOException if the file does not contain a tree in a format this class can read.
+     */
+    static SchemaIndexTree open( PagedFile pagedFile ) throws IOException
+    {
+        SchemaIndexTree tree = new SchemaIndexTree( pagedFile );
+        long freeList;
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE, PF_SHARED_LOCK ) )
+        {
+            if ( !cursor.next() )
+            {
+                throw new IOException( "Schema index file " + pagedFile.file() + " is empty." );
+            }
+            long magic;
+            int formatVersion, pageSize;
+            do
+            {
+                magic = cursor.getLong( MAGIC_OFFSET );
+                formatVersion = cursor.getInt( FORMAT_VERSION_OFFSET );
+                pageSize = cursor.getInt( PAGE_SIZE_OFFSET );
+                tree.root = cursor.getLong( ROOT_OFFSET );
+                tree.stableGeneration = cursor.getLong( GENERATION_OFFSET );
+                tree.lastPageId = cursor.getLong( LAST_PAGE_OFFSET );
+                freeList = cursor.getLong( FREE_LIST_OFFSET );
+                tree.online = cursor.getByte( ONLINE_OFFSET ) != 0;
+            }
+            while ( cursor.shouldRetry() );
+
+            if ( magic != MAGIC || formatVersion != FORMAT_VERSION || pageSize != tree.pageSize )
+            {
+                throw new IOException( "Schema index file " + pagedFile.file() + " has an unknown format, " +
+                                       "or was written with a page size of " + pageSize + " rather than " +
+                                       tree.pageSize + "." );
+            }
+        }
+        tree.readFreeList( freeList );
+        tree.unstableGeneration = tree.stableGeneration + 1;
+        return tree;
+    }
+
+    /**
+     * @return the size of the largest key the tree can hold.
+     */
+    int maxKeySize()
+    {
+        return maxKeySize;
+    }
+
+    /**
+     * @return whether the index in the tree has been fully populated.
+     */
+    boolean isOnline()
+    {
+        return online;
+    }
+
+    /**
+     * Marks the index in the tree as fully populated, or not, as of the next check point.
+     */
+    void setOnline( boolean online )
+    {
+        this.online = online;
+    }
+
+    /**
+     * Inserts the given key, unless it is in the tree already.
+     *
+     * @return {@code true} if the key was inserted.
+     * @throws IllegalArgumentException if the key is larger than {@link #maxKeySize()}.
+     */
+    boolean insert( byte[] key ) throws IOException
+    {
+        if ( key.length > maxKeySize )
+        {
+            throw new IllegalArgumentException( "Key of " + key.length + " bytes is larger than the maximum of " +
+                                                maxKeySize + " bytes." );
+        }
+        root = writable( root );
+        if ( insert( root, key ) )
+        {
+            long newRoot = allocate();
+            initialize( pageBuffer, INTERNAL );
+            putLong( pageBuffer, LEFTMOST_CHILD_OFFSET, root );
+            appendRecord( pageBuffer, 0, splitKey, splitRight );
+            putInt( pageBuffer, KEY_COUNT_OFFSET, 1 );
+            store( newRoot, pageBuffer );
+            root = newRoot;
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the given key, if it is in the tree.
+     *
+     * @return {@code true} if the key was removed.
+     */
+    boolean remove( byte[] key ) throws IOException
+    {
+        root = writable( root );
+        remove( root, key );
+        return changed;
+    }
+
+    /**
+     * Reads the keys from {@code fromKey}, inclusive, up to {@code toKey}, exclusive, in key order, but no more than
+     * fits in the given array. A {@code null} {@code toKey} reads to the end of the tree. Reads can continue after
+     * the last key read by reading from the {@link #successor(byte[]) successor} of it.
+     *
+     * @return the number of keys read, or {@code 0} if there are no more keys in the range.
+     */
+    int read( byte[] fromKey, byte[] toKey, byte[][] keys ) throws IOException
+    {
+        byte[] node = new byte[pageSize];
+        byte[] key = fromKey;
+        try ( PageCursor cursor = pagedFile.io( root, PF_SHARED_LOCK ) )
+        {
+            while ( true )
+            {
+                // The key after the keys of the current node, where to continue if its leaf has nothing for us
+                byte[] upperBound = toKey;
+                long pageId = root;
+                while ( true )
+                {
+                    load( cursor, pageId, node );
+                    int count = keyCount( node );
+                    if ( node[TYPE_OFFSET] == LEAF )
+                    {
+                        int read = 0;
+                        for ( int pos = leafPosition( node, count, key ); pos < count && read < keys.length; pos++ )
+                        {
+                            if ( toKey != null && compare( node, pos, toKey ) >= 0 )
+                            {
+                                return read;
+                            }
+                            keys[read++] = key( node, pos );
+                        }
+                        if ( read > 0 )
+                        {
+                            return read;
+                        }
+                        break;
+                    }
+                    int pos = childPosition( node, count, key );
+                    if ( pos < count && (upperBound == null || compare( node, pos, upperBound ) < 0) )
+                    {
+                        upperBound = key( node, pos );
+                    }
+                    pageId = child( node, pos );
+                }
+                if ( upperBound == null || (toKey != null && compare( upperBound, toKey ) >= 0) )
+                {
+                    return 0;
+                }
+                key = upperBound;
+            }
+        }
+    }
+
+    /**
+     * Reads the keys before {@code toKey}, exclusive, down to {@code fromKey}, inclusive, in reverse key order, but
+     * no more than fits in the given array. A {@code null} {@code toKey} reads from the end of the tree. Reads can
+     * continue after the last key read by reading up to it.
+     *
+     * @return the number of keys read, or {@code 0} if there are no more keys in the range.
+     */
+    int readDescending( byte[] fromKey, byte[] toKey, byte[][] keys ) throws IOException
+    {
+        byte[] node = new byte[pageSize];
+        byte[] key = toKey;
+        try ( PageCursor cursor = pagedFile.io( root, PF_SHARED_LOCK ) )
+        {
+            while ( true )
+            {
+                // The first key of the current node, where to continue down from if its leaf has nothing for us
+                byte[] lowerBound = null;
+                long pageId = root;
+                while ( true )
+                {
+                    load( cursor, pageId, node );
+                    int count = keyCount( node );
+                    int pos = key == null ? count : leafPosition( node, count, key );
+                    if ( node[TYPE_OFFSET] == LEAF )
+                    {
+                        int read = 0;
+                        for ( pos--; pos >= 0 && read < keys.length; pos-- )
+                        {
+                            if ( fromKey != null && compare( node, pos, fromKey ) < 0 )
+                            {
+                                return read;
+                            }
+                            keys[read++] = key( node, pos );
+                        }
+                        if ( read > 0 )
+                        {
+                            return read;
+                        }
+                        break;
+                    }
+                    if ( pos > 0 && (lowerBound == null || compare( node, pos - 1, lowerBound ) > 0) )
+                    {
+                        lowerBound = key( node, pos - 1 );
+                    }
+                    pageId = child( node, pos );
+                }
+                if ( lowerBound == null || (fromKey != null && compare( lowerBound, fromKey ) <= 0) )
+                {
+                    return 0;
+                }
+                key = lowerBound;
+            }
+        }
+    }
+
+    /**
+     * @return the smallest key that is greater than the given key.
+     */
+    static byte[] successor( byte[] key )
+    {
+        return Arrays.copyOf( key, key.length + 1 );
+    }
+
+    /**
+     * Compares keys by their unsigned bytes, a key that is a prefix of another coming first.
+     */
+    static int compare( byte[] left, byte[] right )
+    {
+        return compare( left, 0, left.length, right );
+    }
+
+    /**
+     * Makes the changes since the previous check point durable, and the current tree the one to open after a crash.
+     */
+    void checkpoint() throws IOException
+    {
+        pagedFile.flushAndForce();
+        long freeList = writeFreeList();
+        pagedFile.flushAndForce();
+        stableGeneration = unstableGeneration;
+        try ( PageCursor cursor = write( HEADER_PAGE ) )
+        {
+            cursor.putLong( MAGIC_OFFSET, MAGIC );
+            cursor.putInt( FORMAT_VERSION_OFFSET, FORMAT_VERSION );
+            cursor.putInt( PAGE_SIZE_OFFSET, pageSize );
+            cursor.putLong( ROOT_OFFSET, root );
+            cursor.putLong( GENERATION_OFFSET, stableGeneration );
+            cursor.putLong( LAST_PAGE_OFFSET, lastPageId );
+            cursor.putLong( FREE_LIST_OFFSET, freeList );
+            cursor.putByte( ONLINE_OFFSET, (byte) (online ? 1 : 0) );
+        }
+        pagedFile.flushAndForce();
+        unstableGeneration = stableGeneration + 1;
+    }
+
+    /**
+     * Writes the ids of the free pages, and of the pages that become free with this check point, to a chain of
+     * pages taken from the free pages.
+     *
+     * @return the id of the first page of the chain.
+     */
+    private long writeFreeList() throws IOException
+    {
+        // The replaced pages are part of the tree of the header on disk until the new one is written, so the free
+        // list can only be written to pages that were free already
+        int freePagesPerPage = (pageSize - FREE_PAGES_OFFSET) / 8;
+        PageIdStack listPages = new PageIdStack();
+        while ( (long) listPages.size() * freePagesPerPage < freePages.size() + replacedPages.size() )
+        {
+            listPages.push( allocate() );
+        }
+        freePages.pushAll( replacedPages );
+        replacedPages.clear();
+
+        long next = NO_PAGE;
+        int remaining = freePages.size();
+        for ( int i = 0; i < listPages.size(); i++ )
+        {
+            long pageId = listPages.get( i );
+            int count = Math.min( remaining, freePagesPerPage );
+            try ( PageCursor cursor = write( pageId ) )
+            {
+                cursor.putLong( NEXT_FREE_LIST_PAGE_OFFSET, next );
+                cursor.putInt( FREE_PAGE_COUNT_OFFSET, count );
+                for ( int j = 0; j < count; j++ )
+                {
+                    cursor.putLong( FREE_PAGES_OFFSET + j * 8, freePages.get( --remaining ) );
+                }
+            }
+            next = pageId;
+        }
+
+        // The pages of the list are free after the next check point, when it is no longer in use
+        replacedPages.pushAll( listPages );
+        return next;
+    }
+
+    private void readFreeList( long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE, PF_SHARED_LOCK ) )
+        {
+            for ( int pages = 0; pageId != NO_PAGE; pages++ )
+            {
+                if ( pageId <= HEADER_PAGE || pageId > lastPageId || pages > lastPageId )
+                {
+                    throw new IOException( "Schema index file " + pagedFile.file() + " has a broken free list." );
+                }
+                replacedPages.push( pageId );
+                pin( cursor, pageId );
+                int size = freePages.size();
+                long next;
+                int count;
+                do
+                {
+                    freePages.truncate( size );
+                    next = cursor.getLong( NEXT_FREE_LIST_PAGE_OFFSET );
+                    count = Math.min( Math.max( cursor.getInt( FREE_PAGE_COUNT_OFFSET ), 0 ),
+                            (pageSize - FREE_PAGES_OFFSET) / 8 );
+                    for ( int i = 0; i < count; i++ )
+                    {
+                        freePages.push( cursor.getLong( FREE_PAGES_OFFSET + i * 8 ) );
+                    }
+                }
+                while ( cursor.shouldRetry() );
+                pageId = next;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the given node was split, in which case {@link #splitKey} and {@link #splitRight}
+     * tell how.
+     */
+    private boolean insert( long pageId, byte[] key ) throws IOException
+    {
+        load( pageId, pageBuffer );
+        int count = keyCount( pageBuffer );
+        if ( pageBuffer[TYPE_OFFSET] == LEAF )
+        {
+            int pos = leafPosition( pageBuffer, count, key );
+            changed = pos == count || compare( pageBuffer, pos, key ) != 0;
+            return changed && insertInNode( pageId, pos, key, NO_PAGE );
+        }
+
+        int pos = childPosition( pageBuffer, count, key );
+        long child = child( pageBuffer, pos );
+        long writableChild = writable( child );
+        if ( writableChild != child )
+        {
+            setChild( pageBuffer, pos, writableChild );
+            store( pageId, pageBuffer );
+        }
+        if ( !insert( writableChild, key ) )
+        {
+            return false;
+        }
+        load( pageId, pageBuffer );
+        return insertInNode( pageId, pos, splitKey, splitRight );
+    }
+
+    private void remove( long pageId, byte[] key ) throws IOException
+    {
+        load( pageId, pageBuffer );
+        int count = keyCount( pageBuffer );
+        if ( pageBuffer[TYPE_OFFSET] == LEAF )
+        {
+            int pos = leafPosition( pageBuffer, count, key );
+            changed = pos < count && compare( pageBuffer, pos, key ) == 0;
+            if ( changed )
+            {
+                System.arraycopy( pageBuffer, slotOffset( pos + 1 ), pageBuffer, slotOffset( pos ),
+                        (count - pos - 1) * SLOT_SIZE );
+                putInt( pageBuffer, KEY_COUNT_OFFSET, count - 1 );
+                store( pageId, pageBuffer );
+            }
+            return;
+        }
+
+        int pos = childPosition( pageBuffer, count, key );
+        long child = child( pageBuffer, pos );
+        long writableChild = writable( child );
+        if ( writableChild != child )
+        {
+            setChild( pageBuffer, pos, writableChild );
+            store( pageId, pageBuffer );
+        }
+        remove( writableChild, key );
+    }
+
+    /**
+     * Inserts the given key at the given position of the node in {@link #pageBuffer}, with the given child to the
+     * right of it if the node is internal, and stores the node.
+     *
+     * @return {@code true} if the node had to be split.
+     */
+    private boolean insertInNode( long pageId, int pos, byte[] key, long rightChild ) throws IOException
+    {
+        byte[] node = pageBuffer;
+        boolean leaf = node[TYPE_OFFSET] == LEAF;
+        int count = keyCount( node );
+        int recordSize = recordSize( key.length, leaf );
+        int free = getInt( node, DATA_START_OFFSET ) - slotOffset( count );
+        if ( free < SLOT_SIZE + recordSize )
+        {
+            if ( slotOffset( count + 1 ) + liveDataSize( node, count, leaf ) + recordSize > pageSize )
+            {
+                split( pageId, pos, key, rightChild );
+                return true;
+            }
+            compact( node, count, leaf );
+        }
+        System.arraycopy( node, slotOffset( pos ), node, slotOffset( pos + 1 ), (count - pos) * SLOT_SIZE );
+        appendRecord( node, pos, key, rightChild );
+        putInt( node, KEY_COUNT_OFFSET, count + 1 );
+        store( pageId, node );
+        return false;
+    }
+
+    /**
+     * Splits the node in {@link #pageBuffer} in two, with the given key inserted. The left half stays in the given
+     * page and the right half moves to a new one. The middle key of an internal node moves up to the parent.
+     */
+    private void split( long pageId, int pos, byte[] key, long rightChild ) throws IOException
+    {
+        byte[] node = pageBuffer;
+        boolean leaf = node[TYPE_OFFSET] == LEAF;
+        int count = keyCount( node );
+        byte[][] keys = new byte[count + 1][];
+        long[] children = leaf ? null : new long[count + 2];
+        int totalSize = 0;
+        for ( int i = 0, j = 0; i <= count; i++ )
+        {
+            keys[i] = i == pos ? key : key( node, j++ );
+            totalSize += SLOT_SIZE + recordSize( keys[i].length, leaf );
+        }
+        if ( !leaf )
+        {
+            for ( int i = 0, j = 0; i <= count + 1; i++ )
+            {
+                children[i] = i == pos + 1 ? rightChild : child( node, j++ );
+            }
+        }
+
+        int middle = 0;
+        for ( int size = 0; middle < count && size < totalSize / 2; middle++ )
+        {
+            size += SLOT_SIZE + recordSize( keys[middle].length, leaf );
+        }
+        middle = Math.max( middle, 1 );
+
+        splitRight = allocate();
+        if ( leaf )
+        {
+            splitKey = separator( keys[middle - 1], keys[middle] );
+            writeNode( pageId, LEAF, keys, null, 0, middle );
+            writeNode( splitRight, LEAF, keys, null, middle, count + 1 );
+        }
+        else
+        {
+            splitKey = keys[middle];
+            writeNode( pageId, INTERNAL, keys, children, 0, middle );
+            writeNode( splitRight, INTERNAL, keys, children, middle + 1, count + 1 );
+        }
+    }
+
+    private void writeNode( long pageId, byte type, byte[][] keys, long[] children, int from, int to )
+            throws IOException
+    {
+        byte[] node = pageBuffer;
+        initialize( node, type );
+        if ( children != null )
+        {
+            putLong( node, LEFTMOST_CHILD_OFFSET, children[from] );
+        }
+        for ( int i = from; i < to; i++ )
+        {
+            appendRecord( node, i - from, keys[i], children != null ? children[i + 1] : NO_PAGE );
+        }
+        putInt( node, KEY_COUNT_OFFSET, to - from );
+        store( pageId, node );
+    }
+
+    /**
+     * @return the shortest key that is greater than {@code left} and not greater than {@code right}.
+     */
+    private static byte[] separator( byte[] left, byte[] right )
+    {
+        int common = 0;
+        while ( common < left.length && left[common] == right[common] )
+        {
+            common++;
+        }
+        return Arrays.copyOf( right, common + 1 );
+    }
+
+    /**
+     * Writes a record for the given key below the records of the node, and points the slot at the given position
+     * to it. The slot array must already have room for the slot.
+     */
+    private static void appendRecord( byte[] node, int pos, byte[] key, long rightChild )
+    {
+        boolean leaf = node[TYPE_OFFSET] == LEAF;
+        int offset = getInt( node, DATA_START_OFFSET ) - recordSize( key.length, leaf );
+        putShort( node, offset, key.length );
+        System.arraycopy( key, 0, node, offset + KEY_LENGTH_SIZE, key.length );
+        if ( !leaf )
+        {
+            putLong( node, offset + KEY_LENGTH_SIZE + key.length, rightChild );
+        }
+        putShort( node, slotOffset( pos ), offset );
+        putInt( node, DATA_START_OFFSET, offset );
+    }
+
+    /**
+     * Moves the records of the node together at the end of the page, reclaiming the room of removed records.
+     */
+    private void compact( byte[] node, int count, boolean leaf )
+    {
+        System.arraycopy( node, 0, scratchBuffer, 0, pageSize );
+        int dataStart = pageSize;
+        for ( int i = 0; i < count; i++ )
+        {
+            int offset = keyOffset( scratchBuffer, i );
+            int size = recordSize( keyLength( scratchBuffer, offset ), leaf );
+            dataStart -= size;
+            System.arraycopy( scratchBuffer, offset, node, dataStart, size );
+            putShort( node, slotOffset( i ), dataStart );
+        }
+        putInt( node, DATA_START_OFFSET, dataStart );
+    }
+
+    private static int liveDataSize( byte[] node, int count, boolean leaf )
+    {
+        int size = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            size += recordSize( keyLength( node, keyOffset( node, i ) ), leaf );
+        }
+        return size;
+    }
+
+    private static int recordSize( int keyLength, boolean leaf )
+    {
+        return KEY_LENGTH_SIZE + keyLength + (leaf ? 0 : CHILD_SIZE);
+    }
+
+    /**
+     * @return the id of a page with the contents of the given page that may be changed in place, which is the given
+     * page itself if it has been written since the latest check point, or a copy of it otherwise.
+     */
+    private long writable( long pageId ) throws IOException
+    {
+        byte[] node = scratchBuffer;
+        load( pageId, node );
+        if ( getLong( node, PAGE_GENERATION_OFFSET ) == unstableGeneration )
+        {
+            return pageId;
+        }
+        long copy = allocate();
+        putLong( node, PAGE_GENERATION_OFFSET, unstableGeneration );
+        store( copy, node );
+        replacedPages.push( pageId );
+        return copy;
+    }
+
+    private long allocate()
+    {
+        return freePages.size() > 0 ? freePages.pop() : ++lastPageId;
+    }
+
+    private void initialize( byte[] node, byte type )
+    {
+        node[TYPE_OFFSET] = type;
+        putInt( node, KEY_COUNT_OFFSET, 0 );
+        putLong( node, PAGE_GENERATION_OFFSET, unstableGeneration );
+        putInt( node, DATA_START_OFFSET, pageSize );
+        putLong( node, LEFTMOST_CHILD_OFFSET, NO_PAGE );
+    }
+
+    private void load( long pageId, byte[] node ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_LOCK ) )
+        {
+            load( cursor, pageId, node );
+        }
+    }
+
+    private void load( PageCursor cursor, long pageId, byte[] node ) throws IOException
+    {
+        pin( cursor, pageId );
+        do
+        {
+            cursor.setOffset( 0 );
+            cursor.getBytes( node );
+        }
+        while ( cursor.shouldRetry() );
+    }
+
+    private void store( long pageId, byte[] node ) throws IOException
+    {
+        try ( PageCursor cursor = write( pageId ) )
+        {
+            cursor.putBytes( node );
+        }
+    }
+
+    private PageCursor write( long pageId ) throws IOException
+    {
+        PageCursor cursor = pagedFile.io( pageId, PF_EXCLUSIVE_LOCK );
+        pin( cursor, pageId );
+        return cursor;
+    }
+
+    private void pin( PageCursor cursor, long pageId ) throws IOException
+    {
+        if ( !cursor.next( pageId ) )
+        {
+            cursor.close();
+            throw new IOException( "Could not pin page " + pageId + " of " + pagedFile.file() );
+        }
+    }
+
+    private static int keyCount( byte[] node )
+    {
+        // Clamped, since an optimistic read may see any value
+        int maxCount = (node.length - NODE_HEADER_SIZE) / SLOT_SIZE;
+        return Math.min( Math.max( getInt( node, KEY_COUNT_OFFSET ), 0 ), maxCount );
+    }
+
+    private static int slotOffset( int pos )
+    {
+        return NODE_HEADER_SIZE + pos * SLOT_SIZE;
+    }
+
+    private static int keyOffset( byte[] node, int pos )
+    {
+        return Math.min( getShort( node, slotOffset( pos ) ), node.length - KEY_LENGTH_SIZE );
+    }
+
+    private static int keyLength( byte[] node, int offset )
+    {
+        return Math.min( getShort( node, offset ), node.length - offset - KEY_LENGTH_SIZE );
+    }
+
+    private static byte[] key( byte[] node, int pos )
+    {
+        int offset = keyOffset( node, pos );
+        int start = offset + KEY_LENGTH_SIZE;
+        return Arrays.copyOfRange( node, start, start + keyLength( node, offset ) );
+    }
+
+    private static long child( byte[] node, int pos )
+    {
+        if ( pos == 0 )
+        {
+            return getLong( node, LEFTMOST_CHILD_OFFSET );
+        }
+        int offset = keyOffset( node, pos - 1 );
+        return getLong( node, Math.min( offset + KEY_LENGTH_SIZE + keyLength( node, offset ),
+                node.length - CHILD_SIZE ) );
+    }
+
+    private static void setChild( byte[] node, int pos, long child )
+    {
+        if ( pos == 0 )
+        {
+            putLong( node, LEFTMOST_CHILD_OFFSET, child );
+        }
+        else
+        {
+            int offset = keyOffset( node, pos - 1 );
+            putLong( node, offset + KEY_LENGTH_SIZE + keyLength( node, offset ), child );
+        }
+    }
+
+    /** @return the position of the first key that is equal to or greater than the given key. */
+    private static int leafPosition( byte[] node, int count, byte[] key )
+    {
+        int low = 0, high = count;
+        while ( low < high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( compare( node, mid, key ) < 0 )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** @return the position of the child that covers the given key, that of the first key greater than it. */
+    private static int childPosition( byte[] node, int count, byte[] key )
+    {
+        int low = 0, high = count;
+        while ( low < high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( compare( node, mid, key ) <= 0 )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare( byte[] node, int pos, byte[] key )
+    {
+        int offset = keyOffset( node, pos );
+        return compare( node, offset + KEY_LENGTH_SIZE, keyLength( node, offset ), key );
+    }
+
+    private static int compare( byte[] bytes, int offset, int length, byte[] key )
+    {
+        int common = Math.min( length, key.length );
+        for ( int i = 0; i < common; i++ )
+        {
+            int diff = (bytes[offset + i] & 0xFF) - (key[i] & 0xFF);
+            if ( diff != 0 )
+            {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static int getShort( byte[] bytes, int offset )
+    {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static void putShort( byte[] bytes, int offset, int value )
+    {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+
+    private static int getInt( byte[] bytes, int offset )
+    {
+        return (getShort( bytes, offset ) << 16) | getShort( bytes, offset + 2 );
+    }
+
+    private static void putInt( byte[] bytes, int offset, int value )
+    {
+        putShort( bytes, offset, value >>> 16 );
+        putShort( bytes, offset + 2, value );
+    }
+
+    private static long getLong( byte[] bytes, int offset )
+    {
+        return ((long) getInt( bytes, offset ) << 32) | (getInt( bytes, offset + 4 ) & 0xFFFF_FFFFL);
+    }
+
+    private static void putLong( byte[] bytes, int offset, long value )
+    {
+        putInt( bytes, offset, (int) (value >>> 32) );
+        putInt( bytes, offset + 4, (int) value );
+    }
+
+    private static class PageIdStack
+    {
+        private long[] ids = new long[16];
+        private int size;
+
+        void push( long id )
+        {
+            if ( size == ids.length )
+            {
+                ids = Arrays.copyOf( ids, size * 2 );
+            }
+            ids[size++] = id;
+        }
+
+        void pushAll( PageIdStack other )
+        {
+            for ( int i = 0; i < other.size; i++ )
+            {
+                push( other.ids[i] );
+            }
+        }
+
+        long pop()
+        {
+            return ids[--size];
+        }
+
+        long get( int index )
+        {
+            return ids[index];
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        void truncate( int size )
+        {
+            this.size = size;
+        }
+
+        void clear()
+        {
+            size = 0;
+        }
+    }
+}
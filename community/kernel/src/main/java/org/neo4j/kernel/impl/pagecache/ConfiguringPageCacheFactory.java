@@ -31,8 +31,11 @@ import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.logging.Log;
 
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.check_point_io_ratio;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_read_ahead_pages;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 
 public class ConfiguringPageCacheFactory
@@ -91,11 +94,15 @@ public class ConfiguringPageCacheFactory
     {
         int cachePageSize = calculatePageSize( config, swapperFactory );
         int maxPages = calculateMaxPages( config, cachePageSize );
-        return new MuninnPageCache(
+        MuninnPageCache pageCache = new MuninnPageCache(
                 swapperFactory,
                 maxPages,
                 cachePageSize,
-                tracer );
+                tracer,
+                config.get( pagecache_eviction_policy ) );
+        pageCache.setBackgroundFlushIORatio( config.get( check_point_io_ratio ) );
+        pageCache.setReadAheadPages( config.get( pagecache_read_ahead_pages ) );
+        return pageCache;
     }
 
     public int calculateMaxPages( Config config, int cachePageSize )
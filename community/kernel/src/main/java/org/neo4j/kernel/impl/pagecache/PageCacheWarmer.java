@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.function.Predicates;
+import org.neo4j.function.Supplier;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.pageCacheWarmup;
+
+/**
+ * Keeps a profile of the pages that are in the page cache, and uses it to warm up the page cache after a restart.
+ *
+ * The profile records which pages of each of the mapped files in the store directory are in the page cache. It is
+ * written periodically, and when the warmer is stopped. When the warmer is started, the profiled pages are loaded in
+ * the background, file by file and in file order, with {@link PagedFile#prefetch(long, int) vectored reads}. This
+ * way the page cache refills with large sequential reads, rather than with the random page faults of the workload.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String PROFILE_FILE_NAME = "pagecache.profile";
+    private static final long PROFILE_FORMAT_VERSION = 1;
+    // Load the profiled pages in runs of at most this many pages, so a stop request is noticed in reasonable time.
+    private static final int MAX_RUN_LENGTH = 4096;
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File storeDir;
+    private final long profileIntervalMillis;
+    private final Log log;
+
+    private final Runnable warmUpJob = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            warmingUp = true;
+            try
+            {
+                if ( stopped )
+                {
+                    return;
+                }
+                long pagesLoaded = warmUp();
+                log.info( "Page cache warm up loaded " + pagesLoaded + " pages." );
+            }
+            catch ( IOException e )
+            {
+                log.warn( "Page cache warm up failed. The page cache will instead be filled by the workload.", e );
+            }
+            finally
+            {
+                warmedUp = !stopped;
+                warmingUp = false;
+            }
+        }
+    };
+
+    private final Runnable profileJob = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            // Don't replace the profile with the partial set of pages we have while warming up.
+            if ( stopped || !warmedUp )
+            {
+                return;
+            }
+            try
+            {
+                profile();
+            }
+            catch ( IOException e )
+            {
+                log.warn( "Failed to write the page cache profile.", e );
+            }
+        }
+    };
+
+    private final Supplier<Boolean> notWarmingUp = new Supplier<Boolean>()
+    {
+        @Override
+        public Boolean get()
+        {
+            return !warmingUp;
+        }
+    };
+
+    private volatile JobScheduler.JobHandle warmUpHandle;
+    private volatile JobScheduler.JobHandle profileHandle;
+    private volatile boolean stopped;
+    private volatile boolean warmingUp;
+    private volatile boolean warmedUp;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File storeDir,
+            long profileIntervalMillis, LogProvider logProvider )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.storeDir = storeDir;
+        this.profileIntervalMillis = profileIntervalMillis;
+        this.log = logProvider.getLog( getClass() );
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        stopped = false;
+        warmedUp = false;
+        if ( fs.fileExists( profileFile() ) )
+        {
+            warmUpHandle = scheduler.schedule( pageCacheWarmup, warmUpJob );
+        }
+        else
+        {
+            warmedUp = true;
+        }
+        profileHandle = scheduler.scheduleRecurring(
+                pageCacheWarmup, profileJob, profileIntervalMillis, profileIntervalMillis, MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopped = true;
+        if ( warmUpHandle != null )
+        {
+            warmUpHandle.cancel( false );
+            warmUpHandle = null;
+        }
+        if ( profileHandle != null )
+        {
+            profileHandle.cancel( false );
+            profileHandle = null;
+        }
+        Predicates.awaitForever( notWarmingUp, 10, MILLISECONDS );
+        if ( warmedUp )
+        {
+            profile();
+        }
+    }
+
+    /**
+     * Write the profile of the pages that are currently in the page cache, replacing any existing profile.
+     */
+    public synchronized void profile() throws IOException
+    {
+        File profileFile = profileFile();
+        File tempFile = new File( storeDir, PROFILE_FILE_NAME + ".tmp" );
+        List<PagedFile> pagedFiles = pageCache.listExistingMappings();
+        try ( DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream( fs.openAsOutputStream( tempFile, false ) ) ) )
+        {
+            out.writeLong( PROFILE_FORMAT_VERSION );
+            for ( PagedFile pagedFile : pagedFiles )
+            {
+                if ( !isInStoreDir( pagedFile.file() ) )
+                {
+                    continue;
+                }
+                PageBitmap residentPages = new PageBitmap();
+                pagedFile.visitResidentPages( residentPages );
+                out.writeBoolean( true );
+                out.writeUTF( pagedFile.file().getName() );
+                out.writeInt( residentPages.words );
+                for ( int i = 0; i < residentPages.words; i++ )
+                {
+                    out.writeLong( residentPages.bitmap[i] );
+                }
+            }
+            out.writeBoolean( false );
+        }
+        finally
+        {
+            closeAll( pagedFiles );
+        }
+        fs.deleteFile( profileFile );
+        fs.renameFile( tempFile, profileFile );
+    }
+
+    /**
+     * Load the pages in the profile into the page cache, for the files that are currently mapped. Never loads more
+     * pages than fit in the page cache.
+     * @return The number of pages that were requested to be loaded.
+     */
+    public long warmUp() throws IOException
+    {
+        File profileFile = profileFile();
+        if ( !fs.fileExists( profileFile ) )
+        {
+            return 0;
+        }
+        long budget = pageCache.maxCachedPages();
+        long pagesLoaded = 0;
+        List<PagedFile> pagedFiles = pageCache.listExistingMappings();
+        try ( DataInputStream in = new DataInputStream(
+                new BufferedInputStream( fs.openAsInputStream( profileFile ) ) ) )
+        {
+            Map<String,PagedFile> filesByName = new HashMap<>();
+            for ( PagedFile pagedFile : pagedFiles )
+            {
+                if ( isInStoreDir( pagedFile.file() ) )
+                {
+                    filesByName.put( pagedFile.file().getName(), pagedFile );
+                }
+            }
+
+            long version = in.readLong();
+            if ( version != PROFILE_FORMAT_VERSION )
+            {
+                log.warn( "Ignoring page cache profile with unknown format version " + version + "." );
+                return 0;
+            }
+            while ( in.readBoolean() )
+            {
+                PagedFile pagedFile = filesByName.get( in.readUTF() );
+                int words = in.readInt();
+                long runStart = 0;
+                int runLength = 0;
+                for ( int i = 0; i < words; i++ )
+                {
+                    // Keep consuming the bitmap, even when we skip the file, to get to the next file in the profile.
+                    long word = in.readLong();
+                    if ( pagedFile == null || stopped || pagesLoaded >= budget )
+                    {
+                        continue;
+                    }
+                    for ( int bit = 0; bit < Long.SIZE; bit++ )
+                    {
+                        long filePageId = i * (long) Long.SIZE + bit;
+                        if ( (word & (1L << bit)) != 0 )
+                        {
+                            if ( runLength == 0 )
+                            {
+                                runStart = filePageId;
+                            }
+                            runLength++;
+                            if ( runLength < MAX_RUN_LENGTH )
+                            {
+                                continue;
+                            }
+                        }
+                        if ( runLength > 0 )
+                        {
+                            pagesLoaded += load( pagedFile, runStart, runLength, budget - pagesLoaded );
+                            runLength = 0;
+                        }
+                    }
+                }
+                if ( runLength > 0 && !stopped )
+                {
+                    pagesLoaded += load( pagedFile, runStart, runLength, budget - pagesLoaded );
+                }
+            }
+        }
+        finally
+        {
+            closeAll( pagedFiles );
+        }
+        return pagesLoaded;
+    }
+
+    private long load( PagedFile pagedFile, long startFilePageId, int pageCount, long budget ) throws IOException
+    {
+        int pages = (int) Math.min( pageCount, budget );
+        if ( pages > 0 )
+        {
+            pagedFile.prefetch( startFilePageId, pages );
+        }
+        return pages;
+    }
+
+    private boolean isInStoreDir( File file )
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        return parent != null && parent.equals( storeDir.getAbsoluteFile() );
+    }
+
+    private File profileFile()
+    {
+        return new File( storeDir, PROFILE_FILE_NAME );
+    }
+
+    private static void closeAll( List<PagedFile> pagedFiles ) throws IOException
+    {
+        IOException exception = null;
+        for ( PagedFile pagedFile : pagedFiles )
+        {
+            try
+            {
+                pagedFile.close();
+            }
+            catch ( IOException e )
+            {
+                if ( exception == null )
+                {
+                    exception = e;
+                }
+                else
+                {
+                    exception.addSuppressed( e );
+                }
+            }
+        }
+        if ( exception != null )
+        {
+            throw exception;
+        }
+    }
+
+    /**
+     * Collects the visited file page ids into a bitmap, with one bit per page of the file.
+     */
+    private static class PageBitmap implements PrimitiveLongVisitor<RuntimeException>
+    {
+        private long[] bitmap = new long[16];
+        private int words;
+
+        @Override
+        public boolean visited( long filePageId )
+        {
+            int word = (int) (filePageId / Long.SIZE);
+            if ( word >= bitmap.length )
+            {
+                bitmap = Arrays.copyOf( bitmap, Math.max( word + 1, bitmap.length * 2 ) );
+            }
+            bitmap[word] |= 1L << (filePageId % Long.SIZE);
+            words = Math.max( words, word + 1 );
+            return false;
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.store;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -100,14 +101,24 @@ public class SchemaStorage implements SchemaRuleAccess
      *
      * Otherwise throw if there are not exactly one matching candidate rule.
      */
-    public IndexRule indexRule( final int labelId, final int propertyKeyId, IndexRuleKind kind )
+    public IndexRule indexRule( int labelId, int propertyKeyId, IndexRuleKind kind )
+    {
+        return indexRule( labelId, new int[]{propertyKeyId}, kind );
+    }
+
+    /**
+     * Find and IndexRule of the given kind, for the given label and exactly the given property keys, in order.
+     *
+     * Otherwise throw if there are not exactly one matching candidate rule.
+     */
+    public IndexRule indexRule( final int labelId, final int[] propertyKeyIds, IndexRuleKind kind )
     {
         Iterator<IndexRule> rules = schemaRules( cast( IndexRule.class ), IndexRule.class, new Predicate<IndexRule>()
         {
             @Override
             public boolean test( IndexRule rule )
             {
-                return rule.getLabel() == labelId && rule.getPropertyKey() == propertyKeyId;
+                return rule.getLabel() == labelId && Arrays.equals( rule.getPropertyKeys(), propertyKeyIds );
             }
         } );
 
@@ -41,6 +41,7 @@ import org.neo4j.kernel.impl.store.kvstore.ReadableBuffer;
 import org.neo4j.kernel.impl.store.kvstore.Rotation;
 import org.neo4j.kernel.impl.store.kvstore.RotationMonitor;
 import org.neo4j.kernel.impl.store.kvstore.RotationTimerFactory;
+import org.neo4j.kernel.impl.store.kvstore.State;
 import org.neo4j.kernel.impl.store.kvstore.UnknownKey;
 import org.neo4j.kernel.impl.store.kvstore.WritableBuffer;
 import org.neo4j.kernel.impl.util.function.Optional;
@@ -65,12 +66,15 @@ import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.relations
  * {@linkplain CountsUpdater the value serialisation format}, and
  * {@linkplain #HEADER_FIELDS the header fields}.
  *
- * The {@linkplain AbstractKeyValueStore parent class} defines the life cycle of the store.
+ * The {@linkplain AbstractKeyValueStore parent class} defines the life cycle of the store. Changes that are not yet
+ * rotated into a store file are kept in a {@linkplain State.Strategy#CONCURRENT_LONG_TABLE primitive table}, keyed by
+ * the serialized form of the keys.
  *
  * The pattern of immutable store files, and rotation strategy, et.c. is defined in the
  * {@code kvstore}-package, see {@link org.neo4j.kernel.impl.store.kvstore.KeyValueStoreFile} for a good entry point.
  */
 @Rotation(value = Rotation.Strategy.LEFT_RIGHT, parameters = {CountsTracker.LEFT, CountsTracker.RIGHT})
+@State(State.Strategy.CONCURRENT_LONG_TABLE)
 public class CountsTracker extends AbstractKeyValueStore<CountsKey>
         implements CountsVisitor.Visitable, CountsAccessor
 {
@@ -205,6 +209,16 @@ public class CountsTracker extends AbstractKeyValueStore<CountsKey>
         return new CountsUpdater( updater() );
     }
 
+    /**
+     * Updates the counts in place, on top of the existing counts and without a transaction of its own.
+     * The changes are persisted with the next rotation. Like the updater returned by {@link #reset(long)}, it may
+     * be applied to by other threads than the one that opened it, but must be closed by that thread.
+     */
+    public CountsAccessor.Updater updateCounts()
+    {
+        return new CountsUpdater( updater() );
+    }
+
     public CountsAccessor.Updater reset( long txId )
     {
         return new CountsUpdater( resetter( txId ) );
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.INTEGER_MINUS_ONE;
+
+/**
+ * An {@link IdGenerator} that lets many threads allocate ids without contending on the monitor of the
+ * {@link IdGenerator} it wraps.
+ * <p>
+ * Each thread leases a small batch of ids at a time, using {@link IdGenerator#nextIdBatch(int)} on the wrapped
+ * generator, and hands out ids from that lease without any synchronization. Ids that a thread leased but didn't
+ * use are handed back with {@link #releaseLease()}, typically when a transaction closes, into a lock-free pool
+ * where other threads pick them up before leasing new ids from the wrapped generator.
+ * <p>
+ * Freed ids are collected in a lock-free list as well, and are passed on to the wrapped generator in batches,
+ * which then makes them available for reuse in the same way as if they had been freed there directly.
+ * <p>
+ * {@link #close()} hands all leased but unused ids, and all freed ids, over to the wrapped generator before closing
+ * it, so that they are reused in the next session. Like for the wrapped generator, no thread may allocate or free
+ * ids while it is being closed.
+ */
+public class ConcurrentIdGenerator implements IdGenerator
+{
+    private static final long[] NO_IDS = new long[0];
+
+    private final IdGenerator delegate;
+    private final int leaseSize;
+    private final int freedIdBatchSize;
+
+    // ids leased by a thread and not yet used, which that thread gave back
+    private final ConcurrentLinkedQueue<IdRange> releasedLeases = new ConcurrentLinkedQueue<>();
+    // ids freed, but not yet passed on to the delegate
+    private final ConcurrentLinkedQueue<Long> freedIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freedIdCount = new AtomicInteger();
+    private final AtomicBoolean freeingIds = new AtomicBoolean();
+    // bumped whenever the high id is set from the outside, which invalidates all outstanding leases
+    private final AtomicInteger leaseGeneration = new AtomicInteger();
+
+    private final Set<Lease> allLeases = Collections.newSetFromMap( new ConcurrentHashMap<Lease,Boolean>() );
+    private final ThreadLocal<Lease> leases = new ThreadLocal<Lease>()
+    {
+        @Override
+        protected Lease initialValue()
+        {
+            Lease lease = new Lease();
+            allLeases.add( lease );
+            return lease;
+        }
+    };
+
+    /**
+     * @param delegate the {@link IdGenerator} to lease ids from and to pass freed ids on to.
+     * @param leaseSize number of ids each thread leases at a time.
+     * @param freedIdBatchSize number of freed ids to collect before passing them on to the delegate.
+     */
+    public ConcurrentIdGenerator( IdGenerator delegate, int leaseSize, int freedIdBatchSize )
+    {
+        if ( leaseSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal leaseSize: " + leaseSize );
+        }
+        this.delegate = delegate;
+        this.leaseSize = leaseSize;
+        this.freedIdBatchSize = Math.max( 1, freedIdBatchSize );
+    }
+
+    @Override
+    public long nextId()
+    {
+        Lease lease = leases.get();
+        int generation = leaseGeneration.get();
+        if ( lease.generation != generation )
+        {
+            // The high id has been changed from the outside, so the ids in this lease may no longer be free
+            lease.clear();
+        }
+
+        long id = lease.next();
+        while ( id == -1 )
+        {
+            lease.renew( nextLease(), generation );
+            id = lease.next();
+        }
+        return id;
+    }
+
+    private IdRange nextLease()
+    {
+        IdRange released = releasedLeases.poll();
+        return released != null ? released : delegate.nextIdBatch( leaseSize );
+    }
+
+    /**
+     * Gives back the ids the calling thread has leased, but not used, so that other threads can use them.
+     */
+    public void releaseLease()
+    {
+        Lease lease = leases.get();
+        if ( lease.generation == leaseGeneration.get() )
+        {
+            IdRange remainder = lease.remainder();
+            if ( remainder != null )
+            {
+                releasedLeases.offer( remainder );
+            }
+        }
+        lease.clear();
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size )
+    {
+        return delegate.nextIdBatch( size );
+    }
+
+    @Override
+    public void setHighId( long id )
+    {
+        delegate.setHighId( id );
+        leaseGeneration.incrementAndGet();
+        releasedLeases.clear();
+    }
+
+    @Override
+    public long getHighId()
+    {
+        return delegate.getHighId();
+    }
+
+    @Override
+    public long getHighestPossibleIdInUse()
+    {
+        return delegate.getHighestPossibleIdInUse();
+    }
+
+    @Override
+    public void freeId( long id )
+    {
+        if ( id == INTEGER_MINUS_ONE )
+        {
+            return;
+        }
+        long highId = delegate.getHighId();
+        if ( id < 0 || id >= highId )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + highId );
+        }
+
+        freedIds.offer( id );
+        if ( freedIdCount.incrementAndGet() >= freedIdBatchSize )
+        {
+            passFreedIdsOn();
+        }
+    }
+
+    private void passFreedIdsOn()
+    {
+        // Only one thread at a time needs to do this, the others can carry on with what they were doing
+        if ( freeingIds.compareAndSet( false, true ) )
+        {
+            try
+            {
+                Long id;
+                while ( (id = freedIds.poll()) != null )
+                {
+                    freedIdCount.decrementAndGet();
+                    delegate.freeId( id );
+                }
+            }
+            finally
+            {
+                freeingIds.set( false );
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if ( delegate.getHighId() != -1 ) // not already closed
+        {
+            returnUnusedIds();
+        }
+        delegate.close();
+    }
+
+    private void returnUnusedIds()
+    {
+        int generation = leaseGeneration.get();
+        for ( Lease lease : allLeases )
+        {
+            if ( lease.generation == generation )
+            {
+                IdRange remainder = lease.remainder();
+                if ( remainder != null )
+                {
+                    releasedLeases.offer( remainder );
+                }
+            }
+            lease.clear();
+        }
+
+        IdRange range;
+        while ( (range = releasedLeases.poll()) != null )
+        {
+            for ( long id : range.getDefragIds() )
+            {
+                delegate.freeId( id );
+            }
+            long rangeEnd = range.getRangeStart() + range.getRangeLength();
+            for ( long id = range.getRangeStart(); id < rangeEnd; id++ )
+            {
+                delegate.freeId( id );
+            }
+        }
+        passFreedIdsOn();
+    }
+
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        // Leased but not yet used ids are counted as being in use
+        return delegate.getNumberOfIdsInUse() - freedIdCount.get();
+    }
+
+    @Override
+    public long getDefragCount()
+    {
+        return delegate.getDefragCount() + freedIdCount.get();
+    }
+
+    @Override
+    public void delete()
+    {
+        delegate.delete();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentIdGenerator[leaseSize=" + leaseSize + ", delegate=" + delegate + "]";
+    }
+
+    /**
+     * The ids leased by a single thread. Only ever accessed by that thread, except when the id generator is closed.
+     */
+    private static class Lease
+    {
+        private long[] defragIds = NO_IDS;
+        private int defragIndex;
+        private long rangeNext;
+        private long rangeEnd;
+        private int generation;
+
+        long next()
+        {
+            if ( defragIndex < defragIds.length )
+            {
+                return defragIds[defragIndex++];
+            }
+            while ( rangeNext < rangeEnd )
+            {
+                long id = rangeNext++;
+                if ( id != INTEGER_MINUS_ONE )
+                {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        void renew( IdRange range, int generation )
+        {
+            this.defragIds = range.getDefragIds();
+            this.defragIndex = 0;
+            this.rangeNext = range.getRangeStart();
+            this.rangeEnd = range.getRangeStart() + range.getRangeLength();
+            this.generation = generation;
+        }
+
+        IdRange remainder()
+        {
+            int defragLeft = defragIds.length - defragIndex;
+            long rangeLeft = rangeEnd - rangeNext;
+            if ( defragLeft == 0 && rangeLeft <= 0 )
+            {
+                return null;
+            }
+            long[] defragRemainder = NO_IDS;
+            if ( defragLeft > 0 )
+            {
+                defragRemainder = new long[defragLeft];
+                System.arraycopy( defragIds, defragIndex, defragRemainder, 0, defragLeft );
+            }
+            return new IdRange( defragRemainder, rangeNext, (int) Math.max( 0, rangeLeft ) );
+        }
+
+        void clear()
+        {
+            defragIds = NO_IDS;
+            defragIndex = 0;
+            rangeNext = rangeEnd = 0;
+        }
+    }
+}
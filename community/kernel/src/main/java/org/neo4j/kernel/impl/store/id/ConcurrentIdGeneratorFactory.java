@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.IdType;
+
+/**
+ * Opens {@link ConcurrentIdGenerator concurrent id generators} for the stores that transactions allocate most of
+ * their ids from, and plain id generators for the rest.
+ */
+@SuppressWarnings( "deprecation" )
+public class ConcurrentIdGeneratorFactory extends DefaultIdGeneratorFactory
+{
+    private static final Set<IdType> LEASED_ID_TYPES = EnumSet.of( IdType.NODE, IdType.RELATIONSHIP,
+            IdType.RELATIONSHIP_GROUP, IdType.PROPERTY, IdType.STRING_BLOCK, IdType.ARRAY_BLOCK, IdType.NODE_LABELS );
+
+    private final Map<IdType,IdGenerator> generators = new ConcurrentHashMap<>();
+    private final Map<File,ConcurrentIdGenerator> concurrentGenerators = new ConcurrentHashMap<>();
+    private final int leaseSize;
+
+    public ConcurrentIdGeneratorFactory( FileSystemAbstraction fs, int leaseSize )
+    {
+        super( fs );
+        this.leaseSize = leaseSize;
+    }
+
+    @Override
+    public IdGenerator open( File fileName, int grabSize, IdType idType, long highId )
+    {
+        IdGenerator generator = super.open( fileName, grabSize, idType, highId );
+        if ( LEASED_ID_TYPES.contains( idType ) )
+        {
+            ConcurrentIdGenerator concurrentGenerator = new ConcurrentIdGenerator( generator, leaseSize, grabSize );
+            concurrentGenerators.put( fileName, concurrentGenerator );
+            generator = concurrentGenerator;
+        }
+        generators.put( idType, generator );
+        return generator;
+    }
+
+    @Override
+    public IdGenerator get( IdType idType )
+    {
+        return generators.get( idType );
+    }
+
+    /**
+     * Gives back the ids that the calling thread has leased, but not used, from all id generators opened by this
+     * factory. See {@link ConcurrentIdGenerator#releaseLease()}.
+     */
+    public void releaseLeases()
+    {
+        for ( ConcurrentIdGenerator generator : concurrentGenerators.values() )
+        {
+            generator.releaseLease();
+        }
+    }
+}
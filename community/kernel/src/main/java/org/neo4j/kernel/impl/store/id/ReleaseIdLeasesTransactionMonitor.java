@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.neo4j.kernel.impl.transaction.TransactionMonitor;
+
+/**
+ * Gives back the ids a thread has leased from {@link ConcurrentIdGenerator concurrent id generators}, but not used,
+ * when the transaction on that thread closes. Transactions notify their {@link TransactionMonitor} on every close
+ * path, committed or rolled back, so this decorates the monitor passed to the kernel.
+ */
+public class ReleaseIdLeasesTransactionMonitor implements TransactionMonitor
+{
+    private final TransactionMonitor delegate;
+    private final ConcurrentIdGeneratorFactory idGeneratorFactory;
+
+    public ReleaseIdLeasesTransactionMonitor( TransactionMonitor delegate,
+            ConcurrentIdGeneratorFactory idGeneratorFactory )
+    {
+        this.delegate = delegate;
+        this.idGeneratorFactory = idGeneratorFactory;
+    }
+
+    @Override
+    public void transactionStarted()
+    {
+        delegate.transactionStarted();
+    }
+
+    @Override
+    public void transactionFinished( boolean successful )
+    {
+        try
+        {
+            idGeneratorFactory.releaseLeases();
+        }
+        finally
+        {
+            delegate.transactionFinished( successful );
+        }
+    }
+
+    @Override
+    public void transactionTerminated()
+    {
+        delegate.transactionTerminated();
+    }
+
+    @Override
+    public void transactionStateSpilled( long spilledBytes )
+    {
+        delegate.transactionStateSpilled( spilledBytes );
+    }
+}
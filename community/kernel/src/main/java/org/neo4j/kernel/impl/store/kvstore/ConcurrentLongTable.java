@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent table of fixed size keys and values, both stored as big endian longs, in the same form as the
+ * serialized keys and values of a key/value store.
+ *
+ * Entries are appended to chunks that never move, and an open addressing index maps keys to entries. Finding an
+ * entry and updating its value, by compare-and-set of the individual value longs, is lock-free. Inserting an entry
+ * synchronizes on the table, which is fine since each key is only inserted once into a table.
+ */
+final class ConcurrentLongTable
+{
+    private static final int CHUNK_SHIFT = 10, CHUNK_SIZE = 1 << CHUNK_SHIFT, CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int keyLongs, valueLongs;
+    /** Index slots hold entry + 1, so that 0 marks a free slot. */
+    private volatile AtomicIntegerArray index = new AtomicIntegerArray( 64 );
+    private volatile long[][] keyChunks = new long[0][];
+    private volatile AtomicLongArray[] valueChunks = new AtomicLongArray[0];
+    private volatile int size;
+
+    ConcurrentLongTable( int keySize, int valueSize )
+    {
+        if ( keySize % 8 != 0 || valueSize % 8 != 0 )
+        {
+            throw new IllegalArgumentException( "Key and value sizes must be multiples of 8 bytes, not " +
+                                                keySize + " and " + valueSize + "." );
+        }
+        this.keyLongs = keySize / 8;
+        this.valueLongs = valueSize / 8;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return the entry with the given key, or {@code -1} if there is no such entry.
+     */
+    int find( ReadableBuffer key )
+    {
+        AtomicIntegerArray index = this.index;
+        int mask = index.length() - 1;
+        for ( int slot = hash( key ) & mask; ; slot = (slot + 1) & mask )
+        {
+            int entry = index.get( slot ) - 1;
+            if ( entry == -1 )
+            {
+                return -1;
+            }
+            // Read the chunks after the index slot, so that they include the chunk of the entry
+            if ( keyEquals( keyChunks, entry, key ) )
+            {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Inserts an entry for the given key, with the given initial value, unless there already is one.
+     *
+     * @return the entry with the given key.
+     */
+    synchronized int insert( ReadableBuffer key, ReadableBuffer initialValue )
+    {
+        int entry = find( key );
+        if ( entry != -1 )
+        {
+            return entry;
+        }
+
+        entry = size;
+        int chunk = entry >>> CHUNK_SHIFT, offset = entry & CHUNK_MASK;
+        if ( chunk == keyChunks.length )
+        {
+            addChunk();
+        }
+        long[] keys = keyChunks[chunk];
+        AtomicLongArray values = valueChunks[chunk];
+        for ( int i = 0; i < keyLongs; i++ )
+        {
+            keys[offset * keyLongs + i] = key.getLong( i * 8 );
+        }
+        for ( int i = 0; i < valueLongs; i++ )
+        {
+            values.set( offset * valueLongs + i, initialValue.getLong( i * 8 ) );
+        }
+
+        if ( (entry + 1) * 2 > index.length() )
+        {
+            index = rebuildIndex( index.length() * 2, entry );
+        }
+        // Publishing the entry in the index is a volatile write, which makes the key and value visible to readers
+        addToIndex( index, entry );
+        size = entry + 1;
+        return entry;
+    }
+
+    long value( int entry, int word )
+    {
+        return valueChunks[entry >>> CHUNK_SHIFT].get( (entry & CHUNK_MASK) * valueLongs + word );
+    }
+
+    boolean compareAndSetValue( int entry, int word, long expected, long update )
+    {
+        return valueChunks[entry >>> CHUNK_SHIFT].compareAndSet(
+                (entry & CHUNK_MASK) * valueLongs + word, expected, update );
+    }
+
+    void readValue( int entry, WritableBuffer target )
+    {
+        for ( int i = 0; i < valueLongs; i++ )
+        {
+            target.putLong( i * 8, value( entry, i ) );
+        }
+    }
+
+    void readKey( int entry, WritableBuffer target )
+    {
+        long[] keys = keyChunks[entry >>> CHUNK_SHIFT];
+        int base = (entry & CHUNK_MASK) * keyLongs;
+        for ( int i = 0; i < keyLongs; i++ )
+        {
+            target.putLong( i * 8, keys[base + i] );
+        }
+    }
+
+    /**
+     * This method is expected to be called under a lock preventing modification to the table.
+     *
+     * @return all entries, ordered by the unsigned big endian order of their keys.
+     */
+    int[] sortedEntries()
+    {
+        int[] entries = new int[size];
+        for ( int i = 0; i < entries.length; i++ )
+        {
+            entries[i] = i;
+        }
+        sort( entries, 0, entries.length - 1 );
+        return entries;
+    }
+
+    private void addChunk()
+    {
+        int chunks = keyChunks.length;
+        long[][] newKeyChunks = new long[chunks + 1][];
+        AtomicLongArray[] newValueChunks = new AtomicLongArray[chunks + 1];
+        System.arraycopy( keyChunks, 0, newKeyChunks, 0, chunks );
+        System.arraycopy( valueChunks, 0, newValueChunks, 0, chunks );
+        newKeyChunks[chunks] = new long[CHUNK_SIZE * keyLongs];
+        newValueChunks[chunks] = new AtomicLongArray( CHUNK_SIZE * valueLongs );
+        // Value chunks first, readers find entries through the key chunks
+        valueChunks = newValueChunks;
+        keyChunks = newKeyChunks;
+    }
+
+    private AtomicIntegerArray rebuildIndex( int capacity, int entries )
+    {
+        AtomicIntegerArray index = new AtomicIntegerArray( capacity );
+        for ( int entry = 0; entry < entries; entry++ )
+        {
+            addToIndex( index, entry );
+        }
+        return index;
+    }
+
+    private void addToIndex( AtomicIntegerArray index, int entry )
+    {
+        int mask = index.length() - 1;
+        int slot = hash( keyChunks, entry ) & mask;
+        while ( index.get( slot ) != 0 )
+        {
+            slot = (slot + 1) & mask;
+        }
+        index.set( slot, entry + 1 );
+    }
+
+    private boolean keyEquals( long[][] keyChunks, int entry, ReadableBuffer key )
+    {
+        long[] keys = keyChunks[entry >>> CHUNK_SHIFT];
+        int base = (entry & CHUNK_MASK) * keyLongs;
+        for ( int i = 0; i < keyLongs; i++ )
+        {
+            if ( keys[base + i] != key.getLong( i * 8 ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash( ReadableBuffer key )
+    {
+        long hash = 0;
+        for ( int i = 0; i < keyLongs; i++ )
+        {
+            hash = mix( hash, key.getLong( i * 8 ) );
+        }
+        return finish( hash );
+    }
+
+    private int hash( long[][] keyChunks, int entry )
+    {
+        long[] keys = keyChunks[entry >>> CHUNK_SHIFT];
+        int base = (entry & CHUNK_MASK) * keyLongs;
+        long hash = 0;
+        for ( int i = 0; i < keyLongs; i++ )
+        {
+            hash = mix( hash, keys[base + i] );
+        }
+        return finish( hash );
+    }
+
+    private static long mix( long hash, long word )
+    {
+        return (hash ^ word) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int finish( long hash )
+    {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private int compareKeys( int left, int right )
+    {
+        long[] leftKeys = keyChunks[left >>> CHUNK_SHIFT], rightKeys = keyChunks[right >>> CHUNK_SHIFT];
+        int leftBase = (left & CHUNK_MASK) * keyLongs, rightBase = (right & CHUNK_MASK) * keyLongs;
+        for ( int i = 0; i < keyLongs; i++ )
+        {
+            // Adding MIN_VALUE turns signed comparison into unsigned comparison
+            int cmp = Long.compare( leftKeys[leftBase + i] + Long.MIN_VALUE, rightKeys[rightBase + i] + Long.MIN_VALUE );
+            if ( cmp != 0 )
+            {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private void sort( int[] entries, int low, int high )
+    {
+        while ( low < high )
+        {
+            int pivot = entries[(low + high) >>> 1];
+            int i = low, j = high;
+            while ( i <= j )
+            {
+                while ( compareKeys( entries[i], pivot ) < 0 )
+                {
+                    i++;
+                }
+                while ( compareKeys( entries[j], pivot ) > 0 )
+                {
+                    j--;
+                }
+                if ( i <= j )
+                {
+                    int tmp = entries[i];
+                    entries[i++] = entries[j];
+                    entries[j--] = tmp;
+                }
+            }
+            // Recurse into the smaller part, loop over the larger one, to bound the stack depth
+            if ( j - low < high - i )
+            {
+                sort( entries, low, j );
+                low = i;
+            }
+            else
+            {
+                sort( entries, i, high );
+                high = j;
+            }
+        }
+    }
+}
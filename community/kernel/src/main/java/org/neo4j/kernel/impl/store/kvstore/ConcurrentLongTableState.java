@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import static org.neo4j.kernel.impl.store.kvstore.ConcurrentMapState.update;
+
+/**
+ * Active state that keeps the changes in a {@link ConcurrentLongTable} rather than in a map of key objects to value
+ * arrays. Keys are kept in their serialized form, so applying an update to a key that has changed before allocates
+ * nothing, and rotation writes the changes straight from the table.
+ *
+ * Values are updated by compare-and-set of their individual longs. An update that changes a single long, such as an
+ * increment, is thereby atomic. An update that changes several longs may be applied again on contention, which is
+ * fine for updates that write absolute values.
+ */
+class ConcurrentLongTableState<Key> extends ActiveState<Key>
+{
+    private final ConcurrentLongTable changes;
+    private final File file;
+    private final AtomicLong highestAppliedVersion;
+    private final AtomicLong appliedChanges;
+    private final AtomicBoolean hasTrackedChanges;
+    private final long previousVersion;
+
+    ConcurrentLongTableState( ReadableState<Key> store, File file )
+    {
+        super( store );
+        this.previousVersion = store.version();
+        this.file = file;
+        this.highestAppliedVersion = new AtomicLong( previousVersion );
+        this.changes = new ConcurrentLongTable( store.keyFormat().keySize(), store.keyFormat().valueSize() );
+        this.appliedChanges = new AtomicLong();
+        hasTrackedChanges = new AtomicBoolean();
+    }
+
+    private ConcurrentLongTableState( Prototype<Key> prototype, ReadableState<Key> store, File file )
+    {
+        super( store );
+        this.previousVersion = store.version();
+        this.file = file;
+        this.hasTrackedChanges = prototype.hasTrackedChanges;
+        this.changes = prototype.changes;
+        this.highestAppliedVersion = prototype.highestAppliedVersion;
+        this.appliedChanges = prototype.appliedChanges;
+    }
+
+    @Override
+    public String toString()
+    {
+        return super.toString() + "[" + file + "]";
+    }
+
+    @Override
+    public EntryUpdater<Key> updater( long version, Lock lock )
+    {
+        if ( version <= previousVersion )
+        {
+            return EntryUpdater.noUpdates();
+        }
+        update( highestAppliedVersion, version );
+        hasTrackedChanges.set( true );
+        return new Updater<>( lock, store, changes, appliedChanges, false, true );
+    }
+
+    @Override
+    public EntryUpdater<Key> unsafeUpdater( Lock lock )
+    {
+        hasTrackedChanges.set( true );
+        return new Updater<>( lock, store, changes, null, false, false );
+    }
+
+    private static class Updater<Key> extends EntryUpdater<Key>
+    {
+        private AtomicLong changeCounter;
+        private final ReadableState<Key> store;
+        private final ConcurrentLongTable changes;
+        private final boolean reset;
+        private final boolean threadConfined;
+        private final BigEndianByteArrayBuffer key, value;
+        private final long[] previous;
+        private final PreviousValue lookup;
+
+        Updater( Lock lock, ReadableState<Key> store, ConcurrentLongTable changes, AtomicLong changeCounter,
+                 boolean reset, boolean threadConfined )
+        {
+            super( lock );
+            this.changeCounter = changeCounter;
+            this.store = store;
+            this.changes = changes;
+            this.reset = reset;
+            this.threadConfined = threadConfined;
+            this.key = new BigEndianByteArrayBuffer( store.keyFormat().keySize() );
+            this.value = new BigEndianByteArrayBuffer( store.keyFormat().valueSize() );
+            this.previous = new long[value.size() / 8];
+            this.lookup = new PreviousValue( value );
+        }
+
+        @Override
+        public void apply( Key key, ValueUpdate update ) throws IOException
+        {
+            if ( threadConfined )
+            {
+                ensureOpenOnSameThread();
+            }
+            else
+            {
+                ensureOpen();
+            }
+            this.key.clear();
+            store.keyFormat().writeKey( key, this.key );
+            int entry = changes.find( this.key );
+            if ( entry == -1 )
+            {
+                value.clear();
+                if ( !reset && !store.lookup( key, lookup ) )
+                {   // the lookup visits the entry following a missing key, so its value must not be used
+                    value.clear();
+                }
+                entry = changes.insert( this.key, value );
+            }
+
+            while ( true )
+            {
+                for ( int i = 0; i < previous.length; i++ )
+                {
+                    previous[i] = changes.value( entry, i );
+                    value.putLong( i * 8, reset ? 0 : previous[i] );
+                }
+                update.update( value );
+                if ( compareAndSet( entry ) )
+                {
+                    return;
+                }
+            }
+        }
+
+        private boolean compareAndSet( int entry )
+        {
+            for ( int i = 0; i < previous.length; i++ )
+            {
+                long next = value.getLong( i * 8 );
+                if ( next != previous[i] && !changes.compareAndSetValue( entry, i, previous[i], next ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+            if ( changeCounter != null )
+            {
+                changeCounter.incrementAndGet();
+                changeCounter = null;
+            }
+            super.close();
+        }
+    }
+
+    @Override
+    protected long storedVersion()
+    {
+        return previousVersion;
+    }
+
+    @Override
+    protected EntryUpdater<Key> resettingUpdater( Lock lock, final Runnable closeAction )
+    {
+        if ( hasChanges() )
+        {
+            throw new IllegalStateException( "Cannot reset when there are changes!" );
+        }
+        return new Updater<Key>( lock, store, changes, null, true, false )
+        {
+            @Override
+            public void close()
+            {
+                try
+                {
+                    closeAction.run();
+                }
+                finally
+                {
+                    super.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    protected PrototypeState<Key> prototype( long version )
+    {
+        return new Prototype<>( this, version );
+    }
+
+    private static class Prototype<Key> extends PrototypeState<Key>
+    {
+        final ConcurrentLongTable changes;
+        final AtomicLong highestAppliedVersion, appliedChanges = new AtomicLong();
+        final AtomicBoolean hasTrackedChanges;
+        private final long threshold;
+
+        Prototype( ConcurrentLongTableState<Key> state, long version )
+        {
+            super( state );
+            threshold = version;
+            hasTrackedChanges = new AtomicBoolean();
+            this.highestAppliedVersion = new AtomicLong( version );
+            this.changes = new ConcurrentLongTable( state.keyFormat().keySize(), state.keyFormat().valueSize() );
+        }
+
+        @Override
+        protected ActiveState<Key> create( ReadableState<Key> sub, File file )
+        {
+            return new ConcurrentLongTableState<>( this, sub, file );
+        }
+
+        @Override
+        protected EntryUpdater<Key> updater( long version, Lock lock )
+        {
+            update( highestAppliedVersion, version );
+            if ( version > threshold )
+            {
+                hasTrackedChanges.set( true );
+                return new Updater<>( lock, store, changes, appliedChanges, false, true );
+            }
+            else
+            {
+                return new Updater<>( lock, store, changes, null, false, true );
+            }
+        }
+
+        @Override
+        protected EntryUpdater<Key> unsafeUpdater( Lock lock )
+        {
+            hasTrackedChanges.set( true );
+            return new Updater<>( lock, store, changes, null, false, false );
+        }
+
+        @Override
+        protected boolean hasChanges()
+        {
+            return hasTrackedChanges.get() && !changes.isEmpty();
+        }
+
+        @Override
+        protected long version()
+        {
+            return highestAppliedVersion.get();
+        }
+
+        @Override
+        protected boolean lookup( Key key, ValueSink sink ) throws IOException
+        {
+            return performLookup( store, changes, key, sink );
+        }
+
+        @Override
+        protected DataProvider dataProvider() throws IOException
+        {
+            return ConcurrentLongTableState.dataProvider( store, changes );
+        }
+    }
+
+    private static class PreviousValue extends ValueSink
+    {
+        private final BigEndianByteArrayBuffer target;
+
+        PreviousValue( BigEndianByteArrayBuffer target )
+        {
+            this.target = target;
+        }
+
+        @Override
+        protected void value( ReadableBuffer value )
+        {
+            value.get( 0, target.buffer );
+        }
+    }
+
+    @Override
+    protected long version()
+    {
+        return highestAppliedVersion.get();
+    }
+
+    @Override
+    protected long applied()
+    {
+        return appliedChanges.get();
+    }
+
+    @Override
+    protected boolean hasChanges()
+    {
+        return hasTrackedChanges.get() && !changes.isEmpty();
+    }
+
+    @Override
+    protected void close() throws IOException
+    {
+        store.close();
+    }
+
+    @Override
+    protected File file()
+    {
+        return file;
+    }
+
+    @Override
+    protected Factory factory()
+    {
+        return State.Strategy.CONCURRENT_LONG_TABLE;
+    }
+
+    @Override
+    protected boolean lookup( Key key, ValueSink sink ) throws IOException
+    {
+        return performLookup( store, changes, key, sink );
+    }
+
+    private static <Key> boolean performLookup( ReadableState<Key> store, ConcurrentLongTable changes,
+                                                Key key, ValueSink sink ) throws IOException
+    {
+        KeyFormat<Key> keys = store.keyFormat();
+        BigEndianByteArrayBuffer buffer = new BigEndianByteArrayBuffer( keys.keySize() );
+        keys.writeKey( key, buffer );
+        int entry = changes.find( buffer );
+        if ( entry != -1 )
+        {
+            BigEndianByteArrayBuffer value = new BigEndianByteArrayBuffer( keys.valueSize() );
+            changes.readValue( entry, value );
+            sink.value( value );
+            return true;
+        }
+        return store.lookup( key, sink );
+    }
+
+    /**
+     * This method is expected to be called under a lock preventing modification to the state.
+     */
+    @Override
+    public DataProvider dataProvider() throws IOException
+    {
+        return dataProvider( store, changes );
+    }
+
+    private static <Key> DataProvider dataProvider( ReadableState<Key> store, ConcurrentLongTable changes )
+            throws IOException
+    {
+        if ( changes.isEmpty() )
+        {
+            return store.dataProvider();
+        }
+        else
+        {
+            KeyFormat<Key> keys = store.keyFormat();
+            return new KeyValueMerger( store.dataProvider(), new UpdateProvider( changes, changes.sortedEntries() ),
+                    keys.keySize(), keys.valueSize() );
+        }
+    }
+
+    private static class UpdateProvider implements DataProvider
+    {
+        private final ConcurrentLongTable changes;
+        private final int[] entries;
+        private int i;
+
+        UpdateProvider( ConcurrentLongTable changes, int[] entries )
+        {
+            this.changes = changes;
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean visit( WritableBuffer key, WritableBuffer value ) throws IOException
+        {
+            if ( i < entries.length )
+            {
+                changes.readKey( entries[i], key );
+                changes.readValue( entries[i], value );
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+        }
+    }
+}
@@ -76,14 +76,14 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         }
         update( highestAppliedVersion, version );
         hasTrackedChanges.set( true );
-        return new Updater<>( lock, store, changes, appliedChanges );
+        return new Updater<>( lock, store, changes, appliedChanges, true );
     }
 
     @Override
     public EntryUpdater<Key> unsafeUpdater( Lock lock )
     {
         hasTrackedChanges.set( true );
-        return new Updater<>( lock, store, changes, null );
+        return new Updater<>( lock, store, changes, null, false );
     }
 
     private static class Updater<Key> extends EntryUpdater<Key>
@@ -91,19 +91,29 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         private AtomicLong changeCounter;
         private final ReadableState<Key> store;
         private final ConcurrentMap<Key, byte[]> changes;
+        private final boolean threadConfined;
 
-        Updater( Lock lock, ReadableState<Key> store, ConcurrentMap<Key, byte[]> changes, AtomicLong changeCounter )
+        Updater( Lock lock, ReadableState<Key> store, ConcurrentMap<Key, byte[]> changes, AtomicLong changeCounter,
+                 boolean threadConfined )
         {
             super( lock );
             this.changeCounter = changeCounter;
             this.store = store;
             this.changes = changes;
+            this.threadConfined = threadConfined;
         }
 
         @Override
         public void apply( Key key, ValueUpdate update ) throws IOException
         {
-            ensureOpenOnSameThread();
+            if ( threadConfined )
+            {
+                ensureOpenOnSameThread();
+            }
+            else
+            {
+                ensureOpen();
+            }
             applyUpdate( store, changes, key, update, false );
         }
 
@@ -200,7 +210,7 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         }
     }
 
-    private static void update( AtomicLong highestAppliedVersion, long version )
+    static void update( AtomicLong highestAppliedVersion, long version )
     {
         for ( long high; ; )
         {
@@ -244,11 +254,11 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
             if ( version > threshold )
             {
                 hasTrackedChanges.set( true );
-                return new Updater<>( lock, store, changes, appliedChanges );
+                return new Updater<>( lock, store, changes, appliedChanges, true );
             }
             else
             {
-                return new Updater<>( lock, store, changes, null );
+                return new Updater<>( lock, store, changes, null, true );
             }
         }
 
@@ -256,7 +266,7 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         protected EntryUpdater<Key> unsafeUpdater( Lock lock )
         {
             hasTrackedChanges.set( true );
-            return new Updater<>( lock, store, changes, null );
+            return new Updater<>( lock, store, changes, null, false );
         }
 
         @Override
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.store.record;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.neo4j.graphdb.Label;
 import org.neo4j.helpers.UTF8;
@@ -29,14 +30,15 @@ import static org.neo4j.helpers.UTF8.getDecodedStringFrom;
 import static org.neo4j.kernel.impl.util.IoPrimitiveUtils.safeCastLongToInt;
 
 /**
- * A {@link Label} can have zero or more index rules which will have data specified in the rules indexed.
+ * A {@link Label} can have zero or more index rules which will have data specified in the rules indexed. A rule
+ * indexes the properties of one property key of the label, or of several for a composite index.
  */
 public class IndexRule extends AbstractSchemaRule
 {
     private static final long NO_OWNING_CONSTRAINT = -1;
     private final SchemaIndexProvider.Descriptor providerDescriptor;
     private final int label;
-    private final int propertyKey;
+    private final int[] propertyKeys;
     /**
      * Non-null for constraint indexes, equal to {@link #NO_OWNING_CONSTRAINT} for
      * constraint indexes with no owning constraint record.
@@ -46,15 +48,15 @@ public class IndexRule extends AbstractSchemaRule
     static IndexRule readIndexRule( long id, boolean constraintIndex, int label, ByteBuffer serialized )
     {
         SchemaIndexProvider.Descriptor providerDescriptor = readProviderDescriptor( serialized );
-        int propertyKeyId = readPropertyKey( serialized );
+        int[] propertyKeyIds = readPropertyKeys( serialized );
         if ( constraintIndex )
         {
             long owningConstraint = readOwningConstraint( serialized );
-            return constraintIndexRule( id, label, propertyKeyId, providerDescriptor, owningConstraint );
+            return new IndexRule( id, label, propertyKeyIds, providerDescriptor, owningConstraint );
         }
         else
         {
-            return indexRule( id, label, propertyKeyId, providerDescriptor );
+            return indexRule( id, label, propertyKeyIds, providerDescriptor );
         }
     }
 
@@ -64,6 +66,12 @@ public class IndexRule extends AbstractSchemaRule
         return new IndexRule( id, label, propertyKeyId, providerDescriptor, null );
     }
 
+    public static IndexRule indexRule( long id, int label, int[] propertyKeyIds,
+                                       SchemaIndexProvider.Descriptor providerDescriptor )
+    {
+        return new IndexRule( id, label, propertyKeyIds, providerDescriptor, null );
+    }
+
     public static IndexRule constraintIndexRule( long id, int label, int propertyKeyId,
                                                  SchemaIndexProvider.Descriptor providerDescriptor,
                                                  Long owningConstraint )
@@ -74,6 +82,12 @@ public class IndexRule extends AbstractSchemaRule
 
     public IndexRule( long id, int label, int propertyKey, SchemaIndexProvider.Descriptor providerDescriptor,
                        Long owningConstraint )
+    {
+        this( id, label, new int[]{propertyKey}, providerDescriptor, owningConstraint );
+    }
+
+    public IndexRule( long id, int label, int[] propertyKeys, SchemaIndexProvider.Descriptor providerDescriptor,
+                       Long owningConstraint )
     {
         super( id, indexKind( owningConstraint ) );
         this.owningConstraint = owningConstraint;
@@ -85,7 +99,7 @@ public class IndexRule extends AbstractSchemaRule
 
         this.providerDescriptor = providerDescriptor;
         this.label = label;
-        this.propertyKey = propertyKey;
+        this.propertyKeys = propertyKeys.clone();
     }
 
     private static Kind indexKind( Long owningConstraint )
@@ -100,14 +114,18 @@ public class IndexRule extends AbstractSchemaRule
         return new SchemaIndexProvider.Descriptor( providerKey, providerVersion );
     }
 
-    private static int readPropertyKey( ByteBuffer serialized )
+    private static int[] readPropertyKeys( ByteBuffer serialized )
     {
-        // Currently only one key is supported although the data format supports multiple
         int count = serialized.getShort();
-        assert count == 1;
+        assert count >= 1;
 
-        // Changed from being a long to an int 2013-09-10, but keeps reading a long to not change the store format.
-        return safeCastLongToInt( serialized.getLong() );
+        int[] propertyKeys = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            // Changed from being a long to an int 2013-09-10, but keeps reading a long to not change the store format.
+            propertyKeys[i] = safeCastLongToInt( serialized.getLong() );
+        }
+        return propertyKeys;
     }
 
     private static long readOwningConstraint( ByteBuffer serialized )
@@ -120,9 +138,22 @@ public class IndexRule extends AbstractSchemaRule
         return providerDescriptor;
     }
 
+    /**
+     * @return the property key of the index, or the first property key of a composite index.
+     */
     public int getPropertyKey()
     {
-        return propertyKey;
+        return propertyKeys[0];
+    }
+
+    public int[] getPropertyKeys()
+    {
+        return propertyKeys.clone();
+    }
+
+    public boolean isComposite()
+    {
+        return propertyKeys.length > 1;
     }
 
     public boolean isConstraintIndex()
@@ -162,8 +193,8 @@ public class IndexRule extends AbstractSchemaRule
                + 1 /* kind id */
                + UTF8.computeRequiredByteBufferSize( providerDescriptor.getKey() )
                + UTF8.computeRequiredByteBufferSize( providerDescriptor.getVersion() )
-               + 2 * 1                              /* number of property keys, for now always 1 */
-               + 8                                  /* the property keys */
+               + 2                                  /* number of property keys */
+               + 8 * propertyKeys.length            /* the property keys */
                + (isConstraintIndex() ? 8 : 0)      /* constraint indexes have an owner field */;
     }
 
@@ -174,8 +205,11 @@ public class IndexRule extends AbstractSchemaRule
         target.put( kind.id() );
         UTF8.putEncodedStringInto( providerDescriptor.getKey(), target );
         UTF8.putEncodedStringInto( providerDescriptor.getVersion(), target );
-        target.putShort( (short) 1 /*propertyKeys.length*/ );
-        target.putLong( propertyKey );
+        target.putShort( (short) propertyKeys.length );
+        for ( int propertyKey : propertyKeys )
+        {
+            target.putLong( propertyKey );
+        }
         if ( isConstraintIndex() )
         {
             target.putLong( owningConstraint );
@@ -186,7 +220,12 @@ public class IndexRule extends AbstractSchemaRule
     public int hashCode()
     {
         // TODO: Think if this needs to be extended with providerDescriptor
-        return 31 * (31 * super.hashCode() + label) + propertyKey;
+        int result = 31 * super.hashCode() + label;
+        for ( int propertyKey : propertyKeys )
+        {
+            result = 31 * result + propertyKey;
+        }
+        return result;
     }
 
     @Override
@@ -205,7 +244,7 @@ public class IndexRule extends AbstractSchemaRule
             return false;
         }
         IndexRule indexRule = (IndexRule) o;
-        return label == indexRule.label && propertyKey == indexRule.propertyKey;
+        return label == indexRule.label && Arrays.equals( propertyKeys, indexRule.propertyKeys );
     }
 
     @Override
@@ -218,7 +257,8 @@ public class IndexRule extends AbstractSchemaRule
         }
 
         return "IndexRule[id=" + id + ", label=" + label + ", kind=" + kind +
-               ", provider=" + providerDescriptor + ", properties=" + propertyKey + ownerString + "]";
+               ", provider=" + providerDescriptor + ", properties=" +
+               (isComposite() ? Arrays.toString( propertyKeys ) : String.valueOf( propertyKeys[0] )) + ownerString + "]";
     }
 
     public IndexRule withOwningConstraint( long constraintId )
@@ -227,6 +267,6 @@ public class IndexRule extends AbstractSchemaRule
         {
             throw new IllegalStateException( this + " is not a constraint index" );
         }
-        return constraintIndexRule( getId(), getLabel(), getPropertyKey(), getProviderDescriptor(), constraintId );
+        return new IndexRule( getId(), getLabel(), propertyKeys, getProviderDescriptor(), constraintId );
     }
 }
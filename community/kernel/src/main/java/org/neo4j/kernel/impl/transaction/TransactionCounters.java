@@ -27,6 +27,8 @@ public class TransactionCounters implements TransactionMonitor
     private final AtomicLong activeTransactionCount = new AtomicLong();
     private final AtomicLong rolledBackTransactionCount = new AtomicLong();
     private final AtomicLong terminatedTransactionCount = new AtomicLong();
+    private final AtomicLong spilledTransactionCount = new AtomicLong();
+    private final AtomicLong spilledTransactionStateBytes = new AtomicLong();
     private long peakTransactionCount; // hard to have absolutely atomic, and it doesn't need to be.
 
     @Override
@@ -55,6 +57,13 @@ public class TransactionCounters implements TransactionMonitor
         terminatedTransactionCount.incrementAndGet();
     }
 
+    @Override
+    public void transactionStateSpilled( long spilledBytes )
+    {
+        spilledTransactionCount.incrementAndGet();
+        spilledTransactionStateBytes.addAndGet( spilledBytes );
+    }
+
     public long getNumberOfActiveTransactions()
     {
         return activeTransactionCount.get();
@@ -87,4 +96,14 @@ public class TransactionCounters implements TransactionMonitor
     {
         return rolledBackTransactionCount.get();
     }
+
+    public long getNumberOfSpilledTransactions()
+    {
+        return spilledTransactionCount.get();
+    }
+
+    public long getSpilledTransactionStateBytes()
+    {
+        return spilledTransactionStateBytes.get();
+    }
 }
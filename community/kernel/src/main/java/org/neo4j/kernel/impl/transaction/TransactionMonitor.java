@@ -31,4 +31,11 @@ public interface TransactionMonitor
     void transactionFinished( boolean successful );
 
     void transactionTerminated();
+
+    /**
+     * Called when a transaction closes, which had the id sets of its transaction state moved off heap.
+     *
+     * @param spilledBytes number of bytes of id sets the transaction wrote off heap.
+     */
+    void transactionStateSpilled( long spilledBytes );
 }
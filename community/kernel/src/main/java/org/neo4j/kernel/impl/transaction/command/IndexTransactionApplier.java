@@ -48,12 +48,13 @@ import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 
 /**
  * Gather node and property changes, converting them into logical updates to the indexes.
- * {@link #close()} will actually apply to the indexes.
+ * {@link #apply()} will actually apply to the indexes, also creating any indexes created in the transaction.
  */
 public class IndexTransactionApplier extends CommandHandler.Adapter
 {
     private final ValidatedIndexUpdates indexUpdates;
     private List<NodeLabelUpdate> labelUpdates;
+    private List<IndexRule> createdIndexes;
 
     private final IndexingService indexingService;
     private final WorkSync<Provider<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync;
@@ -71,6 +72,12 @@ public class IndexTransactionApplier extends CommandHandler.Adapter
     {
         try
         {
+            if ( createdIndexes != null )
+            {
+                // All indexes created in this transaction get populated from the same store scan
+                indexingService.createIndexes( createdIndexes.toArray( new IndexRule[createdIndexes.size()] ) );
+            }
+
             if ( labelUpdates != null )
             {
                 updateLabelScanStore();
@@ -198,7 +205,11 @@ public class IndexTransactionApplier extends CommandHandler.Adapter
                 }
                 break;
             case CREATE:
-                indexingService.createIndex( (IndexRule) command.getSchemaRule() );
+                if ( createdIndexes == null )
+                {
+                    createdIndexes = new ArrayList<>();
+                }
+                createdIndexes.add( (IndexRule) command.getSchemaRule() );
                 break;
             case DELETE:
                 indexingService.dropIndex( (IndexRule) command.getSchemaRule() );
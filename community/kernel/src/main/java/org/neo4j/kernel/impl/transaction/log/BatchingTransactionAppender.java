@@ -22,6 +22,11 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -42,11 +47,18 @@ import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
+import static org.neo4j.helpers.Exceptions.launderedException;
+import static org.neo4j.helpers.NamedThreadFactory.daemon;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum;
 
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches.
+ * <p>
+ * Committing threads serialize their transactions into thread-local buffers without holding any lock, and then
+ * hand them over to a single log writer thread. The log writer assigns transaction ids, appends whole batches of
+ * serialized transactions to the log under the log file monitor, forces the log once per batch and then
+ * wakes up the committers of that batch.
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
@@ -80,22 +92,100 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     // is introduced to manage just that and is only used for transactions that contain any legacy index changes.
     private final IdOrderingQueue legacyIndexTransactionOrdering;
 
+    /**
+     * A transaction that has been serialized by its committing thread and is waiting for the log writer to append
+     * and force it. The fields written by the log writer are published through the {@link #done} flag.
+     */
+    private static class PendingCommit
+    {
+        final Thread committer;
+        final TransactionRepresentation transaction;
+        final TransactionSerializer serializer;
+        final LogAppendEvent logAppendEvent;
+        long transactionId = -1;
+        TransactionCommitment commitment;
+        Throwable failure;
+        volatile boolean done;
+
+        PendingCommit( Thread committer, TransactionRepresentation transaction, TransactionSerializer serializer,
+                LogAppendEvent logAppendEvent )
+        {
+            this.committer = committer;
+            this.transaction = transaction;
+            this.serializer = serializer;
+            this.logAppendEvent = logAppendEvent;
+        }
+    }
+
+    /**
+     * Serializes the start entry and the commands of a transaction into a buffer owned by a single thread.
+     * The commit entry is left out since it carries the transaction id, which is assigned by the log writer.
+     */
+    private static class TransactionSerializer
+    {
+        final TransactionLogBuffer buffer = new TransactionLogBuffer( SERIALIZATION_BUFFER_SIZE,
+                MAX_RETAINED_SERIALIZATION_BUFFER_SIZE );
+        final IndexCommandDetector indexCommandDetector = new IndexCommandDetector( new CommandWriter( buffer ) );
+        final LogEntryWriter logEntryWriter = new LogEntryWriter( buffer, indexCommandDetector );
+
+        void serialize( TransactionRepresentation transaction ) throws IOException
+        {
+            // Reset command writer so that we, after we've written the transaction, can ask it whether or
+            // not any legacy index command was written. If so then there's additional ordering to care about.
+            buffer.clear();
+            indexCommandDetector.reset();
+            logEntryWriter.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                    transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                    transaction.additionalHeader() );
+            logEntryWriter.serialize( transaction );
+        }
+    }
+
+    private static final int SERIALIZATION_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_RETAINED_SERIALIZATION_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long PARK_TIME = TimeUnit.MILLISECONDS.toNanos( 100 );
+
     private final AtomicReference<ThreadLink> threadLinkHead = new AtomicReference<>( ThreadLink.END );
+    private final Queue<PendingCommit> pendingCommits = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<TransactionSerializer> serializers = new ThreadLocal<TransactionSerializer>()
+    {
+        @Override
+        protected TransactionSerializer initialValue()
+        {
+            return new TransactionSerializer();
+        }
+    };
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogFile logFile;
     private final LogRotation logRotation;
     private final TransactionIdStore transactionIdStore;
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final KernelHealth kernelHealth;
+    private final ThreadFactory logWriterThreadFactory;
     private final Lock forceLock = new ReentrantLock();
 
     private WritableLogChannel writer;
+    private LogEntryWriter logEntryWriter;
     private TransactionLogWriter transactionLogWriter;
-    private IndexCommandDetector indexCommandDetector;
+    private volatile boolean running;
+    private volatile Thread logWriterThread;
 
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue legacyIndexTransactionOrdering, KernelHealth kernelHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                kernelHealth, daemon( "TransactionLogWriter" ) );
+    }
+
+    /**
+     * @param logWriterThreadFactory creates the log writer thread when this appender is started.
+     */
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, KernelHealth kernelHealth,
+            ThreadFactory logWriterThreadFactory )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
@@ -103,58 +193,117 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.kernelHealth = kernelHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.logWriterThreadFactory = logWriterThreadFactory;
     }
 
     @Override
     public void start() throws Throwable
     {
         this.writer = logFile.getWriter();
-        this.indexCommandDetector = new IndexCommandDetector( new CommandWriter( writer ) );
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer, indexCommandDetector ) );
+        this.logEntryWriter = new LogEntryWriter( writer, new CommandWriter( writer ) );
+        this.transactionLogWriter = new TransactionLogWriter( logEntryWriter );
+        this.running = true;
+        Thread thread = logWriterThreadFactory.newThread( new LogWriter() );
+        this.logWriterThread = thread;
+        thread.start();
     }
 
     @Override
-    public Commitment append( TransactionRepresentation transaction, LogAppendEvent logAppendEvent ) throws IOException
+    public void stop() throws Throwable
     {
-        long transactionId = -1;
-        int phase = 0;
+        // The log writer drains all pending commits before it exits
+        running = false;
+        Thread thread = logWriterThread;
+        if ( thread != null )
+        {
+            LockSupport.unpark( thread );
+            thread.join();
+        }
+    }
 
+    @Override
+    public Commitment append( TransactionRepresentation transaction, LogAppendEvent logAppendEvent ) throws IOException
+    {
         // We put log rotation check outside the private append method since it must happen before
         // we generate the next transaction id
         boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
         logAppendEvent.setLogRotated( logRotated );
 
-        TransactionCommitment commitment;
+        // Serialize the transaction outside of any lock, only the copying of the serialized bytes into the log
+        // and writing the commit entry is done by the log writer while holding the log file monitor
+        TransactionSerializer serializer = serializers.get();
+        SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction();
         try
         {
-            // Synchronized with logFile to get absolute control over concurrent rotations happening
-            synchronized ( logFile )
+            serializer.serialize( transaction );
+        }
+        finally
+        {
+            serialiseEvent.close();
+        }
+
+        PendingCommit pending = new PendingCommit( Thread.currentThread(), transaction, serializer, logAppendEvent );
+        boolean committed = false;
+        try
+        {
+            awaitLogWriter( pending, logAppendEvent );
+            if ( pending.failure != null )
             {
-                try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
-                {
-                    transactionId = transactionIdStore.nextCommittingTransactionId();
-                    phase = 1;
-                    commitment = appendToLog( transaction, transactionId );
-                }
+                throw launderedException( IOException.class, pending.failure );
             }
 
-            forceAfterAppend( logAppendEvent );
+            TransactionCommitment commitment = pending.commitment;
             commitment.publishAsCommitted();
             orderLegacyIndexChanges( commitment );
-            phase = 2;
+            committed = true;
             return commitment;
         }
         finally
         {
-            if ( phase == 1 )
+            if ( !committed && pending.transactionId != -1 )
             {
-                // So we end up here if we enter phase 1, but fails to reach phase 2, which means that
-                // we told TransactionIdStore that we committed transaction, but something failed right after
-                transactionIdStore.transactionClosed( transactionId, 0l, 0l );
+                // So we end up here if the log writer generated a transaction id for us, but we fail to return
+                // the commitment, which means that we might have told TransactionIdStore that we committed
+                // the transaction, but something failed right after
+                transactionIdStore.transactionClosed( pending.transactionId, 0l, 0l );
             }
         }
     }
 
+    private void awaitLogWriter( PendingCommit pending, LogForceEvents logForceEvents )
+    {
+        Thread thread = logWriterThread;
+        if ( thread == null )
+        {
+            throw new IllegalStateException( "Transaction log writer has not been started" );
+        }
+        pendingCommits.offer( pending );
+        LockSupport.unpark( thread );
+
+        LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait();
+        try
+        {
+            while ( !pending.done )
+            {
+                if ( !thread.isAlive() )
+                {
+                    // The log writer has exited and so won't see our commit. It publishes everything it touched
+                    // before exiting, so check once more before giving up.
+                    if ( !pending.done )
+                    {
+                        pending.failure = new IllegalStateException( "Transaction log writer has been stopped" );
+                    }
+                    return;
+                }
+                LockSupport.parkNanos( this, PARK_TIME );
+            }
+        }
+        finally
+        {
+            logForceWaitEvent.close();
+        }
+    }
+
     @Override
     public Commitment append( TransactionRepresentation transaction, long expectedTransactionId ) throws IOException
     {
@@ -163,6 +312,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // a checkRotation, which any thread could call at any time. Although that method was added to
         // be able to test a certain thing, so it should go away actually.
 
+        TransactionSerializer serializer = serializers.get();
+        serializer.serialize( transaction );
+
         // Synchronized with logFile to get absolute control over concurrent rotations happening
         synchronized ( logFile )
         {
@@ -173,7 +325,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                         "Received " + transaction + " with txId:" + expectedTransactionId +
                         " to be applied, but appending it ended up generating an unexpected txId:" + transactionId );
             }
-            return appendToLog( transaction, transactionId );
+            return appendToLog( transaction, transactionId, serializer );
         }
     }
 
@@ -247,13 +399,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any legacy index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId,
+            TransactionSerializer serializer ) throws IOException
     {
-        // Reset command writer so that we, after we've written the transaction, can ask it whether or
-        // not any legacy index command was written. If so then there's additional ordering to care about below.
-        indexCommandDetector.reset();
-
         // The outcome of this try block is either of:
         // a) transaction successfully appended, at which point we return a Commitment to be used after force
         // b) transaction failed to be appended, at which point a kernel panic is issued
@@ -263,7 +411,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         try
         {
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            serializer.buffer.writeTo( writer );
+            logEntryWriter.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
 
             long transactionChecksum = checksum(
@@ -272,7 +421,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     transactionId, logPositionBeforeCommit, transaction.getMasterId(), transaction.getAuthorId(),
                     transactionChecksum );
 
-            boolean hasLegacyIndexChanges = indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+            boolean hasLegacyIndexChanges = serializer.indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
             if ( hasLegacyIndexChanges )
             {
                 // Offer this transaction id to the queue so that the legacy index applier can take part in the ordering
@@ -289,6 +438,47 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
+    /**
+     * Reports the force of a batch to the trace events of every transaction in it. The committers trace their own
+     * waiting for the log writer, so the log writer waiting for a concurrent force isn't reported again.
+     */
+    private static class BatchLogForceEvents implements LogForceEvents
+    {
+        private final List<PendingCommit> batch;
+
+        BatchLogForceEvents( List<PendingCommit> batch )
+        {
+            this.batch = batch;
+        }
+
+        @Override
+        public LogForceWaitEvent beginLogForceWait()
+        {
+            return LogForceWaitEvent.NULL;
+        }
+
+        @Override
+        public LogForceEvent beginLogForce()
+        {
+            final LogForceEvent[] events = new LogForceEvent[batch.size()];
+            for ( int i = 0; i < events.length; i++ )
+            {
+                events[i] = batch.get( i ).logAppendEvent.beginLogForce();
+            }
+            return new LogForceEvent()
+            {
+                @Override
+                public void close()
+                {
+                    for ( LogForceEvent event : events )
+                    {
+                        event.close();
+                    }
+                }
+            };
+        }
+    }
+
     private void orderLegacyIndexChanges( TransactionCommitment commit ) throws IOException
     {
         if ( commit.hasLegacyIndexChanges )
@@ -304,6 +494,75 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
+    /**
+     * The single thread that appends the transactions serialized by committing threads to the log. Everything that
+     * has been queued up since the previous round is appended as one batch and forced together.
+     */
+    private class LogWriter implements Runnable
+    {
+        private final List<PendingCommit> batch = new ArrayList<>();
+
+        @Override
+        public void run()
+        {
+            while ( running || !pendingCommits.isEmpty() )
+            {
+                PendingCommit pending;
+                while ( batch.size() < MAX_BATCH_SIZE && (pending = pendingCommits.poll()) != null )
+                {
+                    batch.add( pending );
+                }
+
+                if ( batch.isEmpty() )
+                {
+                    LockSupport.parkNanos( this, PARK_TIME );
+                    continue;
+                }
+
+                try
+                {
+                    appendBatch( batch );
+                }
+                finally
+                {
+                    for ( PendingCommit committed : batch )
+                    {
+                        committed.done = true;
+                        LockSupport.unpark( committed.committer );
+                    }
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void appendBatch( List<PendingCommit> batch )
+    {
+        try
+        {
+            // Synchronized with logFile to get absolute control over concurrent rotations happening
+            synchronized ( logFile )
+            {
+                for ( PendingCommit pending : batch )
+                {
+                    pending.transactionId = transactionIdStore.nextCommittingTransactionId();
+                    pending.commitment = appendToLog( pending.transaction, pending.transactionId, pending.serializer );
+                }
+            }
+
+            forceAfterAppend( new BatchLogForceEvents( batch ) );
+        }
+        catch ( Throwable failure )
+        {
+            // Either appending or forcing failed, which has already caused a kernel panic.
+            // None of the transactions in this batch can be considered committed.
+            for ( PendingCommit pending : batch )
+            {
+                pending.failure = failure;
+            }
+        }
+    }
+
     /**
      * Called by the appender that just appended a transaction to the log.
      *
@@ -316,7 +575,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
         threadLink.next = threadLinkHead.getAndSet( threadLink );
 
-        try ( LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait() )
+        LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait();
+        try
         {
             do
             {
@@ -345,12 +605,17 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             }
             while ( !threadLink.done );
         }
+        finally
+        {
+            logForceWaitEvent.close();
+        }
     }
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
-        try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
+        LogForceEvent logForceEvent = logForceEvents.beginLogForce();
+        try
         {
             force();
         }
@@ -361,6 +626,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
         finally
         {
+            logForceEvent.close();
             unparkAll( links );
         }
     }
@@ -385,8 +651,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void waitForLogForce()
     {
-        long parkTime = TimeUnit.MILLISECONDS.toNanos( 100 );
-        LockSupport.parkNanos( this, parkTime );
+        LockSupport.parkNanos( this, PARK_TIME );
     }
 
     @Override
@@ -20,6 +20,10 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.helpers.collection.CloseableVisitor;
 import org.neo4j.helpers.collection.Visitor;
@@ -27,19 +31,43 @@ import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.state.RecoverableTransaction;
 
+import static org.neo4j.helpers.Exceptions.launderedException;
 import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
 import static org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel.DEFAULT_READ_AHEAD_SIZE;
 
+/**
+ * Feeds the transactions found in a log file to a recovery visitor, and cuts off any broken transaction at the end.
+ * <p>
+ * Optionally the transactions are read and decoded by a separate thread, a number of transactions ahead of the
+ * visitor, so that reading the log doesn't hold up applying the transactions to the store.
+ */
 public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,IOException>
 {
     private final LogEntryReader<ReadableLogChannel> logEntryReader;
     private final CloseableVisitor<RecoverableTransaction,IOException> visitor;
+    private final int readAheadTransactions;
+    private final ThreadFactory readerThreads;
 
     public LogFileRecoverer( LogEntryReader<ReadableLogChannel> logEntryReader,
             CloseableVisitor<RecoverableTransaction,IOException> visitor )
+    {
+        this( logEntryReader, visitor, 0, null );
+    }
+
+    /**
+     * @param readAheadTransactions the number of transactions to read and decode ahead of the visitor, in a
+     * separate thread. Zero means that transactions are read by the visiting thread, on demand.
+     * @param readerThreads creates the thread reading ahead, which is stopped before each log file has been
+     * recovered. Not used if {@code readAheadTransactions} is zero.
+     */
+    public LogFileRecoverer( LogEntryReader<ReadableLogChannel> logEntryReader,
+            CloseableVisitor<RecoverableTransaction,IOException> visitor, int readAheadTransactions,
+            ThreadFactory readerThreads )
     {
         this.logEntryReader = logEntryReader;
         this.visitor = visitor;
+        this.readAheadTransactions = readAheadTransactions;
+        this.readerThreads = readerThreads;
     }
 
     @Override
@@ -51,37 +79,196 @@ public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,IOExce
         try ( final PhysicalTransactionCursor<ReadableLogChannel> physicalTransactionCursor =
                       new PhysicalTransactionCursor<>( recoveredDataChannel, logEntryReader ) )
         {
-            RecoverableTransaction recoverableTransaction = new RecoverableTransaction()
+            // Now that all ok transactions have been read, if needed truncate the position to cut
+            // off any potentially broken transactions
+            long lastKnownGoodPosition = readAheadTransactions > 0
+                    ? recoverReadingAhead( physicalTransactionCursor, recoveredDataChannel )
+                    : recover( physicalTransactionCursor, recoveredDataChannel );
+            if ( channel.position() > lastKnownGoodPosition )
+            {
+                channel.truncate( lastKnownGoodPosition );
+            }
+        }
+
+        visitor.close();
+        return true;
+    }
+
+    private long recover( final PhysicalTransactionCursor<ReadableLogChannel> physicalTransactionCursor,
+            final ReadableVersionableLogChannel recoveredDataChannel ) throws IOException
+    {
+        RecoverableTransaction recoverableTransaction = new RecoverableTransaction()
+        {
+            @Override
+            public CommittedTransactionRepresentation representation()
+            {
+                return physicalTransactionCursor.get();
+            }
+
+            @Override
+            public LogPosition positionAfterTx()
+            {
+                long version = recoveredDataChannel.getVersion();
+                long byteOffset = physicalTransactionCursor.lastKnownGoodPosition();
+                return new LogPosition( version, byteOffset );
+            }
+        };
+
+        while ( physicalTransactionCursor.next() && !visitor.visit( recoverableTransaction ) )
+        {
+        }
+        return physicalTransactionCursor.lastKnownGoodPosition();
+    }
+
+    private long recoverReadingAhead( PhysicalTransactionCursor<ReadableLogChannel> physicalTransactionCursor,
+            ReadableVersionableLogChannel recoveredDataChannel ) throws IOException
+    {
+        TransactionReader reader = new TransactionReader(
+                physicalTransactionCursor, recoveredDataChannel, readAheadTransactions, readerThreads );
+        try
+        {
+            RecoverableTransaction transaction;
+            while ( (transaction = reader.take()) != null )
+            {
+                if ( visitor.visit( transaction ) )
+                {
+                    // The reader has gotten further than this, but this is where the visitor wanted to stop
+                    return transaction.positionAfterTx().getByteOffset();
+                }
+            }
+            return reader.lastKnownGoodPosition;
+        }
+        finally
+        {
+            reader.stop();
+        }
+    }
+
+    private static class ReadTransaction implements RecoverableTransaction
+    {
+        private final CommittedTransactionRepresentation representation;
+        private final LogPosition positionAfterTx;
+
+        ReadTransaction( CommittedTransactionRepresentation representation, LogPosition positionAfterTx )
+        {
+            this.representation = representation;
+            this.positionAfterTx = positionAfterTx;
+        }
+
+        @Override
+        public CommittedTransactionRepresentation representation()
+        {
+            return representation;
+        }
+
+        @Override
+        public LogPosition positionAfterTx()
+        {
+            return positionAfterTx;
+        }
+    }
+
+    /**
+     * Reads and decodes transactions from the log in its own thread, handing them over through a bounded queue.
+     */
+    private static class TransactionReader implements Runnable
+    {
+        private static final RecoverableTransaction END = new ReadTransaction( null, null );
+
+        private final PhysicalTransactionCursor<ReadableLogChannel> cursor;
+        private final ReadableVersionableLogChannel channel;
+        private final BlockingQueue<RecoverableTransaction> transactions;
+        private final Thread thread;
+        private volatile boolean stopped;
+        private volatile Throwable failure;
+        private volatile long lastKnownGoodPosition;
+
+        TransactionReader( PhysicalTransactionCursor<ReadableLogChannel> cursor,
+                ReadableVersionableLogChannel channel, int readAheadTransactions, ThreadFactory threadFactory )
+        {
+            this.cursor = cursor;
+            this.channel = channel;
+            this.transactions = new ArrayBlockingQueue<>( readAheadTransactions );
+            this.thread = threadFactory.newThread( this );
+            this.thread.start();
+        }
+
+        @Override
+        public void run()
+        {
+            try
             {
-                @Override
-                public CommittedTransactionRepresentation representation()
+                while ( !stopped && cursor.next() )
                 {
-                    return physicalTransactionCursor.get();
+                    put( new ReadTransaction( cursor.get(),
+                            new LogPosition( channel.getVersion(), cursor.lastKnownGoodPosition() ) ) );
                 }
+                lastKnownGoodPosition = cursor.lastKnownGoodPosition();
+            }
+            catch ( Throwable e )
+            {
+                failure = e;
+            }
+            finally
+            {
+                put( END );
+            }
+        }
 
-                @Override
-                public LogPosition positionAfterTx()
+        private void put( RecoverableTransaction transaction )
+        {
+            try
+            {
+                while ( !stopped && !transactions.offer( transaction, 10, TimeUnit.MILLISECONDS ) )
                 {
-                    long version = recoveredDataChannel.getVersion();
-                    long byteOffset = physicalTransactionCursor.lastKnownGoodPosition();
-                    return new LogPosition( version, byteOffset );
+                    // The visitor is busy, wait for it to catch up
                 }
-            };
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+        }
 
-            while ( physicalTransactionCursor.next() && !visitor.visit( recoverableTransaction ) )
+        /**
+         * @return the next transaction, or {@code null} if there are no more transactions in the log.
+         */
+        RecoverableTransaction take() throws IOException
+        {
+            RecoverableTransaction transaction;
+            try
             {
+                transaction = transactions.take();
+            }
+            catch ( InterruptedException e )
+            {
+                throw new IOException( "Interrupted while waiting for transactions to recover", e );
             }
 
-            // Now that all ok transactions have been read, if needed truncate the position to cut
-            // off any potentially broken transactions
-            long lastKnownGoodPosition = physicalTransactionCursor.lastKnownGoodPosition();
-            if ( channel.position() > lastKnownGoodPosition )
+            if ( transaction == END )
             {
-                channel.truncate( lastKnownGoodPosition );
+                Throwable readFailure = failure;
+                if ( readFailure != null )
+                {
+                    throw launderedException( IOException.class, readFailure );
+                }
+                return null;
             }
+            return transaction;
         }
 
-        visitor.close();
-        return true;
+        void stop() throws IOException
+        {
+            stopped = true;
+            try
+            {
+                thread.join();
+            }
+            catch ( InterruptedException e )
+            {
+                throw new IOException( "Interrupted while waiting for the log reader to stop", e );
+            }
+        }
     }
 }
@@ -20,7 +20,9 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
+import org.neo4j.helpers.Clock;
 import org.neo4j.kernel.recovery.Recovery;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.state.RecoveryVisitor;
@@ -31,18 +33,30 @@ import static java.lang.String.format;
 public class LoggingLogFileMonitor implements PhysicalLogFile.Monitor, RecoveryVisitor.Monitor, LogRotation.Monitor,
         Recovery.Monitor
 {
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toMillis( 10 );
+
     private int numberOfRecoveredTransactions;
     private long firstTransactionRecovered, lastTransactionRecovered;
+    private long recoveryStartTime, lastProgressTime;
+    private int numberOfRecoveredTransactionsAtLastProgress;
     private final Log log;
+    private final Clock clock;
 
     public LoggingLogFileMonitor( Log log )
+    {
+        this( log, Clock.SYSTEM_CLOCK );
+    }
+
+    public LoggingLogFileMonitor( Log log, Clock clock )
     {
         this.log = log;
+        this.clock = clock;
     }
 
     @Override
     public void recoveryRequired( LogPosition startPosition )
     {
+        recoveryStartTime = lastProgressTime = clock.currentTimeMillis();
         log.info( "Recovery required from position " + startPosition );
     }
 
@@ -56,8 +70,10 @@ public class LoggingLogFileMonitor implements PhysicalLogFile.Monitor, RecoveryV
     {
         if ( numberOfRecoveredTransactions != 0 )
         {
-            log.info( format( "Recovery completed. %d transactions, first:%d, last:%d recovered",
-                    numberOfRecoveredTransactions, firstTransactionRecovered, lastTransactionRecovered ) );
+            long elapsed = clock.currentTimeMillis() - recoveryStartTime;
+            log.info( format( "Recovery completed. %d transactions, first:%d, last:%d recovered in %d ms (%d tx/s)",
+                    numberOfRecoveredTransactions, firstTransactionRecovered, lastTransactionRecovered, elapsed,
+                    perSecond( numberOfRecoveredTransactions, elapsed ) ) );
         }
         else
         {
@@ -86,6 +102,22 @@ public class LoggingLogFileMonitor implements PhysicalLogFile.Monitor, RecoveryV
         }
         lastTransactionRecovered = txId;
         numberOfRecoveredTransactions++;
+
+        long now = clock.currentTimeMillis();
+        if ( now - lastProgressTime >= PROGRESS_INTERVAL )
+        {
+            int recoveredSinceLastProgress = numberOfRecoveredTransactions - numberOfRecoveredTransactionsAtLastProgress;
+            log.info( format( "Recovery in progress. %d transactions recovered so far, last:%d (%d tx/s)",
+                    numberOfRecoveredTransactions, lastTransactionRecovered,
+                    perSecond( recoveredSinceLastProgress, now - lastProgressTime ) ) );
+            lastProgressTime = now;
+            numberOfRecoveredTransactionsAtLastProgress = numberOfRecoveredTransactions;
+        }
+    }
+
+    private static long perSecond( long count, long millis )
+    {
+        return millis > 0 ? count * 1000 / millis : count;
     }
 
     @Override
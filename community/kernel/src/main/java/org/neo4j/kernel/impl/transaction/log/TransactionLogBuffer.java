@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Growable in-memory {@link WritableLogChannel} that a committing thread serializes its transaction into without
+ * holding any lock. The serialized bytes are later copied in one go into the real log channel, using
+ * {@link #writeTo(WritableLogChannel)}. Instances are meant to be reused by a single thread at a time.
+ */
+final class TransactionLogBuffer implements WritableLogChannel
+{
+    private static final Flushable NO_FLUSH = new Flushable()
+    {
+        @Override
+        public void flush()
+        {
+        }
+    };
+
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+    private ByteBuffer buffer;
+
+    /**
+     * @param initialCapacity the number of bytes this buffer starts out with.
+     * @param maxRetainedCapacity buffers that have grown beyond this many bytes, because of a large transaction,
+     * are released on {@link #clear()} so that threads don't hang on to that memory forever.
+     */
+    TransactionLogBuffer( int initialCapacity, int maxRetainedCapacity )
+    {
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.buffer = ByteBuffer.allocate( initialCapacity );
+    }
+
+    public void clear()
+    {
+        if ( buffer.capacity() > maxRetainedCapacity )
+        {
+            buffer = ByteBuffer.allocate( initialCapacity );
+        }
+        buffer.clear();
+    }
+
+    public int size()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * Appends everything serialized into this buffer since it was last {@link #clear() cleared} to the given channel.
+     */
+    public void writeTo( WritableLogChannel channel ) throws IOException
+    {
+        channel.put( buffer.array(), buffer.position() );
+    }
+
+    /**
+     * There is no channel behind this buffer to empty it into, everything stays in the buffer until it is
+     * {@link #writeTo(WritableLogChannel) written} to the real log channel.
+     *
+     * @return a {@link Flushable} that does nothing.
+     */
+    @Override
+    public Flushable emptyBufferIntoChannelAndClearIt()
+    {
+        return NO_FLUSH;
+    }
+
+    @Override
+    public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker )
+    {
+        positionMarker.unspecified();
+        return positionMarker;
+    }
+
+    @Override
+    public WritableLogChannel put( byte value )
+    {
+        ensureCapacity( 1 ).put( value );
+        return this;
+    }
+
+    @Override
+    public WritableLogChannel putShort( short value )
+    {
+        ensureCapacity( 2 ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public WritableLogChannel putInt( int value )
+    {
+        ensureCapacity( 4 ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public WritableLogChannel putLong( long value )
+    {
+        ensureCapacity( 8 ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public WritableLogChannel putFloat( float value )
+    {
+        ensureCapacity( 4 ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public WritableLogChannel putDouble( double value )
+    {
+        ensureCapacity( 8 ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public WritableLogChannel put( byte[] value, int length )
+    {
+        ensureCapacity( length ).put( value, 0, length );
+        return this;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    private ByteBuffer ensureCapacity( int bytes )
+    {
+        if ( buffer.remaining() < bytes )
+        {
+            int newCapacity = Math.max( buffer.capacity() << 1, buffer.position() + bytes );
+            ByteBuffer grown = ByteBuffer.allocate( newCapacity );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
@@ -45,21 +47,39 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     private final KernelHealth kernelHealth;
     private final Log msgLog;
     private final CheckPointTracer tracer;
+    private final PageCacheMonitor pageCacheMonitor;
     private final Lock lock;
 
     private long lastCheckPointedTx;
+    private long bytesWrittenAtLastCheckPoint;
 
     public CheckPointerImpl( TransactionIdStore transactionIdStore, CheckPointThreshold threshold,
             StoreFlusher storeFlusher, LogPruning logPruning, TransactionAppender appender, KernelHealth kernelHealth,
             LogProvider logProvider, CheckPointTracer tracer )
     {
         this( transactionIdStore, threshold, storeFlusher, logPruning, appender, kernelHealth, logProvider, tracer,
-                new ReentrantLock() );
+                PageCacheTracer.NULL );
+    }
+
+    public CheckPointerImpl( TransactionIdStore transactionIdStore, CheckPointThreshold threshold,
+            StoreFlusher storeFlusher, LogPruning logPruning, TransactionAppender appender, KernelHealth kernelHealth,
+            LogProvider logProvider, CheckPointTracer tracer, PageCacheMonitor pageCacheMonitor )
+    {
+        this( transactionIdStore, threshold, storeFlusher, logPruning, appender, kernelHealth, logProvider, tracer,
+                pageCacheMonitor, new ReentrantLock() );
     }
 
     public CheckPointerImpl( TransactionIdStore transactionIdStore, CheckPointThreshold threshold,
             StoreFlusher storeFlusher, LogPruning logPruning, TransactionAppender appender, KernelHealth kernelHealth,
             LogProvider logProvider, CheckPointTracer tracer, Lock lock )
+    {
+        this( transactionIdStore, threshold, storeFlusher, logPruning, appender, kernelHealth, logProvider, tracer,
+                PageCacheTracer.NULL, lock );
+    }
+
+    public CheckPointerImpl( TransactionIdStore transactionIdStore, CheckPointThreshold threshold,
+            StoreFlusher storeFlusher, LogPruning logPruning, TransactionAppender appender, KernelHealth kernelHealth,
+            LogProvider logProvider, CheckPointTracer tracer, PageCacheMonitor pageCacheMonitor, Lock lock )
     {
         this.appender = appender;
         this.transactionIdStore = transactionIdStore;
@@ -69,6 +89,7 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
         this.kernelHealth = kernelHealth;
         this.msgLog = logProvider.getLog( CheckPointerImpl.class );
         this.tracer = tracer;
+        this.pageCacheMonitor = pageCacheMonitor;
         this.lock = lock;
     }
 
@@ -76,6 +97,7 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     public void start() throws Throwable
     {
         threshold.initialize( transactionIdStore.getLastClosedTransactionId() );
+        bytesWrittenAtLastCheckPoint = pageCacheMonitor.countBytesWritten();
     }
 
     @Override
@@ -162,10 +184,19 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
         /*
          * First we flush the store. If we fail now or during the flush, on recovery we'll find the
          * earlier check point and replay from there all the log entries. Everything will be ok.
+         * The page cache keeps flushing dirty pages in the background between check points, so
+         * what is left for us here is the pages dirtied since the background flusher last passed by.
          */
         msgLog.info( prefix + " Starting store flush..." );
+        long bytesWrittenBeforeFlush = pageCacheMonitor.countBytesWritten();
         storeFlusher.forceEverything();
-        msgLog.info( prefix + " Store flush completed" );
+        long bytesWrittenAfterFlush = pageCacheMonitor.countBytesWritten();
+        long bytesFlushedInBackground = bytesWrittenBeforeFlush - bytesWrittenAtLastCheckPoint;
+        long bytesFlushedByCheckPoint = bytesWrittenAfterFlush - bytesWrittenBeforeFlush;
+        bytesWrittenAtLastCheckPoint = bytesWrittenAfterFlush;
+        logCheckPointEvent.flushed( bytesFlushedInBackground, bytesFlushedByCheckPoint );
+        msgLog.info( prefix + " Store flush completed, flushed " + bytesFlushedByCheckPoint + " bytes, " +
+                     bytesFlushedInBackground + " bytes were already flushed since the previous check point" );
 
         /*
          * Check kernel health before going to write the next check point.  In case of a panic this check point
@@ -24,4 +24,20 @@ public interface CheckPointerMonitor
     long numberOfCheckPointEvents();
 
     long checkPointAccumulatedTotalTimeMillis();
+
+    /**
+     * @return the total number of bytes written to the store files in the background, between check points.
+     */
+    long backgroundFlushedBytes();
+
+    /**
+     * @return the total number of bytes that were left for check points to write to the store files.
+     */
+    long checkPointFlushedBytes();
+
+    /**
+     * @return the rate, in bytes per second, at which the store files were written to in the background between
+     * the two most recent check points.
+     */
+    long backgroundFlushRateBytesPerSecond();
 }
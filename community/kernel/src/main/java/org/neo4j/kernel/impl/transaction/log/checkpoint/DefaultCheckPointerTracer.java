@@ -33,15 +33,36 @@ public class DefaultCheckPointerTracer implements CheckPointTracer, CheckPointer
     private final Clock clock;
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
+    private final AtomicLong backgroundFlushedBytes = new AtomicLong();
+    private final AtomicLong checkPointFlushedBytes = new AtomicLong();
 
     private volatile long startTimeNanos;
+    private volatile long previousEndTimeNanos = -1;
+    private volatile long backgroundFlushRate;
 
     private LogCheckPointEvent logCheckPointEvent = new LogCheckPointEvent()
     {
+        @Override
+        public void flushed( long bytesFlushedSincePreviousCheckPoint, long bytesFlushedByCheckPoint )
+        {
+            backgroundFlushedBytes.addAndGet( bytesFlushedSincePreviousCheckPoint );
+            checkPointFlushedBytes.addAndGet( bytesFlushedByCheckPoint );
+            long previousEnd = previousEndTimeNanos;
+            if ( previousEnd != -1 )
+            {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( startTimeNanos - previousEnd );
+                backgroundFlushRate = elapsedMillis > 0
+                                      ? bytesFlushedSincePreviousCheckPoint * 1000 / elapsedMillis
+                                      : 0;
+            }
+        }
+
         @Override
         public void close()
         {
-            accumulatedTotalTimeNanos.addAndGet( clock.nanoTime() - startTimeNanos );
+            long endTimeNanos = clock.nanoTime();
+            accumulatedTotalTimeNanos.addAndGet( endTimeNanos - startTimeNanos );
+            previousEndTimeNanos = endTimeNanos;
         }
 
         @Override
@@ -87,4 +108,22 @@ public class DefaultCheckPointerTracer implements CheckPointTracer, CheckPointer
     {
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
+
+    @Override
+    public long backgroundFlushedBytes()
+    {
+        return backgroundFlushedBytes.get();
+    }
+
+    @Override
+    public long checkPointFlushedBytes()
+    {
+        return checkPointFlushedBytes.get();
+    }
+
+    @Override
+    public long backgroundFlushRateBytesPerSecond()
+    {
+        return backgroundFlushRate;
+    }
 }
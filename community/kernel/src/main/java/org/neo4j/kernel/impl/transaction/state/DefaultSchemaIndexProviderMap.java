@@ -19,16 +19,62 @@
  */
 package org.neo4j.kernel.impl.transaction.state;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.impl.api.index.SchemaIndexProviderMap;
 
 public class DefaultSchemaIndexProviderMap implements SchemaIndexProviderMap
 {
     private final SchemaIndexProvider indexProvider;
+    private final Map<String,SchemaIndexProvider> indexProviders = new HashMap<>();
 
     public DefaultSchemaIndexProviderMap( SchemaIndexProvider indexProvider )
+    {
+        this( indexProvider, Collections.<SchemaIndexProvider>emptyList() );
+    }
+
+    /**
+     * @param indexProvider the provider of new indexes.
+     * @param additionalProviders providers of existing indexes, besides the default one.
+     */
+    public DefaultSchemaIndexProviderMap( SchemaIndexProvider indexProvider,
+            Iterable<SchemaIndexProvider> additionalProviders )
     {
         this.indexProvider = indexProvider;
+        for ( SchemaIndexProvider provider : additionalProviders )
+        {
+            indexProviders.put( provider.getProviderDescriptor().getKey(), provider );
+        }
+        // The default provider wins over any other provider with the same key
+        indexProviders.put( indexProvider.getProviderDescriptor().getKey(), indexProvider );
+    }
+
+    /**
+     * @return all {@link SchemaIndexProvider providers} that the given resolver knows of, in no particular order,
+     * for using the existing indexes of every provider, not only those of the default one.
+     */
+    public static List<SchemaIndexProvider> allProviders( DependencyResolver resolver )
+    {
+        final List<SchemaIndexProvider> providers = new ArrayList<>();
+        resolver.resolveDependency( SchemaIndexProvider.class, new DependencyResolver.SelectionStrategy()
+        {
+            @Override
+            public <T> T select( Class<T> type, Iterable<T> candidates ) throws IllegalArgumentException
+            {
+                for ( T candidate : candidates )
+                {
+                    providers.add( (SchemaIndexProvider) candidate );
+                }
+                return null;
+            }
+        } );
+        return providers;
     }
 
     @Override
@@ -40,11 +86,12 @@ public class DefaultSchemaIndexProviderMap implements SchemaIndexProviderMap
     @Override
     public SchemaIndexProvider apply( SchemaIndexProvider.Descriptor descriptor )
     {
-        if ( indexProvider.getProviderDescriptor().getKey().equals( descriptor.getKey() ) )
-            return indexProvider;
+        SchemaIndexProvider provider = indexProviders.get( descriptor.getKey() );
+        if ( provider != null )
+            return provider;
 
         throw new IllegalArgumentException( "Tried to get index provider for an existing index with provider " +
-                descriptor + " whereas the default and only supported provider in this session is " +
-                indexProvider.getProviderDescriptor() );
+                descriptor + " whereas the supported providers in this session are " + indexProviders.keySet() +
+                ", with " + indexProvider.getProviderDescriptor() + " as the default" );
     }
 }
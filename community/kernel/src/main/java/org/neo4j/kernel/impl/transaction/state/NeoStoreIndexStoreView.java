@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.state;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.helpers.collection.Iterables;
@@ -43,8 +45,11 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.SchemaStorage;
+import org.neo4j.kernel.impl.store.SchemaStorage.IndexRuleKind;
 import org.neo4j.kernel.impl.store.StoreIdIterator;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -61,6 +66,8 @@ public class NeoStoreIndexStoreView implements IndexStoreView
     private final NodeStore nodeStore;
     private final LockService locks;
     private final CountsTracker counts;
+    private final SchemaStorage schemaStorage;
+    private final ConcurrentMap<IndexDescriptor,Integer> compositeCountsPropertyKeyIds = new ConcurrentHashMap<>();
 
     public NeoStoreIndexStoreView( LockService locks, NeoStores neoStores )
     {
@@ -68,12 +75,19 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         this.propertyStore = neoStores.getPropertyStore();
         this.nodeStore = neoStores.getNodeStore();
         this.counts = neoStores.getCounts();
+        this.schemaStorage = new SchemaStorage( neoStores.getSchemaStore() );
     }
 
     @Override
     public DoubleLongRegister indexUpdatesAndSize( IndexDescriptor descriptor, DoubleLongRegister output )
     {
-        return counts.indexUpdatesAndSize( descriptor.getLabelId(), descriptor.getPropertyKeyId(), output );
+        Integer propertyKeyId = countsPropertyKeyId( descriptor, false );
+        if ( propertyKeyId == null )
+        {
+            output.write( 0l, 0l );
+            return output;
+        }
+        return counts.indexUpdatesAndSize( descriptor.getLabelId(), propertyKeyId, output );
     }
 
     @Override
@@ -81,7 +95,12 @@ public class NeoStoreIndexStoreView implements IndexStoreView
                                     long uniqueElements, long maxUniqueElements, long indexSize )
     {
         int labelId = descriptor.getLabelId();
-        int propertyKeyId = descriptor.getPropertyKeyId();
+        // Look up the rule again, since a composite index may have been dropped and created again since last time
+        Integer propertyKeyId = countsPropertyKeyId( descriptor, true );
+        if ( propertyKeyId == null )
+        {
+            return;
+        }
         try ( CountsAccessor.IndexStatsUpdater updater = counts.updateIndexCounts() )
         {
             updater.replaceIndexSample( labelId, propertyKeyId, uniqueElements, maxUniqueElements );
@@ -92,16 +111,66 @@ public class NeoStoreIndexStoreView implements IndexStoreView
     @Override
     public void incrementIndexUpdates( IndexDescriptor descriptor, long updatesDelta )
     {
+        Integer propertyKeyId = countsPropertyKeyId( descriptor, false );
+        if ( propertyKeyId == null )
+        {
+            return;
+        }
         try ( CountsAccessor.IndexStatsUpdater updater = counts.updateIndexCounts() )
         {
-            updater.incrementIndexUpdates( descriptor.getLabelId(), descriptor.getPropertyKeyId(), updatesDelta );
+            updater.incrementIndexUpdates( descriptor.getLabelId(), propertyKeyId, updatesDelta );
         }
     }
 
     @Override
     public DoubleLongRegister indexSample( IndexDescriptor descriptor, DoubleLongRegister output )
     {
-        return counts.indexSample( descriptor.getLabelId(), descriptor.getPropertyKeyId(), output );
+        Integer propertyKeyId = countsPropertyKeyId( descriptor, false );
+        if ( propertyKeyId == null )
+        {
+            output.write( 0l, 0l );
+            return output;
+        }
+        return counts.indexSample( descriptor.getLabelId(), propertyKeyId, output );
+    }
+
+    /**
+     * The counts store keeps index statistics by label and a single property key, so a composite index is given a
+     * negative property key of its own, derived from the id of its index rule, which no single property index can
+     * have. The rule is looked up in the schema store once and then remembered, also after the rule is deleted, so
+     * that the counts of a dropped index can still be cleared.
+     *
+     * @return the property key to keep the statistics of the index under, or {@code null} for a composite index that
+     * the schema store does not know of.
+     */
+    private Integer countsPropertyKeyId( IndexDescriptor descriptor, boolean lookUpAgain )
+    {
+        if ( !descriptor.isComposite() )
+        {
+            return descriptor.getPropertyKeyId();
+        }
+        Integer propertyKeyId = compositeCountsPropertyKeyIds.get( descriptor );
+        if ( propertyKeyId == null || lookUpAgain )
+        {
+            IndexRule rule = schemaStorage.indexRule(
+                    descriptor.getLabelId(), descriptor.getPropertyKeyIds(), IndexRuleKind.ALL );
+            if ( rule != null )
+            {
+                propertyKeyId = compositeCountsPropertyKeyId( rule.getId() );
+                compositeCountsPropertyKeyIds.put( descriptor, propertyKeyId );
+            }
+        }
+        return propertyKeyId;
+    }
+
+    static int compositeCountsPropertyKeyId( long indexRuleId )
+    {
+        if ( indexRuleId > Integer.MAX_VALUE )
+        {
+            throw new IllegalStateException( "Index rule id " + indexRuleId + " is too large to keep the " +
+                                             "statistics of a composite index by" );
+        }
+        return Integer.MIN_VALUE | (int) indexRuleId;
     }
 
     @Override
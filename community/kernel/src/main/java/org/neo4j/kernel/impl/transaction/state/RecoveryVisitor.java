@@ -83,6 +83,8 @@ public class RecoveryVisitor implements CloseableVisitor<RecoverableTransaction,
     @Override
     public void close() throws IOException
     {
+        // The store applier may still be applying some of the transactions it has been given
+        storeApplier.awaitAppliedTransactions();
         if ( lastTransactionIdApplied != -1 )
         {
             store.setLastCommittedAndClosedTransactionId( lastTransactionIdApplied, lastTransactionChecksum,
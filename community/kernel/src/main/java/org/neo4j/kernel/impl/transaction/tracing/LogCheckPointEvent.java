@@ -38,12 +38,23 @@ public interface LogCheckPointEvent extends LogForceEvents, AutoCloseable
             return LogForceEvent.NULL;
         }
 
+        @Override
+        public void flushed( long bytesFlushedSincePreviousCheckPoint, long bytesFlushedByCheckPoint )
+        {
+        }
+
         @Override
         public void close()
         {
         }
     };
 
+    /**
+     * Reports how many bytes the page cache wrote to the store files in the background since the previous check
+     * point, and how many bytes were left for this check point to flush.
+     */
+    void flushed( long bytesFlushedSincePreviousCheckPoint, long bytesFlushedByCheckPoint );
+
     /**
      * Marks the end of the check pointing process.
      */
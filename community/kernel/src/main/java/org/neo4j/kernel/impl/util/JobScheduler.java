@@ -141,6 +141,27 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group checkPoint = new Group( "CheckPoint", POOLED );
 
+        /**
+         * Profiles and warms up the page cache
+         */
+        public static final Group pageCacheWarmup = new Group( "PageCacheWarmup", POOLED );
+
+        /**
+         * Appends committed transactions to the transaction log and forces it, in batches
+         */
+        public static final Group transactionLogWriter = new Group( "TransactionLogWriter", NEW_THREAD );
+
+        /**
+         * Applies schema index and label scan store updates of pulled transactions in the background
+         */
+        public static final Group indexUpdateApplier = new Group( "IndexUpdateApplier", NEW_THREAD );
+
+        /**
+         * Apply recovered transactions to the graph store in parallel, and read them ahead from the log
+         */
+        public static final Group recoveryWorker = new Group( "RecoveryWorker", NEW_THREAD );
+        public static final Group recoveryLogReader = new Group( "RecoveryLogReader", NEW_THREAD );
+
         /**
          * Network IO threads for the Bolt protocol.
          */
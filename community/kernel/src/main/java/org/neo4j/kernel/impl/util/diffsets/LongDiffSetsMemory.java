@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.diffsets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.Resource;
+
+/**
+ * Allocates the primitive long sets backing {@link PrimitiveLongDiffSets} of a transaction and keeps an estimate
+ * of how much heap they occupy. Once that estimate crosses the off-heap threshold, sets are moved off heap as they
+ * are written to, so that large transactions can run with a modest heap. Off-heap sets are freed when this is
+ * {@link #close() closed}, which must happen when the transaction that owns the diff sets is closed.
+ * <p>
+ * Only these id sets are accounted for and moved off heap. The rest of the transaction state, which is kept in
+ * maps of objects, stays on heap regardless of the threshold.
+ * <p>
+ * Instances are not thread safe, just like the transaction state they are used for.
+ */
+public class LongDiffSetsMemory implements Resource
+{
+    /**
+     * Keeps all sets on heap. Shared and stateless, since nothing is tracked when there is no threshold.
+     */
+    public static final LongDiffSetsMemory ON_HEAP = new LongDiffSetsMemory( 0 );
+
+    /** Rough size of an element in a hop-scotch set, i.e. the 8 byte key and 4 bytes of hop information. */
+    static final int BYTES_PER_ELEMENT = 12;
+
+    private final long offHeapThreshold;
+    private long heapBytes;
+    private long spilledBytes;
+    private List<PrimitiveLongSet> offHeapSets;
+
+    /**
+     * @param offHeapThreshold number of bytes of diff set elements to keep on heap, before moving sets off heap.
+     * {@code 0} means that sets are always kept on heap.
+     */
+    public LongDiffSetsMemory( long offHeapThreshold )
+    {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    /**
+     * @return whether or not the heap estimate has crossed the threshold, meaning that sets should be moved off heap.
+     */
+    boolean spilling()
+    {
+        return offHeapThreshold > 0 && heapBytes >= offHeapThreshold;
+    }
+
+    PrimitiveLongSet newHeapSet( int initialCapacity )
+    {
+        return Primitive.longSet( initialCapacity );
+    }
+
+    PrimitiveLongSet newOffHeapSet( int initialCapacity )
+    {
+        PrimitiveLongSet set = Primitive.offHeapLongSet( initialCapacity );
+        if ( offHeapSets == null )
+        {
+            offHeapSets = new ArrayList<>();
+        }
+        offHeapSets.add( set );
+        return set;
+    }
+
+    void elementsAdded( int count, boolean offHeap )
+    {
+        if ( offHeapThreshold > 0 )
+        {
+            if ( offHeap )
+            {
+                spilledBytes += (long) count * BYTES_PER_ELEMENT;
+            }
+            else
+            {
+                heapBytes += (long) count * BYTES_PER_ELEMENT;
+            }
+        }
+    }
+
+    void elementsRemoved( int count, boolean offHeap )
+    {
+        if ( offHeapThreshold > 0 && !offHeap )
+        {
+            heapBytes -= (long) count * BYTES_PER_ELEMENT;
+        }
+    }
+
+    /**
+     * @return number of bytes of diff set elements that have been written off heap.
+     */
+    public long spilledBytes()
+    {
+        return spilledBytes;
+    }
+
+    /**
+     * Frees all off-heap sets allocated by this instance. Diff sets using this instance must not be used afterwards.
+     */
+    @Override
+    public void close()
+    {
+        if ( offHeapSets != null )
+        {
+            for ( PrimitiveLongSet set : offHeapSets )
+            {
+                set.close();
+            }
+            offHeapSets = null;
+        }
+    }
+}
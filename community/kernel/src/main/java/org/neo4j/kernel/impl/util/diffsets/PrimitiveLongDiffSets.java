@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.diffsets;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.function.Predicate;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.api.exceptions.schema.ConstraintValidationKernelException;
+import org.neo4j.kernel.api.exceptions.schema.CreateConstraintFailureException;
+import org.neo4j.kernel.impl.util.DiffApplyingPrimitiveIntIterator;
+
+import static java.lang.String.format;
+import static org.neo4j.helpers.collection.Iterables.concat;
+
+/**
+ * {@link DiffSets} specialized for primitive long elements, e.g. node ids, which keeps added and removed elements
+ * in primitive long sets instead of sets of boxed {@link Long} instances. This keeps the memory footprint of large
+ * write transactions down and avoids allocating a boxed key and a map entry for every added or removed element.
+ * <p>
+ * Iteration has the same semantics as the {@link org.neo4j.kernel.impl.util.VersionedHashMap} backed
+ * {@link DiffSets}: elements added while iterating are not seen by already started iterators, whereas elements
+ * removed while iterating are. This is achieved by copying a set on write if it has iterators that are still
+ * in progress, letting those iterators continue over the set they were created from and checking each element
+ * against the current set before returning it.
+ */
+public class PrimitiveLongDiffSets implements ReadableDiffSets<Long>
+{
+    private final LongDiffSetsMemory memory;
+    private CopyOnWriteLongSet addedElements;
+    private CopyOnWriteLongSet removedElements;
+
+    public PrimitiveLongDiffSets()
+    {
+        this( LongDiffSetsMemory.ON_HEAP );
+    }
+
+    /**
+     * @param memory allocates the sets of added and removed elements, and decides when to move them off heap.
+     */
+    public PrimitiveLongDiffSets( LongDiffSetsMemory memory )
+    {
+        this.memory = memory;
+    }
+
+    public boolean add( long elem )
+    {
+        boolean wasRemoved = removedElements != null && removedElements.remove( elem );
+        // Add to the addedElements only if it was not removed from the removedElements
+        return wasRemoved || added( true ).add( elem );
+    }
+
+    public boolean remove( long elem )
+    {
+        boolean removedFromAddedElements = addedElements != null && addedElements.remove( elem );
+        // Add to the removedElements only if it was not removed from the addedElements.
+        return removedFromAddedElements || removed( true ).add( elem );
+    }
+
+    public void addAll( PrimitiveLongIterator elems )
+    {
+        while ( elems.hasNext() )
+        {
+            add( elems.next() );
+        }
+    }
+
+    public void removeAll( PrimitiveLongIterator elems )
+    {
+        while ( elems.hasNext() )
+        {
+            remove( elems.next() );
+        }
+    }
+
+    public boolean unRemove( long item )
+    {
+        return removedElements != null && removedElements.remove( item );
+    }
+
+    public void clear()
+    {
+        if ( addedElements != null )
+        {
+            addedElements.clear();
+        }
+        if ( removedElements != null )
+        {
+            removedElements.clear();
+        }
+    }
+
+    public boolean isAdded( long elem )
+    {
+        return addedElements != null && addedElements.contains( elem );
+    }
+
+    public boolean isRemoved( long elem )
+    {
+        return removedElements != null && removedElements.contains( elem );
+    }
+
+    @Override
+    public boolean isAdded( Long elem )
+    {
+        return isAdded( elem.longValue() );
+    }
+
+    @Override
+    public boolean isRemoved( Long elem )
+    {
+        return isRemoved( elem.longValue() );
+    }
+
+    public PrimitiveLongIterator addedIterator()
+    {
+        return addedElements == null ? PrimitiveLongCollections.emptyIterator() : addedElements.iterator();
+    }
+
+    public PrimitiveLongIterator removedIterator()
+    {
+        return removedElements == null ? PrimitiveLongCollections.emptyIterator() : removedElements.iterator();
+    }
+
+    @Override
+    public Set<Long> getAdded()
+    {
+        return addedElements == null ? Collections.<Long>emptySet() : addedElements.view();
+    }
+
+    @Override
+    public Set<Long> getRemoved()
+    {
+        return removedElements == null ? Collections.<Long>emptySet() : removedElements.view();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size( addedElements ) == 0 && size( removedElements ) == 0;
+    }
+
+    @Override
+    public int delta()
+    {
+        return size( addedElements ) - size( removedElements );
+    }
+
+    @Override
+    public Iterator<Long> apply( Iterator<Long> source )
+    {
+        if ( isEmpty() )
+        {
+            return source;
+        }
+        Iterator<Long> result = Iterables.filter( new Predicate<Long>()
+        {
+            @Override
+            public boolean test( Long item )
+            {
+                return !isRemoved( item.longValue() ) && !isAdded( item.longValue() );
+            }
+        }, source );
+        if ( size( addedElements ) > 0 )
+        {
+            result = concat( result, getAdded().iterator() );
+        }
+        return result;
+    }
+
+    @Override
+    public PrimitiveLongIterator augment( PrimitiveLongIterator source )
+    {
+        return new DiffApplyingIterator( source, addedIterator() );
+    }
+
+    @Override
+    public PrimitiveIntIterator augment( PrimitiveIntIterator source )
+    {
+        return new DiffApplyingPrimitiveIntIterator( source, getAdded(), getRemoved() );
+    }
+
+    @Override
+    public PrimitiveLongIterator augmentWithRemovals( PrimitiveLongIterator source )
+    {
+        return new DiffApplyingIterator( source, PrimitiveLongCollections.emptyIterator() );
+    }
+
+    @Override
+    public PrimitiveLongDiffSets filterAdded( Predicate<Long> addedFilter )
+    {
+        // The filtered diff sets only live for the query asking for them, so they're not charged to the transaction
+        PrimitiveLongDiffSets filtered = new PrimitiveLongDiffSets( LongDiffSetsMemory.ON_HEAP );
+        PrimitiveLongIterator added = addedIterator();
+        while ( added.hasNext() )
+        {
+            long elem = added.next();
+            if ( addedFilter.test( elem ) )
+            {
+                filtered.add( elem );
+            }
+        }
+        filtered.removeAll( removedIterator() );
+        return filtered;
+    }
+
+    @Override
+    public void accept( DiffSetsVisitor<Long> visitor )
+            throws ConstraintValidationKernelException, CreateConstraintFailureException
+    {
+        PrimitiveLongIterator added = addedIterator();
+        while ( added.hasNext() )
+        {
+            visitor.visitAdded( added.next() );
+        }
+        PrimitiveLongIterator removed = removedIterator();
+        while ( removed.hasNext() )
+        {
+            visitor.visitRemoved( removed.next() );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "{+%s, -%s}", getAdded(), getRemoved() );
+    }
+
+    private CopyOnWriteLongSet added( boolean create )
+    {
+        if ( addedElements == null && create )
+        {
+            addedElements = new CopyOnWriteLongSet( memory );
+        }
+        return addedElements;
+    }
+
+    private CopyOnWriteLongSet removed( boolean create )
+    {
+        if ( removedElements == null && create )
+        {
+            removedElements = new CopyOnWriteLongSet( memory );
+        }
+        return removedElements;
+    }
+
+    private static int size( CopyOnWriteLongSet set )
+    {
+        return set == null ? 0 : set.size();
+    }
+
+    /**
+     * Filters removed and added elements out of the source and then appends the added elements.
+     */
+    private class DiffApplyingIterator extends PrimitiveLongBaseIterator implements Resource
+    {
+        private final PrimitiveLongIterator source;
+        private final PrimitiveLongIterator addedElementsIterator;
+
+        DiffApplyingIterator( PrimitiveLongIterator source, PrimitiveLongIterator addedElementsIterator )
+        {
+            this.source = source;
+            this.addedElementsIterator = addedElementsIterator;
+        }
+
+        @Override
+        protected boolean fetchNext()
+        {
+            while ( source.hasNext() )
+            {
+                long value = source.next();
+                if ( !isRemoved( value ) && !isAdded( value ) )
+                {
+                    return next( value );
+                }
+            }
+            return addedElementsIterator.hasNext() && next( addedElementsIterator.next() );
+        }
+
+        @Override
+        public void close()
+        {
+            if ( source instanceof Resource )
+            {
+                ((Resource) source).close();
+            }
+            if ( addedElementsIterator instanceof Resource )
+            {
+                ((Resource) addedElementsIterator).close();
+            }
+        }
+    }
+
+    /**
+     * A primitive long set which is copied before it is modified, if there are iterators in progress over it.
+     * Such iterators keep iterating over the set they were created from, but skip elements that have since
+     * been removed from the current set. The set is also moved off heap on its next write, once the
+     * {@link LongDiffSetsMemory} says so.
+     */
+    private static class CopyOnWriteLongSet
+    {
+        private final LongDiffSetsMemory memory;
+        private PrimitiveLongSet set;
+        private boolean offHeap;
+        private int activeIterators;
+
+        CopyOnWriteLongSet( LongDiffSetsMemory memory )
+        {
+            this.memory = memory;
+            this.offHeap = memory.spilling();
+            this.set = newSet( Primitive.DEFAULT_HEAP_CAPACITY );
+        }
+
+        boolean add( long elem )
+        {
+            if ( set.contains( elem ) )
+            {
+                return false;
+            }
+            writable().add( elem );
+            memory.elementsAdded( 1, offHeap );
+            return true;
+        }
+
+        boolean remove( long elem )
+        {
+            if ( !set.contains( elem ) )
+            {
+                return false;
+            }
+            writable().remove( elem );
+            memory.elementsRemoved( 1, offHeap );
+            return true;
+        }
+
+        boolean contains( long elem )
+        {
+            return set.contains( elem );
+        }
+
+        int size()
+        {
+            return set.size();
+        }
+
+        void clear()
+        {
+            memory.elementsRemoved( set.size(), offHeap );
+            if ( activeIterators > 0 )
+            {
+                set = newSet( Primitive.DEFAULT_HEAP_CAPACITY );
+                activeIterators = 0;
+            }
+            else
+            {
+                set.clear();
+            }
+        }
+
+        PrimitiveLongIterator iterator()
+        {
+            if ( set.isEmpty() )
+            {
+                return PrimitiveLongCollections.emptyIterator();
+            }
+            activeIterators++;
+            return new SnapshotIterator( set );
+        }
+
+        Set<Long> view()
+        {
+            return new AbstractSet<Long>()
+            {
+                @Override
+                public Iterator<Long> iterator()
+                {
+                    final PrimitiveLongIterator iterator = CopyOnWriteLongSet.this.iterator();
+                    return new Iterator<Long>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Long next()
+                        {
+                            if ( !iterator.hasNext() )
+                            {
+                                throw new NoSuchElementException();
+                            }
+                            return iterator.next();
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return set.size();
+                }
+
+                @Override
+                public boolean contains( Object o )
+                {
+                    return o instanceof Long && set.contains( (Long) o );
+                }
+            };
+        }
+
+        private PrimitiveLongSet writable()
+        {
+            if ( !offHeap && memory.spilling() )
+            {
+                memory.elementsRemoved( set.size(), false );
+                offHeap = true;
+                copy();
+                memory.elementsAdded( set.size(), true );
+            }
+            else if ( activeIterators > 0 )
+            {
+                copy();
+                if ( offHeap )
+                {
+                    // the off-heap set being iterated stays allocated until the memory is closed
+                    memory.elementsAdded( set.size(), true );
+                }
+            }
+            return set;
+        }
+
+        private void copy()
+        {
+            PrimitiveLongSet copy = newSet( Math.max( set.size() * 2, Primitive.DEFAULT_HEAP_CAPACITY ) );
+            copy.addAll( set.iterator() );
+            set = copy;
+            activeIterators = 0;
+        }
+
+        private PrimitiveLongSet newSet( int initialCapacity )
+        {
+            return offHeap ? memory.newOffHeapSet( initialCapacity ) : memory.newHeapSet( initialCapacity );
+        }
+
+        private void release( PrimitiveLongSet iterated )
+        {
+            if ( iterated == set )
+            {
+                activeIterators--;
+            }
+        }
+
+        private class SnapshotIterator extends PrimitiveLongBaseIterator implements Resource
+        {
+            private PrimitiveLongSet iterated;
+            private final PrimitiveLongIterator source;
+
+            SnapshotIterator( PrimitiveLongSet iterated )
+            {
+                this.iterated = iterated;
+                this.source = iterated.iterator();
+            }
+
+            @Override
+            protected boolean fetchNext()
+            {
+                while ( iterated != null && source.hasNext() )
+                {
+                    long value = source.next();
+                    if ( iterated == set || set.contains( value ) )
+                    {
+                        return next( value );
+                    }
+                }
+                close();
+                return false;
+            }
+
+            @Override
+            public void close()
+            {
+                if ( iterated != null )
+                {
+                    release( iterated );
+                    iterated = null;
+                }
+            }
+        }
+    }
+}
@@ -297,7 +297,7 @@ public class BatchInserterImpl implements BatchInserter
         schemaCache = new SchemaCache( new StandardConstraintSemantics(), schemaStore );
 
         Dependencies deps = new Dependencies();
-        deps.satisfyDependencies( fileSystem, config, logService, new NeoStoresSupplier()
+        deps.satisfyDependencies( fileSystem, config, logService, pageCache, new NeoStoresSupplier()
                         {
                             @Override
                             public NeoStores get()
@@ -326,7 +326,8 @@ public class BatchInserterImpl implements BatchInserter
 
         SchemaIndexProvider provider = extensions.resolveDependency( SchemaIndexProvider.class,
                 SchemaIndexProvider.HIGHEST_PRIORITIZED_OR_NONE );
-        schemaIndexProviders = new DefaultSchemaIndexProviderMap( provider );
+        schemaIndexProviders = new DefaultSchemaIndexProviderMap( provider,
+                DefaultSchemaIndexProviderMap.allProviders( extensions ) );
         labelScanStore = life.add( extensions.resolveDependency( LabelScanStoreProvider.class,
                 LabelScanStoreProvider.HIGHEST_PRIORITIZED ).getLabelScanStore() );
         actions = new BatchSchemaActions();
@@ -447,6 +448,10 @@ public class BatchInserterImpl implements BatchInserter
             {
             case INDEX_RULE:
             case CONSTRAINT_INDEX_RULE:
+                if ( ((IndexRule) rule).isComposite() )
+                {
+                    continue;
+                }
                 otherPropertyKeyId = ((IndexRule) rule).getPropertyKey();
                 break;
             case UNIQUENESS_CONSTRAINT:
@@ -623,7 +628,7 @@ public class BatchInserterImpl implements BatchInserter
         }
     }
 
-    private IndexRule[] getIndexesNeedingPopulation()
+    private IndexRule[] getIndexesNeedingPopulation() throws IOException, IndexCapacityExceededException
     {
         List<IndexRule> indexesNeedingPopulation = new ArrayList<>();
         for ( SchemaRule rule : schemaCache.schemaRules() )
@@ -635,13 +640,34 @@ public class BatchInserterImpl implements BatchInserter
                         schemaIndexProviders.apply( indexRule.getProviderDescriptor() );
                 if ( provider.getInitialState( indexRule.getId() ) != InternalIndexState.FAILED )
                 {
-                    indexesNeedingPopulation.add( indexRule );
+                    if ( indexRule.isComposite() )
+                    {
+                        resetForRebuild( indexRule, provider );
+                    }
+                    else
+                    {
+                        indexesNeedingPopulation.add( indexRule );
+                    }
                 }
             }
         }
         return indexesNeedingPopulation.toArray( new IndexRule[indexesNeedingPopulation.size()] );
     }
 
+    /**
+     * Composite indexes are not populated here, but emptied and left populating, so that the database rebuilds
+     * them when it next starts.
+     */
+    private void resetForRebuild( IndexRule rule, SchemaIndexProvider provider ) throws IOException,
+            IndexCapacityExceededException
+    {
+        IndexDescriptor descriptor = new IndexDescriptor( rule.getLabel(), rule.getPropertyKeys() );
+        IndexPopulator populator = provider.getPopulator( rule.getId(), descriptor,
+                new IndexConfiguration( rule.isConstraintIndex() ), new IndexSamplingConfig( config ) );
+        populator.create();
+        populator.close( false );
+    }
+
     @Override
     public ConstraintCreator createDeferredConstraint( Label label )
     {
@@ -1173,8 +1199,13 @@ public class BatchInserterImpl implements BatchInserter
     private class BatchSchemaActions implements InternalSchemaActions
     {
         @Override
-        public IndexDefinition createIndexDefinition( Label label, String propertyKey )
+        public IndexDefinition createIndexDefinition( Label label, String... propertyKeys )
         {
+            if ( propertyKeys.length != 1 )
+            {
+                throw new UnsupportedOperationException( "Composite indexes can not be created by the batch inserter" );
+            }
+            String propertyKey = propertyKeys[0];
             int labelId = getOrCreateLabelId( label.name() );
             int propertyKeyId = getOrCreatePropertyKeyId( propertyKey );
 
@@ -1185,7 +1216,7 @@ public class BatchInserterImpl implements BatchInserter
         }
 
         @Override
-        public void dropIndexDefinitions( Label label, String propertyKey )
+        public void dropIndexDefinitions( Label label, String... propertyKeys )
         {
             throw unsupportedException();
         }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+
+import static org.neo4j.graphdb.Direction.BOTH;
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+import static org.neo4j.unsafe.impl.batchimport.Utils.safeCastLongToInt;
+
+/**
+ * Puts the first relationship of every relationship chain in a store being imported into, together with
+ * the size of the chain, into {@link NodeRelationshipCache}. The first relationship of a chain has the size
+ * of the chain in its {@code prev} field.
+ */
+public class ExistingRelationshipChainsProcessor implements RecordProcessor<RelationshipRecord>
+{
+    private final NodeRelationshipCache cache;
+
+    public ExistingRelationshipChainsProcessor( NodeRelationshipCache cache )
+    {
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean process( RelationshipRecord record )
+    {
+        long startNode = record.getFirstNode();
+        long endNode = record.getSecondNode();
+        boolean loop = startNode == endNode;
+        if ( record.isFirstInFirstChain() )
+        {
+            cache.putExistingRelationship( startNode, record.getType(), loop ? BOTH : OUTGOING,
+                    record.getId(), safeCastLongToInt( record.getFirstPrevRel() ) );
+        }
+        if ( !loop && record.isFirstInSecondChain() )
+        {
+            cache.putExistingRelationship( endNode, record.getType(), INCOMING,
+                    record.getId(), safeCastLongToInt( record.getSecondPrevRel() ) );
+        }
+        // No need to update the store, we're just reading things here
+        return false;
+    }
+
+    @Override
+    public void done()
+    {   // Nothing to do here
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.IdType;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMapper;
+import org.neo4j.unsafe.impl.batchimport.store.BatchingNeoStores;
+
+import static java.util.Arrays.copyOf;
+
+/**
+ * Import state persisted in the store directory after each completed stage of {@link ParallelBatchImporter},
+ * so that an import which fails in a later stage can be resumed from the last completed one instead of
+ * starting over. A checkpoint consists of:
+ * <ul>
+ * <li>a state file with the completed {@link Stage}, high ids of the stores written to by the import,
+ * duplicate node ids to delete and number of bad entries so far</li>
+ * <li>the {@link IdMapper}, needed until relationships have been imported</li>
+ * <li>the {@link NodeRelationshipCache}, needed until relationship chains have been linked</li>
+ * </ul>
+ * Files of a new checkpoint are written, and the stores forced, before its state file, which is written last,
+ * so that a failure while writing a checkpoint leaves the previous one intact. Resuming rolls high ids back to
+ * those of the checkpoint, so that records written by the stage which didn't complete are overwritten.
+ */
+public class ImportCheckpoint
+{
+    /**
+     * Import stages, or rather groups of stages, which a checkpoint is written after.
+     */
+    public enum Stage
+    {
+        NONE,
+        NODES,
+        RELATIONSHIPS,
+        NODE_FIRST_RELATIONSHIPS,
+        RELATIONSHIP_LINKS
+    }
+
+    static final String FILE_NAME = "import-checkpoint";
+    private static final String ID_MAPPER = "-id-mapper";
+    private static final String RELATIONSHIP_CACHE = "-relationship-cache";
+    private static final int FORMAT_VERSION = 1;
+    private static final long END_OF_STATE = 0xC0FFEEL;
+    // High ids of these stores are checkpointed, they are all stores the import writes records to
+    private static final IdType[] ID_TYPES = {IdType.NODE, IdType.NODE_LABELS, IdType.PROPERTY,
+            IdType.STRING_BLOCK, IdType.ARRAY_BLOCK, IdType.RELATIONSHIP, IdType.RELATIONSHIP_GROUP};
+
+    private final FileSystemAbstraction fs;
+    private final File storeDir;
+    private Stage stage = Stage.NONE;
+    // Stage of the checkpoint which wrote the relationship cache this checkpoint uses
+    private Stage relationshipCacheStage = Stage.NONE;
+    private long firstNewNodeId;
+    private long firstNewRelationshipId;
+    private final long[] highIds = new long[ID_TYPES.length];
+    private long[] duplicateNodeIds = PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+    private int badEntries;
+
+    private ImportCheckpoint( FileSystemAbstraction fs, File storeDir )
+    {
+        this.fs = fs;
+        this.storeDir = storeDir;
+    }
+
+    /**
+     * @return whether or not there's a checkpoint in {@code storeDir}, i.e. whether or not an import into
+     * it can be resumed.
+     */
+    public static boolean exists( FileSystemAbstraction fs, File storeDir )
+    {
+        for ( Stage stage : Stage.values() )
+        {
+            if ( stage != Stage.NONE && fs.fileExists( stateFile( storeDir, stage ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return an empty checkpoint, where no stage has completed, for an import into {@code storeDir}.
+     */
+    public static ImportCheckpoint empty( FileSystemAbstraction fs, File storeDir )
+    {
+        return new ImportCheckpoint( fs, storeDir );
+    }
+
+    /**
+     * @return the checkpoint of the last completed stage of an import into {@code storeDir}, or an
+     * {@link #empty(FileSystemAbstraction, File) empty} one if there is none.
+     * @throws IOException on I/O error.
+     */
+    public static ImportCheckpoint load( FileSystemAbstraction fs, File storeDir ) throws IOException
+    {
+        Stage[] stages = Stage.values();
+        for ( int i = stages.length - 1; i > 0; i-- )
+        {
+            ImportCheckpoint checkpoint = new ImportCheckpoint( fs, storeDir );
+            if ( checkpoint.readState( stages[i] ) )
+            {
+                return checkpoint;
+            }
+        }
+        return empty( fs, storeDir );
+    }
+
+    /**
+     * @return the last completed stage.
+     */
+    public Stage stage()
+    {
+        return stage;
+    }
+
+    /**
+     * @return whether or not the given stage has completed.
+     */
+    public boolean completed( Stage stage )
+    {
+        return this.stage.ordinal() >= stage.ordinal();
+    }
+
+    public long firstNewNodeId()
+    {
+        return firstNewNodeId;
+    }
+
+    public long firstNewRelationshipId()
+    {
+        return firstNewRelationshipId;
+    }
+
+    /**
+     * @return ids of nodes which were found to be duplicates when the nodes were imported, in ascending order.
+     */
+    public PrimitiveLongIterator duplicateNodeIds()
+    {
+        return PrimitiveLongCollections.iterator( duplicateNodeIds );
+    }
+
+    public boolean hasDuplicateNodeIds()
+    {
+        return duplicateNodeIds.length > 0;
+    }
+
+    /**
+     * @return number of bad entries collected by the import up to the last completed stage.
+     */
+    public int badEntries()
+    {
+        return badEntries;
+    }
+
+    /**
+     * Rolls back high ids of the stores to those of the last completed stage.
+     */
+    public void restoreHighIds( BatchingNeoStores neoStores )
+    {
+        for ( int i = 0; i < ID_TYPES.length; i++ )
+        {
+            neoStores.setHighId( ID_TYPES[i], highIds[i] );
+        }
+    }
+
+    /**
+     * Loads the {@link IdMapper} saved by the {@link Stage#NODES} checkpoint into {@code idMapper}.
+     */
+    public void loadIdMapper( IdMapper idMapper ) throws IOException
+    {
+        assert stage == Stage.NODES;
+        try ( DataInputStream in = input( dataFile( Stage.NODES, ID_MAPPER ) ) )
+        {
+            idMapper.load( in );
+        }
+    }
+
+    /**
+     * Loads the {@link NodeRelationshipCache} saved by the last checkpoint which saved it into {@code cache}.
+     */
+    public void loadRelationshipCache( NodeRelationshipCache cache ) throws IOException
+    {
+        assert relationshipCacheStage != Stage.NONE;
+        try ( DataInputStream in = input( dataFile( relationshipCacheStage, RELATIONSHIP_CACHE ) ) )
+        {
+            cache.load( in );
+        }
+    }
+
+    /**
+     * Checkpoints nodes, and the relationship counts calculated along with them, as imported.
+     *
+     * @param firstNewNodeId id of the first node imported.
+     * @param firstNewRelationshipId id of the first relationship to import.
+     * @param duplicateNodeIds ids of nodes found to be duplicates, in ascending order.
+     */
+    public void nodesCompleted( BatchingNeoStores neoStores, IdMapper idMapper, NodeRelationshipCache cache,
+            long firstNewNodeId, long firstNewRelationshipId, PrimitiveLongIterator duplicateNodeIds,
+            int badEntries ) throws IOException
+    {
+        this.firstNewNodeId = firstNewNodeId;
+        this.firstNewRelationshipId = firstNewRelationshipId;
+        long[] ids = new long[10];
+        int count = 0;
+        while ( duplicateNodeIds.hasNext() )
+        {
+            if ( count == ids.length )
+            {
+                ids = copyOf( ids, count * 2 );
+            }
+            ids[count++] = duplicateNodeIds.next();
+        }
+        this.duplicateNodeIds = copyOf( ids, count );
+
+        try ( DataOutputStream out = output( dataFile( Stage.NODES, ID_MAPPER ) ) )
+        {
+            idMapper.save( out );
+        }
+        saveRelationshipCache( Stage.NODES, cache );
+        checkpoint( Stage.NODES, Stage.NODES, neoStores, badEntries );
+    }
+
+    /**
+     * Checkpoints relationships as imported, where {@code cache} has been populated with relationship chains.
+     */
+    public void relationshipsCompleted( BatchingNeoStores neoStores, NodeRelationshipCache cache, int badEntries )
+            throws IOException
+    {
+        saveRelationshipCache( Stage.RELATIONSHIPS, cache );
+        checkpoint( Stage.RELATIONSHIPS, Stage.RELATIONSHIPS, neoStores, badEntries );
+    }
+
+    /**
+     * Checkpoints a stage which only writes to the stores, i.e. which doesn't change any cache which
+     * later stages need.
+     */
+    public void completed( Stage stage, BatchingNeoStores neoStores, int badEntries ) throws IOException
+    {
+        // Once relationship chains are linked the cache isn't needed anymore
+        checkpoint( stage, stage == Stage.RELATIONSHIP_LINKS ? Stage.NONE : relationshipCacheStage,
+                neoStores, badEntries );
+    }
+
+    private void checkpoint( Stage stage, Stage relationshipCacheStage, BatchingNeoStores neoStores,
+            int badEntries ) throws IOException
+    {
+        assert stage.ordinal() > this.stage.ordinal();
+        // The state says that everything up to this stage has been written, so make sure that it has
+        neoStores.flushAndForce();
+
+        Stage previousStage = this.stage;
+        Stage previousRelationshipCacheStage = this.relationshipCacheStage;
+        this.stage = stage;
+        this.relationshipCacheStage = relationshipCacheStage;
+        for ( int i = 0; i < ID_TYPES.length; i++ )
+        {
+            highIds[i] = neoStores.getHighId( ID_TYPES[i] );
+        }
+        this.badEntries = badEntries;
+        writeState();
+
+        // The new checkpoint is in place, remove whatever of the previous one it doesn't need
+        fs.deleteFile( stateFile( storeDir, previousStage ) );
+        if ( stage != Stage.NODES )
+        {
+            fs.deleteFile( dataFile( Stage.NODES, ID_MAPPER ) );
+        }
+        if ( previousRelationshipCacheStage != relationshipCacheStage )
+        {
+            fs.deleteFile( dataFile( previousRelationshipCacheStage, RELATIONSHIP_CACHE ) );
+        }
+    }
+
+    /**
+     * Removes all files of this checkpoint, after the import has completed.
+     */
+    public void remove()
+    {
+        for ( Stage stage : Stage.values() )
+        {
+            fs.deleteFile( stateFile( storeDir, stage ) );
+            fs.deleteFile( dataFile( stage, ID_MAPPER ) );
+            fs.deleteFile( dataFile( stage, RELATIONSHIP_CACHE ) );
+        }
+    }
+
+    private void saveRelationshipCache( Stage stage, NodeRelationshipCache cache ) throws IOException
+    {
+        try ( DataOutputStream out = output( dataFile( stage, RELATIONSHIP_CACHE ) ) )
+        {
+            cache.save( out );
+        }
+    }
+
+    private void writeState() throws IOException
+    {
+        try ( DataOutputStream out = output( stateFile( storeDir, stage ) ) )
+        {
+            out.writeInt( FORMAT_VERSION );
+            out.writeByte( relationshipCacheStage.ordinal() );
+            out.writeLong( firstNewNodeId );
+            out.writeLong( firstNewRelationshipId );
+            for ( long highId : highIds )
+            {
+                out.writeLong( highId );
+            }
+            out.writeInt( duplicateNodeIds.length );
+            for ( long id : duplicateNodeIds )
+            {
+                out.writeLong( id );
+            }
+            out.writeInt( badEntries );
+            out.writeLong( END_OF_STATE );
+        }
+    }
+
+    /**
+     * @return whether or not a complete state of the given stage could be read.
+     */
+    private boolean readState( Stage stage ) throws IOException
+    {
+        File file = stateFile( storeDir, stage );
+        if ( !fs.fileExists( file ) )
+        {
+            return false;
+        }
+
+        try ( DataInputStream in = input( file ) )
+        {
+            int formatVersion = in.readInt();
+            if ( formatVersion != FORMAT_VERSION )
+            {
+                throw new IllegalStateException( "Import checkpoint " + file + " has format version " +
+                        formatVersion + ", expected " + FORMAT_VERSION );
+            }
+            relationshipCacheStage = Stage.values()[in.readByte()];
+            firstNewNodeId = in.readLong();
+            firstNewRelationshipId = in.readLong();
+            for ( int i = 0; i < highIds.length; i++ )
+            {
+                highIds[i] = in.readLong();
+            }
+            duplicateNodeIds = new long[in.readInt()];
+            for ( int i = 0; i < duplicateNodeIds.length; i++ )
+            {
+                duplicateNodeIds[i] = in.readLong();
+            }
+            badEntries = in.readInt();
+            if ( in.readLong() != END_OF_STATE )
+            {
+                return false;
+            }
+        }
+        catch ( EOFException e )
+        {   // This checkpoint was never completely written
+            return false;
+        }
+        this.stage = stage;
+        return true;
+    }
+
+    private DataOutputStream output( File file ) throws IOException
+    {
+        return new DataOutputStream( new BufferedOutputStream( fs.openAsOutputStream( file, false ) ) );
+    }
+
+    private DataInputStream input( File file ) throws IOException
+    {
+        return new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ) ) );
+    }
+
+    private File dataFile( Stage stage, String suffix )
+    {
+        return new File( storeDir, FILE_NAME + "-" + stage.name().toLowerCase() + suffix );
+    }
+
+    private static File stateFile( File storeDir, Stage stage )
+    {
+        return new File( storeDir, FILE_NAME + "-" + stage.name().toLowerCase() );
+    }
+}
@@ -37,11 +37,19 @@ public class NodeCountsProcessor implements RecordProcessor<NodeRecord>
     private final NodeLabelsCache cache;
     private final CountsAccessor.Updater counts;
     private final int anyLabel;
+    private final long firstNodeIdToCount;
 
     public NodeCountsProcessor( NodeStore nodeStore, NodeLabelsCache cache, int highLabelId,
                                 CountsAccessor.Updater counts )
+    {
+        this( nodeStore, cache, highLabelId, counts, 0 );
+    }
+
+    public NodeCountsProcessor( NodeStore nodeStore, NodeLabelsCache cache, int highLabelId,
+                                CountsAccessor.Updater counts, long firstNodeIdToCount )
     {
         this.nodeStore = nodeStore;
+        this.firstNodeIdToCount = firstNodeIdToCount;
         this.cache = cache;
         this.anyLabel = highLabelId;
         this.counts = counts;
@@ -53,15 +61,22 @@ public class NodeCountsProcessor implements RecordProcessor<NodeRecord>
     public boolean process( NodeRecord node )
     {
         long[] labels = NodeLabelsField.get( node, nodeStore );
+        boolean count = node.getId() >= firstNodeIdToCount;
         if ( labels.length > 0 )
         {
-            for ( long labelId : labels )
+            if ( count )
             {
-                labelCounts[(int) labelId]++;
+                for ( long labelId : labels )
+                {
+                    labelCounts[(int) labelId]++;
+                }
             }
             cache.put( node.getId(), labels );
         }
-        labelCounts[anyLabel]++;
+        if ( count )
+        {
+            labelCounts[anyLabel]++;
+        }
 
         // No need to update the store, we're just reading things here
         return false;
@@ -34,10 +34,23 @@ public class NodeCountsStage extends Stage
 {
     public NodeCountsStage( Configuration config, NodeLabelsCache cache, NodeStore nodeStore,
             int highLabelId, CountsAccessor.Updater countsUpdater, StatsProvider... additionalStatsProviders )
+    {
+        this( config, cache, nodeStore, highLabelId, countsUpdater, 0, additionalStatsProviders );
+    }
+
+    /**
+     * Only counts nodes with ids from {@code firstNodeIdToCount} and upwards, i.e. the nodes imported into
+     * a store already containing nodes with lower ids. Labels of all nodes are cached though, since relationships
+     * may have been imported between any nodes.
+     */
+    public NodeCountsStage( Configuration config, NodeLabelsCache cache, NodeStore nodeStore,
+            int highLabelId, CountsAccessor.Updater countsUpdater, long firstNodeIdToCount,
+            StatsProvider... additionalStatsProviders )
     {
         super( "Node counts", config );
         add( new ReadNodeRecordsStep( control(), config, nodeStore ) );
         add( new RecordProcessorStep<>( control(), "COUNT", config, new NodeCountsProcessor(
-                nodeStore, cache, highLabelId, countsUpdater ), true, additionalStatsProviders ) );
+                nodeStore, cache, highLabelId, countsUpdater, firstNodeIdToCount ), true,
+                additionalStatsProviders ) );
     }
 }
@@ -19,8 +19,11 @@
  */
 package org.neo4j.unsafe.impl.batchimport;
 
+import java.util.Arrays;
+
 import org.neo4j.kernel.impl.store.RelationshipGroupStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
 import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache.GroupVisitor;
@@ -32,6 +35,9 @@ import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache.GroupVisito
  *
  * This step also creates {@link RelationshipGroupRecord group records} for the dense nodes as it encounters
  * dense nodes, where it gets all relationship group information from {@link NodeRelationshipCache}.
+ *
+ * When importing into an existing store, dense nodes which already had relationships have their groups
+ * rewritten in place, reusing the ids of their existing groups before allocating new ones.
  */
 public class NodeFirstRelationshipProcessor implements RecordProcessor<NodeRecord>, GroupVisitor
 {
@@ -40,6 +46,11 @@ public class NodeFirstRelationshipProcessor implements RecordProcessor<NodeRecor
 
     private long nextGroupId = -1;
 
+    // Ids of the groups of the existing dense node currently being processed, if any
+    private long[] existingGroupIds = new long[10];
+    private int existingGroupCount;
+    private int existingGroupCursor;
+
     public NodeFirstRelationshipProcessor( RelationshipGroupStore relGroupStore, NodeRelationshipCache cache )
     {
         this.relGroupStore = relGroupStore;
@@ -50,6 +61,15 @@ public class NodeFirstRelationshipProcessor implements RecordProcessor<NodeRecor
     public boolean process( NodeRecord node )
     {
         long nodeId = node.getId();
+        if ( node.isDense() )
+        {   // Only nodes that were in the store before this import can be dense at this point
+            if ( !cache.hasNewRelationships( nodeId ) )
+            {
+                return false;
+            }
+            loadExistingGroupIds( node.getNextRel() );
+        }
+
         long firstRel = cache.getFirstRel( nodeId, this );
         if ( firstRel != -1 )
         {
@@ -59,13 +79,45 @@ public class NodeFirstRelationshipProcessor implements RecordProcessor<NodeRecor
                 node.setDense( true );
             }
         }
+        deleteUnusedExistingGroups();
         return true;
     }
 
+    private void loadExistingGroupIds( long firstGroupId )
+    {
+        existingGroupCount = existingGroupCursor = 0;
+        for ( long groupId = firstGroupId; groupId != Record.NO_NEXT_RELATIONSHIP.intValue(); )
+        {
+            if ( existingGroupCount == existingGroupIds.length )
+            {
+                existingGroupIds = Arrays.copyOf( existingGroupIds, existingGroupCount * 2 );
+            }
+            existingGroupIds[existingGroupCount++] = groupId;
+            groupId = relGroupStore.getRecord( groupId ).getNext();
+        }
+    }
+
+    private void deleteUnusedExistingGroups()
+    {
+        // Groups of chains that were empty in the existing store aren't visited and so aren't needed anymore
+        while ( existingGroupCursor < existingGroupCount )
+        {
+            relGroupStore.updateRecord( new RelationshipGroupRecord( existingGroupIds[existingGroupCursor++], -1 ) );
+        }
+        existingGroupCount = existingGroupCursor = 0;
+    }
+
+    private long allocateGroupId()
+    {
+        return existingGroupCursor < existingGroupCount
+                ? existingGroupIds[existingGroupCursor++]
+                : relGroupStore.nextId();
+    }
+
     @Override
     public long visit( long nodeId, int type, long next, long out, long in, long loop )
     {
-        long id = nextGroupId != -1 ? nextGroupId : relGroupStore.nextId();
+        long id = nextGroupId != -1 ? nextGroupId : allocateGroupId();
         nextGroupId = -1;
 
         RelationshipGroupRecord groupRecord = new RelationshipGroupRecord( id, type );
@@ -76,7 +128,7 @@ public class NodeFirstRelationshipProcessor implements RecordProcessor<NodeRecor
         groupRecord.setOwningNode( nodeId );
         if ( next != -1 )
         {
-            groupRecord.setNext( nextGroupId = relGroupStore.nextId() );
+            groupRecord.setNext( nextGroupId = allocateGroupId() );
         }
         relGroupStore.updateRecord( groupRecord );
         return id;
@@ -19,6 +19,7 @@
  */
 package org.neo4j.unsafe.impl.batchimport;
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.RelationshipGroupStore;
@@ -28,18 +29,20 @@ import org.neo4j.unsafe.impl.batchimport.input.Collector;
 import org.neo4j.unsafe.impl.batchimport.staging.Stage;
 
 /**
- * Sets {@link NodeRecord#setNextRel(long)} in {@link ParallelBatchImporter}.
+ * Sets {@link NodeRecord#setNextRel(long)} in {@link ParallelBatchImporter}, also deleting nodes which
+ * were found to be duplicates, given in ascending id order, for example by
+ * {@link Collector#leftOverDuplicateNodesIds()}.
  */
 public class NodeFirstRelationshipStage extends Stage
 {
     public NodeFirstRelationshipStage( Configuration config, NodeStore nodeStore,
-            RelationshipGroupStore relationshipGroupStore, NodeRelationshipCache cache, final Collector collector,
-            LabelScanStore labelScanStore )
+            RelationshipGroupStore relationshipGroupStore, NodeRelationshipCache cache,
+            PrimitiveLongIterator duplicateNodeIds, LabelScanStore labelScanStore )
     {
         super( "Node --> Relationship", config );
         add( new ReadNodeRecordsStep( control(), config, nodeStore ) );
         add( new RecordProcessorStep<>( control(), "LINK", config,
                 new NodeFirstRelationshipProcessor( relationshipGroupStore, cache ), false ) );
-        add( new UpdateNodeRecordsStep( control(), config, nodeStore, collector, labelScanStore ) );
+        add( new UpdateNodeRecordsStep( control(), config, nodeStore, duplicateNodeIds, labelScanStore ) );
     }
 }
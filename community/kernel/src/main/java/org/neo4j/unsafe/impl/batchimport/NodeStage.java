@@ -24,9 +24,11 @@ import java.io.IOException;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdGenerator;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMapper;
+import org.neo4j.unsafe.impl.batchimport.input.Collector;
 import org.neo4j.unsafe.impl.batchimport.input.InputCache;
 import org.neo4j.unsafe.impl.batchimport.input.InputNode;
 import org.neo4j.unsafe.impl.batchimport.staging.Stage;
@@ -39,6 +41,7 @@ import static org.neo4j.unsafe.impl.batchimport.staging.Step.ORDER_SEND_DOWNSTRE
 /**
  * Imports nodes and their properties, everything except
  * {@link NodeRecord#setNextRel(long) first relationship id pointer} is set for every node in this stage.
+ * Also populates the label scan store and any given schema indexes.
  */
 public class NodeStage extends Stage
 {
@@ -46,7 +49,8 @@ public class NodeStage extends Stage
             InputIterable<InputNode> nodes, IdMapper idMapper, IdGenerator idGenerator,
             BatchingNeoStores neoStore, InputCache inputCache, LabelScanStore labelScanStore,
             EntityStoreUpdaterStep.Monitor storeUpdateMonitor,
-            StatsProvider memoryUsage ) throws IOException
+            StatsProvider memoryUsage, SchemaIndexDefinition[] indexes, IndexRule[] indexRules,
+            Collector badCollector ) throws IOException
     {
         super( "Nodes", config, ORDER_SEND_DOWNSTREAM );
         add( new InputIteratorBatcherStep<>( control(), config, nodes.iterator(), InputNode.class ) );
@@ -61,6 +65,10 @@ public class NodeStage extends Stage
         add( new NodeEncoderStep( control(), config, idMapper, idGenerator,
                 neoStore.getLabelRepository(), nodeStore, memoryUsage ) );
         add( new LabelScanStorePopulationStep( control(), config, labelScanStore ) );
+        if ( indexRules.length > 0 )
+        {
+            add( new SchemaIndexPopulationStep( control(), config, neoStore, indexes, indexRules, badCollector ) );
+        }
         add( new EntityStoreUpdaterStep<>( control(), config, nodeStore, propertyStore,
                 writeMonitor, storeUpdateMonitor ) );
     }
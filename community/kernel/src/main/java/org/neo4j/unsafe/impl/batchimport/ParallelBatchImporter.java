@@ -21,6 +21,8 @@ package org.neo4j.unsafe.impl.batchimport;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 
 import org.neo4j.helpers.Exceptions;
 import org.neo4j.helpers.Format;
@@ -28,10 +30,13 @@ import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.logging.Log;
 import org.neo4j.unsafe.impl.batchimport.cache.NodeLabelsCache;
 import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdGenerator;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdGenerators;
 import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMapper;
 import org.neo4j.unsafe.impl.batchimport.input.Collector;
 import org.neo4j.unsafe.impl.batchimport.input.Input;
@@ -45,10 +50,13 @@ import org.neo4j.unsafe.impl.batchimport.stats.StatsProvider;
 import org.neo4j.unsafe.impl.batchimport.store.BatchingNeoStores;
 import org.neo4j.unsafe.impl.batchimport.store.io.IoMonitor;
 
+import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 
 import static org.neo4j.unsafe.impl.batchimport.AdditionalInitialIds.EMPTY;
-import static org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory.AUTO;
+import static org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory.CHUNKED_FIXED_SIZE;
+import static org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory.HEAP;
+import static org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory.OFF_HEAP;
 import static org.neo4j.unsafe.impl.batchimport.staging.ExecutionSupervisors.superviseExecution;
 import static org.neo4j.unsafe.impl.batchimport.staging.ExecutionSupervisors.withDynamicProcessorAssignment;
 
@@ -61,6 +69,13 @@ import static org.neo4j.unsafe.impl.batchimport.staging.ExecutionSupervisors.wit
  * I/O is only allowed to be read to and written from sequentially, any random access drastically reduces performance.
  * Goes through multiple stages where each stage has one or more steps executing in parallel, passing
  * batches between these steps through each stage, i.e. passing batches downstream.
+ * <p>
+ * Can optionally import into a store which already contains data, see
+ * {@link #ParallelBatchImporter(File, Configuration, LogService, ExecutionMonitor, boolean)}.
+ * <p>
+ * An import into an empty store writes an {@link ImportCheckpoint} after each completed stage, so that
+ * a failed import can be resumed, see
+ * {@link #ParallelBatchImporter(File, Configuration, LogService, ExecutionMonitor, boolean, Collection, boolean)}.
  */
 public class ParallelBatchImporter implements BatchImporter
 {
@@ -71,6 +86,9 @@ public class ParallelBatchImporter implements BatchImporter
     private final Log log;
     private final ExecutionMonitor executionMonitor;
     private final AdditionalInitialIds additionalInitialIds;
+    private final boolean incremental;
+    private final Collection<SchemaIndexDefinition> indexes;
+    private final boolean resume;
 
     /**
      * Advanced usage of the parallel batch importer, for special and very specific cases. Please use
@@ -80,6 +98,47 @@ public class ParallelBatchImporter implements BatchImporter
             LogService logService, ExecutionMonitor executionMonitor,
             AdditionalInitialIds additionalInitialIds )
     {
+        this( storeDir, fileSystem, config, logService, executionMonitor, additionalInitialIds, false );
+    }
+
+    /**
+     * Advanced usage of the parallel batch importer, for special and very specific cases. Please use
+     * a constructor with fewer arguments instead.
+     */
+    public ParallelBatchImporter( File storeDir, FileSystemAbstraction fileSystem, Configuration config,
+            LogService logService, ExecutionMonitor executionMonitor,
+            AdditionalInitialIds additionalInitialIds, boolean incremental )
+    {
+        this( storeDir, fileSystem, config, logService, executionMonitor, additionalInitialIds, incremental,
+                Collections.<SchemaIndexDefinition>emptyList() );
+    }
+
+    /**
+     * Advanced usage of the parallel batch importer, for special and very specific cases. Please use
+     * a constructor with fewer arguments instead.
+     */
+    public ParallelBatchImporter( File storeDir, FileSystemAbstraction fileSystem, Configuration config,
+            LogService logService, ExecutionMonitor executionMonitor,
+            AdditionalInitialIds additionalInitialIds, boolean incremental,
+            Collection<SchemaIndexDefinition> indexes )
+    {
+        this( storeDir, fileSystem, config, logService, executionMonitor, additionalInitialIds, incremental,
+                indexes, false );
+    }
+
+    /**
+     * Advanced usage of the parallel batch importer, for special and very specific cases. Please use
+     * a constructor with fewer arguments instead.
+     */
+    public ParallelBatchImporter( File storeDir, FileSystemAbstraction fileSystem, Configuration config,
+            LogService logService, ExecutionMonitor executionMonitor,
+            AdditionalInitialIds additionalInitialIds, boolean incremental,
+            Collection<SchemaIndexDefinition> indexes, boolean resume )
+    {
+        if ( incremental && resume )
+        {
+            throw new IllegalArgumentException( "An incremental import cannot be resumed" );
+        }
         this.storeDir = storeDir;
         this.fileSystem = fileSystem;
         this.config = config;
@@ -87,6 +146,9 @@ public class ParallelBatchImporter implements BatchImporter
         this.log = logService.getInternalLogProvider().getLog( getClass() );
         this.executionMonitor = executionMonitor;
         this.additionalInitialIds = additionalInitialIds;
+        this.incremental = incremental;
+        this.indexes = indexes;
+        this.resume = resume;
     }
 
     /**
@@ -101,6 +163,56 @@ public class ParallelBatchImporter implements BatchImporter
                 withDynamicProcessorAssignment( executionMonitor, config ), EMPTY );
     }
 
+    /**
+     * Instantiates {@link ParallelBatchImporter} with default services and behaviour, optionally importing
+     * into a store which already contains data. In an incremental import:
+     * <ul>
+     * <li>the store must have been shut down cleanly</li>
+     * <li>existing nodes can only be referenced from imported relationships using actual node ids as input ids,
+     * other id types only map ids of nodes in the same import</li>
+     * <li>existing tokens are reused, nodes and relationships are appended after the existing ones and
+     * counts are added to the existing counts</li>
+     * <li>schema indexes are emptied and rebuilt when the database next starts</li>
+     * </ul>
+     */
+    public ParallelBatchImporter( File storeDir, Configuration config, LogService logService,
+            ExecutionMonitor executionMonitor, boolean incremental )
+    {
+        this( storeDir, new DefaultFileSystemAbstraction(), config, logService,
+                withDynamicProcessorAssignment( executionMonitor, config ), EMPTY, incremental );
+    }
+
+    /**
+     * Instantiates {@link ParallelBatchImporter} with default services and behaviour, like
+     * {@link #ParallelBatchImporter(File, Configuration, LogService, ExecutionMonitor, boolean)}, also creating
+     * the given schema indexes and uniqueness constraints. They are populated while importing nodes, where
+     * a node violating a uniqueness constraint is {@link Collector#collectConstraintViolation(InputNode, String,
+     * Object, long) collected} and imported without that property. In an incremental import they are instead
+     * rebuilt, along with the existing indexes, when the database next starts.
+     */
+    public ParallelBatchImporter( File storeDir, Configuration config, LogService logService,
+            ExecutionMonitor executionMonitor, boolean incremental, Collection<SchemaIndexDefinition> indexes )
+    {
+        this( storeDir, new DefaultFileSystemAbstraction(), config, logService,
+                withDynamicProcessorAssignment( executionMonitor, config ), EMPTY, incremental, indexes );
+    }
+
+    /**
+     * Instantiates {@link ParallelBatchImporter} with default services and behaviour, like
+     * {@link #ParallelBatchImporter(File, Configuration, LogService, ExecutionMonitor, boolean, Collection)},
+     * optionally resuming an import which failed in this store. The import continues after the last stage
+     * which completed, as recorded in its {@link ImportCheckpoint}, and must be given the same input.
+     * Without a checkpoint to resume from, the import starts from the beginning. Only an import into an
+     * empty store, i.e. not an incremental one, can be resumed.
+     */
+    public ParallelBatchImporter( File storeDir, Configuration config, LogService logService,
+            ExecutionMonitor executionMonitor, boolean incremental, Collection<SchemaIndexDefinition> indexes,
+            boolean resume )
+    {
+        this( storeDir, new DefaultFileSystemAbstraction(), config, logService,
+                withDynamicProcessorAssignment( executionMonitor, config ), EMPTY, incremental, indexes, resume );
+    }
+
     @Override
     public void doImport( Input input ) throws IOException
     {
@@ -112,94 +224,237 @@ public class ParallelBatchImporter implements BatchImporter
         NodeLabelsCache nodeLabelsCache = null;
         long startTime = currentTimeMillis();
         boolean hasBadEntries = false;
+        boolean success = false;
         File badFile = new File( storeDir, Configuration.BAD_FILE_NAME );
         CountingStoreUpdateMonitor storeUpdateMonitor = new CountingStoreUpdateMonitor();
+        long existingSparseNodesReachingDenseThreshold = 0;
+        // An incremental import can't be resumed, since it changes existing records, so it doesn't write checkpoints
+        boolean checkpointing = !incremental;
+        ImportCheckpoint checkpoint = resume
+                ? ImportCheckpoint.load( fileSystem, storeDir )
+                : ImportCheckpoint.empty( fileSystem, storeDir );
+        boolean resuming = checkpoint.stage() != ImportCheckpoint.Stage.NONE;
+        int previousBadEntries = checkpoint.badEntries();
+        // Not closed if the import fails after a checkpoint, since resuming it may need the cached input
+        InputCache inputCache = new InputCache( fileSystem, storeDir );
         try ( BatchingNeoStores neoStore =
-                      new BatchingNeoStores( fileSystem, storeDir, config, logService, additionalInitialIds );
-              CountsAccessor.Updater countsUpdater = neoStore.getCountsStore().reset(
-                    neoStore.getLastCommittedTransactionId() );
-              InputCache inputCache = new InputCache( fileSystem, storeDir ) )
+                      new BatchingNeoStores( fileSystem, storeDir, config, logService, additionalInitialIds,
+                              incremental, resuming );
+              CountsAccessor.Updater countsUpdater = incremental
+                    ? neoStore.getCountsStore().updateCounts()
+                    : neoStore.getCountsStore().reset( neoStore.getLastCommittedTransactionId() ) )
         {
             Collector badCollector = input.badCollector();
             // Some temporary caches and indexes in the import
             IoMonitor writeMonitor = new IoMonitor( neoStore.getIoTracer() );
             IdMapper idMapper = input.idMapper();
             IdGenerator idGenerator = input.idGenerator();
-            nodeRelationshipCache = new NodeRelationshipCache( AUTO, config.denseNodeThreshold() );
+            // Caches which don't fit in memory spill over into files next to the store being imported into
+            NumberArrayFactory arrayFactory = new NumberArrayFactory.Auto( OFF_HEAP, HEAP, CHUNKED_FIXED_SIZE,
+                    new NumberArrayFactory.Mapped( storeDir ) );
+            nodeRelationshipCache = new NodeRelationshipCache( arrayFactory, config.denseNodeThreshold() );
             StatsProvider memoryUsageStats = new MemoryUsageStatsProvider( nodeRelationshipCache, idMapper );
             InputIterable<InputNode> nodes = input.nodes();
             InputIterable<InputRelationship> relationships = input.relationships();
+            long firstNewNodeId = neoStore.getNodeStore().getHighId();
+            long firstNewRelationshipId = neoStore.getRelationshipStore().getHighId();
+
+            if ( incremental )
+            {   // Stage 0 -- seed the caches with the denseness and relationship chain heads of existing nodes,
+                // so that imported relationships are added in front of the existing chains
+                executeStages( new ExistingDenseNodesStage( config, neoStore.getNodeStore(),
+                        nodeRelationshipCache ) );
+                executeStages( new ExistingRelationshipChainsStage( config, neoStore.getRelationshipStore(),
+                        nodeRelationshipCache ) );
+                idGenerator = IdGenerators.inExistingStore( idGenerator, firstNewNodeId );
+            }
+
+            // Schema indexes to create are populated in stage 1, although in an incremental import all indexes
+            // are rebuilt when the database next starts, since existing nodes aren't in them.
+            // A resumed import has already created them
+            SchemaIndexDefinition[] indexDefinitions = resuming
+                    ? new SchemaIndexDefinition[0]
+                    : indexes.toArray( new SchemaIndexDefinition[indexes.size()] );
+            IndexRule[] indexRules = new IndexRule[indexDefinitions.length];
+            for ( int i = 0; i < indexDefinitions.length; i++ )
+            {
+                indexRules[i] = neoStore.createSchemaIndex( indexDefinitions[i] );
+            }
+
+            if ( resuming )
+            {   // Continue after the last completed stage, with stores and caches as they were when it completed
+                log.info( "Resuming import after completed " + checkpoint.stage() + " stage" );
+                checkpoint.restoreHighIds( neoStore );
+                firstNewNodeId = checkpoint.firstNewNodeId();
+                firstNewRelationshipId = checkpoint.firstNewRelationshipId();
+                if ( checkpoint.stage() == ImportCheckpoint.Stage.NODES )
+                {
+                    checkpoint.loadIdMapper( idMapper );
+                }
+                if ( !checkpoint.completed( ImportCheckpoint.Stage.RELATIONSHIP_LINKS ) )
+                {
+                    checkpoint.loadRelationshipCache( nodeRelationshipCache );
+                    nodeRelationshipCache.fixateNodes();
+                    if ( checkpoint.completed( ImportCheckpoint.Stage.RELATIONSHIPS ) )
+                    {
+                        nodeRelationshipCache.fixateGroups();
+                    }
+                }
+            }
+
+            if ( !checkpoint.completed( ImportCheckpoint.Stage.NODES ) )
+            {
+                // Stage 1 -- nodes, properties, labels, schema indexes
+                NodeStage nodeStage = new NodeStage( config, writeMonitor,
+                        nodes, idMapper, idGenerator, neoStore, inputCache, neoStore.getLabelScanStore(),
+                        storeUpdateMonitor, memoryUsageStats, indexDefinitions,
+                        incremental ? new IndexRule[0] : indexRules, badCollector );
+
+                // Stage 2 -- calculate dense node threshold
+                CalculateDenseNodesStage calculateDenseNodesStage = new CalculateDenseNodesStage( config,
+                        relationships, nodeRelationshipCache, idMapper, badCollector, inputCache );
+
+                // Execute stages 1 and 2 in parallel or sequentially?
+                if ( idMapper.needsPreparation() )
+                {   // The id mapper of choice needs preparation in order to get ids from it,
+                    // So we need to execute the node stage first as it fills the id mapper and prepares it in
+                    // the end, before executing any stage that needs ids from the id mapper, for example calc
+                    // dense node stage.
+                    executeStages( nodeStage );
+                    executeStages( new IdMapperPreparationStage( config, idMapper, nodes, inputCache,
+                            badCollector, memoryUsageStats ) );
+                    executeStages( calculateDenseNodesStage );
+                }
+                else
+                {   // The id mapper of choice doesn't need any preparation, so we can go ahead and execute
+                    // the node and calc dense node stages in parallel.
+                    executeStages( nodeStage, calculateDenseNodesStage );
+                }
+                nodeRelationshipCache.fixateNodes();
+                if ( incremental )
+                {
+                    existingSparseNodesReachingDenseThreshold =
+                            nodeRelationshipCache.countExistingSparseNodesReachingDenseThreshold( firstNewNodeId );
+                }
+                if ( checkpointing )
+                {
+                    checkpoint.nodesCompleted( neoStore, idMapper, nodeRelationshipCache, firstNewNodeId,
+                            firstNewRelationshipId, badCollector.leftOverDuplicateNodesIds(),
+                            previousBadEntries + badCollector.badEntries() );
+                }
+            }
+
+            if ( !checkpoint.completed( ImportCheckpoint.Stage.RELATIONSHIPS ) )
+            {
+                // Stage 3 -- relationships, properties
+                final RelationshipStage relationshipStage = new RelationshipStage( config, writeMonitor,
+                        relationships.supportsMultiplePasses() ? relationships : inputCache.relationships(),
+                        idMapper, neoStore, nodeRelationshipCache, input.specificRelationshipIds(),
+                        storeUpdateMonitor );
+                executeStages( relationshipStage );
+                nodeRelationshipCache.fixateGroups();
+                if ( checkpointing )
+                {
+                    checkpoint.relationshipsCompleted( neoStore, nodeRelationshipCache,
+                            previousBadEntries + badCollector.badEntries() );
+                }
+            }
+
+            if ( !checkpoint.completed( ImportCheckpoint.Stage.NODE_FIRST_RELATIONSHIPS ) )
+            {
+                // Stage 4 -- set node nextRel fields
+                executeStages( new NodeFirstRelationshipStage( config, neoStore.getNodeStore(),
+                        neoStore.getRelationshipGroupStore(), nodeRelationshipCache,
+                        checkpointing ? checkpoint.duplicateNodeIds() : badCollector.leftOverDuplicateNodesIds(),
+                        neoStore.getLabelScanStore() ) );
+                if ( checkpointing )
+                {
+                    checkpoint.completed( ImportCheckpoint.Stage.NODE_FIRST_RELATIONSHIPS, neoStore,
+                            previousBadEntries + badCollector.badEntries() );
+                }
+            }
 
-            // Stage 1 -- nodes, properties, labels
-            NodeStage nodeStage = new NodeStage( config, writeMonitor,
-                    nodes, idMapper, idGenerator, neoStore, inputCache, neoStore.getLabelScanStore(),
-                    storeUpdateMonitor, memoryUsageStats );
-
-            // Stage 2 -- calculate dense node threshold
-            CalculateDenseNodesStage calculateDenseNodesStage = new CalculateDenseNodesStage( config, relationships,
-                    nodeRelationshipCache, idMapper, badCollector, inputCache );
-
-            // Execute stages 1 and 2 in parallel or sequentially?
-            if ( idMapper.needsPreparation() )
-            {   // The id mapper of choice needs preparation in order to get ids from it,
-                // So we need to execute the node stage first as it fills the id mapper and prepares it in the end,
-                // before executing any stage that needs ids from the id mapper, for example calc dense node stage.
-                executeStages( nodeStage );
-                executeStages( new IdMapperPreparationStage( config, idMapper, nodes, inputCache,
-                        badCollector, memoryUsageStats ) );
-                executeStages( calculateDenseNodesStage );
-            }
-            else
-            {   // The id mapper of choice doesn't need any preparation, so we can go ahead and execute
-                // the node and calc dense node stages in parallel.
-                executeStages( nodeStage, calculateDenseNodesStage );
-            }
-            nodeRelationshipCache.fixateNodes();
-
-            // Stage 3 -- relationships, properties
-            final RelationshipStage relationshipStage = new RelationshipStage( config, writeMonitor,
-                    relationships.supportsMultiplePasses() ? relationships : inputCache.relationships(),
-                    idMapper, neoStore, nodeRelationshipCache, input.specificRelationshipIds(), storeUpdateMonitor );
-            executeStages( relationshipStage );
-            nodeRelationshipCache.fixateGroups();
-
-            // Stage 4 -- set node nextRel fields
-            executeStages( new NodeFirstRelationshipStage( config, neoStore.getNodeStore(),
-                    neoStore.getRelationshipGroupStore(), nodeRelationshipCache, badCollector,
-                    neoStore.getLabelScanStore() ) );
-            // Stage 5 -- link relationship chains together
-            nodeRelationshipCache.clearRelationships();
-            executeStages( new RelationshipLinkbackStage( config, neoStore.getRelationshipStore(),
-                    nodeRelationshipCache ) );
+            if ( !checkpoint.completed( ImportCheckpoint.Stage.RELATIONSHIP_LINKS ) )
+            {
+                // Stage 5 -- link relationship chains together
+                nodeRelationshipCache.clearRelationships();
+                executeStages( new RelationshipLinkbackStage( config, neoStore.getRelationshipStore(),
+                        nodeRelationshipCache, firstNewRelationshipId ) );
+                if ( incremental )
+                {   // Stage 5b -- link existing chain heads back to the imported relationships in front of them
+                    executeStages( new RelationshipChainJoinStage( config, neoStore.getRelationshipStore(),
+                            nodeRelationshipCache, firstNewRelationshipId ) );
+                }
+                if ( checkpointing )
+                {
+                    checkpoint.completed( ImportCheckpoint.Stage.RELATIONSHIP_LINKS, neoStore,
+                            previousBadEntries + badCollector.badEntries() );
+                }
+            }
 
             // Release this potentially really big piece of cached data
             nodeRelationshipCache.close();
             nodeRelationshipCache = null;
 
+            // Stages 6 and 7 aren't checkpointed, since the counts they produce are only written at the end
             // Stage 6 -- count nodes per label and labels per node
-            nodeLabelsCache = new NodeLabelsCache( AUTO, neoStore.getLabelRepository().getHighId() );
+            nodeLabelsCache = new NodeLabelsCache( arrayFactory, neoStore.getLabelRepository().getHighId() );
             memoryUsageStats = new MemoryUsageStatsProvider( nodeLabelsCache );
             executeStages( new NodeCountsStage( config, nodeLabelsCache, neoStore.getNodeStore(),
-                    neoStore.getLabelRepository().getHighId(), countsUpdater, memoryUsageStats ) );
+                    neoStore.getLabelRepository().getHighId(), countsUpdater, firstNewNodeId, memoryUsageStats ) );
             // Stage 7 -- count label-[type]->label
             executeStages( new RelationshipCountsStage( config, nodeLabelsCache, neoStore.getRelationshipStore(),
                     neoStore.getLabelRepository().getHighId(),
-                    neoStore.getRelationshipTypeRepository().getHighId(), countsUpdater, AUTO ) );
+                    neoStore.getRelationshipTypeRepository().getHighId(), countsUpdater, arrayFactory,
+                    firstNewRelationshipId ) );
+            if ( incremental )
+            {
+                neoStore.resetSchemaIndexesForRebuild();
+            }
+            else if ( checkpoint.hasDuplicateNodeIds() )
+            {   // Duplicate nodes were populated into the indexes before being found to be duplicates and deleted.
+                // A resumed import doesn't know which indexes it created, but all indexes in the store are its own
+                if ( resuming )
+                {
+                    neoStore.resetSchemaIndexesForRebuild();
+                }
+                else
+                {
+                    for ( IndexRule indexRule : indexRules )
+                    {
+                        neoStore.resetSchemaIndexForRebuild( indexRule );
+                    }
+                }
+            }
 
             // We're done, do some final logging about it
             long totalTimeMillis = currentTimeMillis() - startTime;
-            executionMonitor.done( totalTimeMillis, storeUpdateMonitor.toString() );
-            log.info( "Import completed, took " + Format.duration( totalTimeMillis ) + ". " + storeUpdateMonitor );
-            hasBadEntries = badCollector.badEntries() > 0;
+            String summary = storeUpdateMonitor.toString();
+            if ( incremental )
+            {   // Existing nodes keep the relationship layout they have in the store
+                summary += format( "%n  %d existing sparse nodes reached the dense node threshold of %d, but were " +
+                        "kept sparse, since existing sparse nodes never become dense in an incremental import",
+                        existingSparseNodesReachingDenseThreshold, config.denseNodeThreshold() );
+            }
+            executionMonitor.done( totalTimeMillis, summary );
+            log.info( "Import completed, took " + Format.duration( totalTimeMillis ) + ". " + summary );
+            int badEntries = previousBadEntries + badCollector.badEntries();
+            hasBadEntries = badEntries > 0;
             if ( hasBadEntries )
             {
-                log.warn( "There were " + badCollector.badEntries() + " bad entries which were skipped " +
+                log.warn( "There were " + badEntries + " bad entries which were skipped " +
                              "and logged into " + badFile.getAbsolutePath() );
             }
+            checkpoint.remove();
+            success = true;
         }
         catch ( Throwable t )
         {
             log.error( "Error during import", t );
+            if ( checkpointing && checkpoint.stage() != ImportCheckpoint.Stage.NONE )
+            {
+                log.info( "Import can be resumed after completed " + checkpoint.stage() + " stage" );
+            }
             throw Exceptions.launderedException( IOException.class, t );
         }
         finally
@@ -212,7 +467,12 @@ public class ParallelBatchImporter implements BatchImporter
             {
                 nodeLabelsCache.close();
             }
-            if ( !hasBadEntries )
+            boolean resumable = !success && ImportCheckpoint.exists( fileSystem, storeDir );
+            if ( !resumable )
+            {
+                inputCache.close();
+            }
+            if ( !hasBadEntries && !resumable )
             {
                 fileSystem.deleteFile( badFile );
             }
@@ -71,8 +71,17 @@ public class ParallelizeByNodeIdStep extends ProcessorStep<Batch<InputRelationsh
     private int concurrentBatches;
 
     public ParallelizeByNodeIdStep( StageControl control, Configuration config )
+    {
+        this( control, config, 0 );
+    }
+
+    /**
+     * @param firstRecordId id of the first relationship, i.e. the high id of the relationship store.
+     */
+    public ParallelizeByNodeIdStep( StageControl control, Configuration config, long firstRecordId )
     {
         super( control, "PARALLELIZE", config, 1 );
+        this.firstRecordId = firstRecordId;
         // x2 since ids array cover both start and end nodes
         this.idBatchSize = config.batchSize()*2;
         this.concurrentNodeIds = new long[idBatchSize * MAX_PARALLELIZABLE_BATCHES];
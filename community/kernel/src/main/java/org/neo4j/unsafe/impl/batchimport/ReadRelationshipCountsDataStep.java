@@ -36,14 +36,24 @@ public class ReadRelationshipCountsDataStep extends IoProducerStep
     private final RelationshipStore store;
     private final RelationshipRecord record = new RelationshipRecord( -1 );
     private final long highestId;
-    private long id = -1;
+    private long id;
 
     public ReadRelationshipCountsDataStep( StageControl control, Configuration config,
             RelationshipStore store )
+    {
+        this( control, config, store, 0 );
+    }
+
+    /**
+     * Reads the records with ids from {@code lowId} and upwards.
+     */
+    public ReadRelationshipCountsDataStep( StageControl control, Configuration config,
+            RelationshipStore store, long lowId )
     {
         super( control, config );
         this.store = store;
         this.highestId = store.getHighestPossibleIdInUse();
+        this.id = lowId-1;
     }
 
     @Override
@@ -34,21 +34,32 @@ import static java.lang.Math.min;
 public class ReadRelationshipRecordsBackwardsStep extends IoProducerStep
 {
     private final RelationshipStore store;
+    private final long lowId;
     private final long highId;
     private long id;
 
     public ReadRelationshipRecordsBackwardsStep( StageControl control, Configuration config,
             RelationshipStore store )
+    {
+        this( control, config, store, 0, store.getHighId() );
+    }
+
+    /**
+     * Reads the records with ids from {@code lowId} (inclusive) to {@code highId} (exclusive).
+     */
+    public ReadRelationshipRecordsBackwardsStep( StageControl control, Configuration config,
+            RelationshipStore store, long lowId, long highId )
     {
         super( control, config );
         this.store = store;
-        this.highId = this.id = store.getHighId();
+        this.lowId = lowId;
+        this.highId = this.id = highId;
     }
 
     @Override
     protected Object nextBatchOrNull( long ticket, int batchSize )
     {
-        int size = (int) min( batchSize, id );
+        int size = (int) min( batchSize, id-lowId );
         RelationshipRecord[] batch = new RelationshipRecord[size];
         for ( int i = 0; i < size; i++ )
         {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+
+import static org.neo4j.graphdb.Direction.BOTH;
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+/**
+ * Links the {@code previous} fields of relationships which were first in their chains in a store being
+ * imported into, to the last relationship imported in front of them. Processes the relationships which
+ * were in the store before the import, after {@link RelationshipLinkbackStage} has left the last imported
+ * relationship of each chain in {@link NodeRelationshipCache}. Only changed records are written back.
+ */
+public class RelationshipChainJoinProcessor implements RecordProcessor<RelationshipRecord>
+{
+    private final RelationshipStore store;
+    private final NodeRelationshipCache cache;
+
+    public RelationshipChainJoinProcessor( RelationshipStore store, NodeRelationshipCache cache )
+    {
+        this.store = store;
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean process( RelationshipRecord record )
+    {
+        boolean changed = false;
+        long startNode = record.getFirstNode();
+        long endNode = record.getSecondNode();
+        boolean loop = startNode == endNode;
+        if ( record.isFirstInFirstChain() )
+        {
+            long prevRel = cache.getRelationship( startNode, record.getType(), loop ? BOTH : OUTGOING );
+            if ( prevRel != -1 )
+            {
+                record.setFirstInFirstChain( false );
+                record.setFirstPrevRel( prevRel );
+                if ( loop )
+                {
+                    record.setFirstInSecondChain( false );
+                    record.setSecondPrevRel( prevRel );
+                }
+                changed = true;
+            }
+        }
+        if ( !loop && record.isFirstInSecondChain() )
+        {
+            long prevRel = cache.getRelationship( endNode, record.getType(), INCOMING );
+            if ( prevRel != -1 )
+            {
+                record.setFirstInSecondChain( false );
+                record.setSecondPrevRel( prevRel );
+                changed = true;
+            }
+        }
+
+        if ( changed )
+        {
+            store.updateRecord( record );
+        }
+        return changed;
+    }
+
+    @Override
+    public void done()
+    {   // Nothing to do here
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.staging.Stage;
+
+/**
+ * Joins relationship chains in a store being imported into with the relationships imported in front of them,
+ * see {@link RelationshipChainJoinProcessor}. Executed after {@link RelationshipLinkbackStage}.
+ */
+public class RelationshipChainJoinStage extends Stage
+{
+    public RelationshipChainJoinStage( Configuration config, RelationshipStore store, NodeRelationshipCache cache,
+            long firstImportedRelationshipId )
+    {
+        super( "Relationship --> Existing relationship", config );
+        add( new ReadRelationshipRecordsBackwardsStep( control(), config, store, 0, firstImportedRelationshipId ) );
+        add( new RecordProcessorStep<>( control(), "JOIN", config,
+                new RelationshipChainJoinProcessor( store, cache ), true ) );
+    }
+}
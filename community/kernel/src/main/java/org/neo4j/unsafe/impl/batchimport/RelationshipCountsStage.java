@@ -34,9 +34,21 @@ public class RelationshipCountsStage extends Stage
     public RelationshipCountsStage( Configuration config, NodeLabelsCache cache, RelationshipStore relationshipStore,
             int highLabelId, int highRelationshipTypeId, CountsAccessor.Updater countsUpdater,
             NumberArrayFactory cacheFactory )
+    {
+        this( config, cache, relationshipStore, highLabelId, highRelationshipTypeId, countsUpdater, cacheFactory, 0 );
+    }
+
+    /**
+     * Only counts relationships with ids from {@code firstRelationshipIdToCount} and upwards, i.e. the
+     * relationships imported into a store already containing relationships with lower ids.
+     */
+    public RelationshipCountsStage( Configuration config, NodeLabelsCache cache, RelationshipStore relationshipStore,
+            int highLabelId, int highRelationshipTypeId, CountsAccessor.Updater countsUpdater,
+            NumberArrayFactory cacheFactory, long firstRelationshipIdToCount )
     {
         super( "Relationship counts", config );
-        add( new ReadRelationshipCountsDataStep( control(), config, relationshipStore ) );
+        add( new ReadRelationshipCountsDataStep( control(), config, relationshipStore,
+                firstRelationshipIdToCount ) );
         add( new ProcessRelationshipCountsDataStep( control(), cache, config,
                 highLabelId, highRelationshipTypeId, countsUpdater, cacheFactory ) );
     }
@@ -31,9 +31,20 @@ import org.neo4j.unsafe.impl.batchimport.staging.Stage;
 public class RelationshipLinkbackStage extends Stage
 {
     public RelationshipLinkbackStage( Configuration config, RelationshipStore store, NodeRelationshipCache cache )
+    {
+        this( config, store, cache, 0 );
+    }
+
+    /**
+     * Only links relationships with ids from {@code firstRelationshipId} and upwards, i.e. the relationships
+     * imported into a store already containing relationships with lower ids.
+     */
+    public RelationshipLinkbackStage( Configuration config, RelationshipStore store, NodeRelationshipCache cache,
+            long firstRelationshipId )
     {
         super( "Relationship --> Relationship", config );
-        add( new ReadRelationshipRecordsBackwardsStep( control(), config, store ) );
+        add( new ReadRelationshipRecordsBackwardsStep( control(), config, store,
+                firstRelationshipId, store.getHighId() ) );
         add( new RecordProcessorStep<>( control(), "LINK", config,
                 new RelationshipLinkbackProcessor( cache ), false ) );
         add( new UpdateRecordsStep<>( control(), config, store ) );
@@ -49,7 +49,7 @@ public class RelationshipStage extends Stage
         PropertyStore propertyStore = neoStore.getPropertyStore();
         add( new RelationshipPreparationStep( control(), config, idMapper ) );
         add( new PropertyEncoderStep<>( control(), config, neoStore.getPropertyKeyRepository(), propertyStore ) );
-        add( new ParallelizeByNodeIdStep( control(), config ) );
+        add( new ParallelizeByNodeIdStep( control(), config, relationshipStore.getHighId() ) );
         add( new RelationshipEncoderStep( control(), config,
                 neoStore.getRelationshipTypeRepository(), cache, specificIds ) );
         add( new EntityStoreUpdaterStep<>( control(), config,
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.Arrays;
+
+/**
+ * Definition of a schema index, or uniqueness constraint, for the {@link ParallelBatchImporter} to create
+ * and populate while importing nodes. Refers to label and property keys by name, since their token ids
+ * aren't known until the import has started.
+ */
+public class SchemaIndexDefinition
+{
+    private final String label;
+    private final String[] propertyKeys;
+    private final boolean unique;
+
+    private SchemaIndexDefinition( String label, String[] propertyKeys, boolean unique )
+    {
+        if ( propertyKeys.length == 0 )
+        {
+            throw new IllegalArgumentException( "Index on :" + label + " must have at least one property key" );
+        }
+        if ( unique && propertyKeys.length > 1 )
+        {
+            throw new IllegalArgumentException( "Uniqueness constraint on :" + label +
+                    " can only have one property key, not " + Arrays.toString( propertyKeys ) );
+        }
+        this.label = label;
+        this.propertyKeys = propertyKeys.clone();
+        this.unique = unique;
+    }
+
+    /**
+     * @param label name of the label of nodes to index.
+     * @param propertyKeys names of the property keys to index, more than one makes a composite index.
+     * @return definition of an index on the given label and property keys.
+     */
+    public static SchemaIndexDefinition index( String label, String... propertyKeys )
+    {
+        return new SchemaIndexDefinition( label, propertyKeys, false );
+    }
+
+    /**
+     * @param label name of the label of nodes to constrain.
+     * @param propertyKey name of the property key which must have unique values among nodes with the label.
+     * @return definition of a uniqueness constraint, and its index, on the given label and property key.
+     */
+    public static SchemaIndexDefinition uniqueness( String label, String propertyKey )
+    {
+        return new SchemaIndexDefinition( label, new String[] {propertyKey}, true );
+    }
+
+    public String label()
+    {
+        return label;
+    }
+
+    public String[] propertyKeys()
+    {
+        return propertyKeys.clone();
+    }
+
+    public boolean isUnique()
+    {
+        return unique;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( unique ? "UNIQUE :" : "INDEX :" ).append( label ).append( '(' );
+        for ( int i = 0; i < propertyKeys.length; i++ )
+        {
+            builder.append( i > 0 ? "," : "" ).append( propertyKeys[i] );
+        }
+        return builder.append( ')' ).toString();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.kernel.api.index.CompositeIndexValue;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.impl.store.record.IndexRule;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.unsafe.impl.batchimport.input.Collector;
+import org.neo4j.unsafe.impl.batchimport.input.InputNode;
+import org.neo4j.unsafe.impl.batchimport.staging.BatchSender;
+import org.neo4j.unsafe.impl.batchimport.staging.Configuration;
+import org.neo4j.unsafe.impl.batchimport.staging.ProcessorStep;
+import org.neo4j.unsafe.impl.batchimport.staging.StageControl;
+import org.neo4j.unsafe.impl.batchimport.store.BatchingNeoStores;
+
+import static java.util.Arrays.copyOf;
+
+import static org.neo4j.kernel.api.properties.Property.property;
+
+/**
+ * Populates schema indexes with the indexed property values of nodes in {@link Batch batches} passing by.
+ * For uniqueness constraints every value seen so far is kept in memory, so that a node having a value
+ * which another node already has can be reported to the {@link Collector} and have that property removed
+ * before it's written to the store.
+ */
+public class SchemaIndexPopulationStep extends ProcessorStep<Batch<InputNode,NodeRecord>>
+{
+    private final SchemaIndexDefinition[] definitions;
+    private final int[] labelIds;
+    private final int[][] propertyKeyIds;
+    private final IndexPopulator[] populators;
+    // Values of each uniqueness constrained index, mapped to the node having it. null for other indexes
+    private final List<Map<DefinedProperty,Long>> uniqueValues = new ArrayList<>();
+    private final Collector collector;
+    private volatile boolean completed;
+
+    // Reusable for less GC
+    private int[] removedPropertyKeyIds = new int[4];
+
+    public SchemaIndexPopulationStep( StageControl control, Configuration config, BatchingNeoStores neoStore,
+            SchemaIndexDefinition[] definitions, IndexRule[] indexRules, Collector collector ) throws IOException
+    {
+        super( control, "INDEX", config, 1 );
+        this.definitions = definitions;
+        this.collector = collector;
+        this.labelIds = new int[indexRules.length];
+        this.propertyKeyIds = new int[indexRules.length][];
+        this.populators = new IndexPopulator[indexRules.length];
+        for ( int i = 0; i < indexRules.length; i++ )
+        {
+            labelIds[i] = indexRules[i].getLabel();
+            propertyKeyIds[i] = indexRules[i].getPropertyKeys();
+            populators[i] = neoStore.newSchemaIndexPopulator( indexRules[i] );
+            uniqueValues.add( definitions[i].isUnique() ? new HashMap<DefinedProperty,Long>() : null );
+        }
+    }
+
+    @Override
+    protected void process( Batch<InputNode,NodeRecord> batch, BatchSender sender ) throws Throwable
+    {
+        int propertyBlockCursor = 0;
+        for ( int i = 0; i < batch.records.length; i++ )
+        {
+            NodeRecord node = batch.records[i];
+            long[] labels = batch.labels[i];
+            if ( labels != null && node.inUse() )
+            {
+                // Violations are decided before any index sees the node, so that no index gets a value which
+                // is removed from the node
+                int removals = 0;
+                for ( int index = 0; index < populators.length; index++ )
+                {
+                    Map<DefinedProperty,Long> values = uniqueValues.get( index );
+                    if ( values == null || !contains( labels, labelIds[index] ) )
+                    {
+                        continue;
+                    }
+
+                    Object value = indexedValue( batch, i, propertyBlockCursor, propertyKeyIds[index] );
+                    Long existingNodeId = value != null ? values.get( property( propertyKeyIds[index][0], value ) )
+                                                        : null;
+                    if ( existingNodeId != null )
+                    {
+                        collector.collectConstraintViolation( batch.input[i], definitions[index].toString(),
+                                value, existingNodeId );
+                        if ( removals == removedPropertyKeyIds.length )
+                        {
+                            removedPropertyKeyIds = copyOf( removedPropertyKeyIds, removals * 2 );
+                        }
+                        removedPropertyKeyIds[removals++] = propertyKeyIds[index][0];
+                    }
+                }
+
+                for ( int index = 0; index < populators.length; index++ )
+                {
+                    if ( !contains( labels, labelIds[index] ) ||
+                         containsAny( removedPropertyKeyIds, removals, propertyKeyIds[index] ) )
+                    {
+                        continue;
+                    }
+
+                    Object value = indexedValue( batch, i, propertyBlockCursor, propertyKeyIds[index] );
+                    if ( value == null )
+                    {   // This node doesn't have all the properties of this index
+                        continue;
+                    }
+
+                    Map<DefinedProperty,Long> values = uniqueValues.get( index );
+                    if ( values != null )
+                    {
+                        values.put( property( propertyKeyIds[index][0], value ), node.getId() );
+                    }
+                    populators[index].add( node.getId(), value );
+                }
+
+                // Removed after having looked at all indexes since removing shifts the remaining property blocks
+                for ( int r = 0; r < removals; r++ )
+                {
+                    removePropertyBlock( batch, i, propertyBlockCursor, removedPropertyKeyIds[r] );
+                }
+            }
+            propertyBlockCursor += batch.propertyBlocksLengths[i];
+        }
+        sender.send( batch );
+    }
+
+    private static boolean contains( long[] labels, int labelId )
+    {
+        for ( long label : labels )
+        {
+            if ( label == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny( int[] propertyKeyIds, int count, int[] candidates )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            for ( int candidate : candidates )
+            {
+                if ( propertyKeyIds[i] == candidate )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return value of the given property key, or {@link CompositeIndexValue} of the given property keys,
+     * for the node at {@code index} in the batch, or {@code null} if it doesn't have all of them.
+     */
+    private static Object indexedValue( Batch<InputNode,NodeRecord> batch, int index, int propertyBlockOffset,
+            int[] propertyKeyIds )
+    {
+        if ( propertyKeyIds.length == 1 )
+        {
+            return propertyValue( batch, index, propertyBlockOffset, propertyKeyIds[0] );
+        }
+
+        Object[] values = new Object[propertyKeyIds.length];
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            values[i] = propertyValue( batch, index, propertyBlockOffset, propertyKeyIds[i] );
+            if ( values[i] == null )
+            {
+                return null;
+            }
+        }
+        return new CompositeIndexValue( values );
+    }
+
+    private static Object propertyValue( Batch<InputNode,NodeRecord> batch, int index, int propertyBlockOffset,
+            int propertyKeyId )
+    {
+        // Property blocks are encoded in the same order as the key/value pairs of the input node
+        int length = batch.propertyBlocksLengths[index];
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( batch.propertyBlocks[propertyBlockOffset + i].getKeyIndexId() == propertyKeyId )
+            {
+                return batch.input[index].properties()[i * 2 + 1];
+            }
+        }
+        return null;
+    }
+
+    private static void removePropertyBlock( Batch<InputNode,NodeRecord> batch, int index, int propertyBlockOffset,
+            int propertyKeyId )
+    {
+        PropertyBlock[] blocks = batch.propertyBlocks;
+        int length = batch.propertyBlocksLengths[index];
+        for ( int i = 0; i < length; i++ )
+        {
+            int position = propertyBlockOffset + i;
+            if ( blocks[position].getKeyIndexId() == propertyKeyId )
+            {
+                System.arraycopy( blocks, position + 1, blocks, position, blocks.length - position - 1 );
+                batch.propertyBlocksLengths[index]--;
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected void done()
+    {
+        super.done();
+        completed = true;
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        super.close();
+        for ( IndexPopulator populator : populators )
+        {   // An index not fully populated is left for the database to rebuild
+            populator.close( completed );
+        }
+    }
+}
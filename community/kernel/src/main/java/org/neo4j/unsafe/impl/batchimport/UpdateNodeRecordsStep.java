@@ -25,7 +25,6 @@ import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.unsafe.batchinsert.LabelScanWriter;
-import org.neo4j.unsafe.impl.batchimport.input.Collector;
 import org.neo4j.unsafe.impl.batchimport.staging.StageControl;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
@@ -43,10 +42,10 @@ public class UpdateNodeRecordsStep extends UpdateRecordsStep<NodeRecord>
     private final LabelScanWriter labelScanWriter;
 
     public UpdateNodeRecordsStep( StageControl control, Configuration config, RecordStore<NodeRecord> store,
-            Collector collector, LabelScanStore labelScanStore )
+            PrimitiveLongIterator duplicateNodeIds, LabelScanStore labelScanStore )
     {
         super( control, config, store );
-        this.ids = collector.leftOverDuplicateNodesIds();
+        this.ids = duplicateNodeIds;
         goToNextId();
         this.labelScanWriter = end ? LabelScanWriter.EMPTY : labelScanStore.newWriter();
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.cache;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * File-backed version of {@link LongArray}, see {@link MappedNumberArray}. Supports arrays with length beyond
+ * Integer.MAX_VALUE and beyond available memory.
+ */
+public class MappedLongArray extends MappedNumberArray implements LongArray
+{
+    private final long defaultValue;
+
+    public MappedLongArray( File directory, long length, long defaultValue )
+    {
+        super( directory, length, 3 );
+        this.defaultValue = defaultValue;
+        if ( defaultValue != 0 )
+        {   // A new file is already filled with zeros
+            clear();
+        }
+    }
+
+    @Override
+    public long get( long index )
+    {
+        long offset = offsetOf( index );
+        return segment( offset ).getLong( position( offset ) );
+    }
+
+    @Override
+    public void set( long index, long value )
+    {
+        long offset = offsetOf( index );
+        segment( offset ).putLong( position( offset ), value );
+    }
+
+    @Override
+    public void clear()
+    {
+        for ( long offset = 0, size = length << shift; offset < size; offset += stride )
+        {
+            segment( offset ).putLong( position( offset ), defaultValue );
+        }
+    }
+
+    @Override
+    public void swap( long fromIndex, long toIndex, int numberOfEntries )
+    {
+        long fromOffset = offsetOf( fromIndex );
+        long toOffset = offsetOf( toIndex );
+
+        for ( int i = 0; i < numberOfEntries; i++, fromOffset += stride, toOffset += stride )
+        {
+            ByteBuffer fromSegment = segment( fromOffset );
+            ByteBuffer toSegment = segment( toOffset );
+            long fromValue = fromSegment.getLong( position( fromOffset ) );
+            fromSegment.putLong( position( fromOffset ), toSegment.getLong( position( toOffset ) ) );
+            toSegment.putLong( position( toOffset ), fromValue );
+        }
+    }
+
+    @Override
+    public LongArray fixate()
+    {
+        return this;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.helpers.Format.bytes;
+
+/**
+ * Base class for common functionality for any {@link NumberArray} where the data lives in a memory-mapped file,
+ * for arrays not fitting in memory. The operating system pages data in and out as it's accessed, so
+ * access should be sequential, or at least local, for reasonable performance. The file is deleted when closed.
+ */
+abstract class MappedNumberArray implements NumberArray
+{
+    // A mapped buffer is addressed by int, so the file is mapped in segments of at most this size
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    protected final long length;
+    protected final int shift;
+    protected final int stride;
+    private final File file;
+    private ByteBuffer[] segments;
+
+    protected MappedNumberArray( File directory, long length, int shift )
+    {
+        this.length = length;
+        this.shift = shift;
+        this.stride = 1 << shift;
+        long size = length << shift;
+        File file = null;
+        try
+        {
+            file = File.createTempFile( "neo4j-import-", ".array", directory );
+            file.deleteOnExit();
+            try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+                  FileChannel channel = raf.getChannel() )
+            {
+                raf.setLength( size );
+                segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+                for ( int i = 0; i < segments.length; i++ )
+                {
+                    long position = i * SEGMENT_SIZE;
+                    segments[i] = channel.map( MapMode.READ_WRITE, position, Math.min( SEGMENT_SIZE, size - position ) )
+                            .order( ByteOrder.nativeOrder() );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            if ( file != null )
+            {
+                file.delete();
+            }
+            throw new UnderlyingStorageException( "Unable to map array of " + bytes( size ) + " in " + directory, e );
+        }
+        this.file = file;
+    }
+
+    @Override
+    public long length()
+    {
+        return length;
+    }
+
+    protected long offsetOf( long index )
+    {
+        if ( index < 0 || index >= length )
+        {
+            throw new ArrayIndexOutOfBoundsException( "Requested index " + index + ", but length is " + length );
+        }
+        return index << shift;
+    }
+
+    protected ByteBuffer segment( long offset )
+    {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)];
+    }
+
+    protected static int position( long offset )
+    {
+        // Items never span segments since the segment size is a multiple of the item size
+        return (int) (offset & SEGMENT_MASK);
+    }
+
+    @Override
+    public void acceptMemoryStatsVisitor( MemoryStatsVisitor visitor )
+    {   // The data lives in a file, paged in and out of memory by the operating system
+    }
+
+    @Override
+    public void close()
+    {
+        if ( segments != null )
+        {
+            // Mapped buffers are unmapped when garbage collected, although the file can be deleted right away
+            segments = null;
+            file.delete();
+        }
+    }
+}
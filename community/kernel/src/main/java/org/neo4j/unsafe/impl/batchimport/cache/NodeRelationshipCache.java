@@ -19,6 +19,9 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.graphdb.Direction;
@@ -31,7 +34,15 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
 {
     private static final long EMPTY = -1;
 
+    // Two bits per node, for nodes which already have relationships in the store being imported into
+    private static final int EXISTING_SHIFT = 1;
+    private static final int EXISTING_NODES_PER_FIELD = Long.SIZE >>> EXISTING_SHIFT;
+    private static final long EXISTING_MASK = 0b11;
+    private static final long EXISTING_SPARSE = 0b01;
+    private static final long EXISTING_DENSE = 0b11;
+
     private LongArray array;
+    private final LongArray existingNodes;
     private final int denseNodeThreshold;
     private final RelGroupCache relGroupCache;
 
@@ -39,6 +50,7 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
     {
         int chunkSize = 1_000_000;
         this.array = arrayFactory.newDynamicLongArray( chunkSize, IdFieldManipulator.emptyField() );
+        this.existingNodes = arrayFactory.newDynamicLongArray( chunkSize / EXISTING_NODES_PER_FIELD, 0 );
         this.denseNodeThreshold = denseNodeThreshold;
         this.relGroupCache = new RelGroupCache( arrayFactory, chunkSize );
     }
@@ -58,11 +70,17 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
 
     public boolean isDense( long nodeId )
     {
-        return fieldIsDense( array.get( nodeId ) );
+        return fieldIsDense( nodeId, array.get( nodeId ) );
     }
 
-    private boolean fieldIsDense( long field )
+    private boolean fieldIsDense( long nodeId, long field )
     {
+        long existing = existingState( nodeId );
+        if ( existing != 0 )
+        {   // The relationships this node already has in the store decide whether or not it's dense
+            return existing == EXISTING_DENSE;
+        }
+
         if ( denseNodeThreshold == EMPTY )
         {   // We haven't initialized the rel group cache yet
             return false;
@@ -83,7 +101,7 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
 
         long field = array.get( nodeId );
         long existingId = IdFieldManipulator.getId( field );
-        if ( fieldIsDense( field ) )
+        if ( fieldIsDense( nodeId, field ) )
         {
             if ( existingId == EMPTY )
             {
@@ -108,7 +126,7 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
     public long getFirstRel( long nodeId, GroupVisitor visitor )
     {
         long field = array.get( nodeId );
-        if ( fieldIsDense( field ) )
+        if ( fieldIsDense( nodeId, field ) )
         {   // Indirection into rel group cache
             long relGroupIndex = IdFieldManipulator.getId( field );
             return relGroupCache.visitGroups( nodeId, relGroupIndex, visitor );
@@ -119,38 +137,157 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
 
     public void clearRelationships()
     {
+        // Only writes fields that change, so that unaffected parts of the cache, which may be in a memory-mapped
+        // file, don't need to be written back
         long length = array.length();
         for ( long i = 0; i < length; i++ )
         {
             long field = array.get( i );
-            if ( !fieldIsDense( field ) )
+            if ( !fieldIsDense( i, field ) )
             {
-                field = IdFieldManipulator.cleanId( field );
-                array.set( i, field );
+                long cleanField = IdFieldManipulator.cleanId( field );
+                if ( cleanField != field )
+                {
+                    array.set( i, cleanField );
+                }
             }
         }
         relGroupCache.clearRelationships();
     }
 
     public int getCount( long nodeId, int type, Direction direction )
+    {
+        return IdFieldManipulator.getCount( chainField( nodeId, type, direction ) );
+    }
+
+    /**
+     * @return the relationship last put for {@code nodeId} in the chain of the given type and direction,
+     * without changing it. For sparse nodes type and direction are ignored since they only have one chain.
+     */
+    public long getRelationship( long nodeId, int type, Direction direction )
+    {
+        return IdFieldManipulator.getId( chainField( nodeId, type, direction ) );
+    }
+
+    private long chainField( long nodeId, int type, Direction direction )
     {
         long field = array.get( nodeId );
-        if ( fieldIsDense( field ) )
+        if ( fieldIsDense( nodeId, field ) )
         {   // Indirection into rel group cache
             long relGroupIndex = IdFieldManipulator.getId( field );
             if ( relGroupIndex == EMPTY )
             {
-                return 0;
+                return IdFieldManipulator.emptyField();
             }
             relGroupIndex = relGroupCache.findGroupIndexForType( relGroupIndex, type );
             if ( relGroupIndex == EMPTY )
             {
-                return 0;
+                return IdFieldManipulator.emptyField();
             }
             field = relGroupCache.getField( relGroupIndex, relGroupCache.directionIndex( direction ) );
         }
+        return field;
+    }
 
-        return IdFieldManipulator.getCount( field );
+    /**
+     * Marks {@code nodeId} as a dense node already in the store being imported into. Such a node stays dense
+     * regardless of how many relationships are imported for it, since its relationships in the store are
+     * already in groups. Must be called before {@link #putExistingRelationship(long, int, Direction, long, int)}
+     * is called for the node.
+     */
+    public void markExistingDenseNode( long nodeId )
+    {
+        setExistingState( nodeId, EXISTING_DENSE );
+    }
+
+    /**
+     * Puts the first relationship of an existing relationship chain, i.e. one which is already in the store
+     * being imported into, so that relationships imported for {@code nodeId} gets linked in front of it.
+     * A node not {@link #markExistingDenseNode(long) marked as dense} is marked as an existing sparse node,
+     * one which stays sparse regardless of how many relationships are imported for it.
+     * Not thread safe, must be called by a single thread.
+     *
+     * @param nodeId node owning the chain.
+     * @param type relationship type of the chain, only used for dense nodes.
+     * @param direction direction of the chain, only used for dense nodes.
+     * @param firstRelId id of the first relationship in the chain.
+     * @param count number of relationships in the chain.
+     */
+    public void putExistingRelationship( long nodeId, int type, Direction direction, long firstRelId, int count )
+    {
+        long field = array.get( nodeId );
+        if ( existingState( nodeId ) == EXISTING_DENSE )
+        {
+            long relGroupIndex = IdFieldManipulator.getId( field );
+            if ( relGroupIndex == EMPTY )
+            {
+                relGroupIndex = relGroupCache.allocate( type, direction, firstRelId, false );
+                array.set( nodeId, IdFieldManipulator.setId( field, relGroupIndex ) );
+            }
+            else
+            {
+                relGroupCache.putRelationship( relGroupIndex, type, direction, firstRelId, false );
+            }
+            relGroupCache.changeCount( relGroupIndex, type, direction, count );
+            return;
+        }
+
+        setExistingState( nodeId, EXISTING_SPARSE );
+        field = IdFieldManipulator.setId( field, firstRelId );
+        array.set( nodeId, IdFieldManipulator.changeCount( field, count ) );
+    }
+
+    /**
+     * Relationships which existing dense nodes already have in the store are counted per group, so for those
+     * the node count only holds the relationships counted in this import.
+     *
+     * @return whether or not relationships have been counted in this import for {@code existingDenseNodeId},
+     * a node {@link #markExistingDenseNode(long) marked as an existing dense node}.
+     */
+    public boolean hasNewRelationships( long existingDenseNodeId )
+    {
+        return IdFieldManipulator.getCount( array.get( existingDenseNodeId ) ) > 0;
+    }
+
+    /**
+     * Counts the existing sparse nodes, see {@link #putExistingRelationship(long, int, Direction, long, int)},
+     * which have reached the dense node threshold, counting both their existing and their imported relationships.
+     * Those nodes would have been dense if all their relationships had been imported together.
+     *
+     * @param highNodeId the node id after the highest existing node id.
+     * @return number of existing sparse nodes which have at least as many relationships as the dense node threshold.
+     */
+    public long countExistingSparseNodesReachingDenseThreshold( long highNodeId )
+    {
+        long count = 0;
+        for ( long nodeId = 0; nodeId < highNodeId; nodeId++ )
+        {
+            if ( existingState( nodeId ) == EXISTING_SPARSE &&
+                    IdFieldManipulator.getCount( array.get( nodeId ) ) >= denseNodeThreshold )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long existingState( long nodeId )
+    {
+        long field = existingNodes.get( nodeId / EXISTING_NODES_PER_FIELD );
+        return (field >>> existingShift( nodeId )) & EXISTING_MASK;
+    }
+
+    private void setExistingState( long nodeId, long state )
+    {
+        long index = nodeId / EXISTING_NODES_PER_FIELD;
+        int shift = existingShift( nodeId );
+        long field = existingNodes.get( index );
+        existingNodes.set( index, (field & ~(EXISTING_MASK << shift)) | (state << shift) );
+    }
+
+    private static int existingShift( long nodeId )
+    {
+        return (int) (nodeId % EXISTING_NODES_PER_FIELD) << EXISTING_SHIFT;
     }
 
     public void fixateNodes()
@@ -163,6 +300,54 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
         relGroupCache.fixate();
     }
 
+    /**
+     * Writes the contents of this cache, so that it can be {@link #load(DataInput) loaded} into another cache
+     * later, for example when resuming an import from a checkpoint.
+     *
+     * @param out where to write the contents.
+     * @throws IOException on I/O error.
+     */
+    public void save( DataOutput out ) throws IOException
+    {
+        saveArray( out, array );
+        saveArray( out, existingNodes );
+        relGroupCache.save( out );
+    }
+
+    /**
+     * Reads contents previously {@link #save(DataOutput) saved} into this cache, which must be new and
+     * not yet {@link #fixateNodes() fixated}. Calls to {@link #fixateNodes()} and {@link #fixateGroups()}
+     * are then made as if the cache had been populated by an import.
+     *
+     * @param in where to read the contents from.
+     * @throws IOException on I/O error.
+     */
+    public void load( DataInput in ) throws IOException
+    {
+        loadArray( in, array );
+        loadArray( in, existingNodes );
+        relGroupCache.load( in );
+    }
+
+    private static void saveArray( DataOutput out, LongArray array ) throws IOException
+    {
+        long length = array.length();
+        out.writeLong( length );
+        for ( long i = 0; i < length; i++ )
+        {
+            out.writeLong( array.get( i ) );
+        }
+    }
+
+    private static void loadArray( DataInput in, LongArray array ) throws IOException
+    {
+        long length = in.readLong();
+        for ( long i = 0; i < length; i++ )
+        {
+            array.set( i, in.readLong() );
+        }
+    }
+
     public interface GroupVisitor
     {
         /**
@@ -213,7 +398,12 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
         private void clearRelationshipId( long relGroupIndex, int fieldIndex )
         {
             long index = index( relGroupIndex, fieldIndex );
-            array.set( index, IdFieldManipulator.cleanId( array.get( index ) ) );
+            long field = array.get( index );
+            long cleanField = IdFieldManipulator.cleanId( field );
+            if ( cleanField != field )
+            {
+                array.set( index, cleanField );
+            }
         }
 
         private int nextFreeId()
@@ -343,6 +533,14 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
             setField( relGroupIndex, INDEX_NEXT_AND_TYPE, field );
         }
 
+        private void changeCount( long relGroupIndex, int type, Direction direction, int diff )
+        {
+            long groupIndex = findGroupIndexForType( relGroupIndex, type );
+            int directionIndex = directionIndex( direction );
+            setField( groupIndex, directionIndex,
+                    IdFieldManipulator.changeCount( getField( groupIndex, directionIndex ), diff ) );
+        }
+
         private long findGroupIndexForType( long relGroupIndex, int type )
         {
             long currentIndex = relGroupIndex;
@@ -378,6 +576,18 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
         {
             array = array.fixate();
         }
+
+        void save( DataOutput out ) throws IOException
+        {
+            out.writeInt( nextFreeId.get() );
+            saveArray( out, array );
+        }
+
+        void load( DataInput in ) throws IOException
+        {
+            nextFreeId.set( in.readInt() );
+            loadArray( in, array );
+        }
     }
 
     @Override
@@ -389,6 +599,7 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
     public void close()
     {
         array.close();
+        existingNodes.close();
         relGroupCache.close();
     }
 
@@ -396,6 +607,7 @@ public class NodeRelationshipCache implements MemoryStatsVisitor.Home
     public void acceptMemoryStatsVisitor( MemoryStatsVisitor visitor )
     {
         array.acceptMemoryStatsVisitor( visitor );
+        existingNodes.acceptMemoryStatsVisitor( visitor );
         relGroupCache.acceptMemoryStatsVisitor( visitor );
     }
 }
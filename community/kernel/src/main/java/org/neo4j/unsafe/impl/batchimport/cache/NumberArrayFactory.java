@@ -19,6 +19,7 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache;
 
+import java.io.File;
 import java.util.Arrays;
 
 import org.neo4j.helpers.Exceptions;
@@ -31,7 +32,8 @@ import static org.neo4j.unsafe.impl.batchimport.Utils.safeCastLongToInt;
 /**
  * Factory of {@link LongArray} and {@link IntArray} instances. Users can select in which type of memory
  * the arrays will be placed, either in {@link #HEAP} or {@link #OFF_HEAP}, or even {@link #AUTO} which
- * will have each instance placed where it fits best, favoring off-heap.
+ * will have each instance placed where it fits best, favoring off-heap. Arrays not fitting in memory
+ * can be placed in memory-mapped files using {@link Mapped}.
  */
 public interface NumberArrayFactory
 {
@@ -241,8 +243,49 @@ public interface NumberArrayFactory
         }
     };
 
+    /**
+     * Puts arrays in memory-mapped files in a directory, for when they don't fit in memory. Used as the last
+     * resort for {@link Auto}. The operating system pages the data in and out of memory, so these arrays
+     * perform well as long as they are accessed sequentially, or at least locally.
+     */
+    class Mapped extends Adapter
+    {
+        private final File directory;
+
+        public Mapped( File directory )
+        {
+            this.directory = directory;
+        }
+
+        @Override
+        public IntArray newIntArray( long length, int defaultValue )
+        {
+            return new MappedIntArray( directory, length, defaultValue );
+        }
+
+        @Override
+        public LongArray newLongArray( long length, long defaultValue )
+        {
+            return new MappedLongArray( directory, length, defaultValue );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "MAPPED(" + directory + ")";
+        }
+    }
+
+    /**
+     * {@link Mapped} factory placing its files in the temp directory, or the directory specified by the
+     * {@code org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory.mapped_dir} system property.
+     */
+    NumberArrayFactory MAPPED = new Mapped( new File( System.getProperty(
+            NumberArrayFactory.class.getName() + ".mapped_dir", System.getProperty( "java.io.tmpdir" ) ) ) );
+
     /**
      * {@link Auto} factory which uses JVM stats for gathering information about available memory.
+     * Falls back to {@link #MAPPED} files if the requested array doesn't fit in memory.
      */
-    NumberArrayFactory AUTO = new Auto( OFF_HEAP, HEAP, CHUNKED_FIXED_SIZE );
+    NumberArrayFactory AUTO = new Auto( OFF_HEAP, HEAP, CHUNKED_FIXED_SIZE, MAPPED );
 }
@@ -87,6 +87,42 @@ public class IdGenerators
         };
     }
 
+    /**
+     * @param generator {@link IdGenerator} used for an import into an empty store.
+     * @param highId high id of the node store being imported into.
+     * @return an {@link IdGenerator} for importing into a store which already contains nodes with ids below
+     * {@code highId}. Generators that {@link IdGenerator#dependsOnInput() depend on input} are used as is,
+     * but may not generate ids of existing nodes, others are replaced by one starting from {@code highId}.
+     */
+    public static IdGenerator inExistingStore( final IdGenerator generator, final long highId )
+    {
+        if ( !generator.dependsOnInput() )
+        {
+            return startingFrom( highId );
+        }
+
+        return new IdGenerator()
+        {
+            @Override
+            public long generate( Object inputId )
+            {
+                long id = generator.generate( inputId );
+                if ( id < highId )
+                {
+                    throw new IllegalArgumentException( "Node id " + id + " is already used in the store " +
+                            "being imported into, new node ids must be " + highId + " or higher" );
+                }
+                return id;
+            }
+
+            @Override
+            public boolean dependsOnInput()
+            {
+                return true;
+            }
+        };
+    }
+
     /**
      * @return an {@link IdGenerator} that returns ids incrementally, starting from 0.
      */
@@ -19,6 +19,10 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.neo4j.helpers.progress.ProgressListener;
 import org.neo4j.unsafe.impl.batchimport.InputIterable;
 import org.neo4j.unsafe.impl.batchimport.cache.MemoryStatsVisitor;
@@ -74,4 +78,23 @@ public interface IdMapper extends MemoryStatsVisitor.Home
      * @return the actual node id previously specified by {@link #put(Object, long, Group)}, or {@code -1} if not found.
      */
     long get( Object inputId, Group group );
+
+    /**
+     * Writes the state of this mapper, after all mappings have been {@link #put(Object, long, Group) put} and
+     * it has been {@link #prepare(InputIterable, Collector, ProgressListener) prepared}, so that it can be
+     * {@link #load(DataInput) loaded} into a new mapper of the same kind later, for example when resuming an import.
+     *
+     * @param out where to write the state.
+     * @throws IOException on I/O error.
+     */
+    void save( DataOutput out ) throws IOException;
+
+    /**
+     * Reads state previously {@link #save(DataOutput) saved} by a mapper of the same kind into this mapper,
+     * which must be empty. After this call this mapper is ready for {@link #get(Object, Group)}.
+     *
+     * @param in where to read the state from.
+     * @throws IOException on I/O error.
+     */
+    void load( DataInput in ) throws IOException;
 }
@@ -19,6 +19,9 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+
 import org.neo4j.helpers.progress.ProgressListener;
 import org.neo4j.unsafe.impl.batchimport.InputIterable;
 import org.neo4j.unsafe.impl.batchimport.cache.MemoryStatsVisitor;
@@ -63,6 +66,16 @@ public class IdMappers
             return ((Long)inputId).longValue();
         }
 
+        @Override
+        public void save( DataOutput out )
+        {   // Nothing to save
+        }
+
+        @Override
+        public void load( DataInput in )
+        {   // Nothing to load
+        }
+
         @Override
         public void acceptMemoryStatsVisitor( MemoryStatsVisitor visitor )
         {   // No memory usage
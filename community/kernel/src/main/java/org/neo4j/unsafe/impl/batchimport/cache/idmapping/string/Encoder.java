@@ -19,6 +19,10 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping.string;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Encodes a {@link Object} into a long. The implementation should be designed to return as few collisions
  * as possible, i.e. different incoming values being encoded into the same long.
@@ -27,4 +31,21 @@ package org.neo4j.unsafe.impl.batchimport.cache.idmapping.string;
 public interface Encoder
 {
     long encode( Object value );
+
+    /**
+     * Writes any state which {@link #encode(Object)} depends on, so that a {@link #load(DataInput) loaded}
+     * encoder encodes values the same way as this one.
+     *
+     * @param out where to write the state.
+     * @throws IOException on I/O error.
+     */
+    void save( DataOutput out ) throws IOException;
+
+    /**
+     * Reads state previously {@link #save(DataOutput) saved} by an encoder of the same kind into this encoder.
+     *
+     * @param in where to read the state from.
+     * @throws IOException on I/O error.
+     */
+    void load( DataInput in ) throws IOException;
 }
@@ -19,6 +19,9 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping.string;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -114,6 +117,9 @@ public class EncodingIdMapper implements IdMapper
     // because the current set of Encoder implementations will always set some amount of bits higher up in
     // the long value representing the length of the id.
     private static final long GAP_VALUE = 0;
+    // Types of collision values written in #save
+    private static final byte STRING_VALUE = 0;
+    private static final byte LONG_VALUE = 1;
 
     private final NumberArrayFactory cacheFactory;
     // Encoded values added in #put, in the order in which they are put. Indexes in the array are the actual node ids,
@@ -290,6 +296,123 @@ public class EncodingIdMapper implements IdMapper
         readyForUse = true;
     }
 
+    /**
+     * Writes the encoder state, sorted data and tracker caches, sort buckets, id groups and collision information,
+     * everything that {@link #get(Object, Group)} needs. Information only used while preparing isn't written.
+     */
+    @Override
+    public void save( DataOutput out ) throws IOException
+    {
+        assert readyForUse;
+        // Encodings of the values put may depend on encoder state, which lookups must encode with as well
+        encoder.save( out );
+        out.writeLong( highestSetIndex );
+        for ( long i = 0; i <= highestSetIndex; i++ )
+        {
+            out.writeLong( dataCache.get( i ) );
+        }
+        for ( long i = 0; i <= highestSetIndex; i++ )
+        {
+            out.writeInt( trackerCache.get( i ) );
+        }
+
+        out.writeInt( sortBuckets.length );
+        for ( long[] bucket : sortBuckets )
+        {
+            out.writeInt( bucket.length );
+            for ( long value : bucket )
+            {
+                out.writeLong( value );
+            }
+        }
+
+        int numberOfGroups = 0;
+        for ( IdGroup idGroup : idGroups )
+        {
+            numberOfGroups += idGroup != null ? 1 : 0;
+        }
+        out.writeInt( numberOfGroups );
+        for ( IdGroup idGroup : idGroups )
+        {
+            if ( idGroup != null )
+            {
+                out.writeInt( idGroup.id() );
+                out.writeUTF( idGroup.name() );
+                out.writeLong( idGroup.lowDataIndex() );
+                out.writeLong( idGroup.highDataIndex() );
+            }
+        }
+
+        int numberOfCollisions = collisionValues.size();
+        out.writeInt( numberOfCollisions );
+        for ( int i = 0; i < numberOfCollisions; i++ )
+        {
+            Object value = collisionValues.get( i );
+            if ( value instanceof Number )
+            {
+                out.writeByte( LONG_VALUE );
+                out.writeLong( ((Number) value).longValue() );
+            }
+            else
+            {
+                out.writeByte( STRING_VALUE );
+                out.writeUTF( value.toString() );
+            }
+            out.writeLong( collisionNodeIdCache.get( i ) );
+        }
+    }
+
+    @Override
+    public void load( DataInput in ) throws IOException
+    {
+        assert highestSetIndex == -1 && !readyForUse;
+        encoder.load( in );
+        highestSetIndex = in.readLong();
+        for ( long i = 0; i <= highestSetIndex; i++ )
+        {
+            dataCache.set( i, in.readLong() );
+        }
+        dataCache = dataCache.fixate();
+        trackerCache = cacheFactory.newIntArray( highestSetIndex+1, -1 );
+        for ( long i = 0; i <= highestSetIndex; i++ )
+        {
+            trackerCache.set( i, in.readInt() );
+        }
+
+        sortBuckets = new long[in.readInt()][];
+        for ( int k = 0; k < sortBuckets.length; k++ )
+        {
+            sortBuckets[k] = new long[in.readInt()];
+            for ( int i = 0; i < sortBuckets[k].length; i++ )
+            {
+                sortBuckets[k][i] = in.readLong();
+            }
+        }
+
+        int numberOfGroups = in.readInt();
+        for ( int i = 0; i < numberOfGroups; i++ )
+        {
+            int groupId = in.readInt();
+            String name = in.readUTF();
+            IdGroup idGroup = new IdGroup( new Group.Adapter( groupId, name ), in.readLong() );
+            idGroup.setHighDataIndex( in.readLong() );
+            if ( groupId >= idGroups.length )
+            {
+                idGroups = Arrays.copyOf( idGroups, max( groupId+1, idGroups.length*2 ) );
+            }
+            idGroups[groupId] = idGroup;
+        }
+
+        int numberOfCollisions = in.readInt();
+        for ( int i = 0; i < numberOfCollisions; i++ )
+        {
+            byte type = in.readByte();
+            collisionValues.add( type == LONG_VALUE ? (Object) in.readLong() : in.readUTF() );
+            collisionNodeIdCache.set( i, in.readLong() );
+        }
+        readyForUse = true;
+    }
+
     private int radixOf( long value )
     {
         return radix.calculator().radixOf( value );
@@ -359,21 +482,19 @@ public class EncodingIdMapper implements IdMapper
         long max = highestSetIndex; // excluding the last one because we compare i w/ i+1
         long numberOfCollisions = 0;
         SameGroupDetector sameGroupDetector = new SameGroupDetector();
+        // Each item is compared with the next one, which is then carried over to the next comparison. This way
+        // every item is read from the data cache once, where reads are random and may page in from a mapped file
+        int dataIndexB = max > 0 ? trackerCache.get( 0 ) : -1;
+        long eIdB = dataIndexB == -1 ? GAP_VALUE : clearCollision( dataCache.get( dataIndexB ) );
         for ( int i = 0; i < max; )
         {
             int batch = (int) min( max-i, 10_000 );
             for ( int j = 0; j < batch; j++, i++ )
             {
-                int dataIndexA = trackerCache.get( i );
-                int dataIndexB = trackerCache.get( i+1 );
-                if ( dataIndexA == -1 || dataIndexB == -1 )
-                {
-                    sameGroupDetector.reset();
-                    continue;
-                }
-
-                long eIdA = clearCollision( dataCache.get( dataIndexA ) );
-                long eIdB = clearCollision( dataCache.get( dataIndexB ) );
+                int dataIndexA = dataIndexB;
+                long eIdA = eIdB;
+                dataIndexB = trackerCache.get( i+1 );
+                eIdB = dataIndexB == -1 ? GAP_VALUE : clearCollision( dataCache.get( dataIndexB ) );
                 if ( eIdA == GAP_VALUE || eIdB == GAP_VALUE )
                 {
                     sameGroupDetector.reset();
@@ -391,12 +512,6 @@ public class EncodingIdMapper implements IdMapper
                             dataIndexA, groupOf( dataIndexA ).id(),
                             dataIndexB, groupOf( dataIndexB ).id() );
 
-                    if ( dataIndexA > dataIndexB )
-                    {
-                        // Swap so that lower tracker index means lower data index. TODO Why do we do this?
-                        trackerCache.swap( i, i+1, 1 );
-                    }
-
                     if ( collision != -1 )
                     {
                         if ( markAsCollision( collision ) )
@@ -408,6 +523,14 @@ public class EncodingIdMapper implements IdMapper
                             numberOfCollisions++;
                         }
                     }
+
+                    if ( dataIndexA > dataIndexB )
+                    {
+                        // Swap so that lower tracker index means lower data index. TODO Why do we do this?
+                        trackerCache.swap( i, i+1, 1 );
+                        // ...and carry over what now sits at i+1, having the same encoded value
+                        dataIndexB = dataIndexA;
+                    }
                     break;
                 default:
                     sameGroupDetector.reset();
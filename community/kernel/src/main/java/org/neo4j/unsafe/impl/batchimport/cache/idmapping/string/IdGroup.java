@@ -53,6 +53,16 @@ class IdGroup
         return groupId;
     }
 
+    long lowDataIndex()
+    {
+        return lowDataIndex;
+    }
+
+    long highDataIndex()
+    {
+        return highDataIndex;
+    }
+
     String name()
     {
         return group.name();
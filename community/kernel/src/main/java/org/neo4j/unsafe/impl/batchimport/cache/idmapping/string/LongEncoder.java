@@ -19,6 +19,9 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping.string;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+
 import static java.lang.Math.log10;
 import static java.lang.Math.max;
 
@@ -37,6 +40,16 @@ public class LongEncoder implements Encoder
         return returnVal;
     }
 
+    @Override
+    public void save( DataOutput out )
+    {   // Stateless
+    }
+
+    @Override
+    public void load( DataInput in )
+    {   // Stateless
+    }
+
     private static int numberOfDigits( long value )
     {
         return max( 1, (int)(log10( value ) + 1) );
@@ -19,6 +19,9 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping.string;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 
 import static java.lang.Math.max;
@@ -93,6 +96,23 @@ public class StringEncoder implements Encoder
         return codes;
     }
 
+    /**
+     * Writes the character mapping built up by the values encoded so far, which later encodings depend on.
+     */
+    @Override
+    public void save( DataOutput out ) throws IOException
+    {
+        out.writeInt( numChars );
+        out.write( reMap );
+    }
+
+    @Override
+    public void load( DataInput in ) throws IOException
+    {
+        numChars = in.readInt();
+        in.readFully( reMap );
+    }
+
     private int lengthEncoder( int length )
     {
         if ( length < 32 )
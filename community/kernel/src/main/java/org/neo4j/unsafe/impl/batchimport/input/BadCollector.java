@@ -22,6 +22,7 @@ package org.neo4j.unsafe.impl.batchimport.input;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
@@ -49,7 +50,8 @@ public class BadCollector implements Collector
     public static final int BAD_RELATIONSHIPS = 0x1;
     public static final int DUPLICATE_NODES = 0x2;
     public static final int EXTRA_COLUMNS = 0x4;
-    public static final int COLLECT_ALL = BAD_RELATIONSHIPS | DUPLICATE_NODES | EXTRA_COLUMNS;
+    public static final int CONSTRAINT_VIOLATIONS = 0x8;
+    public static final int COLLECT_ALL = BAD_RELATIONSHIPS | DUPLICATE_NODES | EXTRA_COLUMNS | CONSTRAINT_VIOLATIONS;
 
     private final PrintStream out;
     private final int tolerance;
@@ -57,9 +59,9 @@ public class BadCollector implements Collector
     private long[] leftOverDuplicateNodeIds = new long[10];
     private int leftOverDuplicateNodeIdsCursor;
 
-    // volatile since one importer thread calls collect(), where this value is incremented and later the "main"
-    // thread calls badEntries() to get a count.
-    private volatile int badEntries;
+    // atomic since multiple threads may collect concurrently, f.ex. parsing threads reporting extra columns,
+    // and later the "main" thread calls badEntries() to get a count.
+    private final AtomicInteger badEntries = new AtomicInteger();
 
     public BadCollector( OutputStream out, int tolerance, int collect )
     {
@@ -137,6 +139,29 @@ public class BadCollector implements Collector
         } );
     }
 
+    @Override
+    public void collectConstraintViolation( final InputNode node, final String constraint, final Object value,
+            final long existingNodeId )
+    {
+        checkTolerance( CONSTRAINT_VIOLATIONS, new ProblemReporter()
+        {
+            private final String message = format( "%s violates %s with value %s, already held by node %d",
+                    node, constraint, value, existingNodeId );
+
+            @Override
+            public String message()
+            {
+                return message;
+            }
+
+            @Override
+            public InputException exception()
+            {
+                return new InputException( message );
+            }
+        } );
+    }
+
     @Override
     public PrimitiveLongIterator leftOverDuplicateNodesIds()
     {
@@ -154,7 +179,7 @@ public class BadCollector implements Collector
     @Override
     public int badEntries()
     {
-        return badEntries;
+        return badEntries.get();
     }
 
     private boolean collects( int bit )
@@ -165,17 +190,22 @@ public class BadCollector implements Collector
     private void checkTolerance( int bit, ProblemReporter report )
     {
         boolean collect = collects( bit );
+        int count = 0;
         if ( collect )
         {
-            out.println( report.message() );
-            badEntries++;
+            // Print and count under the same lock so that the printed messages and the count agree
+            synchronized ( out )
+            {
+                out.println( report.message() );
+                count = badEntries.incrementAndGet();
+            }
         }
 
-        if ( !collect || badEntries > tolerance )
+        if ( !collect || count > tolerance )
         {
             InputException exception = report.exception();
             throw collect
-                    ? withMessage( exception, format( "Too many bad entries %d, where last one was: %s", badEntries,
+                    ? withMessage( exception, format( "Too many bad entries %d, where last one was: %s", count,
                             exception.getMessage() ) )
                     : exception;
         }
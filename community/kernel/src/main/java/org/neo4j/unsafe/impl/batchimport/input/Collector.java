@@ -33,6 +33,13 @@ public interface Collector extends AutoCloseable
 
     void collectExtraColumns( final String source, final long row, final String value );
 
+    /**
+     * Collects a node having a property value which another node, with id {@code existingNodeId}, already has,
+     * where a uniqueness constraint says that only one node may have it. The node is still imported,
+     * although without that property.
+     */
+    void collectConstraintViolation( InputNode node, String constraint, Object value, long existingNodeId );
+
     int badEntries();
 
     /**
@@ -74,9 +74,16 @@ public class Collectors
     }
 
     public static int collect( boolean skipBadRelationships, boolean skipDuplicateNodes, boolean ignoreExtraColumns )
+    {
+        return collect( skipBadRelationships, skipDuplicateNodes, ignoreExtraColumns, false );
+    }
+
+    public static int collect( boolean skipBadRelationships, boolean skipDuplicateNodes, boolean ignoreExtraColumns,
+            boolean skipConstraintViolations )
     {
         return (skipBadRelationships ? BadCollector.BAD_RELATIONSHIPS : 0 ) |
                (skipDuplicateNodes ? BadCollector.DUPLICATE_NODES : 0 ) |
-               (ignoreExtraColumns ? BadCollector.EXTRA_COLUMNS : 0 );
+               (ignoreExtraColumns ? BadCollector.EXTRA_COLUMNS : 0 ) |
+               (skipConstraintViolations ? BadCollector.CONSTRAINT_VIOLATIONS : 0 );
     }
 }
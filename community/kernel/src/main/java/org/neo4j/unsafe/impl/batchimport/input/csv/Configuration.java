@@ -35,8 +35,20 @@ public interface Configuration extends org.neo4j.csv.reader.Configuration
      */
     char arrayDelimiter();
 
+    /**
+     * Number of threads parsing each input source, each thread parsing its own chunk of the data.
+     * Chunks are split at line boundaries and parsed entities are provided in the order they appear
+     * in the data. A value of {@code 1} parses the data sequentially, as it's read.
+     */
+    int parsingThreads();
+
     abstract class Default extends org.neo4j.csv.reader.Configuration.Default implements Configuration
     {
+        @Override
+        public int parsingThreads()
+        {
+            return 1;
+        }
     }
 
     Configuration COMMAS = new Default()
@@ -90,5 +102,11 @@ public interface Configuration extends org.neo4j.csv.reader.Configuration
         {
             return defaults.arrayDelimiter();
         }
+
+        @Override
+        public int parsingThreads()
+        {
+            return defaults.parsingThreads();
+        }
     }
 }
@@ -19,6 +19,7 @@
  */
 package org.neo4j.unsafe.impl.batchimport.input.csv;
 
+import org.neo4j.csv.reader.CharReadable;
 import org.neo4j.csv.reader.CharSeeker;
 import org.neo4j.function.Function;
 import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
@@ -31,5 +32,13 @@ public interface Data<ENTITY extends InputEntity>
 {
     CharSeeker stream();
 
+    /**
+     * Used instead of {@link #stream()} when parsing the data in parallel, where the raw characters are split
+     * up into chunks which are parsed by {@link CharSeeker seekers} of their own.
+     *
+     * @return the raw characters of the data, or {@code null} if the data can only be read using {@link #stream()}.
+     */
+    CharReadable readable();
+
     Function<ENTITY,ENTITY> decorator();
 }
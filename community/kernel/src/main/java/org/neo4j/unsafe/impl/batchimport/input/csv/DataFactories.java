@@ -76,10 +76,16 @@ public class DataFactories
                 {
                     @Override
                     public CharSeeker stream()
+                    {
+                        return charSeeker( readable(), config, true );
+                    }
+
+                    @Override
+                    public CharReadable readable()
                     {
                         try
                         {
-                            return charSeeker( files( charset, files ), config, true );
+                            return files( charset, files );
                         }
                         catch ( IOException e )
                         {
@@ -118,6 +124,12 @@ public class DataFactories
                         return charSeeker( readable.get(), config, true );
                     }
 
+                    @Override
+                    public CharReadable readable()
+                    {
+                        return readable.get();
+                    }
+
                     @Override
                     public Function<ENTITY,ENTITY> decorator()
                     {
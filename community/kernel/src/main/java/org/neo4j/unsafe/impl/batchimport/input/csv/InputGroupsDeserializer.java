@@ -21,7 +21,9 @@ package org.neo4j.unsafe.impl.batchimport.input.csv;
 
 import java.util.Iterator;
 
+import org.neo4j.csv.reader.CharReadable;
 import org.neo4j.csv.reader.CharSeeker;
+import org.neo4j.function.BiFunction;
 import org.neo4j.function.Function;
 import org.neo4j.helpers.collection.NestingIterator;
 import org.neo4j.unsafe.impl.batchimport.InputIterator;
@@ -30,7 +32,8 @@ import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
 /**
  * Able to deserialize one input group. An input group is a list of one or more input files containing
  * its own header. An import can read multiple input groups. Each group is deserialized by
- * {@link InputEntityDeserializer}.
+ * {@link InputEntityDeserializer}, or by {@link ParallelInputEntityDeserializer} if configured to use
+ * more than one {@link Configuration#parsingThreads() parsing thread}.
  */
 abstract class InputGroupsDeserializer<ENTITY extends InputEntity>
         extends NestingIterator<ENTITY,DataFactory<ENTITY>>
@@ -58,7 +61,27 @@ abstract class InputGroupsDeserializer<ENTITY extends InputEntity>
         closeCurrent();
 
         // Open the data stream. It's closed by the batch importer when execution is done.
-        Data<ENTITY> data = dataFactory.create( config );
+        final Data<ENTITY> data = dataFactory.create( config );
+        CharReadable readable = config.parsingThreads() > 1 ? data.readable() : null;
+        if ( readable != null )
+        {
+            BiFunction<CharSeeker,Header,InputEntityDeserializer<ENTITY>> chunkDeserializer =
+                    new BiFunction<CharSeeker,Header,InputEntityDeserializer<ENTITY>>()
+            {
+                @Override
+                public InputEntityDeserializer<ENTITY> apply( CharSeeker dataStream, Header dataHeader )
+                {
+                    return entityDeserializer( dataStream, dataHeader, data.decorator() );
+                }
+            };
+            ParallelInputEntityDeserializer<ENTITY> input = new ParallelInputEntityDeserializer<>( readable,
+                    headerFactory, config, idType, chunkDeserializer );
+            currentInput = input;
+            currentInputOpen = true;
+            input.initialize();
+            return currentInput;
+        }
+
         CharSeeker dataStream = data.stream();
 
         // Read the header, given the data stream. This allows the header factory to be able to
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.input.csv;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.csv.reader.CharReadable;
+import org.neo4j.csv.reader.CharSeeker;
+import org.neo4j.csv.reader.Chunker;
+import org.neo4j.csv.reader.Chunker.Chunk;
+import org.neo4j.csv.reader.Readables;
+import org.neo4j.function.BiFunction;
+import org.neo4j.helpers.Exceptions;
+import org.neo4j.helpers.NamedThreadFactory;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.unsafe.impl.batchimport.InputIterator;
+import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
+import org.neo4j.unsafe.impl.batchimport.input.InputException;
+
+import static org.neo4j.csv.reader.CharSeekers.charSeeker;
+import static org.neo4j.csv.reader.ThreadAheadReadable.threadAhead;
+
+/**
+ * Deserializes one input source using multiple threads. The data is split up by a {@link Chunker} into chunks
+ * of complete lines and each chunk is deserialized by an {@link InputEntityDeserializer} of its own on one
+ * of the threads. Entities are returned in the order they appear in the data, so apart from the parallelism
+ * this behaves like a single {@link InputEntityDeserializer} over all the data.
+ *
+ * Chunks are read and deserializers created by the thread iterating over this iterator, so neither
+ * {@link Header.Factory} nor {@link InputEntityDeserializer#initialize()} need to be thread safe. The
+ * {@link Header} and its extractors are cloned for each chunk.
+ */
+class ParallelInputEntityDeserializer<ENTITY extends InputEntity> extends PrefetchingIterator<ENTITY>
+        implements InputIterator<ENTITY>
+{
+    private final CharReadable readable;
+    private final Header.Factory headerFactory;
+    private final Configuration config;
+    private final IdType idType;
+    private final BiFunction<CharSeeker,Header,InputEntityDeserializer<ENTITY>> deserializerFactory;
+    private final int threads;
+    private final Deque<Future<ParsedChunk>> chunksInFlight = new ArrayDeque<>();
+    private Chunker chunker;
+    private ExecutorService executor;
+    private Header header;
+    private CharSeeker firstChunk;
+    private boolean allChunksSubmitted;
+    private ParsedChunk current;
+    private Iterator<ENTITY> currentEntities = Collections.emptyIterator();
+
+    ParallelInputEntityDeserializer( CharReadable readable, Header.Factory headerFactory, Configuration config,
+            IdType idType, BiFunction<CharSeeker,Header,InputEntityDeserializer<ENTITY>> deserializerFactory )
+    {
+        this.readable = readable;
+        this.headerFactory = headerFactory;
+        this.config = config;
+        this.idType = idType;
+        this.deserializerFactory = deserializerFactory;
+        this.threads = config.parsingThreads();
+    }
+
+    /**
+     * Reads the header, which may be the first line of the first chunk, and starts the parsing threads.
+     */
+    public void initialize()
+    {
+        chunker = new Chunker( threadAhead( readable, config.bufferSize() ), config, config.delimiter() );
+        Chunk chunk = readChunk();
+        firstChunk = chunk != null ? chunk.seeker() : charSeeker( Readables.EMPTY, config, false );
+        header = headerFactory.create( firstChunk, config, idType );
+        executor = Executors.newFixedThreadPool( threads, NamedThreadFactory.daemon( "InputParser" ) );
+    }
+
+    @Override
+    protected ENTITY fetchNextOrNull()
+    {
+        while ( !currentEntities.hasNext() )
+        {
+            if ( !nextChunk() )
+            {
+                return null;
+            }
+        }
+        return currentEntities.next();
+    }
+
+    private boolean nextChunk()
+    {
+        submitChunks();
+        Future<ParsedChunk> next = chunksInFlight.poll();
+        if ( next == null )
+        {
+            return false;
+        }
+
+        try
+        {
+            current = next.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InputException( "Interrupted while waiting for input to be parsed", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw Exceptions.launderedException( e.getCause() );
+        }
+        currentEntities = current.entities.iterator();
+        return true;
+    }
+
+    /**
+     * Keeps all threads busy by having one chunk in flight per thread.
+     */
+    private void submitChunks()
+    {
+        while ( !allChunksSubmitted && chunksInFlight.size() < threads )
+        {
+            CharSeeker seeker;
+            if ( firstChunk != null )
+            {   // The first chunk may have been partly read already, by the header factory
+                seeker = firstChunk;
+                firstChunk = null;
+            }
+            else
+            {
+                Chunk chunk = readChunk();
+                if ( chunk == null )
+                {
+                    allChunksSubmitted = true;
+                    break;
+                }
+                seeker = chunk.seeker();
+            }
+
+            InputEntityDeserializer<ENTITY> deserializer = deserializerFactory.apply( seeker, header.clone() );
+            deserializer.initialize();
+            chunksInFlight.add( executor.submit( new ParsedChunk( deserializer ) ) );
+        }
+    }
+
+    private Chunk readChunk()
+    {
+        try
+        {
+            return chunker.nextChunk();
+        }
+        catch ( IOException e )
+        {
+            throw new InputException( "Unable to read more data from input stream", e );
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if ( executor != null )
+        {
+            executor.shutdownNow();
+        }
+        try
+        {
+            if ( chunker != null )
+            {
+                chunker.close();
+            }
+            else
+            {
+                readable.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new InputException( "Unable to close data iterator", e );
+        }
+    }
+
+    @Override
+    public long position()
+    {
+        return current != null ? current.deserializer.position() : 0;
+    }
+
+    @Override
+    public String sourceDescription()
+    {
+        return current != null ? current.deserializer.sourceDescription() : readable.sourceDescription();
+    }
+
+    @Override
+    public long lineNumber()
+    {
+        return current != null ? current.deserializer.lineNumber() : 0;
+    }
+
+    /**
+     * Deserializes all entities of one chunk, when called by one of the parsing threads.
+     */
+    private class ParsedChunk implements Callable<ParsedChunk>
+    {
+        private final InputEntityDeserializer<ENTITY> deserializer;
+        private final List<ENTITY> entities = new ArrayList<>();
+
+        ParsedChunk( InputEntityDeserializer<ENTITY> deserializer )
+        {
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public ParsedChunk call()
+        {
+            try
+            {
+                while ( deserializer.hasNext() )
+                {
+                    entities.add( deserializer.next() );
+                }
+                return this;
+            }
+            finally
+            {
+                deserializer.close();
+            }
+        }
+    }
+}
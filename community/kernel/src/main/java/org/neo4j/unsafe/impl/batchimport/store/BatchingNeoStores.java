@@ -28,23 +28,38 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.IdType;
+import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.extension.KernelExtensionFactory;
 import org.neo4j.kernel.extension.KernelExtensions;
 import org.neo4j.kernel.extension.UnsatisfiedDependencyStrategies;
+import org.neo4j.kernel.impl.api.index.SchemaIndexProviderMap;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.pagecache.ConfiguringPageCacheFactory;
+import org.neo4j.kernel.impl.recovery.RecoveryRequiredChecker;
 import org.neo4j.kernel.impl.spi.KernelContext;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.RelationshipGroupStore;
 import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.SchemaStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.IndexRule;
+import org.neo4j.kernel.impl.store.record.SchemaRule;
+import org.neo4j.kernel.impl.store.record.UniquePropertyConstraintRule;
+import org.neo4j.kernel.impl.transaction.state.DefaultSchemaIndexProviderMap;
 import org.neo4j.kernel.impl.transaction.state.NeoStoresSupplier;
 import org.neo4j.kernel.impl.util.Dependencies;
 import org.neo4j.kernel.lifecycle.LifeSupport;
@@ -53,6 +68,7 @@ import org.neo4j.logging.NullLogProvider;
 import org.neo4j.unsafe.impl.batchimport.AdditionalInitialIds;
 import org.neo4j.unsafe.impl.batchimport.Configuration;
 import org.neo4j.unsafe.impl.batchimport.ParallelBatchImporter;
+import org.neo4j.unsafe.impl.batchimport.SchemaIndexDefinition;
 import org.neo4j.unsafe.impl.batchimport.store.BatchingTokenRepository.BatchingLabelTokenRepository;
 import org.neo4j.unsafe.impl.batchimport.store.BatchingTokenRepository.BatchingPropertyKeyTokenRepository;
 import org.neo4j.unsafe.impl.batchimport.store.BatchingTokenRepository.BatchingRelationshipTypeTokenRepository;
@@ -81,10 +97,37 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
     private final NeoStores neoStores;
     private final LifeSupport life = new LifeSupport();
     private final LabelScanStore labelScanStore;
+    private final SchemaIndexProviderMap schemaIndexProviders;
     private final IoTracer ioTracer;
+    private final BatchingIdGeneratorFactory idGeneratorFactory;
 
     public BatchingNeoStores( FileSystemAbstraction fileSystem, File storeDir, Configuration config,
             LogService logService, AdditionalInitialIds initialIds )
+    {
+        this( fileSystem, storeDir, config, logService, initialIds, false );
+    }
+
+    /**
+     * @param incremental whether or not to import into a store which may already contain data. Such a store
+     * must have been shut down cleanly and its tokens are used by the import. Otherwise the store must be empty
+     * and gets its initial ids from {@code initialIds}.
+     */
+    public BatchingNeoStores( FileSystemAbstraction fileSystem, File storeDir, Configuration config,
+            LogService logService, AdditionalInitialIds initialIds, boolean incremental )
+    {
+        this( fileSystem, storeDir, config, logService, initialIds, incremental, false );
+    }
+
+    /**
+     * @param incremental whether or not to import into a store which may already contain data. Such a store
+     * must have been shut down cleanly and its tokens are used by the import. Otherwise the store must be empty
+     * and gets its initial ids from {@code initialIds}.
+     * @param resume whether or not to resume an import which previously failed in this store, in which case
+     * the store contains data from that import and its tokens are used. High ids are expected to be
+     * {@link #setHighId(IdType, long) rolled back} to those of the last completed import stage.
+     */
+    public BatchingNeoStores( FileSystemAbstraction fileSystem, File storeDir, Configuration config,
+            LogService logService, AdditionalInitialIds initialIds, boolean incremental, boolean resume )
     {
         this.fileSystem = fileSystem;
         this.logProvider = logService.getInternalLogProvider();
@@ -103,8 +146,22 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
                 return tracer.countBytesWritten();
             }
         };
+        if ( incremental && recoveryRequired( fileSystem, storeDir, pageCache ) )
+        {
+            try
+            {
+                pageCache.close();
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+            throw new IllegalStateException( storeDir + " was not shut down cleanly, start and shut down a " +
+                    "database on it before importing into it" );
+        }
+        this.idGeneratorFactory = new BatchingIdGeneratorFactory( fileSystem );
         this.neoStores = newNeoStores( pageCache );
-        if ( alreadyContainsData( neoStores ) )
+        if ( !incremental && !resume && alreadyContainsData( neoStores ) )
         {
             neoStores.close();
             throw new IllegalStateException( storeDir + " already contains data, cannot do import here" );
@@ -117,15 +174,25 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
         {
             throw new UnderlyingStorageException( e );
         }
-        neoStores.getMetaDataStore().setLastCommittedAndClosedTransactionId(
-                initialIds.lastCommittedTransactionId(), initialIds.lastCommittedTransactionChecksum(),
-                initialIds.lastCommittedTransactionLogVersion(), initialIds.lastCommittedTransactionLogByteOffset() );
+        if ( !incremental && !resume )
+        {
+            neoStores.getMetaDataStore().setLastCommittedAndClosedTransactionId(
+                    initialIds.lastCommittedTransactionId(), initialIds.lastCommittedTransactionChecksum(),
+                    initialIds.lastCommittedTransactionLogVersion(),
+                    initialIds.lastCommittedTransactionLogByteOffset() );
+        }
         this.propertyKeyRepository = new BatchingPropertyKeyTokenRepository(
                 neoStores.getPropertyKeyTokenStore(), initialIds.highPropertyKeyTokenId() );
         this.labelRepository = new BatchingLabelTokenRepository(
                 neoStores.getLabelTokenStore(), initialIds.highLabelTokenId() );
         this.relationshipTypeRepository = new BatchingRelationshipTypeTokenRepository(
                 neoStores.getRelationshipTypeTokenStore(), initialIds.highRelationshipTypeTokenId() );
+        if ( incremental || resume )
+        {
+            propertyKeyRepository.loadExistingTokens();
+            labelRepository.loadExistingTokens();
+            relationshipTypeRepository.loadExistingTokens();
+        }
 
         // Initialze kernel extensions
         Dependencies dependencies = new Dependencies();
@@ -133,6 +200,7 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
         dependencies.satisfyDependency( fileSystem );
         dependencies.satisfyDependency( this );
         dependencies.satisfyDependency( logService );
+        dependencies.satisfyDependency( pageCache );
         KernelContext kernelContext = new KernelContext()
         {
             @Override
@@ -152,6 +220,10 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
                 kernelContext, (Iterable) Service.load( KernelExtensionFactory.class ),
                 dependencies, UnsatisfiedDependencyStrategies.ignore() ) );
         life.start();
+        SchemaIndexProvider provider = extensions.resolveDependency( SchemaIndexProvider.class,
+                SchemaIndexProvider.HIGHEST_PRIORITIZED_OR_NONE );
+        schemaIndexProviders = new DefaultSchemaIndexProviderMap( provider,
+                DefaultSchemaIndexProviderMap.allProviders( extensions ) );
         labelScanStore = life.add( extensions.resolveDependency( LabelScanStoreProvider.class,
                 LabelScanStoreProvider.HIGHEST_PRIORITIZED ).getLabelScanStore() );
     }
@@ -163,6 +235,18 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
                 log.getLog( BatchingNeoStores.class ) ).getOrCreatePageCache();
     }
 
+    private static boolean recoveryRequired( FileSystemAbstraction fileSystem, File storeDir, PageCache pageCache )
+    {
+        try
+        {
+            return new RecoveryRequiredChecker( fileSystem, pageCache ).isRecoveryRequiredAt( storeDir );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
     private boolean alreadyContainsData( NeoStores neoStores )
     {
         return neoStores.getNodeStore().getHighId() > 0 || neoStores.getRelationshipStore().getHighId() > 0;
@@ -196,7 +280,6 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
 
     private NeoStores newNeoStores( PageCache pageCache )
     {
-        BatchingIdGeneratorFactory idGeneratorFactory = new BatchingIdGeneratorFactory( fileSystem );
         StoreFactory storeFactory =
                 new StoreFactory( storeDir, neo4jConfig, idGeneratorFactory, pageCache, fileSystem, logProvider );
         return storeFactory.openAllNeoStores( true );
@@ -242,11 +325,43 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
         return neoStores.getRelationshipGroupStore();
     }
 
+    /**
+     * @return high id of records of the given type.
+     */
+    public long getHighId( IdType idType )
+    {
+        return idGeneratorFactory.get( idType ).getHighId();
+    }
+
+    /**
+     * Sets the high id of records of the given type, unlike {@link NodeStore#setHighId(long)} and friends
+     * also to a lower value. Records above it are overwritten by the import, which is what resuming an import
+     * needs for records written by an import stage which didn't complete.
+     */
+    public void setHighId( IdType idType, long highId )
+    {
+        idGeneratorFactory.get( idType ).setHighId( highId );
+    }
+
     public CountsTracker getCountsStore()
     {
         return neoStores.getCounts();
     }
 
+    /**
+     * Makes everything written so far durable, i.e. writes created tokens to their stores and forces the stores
+     * and the label scan store. Schema indexes are committed by their populators when closed, at the end of the
+     * stage populating them. The counts store isn't written to until the import is closed.
+     */
+    public void flushAndForce() throws IOException
+    {
+        propertyKeyRepository.flush();
+        labelRepository.flush();
+        relationshipTypeRepository.flush();
+        labelScanStore.force();
+        pageCache.flushAndForce();
+    }
+
     @Override
     public void close() throws IOException
     {
@@ -271,6 +386,91 @@ public class BatchingNeoStores implements AutoCloseable, NeoStoresSupplier
         return labelScanStore;
     }
 
+    /**
+     * Creates the schema rules of the given index, or uniqueness constraint and its index, creating label and
+     * property key tokens as needed.
+     *
+     * @param definition index or uniqueness constraint to create.
+     * @return the created {@link IndexRule}, which can be populated using {@link #newSchemaIndexPopulator(IndexRule)}.
+     */
+    public IndexRule createSchemaIndex( SchemaIndexDefinition definition )
+    {
+        int labelId = labelRepository.getOrCreateId( definition.label() );
+        String[] propertyKeys = definition.propertyKeys();
+        int[] propertyKeyIds = new int[propertyKeys.length];
+        for ( int i = 0; i < propertyKeys.length; i++ )
+        {
+            propertyKeyIds[i] = propertyKeyRepository.getOrCreateId( propertyKeys[i] );
+        }
+
+        SchemaStore schemaStore = neoStores.getSchemaStore();
+        SchemaIndexProvider.Descriptor providerDescriptor =
+                schemaIndexProviders.getDefaultProvider().getProviderDescriptor();
+        IndexRule indexRule;
+        if ( definition.isUnique() )
+        {
+            long indexRuleId = schemaStore.nextId();
+            long constraintRuleId = schemaStore.nextId();
+            indexRule = IndexRule.constraintIndexRule( indexRuleId, labelId, propertyKeyIds[0], providerDescriptor,
+                    constraintRuleId );
+            writeSchemaRule( schemaStore, UniquePropertyConstraintRule.uniquenessConstraintRule(
+                    constraintRuleId, labelId, propertyKeyIds[0], indexRuleId ) );
+        }
+        else
+        {
+            indexRule = IndexRule.indexRule( schemaStore.nextId(), labelId, propertyKeyIds, providerDescriptor );
+        }
+        writeSchemaRule( schemaStore, indexRule );
+        return indexRule;
+    }
+
+    private static void writeSchemaRule( SchemaStore schemaStore, SchemaRule rule )
+    {
+        for ( DynamicRecord record : schemaStore.allocateFrom( rule ) )
+        {
+            schemaStore.updateRecord( record );
+        }
+    }
+
+    /**
+     * @param indexRule index to get a populator for.
+     * @return a {@link IndexPopulator#create() created} populator for the given index, the caller is responsible
+     * for closing it.
+     */
+    public IndexPopulator newSchemaIndexPopulator( IndexRule indexRule ) throws IOException
+    {
+        IndexDescriptor descriptor = new IndexDescriptor( indexRule.getLabel(), indexRule.getPropertyKeys() );
+        IndexPopulator populator = schemaIndexProviders.apply( indexRule.getProviderDescriptor() )
+                .getPopulator( indexRule.getId(), descriptor,
+                        new IndexConfiguration( indexRule.isConstraintIndex() ),
+                        new IndexSamplingConfig( neo4jConfig ) );
+        populator.create();
+        return populator;
+    }
+
+    /**
+     * Empties all schema indexes and leaves them populating, so that the database rebuilds them when it next
+     * starts. Used after importing into a store which already has indexes, since the importer doesn't update them.
+     */
+    public void resetSchemaIndexesForRebuild() throws IOException, IndexCapacityExceededException
+    {
+        for ( SchemaRule rule : neoStores.getSchemaStore() )
+        {
+            if ( rule.getKind().isIndex() )
+            {
+                resetSchemaIndexForRebuild( (IndexRule) rule );
+            }
+        }
+    }
+
+    /**
+     * Empties the given schema index and leaves it populating, so that the database rebuilds it when it next starts.
+     */
+    public void resetSchemaIndexForRebuild( IndexRule indexRule ) throws IOException, IndexCapacityExceededException
+    {
+        newSchemaIndexPopulator( indexRule ).close( false );
+    }
+
     @Override
     public NeoStores get()
     {
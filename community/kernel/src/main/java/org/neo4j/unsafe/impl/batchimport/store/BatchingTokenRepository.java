@@ -39,7 +39,7 @@ import static java.lang.Math.max;
 
 /**
  * Batching version of a {@link TokenStore} where tokens can be created and retrieved, but only persisted
- * to storage as part of {@link #close() closing}.
+ * to storage when {@link #flush() flushed}, which happens as part of {@link #close() closing}.
  */
 public abstract class BatchingTokenRepository<RECORD extends TokenRecord, TOKEN extends Token>
 {
@@ -47,14 +47,29 @@ public abstract class BatchingTokenRepository<RECORD extends TokenRecord, TOKEN
     private final Map<String,Integer> tokens = new HashMap<>();
     private final TokenStore<RECORD, TOKEN> store;
     private int highId;
+    // Tokens with lower ids than this were loaded from, or flushed to, the store and so are not created again
+    private int highExistingId;
 
     public BatchingTokenRepository( TokenStore<RECORD,TOKEN> store, int highId )
     {
         this.store = store;
-        // TODO read the store into the repository, i.e. into existing?
         this.highId = highId;
     }
 
+    /**
+     * Reads the tokens already in the store into this repository, so that an import into an existing store
+     * uses them instead of creating new tokens with the same names.
+     */
+    public void loadExistingTokens()
+    {
+        for ( TOKEN token : store.getTokens( Integer.MAX_VALUE ) )
+        {
+            tokens.put( token.name(), token.id() );
+            highId = max( highId, token.id() + 1 );
+        }
+        highExistingId = highId;
+    }
+
     public int getOrCreateId( String name )
     {
         assert name != null;
@@ -117,6 +132,14 @@ public abstract class BatchingTokenRepository<RECORD extends TokenRecord, TOKEN
     protected abstract RECORD createRecord( int key );
 
     public void close()
+    {
+        flush();
+    }
+
+    /**
+     * Persists the tokens created since they were last flushed.
+     */
+    public void flush()
     {
         // Batch-friendly record access
         BatchingRecordAccess<Integer, RECORD, Void> recordAccess = new BatchingRecordAccess<Integer, RECORD, Void>()
@@ -145,6 +168,7 @@ public abstract class BatchingTokenRepository<RECORD extends TokenRecord, TOKEN
             highestId = max( highestId, record.getId() );
         }
         store.setHighestPossibleIdInUse( highestId );
+        highExistingId = highId;
     }
 
     private Iterable<Map.Entry<Integer,String>> sortCreatedTokensById()
@@ -152,7 +176,10 @@ public abstract class BatchingTokenRepository<RECORD extends TokenRecord, TOKEN
         Map<Integer,String> sorted = new TreeMap<>();
         for ( Map.Entry<String,Integer> entry : tokens.entrySet() )
         {
-            sorted.put( entry.getValue(), entry.getKey() );
+            if ( entry.getValue() >= highExistingId )
+            {
+                sorted.put( entry.getValue(), entry.getKey() );
+            }
         }
         return sorted.entrySet();
     }
@@ -32,6 +32,7 @@ import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.test.ImpermanentDatabaseRule;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -48,7 +49,9 @@ import static org.neo4j.graphdb.Neo4jMatchers.getIndexes;
 import static org.neo4j.graphdb.Neo4jMatchers.isEmpty;
 import static org.neo4j.graphdb.Neo4jMatchers.waitForIndex;
 import static org.neo4j.helpers.collection.Iterables.count;
+import static org.neo4j.helpers.collection.Iterables.toList;
 import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.helpers.collection.IteratorUtil.single;
 
 public class SchemaAcceptanceTest
 {
@@ -156,7 +159,31 @@ public class SchemaAcceptanceTest
     }
 
     @Test
-    public void shouldThrowConstraintViolationIfAskedToCreateCompoundIndex() throws Exception
+    public void shouldCreateCompoundIndexOnPropertyKeysInTheOrderGiven() throws Exception
+    {
+        // WHEN
+        IndexDefinition index;
+        try ( Transaction tx = db.beginTx() )
+        {
+            index = db.schema().indexFor( label )
+                    .on( "other_property" )
+                    .on( "my_property_key" ).create();
+            tx.success();
+        }
+        waitForIndex( db, index );
+
+        // THEN
+        try ( Transaction tx = db.beginTx() )
+        {
+            IndexDefinition found = single( db.schema().getIndexes( label ) );
+            assertEquals( asList( "other_property", "my_property_key" ), toList( found.getPropertyKeys() ) );
+            assertEquals( Schema.IndexState.ONLINE, db.schema().getIndexState( found ) );
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldThrowConstraintViolationIfAskedToIncludePropertyTwiceInCompoundIndex() throws Exception
     {
         // WHEN
         try ( Transaction tx = db.beginTx() )
@@ -164,14 +191,33 @@ public class SchemaAcceptanceTest
             Schema schema = db.schema();
             schema.indexFor( label )
                     .on( "my_property_key" )
-                    .on( "other_property" ).create();
+                    .on( "my_property_key" ).create();
             tx.success();
-            fail( "Should not be able to create index on multiple propertyKey keys" );
+            fail( "Should not be able to include a property key twice" );
         }
-        catch ( UnsupportedOperationException e )
+        catch ( ConstraintViolationException e )
+        {
+            assertThat( e.getMessage(), containsString( "my_property_key" ) );
+        }
+    }
+
+    @Test
+    public void droppingCompoundIndexShouldLeaveSinglePropertyIndexOnSameLabel() throws Exception
+    {
+        // GIVEN
+        IndexDefinition single = createIndex( db, label, propertyKey );
+        IndexDefinition compound;
+        try ( Transaction tx = db.beginTx() )
         {
-            assertThat( e.getMessage(), containsString( "Compound indexes" ) );
+            compound = db.schema().indexFor( label ).on( propertyKey ).on( "other_property" ).create();
+            tx.success();
         }
+
+        // WHEN
+        dropIndex( compound );
+
+        // THEN
+        assertThat( getIndexes( db, label ), containsOnly( single ) );
     }
 
     @Test
@@ -56,6 +56,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -110,6 +111,26 @@ public class KernelTransactionImplementationTest
         verifyNoMoreInteractions( transactionMonitor );
     }
 
+    @Test
+    public void shouldReportTransactionStateSpilledOffHeapWhenClosing() throws Exception
+    {
+        // GIVEN
+        try ( KernelTransaction transaction = newTransaction( 1024 ) )
+        {
+            // WHEN
+            for ( long nodeId = 0; nodeId < 1_000; nodeId++ )
+            {
+                ((KernelTransactionImplementation) transaction).txState().nodeDoCreate( nodeId );
+            }
+            transaction.failure();
+        }
+
+        // THEN
+        verify( transactionMonitor, times( 1 ) ).transactionStateSpilled( anyLong() );
+        verify( transactionMonitor, times( 1 ) ).transactionFinished( false );
+        verifyNoMoreInteractions( transactionMonitor );
+    }
+
     @Test
     public void shouldRollbackAndThrowOnFailedAndSuccess() throws Exception
     {
@@ -394,6 +415,11 @@ public class KernelTransactionImplementationTest
     }
 
     private KernelTransactionImplementation newTransaction()
+    {
+        return newTransaction( 0 );
+    }
+
+    private KernelTransactionImplementation newTransaction( long txStateIdSetsOffHeapThreshold )
     {
         StoreReadLayer readLayer = mock(StoreReadLayer.class);
         when(readLayer.acquireStatement()).thenReturn( mock(StoreStatement.class) );
@@ -401,7 +427,8 @@ public class KernelTransactionImplementationTest
         KernelTransactionImplementation transaction = new KernelTransactionImplementation(
                 null, null, null, null, null, recordState, null, neoStores, new NoOpClient(),
                 hooks, null, headerInformationFactory, commitProcess, transactionMonitor, readLayer, legacyIndexState,
-                pool, mock(ConstraintSemantics.class), clock, TransactionTracer.NULL, new ProcedureCache() );
+                pool, mock(ConstraintSemantics.class), clock, TransactionTracer.NULL, new ProcedureCache(),
+                txStateIdSetsOffHeapThreshold );
         transaction.initialize( 0 );
         return transaction;
     }
@@ -24,11 +24,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
@@ -40,6 +43,8 @@ import static java.util.Collections.singletonList;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.neo4j.kernel.api.index.IndexOrder.ASCENDING;
+import static org.neo4j.kernel.api.index.IndexOrder.DESCENDING;
 
 public abstract class IndexAccessorCompatibility extends IndexProviderCompatibilityTestSuite.Compatibility
 {
@@ -137,7 +142,54 @@ public abstract class IndexAccessorCompatibility extends IndexProviderCompatibil
         assertThat( getAllNodesFromIndexSeekByPrefix( "2" ), equalTo( EMPTY_LIST ) );
     }
 
-    protected List<Long> getAllNodesWithProperty( String propertyValue ) throws IOException
+    @Test
+    public void testOrderedIndexSeekByNumber() throws Exception
+    {
+        updateAndCommit( asList(
+                NodePropertyUpdate.add( 1L, PROPERTY_KEY_ID, 10.0, new long[]{1000} ),
+                NodePropertyUpdate.add( 2L, PROPERTY_KEY_ID, -5, new long[]{1000} ),
+                NodePropertyUpdate.add( 3L, PROPERTY_KEY_ID, 100.0, new long[]{1000} ),
+                NodePropertyUpdate.add( 4L, PROPERTY_KEY_ID, 0, new long[]{1000} ),
+                NodePropertyUpdate.add( 5L, PROPERTY_KEY_ID, 5.5, new long[]{1000} ),
+                NodePropertyUpdate.add( 6L, PROPERTY_KEY_ID, "Bob", new long[]{1000} ) ) );
+
+        assertThat( getAllNodesFromOrderedIndexSeekByNumber( null, null, ASCENDING ),
+                equalTo( asList( 2L, 4L, 5L, 1L, 3L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByNumber( null, null, DESCENDING ),
+                equalTo( asList( 3L, 1L, 5L, 4L, 2L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByNumber( 0, 10, ASCENDING ), equalTo( asList( 4L, 5L, 1L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByNumber( 0, 10, DESCENDING ), equalTo( asList( 1L, 5L, 4L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByNumber( 100, 0, DESCENDING ), equalTo( EMPTY_LIST ) );
+        assertThat( getAllValuesFromOrderedIndexSeekByNumber( -5, 5.5, ASCENDING ),
+                equalTo( Arrays.<Object>asList( -5.0, 0.0, 5.5 ) ) );
+    }
+
+    @Test
+    public void testOrderedIndexSeekByString() throws Exception
+    {
+        updateAndCommit( asList(
+                NodePropertyUpdate.add( 1L, PROPERTY_KEY_ID, "Harriet", new long[]{1000} ),
+                NodePropertyUpdate.add( 2L, PROPERTY_KEY_ID, "Anna", new long[]{1000} ),
+                NodePropertyUpdate.add( 3L, PROPERTY_KEY_ID, "William", new long[]{1000} ),
+                NodePropertyUpdate.add( 4L, PROPERTY_KEY_ID, "Anabelle", new long[]{1000} ),
+                NodePropertyUpdate.add( 5L, PROPERTY_KEY_ID, "Bob", new long[]{1000} ),
+                NodePropertyUpdate.add( 6L, PROPERTY_KEY_ID, 5, new long[]{1000} ) ) );
+
+        assertThat( getAllNodesFromOrderedIndexSeekByString( null, true, null, true, ASCENDING ),
+                equalTo( asList( 4L, 2L, 5L, 1L, 3L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByString( null, true, null, true, DESCENDING ),
+                equalTo( asList( 3L, 1L, 5L, 2L, 4L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByString( "Anna", false, "William", false, ASCENDING ),
+                equalTo( asList( 5L, 1L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByString( "Anna", true, "William", true, DESCENDING ),
+                equalTo( asList( 3L, 1L, 5L, 2L ) ) );
+        assertThat( getAllNodesFromOrderedIndexSeekByString( "William", false, "Anna", true, ASCENDING ),
+                equalTo( EMPTY_LIST ) );
+        assertThat( getAllValuesFromOrderedIndexSeekByString( "Anabelle", false, "Bob", true, DESCENDING ),
+                equalTo( Arrays.<Object>asList( "Bob", "Anna" ) ) );
+    }
+
+    protected List<Long> getAllNodesWithProperty( Object propertyValue ) throws IOException
     {
         try ( IndexReader reader = accessor.newReader() )
         {
@@ -207,6 +259,66 @@ public abstract class IndexAccessorCompatibility extends IndexProviderCompatibil
         }
     }
 
+    protected List<Long> getAllNodesFromOrderedIndexSeekByNumber( Number lower, Number upper, IndexOrder order )
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            return nodes( reader.orderedRangeSeekByNumberInclusive( lower, upper, order ) );
+        }
+    }
+
+    protected List<Object> getAllValuesFromOrderedIndexSeekByNumber( Number lower, Number upper, IndexOrder order )
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            return values( reader.orderedRangeSeekByNumberInclusive( lower, upper, order ) );
+        }
+    }
+
+    protected List<Long> getAllNodesFromOrderedIndexSeekByString( String lower, boolean includeLower, String upper,
+                                                                  boolean includeUpper, IndexOrder order )
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            return nodes( reader.orderedRangeSeekByString( lower, includeLower, upper, includeUpper, order ) );
+        }
+    }
+
+    protected List<Object> getAllValuesFromOrderedIndexSeekByString( String lower, boolean includeLower, String upper,
+                                                                     boolean includeUpper, IndexOrder order )
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            return values( reader.orderedRangeSeekByString( lower, includeLower, upper, includeUpper, order ) );
+        }
+    }
+
+    private static List<Long> nodes( Cursor<IndexEntryItem> cursor )
+    {
+        try ( Cursor<IndexEntryItem> entries = cursor )
+        {
+            List<Long> list = new LinkedList<>();
+            while ( entries.next() )
+            {
+                list.add( entries.get().nodeId() );
+            }
+            return list;
+        }
+    }
+
+    private static List<Object> values( Cursor<IndexEntryItem> cursor )
+    {
+        try ( Cursor<IndexEntryItem> entries = cursor )
+        {
+            List<Object> list = new LinkedList<>();
+            while ( entries.next() )
+            {
+                list.add( entries.get().value() );
+            }
+            return list;
+        }
+    }
+
     protected void updateAndCommit( List<NodePropertyUpdate> updates )
             throws IOException, IndexEntryConflictException, IndexCapacityExceededException
     {
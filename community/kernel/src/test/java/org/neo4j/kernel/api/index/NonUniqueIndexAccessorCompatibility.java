@@ -22,12 +22,16 @@ package org.neo4j.kernel.api.index;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static java.util.Arrays.asList;
 import static java.util.Collections.EMPTY_LIST;
 import static java.util.Collections.singletonList;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.neo4j.kernel.api.index.IndexOrder.ASCENDING;
+import static org.neo4j.kernel.api.index.IndexOrder.DESCENDING;
 
 @Ignore( "Not a test. This is a compatibility suite that provides test cases for verifying" +
         " SchemaIndexProvider implementations. Each index provider that is to be tested by this suite" +
@@ -73,6 +77,22 @@ public class NonUniqueIndexAccessorCompatibility extends IndexAccessorCompatibil
         assertThat( getAllNodes(), equalTo( asList( 1L, 2L, 3L ) ) );
     }
 
+    @Test
+    public void testIndexSeekByCompositeValue() throws Exception
+    {
+        updateAndCommit( asList(
+                NodePropertyUpdate.add( 1L, PROPERTY_KEY_ID, new CompositeIndexValue( "a", 1 ), new long[]{1000} ),
+                NodePropertyUpdate.add( 2L, PROPERTY_KEY_ID, new CompositeIndexValue( "a", 2 ), new long[]{1000} ),
+                NodePropertyUpdate.add( 3L, PROPERTY_KEY_ID, new CompositeIndexValue( "a", 1 ), new long[]{1000} ),
+                NodePropertyUpdate.add( 4L, PROPERTY_KEY_ID, new CompositeIndexValue( "a1", "" ), new long[]{1000} ),
+                NodePropertyUpdate.add( 5L, PROPERTY_KEY_ID, "a", new long[]{1000} ) ) );
+
+        assertThat( getAllNodesWithProperty( new CompositeIndexValue( "a", 1 ) ), equalTo( asList( 1L, 3L ) ) );
+        assertThat( getAllNodesWithProperty( new CompositeIndexValue( "a", 2.0 ) ), equalTo( singletonList( 2L ) ) );
+        assertThat( getAllNodesWithProperty( new CompositeIndexValue( "a", "1" ) ), equalTo( EMPTY_LIST ) );
+        assertThat( getAllNodesWithProperty( "a" ), equalTo( singletonList( 5L ) ) );
+    }
+
     @Test
     public void testIndexRangeSeekByNumberWithDuplicates() throws Exception
     {
@@ -120,4 +140,25 @@ public class NonUniqueIndexAccessorCompatibility extends IndexAccessorCompatibil
         assertThat( getAllNodesFromIndexSeekByPrefix( "a" ), equalTo( asList( 1L, 3L, 4L, 5L ) ) );
         assertThat( getAllNodesFromIndexSeekByPrefix( "apa" ), equalTo( asList( 3L, 4L, 5L ) ) );
     }
+
+    @Test
+    public void testOrderedIndexSeekWithDuplicates() throws Exception
+    {
+        updateAndCommit( asList(
+                NodePropertyUpdate.add( 1L, PROPERTY_KEY_ID, 5, new long[]{1000} ),
+                NodePropertyUpdate.add( 2L, PROPERTY_KEY_ID, -5, new long[]{1000} ),
+                NodePropertyUpdate.add( 3L, PROPERTY_KEY_ID, 5, new long[]{1000} ),
+                NodePropertyUpdate.add( 4L, PROPERTY_KEY_ID, 0, new long[]{1000} ),
+                NodePropertyUpdate.add( 5L, PROPERTY_KEY_ID, -5, new long[]{1000} ),
+                NodePropertyUpdate.add( 6L, PROPERTY_KEY_ID, "William", new long[]{1000} ),
+                NodePropertyUpdate.add( 7L, PROPERTY_KEY_ID, "Anna", new long[]{1000} ),
+                NodePropertyUpdate.add( 8L, PROPERTY_KEY_ID, "William", new long[]{1000} ) ) );
+
+        assertThat( getAllValuesFromOrderedIndexSeekByNumber( null, null, ASCENDING ),
+                equalTo( Arrays.<Object>asList( -5.0, -5.0, 0.0, 5.0, 5.0 ) ) );
+        assertThat( getAllValuesFromOrderedIndexSeekByNumber( -4, null, DESCENDING ),
+                equalTo( Arrays.<Object>asList( 5.0, 5.0, 0.0 ) ) );
+        assertThat( getAllValuesFromOrderedIndexSeekByString( null, true, null, true, DESCENDING ),
+                equalTo( Arrays.<Object>asList( "William", "William", "Anna" ) ) );
+    }
 }
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.helpers.Provider;
+import org.neo4j.kernel.KernelHealth;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.api.index.ValidatedIndexUpdates;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.index.IndexConfigStore;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.ReentrantLockService;
+import org.neo4j.kernel.impl.store.LabelTokenStore;
+import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyKeyTokenStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.RelationshipTypeTokenStore;
+import org.neo4j.kernel.impl.store.SchemaStore;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.IndexRule;
+import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
+import org.neo4j.kernel.impl.store.record.NeoStoreRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipTypeTokenRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.test.RandomRule;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.helpers.NamedThreadFactory.daemon;
+import static org.neo4j.kernel.impl.api.TransactionApplicationMode.RECOVERY;
+import static org.neo4j.kernel.impl.util.function.Optionals.some;
+
+public class ParallelRecoveryStoreApplierTest
+{
+    private static final int TRANSACTIONS = 2_000;
+    private static final int RECORDS_PER_STORE = 50;
+
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    private final KernelHealth health = mock( KernelHealth.class );
+    private final List<ParallelRecoveryStoreApplier> appliers = new ArrayList<>();
+    /** The transaction that writes each record, so that the stores can tell who wrote a record last. */
+    private final Map<Object,Long> writers = new IdentityHashMap<>();
+
+    @After
+    public void closeAppliers() throws IOException
+    {
+        for ( ParallelRecoveryStoreApplier applier : appliers )
+        {
+            applier.close();
+        }
+    }
+
+    @Test
+    public void shouldApplyTransactionsLikeSequentialRecoveryWithOneWorker() throws Exception
+    {
+        shouldApplyTransactionsLikeSequentialRecovery( 1 );
+    }
+
+    @Test
+    public void shouldApplyTransactionsLikeSequentialRecoveryWithManyWorkers() throws Exception
+    {
+        shouldApplyTransactionsLikeSequentialRecovery( 8 );
+    }
+
+    @Test
+    public void shouldFailAwaitingAppliedTransactionsIfAWorkerFailed() throws Exception
+    {
+        // GIVEN
+        RecordingStores stores = new RecordingStores();
+        UnderlyingStorageException failure = new UnderlyingStorageException( "Failing on purpose" );
+        NodeRecord failingNode = node( 1, 0 );
+        doThrow( failure ).when( stores.nodeStore ).updateRecord( failingNode );
+        ParallelRecoveryStoreApplier applier = parallelApplier( stores, 4 );
+
+        // WHEN
+        apply( applier, 1, transaction( 1, nodeCommand( node( 0, 1 ) ) ) );
+        apply( applier, 2, transaction( 2, nodeCommand( failingNode ) ) );
+        apply( applier, 3, transaction( 3, nodeCommand( node( 2, 3 ) ) ) );
+
+        // THEN
+        try
+        {
+            applier.awaitAppliedTransactions();
+            fail( "Should have failed" );
+        }
+        catch ( UnderlyingStorageException e )
+        {
+            assertSame( failure, e );
+        }
+        assertEquals( Long.valueOf( 1 ), stores.written.get( "node:0" ) );
+        assertEquals( Long.valueOf( 3 ), stores.written.get( "node:2" ) );
+
+        // and the failure has been reported once, leaving the applier ready for more
+        applier.awaitAppliedTransactions();
+    }
+
+    private void shouldApplyTransactionsLikeSequentialRecovery( int workers ) throws Exception
+    {
+        // GIVEN
+        List<TransactionRepresentation> transactions = new ArrayList<>();
+        for ( long txId = 1; txId <= TRANSACTIONS; txId++ )
+        {
+            transactions.add( randomTransaction( txId ) );
+        }
+        RecordingStores sequentialStores = new RecordingStores();
+        RecordingStores parallelStores = new RecordingStores();
+        TransactionRepresentationStoreApplier sequential = applier( sequentialStores );
+        ParallelRecoveryStoreApplier parallel = parallelApplier( parallelStores, workers );
+
+        // WHEN
+        for ( int i = 0; i < transactions.size(); i++ )
+        {
+            apply( sequential, i + 1, transactions.get( i ) );
+            apply( parallel, i + 1, transactions.get( i ) );
+        }
+        parallel.awaitAppliedTransactions();
+
+        // THEN
+        assertEquals( sequentialStores.written, parallelStores.written );
+    }
+
+    private TransactionRepresentation randomTransaction( long txId )
+    {
+        List<Command> commands = new ArrayList<>();
+        int count = random.intBetween( 1, 5 );
+        for ( int i = 0; i < count; i++ )
+        {
+            switch ( random.nextInt( 4 ) )
+            {
+            case 0:
+                NodeRecord node = node( random.nextInt( RECORDS_PER_STORE ), txId );
+                List<DynamicRecord> labels = new ArrayList<>();
+                for ( int j = random.nextInt( 3 ); j > 0; j-- )
+                {
+                    labels.add( dynamicRecord( random.nextInt( RECORDS_PER_STORE ), PropertyType.ARRAY, txId ) );
+                }
+                node.setLabelField( 0, labels );
+                commands.add( nodeCommand( node ) );
+                break;
+            case 1:
+                commands.add( new Command.PropertyCommand()
+                        .init( new PropertyRecord( 0 ), property( random.nextInt( RECORDS_PER_STORE ), txId ) ) );
+                break;
+            case 2:
+                RelationshipRecord relationship = new RelationshipRecord( random.nextInt( RECORDS_PER_STORE ) );
+                relationship.setInUse( true );
+                commands.add( new Command.RelationshipCommand().init( written( relationship, txId ) ) );
+                break;
+            default:
+                RelationshipGroupRecord group = new RelationshipGroupRecord( random.nextInt( RECORDS_PER_STORE ), 0 );
+                group.setInUse( true );
+                commands.add( new Command.RelationshipGroupCommand().init( written( group, txId ) ) );
+                break;
+            }
+        }
+        if ( random.nextInt( 50 ) == 0 )
+        {
+            commands.add( randomExclusiveCommand( txId ) );
+        }
+        Collections.shuffle( commands, random.random() );
+        return transaction( txId, commands.toArray( new Command[commands.size()] ) );
+    }
+
+    /**
+     * A command that changes tokens, schema or the graph properties, which the parallel applier applies alone.
+     */
+    private Command randomExclusiveCommand( long txId )
+    {
+        int id = random.nextInt( RECORDS_PER_STORE );
+        switch ( random.nextInt( 5 ) )
+        {
+        case 0:
+            return new Command.LabelTokenCommand().init( written( new LabelTokenRecord( id ), txId ) );
+        case 1:
+            return new Command.PropertyKeyTokenCommand().init( written( new PropertyKeyTokenRecord( id ), txId ) );
+        case 2:
+            return new Command.RelationshipTypeTokenCommand().init(
+                    written( new RelationshipTypeTokenRecord( id ), txId ) );
+        case 3:
+            DynamicRecord schemaRecord = dynamicRecord( id, PropertyType.STRING, txId );
+            return new Command.SchemaRuleCommand().init( Collections.singletonList( new DynamicRecord( id ) ),
+                    Collections.singletonList( schemaRecord ),
+                    IndexRule.indexRule( id, 0, 0, new SchemaIndexProvider.Descriptor( "test", "1.0" ) ) );
+        default:
+            NeoStoreRecord graph = new NeoStoreRecord();
+            graph.setNextProp( txId );
+            return new Command.NeoStoreCommand().init( graph );
+        }
+    }
+
+    private NodeRecord node( long id, long txId )
+    {
+        NodeRecord node = new NodeRecord( id );
+        node.setInUse( true );
+        return written( node, txId );
+    }
+
+    private Command.NodeCommand nodeCommand( NodeRecord after )
+    {
+        return new Command.NodeCommand().init( new NodeRecord( after.getId() ), after );
+    }
+
+    private PropertyRecord property( long id, long txId )
+    {
+        PropertyRecord property = written( new PropertyRecord( id ), txId );
+        property.setInUse( true );
+        int values = random.nextInt( 3 );
+        if ( values > 0 )
+        {
+            PropertyType type = random.nextBoolean() ? PropertyType.STRING : PropertyType.ARRAY;
+            PropertyBlock block = new PropertyBlock();
+            block.setSingleBlock( ((long) type.intValue()) << 24 );
+            for ( int i = 0; i < values; i++ )
+            {
+                block.addValueRecord( dynamicRecord( random.nextInt( RECORDS_PER_STORE ), type, txId ) );
+            }
+            property.addPropertyBlock( block );
+        }
+        if ( random.nextBoolean() )
+        {
+            DynamicRecord deleted = dynamicRecord( random.nextInt( RECORDS_PER_STORE ), PropertyType.STRING, txId );
+            deleted.setInUse( false );
+            property.addDeletedRecord( deleted );
+        }
+        return property;
+    }
+
+    private DynamicRecord dynamicRecord( long id, PropertyType type, long txId )
+    {
+        DynamicRecord record = new DynamicRecord( id );
+        record.setInUse( true, type.intValue() );
+        return written( record, txId );
+    }
+
+    private <RECORD> RECORD written( RECORD record, long txId )
+    {
+        writers.put( record, txId );
+        return record;
+    }
+
+    private TransactionRepresentation transaction( long txId, Command... commands )
+    {
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( asList( commands ) );
+        transaction.setHeader( new byte[0], 0, 0, txId, txId - 1, 0, 0 );
+        return transaction;
+    }
+
+    private static List<Command> asList( Command[] commands )
+    {
+        List<Command> list = new ArrayList<>();
+        Collections.addAll( list, commands );
+        return list;
+    }
+
+    private void apply( TransactionRepresentationStoreApplier applier, long txId,
+            TransactionRepresentation transaction ) throws IOException
+    {
+        try ( LockGroup locks = new LockGroup() )
+        {
+            applier.apply( transaction, ValidatedIndexUpdates.NONE, locks, txId, RECOVERY );
+        }
+    }
+
+    private TransactionRepresentationStoreApplier applier( RecordingStores stores )
+    {
+        return new TransactionRepresentationStoreApplier( mock( IndexingService.class ), labelScanWriters(),
+                stores.neoStores, mock( CacheAccessBackDoor.class ), new ReentrantLockService(),
+                mock( LegacyIndexApplierLookup.class ), mock( IndexConfigStore.class ), health,
+                IdOrderingQueue.BYPASS );
+    }
+
+    private ParallelRecoveryStoreApplier parallelApplier( RecordingStores stores, int workers )
+    {
+        ParallelRecoveryStoreApplier applier = new ParallelRecoveryStoreApplier( mock( IndexingService.class ),
+                labelScanWriters(), stores.neoStores, mock( CacheAccessBackDoor.class ), new ReentrantLockService(),
+                mock( LegacyIndexApplierLookup.class ), mock( IndexConfigStore.class ), health,
+                IdOrderingQueue.BYPASS, workers, daemon( "RecoveryWorker" ) );
+        appliers.add( applier );
+        return applier;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Provider<LabelScanWriter> labelScanWriters()
+    {
+        Provider<LabelScanWriter> writers = mock( Provider.class );
+        when( writers.instance() ).thenReturn( mock( LabelScanWriter.class ) );
+        return writers;
+    }
+
+    /**
+     * Mocked stores that remember which transaction last wrote each record, including the dynamic records
+     * that the real stores write along with node and property records.
+     */
+    private class RecordingStores
+    {
+        private final ConcurrentMap<String,Long> written = new ConcurrentHashMap<>();
+        private final NeoStores neoStores = mock( NeoStores.class );
+        private final NodeStore nodeStore = mock( NodeStore.class, RETURNS_MOCKS );
+        private final PropertyStore propertyStore = mock( PropertyStore.class, RETURNS_MOCKS );
+
+        RecordingStores()
+        {
+            doAnswer( new Answer<Void>()
+            {
+                @Override
+                public Void answer( InvocationOnMock invocation ) throws Throwable
+                {
+                    NodeRecord node = (NodeRecord) invocation.getArguments()[0];
+                    write( "node", node.getId(), node );
+                    write( node.getDynamicLabelRecords() );
+                    return null;
+                }
+            } ).when( nodeStore ).updateRecord( any( NodeRecord.class ) );
+            doAnswer( new Answer<Void>()
+            {
+                @Override
+                public Void answer( InvocationOnMock invocation ) throws Throwable
+                {
+                    PropertyRecord property = (PropertyRecord) invocation.getArguments()[0];
+                    write( "property", property.getId(), property );
+                    for ( PropertyBlock block : property )
+                    {
+                        write( block.getValueRecords() );
+                    }
+                    write( property.getDeletedRecords() );
+                    return null;
+                }
+            } ).when( propertyStore ).updateRecord( any( PropertyRecord.class ) );
+            RelationshipStore relationshipStore = mock( RelationshipStore.class );
+            doAnswer( recordWrite( "relationship" ) ).when( relationshipStore )
+                    .updateRecord( any( RelationshipRecord.class ) );
+            RelationshipGroupStore groupStore = mock( RelationshipGroupStore.class );
+            doAnswer( recordWrite( "group" ) ).when( groupStore ).updateRecord( any( RelationshipGroupRecord.class ) );
+            LabelTokenStore labelTokenStore = mock( LabelTokenStore.class );
+            doAnswer( recordWrite( "label_token" ) ).when( labelTokenStore )
+                    .updateRecord( any( LabelTokenRecord.class ) );
+            PropertyKeyTokenStore propertyKeyTokenStore = mock( PropertyKeyTokenStore.class );
+            doAnswer( recordWrite( "property_key_token" ) ).when( propertyKeyTokenStore )
+                    .updateRecord( any( PropertyKeyTokenRecord.class ) );
+            RelationshipTypeTokenStore relationshipTypeTokenStore = mock( RelationshipTypeTokenStore.class );
+            doAnswer( recordWrite( "relationship_type_token" ) ).when( relationshipTypeTokenStore )
+                    .updateRecord( any( RelationshipTypeTokenRecord.class ) );
+            SchemaStore schemaStore = mock( SchemaStore.class );
+            doAnswer( recordWrite( "schema" ) ).when( schemaStore ).updateRecord( any( DynamicRecord.class ) );
+            MetaDataStore metaDataStore = mock( MetaDataStore.class );
+            doAnswer( new Answer<Void>()
+            {
+                @Override
+                public Void answer( InvocationOnMock invocation ) throws Throwable
+                {
+                    written.put( "graph", (Long) invocation.getArguments()[0] );
+                    return null;
+                }
+            } ).when( metaDataStore ).setGraphNextProp( anyLong() );
+
+            when( neoStores.getNodeStore() ).thenReturn( nodeStore );
+            when( neoStores.getPropertyStore() ).thenReturn( propertyStore );
+            when( neoStores.getRelationshipStore() ).thenReturn( relationshipStore );
+            when( neoStores.getRelationshipGroupStore() ).thenReturn( groupStore );
+            when( neoStores.getLabelTokenStore() ).thenReturn( labelTokenStore );
+            when( neoStores.getPropertyKeyTokenStore() ).thenReturn( propertyKeyTokenStore );
+            when( neoStores.getRelationshipTypeTokenStore() ).thenReturn( relationshipTypeTokenStore );
+            when( neoStores.getSchemaStore() ).thenReturn( schemaStore );
+            when( neoStores.getMetaDataStore() ).thenReturn( metaDataStore );
+            CountsTracker counts = mock( CountsTracker.class );
+            when( counts.apply( anyLong() ) ).thenReturn( some( mock( CountsAccessor.Updater.class ) ) );
+            when( neoStores.getCounts() ).thenReturn( counts );
+        }
+
+        private Answer<Void> recordWrite( final String store )
+        {
+            return new Answer<Void>()
+            {
+                @Override
+                public Void answer( InvocationOnMock invocation ) throws Throwable
+                {
+                    Object record = invocation.getArguments()[0];
+                    write( store, ((AbstractBaseRecord) record).getLongId(), record );
+                    return null;
+                }
+            };
+        }
+
+        private void write( Iterable<DynamicRecord> records )
+        {
+            for ( DynamicRecord record : records )
+            {
+                write( "dynamic_" + record.getType(), record.getId(), record );
+            }
+        }
+
+        private void write( String store, long id, Object record )
+        {
+            written.put( store + ":" + id, writers.get( record ) );
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Test;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.function.Predicate;
+import org.neo4j.kernel.impl.util.diffsets.LongDiffSetsMemory;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.iterator;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class PrimitiveLongDiffSetsTest
+{
+    @Test
+    public void shouldTrackAddedAndRemovedElements() throws Exception
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+
+        // WHEN
+        diffSets.add( 1L );
+        diffSets.add( 2L );
+        diffSets.remove( 2L );
+        diffSets.remove( 3L );
+
+        // THEN
+        assertEquals( asSet( 1L ), diffSets.getAdded() );
+        assertEquals( asSet( 3L ), diffSets.getRemoved() );
+        assertTrue( diffSets.isAdded( 1L ) );
+        assertTrue( diffSets.isRemoved( 3L ) );
+        assertFalse( diffSets.isAdded( 2L ) );
+        assertFalse( diffSets.isRemoved( 2L ) );
+        assertEquals( 0, diffSets.delta() );
+    }
+
+    @Test
+    public void shouldAugmentSourceWithAddedAndRemovedElements() throws Exception
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+        diffSets.add( 4L );
+        diffSets.add( 2L );
+        diffSets.remove( 3L );
+
+        // WHEN
+        PrimitiveLongIterator augmented = diffSets.augment( iterator( 1L, 2L, 3L ) );
+
+        // THEN
+        assertEquals( asSet( 1L, 2L, 4L ), asSet( augmented ) );
+    }
+
+    @Test
+    public void shouldNotSeeElementsAddedAfterIterationStarted() throws Exception
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+        diffSets.add( 1L );
+        PrimitiveLongIterator added = diffSets.addedIterator();
+
+        // WHEN
+        diffSets.add( 2L );
+
+        // THEN
+        assertEquals( 1L, added.next() );
+        assertFalse( added.hasNext() );
+        assertEquals( asSet( 1L, 2L ), asSet( diffSets.addedIterator() ) );
+    }
+
+    @Test
+    public void shouldSeeElementsRemovedAfterIterationStarted() throws Exception
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+        for ( long i = 0; i < 100; i++ )
+        {
+            diffSets.add( i );
+        }
+        PrimitiveLongIterator added = diffSets.addedIterator();
+
+        // WHEN
+        int seen = 0;
+        while ( added.hasNext() )
+        {
+            long element = added.next();
+            assertTrue( diffSets.isAdded( element ) );
+            diffSets.remove( element );
+            diffSets.remove( 99 - element );
+            seen++;
+        }
+
+        // THEN
+        assertEquals( 50, seen );
+        assertTrue( diffSets.getAdded().isEmpty() );
+        assertTrue( diffSets.getRemoved().isEmpty() );
+    }
+
+    @Test
+    public void shouldMoveSetsOffHeapWhenCrossingThreshold() throws Exception
+    {
+        // GIVEN
+        try ( LongDiffSetsMemory memory = new LongDiffSetsMemory( 1024 ) )
+        {
+            PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets( memory );
+
+            // WHEN
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                diffSets.add( i );
+                diffSets.remove( i + 1_000 );
+            }
+
+            // THEN
+            assertTrue( memory.spilledBytes() > 0 );
+            assertEquals( 1_000, diffSets.getAdded().size() );
+            assertEquals( 1_000, diffSets.getRemoved().size() );
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                assertTrue( diffSets.isAdded( i ) );
+                assertTrue( diffSets.isRemoved( i + 1_000 ) );
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepSetsOnHeapWithoutThreshold() throws Exception
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets( LongDiffSetsMemory.ON_HEAP );
+
+        // WHEN
+        diffSets.addAll( PrimitiveLongCollections.range( 0, 9_999 ) );
+
+        // THEN
+        assertEquals( 0, LongDiffSetsMemory.ON_HEAP.spilledBytes() );
+        assertEquals( 10_000, diffSets.delta() );
+    }
+
+    @Test
+    public void shouldFilterAddedElements() throws Exception
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+        diffSets.addAll( iterator( 1L, 2L, 3L, 4L ) );
+        diffSets.removeAll( iterator( 5L ) );
+
+        // WHEN
+        PrimitiveLongDiffSets filtered = diffSets.filterAdded( new Predicate<Long>()
+        {
+            @Override
+            public boolean test( Long item )
+            {
+                return item % 2 == 0;
+            }
+        } );
+
+        // THEN
+        assertEquals( asSet( 2L, 4L ), filtered.getAdded() );
+        assertEquals( asSet( 5L ), filtered.getRemoved() );
+        assertEquals( 4, asArray( diffSets.addedIterator() ).length );
+    }
+
+    @Test
+    public void shouldNotChargeFilteredElementsToTransactionMemory() throws Exception
+    {
+        // GIVEN
+        try ( LongDiffSetsMemory memory = new LongDiffSetsMemory( 1024 ) )
+        {
+            PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets( memory );
+            diffSets.addAll( PrimitiveLongCollections.range( 0, 999 ) );
+            long spilledBytes = memory.spilledBytes();
+
+            // WHEN
+            PrimitiveLongDiffSets filtered = diffSets.filterAdded( new Predicate<Long>()
+            {
+                @Override
+                public boolean test( Long item )
+                {
+                    return true;
+                }
+            } );
+
+            // THEN
+            assertEquals( 1_000, filtered.getAdded().size() );
+            assertEquals( spilledBytes, memory.spilledBytes() );
+        }
+    }
+}
@@ -54,6 +54,7 @@ import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.index.PreexistingIndexEntryConflictException;
 import org.neo4j.kernel.api.index.PropertyAccessor;
 import org.neo4j.kernel.api.index.Reservation;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.KernelSchemaStateStore;
 import org.neo4j.kernel.impl.api.index.inmemory.InMemoryIndexProvider;
@@ -170,6 +171,36 @@ public class IndexPopulationJobTest
         verifyNoMoreInteractions( populator );
     }
 
+    @Test
+    public void shouldPopulateMultipleIndexesFromOneStoreScan() throws Exception
+    {
+        // GIVEN
+        long node1 = createNode( map( name, "Mattias" ), FIRST );
+        long node2 = createNode( map( age, 35 ), SECOND );
+        createNode( map( age, 31 ), FIRST );
+        IndexStoreView storeView = spy( indexStoreView );
+        IndexPopulator firstPopulator = spy( inMemoryPopulator( false ) );
+        IndexPopulator secondPopulator = spy( inMemoryPopulator( false ) );
+        IndexPopulationJob job = new IndexPopulationJob( storeView, stateHolder, NullLogProvider.getInstance(),
+                IndexingService.NO_MONITOR );
+        addPopulation( job, FIRST, name, firstPopulator );
+        addPopulation( job, SECOND, age, secondPopulator );
+
+        // WHEN
+        job.run();
+
+        // THEN
+        verify( storeView, times( 1 ) ).visitNodes( any( int[].class ), any( int[].class ),
+                Matchers.<Visitor<NodePropertyUpdate,RuntimeException>>any(),
+                Matchers.<Visitor<NodeLabelUpdate,RuntimeException>>any() );
+        verify( firstPopulator, times( 1 ) ).add( anyLong(), any() );
+        verify( firstPopulator ).add( node1, "Mattias" );
+        verify( firstPopulator ).close( true );
+        verify( secondPopulator, times( 1 ) ).add( anyLong(), any() );
+        verify( secondPopulator ).add( node2, 35 );
+        verify( secondPopulator ).close( true );
+    }
+
     @Test
     public void shouldIndexConcurrentUpdatesWhilePopulating() throws Exception
     {
@@ -656,6 +687,15 @@ public class IndexPopulationJobTest
                 stateHolder, logProvider, IndexingService.NO_MONITOR );
     }
 
+    private void addPopulation( IndexPopulationJob job, Label label, String propertyKey, IndexPopulator populator )
+    {
+        FlippableIndexProxy flipper = new FlippableIndexProxy();
+        flipper.setFlipTarget( mock( IndexProxyFactory.class ) );
+        job.addPopulation( populator, indexDescriptor( label, propertyKey ), new IndexConfiguration( false ),
+                PROVIDER_DESCRIPTOR, format( ":%s(%s)", label.name(), propertyKey ),
+                flipper, mock( FailedIndexProxyFactory.class ) );
+    }
+
     private IndexDescriptor indexDescriptor( Label label, String propertyKey )
     {
         IndexDescriptor descriptor;
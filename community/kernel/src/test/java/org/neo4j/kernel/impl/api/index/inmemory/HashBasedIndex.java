@@ -20,18 +20,25 @@
 package org.neo4j.kernel.impl.api.index.inmemory;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
+import org.neo4j.kernel.api.index.IndexOrder;
+import org.neo4j.kernel.impl.util.Cursors;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
 import static org.neo4j.kernel.impl.api.PropertyValueComparison.COMPARE_VALUES;
@@ -83,16 +90,9 @@ class HashBasedIndex extends InMemoryIndexImplementation
         Set<Long> nodeIds = new HashSet<>();
         for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
         {
-            Object key = entry.getKey();
-            if ( NUMBER.isSuperTypeOf( key ) )
+            if ( inNumberRange( entry.getKey(), lower, upper ) )
             {
-                boolean lowerFilter = lower == null || COMPARE_VALUES.compare( key, lower ) >= 0;
-                boolean upperFilter = upper == null || COMPARE_VALUES.compare( key, upper ) <= 0;
-
-                if ( lowerFilter && upperFilter )
-                {
-                    nodeIds.addAll( entry.getValue() );
-                }
+                nodeIds.addAll( entry.getValue() );
             }
         }
         return toPrimitiveIterator( nodeIds.iterator() );
@@ -105,39 +105,120 @@ class HashBasedIndex extends InMemoryIndexImplementation
         Set<Long> nodeIds = new HashSet<>();
         for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
         {
-            Object key = entry.getKey();
-            if ( STRING.isSuperTypeOf( key ) )
+            if ( inStringRange( entry.getKey(), lower, includeLower, upper, includeUpper ) )
             {
-                boolean lowerFilter = false;
-                boolean upperFilter = false;
+                nodeIds.addAll( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( nodeIds.iterator() );
+    }
 
-                if ( lower == null )
-                {
-                    lowerFilter = true;
-                }
-                else
-                {
-                    int cmp = COMPARE_VALUES.compare( key, lower );
-                    lowerFilter = (includeLower && cmp >= 0) || (cmp > 0);
-                }
+    @Override
+    public Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper, IndexOrder order )
+    {
+        List<IndexEntryItem> entries = new ArrayList<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
+        {
+            if ( inNumberRange( entry.getKey(), lower, upper ) )
+            {
+                addEntries( entries, entry.getKey(), entry.getValue() );
+            }
+        }
+        return sorted( entries, order );
+    }
 
-                if ( upper == null )
-                {
-                    upperFilter = true;
-                }
-                else
+    @Override
+    public Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                            String upper, boolean includeUpper, IndexOrder order )
+    {
+        List<IndexEntryItem> entries = new ArrayList<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
+        {
+            if ( inStringRange( entry.getKey(), lower, includeLower, upper, includeUpper ) )
+            {
+                addEntries( entries, entry.getKey(), entry.getValue() );
+            }
+        }
+        return sorted( entries, order );
+    }
+
+    private static boolean inNumberRange( Object key, Number lower, Number upper )
+    {
+        if ( NUMBER.isSuperTypeOf( key ) )
+        {
+            boolean lowerFilter = lower == null || COMPARE_VALUES.compare( key, lower ) >= 0;
+            boolean upperFilter = upper == null || COMPARE_VALUES.compare( key, upper ) <= 0;
+            return lowerFilter && upperFilter;
+        }
+        return false;
+    }
+
+    private static boolean inStringRange( Object key, String lower, boolean includeLower,
+                                          String upper, boolean includeUpper )
+    {
+        if ( STRING.isSuperTypeOf( key ) )
+        {
+            boolean lowerFilter = false;
+            boolean upperFilter = false;
+
+            if ( lower == null )
+            {
+                lowerFilter = true;
+            }
+            else
+            {
+                int cmp = COMPARE_VALUES.compare( key, lower );
+                lowerFilter = (includeLower && cmp >= 0) || (cmp > 0);
+            }
+
+            if ( upper == null )
+            {
+                upperFilter = true;
+            }
+            else
+            {
+                int cmp = COMPARE_VALUES.compare( key, upper );
+                upperFilter = (includeUpper && cmp <= 0) || (cmp < 0);
+            }
+
+            return lowerFilter && upperFilter;
+        }
+        return false;
+    }
+
+    private static void addEntries( List<IndexEntryItem> entries, final Object value, Set<Long> nodeIds )
+    {
+        for ( final Long nodeId : nodeIds )
+        {
+            entries.add( new IndexEntryItem()
+            {
+                @Override
+                public long nodeId()
                 {
-                    int cmp = COMPARE_VALUES.compare( key, upper );
-                    upperFilter = (includeUpper && cmp <= 0) || (cmp < 0);
+                    return nodeId;
                 }
 
-                if ( lowerFilter && upperFilter )
+                @Override
+                public Object value()
                 {
-                    nodeIds.addAll( entry.getValue() );
+                    return value;
                 }
-            }
+            } );
         }
-        return toPrimitiveIterator( nodeIds.iterator() );
+    }
+
+    private static Cursor<IndexEntryItem> sorted( List<IndexEntryItem> entries, final IndexOrder order )
+    {
+        Collections.sort( entries, new Comparator<IndexEntryItem>()
+        {
+            @Override
+            public int compare( IndexEntryItem left, IndexEntryItem right )
+            {
+                int compare = COMPARE_VALUES.compare( left.value(), right.value() );
+                return order == IndexOrder.DESCENDING ? -compare : compare;
+            }
+        } );
+        return Cursors.cursor( entries );
     }
 
     @Override
@@ -24,6 +24,7 @@ import java.util.Set;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.kernel.api.direct.BoundedIterable;
 import org.neo4j.kernel.api.index.ArrayEncoder;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
 import org.neo4j.kernel.api.index.IndexReader;
 
 abstract class InMemoryIndexImplementation implements IndexReader, BoundedIterable<Long>
@@ -65,6 +66,16 @@ abstract class InMemoryIndexImplementation implements IndexReader, BoundedIterab
 
     private static Object encode( Object propertyValue )
     {
+        if ( propertyValue instanceof CompositeIndexValue )
+        {
+            Object[] values = ((CompositeIndexValue) propertyValue).values();
+            for ( int i = 0; i < values.length; i++ )
+            {
+                values[i] = encode( values[i] );
+            }
+            return new CompositeIndexValue( values );
+        }
+
         if ( propertyValue instanceof Number )
         {
             return ((Number) propertyValue).doubleValue();
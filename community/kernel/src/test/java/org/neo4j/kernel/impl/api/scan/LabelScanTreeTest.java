@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+
+import static org.junit.Assert.assertEquals;
+
+public class LabelScanTreeTest
+{
+    // Small pages, for leaves of 31 entries and internal nodes of 30 keys, so that a few thousand keys split
+    // both leaves and internal nodes, and the root more than once
+    private static final int PAGE_SIZE = 512;
+
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File file = new File( "labelscan.db" );
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Before
+    public void mapFile() throws Exception
+    {
+        pageCache = pageCacheRule.getPageCache( fs.get() );
+        pagedFile = pageCache.map( file, PAGE_SIZE, StandardOpenOption.CREATE );
+    }
+
+    @After
+    public void unmapFile() throws Exception
+    {
+        pagedFile.close();
+    }
+
+    @Test
+    public void shouldSplitLeavesAndInternalNodesOnInsertsInRandomOrder() throws Exception
+    {
+        // GIVEN
+        LabelScanTree tree = LabelScanTree.create( pagedFile );
+        List<Long> keys = new ArrayList<>();
+        for ( long key = 0; key < 5_000; key++ )
+        {
+            keys.add( key * 3 );
+        }
+        Collections.shuffle( keys, new Random( 42 ) );
+
+        // WHEN
+        Map<Long,Long> expected = new TreeMap<>();
+        for ( long key : keys )
+        {
+            tree.update( key, key + 1, 0 );
+            expected.put( key, key + 1 );
+        }
+
+        // THEN
+        assertEquals( expected, readAll( tree ) );
+    }
+
+    @Test
+    public void shouldSplitOnAscendingInsertsAndKeepThemAcrossCheckpoint() throws Exception
+    {
+        // GIVEN
+        LabelScanTree tree = LabelScanTree.create( pagedFile );
+        Map<Long,Long> expected = new TreeMap<>();
+        for ( long key = 0; key < 2_000; key++ )
+        {
+            tree.update( key, 1L << (key % 64), 0 );
+            expected.put( key, 1L << (key % 64) );
+        }
+        tree.checkpoint();
+
+        // WHEN splitting copied pages after the check point, and removing some entries
+        for ( long key = 2_000; key < 4_000; key++ )
+        {
+            tree.update( key, 1, 0 );
+            expected.put( key, 1L );
+        }
+        for ( long key = 0; key < 4_000; key += 7 )
+        {
+            tree.update( key, 0, -1 );
+            expected.remove( key );
+        }
+        tree.checkpoint();
+        pagedFile.close();
+        pagedFile = pageCache.map( file, PAGE_SIZE );
+
+        // THEN
+        assertEquals( expected, readAll( LabelScanTree.open( pagedFile ) ) );
+    }
+
+    private Map<Long,Long> readAll( LabelScanTree tree ) throws Exception
+    {
+        Map<Long,Long> entries = new TreeMap<>();
+        long[] keys = new long[100];
+        long[] values = new long[keys.length];
+        long from = 0;
+        int read;
+        while ( (read = tree.read( from, Long.MAX_VALUE, keys, values )) > 0 )
+        {
+            for ( int i = 0; i < read; i++ )
+            {
+                entries.put( keys[i], values[i] );
+            }
+            from = keys[read - 1] + 1;
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.direct.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.direct.NodeLabelRange;
+import org.neo4j.kernel.api.labelscan.LabelScanReader;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
+
+public class NativeLabelScanStoreTest
+{
+    private static final long[] NO_LABELS = new long[0];
+
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File directory = new File( "native" );
+    private final List<NodeLabelUpdate> storeContents = new ArrayList<>();
+    private final RecordingMonitor monitor = new RecordingMonitor();
+    private PageCache pageCache;
+    private NativeLabelScanStore store;
+
+    @After
+    public void shutdown() throws IOException
+    {
+        if ( store != null )
+        {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldUpdateOnAddedAndRemovedLabels() throws Exception
+    {
+        // GIVEN
+        start();
+        write( labelChanges( 10, NO_LABELS, new long[]{1, 2} ) );
+        assertNodesForLabel( 1, 10 );
+        assertNodesForLabel( 2, 10 );
+
+        // WHEN
+        write( labelChanges( 10, new long[]{1, 2}, new long[]{2, 3} ) );
+
+        // THEN
+        assertNodesForLabel( 1 );
+        assertNodesForLabel( 2, 10 );
+        assertNodesForLabel( 3, 10 );
+        LabelScanReader reader = store.newReader();
+        try
+        {
+            assertEquals( asSet( 2L, 3L ), asSet( reader.labelsForNode( 10 ) ) );
+            assertTrue( asSet( reader.labelsForNode( 11 ) ).isEmpty() );
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void shouldMatchRandomUpdatesSpreadOverManyPages() throws Exception
+    {
+        // GIVEN
+        start();
+        Random random = new Random();
+        Map<Long,Set<Long>> labelsOfNodes = new HashMap<>();
+
+        // WHEN
+        for ( int round = 0; round < 5; round++ )
+        {
+            try ( LabelScanWriter writer = store.newWriter() )
+            {
+                for ( long nodeId = 0; nodeId < 20_000; nodeId += 1 + random.nextInt( 3 ) )
+                {
+                    Set<Long> before = labelsOfNodes.get( nodeId );
+                    Set<Long> after = new HashSet<>();
+                    for ( long labelId = 0; labelId < 6; labelId++ )
+                    {
+                        if ( random.nextInt( 3 ) == 0 )
+                        {
+                            after.add( labelId );
+                        }
+                    }
+                    writer.write( labelChanges( nodeId, toArray( before ), toArray( after ) ) );
+                    labelsOfNodes.put( nodeId, after );
+                }
+            }
+            if ( round % 2 == 0 )
+            {
+                store.force();
+            }
+        }
+
+        // THEN
+        for ( long labelId = 0; labelId < 6; labelId++ )
+        {
+            Set<Long> expected = new TreeSet<>();
+            for ( Map.Entry<Long,Set<Long>> entry : labelsOfNodes.entrySet() )
+            {
+                if ( entry.getValue().contains( labelId ) )
+                {
+                    expected.add( entry.getKey() );
+                }
+            }
+            assertEquals( expected, nodesWithLabel( (int) labelId ) );
+        }
+        assertAllEntries( labelsOfNodes );
+    }
+
+    @Test
+    public void shouldKeepForcedChangesAcrossRestart() throws Exception
+    {
+        // GIVEN
+        start();
+        for ( long nodeId = 0; nodeId < 1_000; nodeId++ )
+        {
+            write( labelChanges( nodeId, NO_LABELS, new long[]{nodeId % 3} ) );
+        }
+
+        // WHEN
+        store.force();
+        monitor.rebuilt = false;
+        restart();
+
+        // THEN
+        assertFalse( monitor.rebuilt );
+        assertEquals( 334, nodesWithLabel( 0 ).size() );
+        assertEquals( 333, nodesWithLabel( 1 ).size() );
+        assertEquals( 333, nodesWithLabel( 2 ).size() );
+    }
+
+    @Test
+    public void shouldRebuildFromFullStoreStreamIfMissing() throws Exception
+    {
+        // GIVEN
+        storeContents.add( labelChanges( 3, NO_LABELS, new long[]{1} ) );
+        storeContents.add( labelChanges( 70, NO_LABELS, new long[]{1, 2} ) );
+
+        // WHEN
+        start();
+
+        // THEN
+        assertTrue( monitor.noIndex );
+        assertTrue( monitor.rebuilt );
+        assertNodesForLabel( 1, 3, 70 );
+        assertNodesForLabel( 2, 70 );
+    }
+
+    @Test
+    public void shouldRebuildFromFullStoreStreamIfCorrupt() throws Exception
+    {
+        // GIVEN
+        start();
+        store.shutdown();
+        store = null;
+        try ( StoreChannel channel = fs.get().open( new File( directory, NativeLabelScanStore.FILE_NAME ), "rw" ) )
+        {
+            channel.write( ByteBuffer.wrap( new byte[]{1, 2, 3, 4, 5, 6, 7, 8} ), 0 );
+        }
+        storeContents.add( labelChanges( 5, NO_LABELS, new long[]{4} ) );
+
+        // WHEN
+        monitor.rebuilt = false;
+        start();
+
+        // THEN
+        assertTrue( monitor.corruptIndex );
+        assertTrue( monitor.rebuilt );
+        assertNodesForLabel( 4, 5 );
+    }
+
+    @Test
+    public void shouldSnapshotStoreFile() throws Exception
+    {
+        // GIVEN
+        start();
+        write( labelChanges( 1, NO_LABELS, new long[]{1} ) );
+
+        // WHEN
+        Set<File> files;
+        try ( ResourceIterator<File> snapshot = store.snapshotStoreFiles() )
+        {
+            files = asSet( snapshot );
+        }
+
+        // THEN
+        assertEquals( asSet( new File( directory, NativeLabelScanStore.FILE_NAME ) ), files );
+        store.force();
+    }
+
+    private void start() throws Exception
+    {
+        if ( pageCache == null )
+        {
+            // Small pages, to have the tree split into several levels with few entries
+            pageCache = pageCacheRule.getPageCache( fs.get(), new Config( stringMap(
+                    GraphDatabaseSettings.pagecache_memory.name(), "8M",
+                    GraphDatabaseSettings.mapped_memory_page_size.name(), "512" ) ) );
+        }
+        store = new NativeLabelScanStore( pageCache, fs.get(), directory, new FullStoreChangeStream()
+        {
+            @Override
+            public long highestNodeId()
+            {
+                return storeContents.size();
+            }
+
+            @Override
+            public Iterator<NodeLabelUpdate> iterator()
+            {
+                return storeContents.iterator();
+            }
+        }, monitor );
+        store.init();
+        store.start();
+    }
+
+    private void restart() throws Exception
+    {
+        store.shutdown();
+        store = null;
+        start();
+    }
+
+    private void write( NodeLabelUpdate update ) throws Exception
+    {
+        try ( LabelScanWriter writer = store.newWriter() )
+        {
+            writer.write( update );
+        }
+    }
+
+    private Set<Long> nodesWithLabel( int labelId )
+    {
+        LabelScanReader reader = store.newReader();
+        try
+        {
+            return asSet( reader.nodesWithLabel( labelId ) );
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private void assertNodesForLabel( int labelId, long... expectedNodeIds )
+    {
+        Set<Long> expected = new HashSet<>();
+        for ( long nodeId : expectedNodeIds )
+        {
+            expected.add( nodeId );
+        }
+        assertEquals( expected, nodesWithLabel( labelId ) );
+    }
+
+    private void assertAllEntries( Map<Long,Set<Long>> labelsOfNodes ) throws Exception
+    {
+        Map<Long,Set<Long>> expected = new HashMap<>();
+        for ( Map.Entry<Long,Set<Long>> entry : labelsOfNodes.entrySet() )
+        {
+            if ( !entry.getValue().isEmpty() )
+            {
+                expected.put( entry.getKey(), entry.getValue() );
+            }
+        }
+
+        Map<Long,Set<Long>> actual = new HashMap<>();
+        long previousNodeId = -1;
+        try ( AllEntriesLabelScanReader reader = store.newAllEntriesReader() )
+        {
+            for ( NodeLabelRange range : reader )
+            {
+                for ( long nodeId : range.nodes() )
+                {
+                    assertTrue( nodeId > previousNodeId );
+                    previousNodeId = nodeId;
+                    Set<Long> labels = new HashSet<>();
+                    for ( long labelId : range.labels( nodeId ) )
+                    {
+                        labels.add( labelId );
+                    }
+                    actual.put( nodeId, labels );
+                }
+            }
+        }
+        assertEquals( expected, actual );
+    }
+
+    private static long[] toArray( Set<Long> labels )
+    {
+        if ( labels == null )
+        {
+            return NO_LABELS;
+        }
+        long[] result = new long[labels.size()];
+        int i = 0;
+        for ( long labelId : labels )
+        {
+            result[i++] = labelId;
+        }
+        return result;
+    }
+
+    private static class RecordingMonitor implements NativeLabelScanStore.Monitor
+    {
+        boolean noIndex, corruptIndex, rebuilt;
+
+        @Override
+        public void init()
+        {
+        }
+
+        @Override
+        public void noIndex()
+        {
+            noIndex = true;
+        }
+
+        @Override
+        public void corruptIndex( IOException e )
+        {
+            corruptIndex = true;
+        }
+
+        @Override
+        public void rebuilding()
+        {
+        }
+
+        @Override
+        public void rebuilt( long roughNodeCount )
+        {
+            rebuilt = true;
+        }
+    }
+}
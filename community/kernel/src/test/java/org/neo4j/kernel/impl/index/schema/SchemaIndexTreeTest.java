@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaIndexTreeTest
+{
+    private static final Comparator<byte[]> KEY_ORDER = new Comparator<byte[]>()
+    {
+        @Override
+        public int compare( byte[] left, byte[] right )
+        {
+            return SchemaIndexTree.compare( left, right );
+        }
+    };
+
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File file = new File( "index.db" );
+    private final Random random = new Random();
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+
+    @After
+    public void close() throws IOException
+    {
+        if ( pagedFile != null )
+        {
+            pagedFile.close();
+        }
+    }
+
+    @Test
+    public void shouldInsertAndRemoveKeysInKeyOrder() throws Exception
+    {
+        // given
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        TreeSet<byte[]> expected = new TreeSet<>( KEY_ORDER );
+
+        // when
+        for ( int i = 0; i < 20_000; i++ )
+        {
+            byte[] key = randomKey( 40 );
+            if ( random.nextInt( 4 ) == 0 )
+            {
+                assertEquals( expected.remove( key ), tree.remove( key ) );
+            }
+            else
+            {
+                assertEquals( expected.add( key ), tree.insert( key ) );
+            }
+        }
+
+        // then
+        assertKeys( expected, tree );
+    }
+
+    @Test
+    public void shouldReadRanges() throws Exception
+    {
+        // given
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        TreeSet<byte[]> expected = new TreeSet<>( KEY_ORDER );
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            byte[] key = randomKey( 20 );
+            expected.add( key );
+            tree.insert( key );
+        }
+
+        // then
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] from = randomKey( 3 );
+            byte[] to = randomKey( 3 );
+            List<byte[]> range = new ArrayList<>( KEY_ORDER.compare( from, to ) < 0 ? expected.subSet( from, to )
+                                                                                   : new TreeSet<>( KEY_ORDER ) );
+            assertKeys( range, read( tree, from, to ) );
+        }
+    }
+
+    @Test
+    public void shouldReadRangesInReverse() throws Exception
+    {
+        // given
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        TreeSet<byte[]> expected = new TreeSet<>( KEY_ORDER );
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            byte[] key = randomKey( 20 );
+            expected.add( key );
+            tree.insert( key );
+        }
+
+        // then
+        assertKeys( expected.descendingSet(), readDescending( tree, null, null ) );
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] from = randomKey( 3 );
+            byte[] to = randomKey( 3 );
+            List<byte[]> range = new ArrayList<>( KEY_ORDER.compare( from, to ) < 0
+                                                  ? expected.subSet( from, true, to, false ).descendingSet()
+                                                  : new TreeSet<>( KEY_ORDER ) );
+            assertKeys( range, readDescending( tree, from, to ) );
+        }
+    }
+
+    @Test
+    public void shouldSplitOnLargeKeys() throws Exception
+    {
+        // given
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        TreeSet<byte[]> expected = new TreeSet<>( KEY_ORDER );
+
+        // when
+        for ( int i = 0; i < 2_000; i++ )
+        {
+            byte[] key = randomKey( tree.maxKeySize() );
+            expected.add( key );
+            tree.insert( key );
+        }
+
+        // then
+        assertKeys( expected, tree );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotInsertKeysLargerThanTheMaximum() throws Exception
+    {
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        tree.insert( new byte[tree.maxKeySize() + 1] );
+    }
+
+    @Test
+    public void shouldOpenTreeOfLatestCheckPoint() throws Exception
+    {
+        // given
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        TreeSet<byte[]> expected = new TreeSet<>( KEY_ORDER );
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            byte[] key = randomKey( 30 );
+            expected.add( key );
+            tree.insert( key );
+        }
+        tree.setOnline( true );
+        tree.checkpoint();
+
+        // when changes are made after the check point
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            tree.insert( randomKey( 30 ) );
+        }
+        for ( byte[] key : expected )
+        {
+            tree.remove( key );
+        }
+        tree = SchemaIndexTree.open( pagedFile );
+
+        // then
+        assertTrue( tree.isOnline() );
+        assertKeys( expected, tree );
+    }
+
+    @Test
+    public void shouldReuseReplacedPagesAfterCheckPoints() throws Exception
+    {
+        // given
+        SchemaIndexTree tree = SchemaIndexTree.create( map() );
+        List<byte[]> keys = new ArrayList<>();
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            byte[] key = randomKey( 30 );
+            keys.add( key );
+            tree.insert( key );
+        }
+        tree.checkpoint();
+        pagedFile.flushAndForce();
+        long size = fs.get().getFileSize( file );
+
+        // when
+        for ( int round = 0; round < 20; round++ )
+        {
+            for ( int i = 0; i < 500; i++ )
+            {
+                byte[] key = keys.get( random.nextInt( keys.size() ) );
+                tree.remove( key );
+                tree.insert( key );
+            }
+            tree.checkpoint();
+        }
+        pagedFile.flushAndForce();
+
+        // then
+        assertTrue( fs.get().getFileSize( file ) < size * 3 );
+    }
+
+    @Test
+    public void shouldOrderKeysByUnsignedBytesAndPrefixesFirst() throws Exception
+    {
+        assertTrue( SchemaIndexTree.compare( new byte[]{1}, new byte[]{(byte) 0x80} ) < 0 );
+        assertTrue( SchemaIndexTree.compare( new byte[]{1}, new byte[]{1, 0} ) < 0 );
+        assertTrue( SchemaIndexTree.compare( new byte[]{1, 0}, SchemaIndexTree.successor( new byte[]{1, 0} ) ) < 0 );
+        assertEquals( 0, SchemaIndexTree.compare( new byte[]{1, 2}, new byte[]{1, 2} ) );
+        assertFalse( SchemaIndexTree.compare( new byte[]{2}, new byte[]{1, 2} ) < 0 );
+    }
+
+    private PagedFile map() throws IOException
+    {
+        pageCache = pageCacheRule.getPageCache( fs.get() );
+        pagedFile = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE );
+        return pagedFile;
+    }
+
+    private byte[] randomKey( int maxLength )
+    {
+        byte[] key = new byte[1 + random.nextInt( maxLength )];
+        random.nextBytes( key );
+        return key;
+    }
+
+    private void assertKeys( Iterable<byte[]> expected, SchemaIndexTree tree ) throws IOException
+    {
+        assertKeys( expected, read( tree, new byte[0], null ) );
+    }
+
+    private void assertKeys( Iterable<byte[]> expected, List<byte[]> actual )
+    {
+        int i = 0;
+        for ( byte[] key : expected )
+        {
+            assertArrayEquals( key, actual.get( i++ ) );
+        }
+        assertEquals( i, actual.size() );
+    }
+
+    private List<byte[]> read( SchemaIndexTree tree, byte[] from, byte[] to ) throws IOException
+    {
+        List<byte[]> keys = new ArrayList<>();
+        byte[][] batch = new byte[7][];
+        for ( int count; (count = tree.read( from, to, batch )) > 0; )
+        {
+            keys.addAll( Arrays.asList( batch ).subList( 0, count ) );
+            from = SchemaIndexTree.successor( batch[count - 1] );
+        }
+        return keys;
+    }
+
+    private List<byte[]> readDescending( SchemaIndexTree tree, byte[] from, byte[] to ) throws IOException
+    {
+        List<byte[]> keys = new ArrayList<>();
+        byte[][] batch = new byte[7][];
+        for ( int count; (count = tree.readDescending( from, to, batch )) > 0; )
+        {
+            keys.addAll( Arrays.asList( batch ).subList( 0, count ) );
+            to = batch[count - 1];
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.OnDemandJobScheduler;
+import org.neo4j.test.PageCacheRule;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+public class PageCacheWarmerTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule( false );
+
+    private final File storeDir = new File( "store" );
+    private final File file = new File( storeDir, "neostore.nodestore.db" );
+    private FileSystemAbstraction fs;
+
+    @Before
+    public void createStoreFile() throws IOException
+    {
+        fs = fsRule.get();
+        fs.mkdirs( storeDir );
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize(), CREATE );
+              PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            for ( int i = 0; i < 20; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @Test
+    public void mustReloadTheProfiledPagesAfterRestart() throws Exception
+    {
+        // given
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 3, 4, 5, 10 );
+            newWarmer( pageCache ).profile();
+        }
+
+        // when
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            long pagesLoaded = newWarmer( pageCache ).warmUp();
+
+            // then
+            assertThat( pagesLoaded, is( 4L ) );
+            assertThat( residentPages( pagedFile ), is( asList( 3L, 4L, 5L, 10L ) ) );
+        }
+    }
+
+    @Test
+    public void mustNotLoadPagesOfFilesThatAreNotMapped() throws Exception
+    {
+        // given
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 1, 2 );
+            newWarmer( pageCache ).profile();
+        }
+
+        // when
+        pageCache = pageCacheRule.getPageCache( fs );
+        long pagesLoaded = newWarmer( pageCache ).warmUp();
+
+        // then
+        assertThat( pagesLoaded, is( 0L ) );
+        assertTrue( pageCache.listExistingMappings().isEmpty() );
+    }
+
+    @Test
+    public void mustWriteProfileWhenStopped() throws Throwable
+    {
+        // given
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        File profile = new File( storeDir, PageCacheWarmer.PROFILE_FILE_NAME );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 7 );
+            PageCacheWarmer warmer = newWarmer( pageCache );
+            warmer.start();
+            assertFalse( fs.fileExists( profile ) );
+
+            // when
+            warmer.stop();
+        }
+
+        // then
+        assertTrue( fs.fileExists( profile ) );
+    }
+
+    private PageCacheWarmer newWarmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, new OnDemandJobScheduler(), storeDir, 1000,
+                NullLogProvider.getInstance() );
+    }
+
+    private void touch( PagedFile pagedFile, long... filePageIds ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+        {
+            for ( long filePageId : filePageIds )
+            {
+                assertTrue( cursor.next( filePageId ) );
+            }
+        }
+    }
+
+    private List<Long> residentPages( PagedFile pagedFile )
+    {
+        final List<Long> filePageIds = new ArrayList<>();
+        pagedFile.visitResidentPages( new PrimitiveLongVisitor<RuntimeException>()
+        {
+            @Override
+            public boolean visited( long filePageId )
+            {
+                filePageIds.add( filePageId );
+                return false;
+            }
+        } );
+        return filePageIds;
+    }
+}
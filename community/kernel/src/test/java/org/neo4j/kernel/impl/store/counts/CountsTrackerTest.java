@@ -175,6 +175,33 @@ public class CountsTrackerTest
         }
     }
 
+    @Test
+    public void shouldStartCountingFromZeroForKeysNotInExistingStore() throws Exception
+    {
+        // given
+        try ( Lifespan life = new Lifespan() )
+        {
+            CountsTracker tracker = life.add( newTracker() );
+            try ( CountsAccessor.Updater tx = tracker.apply( 2 ).get() )
+            {
+                tx.incrementNodeCount( 0, 5 );
+                tx.incrementNodeCount( 2, 7 );
+            }
+            tracker.rotate( 2 );
+
+            // when
+            try ( CountsAccessor.Updater tx = tracker.apply( 3 ).get() )
+            {
+                tx.incrementNodeCount( 1, 3 );
+            }
+
+            // then
+            assertEquals( 3, tracker.nodeCount( 1, Registers.newDoubleLongRegister() ).readSecond() );
+            assertEquals( 7, tracker.nodeCount( 2, Registers.newDoubleLongRegister() ).readSecond() );
+            tracker.rotate( 3 );
+        }
+    }
+
     @Test
     public void shouldBeAbleToReadUpToDateValueWhileAnotherThreadIsPerformingRotation() throws Exception
     {
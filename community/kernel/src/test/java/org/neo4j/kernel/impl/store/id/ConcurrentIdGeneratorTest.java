@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentIdGeneratorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreads() throws Exception
+    {
+        // GIVEN
+        final ConcurrentIdGenerator idGenerator = newIdGenerator( 10 );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        // WHEN
+        for ( int i = 0; i < 4; i++ )
+        {
+            futures.add( executor.submit( new Callable<List<Long>>()
+            {
+                @Override
+                public List<Long> call() throws Exception
+                {
+                    List<Long> ids = new ArrayList<>();
+                    for ( int j = 0; j < 1_000; j++ )
+                    {
+                        ids.add( idGenerator.nextId() );
+                        if ( j % 7 == 0 )
+                        {
+                            idGenerator.releaseLease();
+                        }
+                    }
+                    return ids;
+                }
+            } ) );
+        }
+
+        // THEN
+        Set<Long> allIds = new HashSet<>();
+        for ( Future<List<Long>> future : futures )
+        {
+            for ( long id : future.get() )
+            {
+                assertTrue( "Id " + id + " handed out twice", allIds.add( id ) );
+            }
+        }
+        executor.shutdown();
+        assertEquals( 4_000, allIds.size() );
+    }
+
+    @Test
+    public void shouldLetOtherThreadsUseIdsOfAReleasedLease() throws Exception
+    {
+        // GIVEN
+        final ConcurrentIdGenerator idGenerator = newIdGenerator( 10 );
+        assertEquals( 0, idGenerator.nextId() );
+        idGenerator.releaseLease();
+
+        // WHEN
+        long idFromOtherThread = executeInOtherThread( new Callable<Long>()
+        {
+            @Override
+            public Long call() throws Exception
+            {
+                return idGenerator.nextId();
+            }
+        } );
+
+        // THEN
+        assertEquals( 1, idFromOtherThread );
+        assertEquals( 10, idGenerator.getHighId() );
+    }
+
+    @Test
+    public void shouldFreeLeasedButUnusedIdsOnClose() throws Exception
+    {
+        // GIVEN
+        ConcurrentIdGenerator idGenerator = newIdGenerator( 10 );
+        assertEquals( 0, idGenerator.nextId() );
+        assertEquals( 1, idGenerator.nextId() );
+
+        // WHEN
+        idGenerator.close();
+
+        // THEN
+        IdGenerator reopened = new IdGeneratorImpl( fsr.get(), file, 100, 1000, false, 0 );
+        assertEquals( 8, reopened.getDefragCount() );
+        assertEquals( 2, reopened.nextId() );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldPassFreedIdsOnToTheDelegateInBatches() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator delegate = new IdGeneratorImpl( fsr.get(), file, 100, 1000, true, 0 );
+        ConcurrentIdGenerator idGenerator = new ConcurrentIdGenerator( delegate, 10, 3 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            idGenerator.nextId();
+        }
+
+        // WHEN
+        idGenerator.freeId( 4 );
+        idGenerator.freeId( 5 );
+
+        // THEN
+        assertEquals( 0, delegate.getDefragCount() );
+        assertEquals( 2, idGenerator.getDefragCount() );
+
+        // WHEN
+        idGenerator.freeId( 6 );
+
+        // THEN
+        assertEquals( 3, delegate.getDefragCount() );
+        assertEquals( 3, idGenerator.getDefragCount() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldDiscardLeasesWhenHighIdIsSet() throws Exception
+    {
+        // GIVEN
+        ConcurrentIdGenerator idGenerator = newIdGenerator( 10 );
+        assertEquals( 0, idGenerator.nextId() );
+
+        // WHEN
+        idGenerator.setHighId( 100 );
+
+        // THEN
+        assertEquals( 100, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    private ConcurrentIdGenerator newIdGenerator( int leaseSize )
+    {
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator delegate = new IdGeneratorImpl( fsr.get(), file, 100, 10_000, false, 0 );
+        return new ConcurrentIdGenerator( delegate, leaseSize, 100 );
+    }
+
+    private <T> T executeInOtherThread( Callable<T> task ) throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            return executor.submit( task ).get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
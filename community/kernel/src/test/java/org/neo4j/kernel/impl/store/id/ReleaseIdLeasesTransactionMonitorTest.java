@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.kernel.IdType;
+import org.neo4j.kernel.impl.transaction.TransactionMonitor;
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ReleaseIdLeasesTransactionMonitorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldReleaseLeasesWhenTransactionIsRolledBack() throws Exception
+    {
+        // GIVEN
+        ConcurrentIdGeneratorFactory idGeneratorFactory = new ConcurrentIdGeneratorFactory( fsr.get(), 10 );
+        idGeneratorFactory.create( file, 0, false );
+        final IdGenerator idGenerator = idGeneratorFactory.open( file, 100, IdType.NODE, 0 );
+        TransactionMonitor delegate = mock( TransactionMonitor.class );
+        TransactionMonitor monitor = new ReleaseIdLeasesTransactionMonitor( delegate, idGeneratorFactory );
+        assertEquals( 0, idGenerator.nextId() );
+
+        // WHEN
+        monitor.transactionFinished( false );
+
+        // THEN the rest of the lease should be available to other threads
+        long idFromOtherThread = executeInOtherThread( new Callable<Long>()
+        {
+            @Override
+            public Long call() throws Exception
+            {
+                return idGenerator.nextId();
+            }
+        } );
+        assertEquals( 1, idFromOtherThread );
+        assertEquals( 10, idGenerator.getHighId() );
+        verify( delegate ).transactionFinished( false );
+        idGenerator.close();
+    }
+
+    private <T> T executeInOtherThread( Callable<T> task ) throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            return executor.submit( task ).get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
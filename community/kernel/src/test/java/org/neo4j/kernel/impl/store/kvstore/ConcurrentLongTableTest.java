@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentLongTableTest
+{
+    private final ConcurrentLongTable table = new ConcurrentLongTable( 16, 16 );
+
+    @Test
+    public void shouldFindInsertedEntries() throws Exception
+    {
+        // when
+        for ( long i = 0; i < 5_000; i++ )
+        {
+            table.insert( key( i % 3, i ), value( i, -i ) );
+        }
+
+        // then
+        assertEquals( 5_000, table.size() );
+        for ( long i = 0; i < 5_000; i++ )
+        {
+            int entry = table.find( key( i % 3, i ) );
+            assertTrue( entry != -1 );
+            assertEquals( i, table.value( entry, 0 ) );
+            assertEquals( -i, table.value( entry, 1 ) );
+        }
+        assertEquals( -1, table.find( key( 1, 0 ) ) );
+    }
+
+    @Test
+    public void shouldNotInsertTheSameKeyTwice() throws Exception
+    {
+        // given
+        int entry = table.insert( key( 1, 2 ), value( 3, 4 ) );
+
+        // when
+        int again = table.insert( key( 1, 2 ), value( 5, 6 ) );
+
+        // then
+        assertEquals( entry, again );
+        assertEquals( 1, table.size() );
+        assertEquals( 3, table.value( entry, 0 ) );
+    }
+
+    @Test
+    public void shouldUpdateValuesByCompareAndSet() throws Exception
+    {
+        // given
+        int entry = table.insert( key( 1, 2 ), value( 3, 4 ) );
+
+        // then
+        assertTrue( table.compareAndSetValue( entry, 1, 4, 10 ) );
+        assertFalse( table.compareAndSetValue( entry, 1, 4, 11 ) );
+        assertEquals( 3, table.value( entry, 0 ) );
+        assertEquals( 10, table.value( entry, 1 ) );
+    }
+
+    @Test
+    public void shouldSortEntriesByUnsignedKeyOrder() throws Exception
+    {
+        // given
+        long[][] keys = {{-1, 0}, {0, 5}, {Long.MAX_VALUE, 0}, {0, -1}, {Long.MIN_VALUE, 3}, {0, 0}, {1, 1}};
+        for ( long[] key : keys )
+        {
+            table.insert( key( key[0], key[1] ), value( 0, 0 ) );
+        }
+
+        // when
+        int[] entries = table.sortedEntries();
+
+        // then
+        BigEndianByteArrayBuffer previous = null;
+        for ( int entry : entries )
+        {
+            BigEndianByteArrayBuffer key = new BigEndianByteArrayBuffer( 16 );
+            table.readKey( entry, key );
+            if ( previous != null )
+            {
+                assertTrue( previous + " should sort before " + key, key.compareTo( previous.buffer ) > 0 );
+            }
+            previous = key;
+        }
+        assertEquals( keys.length, entries.length );
+    }
+
+    private static BigEndianByteArrayBuffer key( long first, long second )
+    {
+        BigEndianByteArrayBuffer key = new BigEndianByteArrayBuffer( 16 );
+        key.putLong( 0, first );
+        key.putLong( 8, second );
+        return key;
+    }
+
+    private static BigEndianByteArrayBuffer value( long first, long second )
+    {
+        return key( first, second );
+    }
+}
@@ -104,7 +104,8 @@ public class IndexLookupTest
         NeoStoresSupplier neoStoresSupplier = resolver.resolveDependency( NeoStoresSupplier.class );
         NeoStores neoStores = neoStoresSupplier.get();
         SchemaStore schemaStore = neoStores.getSchemaStore();
-        SchemaIndexProvider schemaIndexProvider = resolver.resolveDependency( SchemaIndexProvider.class );
+        SchemaIndexProvider schemaIndexProvider = resolver.resolveDependency( SchemaIndexProvider.class,
+                SchemaIndexProvider.HIGHEST_PRIORITIZED_OR_NONE );
         indexLookup = new IndexLookup( schemaStore, schemaIndexProvider );
 
         LabelTokenStore labelTokenStore = neoStores.getLabelTokenStore();
@@ -30,14 +30,22 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.impl.index.IndexDefineCommand;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -52,6 +60,10 @@ import org.neo4j.kernel.impl.transaction.log.entry.OnePhaseCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
+import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.impl.util.SynchronizedArrayIdOrderingQueue;
 import org.neo4j.kernel.lifecycle.LifeRule;
@@ -61,12 +73,14 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
@@ -81,6 +95,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.neo4j.helpers.Exceptions.contains;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
 import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
 import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
 
@@ -226,7 +241,8 @@ public class BatchingTransactionAppenderTest
         String failureMessage = "Forces a failure";
         WritableLogChannel channel = spy( new InMemoryLogChannel() );
         IOException failure = new IOException( failureMessage );
-        when( channel.putInt( anyInt() ) ).thenThrow( failure );
+        // Transactions are serialized into a buffer first, which is then put into the log channel in one go
+        doThrow( failure ).when( channel ).put( any( byte[].class ), anyInt() );
         when( logFile.getWriter() ).thenReturn( channel );
         when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
         Mockito.reset( kernelHealth );
@@ -301,6 +317,43 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldSerializeTransactionsOutsideOfTheLogFileMonitor() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 15L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, kernelHealth ) );
+        life.start();
+
+        // WHEN
+        final AtomicBoolean serializedWhileHoldingLogFileMonitor = new AtomicBoolean();
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation(
+                singleCreateNodeCommand() )
+        {
+            @Override
+            public void accept( Visitor<Command,IOException> visitor ) throws IOException
+            {
+                serializedWhileHoldingLogFileMonitor.set( Thread.holdsLock( logFile ) );
+                super.accept( visitor );
+            }
+        };
+        transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, -1 );
+        Commitment commitment = appender.append( transaction, logAppendEvent );
+
+        // THEN
+        assertEquals( 15L, commitment.transactionId() );
+        assertFalse( serializedWhileHoldingLogFileMonitor.get() );
+        final LogEntryReader<ReadableVersionableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableVersionableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( 15L, reader.get().getCommitEntry().getTxId() );
+        }
+    }
+
     @SuppressWarnings( "rawtypes" )
     @Test
     public void shouldOrderTransactionsMakingLegacyIndexChanges() throws Exception
@@ -396,6 +449,144 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldAppendConcurrentCommittersInOneBatchWithOneForce() throws Exception
+    {
+        // GIVEN a log writer that doesn't start until all committers have queued up their transactions
+        InMemoryLogChannel channel = spy( new InMemoryLogChannel() );
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 1L, 2L, 3L, 4L, 5L );
+        CountDownLatch logWriterMayStart = new CountDownLatch( 1 );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, kernelHealth, startingWhen( logWriterMayStart ) ) );
+        life.start();
+
+        // WHEN
+        int committers = 5;
+        CountDownLatch queued = new CountDownLatch( committers );
+        List<Future<Commitment>> futures =
+                appendConcurrently( appender, committers, new QueueTrackingLogAppendEvent( queued ) );
+        queued.await();
+        logWriterMayStart.countDown();
+
+        // THEN
+        Set<Long> transactionIds = new HashSet<>();
+        for ( Future<Commitment> future : futures )
+        {
+            transactionIds.add( future.get().transactionId() );
+        }
+        assertEquals( asSet( 1L, 2L, 3L, 4L, 5L ), transactionIds );
+        verify( channel, times( 1 ) ).emptyBufferIntoChannelAndClearIt();
+        verify( transactionIdStore, times( committers ) ).transactionCommitted( anyLong(), anyLong() );
+    }
+
+    @Test
+    public void shouldReportTheForceOfABatchToEveryCommitterInIt() throws Exception
+    {
+        // GIVEN a log writer that doesn't start until all committers have queued up their transactions
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 1L, 2L, 3L );
+        CountDownLatch logWriterMayStart = new CountDownLatch( 1 );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, kernelHealth, startingWhen( logWriterMayStart ) ) );
+        life.start();
+
+        // WHEN
+        int committers = 3;
+        QueueTrackingLogAppendEvent event = new QueueTrackingLogAppendEvent( new CountDownLatch( committers ) );
+        List<Future<Commitment>> futures = appendConcurrently( appender, committers, event );
+        event.queued.await();
+        logWriterMayStart.countDown();
+        for ( Future<Commitment> future : futures )
+        {
+            future.get();
+        }
+
+        // THEN
+        assertEquals( committers, event.forces.get() );
+    }
+
+    @Test
+    public void shouldFailClearlyWhenAppendingBeforeStarted() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        TransactionAppender appender = new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, kernelHealth );
+
+        // WHEN
+        try
+        {
+            appender.append( createTransaction( false, 0 ), logAppendEvent );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // THEN
+            assertThat( e.getMessage(), containsString( "not been started" ) );
+        }
+        verifyZeroInteractions( transactionIdStore );
+    }
+
+    @Test
+    public void shouldFailAllCommittersInBatchAndCloseTheirTransactionIdsIfAppendFailsMidBatch() throws Exception
+    {
+        // GIVEN a log writer that doesn't start until all committers have queued up their transactions
+        // and a log channel that fails when the second transaction in the batch is appended to it
+        WritableLogChannel channel = spy( new InMemoryLogChannel() );
+        final IOException failure = new IOException( "Forces a failure" );
+        doAnswer( new Answer<WritableLogChannel>()
+        {
+            private int appended;
+
+            @Override
+            public WritableLogChannel answer( InvocationOnMock invocation ) throws Throwable
+            {
+                if ( ++appended == 2 )
+                {
+                    throw failure;
+                }
+                invocation.callRealMethod();
+                return (WritableLogChannel) invocation.getMock();
+            }
+        } ).when( channel ).put( any( byte[].class ), anyInt() );
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 1L, 2L, 3L );
+        Mockito.reset( kernelHealth );
+        CountDownLatch logWriterMayStart = new CountDownLatch( 1 );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, kernelHealth, startingWhen( logWriterMayStart ) ) );
+        life.start();
+
+        // WHEN
+        int committers = 3;
+        CountDownLatch queued = new CountDownLatch( committers );
+        List<Future<Commitment>> futures =
+                appendConcurrently( appender, committers, new QueueTrackingLogAppendEvent( queued ) );
+        queued.await();
+        logWriterMayStart.countDown();
+
+        // THEN every committer in the batch should fail, also the one appended before the failure
+        for ( Future<Commitment> future : futures )
+        {
+            try
+            {
+                future.get();
+                fail( "Expected append to fail" );
+            }
+            catch ( ExecutionException e )
+            {
+                assertSame( failure, e.getCause() );
+            }
+        }
+        // ... and the transaction ids handed out before the failure should have been closed
+        verify( transactionIdStore, times( 2 ) ).nextCommittingTransactionId();
+        verify( transactionIdStore ).transactionClosed( eq( 1L ), anyLong(), anyLong() );
+        verify( transactionIdStore ).transactionClosed( eq( 2L ), anyLong(), anyLong() );
+        verify( transactionIdStore, times( 0 ) ).transactionCommitted( anyLong(), anyLong() );
+        verify( kernelHealth ).panic( failure );
+    }
+
     @Test
     public void shouldBeAbleToWriteACheckPoint() throws Throwable
     {
@@ -516,6 +707,106 @@ public class BatchingTransactionAppenderTest
         return futures;
     }
 
+    private ThreadFactory startingWhen( final CountDownLatch latch )
+    {
+        return new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( final Runnable task )
+            {
+                Thread thread = new Thread( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            latch.await();
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            throw new RuntimeException( e );
+                        }
+                        task.run();
+                    }
+                } );
+                thread.setDaemon( true );
+                return thread;
+            }
+        };
+    }
+
+    private List<Future<Commitment>> appendConcurrently( final TransactionAppender appender, int committers,
+            final LogAppendEvent event )
+    {
+        ExecutorService executor = cleanup.add( Executors.newCachedThreadPool() );
+        List<Future<Commitment>> futures = new ArrayList<>();
+        for ( int i = 0; i < committers; i++ )
+        {
+            final TransactionRepresentation transaction = createTransaction( false, i );
+            futures.add( executor.submit( new Callable<Commitment>()
+            {
+                @Override
+                public Commitment call() throws IOException
+                {
+                    return appender.append( transaction, event );
+                }
+            } ) );
+        }
+        return futures;
+    }
+
+    /**
+     * Counts down a latch when a committer starts waiting for the log writer, i.e. after it has queued up its
+     * transaction. Also counts the log forces reported to it.
+     */
+    private static class QueueTrackingLogAppendEvent implements LogAppendEvent
+    {
+        private final CountDownLatch queued;
+        private final AtomicInteger forces = new AtomicInteger();
+
+        QueueTrackingLogAppendEvent( CountDownLatch queued )
+        {
+            this.queued = queued;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        @Override
+        public void setLogRotated( boolean logRotated )
+        {
+        }
+
+        @Override
+        public LogRotateEvent beginLogRotate()
+        {
+            return LogRotateEvent.NULL;
+        }
+
+        @Override
+        public SerializeTransactionEvent beginSerializeTransaction()
+        {
+            return SerializeTransactionEvent.NULL;
+        }
+
+        @Override
+        public LogForceWaitEvent beginLogForceWait()
+        {
+            queued.countDown();
+            return LogForceWaitEvent.NULL;
+        }
+
+        @Override
+        public LogForceEvent beginLogForce()
+        {
+            forces.incrementAndGet();
+            return LogForceEvent.NULL;
+        }
+    }
+
     private TransactionRepresentation createTransaction( boolean includeLegacyIndexCommands, int i )
     {
         Collection<Command> commands = new ArrayList<>();
@@ -60,6 +60,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.neo4j.helpers.NamedThreadFactory.daemon;
 import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.DEFAULT_NAME;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LOG_VERSION;
 import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
@@ -110,6 +111,17 @@ public class PhysicalLogicalTransactionStoreTest
 
     @Test
     public void shouldOpenAndRecoverExistingData() throws Exception
+    {
+        openAndRecoverExistingData( 0 );
+    }
+
+    @Test
+    public void shouldOpenAndRecoverExistingDataReadingTransactionsAhead() throws Exception
+    {
+        openAndRecoverExistingData( 10 );
+    }
+
+    private void openAndRecoverExistingData( int readAheadTransactions ) throws Exception
     {
         // GIVEN
         TransactionIdStore transactionIdStore = new DeadSimpleTransactionIdStore();
@@ -138,7 +150,8 @@ public class PhysicalLogicalTransactionStoreTest
         final AtomicBoolean recoveryRequiredCalled = new AtomicBoolean();
         FakeRecoveryVisitor visitor = new FakeRecoveryVisitor( additionalHeader, masterId,
                 authorId, timeStarted, timeCommitted, latestCommittedTxWhenStarted );
-        final LogFileRecoverer recoverer = new LogFileRecoverer( new VersionAwareLogEntryReader<>(), visitor );
+        final LogFileRecoverer recoverer = new LogFileRecoverer( new VersionAwareLogEntryReader<>(), visitor,
+                readAheadTransactions, daemon( "RecoveryLogReader" ) );
         logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000, transactionIdStore, mock( LogVersionRepository.class ), monitor, positionCache ) );
 
         life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
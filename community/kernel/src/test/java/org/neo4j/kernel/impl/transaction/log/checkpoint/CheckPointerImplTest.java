@@ -28,6 +28,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
@@ -246,6 +247,27 @@ public class CheckPointerImplTest
         verifyNoMoreInteractions( appender );
     }
 
+    @Test
+    public void shouldReportBytesFlushedInTheBackgroundAndByTheCheckPoint() throws Throwable
+    {
+        // Given
+        PageCacheMonitor pageCacheMonitor = mock( PageCacheMonitor.class );
+        LogCheckPointEvent event = mock( LogCheckPointEvent.class );
+        when( tracer.beginCheckPoint() ).thenReturn( event );
+        when( pageCacheMonitor.countBytesWritten() ).thenReturn( 100l, 1_000l, 1_200l );
+        when( threshold.isCheckPointingNeeded( anyLong(), eq( INFO ) ) ).thenReturn( true );
+        mockTxIdStore();
+        CheckPointerImpl checkPointing = new CheckPointerImpl( txIdStore, threshold, flusher, logPruning, appender,
+                health, NullLogProvider.getInstance(), tracer, pageCacheMonitor );
+        checkPointing.start();
+
+        // When
+        checkPointing.checkPointIfNeeded( INFO );
+
+        // Then
+        verify( event ).flushed( 900, 200 );
+    }
+
     private CheckPointerImpl checkPointer( Lock lock )
     {
         return new CheckPointerImpl( txIdStore, threshold, flusher, logPruning, appender, health,
@@ -56,11 +56,41 @@ public class DefaultCheckPointerTracerTest
         assertEquals( 50, tracer.checkPointAccumulatedTotalTimeMillis() );
     }
 
+    @Test
+    public void shouldAccumulateFlushedBytesAndComputeBackgroundFlushRate() throws Throwable
+    {
+        DefaultCheckPointerTracer tracer = new DefaultCheckPointerTracer( clock );
+
+        try ( LogCheckPointEvent event = tracer.beginCheckPoint() )
+        {
+            event.flushed( 500, 100 );
+            clock.forward( 10, TimeUnit.MILLISECONDS );
+        }
+
+        assertEquals( 500, tracer.backgroundFlushedBytes() );
+        assertEquals( 100, tracer.checkPointFlushedBytes() );
+        assertEquals( 0, tracer.backgroundFlushRateBytesPerSecond() );
+
+        clock.forward( 2, TimeUnit.SECONDS );
+        try ( LogCheckPointEvent event = tracer.beginCheckPoint() )
+        {
+            event.flushed( 4_000, 50 );
+            clock.forward( 10, TimeUnit.MILLISECONDS );
+        }
+
+        assertEquals( 4_500, tracer.backgroundFlushedBytes() );
+        assertEquals( 150, tracer.checkPointFlushedBytes() );
+        assertEquals( 2_000, tracer.backgroundFlushRateBytesPerSecond() );
+    }
+
     @Test
     public void shouldReturnZeroIfNoDataIsAvailable() throws Throwable
     {
         DefaultCheckPointerTracer tracer = new DefaultCheckPointerTracer( clock );
         assertEquals( 0, tracer.numberOfCheckPointEvents() );
         assertEquals( 0, tracer.checkPointAccumulatedTotalTimeMillis() );
+        assertEquals( 0, tracer.backgroundFlushedBytes() );
+        assertEquals( 0, tracer.checkPointFlushedBytes() );
+        assertEquals( 0, tracer.backgroundFlushRateBytesPerSecond() );
     }
 }
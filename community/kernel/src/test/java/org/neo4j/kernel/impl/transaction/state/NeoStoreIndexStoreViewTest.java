@@ -52,8 +52,12 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.StoreAccess;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.register.Registers;
 import org.neo4j.test.EmbeddedDatabaseRule;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -154,6 +158,57 @@ public class NeoStoreIndexStoreViewTest
         assertTrue( property.valueEquals( "Alistair" ) );
     }
 
+    @Test
+    public void shouldKeepCountsOfCompositeIndexesWithCollidingPropertyKeyHashesApart() throws Exception
+    {
+        // given two composite indexes whose property keys, [n,n+31] and [n+1,n], have the same array hash code
+        int[] propertyKeyIds = new int[32];
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            ThreadToStatementContextBridge bridge =
+                    graphDb.getDependencyResolver().resolveDependency( ThreadToStatementContextBridge.class );
+            try ( Statement statement = bridge.get() )
+            {
+                propertyKeyIds[0] = propertyKeyId;
+                for ( int i = 1; i < propertyKeyIds.length; i++ )
+                {
+                    propertyKeyIds[i] = statement.dataWriteOperations().propertyKeyGetOrCreateForName( "p" + i );
+                    assertEquals( propertyKeyId + i, propertyKeyIds[i] );
+                }
+            }
+            tx.success();
+        }
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            graphDb.schema().indexFor( label ).on( "name" ).on( "p31" ).create();
+            graphDb.schema().indexFor( label ).on( "p1" ).on( "name" ).create();
+            tx.success();
+        }
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            graphDb.schema().awaitIndexesOnline( 10, SECONDS );
+            tx.success();
+        }
+        IndexDescriptor first = new IndexDescriptor( labelId, new int[]{propertyKeyIds[0], propertyKeyIds[31]} );
+        IndexDescriptor second = new IndexDescriptor( labelId, new int[]{propertyKeyIds[1], propertyKeyIds[0]} );
+
+        // when
+        storeView.replaceIndexCounts( first, 1, 2, 3 );
+        storeView.replaceIndexCounts( second, 4, 5, 6 );
+
+        // then
+        DoubleLongRegister register = Registers.newDoubleLongRegister();
+        storeView.indexSample( first, register );
+        assertEquals( 1, register.readFirst() );
+        assertEquals( 2, register.readSecond() );
+        storeView.indexUpdatesAndSize( first, register );
+        assertEquals( 0, register.readFirst() );
+        assertEquals( 3, register.readSecond() );
+        storeView.indexSample( second, register );
+        assertEquals( 4, register.readFirst() );
+        assertEquals( 5, register.readSecond() );
+    }
+
     Map<Long, Lock> lockMocks = new HashMap<>();
 
     @Before
@@ -105,6 +105,7 @@ public class RecoveryVisitorTest
 
         visitor.close();
 
+        verify( storeApplier ).awaitAppliedTransactions();
         verify( store, times( 1 ) ).setLastCommittedAndClosedTransactionId(
                 commitEntry.getTxId(),
                 LogEntryStart.checksum( startEntry ),
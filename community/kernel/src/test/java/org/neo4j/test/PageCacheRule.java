@@ -22,11 +22,14 @@ package org.neo4j.test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
@@ -168,6 +171,17 @@ public class PageCacheRule extends ExternalResource
             return new PossiblyInconsistentPagedFile( pagedFile, decision );
         }
 
+        @Override
+        public List<PagedFile> listExistingMappings() throws IOException
+        {
+            List<PagedFile> pagedFiles = new ArrayList<>();
+            for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+            {
+                pagedFiles.add( new PossiblyInconsistentPagedFile( pagedFile, decision ) );
+            }
+            return pagedFiles;
+        }
+
         @Override
         public void flushAndForce() throws IOException
         {
@@ -240,6 +254,24 @@ public class PageCacheRule extends ExternalResource
             return pagedFile.getLastPageId();
         }
 
+        @Override
+        public File file()
+        {
+            return pagedFile.file();
+        }
+
+        @Override
+        public <E extends Exception> void visitResidentPages( PrimitiveLongVisitor<E> visitor ) throws E
+        {
+            pagedFile.visitResidentPages( visitor );
+        }
+
+        @Override
+        public void prefetch( long startFilePageId, int pageCount ) throws IOException
+        {
+            pagedFile.prefetch( startFilePageId, pageCount );
+        }
+
         @Override
         public void close() throws IOException
         {
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.IdType;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.unsafe.impl.batchimport.ImportCheckpoint.Stage;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMapper;
+import org.neo4j.unsafe.impl.batchimport.store.BatchingNeoStores;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.iterator;
+
+public class ImportCheckpointTest
+{
+    @Before
+    public void createStoreDir() throws IOException
+    {
+        fsr.get().mkdirs( storeDir );
+    }
+
+    @Test
+    public void shouldFlushAndForceStoresBeforeWritingState() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = spy( fsr.get() );
+        ImportCheckpoint checkpoint = ImportCheckpoint.empty( fs, storeDir );
+
+        // WHEN
+        checkpoint.nodesCompleted( neoStores, idMapper, cache, 0, 0, iterator(), 0 );
+
+        // THEN
+        InOrder inOrder = inOrder( neoStores, fs );
+        inOrder.verify( neoStores ).flushAndForce();
+        inOrder.verify( fs ).openAsOutputStream( eq( stateFile( Stage.NODES ) ), eq( false ) );
+    }
+
+    @Test
+    public void shouldLoadLastCompletedStage() throws Exception
+    {
+        // GIVEN
+        ImportCheckpoint checkpoint = ImportCheckpoint.empty( fsr.get(), storeDir );
+        when( neoStores.getHighId( IdType.NODE ) ).thenReturn( 15L );
+        checkpoint.nodesCompleted( neoStores, idMapper, cache, 5, 3, iterator( 7, 9 ), 1 );
+        when( neoStores.getHighId( IdType.RELATIONSHIP ) ).thenReturn( 20L );
+        checkpoint.relationshipsCompleted( neoStores, cache, 2 );
+
+        // WHEN
+        ImportCheckpoint loaded = ImportCheckpoint.load( fsr.get(), storeDir );
+
+        // THEN
+        assertEquals( Stage.RELATIONSHIPS, loaded.stage() );
+        assertTrue( loaded.completed( Stage.NODES ) );
+        assertFalse( loaded.completed( Stage.NODE_FIRST_RELATIONSHIPS ) );
+        assertEquals( 5, loaded.firstNewNodeId() );
+        assertEquals( 3, loaded.firstNewRelationshipId() );
+        assertArrayEquals( new long[] {7, 9}, asArray( loaded.duplicateNodeIds() ) );
+        assertEquals( 2, loaded.badEntries() );
+        BatchingNeoStores resumedStores = mock( BatchingNeoStores.class );
+        loaded.restoreHighIds( resumedStores );
+        verify( resumedStores ).setHighId( IdType.NODE, 15L );
+        verify( resumedStores ).setHighId( IdType.RELATIONSHIP, 20L );
+        assertFalse( fsr.get().fileExists( stateFile( Stage.NODES ) ) );
+    }
+
+    @Test
+    public void shouldKeepPreviousCheckpointIfStoresCouldNotBeForced() throws Exception
+    {
+        // GIVEN
+        ImportCheckpoint checkpoint = ImportCheckpoint.empty( fsr.get(), storeDir );
+        checkpoint.nodesCompleted( neoStores, idMapper, cache, 0, 0, iterator(), 0 );
+        doThrow( new IOException( "Unable to force" ) ).when( neoStores ).flushAndForce();
+
+        // WHEN
+        try
+        {
+            checkpoint.relationshipsCompleted( neoStores, cache, 0 );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // THEN
+            assertEquals( "Unable to force", e.getMessage() );
+        }
+        assertFalse( fsr.get().fileExists( stateFile( Stage.RELATIONSHIPS ) ) );
+        ImportCheckpoint loaded = ImportCheckpoint.load( fsr.get(), storeDir );
+        assertEquals( Stage.NODES, loaded.stage() );
+        loaded.loadIdMapper( idMapper );
+        verify( idMapper ).load( any( DataInput.class ) );
+    }
+
+    @Test
+    public void shouldRemoveAllFilesOfCheckpoint() throws Exception
+    {
+        // GIVEN
+        ImportCheckpoint checkpoint = ImportCheckpoint.empty( fsr.get(), storeDir );
+        checkpoint.nodesCompleted( neoStores, idMapper, cache, 0, 0, iterator(), 0 );
+        assertTrue( ImportCheckpoint.exists( fsr.get(), storeDir ) );
+
+        // WHEN
+        checkpoint.remove();
+
+        // THEN
+        assertFalse( ImportCheckpoint.exists( fsr.get(), storeDir ) );
+        assertEquals( 0, fsr.get().listFiles( storeDir ).length );
+    }
+
+    private File stateFile( Stage stage )
+    {
+        return new File( storeDir, ImportCheckpoint.FILE_NAME + "-" + stage.name().toLowerCase() );
+    }
+
+    public final @Rule EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    private final File storeDir = new File( "dir" ).getAbsoluteFile();
+    private final BatchingNeoStores neoStores = mock( BatchingNeoStores.class );
+    private final IdMapper idMapper = mock( IdMapper.class );
+    private final NodeRelationshipCache cache = mock( NodeRelationshipCache.class );
+}
@@ -87,7 +87,8 @@ public class IntArrayTest
     {
         return Arrays.asList(
                 new Object[] {NumberArrayFactory.HEAP},
-                new Object[] {NumberArrayFactory.OFF_HEAP}
+                new Object[] {NumberArrayFactory.OFF_HEAP},
+                new Object[] {NumberArrayFactory.MAPPED}
                 );
     }
 
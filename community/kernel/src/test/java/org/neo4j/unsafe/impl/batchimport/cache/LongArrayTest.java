@@ -100,7 +100,8 @@ public class LongArrayTest
     {
         return Arrays.asList(
                 new Object[] {NumberArrayFactory.HEAP},
-                new Object[] {NumberArrayFactory.OFF_HEAP}
+                new Object[] {NumberArrayFactory.OFF_HEAP},
+                new Object[] {NumberArrayFactory.MAPPED}
                 );
     }
 
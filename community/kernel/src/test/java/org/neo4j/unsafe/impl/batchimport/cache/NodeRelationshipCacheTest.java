@@ -23,6 +23,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.Random;
 
 import org.neo4j.graphdb.Direction;
@@ -161,6 +165,104 @@ public class NodeRelationshipCacheTest
         verifyNoMoreInteractions( visitor );
     }
 
+    @Test
+    public void shouldKeepExistingSparseNodeSparseAndLinkInFrontOfItsChain() throws Exception
+    {
+        // GIVEN a sparse node which already has a chain of 3 relationships, starting at 10
+        long node = 5;
+        NodeRelationshipCache link = new NodeRelationshipCache( NumberArrayFactory.AUTO, 4 );
+        link.putExistingRelationship( node, 0, Direction.OUTGOING, 10, 3 );
+
+        // WHEN importing enough relationships to otherwise make it dense
+        increment( link, node, 5 );
+
+        // THEN
+        assertFalse( link.isDense( node ) );
+        assertEquals( 1L, link.countExistingSparseNodesReachingDenseThreshold( node + 1 ) );
+        assertEquals( 10L, link.getAndPutRelationship( node, 1, Direction.INCOMING, 20, false ) );
+        assertEquals( 20L, link.getAndPutRelationship( node, 0, Direction.OUTGOING, 21, false ) );
+        assertEquals( 21L, link.getRelationship( node, 0, Direction.OUTGOING ) );
+        assertEquals( 8, link.getCount( node, 0, Direction.OUTGOING ) );
+    }
+
+    @Test
+    public void shouldKeepExistingDenseNodeDenseAndLinkInFrontOfItsGroupChains() throws Exception
+    {
+        // GIVEN a dense node which already has chains for two types
+        long node = 3;
+        NodeRelationshipCache link = new NodeRelationshipCache( NumberArrayFactory.AUTO, 100 );
+        link.markExistingDenseNode( node );
+        link.putExistingRelationship( node, 2, Direction.OUTGOING, 10, 3 );
+        link.putExistingRelationship( node, 0, Direction.INCOMING, 11, 2 );
+        assertFalse( link.hasNewRelationships( node ) );
+
+        // WHEN importing a couple of relationships for it
+        increment( link, node, 2 );
+        long previousOut = link.getAndPutRelationship( node, 2, Direction.OUTGOING, 20, true );
+        long previousLoop = link.getAndPutRelationship( node, 0, Direction.BOTH, 21, true );
+
+        // THEN
+        assertTrue( link.isDense( node ) );
+        assertTrue( link.hasNewRelationships( node ) );
+        assertEquals( 10L, previousOut );
+        assertEquals( -1L, previousLoop );
+        assertEquals( 4, link.getCount( node, 2, Direction.OUTGOING ) );
+        assertEquals( 2, link.getCount( node, 0, Direction.INCOMING ) );
+        assertEquals( 11L, link.getRelationship( node, 0, Direction.INCOMING ) );
+        GroupVisitor visitor = mock( GroupVisitor.class );
+        link.getFirstRel( node, visitor );
+        verify( visitor ).visit( node, 0,  1L, -1L, 11L, 21L );
+        verify( visitor ).visit( node, 2, -1L, 20L, -1L, -1L );
+        verifyNoMoreInteractions( visitor );
+    }
+
+    @Test
+    public void shouldContainSameRelationshipsAfterSavedAndLoaded() throws Exception
+    {
+        // GIVEN a cache with a dense node, a sparse node and an existing dense node
+        long denseNode = 0, sparseNode = 5, existingDenseNode = 7, otherDenseNode = 9;
+        NodeRelationshipCache link = new NodeRelationshipCache( NumberArrayFactory.AUTO, 2 );
+        increment( link, denseNode, 3 );
+        increment( link, sparseNode, 1 );
+        increment( link, otherDenseNode, 2 );
+        link.markExistingDenseNode( existingDenseNode );
+        link.putExistingRelationship( existingDenseNode, 1, Direction.OUTGOING, 30, 1 );
+        link.fixateNodes();
+        link.getAndPutRelationship( denseNode, 0, Direction.OUTGOING, 10, true );
+        link.getAndPutRelationship( denseNode, 1, Direction.INCOMING, 11, true );
+        link.getAndPutRelationship( sparseNode, 0, Direction.OUTGOING, 12, false );
+
+        // WHEN
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( DataOutputStream out = new DataOutputStream( bytes ) )
+        {
+            link.save( out );
+        }
+        NodeRelationshipCache loaded = new NodeRelationshipCache( NumberArrayFactory.AUTO, 2 );
+        try ( DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+        {
+            loaded.load( in );
+        }
+        loaded.fixateNodes();
+        // a group allocated after loading mustn't overwrite any of the loaded ones
+        loaded.getAndPutRelationship( otherDenseNode, 0, Direction.OUTGOING, 13, true );
+        loaded.fixateGroups();
+
+        // THEN
+        assertTrue( loaded.isDense( denseNode ) );
+        assertFalse( loaded.isDense( sparseNode ) );
+        assertTrue( loaded.isDense( existingDenseNode ) );
+        assertEquals( 12L, loaded.getRelationship( sparseNode, 0, Direction.OUTGOING ) );
+        assertEquals( 30L, loaded.getRelationship( existingDenseNode, 1, Direction.OUTGOING ) );
+        GroupVisitor visitor = mock( GroupVisitor.class );
+        loaded.getFirstRel( denseNode, visitor );
+        verify( visitor ).visit( denseNode, 0,  2L, 10L, -1L, -1L );
+        verify( visitor ).visit( denseNode, 1, -1L, -1L, 11L, -1L );
+        loaded.getFirstRel( otherDenseNode, visitor );
+        verify( visitor ).visit( otherDenseNode, 0, -1L, 13L, -1L, -1L );
+        verifyNoMoreInteractions( visitor );
+    }
+
     private void testNode( NodeRelationshipCache link, long node, int type, Direction direction )
     {
         int count = link.getCount( node, type, direction );
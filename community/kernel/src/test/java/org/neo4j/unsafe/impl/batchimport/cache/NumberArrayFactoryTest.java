@@ -19,8 +19,15 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache;
 
+import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.File;
+
+import org.neo4j.test.TargetDirectory;
+import org.neo4j.test.TargetDirectory.TestDirectory;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -36,6 +43,8 @@ public class NumberArrayFactoryTest
     private static final long KILO = 1024;
     private static final long MEGA = KILO*KILO;
 
+    public final @Rule TestDirectory directory = TargetDirectory.testDirForTest( getClass() );
+
     @Test
     public void shouldPickFirstAvailableCandidateLongArray() throws Exception
     {
@@ -121,4 +130,31 @@ public class NumberArrayFactoryTest
         assertTrue( array instanceof HeapIntArray );
         assertEquals( 12345, array.get( 1*KILO-10 ) );
     }
+
+    @Test
+    public void shouldFallBackToMappedFileWhenNotEnoughMemory() throws Exception
+    {
+        // GIVEN
+        NumberArrayFactory lowMemoryFactory = mock( NumberArrayFactory.class );
+        doThrow( OutOfMemoryError.class ).when( lowMemoryFactory ).newLongArray( anyLong(), anyLong() );
+        File mappedDirectory = directory.directory( "mapped" );
+        NumberArrayFactory factory = new NumberArrayFactory.Auto( lowMemoryFactory,
+                new NumberArrayFactory.Mapped( mappedDirectory ) );
+
+        // WHEN
+        LongArray array = factory.newLongArray( 1*MEGA, -1 );
+        array.set( 1*MEGA-10, 12345 );
+
+        // THEN
+        assertTrue( array instanceof MappedLongArray );
+        assertEquals( 12345, array.get( 1*MEGA-10 ) );
+        assertEquals( -1, array.get( 10 ) );
+        assertEquals( 1, mappedDirectory.list().length );
+
+        // and WHEN
+        array.close();
+
+        // THEN the file is deleted
+        assertArrayEquals( new String[0], mappedDirectory.list() );
+    }
 }
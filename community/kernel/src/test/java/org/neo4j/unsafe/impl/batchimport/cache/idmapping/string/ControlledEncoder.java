@@ -19,6 +19,10 @@
  */
 package org.neo4j.unsafe.impl.batchimport.cache.idmapping.string;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class ControlledEncoder implements Encoder
 {
     private final Encoder actual;
@@ -49,4 +53,16 @@ public class ControlledEncoder implements Encoder
             overrideId = null;
         }
     }
+
+    @Override
+    public void save( DataOutput out ) throws IOException
+    {
+        actual.save( out );
+    }
+
+    @Override
+    public void load( DataInput in ) throws IOException
+    {
+        actual.load( in );
+    }
 }
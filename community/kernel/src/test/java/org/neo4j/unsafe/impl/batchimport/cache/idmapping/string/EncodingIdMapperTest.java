@@ -25,7 +25,10 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -426,6 +429,77 @@ public class EncodingIdMapperTest
         assertEquals( 2L, mapper.get( "10", thirdGroup ) );
     }
 
+    @Test
+    public void shouldFindSameIdsAfterSavedAndLoaded() throws Exception
+    {
+        // GIVEN a prepared mapper with multiple groups and collisions
+        Encoder encoder = mock( Encoder.class );
+        when( encoder.encode( any() ) ).thenReturn( 12345L );
+        IdMapper mapper = mapper( encoder, Radix.STRING, NO_MONITOR );
+        InputIterable<Object> ids = wrap( "source", Arrays.<Object>asList( "8", "9", "8" ) );
+        Groups groups = new Groups();
+        Group firstGroup, secondGroup;
+        try ( ResourceIterator<Object> iterator = ids.iterator() )
+        {
+            int id = 0;
+            mapper.put( iterator.next(), id++, firstGroup = groups.getOrCreate( "first" ) );
+            mapper.put( iterator.next(), id++, firstGroup );
+            mapper.put( iterator.next(), id++, secondGroup = groups.getOrCreate( "second" ) );
+        }
+        mapper.prepare( ids, mock( Collector.class ), NONE );
+
+        // WHEN
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( DataOutputStream out = new DataOutputStream( bytes ) )
+        {
+            mapper.save( out );
+        }
+        IdMapper loadedMapper = mapper( encoder, Radix.STRING, NO_MONITOR );
+        try ( DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+        {
+            loadedMapper.load( in );
+        }
+
+        // THEN
+        assertEquals( 0L, loadedMapper.get( "8", firstGroup ) );
+        assertEquals( 1L, loadedMapper.get( "9", firstGroup ) );
+        assertEquals( 2L, loadedMapper.get( "8", secondGroup ) );
+        // "8" is alone in the second group, so any value encoded like it matches it, as in the saved mapper
+        assertEquals( mapper.get( "9", secondGroup ), loadedMapper.get( "9", secondGroup ) );
+        assertEquals( -1L, loadedMapper.get( "10", firstGroup ) );
+    }
+
+    @Test
+    public void shouldEncodeLikeSavedMapperAfterLoaded() throws Exception
+    {
+        // GIVEN a prepared mapper, where encodings depend on the order in which values were encoded
+        IdMapper mapper = mapper( new StringEncoder(), Radix.STRING, NO_MONITOR );
+        List<Object> values = Arrays.<Object>asList( "alpha", "bravo", "charlie", "delta", "echo" );
+        for ( int id = 0; id < values.size(); id++ )
+        {
+            mapper.put( values.get( id ), id, GLOBAL );
+        }
+        mapper.prepare( wrap( "source", values ), mock( Collector.class ), NONE );
+
+        // WHEN
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( DataOutputStream out = new DataOutputStream( bytes ) )
+        {
+            mapper.save( out );
+        }
+        IdMapper loadedMapper = mapper( new StringEncoder(), Radix.STRING, NO_MONITOR );
+        try ( DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+        {
+            loadedMapper.load( in );
+        }
+
+        // THEN values are found also when looked up in a different order than they were put
+        for ( int id = values.size() - 1; id >= 0; id-- )
+        {
+            assertEquals( id, loadedMapper.get( values.get( id ), GLOBAL ) );
+        }
+    }
+
     @Test
     public void shouldHandleManyGroups() throws Exception
     {
@@ -22,6 +22,7 @@ package org.neo4j.unsafe.impl.batchimport.input;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -162,6 +163,34 @@ public class BadCollectorTest
         }
     }
 
+    @Test
+    public void shouldCollectConstraintViolationsOnlyIfToldTo() throws IOException
+    {
+        // given
+        InputNode node = new InputNode( "source", 1, 0, "id", new Object[] {"email", "a@b.c"}, null,
+                new String[] {"Person"}, null );
+        BadCollector collecting =
+                new BadCollector( new ByteArrayOutputStream(), 1, BadCollector.CONSTRAINT_VIOLATIONS );
+        BadCollector notCollecting =
+                new BadCollector( new ByteArrayOutputStream(), 1, BadCollector.DUPLICATE_NODES );
+
+        // when
+        collecting.collectConstraintViolation( node, "UNIQUE :Person(email)", "a@b.c", 0 );
+        try
+        {
+            notCollecting.collectConstraintViolation( node, "UNIQUE :Person(email)", "a@b.c", 0 );
+            fail( "Should have thrown an InputException" );
+        }
+        catch ( InputException ignored )
+        {
+            // then expect to end up here
+        }
+
+        // then
+        assertEquals( 1, collecting.badEntries() );
+        assertEquals( 0, notCollecting.badEntries() );
+    }
+
     @Test
     public void shouldBeAbleToRetrieveDuplicateNodeIds() throws IOException
     {
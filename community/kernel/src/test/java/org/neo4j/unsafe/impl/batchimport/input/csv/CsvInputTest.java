@@ -22,21 +22,25 @@ package org.neo4j.unsafe.impl.batchimport.input.csv;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
 import java.util.Iterator;
 import java.util.Set;
 
 import org.neo4j.csv.reader.BufferedCharSeeker;
+import org.neo4j.csv.reader.CharReadable;
 import org.neo4j.csv.reader.CharSeeker;
 import org.neo4j.csv.reader.Extractor;
 import org.neo4j.csv.reader.Extractors;
 import org.neo4j.function.Function;
 import org.neo4j.function.Functions;
+import org.neo4j.function.Supplier;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.test.TargetDirectory;
 import org.neo4j.test.TargetDirectory.TestDirectory;
 import org.neo4j.unsafe.impl.batchimport.InputIterator;
+import org.neo4j.unsafe.impl.batchimport.input.BadCollector;
 import org.neo4j.unsafe.impl.batchimport.input.Collector;
 import org.neo4j.unsafe.impl.batchimport.input.DataException;
 import org.neo4j.unsafe.impl.batchimport.input.Group;
@@ -808,6 +812,128 @@ public class CsvInputTest
         verify( collector, times( 1 ) ).collectExtraColumns( anyString(), eq( 2l ), eq( "additional" ) );
     }
 
+    @Test
+    public void shouldParseChunksInParallelAndProvideEntitiesInOrder() throws Exception
+    {
+        // GIVEN data many times bigger than the buffer size, with some values spanning multiple lines
+        StringBuilder builder = new StringBuilder( ":ID,name\n" );
+        int nodeCount = 1_000;
+        for ( int i = 0; i < nodeCount; i++ )
+        {
+            builder.append( i ).append( i % 3 == 0 ? ",\"multi\n\"\"line\"\" " + i + "\"\n" : ",single " + i + "\n" );
+        }
+        final String data = builder.toString();
+        Iterable<DataFactory<InputNode>> dataFactory = DataFactories.nodeData( DataFactories.data(
+                Functions.<InputNode>identity(), new Supplier<CharReadable>()
+                {
+                    @Override
+                    public CharReadable get()
+                    {
+                        return wrap( new StringReader( data ) );
+                    }
+                } ) );
+        Configuration config = new Configuration.Overriden( COMMAS )
+        {
+            @Override
+            public int bufferSize()
+            {
+                return 100;
+            }
+
+            @Override
+            public boolean multilineFields()
+            {
+                return true;
+            }
+
+            @Override
+            public int parsingThreads()
+            {
+                return 4;
+            }
+        };
+        Input input = new CsvInput( dataFactory, defaultFormatNodeFileHeader(),
+                null, null, IdType.ACTUAL, config, silentBadCollector( 0 ) );
+
+        // WHEN/THEN
+        try ( InputIterator<InputNode> nodes = input.nodes().iterator() )
+        {
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                String name = i % 3 == 0 ? "multi\n\"line\" " + i : "single " + i;
+                assertNode( nodes.next(), (long) i, properties( "name", name ), labels() );
+            }
+            assertFalse( nodes.hasNext() );
+        }
+    }
+
+    @Test
+    public void shouldCollectExtraColumnsFromAllParsingThreads() throws Exception
+    {
+        // GIVEN data many times bigger than the buffer size, where every other line has an extra column
+        StringBuilder builder = new StringBuilder( ":ID,name\n" );
+        int nodeCount = 1_000;
+        int extraColumns = 0;
+        for ( int i = 0; i < nodeCount; i++ )
+        {
+            builder.append( i ).append( ",name " ).append( i );
+            if ( i % 2 == 0 )
+            {
+                builder.append( ",extra " ).append( i );
+                extraColumns++;
+            }
+            builder.append( "\n" );
+        }
+        final String data = builder.toString();
+        Iterable<DataFactory<InputNode>> dataFactory = DataFactories.nodeData( DataFactories.data(
+                Functions.<InputNode>identity(), new Supplier<CharReadable>()
+                {
+                    @Override
+                    public CharReadable get()
+                    {
+                        return wrap( new StringReader( data ) );
+                    }
+                } ) );
+        Configuration config = new Configuration.Overriden( COMMAS )
+        {
+            @Override
+            public int bufferSize()
+            {
+                return 100;
+            }
+
+            @Override
+            public int parsingThreads()
+            {
+                return 4;
+            }
+        };
+        ByteArrayOutputStream badOutput = new ByteArrayOutputStream();
+        BadCollector collector = new BadCollector( badOutput, nodeCount, BadCollector.EXTRA_COLUMNS );
+        Input input = new CsvInput( dataFactory, defaultFormatNodeFileHeader(),
+                null, null, IdType.ACTUAL, config, collector );
+
+        // WHEN
+        try ( InputIterator<InputNode> nodes = input.nodes().iterator() )
+        {
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                assertNode( nodes.next(), (long) i, properties( "name", "name " + i ), labels() );
+            }
+            assertFalse( nodes.hasNext() );
+        }
+        collector.close();
+
+        // THEN every extra column should have been both counted and reported
+        assertEquals( extraColumns, collector.badEntries() );
+        String[] reported = badOutput.toString().split( "\n" );
+        assertEquals( extraColumns, reported.length );
+        for ( String line : reported )
+        {
+            assertThat( line, containsString( "Extra column not present in header" ) );
+        }
+    }
+
     private Configuration customConfig( final char delimiter, final char arrayDelimiter, final char quote )
     {
         return new Configuration.Default()
@@ -868,6 +994,12 @@ public class CsvInputTest
                 return data;
             }
 
+            @Override
+            public CharReadable readable()
+            {
+                return null;
+            }
+
             @Override
             public Function<ENTITY,ENTITY> decorator()
             {
@@ -31,6 +31,7 @@ import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.util.NumericUtils;
 
 import org.neo4j.kernel.api.index.ArrayEncoder;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
 
 import static java.lang.String.format;
 import static org.apache.lucene.document.Field.Index.NOT_ANALYZED;
@@ -50,32 +51,57 @@ public class LuceneDocumentStructure
 
     enum ValueEncoding
     {
-        Number
+        Composite
         {
             @Override
             String key()
             {
-                return "number";
+                return "composite";
             }
 
             @Override
             boolean canEncode( Object value )
             {
-                return value instanceof Number;
+                return value instanceof CompositeIndexValue;
+            }
+
+            /**
+             * The values of a composite value are encoded one after the other, each by its own encoding and
+             * prefixed by the key of that encoding and the length of the encoded value, so that no two composite
+             * values share an encoding.
+             */
+            @Override
+            String encode( Object value )
+            {
+                CompositeIndexValue composite = (CompositeIndexValue) value;
+                StringBuilder encoded = new StringBuilder();
+                for ( int i = 0; i < composite.size(); i++ )
+                {
+                    ValueEncoding encoding = forValue( composite.get( i ) );
+                    String part = encoding.encode( composite.get( i ) );
+                    encoded.append( encoding.key() ).append( ':' ).append( part.length() ).append( ':' ).append( part );
+                }
+                return encoded.toString();
+            }
+        },
+        Number
+        {
+            @Override
+            String key()
+            {
+                return "number";
             }
 
             @Override
-            Fieldable encodeField( Object value )
+            boolean canEncode( Object value )
             {
-                String encodedString = NumericUtils.doubleToPrefixCoded( ((Number)value).doubleValue() );
-                return field( key(), encodedString );
+                return value instanceof Number;
             }
 
             @Override
-            TermQuery encodeQuery( Object value )
+            String encode( Object value )
             {
-                String encodedString = NumericUtils.doubleToPrefixCoded( ((Number)value).doubleValue() );
-                return new TermQuery( new Term( key(), encodedString ) );
+                return NumericUtils.doubleToPrefixCoded( ((Number)value).doubleValue() );
             }
         },
         Array
@@ -93,15 +119,9 @@ public class LuceneDocumentStructure
             }
 
             @Override
-            Fieldable encodeField( Object value )
-            {
-                return field( key(), ArrayEncoder.encode( value ) );
-            }
-
-            @Override
-            TermQuery encodeQuery( Object value )
+            String encode( Object value )
             {
-                return new TermQuery( new Term( key(), ArrayEncoder.encode( value ) ) );
+                return ArrayEncoder.encode( value );
             }
         },
         Bool
@@ -119,15 +139,9 @@ public class LuceneDocumentStructure
             }
 
             @Override
-            Fieldable encodeField( Object value )
-            {
-                return field( key(), value.toString() );
-            }
-
-            @Override
-            TermQuery encodeQuery( Object value )
+            String encode( Object value )
             {
-                return new TermQuery( new Term( key(), value.toString() ) );
+                return value.toString();
             }
         },
         String
@@ -146,28 +160,45 @@ public class LuceneDocumentStructure
             }
 
             @Override
-            Fieldable encodeField( Object value )
+            String encode( Object value )
             {
-                return field( key(), value.toString() );
-            }
-
-            @Override
-            TermQuery encodeQuery( Object value )
-            {
-                return new TermQuery( new Term( key(), value.toString() ) );
+                return value.toString();
             }
         };
 
         abstract String key();
 
         abstract boolean canEncode( Object value );
-        abstract Fieldable encodeField( Object value );
-        abstract TermQuery encodeQuery( Object value );
+        abstract String encode( Object value );
+
+        Fieldable encodeField( Object value )
+        {
+            return field( key(), encode( value ) );
+        }
+
+        TermQuery encodeQuery( Object value )
+        {
+            return new TermQuery( new Term( key(), encode( value ) ) );
+        }
+
+        static ValueEncoding forValue( Object value )
+        {
+            for ( ValueEncoding encoding : values() )
+            {
+                if ( encoding.canEncode( value ) )
+                {
+                    return encoding;
+                }
+            }
+            throw new IllegalArgumentException( format( "Unable to encode %s", value ) );
+        }
 
         public static ValueEncoding fromKey( String key )
         {
             switch ( key )
             {
+            case "composite":
+                return Composite;
             case "number":
                 return Number;
             case "array":
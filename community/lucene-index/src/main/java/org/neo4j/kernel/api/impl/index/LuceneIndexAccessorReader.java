@@ -26,6 +26,7 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.NumericUtils;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -34,10 +35,14 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.helpers.CancellationRequest;
 import org.neo4j.index.impl.lucene.Hits;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.impl.index.LuceneDocumentStructure.ValueEncoding;
+import org.neo4j.kernel.api.index.CompositeIndexValue;
+import org.neo4j.kernel.api.index.IndexOrder;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.impl.api.index.sampling.NonUniqueIndexSampler;
 import org.neo4j.register.Register.DoubleLong;
@@ -114,6 +119,23 @@ class LuceneIndexAccessorReader implements IndexReader
         return query( documentLogic.newRangeSeekByPrefixQuery( prefix ) );
     }
 
+    @Override
+    public Cursor<IndexEntryItem> orderedRangeSeekByNumberInclusive( Number lower, Number upper, IndexOrder order )
+    {
+        String lowerTerm = lower == null ? null : NumericUtils.doubleToPrefixCoded( lower.doubleValue() );
+        String upperTerm = upper == null ? null : NumericUtils.doubleToPrefixCoded( upper.doubleValue() );
+        return new OrderedTermsCursor( searcher, documentLogic, ValueEncoding.Number,
+                lowerTerm, true, upperTerm, true, order );
+    }
+
+    @Override
+    public Cursor<IndexEntryItem> orderedRangeSeekByString( String lower, boolean includeLower,
+                                                            String upper, boolean includeUpper, IndexOrder order )
+    {
+        return new OrderedTermsCursor( searcher, documentLogic, ValueEncoding.String,
+                lower, includeLower, upper, includeUpper, order );
+    }
+
     @Override
     public PrimitiveLongIterator scan()
     {
@@ -165,6 +187,9 @@ class LuceneIndexAccessorReader implements IndexReader
                     case Bool:
                         types.add( Boolean.class );
                         break;
+                    case Composite:
+                        types.add( CompositeIndexValue.class );
+                        break;
                     }
                 }
             }
@@ -21,6 +21,7 @@ package org.neo4j.kernel.api.impl.index;
 
 import java.io.File;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.Service;
 import org.neo4j.kernel.api.impl.index.LuceneLabelScanStore.Monitor;
 import org.neo4j.kernel.configuration.Config;
@@ -68,12 +69,18 @@ public class LuceneLabelScanStoreExtension extends KernelExtensionFactory<Lucene
     {
         boolean ephemeral = dependencies.getConfig().get( GraphDatabaseFacadeFactory.Configuration.ephemeral );
         DirectoryFactory directoryFactory = directoryFactory( ephemeral, context.fileSystem() );
+        // <db>/schema/label/lucene
+        File directory = new File( new File( new File( context.storeDir(), "schema" ), "label" ), "lucene" );
+        if ( dependencies.getConfig().get( GraphDatabaseSettings.native_label_scan_store ) )
+        {
+            // The native label scan store is used instead, and won't keep this one up to date, so make sure that
+            // it gets rebuilt, should it be used again later on
+            context.fileSystem().deleteRecursively( directory );
+        }
 
         LuceneLabelScanStore scanStore = new LuceneLabelScanStore(
                 new NodeRangeDocumentLabelScanStorageStrategy(),
-
-                // <db>/schema/label/lucene
-                directoryFactory, new File( new File( new File( context.storeDir(), "schema" ), "label" ), "lucene" ),
+                directoryFactory, directory,
 
                 context.fileSystem(), tracking(),
                 fullStoreLabelUpdateStream( dependencies.getNeoStoreSupplier() ),
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.impl.index;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.NumericUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.cursor.IndexEntryItem;
+import org.neo4j.kernel.api.impl.index.LuceneDocumentStructure.ValueEncoding;
+import org.neo4j.kernel.api.index.IndexOrder;
+
+/**
+ * Reads the entries of a range of the terms of a value field in the order of the terms, which is the order of the
+ * values, since numbers are indexed in their prefix coded form. Ascending reads walk the terms and their documents
+ * as they go. Lucene terms can not be walked backwards, so descending reads collect the terms of the range up front,
+ * but still only read the documents of a term once they get to it.
+ */
+class OrderedTermsCursor implements Cursor<IndexEntryItem>, IndexEntryItem
+{
+    private final IndexSearcher searcher;
+    private final LuceneDocumentStructure documentStructure;
+    private final ValueEncoding encoding;
+    private final String upper;
+    private final boolean includeUpper;
+    private TermEnum terms;
+    private List<Term> descendingTerms;
+    private TermDocs docs;
+    private Object value;
+    private long nodeId;
+
+    OrderedTermsCursor( IndexSearcher searcher, LuceneDocumentStructure documentStructure, ValueEncoding encoding,
+                        String lower, boolean includeLower, String upper, boolean includeUpper, IndexOrder order )
+    {
+        this.searcher = searcher;
+        this.documentStructure = documentStructure;
+        this.encoding = encoding;
+        this.upper = upper;
+        this.includeUpper = includeUpper;
+        try
+        {
+            IndexReader reader = searcher.getIndexReader();
+            terms = reader.terms( new Term( encoding.key(), lower == null ? "" : lower ) );
+            if ( lower != null && !includeLower && inField() && terms.term().text().equals( lower ) )
+            {
+                terms.next();
+            }
+            if ( order == IndexOrder.DESCENDING )
+            {
+                descendingTerms = new ArrayList<>();
+                for ( Term term = nextTerm(); term != null; term = nextTerm() )
+                {
+                    descendingTerms.add( term );
+                }
+                terms.close();
+                terms = null;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    @Override
+    public boolean next()
+    {
+        try
+        {
+            while ( true )
+            {
+                if ( docs != null )
+                {
+                    if ( docs.next() )
+                    {
+                        nodeId = documentStructure.getNodeId( searcher.doc( docs.doc() ) );
+                        return true;
+                    }
+                    docs.close();
+                    docs = null;
+                }
+                Term term = descendingTerms == null ? nextTerm() : previousTerm();
+                if ( term == null )
+                {
+                    close();
+                    return false;
+                }
+                value = decode( term.text() );
+                docs = searcher.getIndexReader().termDocs( term );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    /**
+     * @return the current term, before moving on to the next one, or {@code null} if there are no more terms in
+     * the range.
+     */
+    private Term nextTerm() throws IOException
+    {
+        if ( terms == null || !inField() )
+        {
+            return null;
+        }
+        Term term = terms.term();
+        if ( upper != null )
+        {
+            int compare = term.text().compareTo( upper );
+            if ( compare > 0 || (compare == 0 && !includeUpper) )
+            {
+                return null;
+            }
+        }
+        terms.next();
+        return term;
+    }
+
+    private Term previousTerm()
+    {
+        return descendingTerms.isEmpty() ? null : descendingTerms.remove( descendingTerms.size() - 1 );
+    }
+
+    private boolean inField()
+    {
+        Term term = terms.term();
+        return term != null && term.field().equals( encoding.key() );
+    }
+
+    private Object decode( String text )
+    {
+        switch ( encoding )
+        {
+        case Number:
+            return NumericUtils.prefixCodedToDouble( text );
+        case Bool:
+            return Boolean.valueOf( text );
+        default:
+            return text;
+        }
+    }
+
+    @Override
+    public IndexEntryItem get()
+    {
+        return this;
+    }
+
+    @Override
+    public long nodeId()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public Object value()
+    {
+        return value;
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            if ( docs != null )
+            {
+                docs.close();
+                docs = null;
+            }
+            if ( terms != null )
+            {
+                terms.close();
+                terms = null;
+            }
+            if ( descendingTerms != null )
+            {
+                descendingTerms.clear();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+}
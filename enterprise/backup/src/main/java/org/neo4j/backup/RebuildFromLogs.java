@@ -285,7 +285,8 @@ class RebuildFromLogs
             this.graphdb = BackupService.startTemporaryDb( dbDirectory.getAbsoluteFile(), pageCache, stringMap() );
             DependencyResolver resolver = graphdb.getDependencyResolver();
             this.dataSource = resolver.resolveDependency( DataSourceManager.class ).getDataSource();
-            this.indexes = resolver.resolveDependency( SchemaIndexProvider.class );
+            this.indexes = resolver.resolveDependency( SchemaIndexProvider.class,
+                    SchemaIndexProvider.HIGHEST_PRIORITIZED_OR_NONE );
         }
 
         private void checkConsistency() throws ConsistencyCheckIncompleteException
@@ -40,6 +40,7 @@ import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.state.NeoStoresSupplier;
 import org.neo4j.kernel.impl.transaction.state.PropertyLoader;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.kernel.impl.util.JobScheduler;
 
 public class DefaultUnpackerDependencies implements TransactionCommittingResponseUnpacker.Dependencies
 {
@@ -67,7 +68,9 @@ public class DefaultUnpackerDependencies implements TransactionCommittingRespons
                 // we only have a single thread applying updates as a slave anyway. But the thing
                 // is that it's hard to change a TransactionAppender depending on role, so we
                 // use a real one, or rather, whatever is available through the dependency resolver.
-                resolver.resolveDependency( IdOrderingQueue.class ) );
+                resolver.resolveDependency( IdOrderingQueue.class ),
+                resolver.resolveDependency( JobScheduler.class ).threadFactory(
+                        JobScheduler.Groups.indexUpdateApplier ) );
     }
 
     @Override
@@ -107,6 +107,17 @@ public class TransactionCommittingResponseUnpacker implements ResponseUnpacker,
             long transactionId = transaction.getCommitEntry().getTxId();
             TransactionRepresentation representation = transaction.getTransactionRepresentation();
             commitmentAccess.get().publishAsCommitted();
+            if ( parallelIndexUpdates )
+            {
+                try ( LockGroup locks = new LockGroup() )
+                {
+                    // The store applier takes ownership of the index updates and closes them once applied
+                    storeApplier.applyWithParallelIndexUpdates( representation,
+                            indexUpdatesValidator.validate( representation ), locks, transactionId, EXTERNAL );
+                }
+                // The handler is given the transaction by batchHandlerNotifier, once its index updates are applied
+                return;
+            }
             try ( LockGroup locks = new LockGroup();
                   ValidatedIndexUpdates indexUpdates = indexUpdatesValidator.validate( representation ) )
             {
@@ -115,6 +126,17 @@ public class TransactionCommittingResponseUnpacker implements ResponseUnpacker,
             }
         }
     };
+    // Visits all queued, and recently applied, transactions, handing them to their handlers. Only used when
+    // index updates are applied in parallel, since the batch has to be closed before they are all applied
+    private final TransactionVisitor batchHandlerNotifier = new TransactionVisitor()
+    {
+        @Override
+        public void visit( CommittedTransactionRepresentation transaction, TxHandler handler,
+                Access<Commitment> commitmentAccess ) throws IOException
+        {
+            handler.accept( transaction );
+        }
+    };
     private final TransactionVisitor batchCloser = new TransactionVisitor()
     {
         @Override
@@ -133,6 +155,7 @@ public class TransactionCommittingResponseUnpacker implements ResponseUnpacker,
             + "In order to resolve this issue a manual restart of this instance is required.";
 
     private final Dependencies dependencies;
+    private final boolean parallelIndexUpdates;
     private TransactionAppender appender;
     private BatchingTransactionRepresentationStoreApplier storeApplier;
     private IndexUpdatesValidator indexUpdatesValidator;
@@ -149,9 +172,21 @@ public class TransactionCommittingResponseUnpacker implements ResponseUnpacker,
     }
 
     public TransactionCommittingResponseUnpacker( Dependencies dependencies, int maxBatchSize )
+    {
+        this( dependencies, maxBatchSize, false );
+    }
+
+    /**
+     * @param parallelIndexUpdates whether or not schema index and label scan store updates of the transactions
+     * in a batch should be applied by a separate thread, in parallel with applying the following transactions
+     * in that batch to the graph store.
+     */
+    public TransactionCommittingResponseUnpacker( Dependencies dependencies, int maxBatchSize,
+            boolean parallelIndexUpdates )
     {
         this.dependencies = dependencies;
         this.transactionQueue = new TransactionQueue( maxBatchSize );
+        this.parallelIndexUpdates = parallelIndexUpdates;
     }
 
     private static TransactionObligationFulfiller resolveTransactionObligationFulfiller(
@@ -230,6 +265,10 @@ public class TransactionCommittingResponseUnpacker implements ResponseUnpacker,
                         // here so some shortcuts are taken in places. Although now comes the time where we must
                         // ensure that all pending changes are applied and flushed properly.
                         storeApplier.closeBatch();
+                        if ( parallelIndexUpdates )
+                        {
+                            transactionQueue.accept( batchHandlerNotifier );
+                        }
                     }
                     finally
                     {
@@ -272,6 +311,11 @@ public class TransactionCommittingResponseUnpacker implements ResponseUnpacker,
     public void stop() throws Throwable
     {
         this.stopped = true;
+        if ( storeApplier != null )
+        {
+            // Lets index updates that have been handed over to be applied in the background complete
+            storeApplier.shutdown();
+        }
     }
 
     @Override
@@ -21,6 +21,7 @@ package org.neo4j.com.storecopy;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.io.File;
 import java.io.IOException;
@@ -83,7 +84,9 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -213,6 +216,50 @@ public class TransactionCommittingResponseUnpackerTest
         verify( logRotation, times( 2 ) ).rotateLogIfNeeded( logAppendEvent );
     }
 
+    @Test
+    public void shouldHandIndexUpdatesOverToTheStoreApplierWhenApplyingThemInParallel() throws Throwable
+    {
+        // GIVEN
+        final BatchingTransactionRepresentationStoreApplier applier =
+                mock( BatchingTransactionRepresentationStoreApplier.class );
+        final TransactionAppender appender = mockedTransactionAppender();
+        final IndexUpdatesValidator indexUpdatesValidator = setUpIndexUpdatesValidatorMocking();
+        final LogFile logFile = mock( LogFile.class );
+        final LogRotation logRotation = mock( LogRotation.class );
+        final KernelHealth kernelHealth = newKernelHealth();
+
+        TransactionCommittingResponseUnpacker.Dependencies deps = buildDependencies( logFile,
+                logRotation, indexUpdatesValidator, applier, appender,
+                mock( TransactionObligationFulfiller.class ), kernelHealth );
+
+        int maxBatchSize = 3;
+        TransactionCommittingResponseUnpacker unpacker =
+                new TransactionCommittingResponseUnpacker( deps, maxBatchSize, true );
+        unpacker.start();
+        ResponseUnpacker.TxHandler txHandler = mock( ResponseUnpacker.TxHandler.class );
+
+        // WHEN
+        unpacker.unpackResponse( new DummyTransactionResponse( 2, maxBatchSize, appender, maxBatchSize ),
+                txHandler );
+
+        // THEN
+        verify( applier, times( maxBatchSize ) ).applyWithParallelIndexUpdates( any( TransactionRepresentation.class ),
+                any( ValidatedIndexUpdates.class ), any( LockGroup.class ), anyLong(),
+                any( TransactionApplicationMode.class ) );
+        verify( applier, never() ).apply( any( TransactionRepresentation.class ), any( ValidatedIndexUpdates.class ),
+                any( LockGroup.class ), anyLong(), any( TransactionApplicationMode.class ) );
+        // and the transactions are only handed to the handler once their index updates have been applied
+        InOrder inOrder = inOrder( applier, txHandler );
+        inOrder.verify( applier, times( 1 ) ).closeBatch();
+        inOrder.verify( txHandler, times( maxBatchSize ) ).accept( any( CommittedTransactionRepresentation.class ) );
+
+        // WHEN
+        unpacker.stop();
+
+        // THEN
+        verify( applier, times( 1 ) ).shutdown();
+    }
+
     @Test
     public void shouldAwaitTransactionObligationsToBeFulfilled() throws Throwable
     {
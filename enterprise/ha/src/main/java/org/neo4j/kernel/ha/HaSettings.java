@@ -96,6 +96,11 @@ public class HaSettings
     @Description( "Size of batches of transactions applied on slaves when pulling from master" )
     public static final Setting<Integer> pull_apply_batch_size = setting( "ha.pull_apply_batch_size", INTEGER, "100" );
 
+    @Description( "Whether or not slaves apply schema index and label scan store updates of pulled transactions in " +
+                  "a separate thread, in parallel with applying the following transactions to the graph store" )
+    public static final Setting<Boolean> pull_apply_parallel_index_updates =
+            setting( "ha.pull_apply_parallel_index_updates", BOOLEAN, Settings.FALSE );
+
     public enum TxPushStrategy
     {
         @Description("Round robin")
@@ -197,7 +197,8 @@ public class HighlyAvailableEditionModule
 
         TransactionCommittingResponseUnpacker responseUnpacker = dependencies.satisfyDependency(
                 new TransactionCommittingResponseUnpacker( new DefaultUnpackerDependencies( dependencies ),
-                        config.get( HaSettings.pull_apply_batch_size ) ) );
+                        config.get( HaSettings.pull_apply_batch_size ),
+                        config.get( HaSettings.pull_apply_parallel_index_updates ) ) );
 
         Supplier<KernelAPI> kernelProvider = dependencies.provideDependency( KernelAPI.class );
 
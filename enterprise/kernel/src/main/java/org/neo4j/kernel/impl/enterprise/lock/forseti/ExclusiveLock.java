@@ -19,8 +19,6 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
-
 class ExclusiveLock implements ForsetiLockManager.Lock
 {
     private final ForsetiClient owner;
@@ -31,21 +29,13 @@ class ExclusiveLock implements ForsetiLockManager.Lock
     }
 
     @Override
-    public void copyHolderWaitListsInto( SimpleBitSet waitList )
-    {
-        owner.copyWaitListTo( waitList );
-    }
-
-    @Override
-    public int holderWaitListSize()
-    {
-        return owner.waitListSize();
-    }
-
-    @Override
-    public boolean anyHolderIsWaitingFor( int client )
+    public int visitHolders( int fromSlot, int maxSlots, ForsetiLockManager.HolderVisitor visitor )
     {
-        return owner.isWaitingFor( client );
+        if ( fromSlot == 0 && maxSlots > 0 )
+        {
+            visitor.visit( owner );
+        }
+        return -1;
     }
 
     @Override
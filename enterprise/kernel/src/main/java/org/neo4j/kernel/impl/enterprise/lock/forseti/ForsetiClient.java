@@ -19,7 +19,6 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import java.util.concurrent.ConcurrentMap;
 
 import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.collection.primitive.Primitive;
@@ -53,7 +52,7 @@ public class ForsetiClient implements Locks.Client
     private final int clientId;
 
     /** resourceType -> lock map. These are the global lock maps, shared across all clients. */
-    private final ConcurrentMap<Long, ForsetiLockManager.Lock>[] lockMaps;
+    private final StripedLockTable[] lockMaps;
 
     /** resourceType -> wait strategy */
     private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
@@ -73,9 +72,21 @@ public class ForsetiClient implements Locks.Client
     /** @see {@link #sharedLockCounts} */
     private final PrimitiveLongIntMap[] exclusiveLockCounts;
 
+    /**
+     * Upper bound on the number of holder slots of the lock we are waiting for that is looked at in each spin round.
+     * This caps the cost of deadlock detection per round, regardless of how many clients share the lock.
+     */
+    private static final int HOLDER_SLOTS_PER_ROUND = 64;
+
     /** List of other clients this client is waiting for. */
     private final SimpleBitSet waitList = new SimpleBitSet( 64 );
 
+    /**
+     * Incrementally sweeps over the holders of the lock we are waiting for, building up the next version of the
+     * {@link #waitList}, see {@link #markAsWaitingFor(ForsetiLockManager.Lock, Locks.ResourceType, long)}.
+     */
+    private final WaitListSweep waitListSweep = new WaitListSweep();
+
     // To be able to close Locks.Client instance properly we should be able to do couple of things:
     //  - have a possibility to prevent new clients to come
     //  - wake up all the waiters and let them go
@@ -90,7 +101,7 @@ public class ForsetiClient implements Locks.Client
     private final ExclusiveLock myExclusiveLock = new ExclusiveLock(this);
 
     public ForsetiClient( int id,
-                          ConcurrentMap<Long, ForsetiLockManager.Lock>[] lockMaps,
+                          StripedLockTable[] lockMaps,
                           WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
                           LinkedQueuePool<ForsetiClient> clientPool )
     {
@@ -128,7 +139,7 @@ public class ForsetiClient implements Locks.Client
         try
         {
             // Grab the global lock map we will be using
-            ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            StripedLockTable lockMap = lockMaps[resourceType.typeId()];
 
             // And grab our local lock maps
             PrimitiveLongIntMap heldShareLocks = sharedLockCounts[resourceType.typeId()];
@@ -238,7 +249,7 @@ public class ForsetiClient implements Locks.Client
         }
         try
         {
-            ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            StripedLockTable lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             int heldCount = heldLocks.get( resourceId );
@@ -296,7 +307,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            StripedLockTable lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             int heldCount = heldLocks.get( resourceId );
@@ -350,7 +361,7 @@ public class ForsetiClient implements Locks.Client
         }
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            StripedLockTable lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldShareLocks = sharedLockCounts[resourceType.typeId()];
             PrimitiveLongIntMap heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
 
@@ -462,7 +473,7 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            StripedLockTable lockMap = lockMaps[resourceType.typeId()];
             if ( sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
             {
                 // We are still holding a shared lock, so we will release it to be reused
@@ -649,7 +660,7 @@ public class ForsetiClient implements Locks.Client
     }
 
     /** Release a lock from the global pool. */
-    private void releaseGlobalLock( ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap, long resourceId )
+    private void releaseGlobalLock( StripedLockTable lockMap, long resourceId )
     {
         ForsetiLockManager.Lock lock = lockMap.get( resourceId );
         if( lock instanceof ExclusiveLock )
@@ -684,7 +695,7 @@ public class ForsetiClient implements Locks.Client
     }
 
     /** Attempt to upgrade a share lock to an exclusive lock, grabbing the share lock if we don't hold it. */
-    private boolean tryUpgradeSharedToExclusive( Locks.ResourceType resourceType, ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap,
+    private boolean tryUpgradeSharedToExclusive( Locks.ResourceType resourceType, StripedLockTable lockMap,
                                                  long resourceId, SharedLock sharedLock ) throws AcquireLockTimeoutException
     {
         int tries = 0;
@@ -767,13 +778,35 @@ public class ForsetiClient implements Locks.Client
     {
         waitList.clear();
         waitList.put( clientId );
+        waitListSweep.reset( null );
     }
 
+    /**
+     * Take note of who we are waiting for, and detect deadlocks. This is edge chasing: our wait list is the union of
+     * the wait lists of the holders of the lock we are waiting for, so if any holder is waiting for us, we are in a
+     * deadlock. Rather than reading the wait lists of all holders in every spin round, which gets expensive when
+     * hundreds of clients are waiting on and holding the same locks, every round continues a sweep over at most
+     * {@link #HOLDER_SLOTS_PER_ROUND} holder slots. Once a sweep has covered all holders, its result replaces our
+     * wait list and the deadlock check is made against it.
+     */
     private void markAsWaitingFor( ForsetiLockManager.Lock lock, Locks.ResourceType type, long resourceId )
     {
-        clearWaitList();
-        lock.copyHolderWaitListsInto( waitList );
-        if(lock.anyHolderIsWaitingFor( clientId ) && lock.holderWaitListSize() >= waitListSize())
+        if ( !waitListSweep.isSweeping( lock ) )
+        {
+            waitListSweep.reset( lock );
+        }
+
+        if ( !waitListSweep.continueSweep() )
+        {
+            return;
+        }
+
+        waitList.clear();
+        waitList.put( waitListSweep.waitList );
+        boolean deadlocked = waitListSweep.anyHolderIsWaitingForUs &&
+                             waitListSweep.holderWaitListSize >= waitListSize();
+        waitListSweep.reset( null );
+        if ( deadlocked )
         {
             // Create message before we clear the wait-list, to lower the chance of the message being insane
             String message = this + " can't acquire " + lock + " on " + type + "(" + resourceId + "), because holders of that lock " +
@@ -807,6 +840,56 @@ public class ForsetiClient implements Locks.Client
         return clientId;
     }
 
+    /** State of an incremental sweep over the holders of the lock this client is waiting for. */
+    private class WaitListSweep implements ForsetiLockManager.HolderVisitor
+    {
+        private final SimpleBitSet waitList = new SimpleBitSet( 64 );
+        private ForsetiLockManager.Lock lock;
+        private int nextSlot;
+        private int holderWaitListSize;
+        private boolean anyHolderIsWaitingForUs;
+
+        void reset( ForsetiLockManager.Lock lock )
+        {
+            this.lock = lock;
+            this.nextSlot = 0;
+            this.holderWaitListSize = 0;
+            this.anyHolderIsWaitingForUs = false;
+            if ( lock != null )
+            {
+                waitList.clear();
+                waitList.put( clientId );
+            }
+        }
+
+        boolean isSweeping( ForsetiLockManager.Lock lock )
+        {
+            return this.lock == lock;
+        }
+
+        /** @return {@code true} if the sweep has now covered all holders of the lock. */
+        boolean continueSweep()
+        {
+            nextSlot = lock.visitHolders( nextSlot, HOLDER_SLOTS_PER_ROUND, this );
+            return nextSlot == -1;
+        }
+
+        @Override
+        public void visit( ForsetiClient holder )
+        {
+            if ( holder == ForsetiClient.this )
+            {
+                // We hold a share lock we are upgrading; only count our own id, never feed our previous wait list
+                // back into the next one
+                holderWaitListSize++;
+                return;
+            }
+            holder.copyWaitListTo( waitList );
+            holderWaitListSize += holder.waitListSize();
+            anyHolderIsWaitingForUs |= holder.isWaitingFor( clientId );
+        }
+    }
+
     // Visitors used for bulk ops on the lock maps (such as releasing all locks)
 
 
@@ -816,9 +899,9 @@ public class ForsetiClient implements Locks.Client
      */
     private class ReleaseSharedDontCheckExclusiveVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
-        private ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap;
+        private StripedLockTable lockMap;
 
-        private PrimitiveLongVisitor<RuntimeException> initialize( ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap )
+        private PrimitiveLongVisitor<RuntimeException> initialize( StripedLockTable lockMap )
         {
             this.lockMap = lockMap;
             return this;
@@ -840,10 +923,10 @@ public class ForsetiClient implements Locks.Client
     private class ReleaseExclusiveLocksAndClearSharedVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
         private PrimitiveLongIntMap sharedLockCounts;
-        private ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap;
+        private StripedLockTable lockMap;
 
         private PrimitiveLongVisitor<RuntimeException> initialize( PrimitiveLongIntMap sharedLockCounts,
-                                                 ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap )
+                                                 StripedLockTable lockMap )
         {
             this.sharedLockCounts = sharedLockCounts;
             this.lockMap = lockMap;
@@ -19,18 +19,14 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.kernel.impl.locking.AcquireLockTimeoutException;
 import org.neo4j.kernel.impl.locking.Locks;
-import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.kernel.impl.util.concurrent.WaitStrategy;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
@@ -90,26 +86,33 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
  * We have at least one type of lock (SchemaLock) that can be held concurrently by several hundred transactions. It may
  * be worth investigating fat locks, or in any case optimize the current way SharedLock adds and removes clients from
  * its holder list.
- *
- * The maps used by forseti should be replaced by faster concurrent maps, perhaps a striped hopscotch map or something
- * similar.
  */
 public class ForsetiLockManager extends LifecycleAdapter implements Locks
 {
     /** This is Forsetis internal lock API, which it uses to do deadlock detection. */
     interface Lock
     {
-        void copyHolderWaitListsInto( SimpleBitSet waitList );
-        int holderWaitListSize();
-        boolean anyHolderIsWaitingFor( int client );
+        /**
+         * Visit the clients holding this lock, starting at holder slot {@code fromSlot} and looking at no more than
+         * {@code maxSlots} slots. This allows a waiting client to sweep over the holders of a heavily shared lock a
+         * bounded piece at a time.
+         *
+         * @return the slot to continue from in a subsequent call, or {@code -1} if all slots have been visited.
+         */
+        int visitHolders( int fromSlot, int maxSlots, HolderVisitor visitor );
 
         /** For introspection and error messages */
         String describeWaitList();
 
     }
 
-    /** Pointers to lock maps, one array per resource type. */
-    private final ConcurrentMap<Long, ForsetiLockManager.Lock>[] lockMaps;
+    interface HolderVisitor
+    {
+        void visit( ForsetiClient holder );
+    }
+
+    /** Pointers to lock tables, one per resource type. */
+    private final StripedLockTable[] lockMaps;
 
     /** Reverse lookup resource types by id, used for introspection */
     private final ResourceType[] resourceTypes;
@@ -122,7 +125,7 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
     public ForsetiLockManager( ResourceType... resourceTypes )
     {
         int maxResourceId = findMaxResourceId( resourceTypes );
-        this.lockMaps = new ConcurrentMap[maxResourceId];
+        this.lockMaps = new StripedLockTable[maxResourceId];
         this.resourceTypes = new ResourceType[maxResourceId];
 
         /* Wait strategies per resource type */
@@ -130,7 +133,7 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
 
         for ( ResourceType type : resourceTypes )
         {
-            this.lockMaps[type.typeId()] = new ConcurrentHashMap<>(16, 0.6f, 512);
+            this.lockMaps[type.typeId()] = new StripedLockTable();
             waitStrategies[type.typeId()] = type.waitStrategy();
             this.resourceTypes[type.typeId()] = type;
         }
@@ -162,18 +165,21 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
     }
 
     @Override
-    public void accept( Visitor out )
+    public void accept( final Visitor out )
     {
         for ( int i = 0; i < lockMaps.length; i++ )
         {
             if(lockMaps[i] != null)
             {
-                ResourceType type = resourceTypes[i];
-                for ( Map.Entry<Long, Lock> entry : lockMaps[i].entrySet() )
+                final ResourceType type = resourceTypes[i];
+                lockMaps[i].visit( new StripedLockTable.Visitor()
                 {
-                    Lock lock = entry.getValue();
-                    out.visit( type, entry.getKey(), lock.describeWaitList(), 0, System.identityHashCode( lock ) );
-                }
+                    @Override
+                    public void visit( long resourceId, Lock lock )
+                    {
+                        out.visit( type, resourceId, lock.describeWaitList(), 0, System.identityHashCode( lock ) );
+                    }
+                } );
             }
         }
     }
@@ -202,11 +208,11 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
         /** Re-use ids, forseti uses these in arrays, so we want to keep them low and not loose them. */
         // TODO we could use a synchronised SimpleBitSet instead, since we know that we only care about reusing a very limited set of integers.
         private final Queue<Integer> unusedIds = new ConcurrentLinkedQueue<>();
-        private final ConcurrentMap<Long, ForsetiLockManager.Lock>[] lockMaps;
+        private final StripedLockTable[] lockMaps;
         private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
 
         public ForsetiClientFlyweightPool(
-                ConcurrentMap<Long, ForsetiLockManager.Lock>[] lockMaps,
+                StripedLockTable[] lockMaps,
                 WaitStrategy<AcquireLockTimeoutException>[] waitStrategies )
         {
             super( 128, null);
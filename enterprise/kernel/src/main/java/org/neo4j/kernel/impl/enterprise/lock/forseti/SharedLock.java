@@ -22,8 +22,6 @@ package org.neo4j.kernel.impl.enterprise.lock.forseti;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
-
 /**
  * A Forseti share lock. Can be upgraded to an update lock, which will block new attempts at acquiring shared lock,
  * but will allow existing holders to complete.
@@ -108,57 +106,40 @@ class SharedLock implements ForsetiLockManager.Lock
     }
 
     @Override
-    public void copyHolderWaitListsInto( SimpleBitSet waitList )
+    public int visitHolders( int fromSlot, int maxSlots, ForsetiLockManager.HolderVisitor visitor )
     {
+        int slot = fromSlot;
+        int slotsLooked = 0;
+        int arrayStartSlot = 0;
         for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            int arrayEndSlot = arrayStartSlot + holderArraySize( i );
+            if ( slot < arrayEndSlot )
             {
-                ForsetiClient client = holders.get( j );
-                if(client != null)
+                AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
+                if ( holders == null )
                 {
-                    client.copyWaitListTo( waitList );
+                    // Holder arrays are added in order, so there are no holders beyond this point
+                    return -1;
                 }
-            }
-        }
-    }
 
-    @Override
-    public int holderWaitListSize()
-    {
-        int size = 0;
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
-        {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
-            {
-                ForsetiClient client = holders.get( j );
-                if(client != null)
+                for ( ; slot < arrayEndSlot; slot++ )
                 {
-                    size += client.waitListSize();
-                }
-            }
-        }
-        return size;
-    }
+                    if ( slotsLooked++ == maxSlots )
+                    {
+                        return slot;
+                    }
 
-    @Override
-    public boolean anyHolderIsWaitingFor( int clientId )
-    {
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
-        {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
-            {
-                ForsetiClient client = holders.get( j );
-                if(client != null && client.isWaitingFor( clientId ))
-                {
-                    return true;
+                    ForsetiClient client = holders.get( slot - arrayStartSlot );
+                    if ( client != null )
+                    {
+                        visitor.visit( client );
+                    }
                 }
             }
+            arrayStartSlot = arrayEndSlot;
         }
-        return false;
+        return -1;
     }
 
     public boolean tryAcquireUpdateLock( ForsetiClient client )
@@ -343,11 +324,17 @@ class SharedLock implements ForsetiLockManager.Lock
     {
         if( clientsHoldingThisLock[slot] == null )
         {
-            clientsHoldingThisLock[slot] = new AtomicReferenceArray<>( (int)(8 * Math.pow( 8, slot )) );
+            clientsHoldingThisLock[slot] = new AtomicReferenceArray<>( holderArraySize( slot ) );
         }
         return clientsHoldingThisLock[slot];
     }
 
+    private static int holderArraySize( int slot )
+    {
+        // 8, 64, 512 and 4096 slots, respectively
+        return 8 << (3 * slot);
+    }
+
     private boolean clientHoldsThisLock( ForsetiClient client )
     {
         for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The table of all locks of one resource type, mapping resource id to {@link ForsetiLockManager.Lock}.
+ *
+ * The table is split into a fixed number of stripes, picked by the hash of the resource id. Each stripe is an
+ * open-addressing hash table with linear probing over primitive long keys, guarded by a spin lock that is taken
+ * with a single CAS. Resource ids are never boxed and no objects are allocated when locks are added or removed,
+ * except for the rare case where a stripe has to grow. Removal shifts entries back into place instead of leaving
+ * tombstones, so stripes don't degrade from the constant churn of lock acquisition and release.
+ *
+ * Stripes are held for a handful of array accesses, and with many more stripes than cores, threads seldom meet
+ * on the same stripe.
+ */
+final class StripedLockTable
+{
+    interface Visitor
+    {
+        void visit( long resourceId, ForsetiLockManager.Lock lock );
+    }
+
+    private static final int DEFAULT_STRIPES = 256;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    StripedLockTable()
+    {
+        this( DEFAULT_STRIPES );
+    }
+
+    /**
+     * @param stripes number of stripes, must be a power of two.
+     */
+    StripedLockTable( int stripes )
+    {
+        if ( Integer.bitCount( stripes ) != 1 )
+        {
+            throw new IllegalArgumentException( "Number of stripes must be a power of two, was " + stripes );
+        }
+        this.stripes = new Stripe[stripes];
+        this.stripeMask = stripes - 1;
+        for ( int i = 0; i < stripes; i++ )
+        {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        stripe.lock();
+        try
+        {
+            return stripe.get( resourceId, hash );
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * @return the lock already in the table for this resource, or {@code null} if the given lock was put in the table.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        stripe.lock();
+        try
+        {
+            ForsetiLockManager.Lock existing = stripe.get( resourceId, hash );
+            if ( existing == null )
+            {
+                stripe.put( resourceId, hash, lock );
+            }
+            return existing;
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+
+    void put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        stripe.lock();
+        try
+        {
+            stripe.put( resourceId, hash, lock );
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+
+    void remove( long resourceId )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        stripe.lock();
+        try
+        {
+            stripe.remove( resourceId, hash );
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Visits all locks in the table, one stripe at a time. Meant for introspection, the visitor must not access this
+     * table.
+     */
+    void visit( Visitor visitor )
+    {
+        for ( Stripe stripe : stripes )
+        {
+            stripe.lock();
+            try
+            {
+                stripe.visit( visitor );
+            }
+            finally
+            {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private Stripe stripe( long hash )
+    {
+        return stripes[(int) hash & stripeMask];
+    }
+
+    private static long hash( long resourceId )
+    {
+        // Fibonacci hashing spreads sequential ids, which is what node and relationship ids mostly are
+        long hash = resourceId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * One stripe of the table. The stripe lock is the state of the {@link AtomicInteger} this extends, 0 for
+     * unlocked and 1 for locked.
+     */
+    private static final class Stripe extends AtomicInteger
+    {
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private ForsetiLockManager.Lock[] values = new ForsetiLockManager.Lock[INITIAL_STRIPE_CAPACITY];
+        private int size;
+
+        void lock()
+        {
+            int spins = 0;
+            while ( !compareAndSet( 0, 1 ) )
+            {
+                if ( ++spins > SPINS_BEFORE_YIELD )
+                {
+                    Thread.yield();
+                }
+            }
+        }
+
+        void unlock()
+        {
+            lazySet( 0 );
+        }
+
+        ForsetiLockManager.Lock get( long key, long hash )
+        {
+            int mask = keys.length - 1;
+            for ( int i = home( hash, mask ); values[i] != null; i = (i + 1) & mask )
+            {
+                if ( keys[i] == key )
+                {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        void put( long key, long hash, ForsetiLockManager.Lock value )
+        {
+            int mask = keys.length - 1;
+            int i = home( hash, mask );
+            for ( ; values[i] != null; i = (i + 1) & mask )
+            {
+                if ( keys[i] == key )
+                {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            if ( ++size > (keys.length >>> 1) )
+            {
+                grow();
+            }
+        }
+
+        void remove( long key, long hash )
+        {
+            int mask = keys.length - 1;
+            int i = home( hash, mask );
+            while ( values[i] != null && keys[i] != key )
+            {
+                i = (i + 1) & mask;
+            }
+            if ( values[i] == null )
+            {
+                return;
+            }
+
+            // Shift following entries of the probe sequence back into the gap, so that lookups never stop
+            // at an empty slot before finding their key
+            int gap = i;
+            for ( int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask )
+            {
+                int home = home( hash( keys[j] ), mask );
+                boolean homeIsOutsideOfGapToJ = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+                if ( homeIsOutsideOfGapToJ )
+                {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            values[gap] = null;
+            size--;
+        }
+
+        void visit( Visitor visitor )
+        {
+            for ( int i = 0; i < keys.length; i++ )
+            {
+                if ( values[i] != null )
+                {
+                    visitor.visit( keys[i], values[i] );
+                }
+            }
+        }
+
+        private void grow()
+        {
+            long[] oldKeys = keys;
+            ForsetiLockManager.Lock[] oldValues = values;
+            keys = new long[oldKeys.length << 1];
+            values = new ForsetiLockManager.Lock[oldValues.length << 1];
+            size = 0;
+            for ( int i = 0; i < oldKeys.length; i++ )
+            {
+                if ( oldValues[i] != null )
+                {
+                    put( oldKeys[i], hash( oldKeys[i] ), oldValues[i] );
+                }
+            }
+        }
+
+        private static int home( long hash, int mask )
+        {
+            // The low bits of the hash picked the stripe, so use the high bits for the slot within it
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+}
@@ -21,9 +21,13 @@ package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static junit.framework.Assert.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 
 public class SharedLockTest
@@ -62,4 +66,46 @@ public class SharedLockTest
         assertThat( lock.isUpdateLock(), equalTo( false ) );
     }
 
+    @Test
+    public void shouldVisitAllHoldersInBoundedSteps() throws Exception
+    {
+        // Given
+        ForsetiClient first = mock( ForsetiClient.class );
+        SharedLock lock = new SharedLock( first );
+        final Set<ForsetiClient> holders = new HashSet<>();
+        holders.add( first );
+        for ( int i = 0; i < 100; i++ )
+        {
+            ForsetiClient client = mock( ForsetiClient.class );
+            lock.acquire( client );
+            holders.add( client );
+        }
+
+        // When
+        final Set<ForsetiClient> visited = new HashSet<>();
+        final int[] visitsThisStep = new int[1];
+        ForsetiLockManager.HolderVisitor visitor = new ForsetiLockManager.HolderVisitor()
+        {
+            @Override
+            public void visit( ForsetiClient holder )
+            {
+                visitsThisStep[0]++;
+                assertTrue( visited.add( holder ) );
+            }
+        };
+        int steps = 0;
+        int slot = 0;
+        do
+        {
+            visitsThisStep[0] = 0;
+            slot = lock.visitHolders( slot, 10, visitor );
+            assertThat( visitsThisStep[0], lessThanOrEqualTo( 10 ) );
+            steps++;
+        }
+        while ( slot != -1 );
+
+        // Then
+        assertThat( visited, equalTo( holders ) );
+        assertTrue( steps > 1 );
+    }
 }
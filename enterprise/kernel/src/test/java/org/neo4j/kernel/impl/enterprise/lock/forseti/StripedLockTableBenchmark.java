@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares the {@link StripedLockTable} with the {@link ConcurrentHashMap} that Forseti used to keep its locks in.
+ * Each thread repeatedly puts a lock in the table, looks it up and removes it again, like acquiring and releasing
+ * a lock does. The ids are drawn from a range small enough to make threads regularly meet on the same resources.
+ * Run with -Xmx and GC logging to also compare the allocation pressure of the two.
+ */
+@Ignore( "Not a test. A benchmark" )
+public class StripedLockTableBenchmark
+{
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger( "operations", 5_000_000 );
+    private static final int RESOURCES = Integer.getInteger( "resources", 100_000 );
+    private static final int ROUNDS = Integer.getInteger( "rounds", 5 );
+
+    @Test
+    public void compareLockTables() throws Exception
+    {
+        int maxThreads = Integer.getInteger( "maxThreads", Runtime.getRuntime().availableProcessors() * 2 );
+        for ( int threads = 1; threads <= maxThreads; threads *= 2 )
+        {
+            for ( int round = 0; round < ROUNDS; round++ )
+            {
+                long concurrentHashMap = run( threads, new ConcurrentHashMapTable() );
+                long stripedLockTable = run( threads, new StripedTable() );
+                System.out.printf( "threads: %d, ConcurrentHashMap: %d ops/ms, StripedLockTable: %d ops/ms%n",
+                        threads, concurrentHashMap, stripedLockTable );
+            }
+        }
+    }
+
+    private long run( int threads, final Table table ) throws InterruptedException
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        Thread[] workers = new Thread[threads];
+        for ( int i = 0; i < threads; i++ )
+        {
+            workers[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    ForsetiLockManager.Lock lock = new DummyLock();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try
+                    {
+                        start.await();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new RuntimeException( e );
+                    }
+                    for ( int operation = 0; operation < OPERATIONS_PER_THREAD; operation++ )
+                    {
+                        long resourceId = random.nextInt( RESOURCES );
+                        if ( table.putIfAbsent( resourceId, lock ) == null )
+                        {
+                            table.get( resourceId );
+                            table.remove( resourceId );
+                        }
+                    }
+                }
+            };
+            workers[i].start();
+        }
+
+        long startTime = nanoTime();
+        start.countDown();
+        for ( Thread worker : workers )
+        {
+            worker.join();
+        }
+        long millis = Math.max( 1, NANOSECONDS.toMillis( nanoTime() - startTime ) );
+        return (long) OPERATIONS_PER_THREAD * threads / millis;
+    }
+
+    private interface Table
+    {
+        ForsetiLockManager.Lock get( long resourceId );
+
+        ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock );
+
+        void remove( long resourceId );
+    }
+
+    private static class ConcurrentHashMapTable implements Table
+    {
+        private final ConcurrentMap<Long,ForsetiLockManager.Lock> map = new ConcurrentHashMap<>( 16, 0.6f, 512 );
+
+        @Override
+        public ForsetiLockManager.Lock get( long resourceId )
+        {
+            return map.get( resourceId );
+        }
+
+        @Override
+        public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            return map.putIfAbsent( resourceId, lock );
+        }
+
+        @Override
+        public void remove( long resourceId )
+        {
+            map.remove( resourceId );
+        }
+    }
+
+    private static class StripedTable implements Table
+    {
+        private final StripedLockTable table = new StripedLockTable();
+
+        @Override
+        public ForsetiLockManager.Lock get( long resourceId )
+        {
+            return table.get( resourceId );
+        }
+
+        @Override
+        public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            return table.putIfAbsent( resourceId, lock );
+        }
+
+        @Override
+        public void remove( long resourceId )
+        {
+            table.remove( resourceId );
+        }
+    }
+
+    private static class DummyLock implements ForsetiLockManager.Lock
+    {
+        @Override
+        public int visitHolders( int fromSlot, int maxSlots, ForsetiLockManager.HolderVisitor visitor )
+        {
+            return -1;
+        }
+
+        @Override
+        public String describeWaitList()
+        {
+            return "";
+        }
+    }
+}
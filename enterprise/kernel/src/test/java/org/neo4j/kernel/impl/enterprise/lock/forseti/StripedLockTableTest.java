@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class StripedLockTableTest
+{
+    @Test
+    public void shouldPutGetAndRemoveLocks() throws Exception
+    {
+        // Given
+        StripedLockTable table = new StripedLockTable();
+        ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+        ForsetiLockManager.Lock otherLock = mock( ForsetiLockManager.Lock.class );
+
+        // When
+        assertNull( table.putIfAbsent( 42, lock ) );
+
+        // Then
+        assertSame( lock, table.putIfAbsent( 42, otherLock ) );
+        assertSame( lock, table.get( 42 ) );
+        assertNull( table.get( 43 ) );
+
+        // When
+        table.put( 42, otherLock );
+
+        // Then
+        assertSame( otherLock, table.get( 42 ) );
+
+        // When
+        table.remove( 42 );
+
+        // Then
+        assertNull( table.get( 42 ) );
+    }
+
+    @Test
+    public void shouldBehaveLikeAMapUnderRandomChurn() throws Exception
+    {
+        // Given few stripes, so that stripes grow and see long probe sequences
+        StripedLockTable table = new StripedLockTable( 2 );
+        Map<Long,ForsetiLockManager.Lock> expected = new HashMap<>();
+        ForsetiLockManager.Lock[] locks = new ForsetiLockManager.Lock[10];
+        for ( int i = 0; i < locks.length; i++ )
+        {
+            locks[i] = mock( ForsetiLockManager.Lock.class );
+        }
+        Random random = new Random( 1234 );
+
+        // When
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            long resourceId = random.nextInt( 1_000 );
+            if ( random.nextBoolean() )
+            {
+                ForsetiLockManager.Lock lock = locks[random.nextInt( locks.length )];
+                ForsetiLockManager.Lock existing = expected.get( resourceId );
+                assertSame( existing, table.putIfAbsent( resourceId, lock ) );
+                if ( existing == null )
+                {
+                    expected.put( resourceId, lock );
+                }
+            }
+            else
+            {
+                table.remove( resourceId );
+                expected.remove( resourceId );
+            }
+        }
+
+        // Then
+        for ( long resourceId = 0; resourceId < 1_000; resourceId++ )
+        {
+            assertSame( expected.get( resourceId ), table.get( resourceId ) );
+        }
+        final Map<Long,ForsetiLockManager.Lock> visited = new HashMap<>();
+        table.visit( new StripedLockTable.Visitor()
+        {
+            @Override
+            public void visit( long resourceId, ForsetiLockManager.Lock lock )
+            {
+                visited.put( resourceId, lock );
+            }
+        } );
+        assertEquals( expected, visited );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRequirePowerOfTwoStripes() throws Exception
+    {
+        new StripedLockTable( 3 );
+    }
+}
@@ -20,11 +20,20 @@
 package org.neo4j.metrics.source;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+import org.neo4j.io.pagecache.monitoring.PagedFileMappingListener;
+import org.neo4j.io.pagecache.monitoring.PagedFileMonitor;
 import org.neo4j.kernel.IdGeneratorFactory;
 import org.neo4j.kernel.IdType;
 import org.neo4j.kernel.configuration.Config;
@@ -53,6 +62,10 @@ public class DBMetrics extends LifecycleAdapter
     public static final String TX_COMMITTED = name( TRANSACTION_PREFIX, "committed" );
     @Documented( "The number of currently active transactions" )
     public static final String TX_ACTIVE = name( TRANSACTION_PREFIX, "active" );
+    @Documented( "The total number of transactions that moved the node id sets of their transaction state off heap" )
+    public static final String TX_STATE_SPILLED = name( TRANSACTION_PREFIX, "state_spilled" );
+    @Documented( "The total number of bytes of node id sets that transactions moved off heap" )
+    public static final String TX_STATE_SPILLED_BYTES = name( TRANSACTION_PREFIX, "state_spilled_bytes" );
 
     private static final String PAGE_CACHE_PREFIX = "neo4j.page_cache";
     @Documented( "The total number of exceptions seen during the eviction process in the page cache" )
@@ -67,12 +80,24 @@ public class DBMetrics extends LifecycleAdapter
     public static final String PC_EVICTIONS = name( PAGE_CACHE_PREFIX, "evictions" );
     @Documented( "The total number of page faults happened in the page cache" )
     public static final String PC_PAGE_FAULTS = name( PAGE_CACHE_PREFIX, "page_faults" );
+    @Documented( "The page faults, hits, evictions, bytes read, bytes written and resident pages of each mapped " +
+                 "store file, reported as neo4j.page_cache.file.<path>.<counter>, where <path> is the path of the " +
+                 "file relative to the store directory, with the path separators replaced by dots" )
+    public static final String PC_FILE = name( PAGE_CACHE_PREFIX, "file" );
 
     private static final String CHECK_POINT_PREFIX = "neo4j.check_point";
     @Documented( "The total number of check point events executed so far" )
     public static final String CHECK_POINT_EVENTS = name( CHECK_POINT_PREFIX, "events" );
     @Documented( "The total time spent in check pointing so far" )
     public static final String CHECK_POINT_TOTAL_TIME = name( CHECK_POINT_PREFIX, "total_time" );
+    @Documented( "The total number of bytes flushed to the store files in the background between check points" )
+    public static final String CHECK_POINT_BACKGROUND_FLUSHED_BYTES =
+            name( CHECK_POINT_PREFIX, "background_flushed_bytes" );
+    @Documented( "The total number of bytes that were left for check points to flush to the store files" )
+    public static final String CHECK_POINT_FLUSHED_BYTES = name( CHECK_POINT_PREFIX, "flushed_bytes" );
+    @Documented( "The rate, in bytes per second, of background flushing between the two most recent check points" )
+    public static final String CHECK_POINT_BACKGROUND_FLUSH_RATE =
+            name( CHECK_POINT_PREFIX, "background_flush_rate" );
 
     private static final String LOG_ROTATION_PREFIX = "neo4j.log_rotation";
     @Documented( "The total number of transaction log rotations executed so far" )
@@ -97,6 +122,21 @@ public class DBMetrics extends LifecycleAdapter
     private final CheckPointerMonitor checkPointerMonitor;
     private final LogRotationMonitor logRotationMonitor;
     private final IdGeneratorFactory idGeneratorFactory;
+    private final ConcurrentMap<File,String> pagedFileGaugePrefixes = new ConcurrentHashMap<>();
+    private final PagedFileMappingListener pagedFileGaugeRegistrar = new PagedFileMappingListener()
+    {
+        @Override
+        public void mapped( File file, PagedFileMonitor monitor )
+        {
+            registerPagedFileGauges( monitor );
+        }
+
+        @Override
+        public void unmapped( File file )
+        {
+            removePagedFileGauges( file );
+        }
+    };
 
     public DBMetrics( MetricRegistry registry, Config config, TransactionCounters transactionCounters,
             PageCacheMonitor pageCacheCounters, CheckPointerMonitor checkPointerMonitor,
@@ -172,6 +212,24 @@ public class DBMetrics extends LifecycleAdapter
                     return transactionCounters.getPeakConcurrentNumberOfTransactions();
                 }
             } );
+
+            registry.register( TX_STATE_SPILLED, new Gauge<Long>()
+            {
+                @Override
+                public Long getValue()
+                {
+                    return transactionCounters.getNumberOfSpilledTransactions();
+                }
+            } );
+
+            registry.register( TX_STATE_SPILLED_BYTES, new Gauge<Long>()
+            {
+                @Override
+                public Long getValue()
+                {
+                    return transactionCounters.getSpilledTransactionStateBytes();
+                }
+            } );
         }
 
         // Page cache metrics
@@ -230,6 +288,13 @@ public class DBMetrics extends LifecycleAdapter
                     return pageCacheCounters.countEvictionExceptions();
                 }
             } );
+
+            // Listen before looking at the currently mapped files, so that no mapping goes by unnoticed
+            pageCacheCounters.addMappingListener( pagedFileGaugeRegistrar );
+            for ( PagedFileMonitor pagedFile : pageCacheCounters.mappedFiles() )
+            {
+                registerPagedFileGauges( pagedFile );
+            }
         }
 
         // check pointing
@@ -252,6 +317,33 @@ public class DBMetrics extends LifecycleAdapter
                     return checkPointerMonitor.checkPointAccumulatedTotalTimeMillis();
                 }
             } );
+
+            registry.register( CHECK_POINT_BACKGROUND_FLUSHED_BYTES, new Gauge<Long>()
+            {
+                @Override
+                public Long getValue()
+                {
+                    return checkPointerMonitor.backgroundFlushedBytes();
+                }
+            } );
+
+            registry.register( CHECK_POINT_FLUSHED_BYTES, new Gauge<Long>()
+            {
+                @Override
+                public Long getValue()
+                {
+                    return checkPointerMonitor.checkPointFlushedBytes();
+                }
+            } );
+
+            registry.register( CHECK_POINT_BACKGROUND_FLUSH_RATE, new Gauge<Long>()
+            {
+                @Override
+                public Long getValue()
+                {
+                    return checkPointerMonitor.backgroundFlushRateBytesPerSecond();
+                }
+            } );
         }
 
         // log rotation
@@ -331,6 +423,8 @@ public class DBMetrics extends LifecycleAdapter
             registry.remove( TX_TERMINATED );
             registry.remove( TX_STARTED );
             registry.remove( TX_PEAK_CONCURRENT );
+            registry.remove( TX_STATE_SPILLED );
+            registry.remove( TX_STATE_SPILLED_BYTES );
         }
 
         // Page cache metrics
@@ -342,6 +436,11 @@ public class DBMetrics extends LifecycleAdapter
             registry.remove( PC_UNPINS );
             registry.remove( PC_FLUSHES );
             registry.remove( PC_EVICTION_EXCEPTIONS );
+            pageCacheCounters.removeMappingListener( pagedFileGaugeRegistrar );
+            for ( File file : pagedFileGaugePrefixes.keySet() )
+            {
+                removePagedFileGauges( file );
+            }
         }
 
         // check pointing
@@ -349,6 +448,9 @@ public class DBMetrics extends LifecycleAdapter
         {
             registry.remove( CHECK_POINT_EVENTS );
             registry.remove( CHECK_POINT_TOTAL_TIME );
+            registry.remove( CHECK_POINT_BACKGROUND_FLUSHED_BYTES );
+            registry.remove( CHECK_POINT_FLUSHED_BYTES );
+            registry.remove( CHECK_POINT_BACKGROUND_FLUSH_RATE );
         }
 
         // log rotation
@@ -367,4 +469,125 @@ public class DBMetrics extends LifecycleAdapter
             registry.remove( COUNTS_RELATIONSHIP_TYPE );
         }
     }
+
+    private synchronized void registerPagedFileGauges( PagedFileMonitor pagedFile )
+    {
+        File file = pagedFile.file();
+        if ( pagedFileGaugePrefixes.containsKey( file ) )
+        {
+            // Mapped while we were registering the gauges of the files that were already mapped when we started
+            return;
+        }
+        String prefix = pagedFilePrefix( file );
+        pagedFileGaugePrefixes.put( file, prefix );
+        registry.register( name( prefix, "page_faults" ), new PagedFileGauge( pagedFile )
+        {
+            @Override
+            protected long value( PagedFileMonitor pagedFile )
+            {
+                return pagedFile.countFaults();
+            }
+        } );
+
+        registry.register( name( prefix, "hits" ), new PagedFileGauge( pagedFile )
+        {
+            @Override
+            protected long value( PagedFileMonitor pagedFile )
+            {
+                return pagedFile.countHits();
+            }
+        } );
+
+        registry.register( name( prefix, "evictions" ), new PagedFileGauge( pagedFile )
+        {
+            @Override
+            protected long value( PagedFileMonitor pagedFile )
+            {
+                return pagedFile.countEvictions();
+            }
+        } );
+
+        registry.register( name( prefix, "bytes_read" ), new PagedFileGauge( pagedFile )
+        {
+            @Override
+            protected long value( PagedFileMonitor pagedFile )
+            {
+                return pagedFile.countBytesRead();
+            }
+        } );
+
+        registry.register( name( prefix, "bytes_written" ), new PagedFileGauge( pagedFile )
+        {
+            @Override
+            protected long value( PagedFileMonitor pagedFile )
+            {
+                return pagedFile.countBytesWritten();
+            }
+        } );
+
+        registry.register( name( prefix, "resident_pages" ), new PagedFileGauge( pagedFile )
+        {
+            @Override
+            protected long value( PagedFileMonitor pagedFile )
+            {
+                return pagedFile.countResidentPages();
+            }
+        } );
+    }
+
+    private synchronized void removePagedFileGauges( File file )
+    {
+        final String prefix = pagedFileGaugePrefixes.remove( file );
+        if ( prefix != null )
+        {
+            registry.removeMatching( new MetricFilter()
+            {
+                @Override
+                public boolean matches( String name, Metric metric )
+                {
+                    return name.startsWith( prefix + "." );
+                }
+            } );
+        }
+    }
+
+    /**
+     * Names the gauges of a file by its path relative to the store directory, since different directories of the
+     * store, like those of the schema indexes, have files with the same name.
+     */
+    private String pagedFilePrefix( File file )
+    {
+        String path = file.getAbsolutePath();
+        File storeDir = config.get( GraphDatabaseSettings.store_dir );
+        if ( storeDir != null )
+        {
+            String storeDirPath = storeDir.getAbsolutePath() + File.separator;
+            if ( path.startsWith( storeDirPath ) )
+            {
+                path = path.substring( storeDirPath.length() );
+            }
+        }
+        return name( PC_FILE, path.split( Pattern.quote( File.separator ) ) );
+    }
+
+    /**
+     * Reads the counters of a file for as long as it is mapped, after which the gauge is removed.
+     */
+    private abstract static class PagedFileGauge implements Gauge<Long>
+    {
+        private final PagedFileMonitor pagedFile;
+
+        PagedFileGauge( PagedFileMonitor pagedFile )
+        {
+            this.pagedFile = pagedFile;
+        }
+
+        @Override
+        public Long getValue()
+        {
+            return value( pagedFile );
+        }
+
+        protected abstract long value( PagedFileMonitor pagedFile );
+    }
 }
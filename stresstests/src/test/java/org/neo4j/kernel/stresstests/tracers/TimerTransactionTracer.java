@@ -84,6 +84,11 @@ public class TimerTransactionTracer implements TransactionTracer, CheckPointTrac
             return LOG_FORCE_EVENT;
         }
 
+        @Override
+        public void flushed( long bytesFlushedSincePreviousCheckPoint, long bytesFlushedByCheckPoint )
+        {
+        }
+
         @Override
         public void close()
         {